@@ -0,0 +1,244 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package com.forgerock.opendj.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.util.Reject;
+
+/**
+ * A hashed timing wheel holding timers which expire at a given time.
+ * <p>
+ * Time is divided into ticks of a fixed duration, and each timer is stored in
+ * the slot of the wheel corresponding to the tick of its deadline, modulo the
+ * number of slots. Scheduling and cancelling a timer therefore cost a constant
+ * time whatever the number of pending timers, while expiring timers only
+ * visits the slots of the elapsed ticks. Timers whose deadline is more than one
+ * wheel revolution away simply stay in their slot until their tick comes.
+ * <p>
+ * Timers never expire before their deadline, but may expire up to one tick
+ * after it. This class does not own any thread: the caller is expected to
+ * periodically call {@link #expire(long)}, for example at the time returned by
+ * {@link #getNextExpirationTime()}.
+ * <p>
+ * This class is thread safe.
+ *
+ * @param <T>
+ *            The type of the objects attached to the timers.
+ */
+public final class TimingWheel<T> {
+    /**
+     * A timer scheduled in a timing wheel.
+     *
+     * @param <T>
+     *            The type of the object attached to the timer.
+     */
+    public static final class Timer<T> {
+        private final T object;
+        private final long deadline;
+        private final long deadlineTick;
+        /** The slot holding this timer, or -1 if this timer is not pending anymore. */
+        private int slot = -1;
+        private Timer<T> previous;
+        private Timer<T> next;
+
+        private Timer(final T object, final long deadline, final long deadlineTick) {
+            this.object = object;
+            this.deadline = deadline;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Returns the object attached to this timer.
+         *
+         * @return The object attached to this timer.
+         */
+        public T getObject() {
+            return object;
+        }
+
+        /**
+         * Returns the time at which this timer expires.
+         *
+         * @return The time at which this timer expires, in milliseconds.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        @Override
+        public String toString() {
+            return "Timer(" + object + ", deadline=" + deadline + ")";
+        }
+    }
+
+    private final long tickDuration;
+    private final long startTime;
+    private final Timer<T>[] slots;
+    private final int mask;
+    /** The first tick which has not been processed by {@link #expire(long)} yet. */
+    private long currentTick;
+    private int size;
+
+    /**
+     * Creates a new timing wheel.
+     *
+     * @param tickDuration
+     *            The duration of a tick in milliseconds, which is the precision
+     *            of the timers.
+     * @param nbSlots
+     *            The number of slots of the wheel, rounded up to a power of two.
+     *            One revolution of the wheel should cover the usual timeouts.
+     * @param currentTime
+     *            The current time in milliseconds.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(final long tickDuration, final int nbSlots, final long currentTime) {
+        Reject.ifFalse(tickDuration > 0, "tickDuration must be positive");
+        Reject.ifFalse(nbSlots > 0 && nbSlots <= 1 << 30, "nbSlots must be between 1 and 2^30");
+        this.tickDuration = tickDuration;
+        this.startTime = currentTime;
+        int length = 1;
+        while (length < nbSlots) {
+            length <<= 1;
+        }
+        this.slots = (Timer<T>[]) new Timer<?>[length];
+        this.mask = length - 1;
+    }
+
+    /**
+     * Schedules a timer expiring at the provided time.
+     *
+     * @param object
+     *            The object to attach to the timer.
+     * @param deadline
+     *            The time at which the timer expires, in milliseconds. A time in
+     *            the past makes the timer expire on the next tick.
+     * @return The new timer, which can be passed to {@link #cancel(Timer)}.
+     */
+    public synchronized Timer<T> schedule(final T object, final long deadline) {
+        // Round up so that timers never expire early
+        final long elapsed = deadline - startTime;
+        final long tick = Math.max(elapsed <= 0 ? 0 : (elapsed + tickDuration - 1) / tickDuration, currentTick);
+        final Timer<T> timer = new Timer<>(object, deadline, tick);
+        final int slot = (int) (tick & mask);
+        timer.slot = slot;
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.previous = timer;
+        }
+        slots[slot] = timer;
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels the provided timer.
+     *
+     * @param timer
+     *            The timer to cancel.
+     * @return {@code true} if the timer was pending, {@code false} if it has
+     *         already expired or been cancelled.
+     */
+    public synchronized boolean cancel(final Timer<T> timer) {
+        if (timer.slot == -1) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    /**
+     * Removes and returns the timers which expired at the provided time.
+     *
+     * @param currentTime
+     *            The current time in milliseconds.
+     * @return The expired timers, in no particular order. The list is empty if no
+     *         timers expired.
+     */
+    public synchronized List<Timer<T>> expire(final long currentTime) {
+        final List<Timer<T>> expired = new ArrayList<>();
+        final long lastTick = (currentTime - startTime) / tickDuration;
+        if (currentTime < startTime || lastTick < currentTick) {
+            return expired;
+        }
+        // Visit each slot at most once, even if the wheel made several revolutions
+        final long endTick = Math.min(lastTick, currentTick + mask);
+        for (long tick = currentTick; tick <= endTick && size > 0; tick++) {
+            Timer<T> timer = slots[(int) (tick & mask)];
+            while (timer != null) {
+                final Timer<T> next = timer.next;
+                if (timer.deadlineTick <= lastTick) {
+                    unlink(timer);
+                    expired.add(timer);
+                }
+                timer = next;
+            }
+        }
+        currentTick = lastTick + 1;
+        return expired;
+    }
+
+    /**
+     * Returns the earliest time at which {@link #expire(long)} may return
+     * timers. This costs at most one revolution of the wheel.
+     *
+     * @return The earliest time at which timers may expire in milliseconds, or
+     *         -1 if there are no pending timers.
+     */
+    public synchronized long getNextExpirationTime() {
+        if (size == 0) {
+            return -1;
+        }
+        for (long tick = currentTick; tick <= currentTick + mask; tick++) {
+            if (slots[(int) (tick & mask)] != null) {
+                return startTime + tick * tickDuration;
+            }
+        }
+        // Cannot happen since size > 0
+        return startTime + currentTick * tickDuration;
+    }
+
+    /**
+     * Returns the number of pending timers.
+     *
+     * @return The number of pending timers.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void unlink(final Timer<T> timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+        timer.slot = -1;
+        size--;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getClass().getSimpleName() + " size=" + size + " tickDuration=" + tickDuration + "ms";
+    }
+}
@@ -16,15 +16,15 @@
  */
 package org.forgerock.opendj.ldap;
 
-import static java.util.Collections.newSetFromMap;
-
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 
 import com.forgerock.opendj.util.ReferenceCountedObject;
+import com.forgerock.opendj.util.TimingWheel;
+import com.forgerock.opendj.util.TimingWheel.Timer;
 
 /**
  * Checks {@code TimeoutEventListener listeners} for events that have timed out.
@@ -32,6 +32,11 @@ import com.forgerock.opendj.util.ReferenceCountedObject;
  * All listeners registered with the {@code #addListener()} method are called
  * back with {@code TimeoutEventListener#handleTimeout()} to be able to handle
  * the timeout.
+ * <p>
+ * Each listener is armed in a {@link TimingWheel} with the delay returned by
+ * its last call to {@code TimeoutEventListener#handleTimeout()}, so that only
+ * the listeners whose delay has elapsed are called back, and adding or
+ * removing a listener costs a constant time whatever the number of listeners.
  */
 public final class TimeoutChecker {
     /**
@@ -52,17 +57,26 @@ public final class TimeoutChecker {
 
     private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+    /** Precision of the timeouts in milliseconds. */
+    private static final long TICK_DURATION_MS = 10;
+    /** One revolution of the timing wheel covers about 10 seconds. */
+    private static final int NB_SLOTS = 1024;
+
     /**
      * Condition variable used for coordinating the timeout thread.
      */
     private final Object stateLock = new Object();
 
     /**
-     * The listener set must be safe from CMEs. For example, if the listener is
-     * a connection, expiring requests can cause the connection to be closed.
+     * The pending timer of each listener. The map must be safe from CMEs. For
+     * example, if the listener is a connection, expiring requests can cause
+     * the connection to be closed.
      */
-    private final Set<TimeoutEventListener> listeners =
-            newSetFromMap(new ConcurrentHashMap<TimeoutEventListener, Boolean>());
+    private final ConcurrentMap<TimeoutEventListener, Timer<TimeoutEventListener>> listeners =
+            new ConcurrentHashMap<>();
+
+    private final TimingWheel<TimeoutEventListener> timers =
+            new TimingWheel<>(TICK_DURATION_MS, NB_SLOTS, System.currentTimeMillis());
 
     /**
      * Used to signal thread shutdown.
@@ -70,10 +84,11 @@ public final class TimeoutChecker {
     private volatile boolean shutdownRequested;
 
     /**
-     * Contains the minimum delay for listeners which were added while the
-     * timeout check was not sleeping (i.e. while it was processing listeners).
+     * The time at which the timeout thread will wake up, {@code Long.MAX_VALUE}
+     * if it waits for a new listener, or {@code Long.MIN_VALUE} while it
+     * processes listeners (it will then check the timing wheel before waiting).
      */
-    private volatile long pendingListenerMinDelay = Long.MAX_VALUE;
+    private long wakeUpTime = Long.MIN_VALUE;
 
     private TimeoutChecker() {
         final Thread checkerThread = new Thread("OpenDJ LDAP SDK Timeout Checker") {
@@ -81,42 +96,29 @@ public final class TimeoutChecker {
             public void run() {
                 logger.debug(LocalizableMessage.raw("Timeout Checker Starting"));
                 while (!shutdownRequested) {
-                    /*
-                     * New listeners may be added during iteration and may not
-                     * be included in the computation of the new delay. This
-                     * could potentially result in the timeout checker waiting
-                     * longer than it should, or even forever (e.g. if the new
-                     * listener is the first).
-                     */
                     final long currentTime = System.currentTimeMillis();
-                    long delay = Long.MAX_VALUE;
-                    pendingListenerMinDelay = Long.MAX_VALUE;
-                    for (final TimeoutEventListener listener : listeners) {
-                        logger.trace(LocalizableMessage.raw("Checking connection %s delay = %d", listener, delay));
-
-                        // May update the connections set.
-                        final long newDelay = listener.handleTimeout(currentTime);
-                        if (newDelay > 0) {
-                            delay = Math.min(newDelay, delay);
-                        }
+                    for (final Timer<TimeoutEventListener> timer : timers.expire(currentTime)) {
+                        handleTimeout(timer, currentTime);
                     }
 
                     try {
                         synchronized (stateLock) {
-                            // Include any pending listener delays.
-                            delay = Math.min(pendingListenerMinDelay, delay);
                             if (shutdownRequested) {
                                 // Stop immediately.
                                 break;
-                            } else if (delay <= 0) {
-                                /*
-                                 * If there is at least one connection then the
-                                 * delay should be > 0.
-                                 */
+                            }
+                            final long nextExpirationTime = timers.getNextExpirationTime();
+                            if (nextExpirationTime == -1) {
+                                wakeUpTime = Long.MAX_VALUE;
                                 stateLock.wait();
                             } else {
-                                stateLock.wait(delay);
+                                final long delay = nextExpirationTime - System.currentTimeMillis();
+                                if (delay > 0) {
+                                    wakeUpTime = nextExpirationTime;
+                                    stateLock.wait(delay);
+                                }
                             }
+                            wakeUpTime = Long.MIN_VALUE;
                         }
                     } catch (final InterruptedException e) {
                         shutdownRequested = true;
@@ -129,6 +131,26 @@ public final class TimeoutChecker {
         checkerThread.start();
     }
 
+    private void handleTimeout(final Timer<TimeoutEventListener> timer, final long currentTime) {
+        final TimeoutEventListener listener = timer.getObject();
+        if (listeners.get(listener) != timer) {
+            // The listener has been removed or added again meanwhile
+            return;
+        }
+        logger.trace(LocalizableMessage.raw("Checking connection %s", listener));
+
+        // May remove the listener.
+        final long newDelay = listener.handleTimeout(currentTime);
+        if (newDelay > 0) {
+            final Timer<TimeoutEventListener> newTimer = timers.schedule(listener, currentTime + newDelay);
+            if (!listeners.replace(listener, timer, newTimer)) {
+                timers.cancel(newTimer);
+            }
+        } else {
+            listeners.remove(listener, timer);
+        }
+    }
+
     /**
      * Registers a timeout event listener for timeout notification.
      *
@@ -142,10 +164,15 @@ public final class TimeoutChecker {
          */
         final long timeout = listener.getTimeout();
         if (timeout > 0) {
-            listeners.add(listener);
+            final long deadline = System.currentTimeMillis() + timeout;
+            final Timer<TimeoutEventListener> oldTimer = listeners.put(listener, timers.schedule(listener, deadline));
+            if (oldTimer != null) {
+                timers.cancel(oldTimer);
+            }
             synchronized (stateLock) {
-                pendingListenerMinDelay = Math.min(pendingListenerMinDelay, timeout);
-                stateLock.notifyAll();
+                if (deadline < wakeUpTime) {
+                    stateLock.notifyAll();
+                }
             }
         }
     }
@@ -157,7 +184,10 @@ public final class TimeoutChecker {
      *            The timeout event listener.
      */
     public void removeListener(final TimeoutEventListener listener) {
-        listeners.remove(listener);
+        final Timer<TimeoutEventListener> timer = listeners.remove(listener);
+        if (timer != null) {
+            timers.cancel(timer);
+        }
         // No need to signal.
     }
 
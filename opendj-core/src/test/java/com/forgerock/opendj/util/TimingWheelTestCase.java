@@ -0,0 +1,122 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package com.forgerock.opendj.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.forgerock.opendj.util.TimingWheel.Timer;
+
+/** Tests for the {@link TimingWheel} class. */
+@SuppressWarnings("javadoc")
+public class TimingWheelTestCase extends UtilTestCase {
+    private static final long START = 1000000L;
+
+    @Test
+    public void testTimerNeverExpiresEarly() {
+        final TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        assertThat(wheel.getNextExpirationTime()).isEqualTo(-1);
+
+        wheel.schedule("a", START + 15);
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.getNextExpirationTime()).isEqualTo(START + 20);
+        assertThat(wheel.expire(START + 10)).isEmpty();
+        assertThat(wheel.expire(START + 19)).isEmpty();
+        assertThat(objects(wheel.expire(START + 20))).containsExactly("a");
+        assertThat(wheel.size()).isEqualTo(0);
+        assertThat(wheel.getNextExpirationTime()).isEqualTo(-1);
+    }
+
+    @Test
+    public void testTimerInThePastExpiresOnNextTick() {
+        final TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        assertThat(wheel.expire(START + 100)).isEmpty();
+
+        wheel.schedule("a", START);
+        assertThat(wheel.getNextExpirationTime()).isEqualTo(START + 110);
+        assertThat(objects(wheel.expire(START + 110))).containsExactly("a");
+    }
+
+    @Test
+    public void testCancel() {
+        final TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        final Timer<String> a = wheel.schedule("a", START + 30);
+        final Timer<String> b = wheel.schedule("b", START + 30);
+        final Timer<String> c = wheel.schedule("c", START + 30);
+
+        assertThat(wheel.cancel(b)).isTrue();
+        assertThat(wheel.cancel(b)).isFalse();
+        assertThat(wheel.size()).isEqualTo(2);
+        assertThat(objects(wheel.expire(START + 30))).containsOnly("a", "c");
+        assertThat(wheel.cancel(a)).isFalse();
+        assertThat(wheel.cancel(c)).isFalse();
+    }
+
+    @Test
+    public void testTimersBeyondOneRevolution() {
+        final TimingWheel<String> wheel = new TimingWheel<>(10, 8, START);
+        // Same slot, one and three revolutions away
+        wheel.schedule("near", START + 10);
+        wheel.schedule("far", START + 90);
+        wheel.schedule("farther", START + 250);
+
+        assertThat(objects(wheel.expire(START + 10))).containsExactly("near");
+        assertThat(wheel.getNextExpirationTime()).isEqualTo(START + 90);
+        assertThat(wheel.expire(START + 80)).isEmpty();
+        assertThat(objects(wheel.expire(START + 90))).containsExactly("far");
+        // Skipping several revolutions at once
+        assertThat(objects(wheel.expire(START + 1000))).containsExactly("farther");
+    }
+
+    @Test
+    public void testManyPendingTimers() {
+        final int nbTimers = 100000;
+        final TimingWheel<Integer> wheel = new TimingWheel<>(10, 1024, START);
+        final List<Timer<Integer>> timers = new ArrayList<>(nbTimers);
+        for (int i = 0; i < nbTimers; i++) {
+            timers.add(wheel.schedule(i, START + 1 + (i * 7919L) % 60000));
+        }
+        assertThat(wheel.size()).isEqualTo(nbTimers);
+
+        for (int i = 0; i < nbTimers; i += 2) {
+            assertThat(wheel.cancel(timers.get(i))).isTrue();
+        }
+        assertThat(wheel.size()).isEqualTo(nbTimers / 2);
+
+        int nbExpired = 0;
+        for (long time = START; time <= START + 60000; time += 500) {
+            for (final Timer<Integer> timer : wheel.expire(time)) {
+                assertThat(timer.getObject() % 2).isEqualTo(1);
+                assertThat(timer.getDeadline()).isLessThanOrEqualTo(time);
+                nbExpired++;
+            }
+        }
+        assertThat(nbExpired).isEqualTo(nbTimers / 2);
+        assertThat(wheel.size()).isEqualTo(0);
+    }
+
+    private static <T> List<T> objects(final List<Timer<T>> timers) {
+        final List<T> objects = new ArrayList<>();
+        for (final Timer<T> timer : timers) {
+            objects.add(timer.getObject());
+        }
+        return objects;
+    }
+}
@@ -47,6 +47,7 @@ import java.util.concurrent.TimeUnit;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -83,6 +84,7 @@ import org.opends.server.core.ServerContext;
 import org.opends.server.core.WorkQueueStrategy;
 import org.opends.server.extensions.NullKeyManagerProvider;
 import org.opends.server.monitors.ClientConnectionMonitorProvider;
+import org.opends.server.monitors.TLSHandshakeStatistics;
 import org.opends.server.protocols.ldap.LDAPStatistics;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.DisconnectReason;
@@ -202,6 +204,9 @@ public final class LDAPConnectionHandler2 extends ConnectionHandler<LDAPConnecti
     /** The SSL engine is used for obtaining default SSL parameters. */
     private SSLEngine sslEngine;
 
+    /** The statistics about the SSL/TLS handshakes. */
+    private final TLSHandshakeStatistics tlsStatistics = new TLSHandshakeStatistics();
+
     /**
      * Connection finalizer thread.
      * <p>
@@ -416,6 +421,11 @@ public final class LDAPConnectionHandler2 extends ConnectionHandler<LDAPConnecti
         return super.getEnabledSSLProtocols();
     }
 
+    @Override
+    public TLSHandshakeStatistics getTLSHandshakeStatistics() {
+        return sslContext != null ? tlsStatistics : null;
+    }
+
     @Override
     public Collection<HostPort> getListeners() {
         return listeners;
@@ -847,7 +857,7 @@ public final class LDAPConnectionHandler2 extends ConnectionHandler<LDAPConnecti
     }
 
     SSLEngine createSSLEngine() throws DirectoryException {
-        return createSSLEngine(currentConfig, sslContext);
+        return new HandshakeRecordingSSLEngine(createSSLEngine(currentConfig, sslContext), tlsStatistics);
     }
 
     private SSLEngine createSSLEngine(LDAPConnectionHandlerCfg config, SSLContext sslContext)
@@ -946,6 +956,9 @@ public final class LDAPConnectionHandler2 extends ConnectionHandler<LDAPConnecti
             } else {
             	sslContext.init(keyManagers, trustManagers, null);
             }
+            final SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+            sessionContext.setSessionCacheSize(config.getSSLSessionCacheSize());
+            sessionContext.setSessionTimeout((int) config.getSSLSessionTimeout());
             return sslContext;
         } catch (Exception e) {
             logger.traceException(e);
@@ -408,6 +408,28 @@ public abstract class AccessControlHandler
 
 
 
+  /**
+   * Indicates whether the entries returned by the provided search
+   * operation may be sent to the client without calling
+   * {@link #maySend(Operation, SearchResultEntry)} and
+   * {@link #filterEntry(Operation, SearchResultEntry, SearchResultEntry)}
+   * for each of them, because the access control configuration would
+   * neither reject nor alter any of them.
+   * <p>
+   * The default implementation returns {@code false}.
+   *
+   * @param searchOperation
+   *          The search operation currently being processed.
+   * @return {@code true} if the entries may be sent without any
+   *         access control evaluation, or {@code false} if not.
+   */
+  public boolean mayReturnUnfilteredEntries(SearchOperation searchOperation)
+  {
+    return false;
+  }
+
+
+
   /**
    * Indicates whether the provided search result reference may be
    * sent to the client based on the access control configuration.
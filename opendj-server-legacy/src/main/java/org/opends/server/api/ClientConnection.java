@@ -1243,6 +1243,7 @@ public abstract class ClientConnection
   public void setIdleTimeLimit(long idleTimeLimit)
   {
     this.idleTimeLimit = idleTimeLimit;
+    DirectoryServer.idleTimeLimitChanged(this);
   }
 
 
@@ -29,6 +29,7 @@ import org.forgerock.opendj.server.config.server.ConnectionHandlerCfg;
 import org.opends.server.core.ServerContext;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.opends.server.monitors.ConnectionHandlerMonitor;
+import org.opends.server.monitors.TLSHandshakeStatistics;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.HostPort;
 import org.opends.server.types.InitializationException;
@@ -134,6 +135,22 @@ public abstract class ConnectionHandler
 
 
 
+  /**
+   * Retrieves the statistics about the SSL/TLS handshakes performed by this
+   * connection handler, if applicable. Implementations must return
+   * {@code null} if use of SSL/TLS is not possible.
+   *
+   * @return The statistics about the SSL/TLS handshakes performed by this
+   *         connection handler, or {@code null} if use of SSL/TLS is not
+   *         possible.
+   */
+  public TLSHandshakeStatistics getTLSHandshakeStatistics()
+  {
+    return null;
+  }
+
+
+
    /**
    * Retrieves the DN of the configuration entry with which this alert
    * generator is associated.
@@ -0,0 +1,529 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.jcip.annotations.Immutable;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.RDN;
+
+/**
+ * An immutable trie storing lists of objects in a Directory Information Tree
+ * (DIT) like structure, each node of the trie corresponding to one RDN.
+ * <p>
+ * Updating a trie does not modify it but returns a new trie, which shares with
+ * the original one all the nodes which are not on the path of the updated DN.
+ * Lookups therefore do not need any locking: a component typically publishes
+ * the current trie in a volatile field read by any number of threads, and
+ * serializes its updates which replace this field.
+ * <p>
+ * Each update copies the nodes on the path of its DN, along with their map of
+ * children, so updating one by one the N children of a DN costs O(N&sup2;).
+ * {@link #addAll(Map)} and {@link #putAll(Map)} apply many updates at once,
+ * copying each node at most once.
+ * <p>
+ * In addition to the lookups by DN, the trie returns all the objects stored on
+ * the path from a DN up to the root DN in a single walk, and all the objects
+ * stored in the subtree of a DN without iterating over the whole trie.
+ *
+ * @param <T>
+ *          arbitrary object type.
+ * @see DITCacheMap
+ */
+@Immutable
+public final class DITTrie<T>
+{
+  /**
+   * An immutable node of the trie.
+   * @param <T> arbitrary storage object.
+   */
+  private static final class Node<T>
+  {
+    private final DN dn;
+    /** Unmodifiable list of the objects stored for this node DN. */
+    private final List<T> values;
+    /** Unmodifiable map of the child nodes, keyed by RDN. */
+    private final Map<RDN, Node<T>> children;
+
+    private Node(DN dn, List<T> values, Map<RDN, Node<T>> children)
+    {
+      this.dn = dn;
+      this.values = values;
+      this.children = children;
+    }
+
+    private boolean isEmpty()
+    {
+      return values.isEmpty() && children.isEmpty();
+    }
+  }
+
+  private static final DITTrie<?> EMPTY = new DITTrie<>(
+      new Node<>(DN.rootDN(), Collections.emptyList(), Collections.<RDN, Node<Object>> emptyMap()));
+
+  private final Node<T> root;
+
+  private DITTrie(Node<T> root)
+  {
+    this.root = root;
+  }
+
+  /**
+   * Returns an empty trie.
+   *
+   * @param <T>
+   *          arbitrary object type.
+   * @return an empty trie
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> DITTrie<T> empty()
+  {
+    return (DITTrie<T>) EMPTY;
+  }
+
+  /**
+   * Indicates whether this trie does not contain any object.
+   *
+   * @return {@code true} if this trie does not contain any object
+   */
+  public boolean isEmpty()
+  {
+    return root.isEmpty();
+  }
+
+  /**
+   * Returns the objects stored for the provided DN.
+   *
+   * @param dn
+   *          the DN
+   * @return the unmodifiable list of objects stored for the provided DN,
+   *         which is empty if there are none
+   */
+  public List<T> get(DN dn)
+  {
+    final Node<T> node = getNode(dn);
+    return node != null ? node.values : Collections.<T> emptyList();
+  }
+
+  /**
+   * Returns the objects stored for the provided DN and for all its superiors,
+   * excluding the objects stored for the root DN. The objects of the provided
+   * DN come first, then the objects of its parent and so on.
+   *
+   * @param dn
+   *          the DN
+   * @return a new list of objects stored on the path from the provided DN up
+   *         to the root DN
+   */
+  public List<T> getValuesOnPath(DN dn)
+  {
+    final DN[] path = path(dn);
+    @SuppressWarnings("unchecked")
+    final Node<T>[] nodes = new Node[path.length];
+    int depth = 0;
+    for (Node<T> node = root; node != null && depth < path.length - 1; depth++)
+    {
+      node = node.children.get(path[depth + 1].rdn());
+      nodes[depth + 1] = node;
+    }
+
+    final List<T> values = new ArrayList<>();
+    for (int i = path.length - 1; i > 0; i--)
+    {
+      if (nodes[i] != null)
+      {
+        values.addAll(nodes[i].values);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the objects stored for the provided DN and all its subordinates,
+   * keyed by DN. Superior DNs come before their subordinates.
+   *
+   * @param dn
+   *          the base DN of the subtree
+   * @return a new map of the objects stored in the subtree of the provided DN
+   */
+  public Map<DN, List<T>> getSubtree(DN dn)
+  {
+    final Map<DN, List<T>> subtree = new LinkedHashMap<>();
+    final Node<T> node = getNode(dn);
+    if (node != null)
+    {
+      collectSubtree(node, subtree, null);
+    }
+    return subtree;
+  }
+
+  /**
+   * Returns the objects stored for the provided DN and all its subordinates.
+   *
+   * @param dn
+   *          the base DN of the subtree
+   * @return a new list of the objects stored in the subtree of the provided DN
+   */
+  public List<T> getSubtreeValues(DN dn)
+  {
+    final List<T> values = new ArrayList<>();
+    final Node<T> node = getNode(dn);
+    if (node != null)
+    {
+      collectSubtree(node, null, values);
+    }
+    return values;
+  }
+
+  /**
+   * Returns a trie where the objects stored for the provided DN are replaced
+   * by the provided ones.
+   *
+   * @param dn
+   *          the DN
+   * @param values
+   *          the objects to store for the DN, an empty list removing them
+   * @return the updated trie, this trie if it is unchanged
+   */
+  public DITTrie<T> put(DN dn, List<? extends T> values)
+  {
+    final List<T> newValues = values.isEmpty()
+        ? Collections.<T> emptyList()
+        : Collections.unmodifiableList(new ArrayList<T>(values));
+    return update(dn, newValues, false);
+  }
+
+  /**
+   * Returns a trie where the provided object is added after the objects
+   * stored for the provided DN.
+   *
+   * @param dn
+   *          the DN
+   * @param value
+   *          the object to add
+   * @return the updated trie
+   */
+  public DITTrie<T> add(DN dn, T value)
+  {
+    return add(dn, Collections.singletonList(value));
+  }
+
+  /**
+   * Returns a trie where the provided objects are added after the objects
+   * stored for the provided DN.
+   *
+   * @param dn
+   *          the DN
+   * @param values
+   *          the objects to add
+   * @return the updated trie, this trie if there are no objects to add
+   */
+  public DITTrie<T> add(DN dn, Collection<? extends T> values)
+  {
+    if (values.isEmpty())
+    {
+      return this;
+    }
+    final List<T> newValues = new ArrayList<>(get(dn));
+    newValues.addAll(values);
+    return update(dn, Collections.unmodifiableList(newValues), false);
+  }
+
+  /**
+   * Returns a trie where the provided objects are added after the objects
+   * stored for their DN. Each node is copied at most once, whatever the
+   * number of DNs updated below it.
+   *
+   * @param values
+   *          the objects to add, keyed by DN
+   * @return the updated trie, this trie if there are no objects to add
+   */
+  public DITTrie<T> addAll(Map<DN, ? extends Collection<? extends T>> values)
+  {
+    return updateAll(values, true);
+  }
+
+  /**
+   * Returns a trie where the objects stored for each of the provided DNs are
+   * replaced by the provided ones. Each node is copied at most once, whatever
+   * the number of DNs updated below it.
+   *
+   * @param values
+   *          the objects to store, keyed by DN, an empty list removing the
+   *          objects stored for the DN
+   * @return the updated trie, this trie if there are no DNs to update
+   */
+  public DITTrie<T> putAll(Map<DN, ? extends Collection<? extends T>> values)
+  {
+    return updateAll(values, false);
+  }
+
+  /**
+   * Returns a trie where the provided object is removed from the objects
+   * stored for the provided DN.
+   *
+   * @param dn
+   *          the DN
+   * @param value
+   *          the object to remove
+   * @return the updated trie, this trie if the object was not stored for the DN
+   */
+  public DITTrie<T> remove(DN dn, T value)
+  {
+    final List<T> newValues = new ArrayList<>(get(dn));
+    if (!newValues.remove(value))
+    {
+      return this;
+    }
+    return put(dn, newValues);
+  }
+
+  /**
+   * Returns a trie where all the objects stored for the provided DN are
+   * removed. Objects stored for its subordinates are kept.
+   *
+   * @param dn
+   *          the DN
+   * @return the updated trie, this trie if no objects were stored for the DN
+   */
+  public DITTrie<T> remove(DN dn)
+  {
+    return update(dn, Collections.<T> emptyList(), false);
+  }
+
+  /**
+   * Returns a trie where all the objects stored for the provided DN and all
+   * its subordinates are removed.
+   *
+   * @param dn
+   *          the base DN of the subtree to remove
+   * @return the updated trie, this trie if no objects were stored in the
+   *         subtree
+   */
+  public DITTrie<T> removeSubtree(DN dn)
+  {
+    return update(dn, Collections.<T> emptyList(), true);
+  }
+
+  private Node<T> getNode(DN dn)
+  {
+    final DN[] path = path(dn);
+    Node<T> node = root;
+    for (int depth = 1; node != null && depth < path.length; depth++)
+    {
+      node = node.children.get(path[depth].rdn());
+    }
+    return node;
+  }
+
+  private DITTrie<T> update(DN dn, List<T> values, boolean removeSubordinates)
+  {
+    final Node<T> newRoot = update(root, path(dn), 0, values, removeSubordinates);
+    if (newRoot == root)
+    {
+      return this;
+    }
+    return newRoot != null ? new DITTrie<>(newRoot) : DITTrie.<T> empty();
+  }
+
+  /**
+   * Copies the nodes on the path of the updated DN, all the other nodes being
+   * shared with the original trie.
+   *
+   * @return the new node, the same node if unchanged, or {@code null} if the
+   *         node becomes empty
+   */
+  private static <T> Node<T> update(Node<T> node, DN[] path, int depth, List<T> values,
+      boolean removeSubordinates)
+  {
+    List<T> newValues = node != null ? node.values : Collections.<T> emptyList();
+    Map<RDN, Node<T>> newChildren = node != null ? node.children : Collections.<RDN, Node<T>> emptyMap();
+    if (depth == path.length - 1)
+    {
+      if (newValues.isEmpty() && values.isEmpty()
+          && (!removeSubordinates || newChildren.isEmpty()))
+      {
+        return node;
+      }
+      newValues = values;
+      if (removeSubordinates)
+      {
+        newChildren = Collections.emptyMap();
+      }
+    }
+    else
+    {
+      final RDN rdn = path[depth + 1].rdn();
+      final Node<T> child = newChildren.get(rdn);
+      final Node<T> newChild = update(child, path, depth + 1, values, removeSubordinates);
+      if (newChild == child)
+      {
+        return node;
+      }
+      newChildren = new HashMap<>(newChildren);
+      if (newChild != null)
+      {
+        newChildren.put(rdn, newChild);
+      }
+      else
+      {
+        newChildren.remove(rdn);
+      }
+      newChildren = newChildren.isEmpty()
+          ? Collections.<RDN, Node<T>> emptyMap()
+          : Collections.unmodifiableMap(newChildren);
+    }
+
+    if (newValues.isEmpty() && newChildren.isEmpty())
+    {
+      return null;
+    }
+    return new Node<>(path[depth], newValues, newChildren);
+  }
+
+  private DITTrie<T> updateAll(Map<DN, ? extends Collection<? extends T>> values, boolean append)
+  {
+    final MutableNode<T> newRoot = new MutableNode<>(DN.rootDN(), root);
+    boolean isUpdated = false;
+    for (Map.Entry<DN, ? extends Collection<? extends T>> entry : values.entrySet())
+    {
+      if (append && entry.getValue().isEmpty())
+      {
+        continue;
+      }
+      final MutableNode<T> node = newRoot.getDescendant(path(entry.getKey()));
+      if (!append)
+      {
+        node.values.clear();
+      }
+      node.values.addAll(entry.getValue());
+      isUpdated = true;
+    }
+    if (!isUpdated)
+    {
+      return this;
+    }
+    final Node<T> frozenRoot = newRoot.freeze();
+    return frozenRoot != null ? new DITTrie<>(frozenRoot) : DITTrie.<T> empty();
+  }
+
+  /**
+   * A copy of a node being updated by a bulk update, whose children being
+   * updated are copied too.
+   * @param <T> arbitrary storage object.
+   */
+  private static final class MutableNode<T>
+  {
+    private final DN dn;
+    private final List<T> values;
+    /** The child nodes which are not updated. */
+    private final Map<RDN, Node<T>> children;
+    private final Map<RDN, MutableNode<T>> updatedChildren = new HashMap<>();
+
+    private MutableNode(DN dn, Node<T> node)
+    {
+      this.dn = dn;
+      this.values = node != null ? new ArrayList<>(node.values) : new ArrayList<T>();
+      this.children = node != null ? new HashMap<>(node.children) : new HashMap<RDN, Node<T>>();
+    }
+
+    /** Returns the copy of the node of the last DN of the path, copying the nodes leading to it. */
+    private MutableNode<T> getDescendant(DN[] path)
+    {
+      MutableNode<T> node = this;
+      for (int depth = 1; depth < path.length; depth++)
+      {
+        final RDN rdn = path[depth].rdn();
+        MutableNode<T> child = node.updatedChildren.get(rdn);
+        if (child == null)
+        {
+          child = new MutableNode<>(path[depth], node.children.get(rdn));
+          node.updatedChildren.put(rdn, child);
+        }
+        node = child;
+      }
+      return node;
+    }
+
+    /** Returns the immutable node holding the updates, {@code null} if it is empty. */
+    private Node<T> freeze()
+    {
+      for (Map.Entry<RDN, MutableNode<T>> entry : updatedChildren.entrySet())
+      {
+        final Node<T> child = entry.getValue().freeze();
+        if (child != null)
+        {
+          children.put(entry.getKey(), child);
+        }
+        else
+        {
+          children.remove(entry.getKey());
+        }
+      }
+      if (values.isEmpty() && children.isEmpty())
+      {
+        return null;
+      }
+      return new Node<>(dn,
+          values.isEmpty() ? Collections.<T> emptyList() : Collections.unmodifiableList(values),
+          children.isEmpty() ? Collections.<RDN, Node<T>> emptyMap() : Collections.unmodifiableMap(children));
+    }
+  }
+
+  private static <T> void collectSubtree(Node<T> node, Map<DN, List<T>> subtree, List<T> values)
+  {
+    if (!node.values.isEmpty())
+    {
+      if (subtree != null)
+      {
+        subtree.put(node.dn, node.values);
+      }
+      if (values != null)
+      {
+        values.addAll(node.values);
+      }
+    }
+    for (Node<T> child : node.children.values())
+    {
+      collectSubtree(child, subtree, values);
+    }
+  }
+
+  /** Returns the DN and its superiors, indexed by their number of RDNs. */
+  private static DN[] path(DN dn)
+  {
+    final DN[] path = new DN[dn.size() + 1];
+    for (DN superior = dn; superior != null; superior = superior.parent())
+    {
+      path[superior.size()] = superior;
+    }
+    return path;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getSubtree(DN.rootDN()).toString();
+  }
+}
@@ -415,6 +415,55 @@ public abstract class Group<T extends GroupImplementationCfg>
    */
   public abstract boolean mayAlterMemberList();
 
+  /**
+   * Indicates whether this group instance keeps its members in
+   * memory, and maintains them from the changes of the entries
+   * reported by the group manager with
+   * {@link #processEntryChange(Entry, Entry, boolean)}.
+   *
+   * @return  {@code true} if this group instance maintains its
+   *          members from the changes of the entries, or
+   *          {@code false} if not.
+   */
+  public boolean maintainsMemberList()
+  {
+    return false;
+  }
+
+  /**
+   * Updates the members of this group instance after an entry has
+   * been added, deleted, modified or renamed.  This is only invoked
+   * for the group instances maintaining their members from the
+   * changes of the entries.
+   *
+   * @param  oldEntry             The entry before the change, or
+   *                              {@code null} if it has been added.
+   * @param  newEntry             The entry after the change, or
+   *                              {@code null} if it has been
+   *                              deleted.
+   * @param  subordinatesChanged  Indicates whether the subordinate
+   *                              entries of the entry may also have
+   *                              been deleted or renamed.
+   */
+  public void processEntryChange(Entry oldEntry, Entry newEntry,
+                                 boolean subordinatesChanged)
+  {
+    // No implementation is required by default.
+  }
+
+  /**
+   * Indicates that entries may have changed without being reported
+   * with {@link #processEntryChange(Entry, Entry, boolean)}, for
+   * example because a backend has been imported or initialized, so
+   * the members of this group instance must be retrieved again.
+   * This is only invoked for the group instances maintaining their
+   * members from the changes of the entries.
+   */
+  public void invalidateMembers()
+  {
+    // No implementation is required by default.
+  }
+
   /**
    * Attempt to make multiple changes to the group's member list.
    *
@@ -19,12 +19,14 @@ package org.opends.server.api;
 import static org.opends.messages.BackendMessages.*;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.forgerock.opendj.config.Configuration;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
@@ -343,6 +345,32 @@ public abstract class LocalBackend<C extends Configuration> extends Backend<C>
    */
   public abstract Entry getEntry(DN entryDN) throws DirectoryException;
 
+  /**
+   * Retrieves the entries below the provided base DN which contain one of the provided values for
+   * one of the provided attribute types, by looking these values up directly in the equality
+   * indexes of this backend. This is faster than processing the equivalent search, and is meant
+   * for the server components which need to check whether values are already in use.
+   * <p>
+   * This default implementation returns {@code null}. Backends maintaining equality indexes may
+   * override it.
+   *
+   * @param baseDN
+   *          The DN of the subtree in which the entries must be.
+   * @param attributeTypes
+   *          The attribute types whose values must be looked up.
+   * @param values
+   *          The values to look up.
+   * @return The matching entries, or {@code null} if they cannot be retrieved from the equality
+   *         indexes of this backend, in which case the caller should process a search instead.
+   * @throws DirectoryException
+   *           If a problem occurs while trying to retrieve the entries.
+   */
+  public List<Entry> getEntriesMatchingValues(DN baseDN, Collection<AttributeType> attributeTypes,
+      Collection<ByteString> values) throws DirectoryException
+  {
+    return null;
+  }
+
   /**
    * Adds the provided entry to this backend.  This method must ensure
    * that the entry is appropriate for the backend and that no entry
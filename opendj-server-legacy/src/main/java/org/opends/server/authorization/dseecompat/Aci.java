@@ -386,6 +386,16 @@ public class Aci implements Comparable<Aci>
         return body.hasAccessType(accessType);
     }
 
+    /**
+     * Re-direct is resource independent to the body's isResourceIndependent
+     * method.
+     * @return True if the bind rules of this ACI evaluate the same way for
+     * all the resource entries of an operation.
+     */
+    boolean isResourceIndependent() {
+        return body.isResourceIndependent();
+    }
+
     /**
      * Evaluate this ACI using the evaluation context provided. Re-direct
      * that calls the body's evaluate method.
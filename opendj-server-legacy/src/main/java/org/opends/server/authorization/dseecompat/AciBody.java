@@ -52,6 +52,8 @@ public class AciBody {
 
     /** This structure represents a permission-bind rule pairs. There can be several of these. */
     private final List<PermBindRulePair> permBindRulePairs;
+    /** Whether all the bind rules evaluate the same way for all the resource entries of an operation. */
+    private final boolean isResourceIndependent;
 
     /**
      * Regular expression used to match the access type group (allow, deny) and
@@ -122,6 +124,11 @@ public class AciBody {
         this.name=name;
         this.startPos=startPos;
         this.permBindRulePairs=permBindRulePairs;
+        boolean resourceIndependent = true;
+        for (PermBindRulePair pair : permBindRulePairs) {
+            resourceIndependent &= pair.getBindRule().isResourceIndependent();
+        }
+        this.isResourceIndependent = resourceIndependent;
     }
 
     /**
@@ -218,6 +225,17 @@ public class AciBody {
         return permBindRulePairs;
     }
 
+    /**
+     * Indicates whether the bind rules of this ACI body evaluate the same way
+     * for all the resource entries of an operation.
+     *
+     * @return True if the evaluation only depends on the client and its
+     *         connection.
+     */
+    boolean isResourceIndependent() {
+        return isResourceIndependent;
+    }
+
     /**
      * Get the start position in the ACI string of the ACI body.
      *
@@ -19,12 +19,18 @@ package org.opends.server.authorization.dseecompat;
 import static org.opends.server.authorization.dseecompat.Aci.*;
 import static org.opends.server.authorization.dseecompat.AciHandler.*;
 import static org.opends.server.util.ServerConstants.OID_GET_EFFECTIVE_RIGHTS;
+import static org.opends.server.util.ServerConstants.OID_PERSISTENT_SEARCH;
 
 import java.net.InetAddress;
 import java.security.cert.Certificate;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
@@ -37,6 +43,7 @@ import org.opends.server.core.AddOperation;
 import org.opends.server.core.SearchOperation;
 import org.opends.server.types.AuthenticationInfo;
 import org.opends.server.types.AuthenticationType;
+import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.Operation;
@@ -48,9 +55,36 @@ import org.opends.server.types.Operation;
  *  the actual access evaluation of the ACI.
  */
 abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
+    /**
+     * Name of the operation attachment memoizing the group memberships of the
+     * clients evaluated by the operation, so that the groupdn bind rules are
+     * not evaluated again for each entry returned by a search. Persistent
+     * searches do not use it, since they last until abandoned and must see
+     * group membership changes.
+     */
+    private static final String GROUP_MEMBERSHIPS = "aciGroupMemberships";
+
+    /**
+     * Name of the operation attachment memoizing the access decisions made by
+     * the operation, so that the same applicable ACIs are not evaluated again
+     * for each entry returned by a search. The decisions are dropped as soon as
+     * the ACI list changes.
+     */
+    private static final String ACCESS_DECISIONS = "aciAccessDecisions";
+
     /** The allow and deny lists. */
     private List<Aci> denyList, allowList;
 
+    /** The DN for which the candidate ACIs have been gathered. */
+    private DN candidateAcisDN;
+    /**
+     * The candidate ACIs of the resource entry, gathered once for the
+     * evaluation of all its attribute types.
+     */
+    private List<Aci> candidateAcis;
+    /** The generation of the ACI list the candidate ACIs were gathered from. */
+    private long candidateAcisGeneration;
+
     /** The attribute type in the resource entry currently being evaluated. */
     private AttributeType attributeType;
     /** The attribute type value in the resource entry currently being evaluated. */
@@ -649,6 +683,20 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
 
     @Override
     public boolean isMemberOf(Group<?> group) {
+        final Map<DN, Boolean> memberships = getGroupMemberships(getClientDN());
+        if (memberships == null) {
+            return isMemberOf0(group);
+        }
+        final Boolean isMember = memberships.get(group.getGroupDN());
+        if (isMember != null) {
+            return isMember;
+        }
+        final boolean result = isMemberOf0(group);
+        memberships.put(group.getGroupDN(), result);
+        return result;
+    }
+
+    private boolean isMemberOf0(Group<?> group) {
         try {
             if(useAuthzid) {
                 return group.isMember(this.authzid);
@@ -663,6 +711,225 @@ abstract class AciContainer implements AciTargetMatchContext, AciEvalContext {
         }
     }
 
+    /**
+     * Returns the group memberships of the provided client already evaluated
+     * by the operation.
+     *
+     * @param clientDN The DN of the client.
+     * @return The map of the group DNs to the membership of the client, or
+     *         {@code null} if the memberships must not be memoized.
+     */
+    private Map<DN, Boolean> getGroupMemberships(DN clientDN) {
+        if (isPersistentSearch()) {
+            return null;
+        }
+        ConcurrentMap<DN, ConcurrentMap<DN, Boolean>> memberships;
+        synchronized (operation) {
+            memberships = operation.getAttachment(GROUP_MEMBERSHIPS);
+            if (memberships == null) {
+                memberships = new ConcurrentHashMap<>();
+                operation.setAttachment(GROUP_MEMBERSHIPS, memberships);
+            }
+        }
+        ConcurrentMap<DN, Boolean> clientMemberships = memberships.get(clientDN);
+        if (clientMemberships == null) {
+            final ConcurrentMap<DN, Boolean> newMemberships = new ConcurrentHashMap<>();
+            clientMemberships = memberships.putIfAbsent(clientDN, newMemberships);
+            if (clientMemberships == null) {
+                clientMemberships = newMemberships;
+            }
+        }
+        return clientMemberships;
+    }
+
+    private boolean isPersistentSearch() {
+        if (operation instanceof SearchOperation) {
+            for (Control control : operation.getRequestControls()) {
+                if (OID_PERSISTENT_SEARCH.equals(control.getOID())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the candidate ACIs of the provided DN. The candidate ACIs are
+     * gathered only once for all the evaluations made on the same DN, for
+     * example for each attribute type of the resource entry.
+     *
+     * @param aciList The list of all the ACIs.
+     * @param dn The DN to get the candidate ACIs for.
+     * @return The candidate ACIs of the provided DN.
+     */
+    List<Aci> getCandidateAcis(AciList aciList, DN dn) {
+        if (candidateAcis == null || !dn.equals(candidateAcisDN)) {
+            // Read the generation first: it never gets ahead of the ACIs
+            candidateAcisGeneration = aciList.getGeneration();
+            candidateAcis = aciList.getCandidateAcis(dn);
+            candidateAcisDN = dn;
+        }
+        return candidateAcis;
+    }
+
+    /**
+     * Returns the access decision already made by the operation for the
+     * current applicable lists, attribute type and rights, restoring the
+     * evaluation result which led to it.
+     *
+     * @return The access decision, or {@code null} if it has not been made yet
+     *         or cannot be memoized.
+     */
+    Boolean getCachedAccessDecision() {
+        final AccessDecisions decisions = getAccessDecisions();
+        if (decisions == null) {
+            return null;
+        }
+        final AccessDecision decision =
+            decisions.decisions.get(new AccessDecisionKey(this));
+        if (decision == null) {
+            return null;
+        }
+        decisions.hits.incrementAndGet();
+        setEvaluationResult(decision.evalReason, decision.decidingAci);
+        return decision.allowed;
+    }
+
+    /**
+     * Memoizes the access decision made for the current applicable lists,
+     * attribute type and rights, along with the evaluation result which led
+     * to it.
+     *
+     * @param allowed The access decision.
+     */
+    void cacheAccessDecision(boolean allowed) {
+        final AccessDecisions decisions = getAccessDecisions();
+        if (decisions != null) {
+            decisions.decisions.put(new AccessDecisionKey(this),
+                new AccessDecision(allowed, evalReason, decidingAci));
+        }
+    }
+
+    /**
+     * Returns the access decisions memoized by the operation for the
+     * generation of the ACI list the candidate ACIs were gathered from.
+     *
+     * @return The memoized access decisions, or {@code null} if the current
+     *         decision must not be memoized.
+     */
+    private AccessDecisions getAccessDecisions() {
+        // Geteffectiverights evaluations record more than the decision,
+        // persistent searches must see group membership changes and the other
+        // bind rules depend on the resource entry or on the time
+        if (isGetEffectiveRightsEval || isPersistentSearch()
+            || !areResourceIndependent(allowList)
+            || !areResourceIndependent(denyList)) {
+            return null;
+        }
+        synchronized (operation) {
+            AccessDecisions decisions = operation.getAttachment(ACCESS_DECISIONS);
+            if (decisions == null
+                || decisions.aciListGeneration != candidateAcisGeneration) {
+                decisions = new AccessDecisions(candidateAcisGeneration);
+                operation.setAttachment(ACCESS_DECISIONS, decisions);
+            }
+            return decisions;
+        }
+    }
+
+    private static boolean areResourceIndependent(List<Aci> acis) {
+        for (Aci aci : acis) {
+            if (!aci.isResourceIndependent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of access decisions the provided operation found
+     * already made.
+     *
+     * @param operation The operation.
+     * @return The number of access decisions found in the cache of the
+     *         operation.
+     */
+    static long getCachedAccessDecisionHits(Operation operation) {
+        final AccessDecisions decisions = operation.getAttachment(ACCESS_DECISIONS);
+        return decisions != null ? decisions.hits.get() : 0;
+    }
+
+    /** The access decisions made by an operation for a generation of the ACI list. */
+    private static final class AccessDecisions {
+        private final long aciListGeneration;
+        private final ConcurrentMap<AccessDecisionKey, AccessDecision> decisions =
+            new ConcurrentHashMap<>();
+        private final AtomicLong hits = new AtomicLong();
+
+        private AccessDecisions(long aciListGeneration) {
+            this.aciListGeneration = aciListGeneration;
+        }
+    }
+
+    /** An access decision and the evaluation result which led to it. */
+    private static final class AccessDecision {
+        private final boolean allowed;
+        private final EnumEvalReason evalReason;
+        private final Aci decidingAci;
+
+        private AccessDecision(boolean allowed, EnumEvalReason evalReason,
+            Aci decidingAci) {
+            this.allowed = allowed;
+            this.evalReason = evalReason;
+            this.decidingAci = decidingAci;
+        }
+    }
+
+    /**
+     * The inputs of an access decision: the client, the applicable lists, the
+     * attribute type and the rights.
+     */
+    private static final class AccessDecisionKey {
+        private final DN clientDN;
+        /** Compared by identity: it determines the authentication methods. */
+        private final AuthenticationInfo authInfo;
+        private final List<Aci> allowList;
+        private final List<Aci> denyList;
+        private final AttributeType attributeType;
+        private final int rights;
+
+        private AccessDecisionKey(AciContainer container) {
+            this.clientDN = container.getClientDN();
+            this.authInfo = container.authInfo;
+            this.allowList = container.allowList;
+            this.denyList = container.denyList;
+            this.attributeType = container.attributeType;
+            this.rights = container.rightsMask;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AccessDecisionKey)) {
+                return false;
+            }
+            final AccessDecisionKey other = (AccessDecisionKey) o;
+            return rights == other.rights
+                && authInfo == other.authInfo
+                && clientDN.equals(other.clientDN)
+                && Objects.equals(attributeType, other.attributeType)
+                && allowList.equals(other.allowList)
+                && denyList.equals(other.denyList);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientDN, attributeType, allowList, denyList, rights);
+        }
+    }
+
   /**
    * {@inheritDoc}
    * <p>
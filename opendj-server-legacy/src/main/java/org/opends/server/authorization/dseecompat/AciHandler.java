@@ -17,7 +17,7 @@
  */
 package org.opends.server.authorization.dseecompat;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -180,6 +180,13 @@ public final class AciHandler extends
     }
   }
 
+  @Override
+  public boolean mayReturnUnfilteredEntries(SearchOperation searchOperation)
+  {
+    return skipAccessCheck(searchOperation)
+        && searchOperation.getAttachment(OID_GET_EFFECTIVE_RIGHTS) == null;
+  }
+
   @Override
   public void finalizeAccessControlHandler()
   {
@@ -513,14 +520,24 @@ public final class AciHandler extends
     }
 
     // First get all allowed candidate ACIs.
-    List<Aci> candidates = aciList.getCandidateAcis(dn);
+    List<Aci> candidates = container.getCandidateAcis(aciList, dn);
     /*
      * Create an applicable list of ACIs by target matching each
      * candidate ACI against the container's target match view.
      */
     createApplicableList(candidates, container);
-    // Evaluate the applicable list.
-    final boolean ret = testApplicableLists(container);
+    // Evaluate the applicable list, unless the operation already did.
+    final Boolean cachedDecision = container.getCachedAccessDecision();
+    final boolean ret;
+    if (cachedDecision != null)
+    {
+      ret = cachedDecision;
+    }
+    else
+    {
+      ret = testApplicableLists(container);
+      container.cacheAccessDecision(ret);
+    }
     // Build summary string if doing geteffectiverights eval.
     if (container.isGetEffectiveRightsEval())
     {
@@ -872,8 +889,8 @@ public final class AciHandler extends
   private void createApplicableList(List<Aci> candidates,
       AciTargetMatchContext targetMatchCtx)
   {
-    List<Aci> denys = new LinkedList<>();
-    List<Aci> allows = new LinkedList<>();
+    List<Aci> denys = new ArrayList<>();
+    List<Aci> allows = new ArrayList<>();
     for (Aci aci : candidates)
     {
       if (Aci.isApplicable(aci, targetMatchCtx))
@@ -907,7 +924,7 @@ public final class AciHandler extends
    */
   private List<AttributeType> getAllAttrs(Entry e)
   {
-    List<AttributeType> typeList = new LinkedList<>();
+    List<AttributeType> typeList = new ArrayList<>();
     /*
      * When a search is not all attributes returned, the "objectclass"
      * attribute type is missing from the entry.
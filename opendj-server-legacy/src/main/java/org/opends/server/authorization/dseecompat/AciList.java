@@ -20,20 +20,21 @@ import static org.opends.messages.AccessControlMessages.*;
 import static org.opends.server.authorization.dseecompat.AciHandler.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
+import org.opends.server.api.DITTrie;
 import org.opends.server.api.LocalBackend;
-import org.opends.server.api.DITCacheMap;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.Entry;
 
@@ -47,16 +48,22 @@ public class AciList {
 
 
   /**
-   * A map containing all the ACIs.
-   * We use the copy-on-write technique to avoid locking when reading.
+   * A trie containing all the ACIs, global ACIs being stored under the root DN.
+   * The trie is immutable so reading it does not need locking: updates build a
+   * new trie, sharing the unchanged nodes, then publish it.
    */
-  private volatile DITCacheMap<List<Aci>> aciList = new DITCacheMap<>();
+  private volatile DITTrie<Aci> aciList = DITTrie.empty();
 
   /**
-   * Lock to protect internal data structures.
+   * The number of updates of the ACI list, so that the access decisions
+   * cached by an operation are not used once the ACIs have changed.
    */
-  private final ReentrantReadWriteLock lock =
-          new ReentrantReadWriteLock();
+  private volatile long generation;
+
+  /**
+   * Lock serializing the updates of the ACI list.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
 
   /** The configuration DN used to compare against the global ACI entry DN. */
   private final DN configDN;
@@ -69,6 +76,22 @@ public class AciList {
      this.configDN=configDN;
   }
 
+  /**
+   * Returns the generation of the ACI list, which changes each time the ACI
+   * list is updated.
+   *
+   * @return The generation of the ACI list.
+   */
+  long getGeneration() {
+    return generation;
+  }
+
+  /** Publishes the updated ACI list, the caller must hold the lock. */
+  private void publish(DITTrie<Aci> newAciList) {
+    aciList = newAciList;
+    generation++;
+  }
+
   /**
    * Using the base DN, return a list of ACIs that are candidates for
    * evaluation by walking up from the base DN towards the root of the
@@ -81,52 +104,25 @@ public class AciList {
    * @return A list of candidate ACIs that might be applicable.
    */
   public List<Aci> getCandidateAcis(DN baseDN) {
-    List<Aci> candidates = new LinkedList<>();
     if(baseDN == null)
     {
-      return candidates;
+      return new ArrayList<>();
     }
 
-    lock.readLock().lock();
-    try
-    {
-      //Save the baseDN in case we need to evaluate a global ACI.
-      DN entryDN=baseDN;
-      while (baseDN != null) {
-        List<Aci> acis = aciList.get(baseDN);
-        if (acis != null) {
-          //Check if there are global ACIs. Global ACI has a NULL DN.
-          if (baseDN.isRootDN()) {
-            for (Aci aci : acis) {
-              AciTargets targets = aci.getTargets();
-              //If there is a target, evaluate it to see if this ACI should
-              //be included in the candidate set.
-              if (targets != null
-                  && AciTargets.isTargetApplicable(aci, targets, entryDN))
-              {
-                  candidates.add(aci);  //Add this ACI to the candidates.
-              }
-            }
-          } else {
-            candidates.addAll(acis);
-          }
-        }
-        if(baseDN.isRootDN()) {
-          break;
-        }
-        DN parentDN=baseDN.parent();
-        if(parentDN == null) {
-          baseDN=DN.rootDN();
-        } else {
-          baseDN=parentDN;
-        }
+    final DITTrie<Aci> acis = aciList;
+    List<Aci> candidates = acis.getValuesOnPath(baseDN);
+    //Check if there are global ACIs. Global ACI has a NULL DN.
+    for (Aci aci : acis.get(DN.rootDN())) {
+      AciTargets targets = aci.getTargets();
+      //If there is a target, evaluate it to see if this ACI should
+      //be included in the candidate set.
+      if (targets != null
+          && AciTargets.isTargetApplicable(aci, targets, baseDN))
+      {
+          candidates.add(aci);  //Add this ACI to the candidates.
       }
-      return candidates;
-    }
-    finally
-    {
-      lock.readLock().unlock();
     }
+    return candidates;
   }
 
   /**
@@ -141,22 +137,32 @@ public class AciList {
   public int addAci(List<? extends Entry> entries,
                                  LinkedList<LocalizableMessage> failedACIMsgs)
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       int validAcis = 0;
+      Map<DN, List<Aci>> newAcis = new LinkedHashMap<>();
       for (Entry entry : entries) {
         DN dn=entry.getName();
         List<Attribute> attributeList =
              entry.getOperationalAttribute(AciHandler.aciType);
-        validAcis += addAciAttributeList(aciList, dn, configDN,
-                                         attributeList, failedACIMsgs);
+        List<Aci> acis = decodeAciAttributeList(dn, configDN,
+                                                attributeList, failedACIMsgs);
+        validAcis += acis.size();
+        List<Aci> dnAcis = newAcis.get(dn);
+        if (dnAcis == null) {
+          newAcis.put(dn, acis);
+        } else {
+          dnAcis.addAll(acis);
+        }
       }
+      //Add them in one pass, the entries often being siblings.
+      publish(aciList.addAll(newAcis));
       return validAcis;
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -170,14 +176,14 @@ public class AciList {
    *
    */
   public void addAci(DN dn, SortedSet<Aci> acis) {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
-      aciList.put(dn, new LinkedList<>(acis));
+      publish(aciList.put(dn, new ArrayList<>(acis)));
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -195,38 +201,42 @@ public class AciList {
   public int addAci(Entry entry, boolean hasAci,
                                  boolean hasGlobalAci,
                                  List<LocalizableMessage> failedACIMsgs) {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       int validAcis = 0;
+      DITTrie<Aci> newAciList = aciList;
       //Process global "ds-cfg-global-aci" attribute type. The oldentry
       //DN is checked to verify it is equal to the config DN. If not those
       //attributes are skipped.
       if(hasGlobalAci && entry.getName().equals(configDN)) {
           List<Attribute> attributeList = entry.getAllAttributes(globalAciType);
-          validAcis = addAciAttributeList(aciList, DN.rootDN(), configDN,
-                                          attributeList, failedACIMsgs);
+          List<Aci> acis = decodeAciAttributeList(DN.rootDN(), configDN,
+                                                  attributeList, failedACIMsgs);
+          validAcis = acis.size();
+          newAciList = newAciList.add(DN.rootDN(), acis);
       }
 
       if(hasAci) {
           List<Attribute> attributeList = entry.getAllAttributes(aciType);
-          validAcis += addAciAttributeList(aciList, entry.getName(), configDN,
-                                           attributeList, failedACIMsgs);
+          List<Aci> acis = decodeAciAttributeList(entry.getName(), configDN,
+                                                  attributeList, failedACIMsgs);
+          validAcis += acis.size();
+          newAciList = newAciList.add(entry.getName(), acis);
       }
+      publish(newAciList);
       return validAcis;
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
   /**
-   * Add an ACI's attribute type values to the ACI list. There is a chance that
-   * an ACI will throw an exception if it has an invalid syntax. If that
-   * happens a message will be logged and the ACI skipped.  A count is
-   * returned of the number of valid ACIs added.
-   * @param aciList The ACI list to which the ACI is to be added.
+   * Decode an ACI's attribute type values before adding them to the ACI list.
+   * There is a chance that an ACI will throw an exception if it has an invalid
+   * syntax. If that happens a message will be logged and the ACI skipped.
    * @param dn The DN to use as the key in the ACI list.
    * @param configDN The DN of the configuration entry used to configure the
    *                 ACI handler. Used if a global ACI has an decode exception.
@@ -234,23 +244,16 @@ public class AciList {
    * values.
    * @param failedACIMsgs List that will hold error messages from ACI decode
    *                      exceptions.
-   * @return The number of valid attribute values added to the ACI list.
+   * @return The valid ACIs to add to the ACI list.
    */
-  private static int addAciAttributeList(DITCacheMap<List<Aci>> aciList,
-                                         DN dn, DN configDN,
+  private static List<Aci> decodeAciAttributeList(DN dn, DN configDN,
                                          List<Attribute> attributeList,
                                          List<LocalizableMessage> failedACIMsgs) {
-    if (attributeList.isEmpty()) {
-      return 0;
-    }
-
-    int validAcis=0;
     List<Aci> acis = new ArrayList<>();
     for (Attribute attribute : attributeList) {
       for (ByteString value : attribute) {
         try {
           acis.add(Aci.decode(value, dn));
-          validAcis++;
         } catch (AciException ex) {
           DN msgDN=dn;
           if(dn == DN.rootDN()) {
@@ -260,8 +263,7 @@ public class AciList {
         }
       }
     }
-    addAci(aciList, dn, acis);
-    return validAcis;
+    return acis;
   }
 
   /**
@@ -282,50 +284,36 @@ public class AciList {
                                              boolean hasAci,
                                              boolean hasGlobalAci) {
 
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       List<LocalizableMessage> failedACIMsgs=new LinkedList<>();
+      DITTrie<Aci> newAciList = aciList;
       //Process "aci" attribute types.
       if(hasAci) {
-          aciList.remove(oldEntry.getName());
+          newAciList = newAciList.remove(oldEntry.getName());
           List<Attribute> attributeList =
                   newEntry.getOperationalAttribute(aciType);
-          addAciAttributeList(aciList,newEntry.getName(), configDN,
-                              attributeList, failedACIMsgs);
+          newAciList = newAciList.add(newEntry.getName(),
+              decodeAciAttributeList(newEntry.getName(), configDN,
+                                     attributeList, failedACIMsgs));
       }
       //Process global "ds-cfg-global-aci" attribute type. The oldentry
       //DN is checked to verify it is equal to the config DN. If not those
       //attributes are skipped.
       if(hasGlobalAci && oldEntry.getName().equals(configDN)) {
-          aciList.remove(DN.rootDN());
+          newAciList = newAciList.remove(DN.rootDN());
           List<Attribute> attributeList = newEntry.getAllAttributes(globalAciType);
-          addAciAttributeList(aciList, DN.rootDN(), configDN,
-                              attributeList, failedACIMsgs);
+          newAciList = newAciList.add(DN.rootDN(),
+              decodeAciAttributeList(DN.rootDN(), configDN,
+                                     attributeList, failedACIMsgs));
       }
+      //Readers see either all the old ACIs or all the new ones.
+      publish(newAciList);
     }
     finally
     {
-      lock.writeLock().unlock();
-    }
-  }
-
-  /**
-   * Add ACI using the DN as a key. If the DN already
-   * has ACI(s) on the list, then the new ACI is added to the
-   * end of the array.
-   * @param aciList The set of ACIs to which ACI is to be added.
-   * @param dn The DN to use as the key.
-   * @param acis The ACI to be added.
-   */
-  private static void addAci(DITCacheMap<List<Aci>> aciList, DN dn,
-                             List<Aci> acis)
-  {
-    if(aciList.containsKey(dn)) {
-      List<Aci> tmpAci = aciList.get(dn);
-      tmpAci.addAll(acis);
-    } else {
-      aciList.put(dn, acis);
+      lock.unlock();
     }
   }
 
@@ -343,24 +331,32 @@ public class AciList {
    */
   public boolean removeAci(Entry entry,  boolean hasAci,
                                                       boolean hasGlobalAci) {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       DN entryDN = entry.getName();
-      if (hasGlobalAci && entryDN.equals(configDN) &&
-          aciList.remove(DN.rootDN()) == null)
+      DITTrie<Aci> newAciList = aciList;
+      if (hasGlobalAci && entryDN.equals(configDN))
       {
-        return false;
+        if (newAciList.get(DN.rootDN()).isEmpty())
+        {
+          return false;
+        }
+        newAciList = newAciList.remove(DN.rootDN());
       }
+      boolean removed = true;
       if (hasAci || !hasGlobalAci)
       {
-        return aciList.removeSubtree(entryDN, null);
+        DITTrie<Aci> oldAciList = newAciList;
+        newAciList = newAciList.removeSubtree(entryDN);
+        removed = newAciList != oldAciList;
       }
-      return true;
+      publish(newAciList);
+      return removed;
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -371,67 +367,60 @@ public class AciList {
    */
   public void removeAci(LocalBackend<?> backend) {
 
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
-      Iterator<Map.Entry<DN,List<Aci>>> iterator =
-              aciList.entrySet().iterator();
-      while (iterator.hasNext())
+      Map<DN, List<Aci>> removedAcis = new HashMap<>();
+      for (DN dn : aciList.getSubtree(DN.rootDN()).keySet())
       {
-        Map.Entry<DN,List<Aci>> mapEntry = iterator.next();
-        if (backend.handlesEntry(mapEntry.getKey()))
+        if (backend.handlesEntry(dn))
         {
-          iterator.remove();
+          removedAcis.put(dn, Collections.<Aci> emptyList());
         }
       }
+      publish(aciList.putAll(removedAcis));
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
   /**
-   * Rename all ACIs under the specified old DN to the new DN. A simple
-   * interaction over the entire list is performed.
+   * Rename all ACIs under the specified old DN to the new DN. Only the subtree
+   * of the old DN is visited.
    * @param oldDN The DN of the original entry that was moved.
    * @param newDN The DN of the new entry.
    */
   public void renameAci(DN oldDN, DN newDN ) {
 
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
-      Map<DN,List<Aci>> tempAciList = new HashMap<>();
-      Iterator<Map.Entry<DN,List<Aci>>> iterator =
-              aciList.entrySet().iterator();
-      while (iterator.hasNext()) {
-        Map.Entry<DN,List<Aci>> hashEntry = iterator.next();
-        DN keyDn = hashEntry.getKey();
-        if (keyDn.isSubordinateOrEqualTo(oldDN)) {
-          DN relocateDN = keyDn.rename(oldDN, newDN);
-          List<Aci> acis = new LinkedList<>();
-          for(Aci aci : hashEntry.getValue()) {
-            try {
-               Aci newAci =
-                 Aci.decode(ByteString.valueOfUtf8(aci.toString()), relocateDN);
-               acis.add(newAci);
-            } catch (AciException ex) {
-              //This should never happen since only a copy of the
-              //ACI with a new DN is being made. Log a message if it does and
-              //keep going.
-              logger.warn(WARN_ACI_ADD_LIST_FAILED_DECODE, aci, relocateDN, ex.getMessage());
-            }
+      Map<DN,List<Aci>> oldAcis = aciList.getSubtree(oldDN);
+      Map<DN,List<Aci>> relocatedAcis = new LinkedHashMap<>();
+      for (Map.Entry<DN,List<Aci>> hashEntry : oldAcis.entrySet()) {
+        DN relocateDN = hashEntry.getKey().rename(oldDN, newDN);
+        List<Aci> acis = new ArrayList<>();
+        for(Aci aci : hashEntry.getValue()) {
+          try {
+             Aci newAci =
+               Aci.decode(ByteString.valueOfUtf8(aci.toString()), relocateDN);
+             acis.add(newAci);
+          } catch (AciException ex) {
+            //This should never happen since only a copy of the
+            //ACI with a new DN is being made. Log a message if it does and
+            //keep going.
+            logger.warn(WARN_ACI_ADD_LIST_FAILED_DECODE, aci, relocateDN, ex.getMessage());
           }
-          tempAciList.put(relocateDN, acis);
-          iterator.remove();
         }
+        relocatedAcis.put(relocateDN, acis);
       }
-      aciList.putAll(tempAciList);
+      publish(aciList.removeSubtree(oldDN).putAll(relocatedAcis));
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 }
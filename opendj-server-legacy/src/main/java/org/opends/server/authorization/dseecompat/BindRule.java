@@ -19,8 +19,6 @@ package org.opends.server.authorization.dseecompat;
 import static org.opends.messages.AccessControlMessages.*;
 import static org.opends.server.authorization.dseecompat.Aci.*;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,8 +26,8 @@ import org.forgerock.i18n.LocalizableMessage;
 
 /** This class represents a single bind rule of an ACI permission-bind rule pair. */
 public class BindRule {
-    /** This hash table holds the keyword bind rule mapping. */
-    private final Map<String, KeywordBindRule> keywordRuleMap = new HashMap<>();
+    /** The keyword bind rule of a simple bind rule, null for a complex bind rule. */
+    private final KeywordBindRule keywordRule;
 
     /** True is a boolean "not" was seen. */
     private boolean negate;
@@ -72,8 +70,7 @@ public class BindRule {
 
     /**
      * Constructor that takes an keyword enumeration and corresponding
-     * simple bind rule. The keyword string is the key for the keyword rule in
-     * the keywordRuleMap. This is a simple bind rule representation:
+     * simple bind rule. This is a simple bind rule representation:
 
      * keyword  op  rule
      *
@@ -86,7 +83,7 @@ public class BindRule {
      */
     private BindRule(EnumBindRuleKeyword keyword, KeywordBindRule rule) {
         this.keyword=keyword;
-        this.keywordRuleMap.put(keyword.toString(), rule);
+        this.keywordRule = rule;
         this.booleanType = null;
         this.left = null;
         this.right = null;
@@ -127,6 +124,7 @@ public class BindRule {
      */
     private BindRule(BindRule left, BindRule right, EnumBooleanTypes booleanType) {
         this.keyword = null;
+        this.keywordRule = null;
         this.booleanType = booleanType;
         this.left = left;
         this.right = right;
@@ -450,10 +448,36 @@ public class BindRule {
        return EnumEvalResult.FALSE;
     }
 
+    /**
+     * Indicates whether this bind rule evaluates the same way for all the
+     * resource entries of an operation: it neither refers to the resource
+     * entry (userattr, userdn "self" or "parent") nor to the current time
+     * (dayofweek, timeofday).
+     * @return True if the evaluation only depends on the client and its
+     * connection.
+     */
+    boolean isResourceIndependent() {
+        if (booleanType != null) {
+            return left.isResourceIndependent() && right.isResourceIndependent();
+        }
+        switch (keyword) {
+        case USERDN:
+            return !((UserDN) keywordRule).dependsOnResource();
+        case GROUPDN:
+        case IP:
+        case DNS:
+        case AUTHMETHOD:
+        case SSF:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     /**
      * Evaluate an bind rule against an evaluation context. If it is a simple
-     * bind rule (no boolean type) then grab the keyword rule from the map
-     * table and call the corresponding evaluate function. If it is a
+     * bind rule (no boolean type) then call the evaluate function of its
+     * keyword rule. If it is a
      * complex rule call the routine above "evalComplex()".
      * @param evalCtx The evaluation context to pass to the keyword
      * evaluation function.
@@ -463,8 +487,7 @@ public class BindRule {
         EnumEvalResult ret;
         //Simple bind rules have a null booleanType enumeration.
         if(this.booleanType == null) {
-            KeywordBindRule rule=keywordRuleMap.get(keyword.toString());
-            ret = rule.evaluate(evalCtx);
+            ret = keywordRule.evaluate(evalCtx);
         } else {
             ret = evalComplex(left.evaluate(evalCtx),right.evaluate(evalCtx));
         }
@@ -486,11 +509,9 @@ public class BindRule {
      *          should be appended.
      */
     public final void toString(StringBuilder buffer) {
-        if (this.keywordRuleMap != null) {
-            for (KeywordBindRule rule : this.keywordRuleMap.values()) {
-                rule.toString(buffer);
-                buffer.append(";");
-            }
+        if (this.keywordRule != null) {
+            this.keywordRule.toString(buffer);
+            buffer.append(";");
         }
     }
 }
@@ -149,6 +149,21 @@ public class UserDN implements KeywordBindRule {
         }
     }
 
+    /**
+     * Indicates whether this userdn bind rule refers to the resource entry,
+     * through the "self" or "parent" URLs.
+     * @return True if the evaluation depends on the resource entry.
+     */
+    boolean dependsOnResource() {
+        for (UserDNTypeURL dnTypeURL : urlList) {
+            if (dnTypeURL.getUserDNType() == EnumUserDNType.SELF
+                    || dnTypeURL.getUserDNType() == EnumUserDNType.PARENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Performs the evaluation of a userdn bind rule based on the
      * evaluation context passed to it. The evaluation stops when there
@@ -215,7 +230,7 @@ public class UserDN implements KeywordBindRule {
                 DN parentDN = resDN.parent();
                 return parentDN != null && parentDN.equals(clientDN);
             case DNPATTERN:
-                return evalDNPattern(evalCtx, url);
+                return evalDNPattern(evalCtx, dnTypeURL);
             case DN:
                 return evalDN(clientDN, url);
             default:
@@ -256,18 +271,12 @@ public class UserDN implements KeywordBindRule {
     /**
      * This method evaluates a DN pattern userdn expression.
      * @param evalCtx  The evaluation context to use.
-     * @param url The LDAP URL containing the pattern.
+     * @param dnTypeURL The URL mapping holding the decoded pattern.
      * @return An enumeration evaluation result.
      */
-    private boolean evalDNPattern(AciEvalContext evalCtx, LDAPURL url) {
-        PatternDN pattern;
-        try {
-          pattern = PatternDN.decode(url.getRawBaseDN());
-        } catch (DirectoryException ex) {
-          return false;
-        }
-
-        return pattern.matchesDN(evalCtx.getClientDN());
+    private boolean evalDNPattern(AciEvalContext evalCtx, UserDNTypeURL dnTypeURL) {
+        PatternDN pattern = dnTypeURL.getPatternDN();
+        return pattern != null && pattern.matchesDN(evalCtx.getClientDN());
     }
 
 
@@ -16,6 +16,7 @@
  */
 package org.opends.server.authorization.dseecompat;
 
+import org.opends.server.types.DirectoryException;
 import org.opends.server.types.LDAPURL;
 
 /**
@@ -28,6 +29,11 @@ public class UserDNTypeURL {
     private final EnumUserDNType dnType;
     /** The URL value. Maybe a dummy value for types such as ANYONE or SELF. */
     private final LDAPURL url;
+    /**
+     * The DN pattern of the URL, decoded once for all evaluations. Null if
+     * the type is not DNPATTERN or if the pattern is invalid.
+     */
+    private final PatternDN patternDN;
 
     /**
      * Create a class representing the "userdn" URL decoded by the
@@ -39,6 +45,16 @@ public class UserDNTypeURL {
     UserDNTypeURL(EnumUserDNType dnType, LDAPURL url) {
         this.url=url;
         this.dnType=dnType;
+        this.patternDN = dnType == EnumUserDNType.DNPATTERN ? decodePattern(url) : null;
+    }
+
+    private static PatternDN decodePattern(LDAPURL url) {
+        try {
+            return PatternDN.decode(url.getRawBaseDN());
+        } catch (DirectoryException ex) {
+            // An invalid pattern never matches
+            return null;
+        }
     }
 
     /**
@@ -55,4 +71,13 @@ public class UserDNTypeURL {
     public LDAPURL getURL() {
         return this.url;
     }
+
+    /**
+     * Returns the DN pattern of the URL.
+     * @return The DN pattern of the URL, or null if the type of the URL is not
+     * DNPATTERN or if the pattern is invalid.
+     */
+    PatternDN getPatternDN() {
+        return this.patternDN;
+    }
 }
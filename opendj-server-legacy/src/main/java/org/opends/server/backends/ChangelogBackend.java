@@ -27,7 +27,8 @@ import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.text.SimpleDateFormat;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
@@ -85,6 +86,7 @@ import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.replication.server.changelog.api.DBCursor.CursorOptions;
 import org.opends.server.replication.server.changelog.api.ReplicaId;
 import org.opends.server.replication.server.changelog.api.ReplicationDomainDB;
+import org.opends.server.replication.server.changelog.api.TargetDNIndex;
 import org.opends.server.replication.server.changelog.file.ECLEnabledDomainPredicate;
 import org.opends.server.replication.server.changelog.file.ECLMultiDomainDBCursor;
 import org.opends.server.replication.server.changelog.file.MultiDomainDBCursor;
@@ -167,6 +169,12 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
   public static final String BACKEND_ID = "changelog";
 
   private static final long CHANGE_NUMBER_FOR_EMPTY_CURSOR = 0L;
+  /**
+   * Number of consecutive changes skipped thanks to the target DN index after
+   * which the replica updates cursor is repositioned instead of reading the
+   * skipped changes.
+   */
+  private static final int MIN_SKIPPED_CHANGES_TO_REPOSITION = 64;
 
   private static final String CHANGE_NUMBER_ATTR = "changeNumber";
   private static final String ENTRY_SENDER_ATTACHMENT = OID_ECL_COOKIE_EXCHANGE_CONTROL + ".entrySender";
@@ -645,6 +653,190 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     }
   }
 
+  /**
+   * The part of a search filter which only depends on the target DN and on the
+   * type of the changes.
+   * <p>
+   * It is evaluated on the replica update messages read from the changelog DB,
+   * before building the changelog entries, so that searches such as
+   * <code>(targetDN=*,ou=Accounts,dc=example,dc=com)</code> or
+   * <code>(changeType=delete)</code> skip the changes they cannot return
+   * without paying for the creation of their entry.
+   * <p>
+   * This class should be visible for tests.
+   */
+  static final class UpdateMsgFilter
+  {
+    private static final UpdateMsgFilter MATCH_ALL = new UpdateMsgFilter(null, null);
+
+    /** The filter evaluated on the messages, or {@code null} if all the messages may match. */
+    private final SearchFilter filter;
+    /**
+     * The part of the filter which only depends on the target DN, or
+     * {@code null} if all the target DNs may match.
+     */
+    private final SearchFilter targetDNFilter;
+
+    private UpdateMsgFilter(SearchFilter filter, SearchFilter targetDNFilter)
+    {
+      this.filter = filter;
+      this.targetDNFilter = targetDNFilter;
+    }
+
+    /**
+     * Extracts from the provided search filter the components which can be
+     * evaluated on the update messages.
+     *
+     * @param searchFilter
+     *          the filter of the search operation
+     * @return the filter to apply to the update messages
+     */
+    static UpdateMsgFilter from(SearchFilter searchFilter)
+    {
+      if (searchFilter == null)
+      {
+        return MATCH_ALL;
+      }
+      final AttributeType targetDN = getServerContext().getSchema().getAttributeType("targetDN");
+      final AttributeType changeType = getServerContext().getSchema().getAttributeType("changeType");
+      final SearchFilter filter = extractComponentsDependingOnlyOn(searchFilter, targetDN, changeType);
+      if (filter == null)
+      {
+        return MATCH_ALL;
+      }
+      return new UpdateMsgFilter(filter, extractComponentsDependingOnlyOn(searchFilter, targetDN));
+    }
+
+    /**
+     * Returns the filter made of the components of the provided filter which
+     * only depend on the provided attributes, or {@code null} if there are
+     * none.
+     */
+    private static SearchFilter extractComponentsDependingOnlyOn(SearchFilter searchFilter,
+        AttributeType... attrTypes)
+    {
+      if (dependsOnlyOn(searchFilter, attrTypes))
+      {
+        return searchFilter;
+      }
+      if (searchFilter.getFilterType() == FilterType.AND)
+      {
+        // a change can only match if all the components match
+        final List<SearchFilter> components = new ArrayList<>();
+        for (SearchFilter component : searchFilter.getFilterComponents())
+        {
+          if (dependsOnlyOn(component, attrTypes))
+          {
+            components.add(component);
+          }
+        }
+        if (components.size() == 1)
+        {
+          return components.get(0);
+        }
+        else if (!components.isEmpty())
+        {
+          return SearchFilter.createANDFilter(components);
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Indicates whether the provided filter gives the same result on a
+     * changelog entry and on an entry holding only the provided attributes.
+     */
+    private static boolean dependsOnlyOn(SearchFilter filter, AttributeType... attrTypes)
+    {
+      switch (filter.getFilterType())
+      {
+      case AND:
+      case OR:
+        for (SearchFilter component : filter.getFilterComponents())
+        {
+          if (!dependsOnlyOn(component, attrTypes))
+          {
+            return false;
+          }
+        }
+        return true;
+      case NOT:
+        return dependsOnlyOn(filter.getNotComponent(), attrTypes);
+      case EXTENSIBLE_MATCH:
+        // may match on the entry DN
+        return false;
+      default:
+        final AttributeType attrType = filter.getAttributeType();
+        return attrType != null && Arrays.asList(attrTypes).contains(attrType);
+      }
+    }
+
+    /**
+     * Indicates whether this filter depends on the target DN of the changes.
+     *
+     * @return {@code true} if some changes can be excluded from their target DN
+     */
+    boolean filtersOnTargetDN()
+    {
+      return targetDNFilter != null;
+    }
+
+    /**
+     * Indicates whether the changelog entry of a change targeting the provided
+     * DN may match the search filter, whatever the type of the change.
+     *
+     * @param targetDN
+     *          the DN targeted by the change
+     * @return {@code false} if the changelog entry cannot match the search
+     *         filter, {@code true} otherwise
+     * @throws DirectoryException
+     *           if a problem occurs while evaluating the filter
+     */
+    boolean mayMatch(DN targetDN) throws DirectoryException
+    {
+      if (targetDNFilter == null)
+      {
+        return true;
+      }
+      final Map<AttributeType, List<Attribute>> userAttrs = new LinkedHashMap<>();
+      final Map<AttributeType, List<Attribute>> opAttrs = new LinkedHashMap<>();
+      addAttributeByType("targetDN", targetDN.toString(), userAttrs, opAttrs);
+      return targetDNFilter.matchesEntry(new Entry(DN.rootDN(), CHANGELOG_ENTRY_OBJECT_CLASSES, userAttrs, opAttrs));
+    }
+
+    /**
+     * Indicates whether the changelog entry created from the provided message
+     * may match the search filter.
+     *
+     * @param msg
+     *          the update message
+     * @return {@code false} if the changelog entry cannot match the search
+     *         filter, {@code true} otherwise
+     * @throws DirectoryException
+     *           if a problem occurs while evaluating the filter
+     */
+    boolean mayMatch(UpdateMsg msg) throws DirectoryException
+    {
+      final String changeType = getChangeType(msg);
+      if (filter == null || changeType == null)
+      {
+        return true;
+      }
+
+      final Map<AttributeType, List<Attribute>> userAttrs = new LinkedHashMap<>();
+      final Map<AttributeType, List<Attribute>> opAttrs = new LinkedHashMap<>();
+      addAttributeByType("changeType", changeType, userAttrs, opAttrs);
+      addAttributeByType("targetDN", ((LDAPUpdateMsg) msg).getDN().toString(), userAttrs, opAttrs);
+      return filter.matchesEntry(new Entry(DN.rootDN(), CHANGELOG_ENTRY_OBJECT_CLASSES, userAttrs, opAttrs));
+    }
+
+    @Override
+    public String toString()
+    {
+      return getClass().getSimpleName() + "(" + filter + ")";
+    }
+  }
+
   /**
    * Returns the set of DNs to exclude from the search.
    *
@@ -737,39 +929,17 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     }
     else if (filter.getFilterType() == FilterType.AND)
     {
-      // TODO: it looks like it could be generalized to N components, not only two
-      final Collection<SearchFilter> components = filter.getFilterComponents();
-      final SearchFilter filters[] = components.toArray(new SearchFilter[0]);
-      long upper1 = -1;
-      long lower1 = -1;
-      long upper2 = -1;
-      long lower2 = -1;
-      if (filters.length > 0)
-      {
-        ChangeNumberRange range1 = optimizeSearchUsingFilter(filters[0]);
-        upper1 = range1.upperBound;
-        lower1 = range1.lowerBound;
-      }
-      if (filters.length > 1)
-      {
-        ChangeNumberRange range2 = optimizeSearchUsingFilter(filters[1]);
-        upper2 = range2.upperBound;
-        lower2 = range2.lowerBound;
-      }
-      if (upper1 == -1)
-      {
-        range.upperBound = upper2;
-      }
-      else if (upper2 == -1)
+      // all the components must match: intersect their ranges
+      for (SearchFilter component : filter.getFilterComponents())
       {
-        range.upperBound = upper1;
-      }
-      else
-      {
-        range.upperBound = Math.min(upper1, upper2);
+        final ChangeNumberRange componentRange = optimizeSearchUsingFilter(component);
+        if (range.upperBound == -1
+            || (componentRange.upperBound != -1 && componentRange.upperBound < range.upperBound))
+        {
+          range.upperBound = componentRange.upperBound;
+        }
+        range.lowerBound = Math.max(range.lowerBound, componentRange.lowerBound);
       }
-
-      range.lowerBound = Math.max(lower1, lower2);
     }
     return range;
   }
@@ -957,7 +1127,8 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     }
 
     final AtomicReference<MultiDomainDBCursor> replicaUpdatesCursor = new AtomicReference<>();
-    try (DBCursor<ChangeNumberIndexRecord> cnIndexDBCursor = getCNIndexDBCursor(entrySender.lowestChangeNumber))
+    try (DBCursor<ChangeNumberIndexRecord> cnIndexDBCursor =
+        getCNIndexDBCursor(entrySender.lowestChangeNumber, entrySender.highestChangeNumber))
     {
       final MultiDomainServerState cookie = new MultiDomainServerState();
 
@@ -988,11 +1159,15 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       DBCursor<ChangeNumberIndexRecord> cnIndexDBCursor, AtomicReference<MultiDomainDBCursor> replicaUpdatesCursor,
       MultiDomainServerState cookie) throws ChangelogException, DirectoryException
   {
+    final TargetDNIndex targetDNIndex = getChangelogDB().getTargetDNIndex();
+    int nbSkippedChanges = 0;
+    long changeNumber = -1;
     boolean continueSearch = true;
     while (continueSearch && cnIndexDBCursor.next())
     {
       // Handle the current cnIndex record
       final ChangeNumberIndexRecord cnIndexRecord = cnIndexDBCursor.getRecord();
+      changeNumber = cnIndexRecord.getChangeNumber();
       if (replicaUpdatesCursor.get() == null)
       {
         replicaUpdatesCursor.set(initializeReplicaUpdatesCursor(cnIndexRecord));
@@ -1002,9 +1177,22 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       {
         cookie.update(cnIndexRecord.getBaseDN(), cnIndexRecord.getCSN());
       }
-      continueSearch = entrySender.changeNumberIsInRange(cnIndexRecord.getChangeNumber());
+      continueSearch = entrySender.changeNumberIsInRange(changeNumber);
       if (continueSearch)
       {
+        if (entrySender.skipIfTargetDNCannotMatch(targetDNIndex, changeNumber))
+        {
+          // the update message is not even read from the replica DBs
+          nbSkippedChanges++;
+          continue;
+        }
+        if (nbSkippedChanges >= MIN_SKIPPED_CHANGES_TO_REPOSITION)
+        {
+          // cheaper than reading all the skipped update messages
+          StaticUtils.close(replicaUpdatesCursor.get());
+          replicaUpdatesCursor.set(repositionReplicaUpdatesCursor(cookie));
+        }
+        nbSkippedChanges = 0;
         final UpdateMsg updateMsg = findReplicaUpdateMessage(replicaUpdatesCursor.get(), cnIndexRecord.getCSN());
         if (updateMsg != null)
         {
@@ -1013,7 +1201,8 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
         }
       }
     }
-    return continueSearch;
+    // the cursor stops after the highest change number: there is nothing more to return
+    return continueSearch && !entrySender.isHighestChangeNumber(changeNumber);
   }
 
   /** Initialize the provided cookie from the provided change number index record. */
@@ -1080,6 +1269,21 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     return replicaUpdatesCursor;
   }
 
+  /**
+   * Returns a cursor on the replica updates positioned on the changes of the
+   * provided cookie, which includes the change number index record about to be
+   * read.
+   */
+  private MultiDomainDBCursor repositionReplicaUpdatesCursor(final MultiDomainServerState cookie)
+      throws ChangelogException
+  {
+    CursorOptions options = new CursorOptions(GREATER_THAN_OR_EQUAL_TO_KEY, ON_MATCHING_KEY);
+    final MultiDomainDBCursor replicaUpdatesCursor =
+        getChangelogDB().getReplicationDomainDB().getCursorFrom(new MultiDomainServerState(cookie), options);
+    replicaUpdatesCursor.next();
+    return replicaUpdatesCursor;
+  }
+
   /**
    * Returns the replica update message corresponding to the provided
    * cnIndexRecord.
@@ -1120,9 +1324,12 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     }
   }
 
-  /** Returns a cursor on CNIndexDB for the provided first change number. */
+  /**
+   * Returns a cursor on CNIndexDB for the provided first change number, which
+   * stops after the provided last change number, unless it is -1.
+   */
   private DBCursor<ChangeNumberIndexRecord> getCNIndexDBCursor(
-      final long firstChangeNumber) throws ChangelogException
+      final long firstChangeNumber, final long lastChangeNumber) throws ChangelogException
   {
     final ChangeNumberIndexDB cnIndexDB = getChangelogDB().getChangeNumberIndexDB();
     long changeNumberToUse = firstChangeNumber;
@@ -1131,7 +1338,9 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       final ChangeNumberIndexRecord oldestRecord = cnIndexDB.getOldestRecord();
       changeNumberToUse = oldestRecord == null ? CHANGE_NUMBER_FOR_EMPTY_CURSOR : oldestRecord.getChangeNumber();
     }
-    return cnIndexDB.getCursorFrom(changeNumberToUse);
+    return lastChangeNumber != -1
+        ? cnIndexDB.getCursorFrom(changeNumberToUse, lastChangeNumber)
+        : cnIndexDB.getCursorFrom(changeNumberToUse);
   }
 
   /** Creates a changelog entry. */
@@ -1156,6 +1365,34 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
             msg.getClass()));
   }
 
+  /**
+   * Returns the value of the changeType attribute of the changelog entry
+   * created from the provided message.
+   *
+   * @return the change type, or {@code null} if no changelog entry can be
+   *         created from the provided message
+   */
+  private static String getChangeType(final UpdateMsg msg)
+  {
+    if (msg instanceof AddMsg)
+    {
+      return "add";
+    }
+    else if (msg instanceof ModifyDNMsg)
+    {
+      return "modrdn";
+    }
+    else if (msg instanceof ModifyCommonMsg)
+    {
+      return "modify";
+    }
+    else if (msg instanceof DeleteMsg)
+    {
+      return "delete";
+    }
+    return null;
+  }
+
   /**
    * Creates an entry from an add message.
    * <p>
@@ -1588,11 +1825,13 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     private final SearchOperation searchOp;
     private final long lowestChangeNumber;
     private final long highestChangeNumber;
+    private final UpdateMsgFilter updateMsgFilter;
     private final SendEntryData<Long> sendEntryData;
 
     private ChangeNumberEntrySender(SearchOperation searchOp, SearchPhase startPhase, ChangeNumberRange range)
     {
       this.searchOp = searchOp;
+      this.updateMsgFilter = UpdateMsgFilter.from(searchOp.getFilter());
       this.sendEntryData = new SendEntryData<>(startPhase);
       this.lowestChangeNumber = range.lowerBound;
       this.highestChangeNumber = range.upperBound;
@@ -1612,6 +1851,43 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       return highestChangeNumber == -1 || changeNumber <= highestChangeNumber;
     }
 
+    /**
+     * Indicates if provided change number is the last change number of the
+     * search.
+     *
+     * @param changeNumber
+     *          The change number to test.
+     * @return {@code true} if and only if no change number after the provided
+     *         one is in the range of the search.
+     */
+    boolean isHighestChangeNumber(long changeNumber)
+    {
+      return highestChangeNumber != -1 && changeNumber >= highestChangeNumber;
+    }
+
+    /**
+     * Skips the change with the provided change number if the target DN index
+     * shows that its entry cannot match the search filter.
+     *
+     * @return {@code true} if the change has been skipped, {@code false} if
+     *         its update message must be read
+     */
+    private boolean skipIfTargetDNCannotMatch(TargetDNIndex targetDNIndex, long changeNumber)
+        throws DirectoryException
+    {
+      if (targetDNIndex == null || !updateMsgFilter.filtersOnTargetDN())
+      {
+        return false;
+      }
+      final DN targetDN = targetDNIndex.getTargetDN(changeNumber);
+      if (targetDN == null || updateMsgFilter.mayMatch(targetDN))
+      {
+        return false;
+      }
+      sendEntryData.initialSearchSendsEntry(changeNumber);
+      return true;
+    }
+
     private void finalizeInitialSearch()
     {
       sendEntryData.finalizeInitialSearch();
@@ -1630,6 +1906,11 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     {
       final DN baseDN = cnIndexRecord.getBaseDN();
       sendEntryData.initialSearchSendsEntry(cnIndexRecord.getChangeNumber());
+      if (!updateMsgFilter.mayMatch(updateMsg))
+      {
+        // maybe the next entry will match?
+        return true;
+      }
       final Entry entry = createEntryFromMsg(baseDN, cnIndexRecord.getChangeNumber(), cookie.toString(), updateMsg);
       return sendEntryIfMatches(searchOp, entry, null);
     }
@@ -1648,6 +1929,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
     private final SearchOperation searchOp;
     private final SearchPhase startPhase;
     private final Set<DN> excludedBaseDNs;
+    private final UpdateMsgFilter updateMsgFilter;
     private final MultiDomainServerState cookie;
     private final ConcurrentSkipListMap<ReplicaId, SendEntryData<CSN>> replicaIdToSendEntryData =
         new ConcurrentSkipListMap<>();
@@ -1659,6 +1941,7 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       this.startPhase = startPhase;
       this.cookie = cookie;
       this.excludedBaseDNs = excludedBaseDNs;
+      this.updateMsgFilter = UpdateMsgFilter.from(searchOp.getFilter());
     }
 
     private void finalizeInitialSearch()
@@ -1695,6 +1978,15 @@ public class ChangelogBackend extends LocalBackend<LocalBackendCfg>
       final CSN csn = updateMsg.getCSN();
       final SendEntryData<CSN> sendEntryData = getSendEntryData(baseDN, csn);
       sendEntryData.initialSearchSendsEntry(csn);
+      if (!updateMsgFilter.mayMatch(updateMsg))
+      {
+        // no entry to send, but the cookie of the next entries must include this change
+        synchronized (cookie)
+        {
+          cookie.update(baseDN, csn);
+        }
+        return true;
+      }
       final String cookieString = updateCookie(baseDN, updateMsg.getCSN());
       final Entry entry = createEntryFromMsg(baseDN, 0, cookieString, updateMsg);
       return sendEntryIfMatches(searchOp, entry, cookieString);
@@ -788,6 +788,16 @@ public class TrustStoreBackend extends LocalBackend<TrustStoreBackendCfg>
     return parentDN.child(new RDN(rdnAttrType, attrValue));
   }
 
+  /**
+   * Retrieves the trust store backing file.
+   *
+   * @return  The trust store backing file.
+   */
+  public File getTrustStoreFile()
+  {
+    return getFileForPath(trustStoreFile);
+  }
+
   /**
    * Retrieves a set of <CODE>KeyManager</CODE> objects that may be used for
    * interactions requiring access to a key manager.
@@ -22,6 +22,7 @@ import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -36,6 +37,7 @@ import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
@@ -378,6 +380,68 @@ public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBa
     }
   }
 
+  /**
+   * Returns the checksum of the entries of the provided base DN.
+   *
+   * @param baseDN
+   *          the base DN of this backend
+   * @return the checksum, or {@code null} if it has not been computed yet
+   * @throws DirectoryException
+   *           If the base DN is not handled by this backend.
+   * @see #computeDataChecksum(DN)
+   */
+  public DataChecksum getDataChecksum(DN baseDN) throws DirectoryException
+  {
+    checkNotNull(baseDN, "baseDN must not be null");
+
+    final EntryContainer ec = accessBegin(null, baseDN);
+    try
+    {
+      return ec.getDataChecksum();
+    }
+    finally
+    {
+      accessEnd();
+    }
+  }
+
+  /**
+   * Computes the checksum of the entries of the provided base DN by reading all
+   * its entries, if not already done. Once computed, the checksum is kept up
+   * to date by write operations, it can then be retrieved with
+   * {@link #getDataChecksum(DN)}.
+   * <p>
+   * Write operations may run during the computation, they only wait
+   * while small chunks of entries are read.
+   *
+   * @param baseDN
+   *          the base DN of this backend
+   * @return {@code true} if the checksum is computed, {@code false} if the
+   *         computation has been aborted because the entries have been cleared
+   *         or imported meanwhile, or because the current thread has been
+   *         interrupted, the computation may then be retried later
+   * @throws DirectoryException
+   *           If a problem occurs while reading the entries.
+   */
+  public boolean computeDataChecksum(DN baseDN) throws DirectoryException
+  {
+    checkNotNull(baseDN, "baseDN must not be null");
+
+    final EntryContainer ec = accessBegin(null, baseDN);
+    try
+    {
+      return ec.computeDataChecksum();
+    }
+    catch (StorageRuntimeException e)
+    {
+      throw createDirectoryException(e);
+    }
+    finally
+    {
+      accessEnd();
+    }
+  }
+
   @Override
   public long getNumberOfChildren(DN parentDN) throws DirectoryException
   {
@@ -456,6 +520,27 @@ public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBa
     }
   }
 
+  @Override
+  public List<Entry> getEntriesMatchingValues(DN baseDN, Collection<AttributeType> attributeTypes,
+      Collection<ByteString> values) throws DirectoryException
+  {
+    EntryContainer ec = accessBegin(null, baseDN);
+    ec.sharedLock.lock();
+    try
+    {
+      return ec.getEntriesMatchingValues(baseDN, attributeTypes, values);
+    }
+    catch (StorageRuntimeException e)
+    {
+      throw createDirectoryException(e);
+    }
+    finally
+    {
+      ec.sharedLock.unlock();
+      accessEnd();
+    }
+  }
+
   @Override
   public void addEntry(Entry entry, AddOperation addOperation) throws DirectoryException, CanceledOperationException
   {
@@ -629,6 +714,57 @@ public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBa
   @Override
   public LDIFImportResult importLDIF(LDIFImportConfig importConfig, ServerContext serverContext)
       throws DirectoryException
+  {
+    return importEntries(importConfig, null, serverContext);
+  }
+
+  /**
+   * Returns an export of the entry records of a base DN of this backend, which can be imported by another
+   * pluggable backend with {@link #importEntryRecords(LDIFImportConfig, EntryRecordSource, ServerContext)}.
+   * This backend must remain online while the export is used.
+   *
+   * @param baseDN
+   *          the base DN whose entries are exported
+   * @return the export of the entry records of the base DN
+   * @throws DirectoryException
+   *           if this backend is offline or does not hold the base DN
+   */
+  public EntryRecordExport newEntryRecordExport(DN baseDN) throws DirectoryException
+  {
+    checkRootContainerInitialized();
+    final EntryContainer entryContainer = rootContainer.getEntryContainer(baseDN);
+    if (entryContainer == null || !entryContainer.getBaseDN().equals(baseDN))
+    {
+      throw new DirectoryException(serverContext.getCoreConfigManager().getServerErrorResultCode(),
+          ERR_EXPORT_ENTRY_RECORDS_NO_BASE_DN.get(baseDN, getBackendID()));
+    }
+    return new EntryRecordExport(rootContainer, entryContainer);
+  }
+
+  /**
+   * Imports the entry records exported by another pluggable backend, as
+   * {@link #importLDIF(LDIFImportConfig, ServerContext)} imports the entries of an LDIF file. The entries keep
+   * their exported entry IDs and all the indexes are rebuilt.
+   *
+   * @param importConfig
+   *          the configuration of the import, its LDIF reader is not used
+   * @param records
+   *          the source of the batches of entry records
+   * @param serverContext
+   *          the server context
+   * @return information about the result of the import processing
+   * @throws DirectoryException
+   *           if a problem occurs while performing the import
+   */
+  public LDIFImportResult importEntryRecords(LDIFImportConfig importConfig, EntryRecordSource records,
+      ServerContext serverContext) throws DirectoryException
+  {
+    return importEntries(importConfig, records, serverContext);
+  }
+
+  /** Imports the entry records from {@code records}, or the LDIF of {@code importConfig} if it is {@code null}. */
+  private LDIFImportResult importEntries(LDIFImportConfig importConfig, EntryRecordSource records,
+      ServerContext serverContext) throws DirectoryException
   {
     RuntimeInformation.logInfo();
 
@@ -657,7 +793,10 @@ public abstract class BackendImpl<C extends PluggableBackendCfg> extends LocalBa
       }
       rootContainer = newRootContainer(AccessMode.READ_WRITE);
       rootContainer.getStorage().close();
-      return getImportStrategy(rootContainer).importLDIF(importConfig);
+      final ImportStrategy importStrategy = getImportStrategy(rootContainer);
+      return records != null
+          ? importStrategy.importEntryRecords(importConfig, records)
+          : importStrategy.importLDIF(importConfig);
     }
     catch (Exception e)
     {
@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.Arrays;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * A checksum of the data held by a base DN of a backend, organized as a two
+ * levels hash tree.
+ * <p>
+ * Entries are distributed into {@link #NB_BUCKETS} buckets by hash of their
+ * normalized DN. Buckets are grouped into {@link #NB_BRANCHES} branches, each
+ * branch hash summarizing the buckets of the branch, and the root hash
+ * summarizing all the branches. Two replicas holding the same entries have the
+ * same root hash, and comparing the branch hashes tells which part of the data
+ * is different.
+ *
+ * @see DataChecksumBuckets
+ */
+@Immutable
+public final class DataChecksum
+{
+  /** The number of buckets into which entries are distributed. */
+  static final int NB_BUCKETS = 256;
+  /** The number of branches grouping the buckets. */
+  public static final int NB_BRANCHES = 16;
+  private static final int NB_BUCKETS_PER_BRANCH = NB_BUCKETS / NB_BRANCHES;
+
+  private final long rootHash;
+  private final long[] branchHashes = new long[NB_BRANCHES];
+
+  /**
+   * Creates the checksum of the provided buckets.
+   *
+   * @param buckets
+   *          the sum of the hashes of the entries of each bucket
+   */
+  DataChecksum(long[] buckets)
+  {
+    long root = 0;
+    for (int branch = 0; branch < NB_BRANCHES; branch++)
+    {
+      long branchHash = 0;
+      for (int i = 0; i < NB_BUCKETS_PER_BRANCH; i++)
+      {
+        branchHash = DataChecksumBuckets.mix(branchHash + buckets[branch * NB_BUCKETS_PER_BRANCH + i]);
+      }
+      branchHashes[branch] = branchHash;
+      root = DataChecksumBuckets.mix(root + branchHash);
+    }
+    rootHash = root;
+  }
+
+  /**
+   * Returns the hash summarizing all the data.
+   *
+   * @return the hash summarizing all the data
+   */
+  public long getRootHash()
+  {
+    return rootHash;
+  }
+
+  /**
+   * Returns the hash summarizing the data of the provided branch.
+   *
+   * @param branch
+   *          the branch index, between 0 and {@link #NB_BRANCHES} (excluded)
+   * @return the hash summarizing the data of the provided branch
+   */
+  public long getBranchHash(int branch)
+  {
+    return branchHashes[branch];
+  }
+
+  @Override
+  public boolean equals(Object obj)
+  {
+    if (this == obj)
+    {
+      return true;
+    }
+    if (!(obj instanceof DataChecksum))
+    {
+      return false;
+    }
+    final DataChecksum other = (DataChecksum) obj;
+    return rootHash == other.rootHash && Arrays.equals(branchHashes, other.branchHashes);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return Long.hashCode(rootHash);
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("%016x", rootHash);
+  }
+}
@@ -0,0 +1,490 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.server.backends.pluggable.DataChecksum.*;
+import static org.opends.server.util.StaticUtils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.schema.ObjectClass;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Entry;
+
+/**
+ * Maintains the {@link DataChecksum} of the entries of an entry container.
+ * <p>
+ * The checksum is computed once by reading all the entries, then kept up to
+ * date by each write operation: each bucket holds the sum of the hashes of its
+ * entries, so adding or removing an entry only adds or subtracts its hash. The
+ * hash of an entry covers its DN, object classes and user attributes, the
+ * operational attributes being allowed to differ between replicas.
+ * <p>
+ * The initial computation reads the entries in entry ID order, by small chunks.
+ * Write operations are only held back while a chunk is read, and no chunk is
+ * read while a write operation is in progress. The changes made by a write
+ * operation happening during the computation are therefore folded into the
+ * buckets being computed when they touch an entry which has already been read,
+ * and ignored otherwise since the entry will be read with its new content.
+ * <p>
+ * While the checksum is neither computed nor being computed, write operations
+ * do not synchronize on this object: they are only counted, so that the first
+ * chunk of a computation starting meanwhile waits for them.
+ */
+@ThreadSafe
+final class DataChecksumBuckets
+{
+  /** The changes to the checksum made by one write operation. */
+  static final class Update
+  {
+    /** Whether this update must be recorded, false when the checksum is neither computed nor being computed. */
+    private final boolean isEnabled;
+    /** Whether the write operation is counted in writesInProgress, false when it is in untrackedWrites. */
+    private final boolean isTracked;
+    private final List<Long> entryIDs = new ArrayList<>();
+    private final List<Integer> buckets = new ArrayList<>();
+    private final List<Long> hashes = new ArrayList<>();
+
+    private Update(boolean isEnabled, boolean isTracked)
+    {
+      this.isEnabled = isEnabled;
+      this.isTracked = isTracked;
+    }
+
+    /** Forgets all the changes, before retrying the write operation. */
+    void reset()
+    {
+      entryIDs.clear();
+      buckets.clear();
+      hashes.clear();
+    }
+
+    /**
+     * Records that the provided entry has been added.
+     *
+     * @param entryID
+     *          the ID of the added entry
+     * @param entry
+     *          the added entry
+     */
+    void entryAdded(EntryID entryID, Entry entry)
+    {
+      if (isEnabled)
+      {
+        final long dnHash = hashDN(entry);
+        entryIDs.add(entryID.longValue());
+        buckets.add(bucketOf(dnHash));
+        hashes.add(hashEntry(dnHash, entry));
+      }
+    }
+
+    /**
+     * Records that the provided entry has been removed.
+     *
+     * @param entryID
+     *          the ID of the removed entry
+     * @param entry
+     *          the removed entry
+     */
+    void entryRemoved(EntryID entryID, Entry entry)
+    {
+      if (isEnabled)
+      {
+        final long dnHash = hashDN(entry);
+        entryIDs.add(entryID.longValue());
+        buckets.add(bucketOf(dnHash));
+        hashes.add(-hashEntry(dnHash, entry));
+      }
+    }
+  }
+
+  /** A computation of the checksum from scratch. */
+  static final class Computation
+  {
+    private final long[] buckets = new long[NB_BUCKETS];
+    /** The highest entry ID read so far, the entries are read in entry ID order. */
+    private long lastEntryID = -1;
+
+    private Computation()
+    {
+      // only created by beginCompute()
+    }
+
+    /**
+     * Returns the ID of the last entry read so far.
+     *
+     * @return the ID of the last entry read so far, or {@code null} if no entry has been read yet
+     */
+    EntryID getLastEntryID()
+    {
+      return lastEntryID >= 0 ? new EntryID(lastEntryID) : null;
+    }
+  }
+
+  /** A chunk of consecutive entries read during a {@link Computation}. */
+  static final class Chunk
+  {
+    private final long[] buckets = new long[NB_BUCKETS];
+    private long lastEntryID = -1;
+    private boolean isLast;
+
+    /**
+     * Adds the provided entry to this chunk. Entries must be added in entry ID order.
+     *
+     * @param entryID
+     *          the ID of the entry
+     * @param entry
+     *          the entry to add
+     */
+    void addEntry(EntryID entryID, Entry entry)
+    {
+      final long dnHash = hashDN(entry);
+      buckets[bucketOf(dnHash)] += hashEntry(dnHash, entry);
+      lastEntryID = entryID.longValue();
+    }
+
+    /** Records that this chunk ends with the last entry of the entry container. */
+    void setLast()
+    {
+      isLast = true;
+    }
+  }
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  @GuardedBy("this")
+  private final long[] buckets = new long[NB_BUCKETS];
+  @GuardedBy("this")
+  private boolean isComputed;
+  /** The computation in progress, or {@code null} if none. */
+  @GuardedBy("this")
+  private Computation computation;
+  /** The number of chunks being read, write operations must wait for them before starting. */
+  @GuardedBy("this")
+  private int chunksBeingRead;
+  @GuardedBy("this")
+  private int writesInProgress;
+  /**
+   * Whether the checksum is computed or being computed, only written while
+   * holding the lock of this object.
+   */
+  private volatile boolean isTracking;
+  /** The write operations in progress which started while {@link #isTracking} was false. */
+  private final AtomicInteger untrackedWrites = new AtomicInteger();
+
+  /**
+   * Returns the current checksum.
+   *
+   * @return the current checksum, or {@code null} if it is not computed yet
+   */
+  synchronized DataChecksum getChecksum()
+  {
+    return isComputed ? new DataChecksum(buckets) : null;
+  }
+
+  /**
+   * Indicates whether the checksum is computed and kept up to date.
+   *
+   * @return {@code true} if the checksum is computed
+   */
+  synchronized boolean isComputed()
+  {
+    return isComputed;
+  }
+
+  /**
+   * Forgets the checksum and aborts any computation in progress, after a change
+   * which was not tracked, for example when the entry container is cleared.
+   */
+  synchronized void invalidate()
+  {
+    isComputed = false;
+    computation = null;
+    isTracking = false;
+    notifyAll();
+  }
+
+  /**
+   * Notifies the beginning of a write operation. It must always be followed by
+   * a call to {@link #endUpdate(Update, boolean)}. It waits while a chunk of
+   * entries is read for computing the checksum.
+   *
+   * @return the object recording the changes made by the write operation
+   */
+  Update beginUpdate()
+  {
+    if (!isTracking)
+    {
+      // Counted before checking again, so that a computation starting meanwhile waits for this write operation
+      untrackedWrites.incrementAndGet();
+      if (!isTracking)
+      {
+        return new Update(false, false);
+      }
+      endUntrackedUpdate();
+    }
+    return beginTrackedUpdate();
+  }
+
+  private synchronized Update beginTrackedUpdate()
+  {
+    boolean isInterrupted = false;
+    while (chunksBeingRead > 0)
+    {
+      try
+      {
+        wait();
+      }
+      catch (InterruptedException e)
+      {
+        isInterrupted = true;
+      }
+    }
+    if (isInterrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+    writesInProgress++;
+    return new Update(isComputed || computation != null, true);
+  }
+
+  private void endUntrackedUpdate()
+  {
+    if (untrackedWrites.decrementAndGet() == 0 && isTracking)
+    {
+      synchronized (this)
+      {
+        // wake up the computation waiting for the write operations in progress
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Notifies the end of a write operation, updating the checksum, or the
+   * checksum being computed, if the write operation has been committed.
+   *
+   * @param update
+   *          the changes made by the write operation
+   * @param isCommitted
+   *          whether the write operation has been committed
+   */
+  void endUpdate(Update update, boolean isCommitted)
+  {
+    if (update.isTracked)
+    {
+      endTrackedUpdate(update, isCommitted);
+    }
+    else
+    {
+      endUntrackedUpdate();
+    }
+  }
+
+  private synchronized void endTrackedUpdate(Update update, boolean isCommitted)
+  {
+    writesInProgress--;
+    if (writesInProgress == 0 && chunksBeingRead > 0)
+    {
+      notifyAll();
+    }
+    if (!isCommitted || (!isComputed && computation == null))
+    {
+      return;
+    }
+    if (!update.isEnabled)
+    {
+      // a computation started during this write operation: it waited for it before reading any entry
+      if (isComputed)
+      {
+        // cannot happen: a computation cannot end while a write operation is in progress
+        isComputed = false;
+        isTracking = false;
+      }
+      return;
+    }
+    for (int i = 0; i < update.buckets.size(); i++)
+    {
+      if (isComputed)
+      {
+        buckets[update.buckets.get(i)] += update.hashes.get(i);
+      }
+      else if (update.entryIDs.get(i) <= computation.lastEntryID)
+      {
+        // the entry has been read before this write operation, the computation will not read it again
+        computation.buckets[update.buckets.get(i)] += update.hashes.get(i);
+      }
+    }
+  }
+
+  /**
+   * Starts computing the checksum from scratch, aborting any computation
+   * already in progress.
+   *
+   * @return the new computation, or {@code null} if the checksum is already
+   *         computed
+   */
+  synchronized Computation beginCompute()
+  {
+    if (isComputed)
+    {
+      return null;
+    }
+    computation = new Computation();
+    isTracking = true;
+    return computation;
+  }
+
+  /**
+   * Prepares reading the next chunk of entries of the provided computation:
+   * holds back new write operations and waits for the ones in progress to end.
+   * It must always be followed by a call to
+   * {@link #endReadChunk(Computation, Chunk)}.
+   *
+   * @param computation
+   *          the computation reading the chunk
+   * @return {@code true} if the chunk can be read, {@code false} if the
+   *         computation has been aborted
+   * @throws InterruptedException
+   *           If the current thread is interrupted while waiting
+   */
+  synchronized boolean beginReadChunk(Computation computation) throws InterruptedException
+  {
+    chunksBeingRead++;
+    while ((writesInProgress > 0 || untrackedWrites.get() > 0) && this.computation == computation)
+    {
+      wait();
+    }
+    return this.computation == computation;
+  }
+
+  /**
+   * Ends reading a chunk of entries, letting write operations proceed. The
+   * checksum is computed once the last chunk has been read.
+   *
+   * @param computation
+   *          the computation reading the chunk
+   * @param chunk
+   *          the entries read, or {@code null} if they could not be read
+   * @return {@code true} if the chunk has been added to the computation,
+   *         {@code false} if the computation has been aborted
+   */
+  synchronized boolean endReadChunk(Computation computation, Chunk chunk)
+  {
+    chunksBeingRead--;
+    notifyAll();
+    if (this.computation != computation || chunk == null)
+    {
+      return false;
+    }
+    for (int i = 0; i < NB_BUCKETS; i++)
+    {
+      computation.buckets[i] += chunk.buckets[i];
+    }
+    computation.lastEntryID = Math.max(computation.lastEntryID, chunk.lastEntryID);
+    if (chunk.isLast)
+    {
+      System.arraycopy(computation.buckets, 0, buckets, 0, NB_BUCKETS);
+      isComputed = true;
+      this.computation = null;
+    }
+    return true;
+  }
+
+  private static int bucketOf(long dnHash)
+  {
+    return (int) (dnHash >>> 56) & (NB_BUCKETS - 1);
+  }
+
+  private static long hashDN(Entry entry)
+  {
+    return mix(hash(FNV_OFFSET_BASIS, entry.getName().toNormalizedByteString()));
+  }
+
+  /** The hash of an entry does not depend on the order of its attributes and values. */
+  private static long hashEntry(long dnHash, Entry entry)
+  {
+    long sum = 0;
+    for (ObjectClass objectClass : entry.getObjectClasses().keySet())
+    {
+      sum += mix(hash(FNV_OFFSET_BASIS, objectClass.getOID()));
+    }
+    for (Map.Entry<?, List<Attribute>> mapEntry : entry.getUserAttributes().entrySet())
+    {
+      for (Attribute attribute : mapEntry.getValue())
+      {
+        long attrHash = hash(FNV_OFFSET_BASIS, attribute.getAttributeDescription().getAttributeType().getOID());
+        for (String option : attribute.getAttributeDescription().getOptions())
+        {
+          attrHash += mix(hash(FNV_OFFSET_BASIS, toLowerCase(option)));
+        }
+        for (ByteString value : attribute)
+        {
+          sum += mix(hash(attrHash, value));
+        }
+      }
+    }
+    return mix(dnHash + mix(sum));
+  }
+
+  /** FNV-1a hash of the provided bytes, starting from the provided hash. */
+  private static long hash(long hash, ByteSequence bytes)
+  {
+    long h = hash;
+    for (int i = 0; i < bytes.length(); i++)
+    {
+      h = (h ^ (bytes.byteAt(i) & 0xff)) * FNV_PRIME;
+    }
+    return h;
+  }
+
+  private static long hash(long hash, String s)
+  {
+    long h = hash;
+    for (int i = 0; i < s.length(); i++)
+    {
+      h = (h ^ s.charAt(i)) * FNV_PRIME;
+    }
+    return h;
+  }
+
+  /**
+   * Spreads the bits of the provided hash (finalizer of MurmurHash3).
+   *
+   * @param hash
+   *          the hash to mix
+   * @return the mixed hash
+   */
+  static long mix(long hash)
+  {
+    long h = hash;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
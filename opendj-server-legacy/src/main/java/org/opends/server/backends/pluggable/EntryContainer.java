@@ -347,6 +347,11 @@ public class EntryContainer
   final Lock sharedLock = lock.readLock();
   final Lock exclusiveLock = lock.writeLock();
 
+  /** The checksum of the entries of this entry container, computed on demand. */
+  private final DataChecksumBuckets dataChecksum = new DataChecksumBuckets();
+  /** The number of entries read at once while computing the checksum, write operations wait meanwhile. */
+  private static final int DATA_CHECKSUM_CHUNK_SIZE = 1000;
+
   EntryContainer(DN baseDN, String backendID, PluggableBackendCfg config, Storage storage, RootContainer rootContainer,
       ServerContext serverContext) throws ConfigException
   {
@@ -652,6 +657,117 @@ public class EntryContainer
     }
   }
 
+  /**
+   * Returns the checksum of the entries of this entry container.
+   *
+   * @return the checksum, or {@code null} if it has not been computed yet
+   * @see #computeDataChecksum()
+   */
+  DataChecksum getDataChecksum()
+  {
+    return dataChecksum.getChecksum();
+  }
+
+  /**
+   * Computes the checksum of the entries of this entry container by reading all
+   * the entries. Once computed, the checksum is kept up to date by write
+   * operations.
+   * <p>
+   * The entries are read by chunks of {@value #DATA_CHECKSUM_CHUNK_SIZE}, each
+   * in its own transaction and under the shared lock, write operations only
+   * waiting while a chunk is read. The changes made by write operations in the
+   * meantime are folded into the checksum being computed.
+   *
+   * @return {@code true} if the checksum is computed, {@code false} if the
+   *         computation has been aborted, because this entry container has
+   *         been cleared or imported, or because the current thread has been
+   *         interrupted
+   * @throws StorageRuntimeException
+   *           If an error occurs in the storage.
+   */
+  boolean computeDataChecksum() throws StorageRuntimeException
+  {
+    final DataChecksumBuckets.Computation computation = dataChecksum.beginCompute();
+    if (computation == null)
+    {
+      return true;
+    }
+    try
+    {
+      while (!dataChecksum.isComputed())
+      {
+        if (!readDataChecksumChunk(computation))
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private boolean readDataChecksumChunk(final DataChecksumBuckets.Computation computation)
+      throws StorageRuntimeException, InterruptedException
+  {
+    sharedLock.lock();
+    try
+    {
+      DataChecksumBuckets.Chunk chunk = null;
+      boolean isChunkAdded;
+      try
+      {
+        if (dataChecksum.beginReadChunk(computation))
+        {
+          chunk = storage.read(new ReadOperation<DataChecksumBuckets.Chunk>()
+          {
+            @Override
+            public DataChecksumBuckets.Chunk run(ReadableTransaction txn) throws Exception
+            {
+              final DataChecksumBuckets.Chunk chunk = new DataChecksumBuckets.Chunk();
+              try (final Cursor<EntryID, Entry> cursor = id2entry.openCursor(txn))
+              {
+                final EntryID lastEntryID = computation.getLastEntryID();
+                boolean found = lastEntryID == null ? cursor.next()
+                                                    : cursor.positionToKeyOrNext(lastEntryID.toByteString());
+                if (found && cursor.getKey().equals(lastEntryID))
+                {
+                  found = cursor.next();
+                }
+                for (int i = 0; found && i < DATA_CHECKSUM_CHUNK_SIZE; i++)
+                {
+                  chunk.addEntry(cursor.getKey(), cursor.getValue());
+                  found = cursor.next();
+                }
+                if (!found)
+                {
+                  chunk.setLast();
+                }
+              }
+              return chunk;
+            }
+          });
+        }
+      }
+      catch (Exception e)
+      {
+        throwAllowedExceptionTypes(e, StorageRuntimeException.class, InterruptedException.class);
+      }
+      finally
+      {
+        isChunkAdded = dataChecksum.endReadChunk(computation, chunk);
+      }
+      return isChunkAdded;
+    }
+    finally
+    {
+      sharedLock.unlock();
+    }
+  }
+
   /**
    * Processes the specified search in this entryContainer.
    * Matching entries should be provided back to the core server using the
@@ -1451,6 +1567,9 @@ public class EntryContainer
 
     final ByteString encodedEntry = id2entry.encode(entry);
 
+    final DataChecksumBuckets.Update checksumUpdate = dataChecksum.beginUpdate();
+    checksumUpdate.entryAdded(entryID, entry);
+    boolean isCommitted = false;
     try
     {
       storage.write(new WriteOperation()
@@ -1510,12 +1629,17 @@ public class EntryContainer
           }
         }
       });
+      isCommitted = true;
     }
     catch (Exception e)
     {
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      dataChecksum.endUpdate(checksumUpdate, isCommitted);
+    }
 
     final EntryCache<?> entryCache = DirectoryServer.getEntryCache();
     if (entryCache != null)
@@ -1577,6 +1701,8 @@ public class EntryContainer
           throws DirectoryException, StorageRuntimeException, CanceledOperationException
   {
     final IndexBuffer indexBuffer = new IndexBuffer();
+    final DataChecksumBuckets.Update checksumUpdate = dataChecksum.beginUpdate();
+    boolean isCommitted = false;
     try
     {
       storage.write(new WriteOperation()
@@ -1585,6 +1711,7 @@ public class EntryContainer
         public void run(WriteableTransaction txn) throws Exception
         {
           indexBuffer.reset();
+          checksumUpdate.reset();
           try
           {
             // Check for referral entries above the target entry.
@@ -1672,6 +1799,7 @@ public class EntryContainer
                 dn2uri.deleteEntry(txn, entry);
                 id2childrenCount.removeCount(txn, entryID);
                 removeEntryFromIndexes(indexBuffer, entry, entryID);
+                checksumUpdate.entryRemoved(entryID, entry);
                 if (!isBaseEntry)
                 {
                   invokeSubordinateDeletePlugins(entry);
@@ -1723,12 +1851,17 @@ public class EntryContainer
           }
         }
       });
+      isCommitted = true;
     }
     catch (Exception e)
     {
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      dataChecksum.endUpdate(checksumUpdate, isCommitted);
+    }
   }
 
   /**
@@ -1842,6 +1975,85 @@ public class EntryContainer
     return entry;
   }
 
+  /**
+   * Retrieves the entries below the provided base DN which contain one of the provided values for
+   * one of the provided attribute types, by reading the equality indexes of these attribute types.
+   *
+   * @param baseDN The DN of the subtree in which the entries must be.
+   * @param attributeTypes The attribute types whose values must be looked up.
+   * @param values The values to look up.
+   * @return The matching entries, or {@code null} if the equality indexes cannot provide them.
+   * @throws DirectoryException If a problem occurs while trying to retrieve the entries.
+   * @throws StorageRuntimeException An error occurred during a storage operation.
+   */
+  List<Entry> getEntriesMatchingValues(final DN baseDN, final Collection<AttributeType> attributeTypes,
+      final Collection<ByteString> values) throws StorageRuntimeException, DirectoryException
+  {
+    try
+    {
+      return storage.read(new ReadOperation<List<Entry>>()
+      {
+        @Override
+        public List<Entry> run(ReadableTransaction txn) throws Exception
+        {
+          final BackendMonitor monitor = rootContainer.getMonitorProvider();
+          final List<SearchFilter> filters = new ArrayList<>(attributeTypes.size() * values.size());
+          final List<EntryIDSet> candidateSets = new ArrayList<>(attributeTypes.size() * values.size());
+          for (AttributeType attributeType : attributeTypes)
+          {
+            final AttributeIndex attributeIndex = getAttributeIndex(attributeType);
+            if (attributeIndex == null)
+            {
+              return null;
+            }
+            final IndexQueryFactoryImpl indexQueryFactory = new IndexQueryFactoryImpl(txn, attributeIndex);
+            for (ByteString value : values)
+            {
+              final SearchFilter filter = SearchFilter.createEqualityFilter(attributeType, value);
+              final EntryIDSet candidates = AttributeIndex.evaluateFilter(
+                  indexQueryFactory, AttributeIndex.IndexFilterType.EQUALITY, filter, null, monitor);
+              if (!candidates.isDefined())
+              {
+                // Not indexed, or above the index entry limit
+                return null;
+              }
+              filters.add(filter);
+              candidateSets.add(candidates);
+            }
+          }
+
+          final List<Entry> entries = new ArrayList<>();
+          for (EntryID entryID : EntryIDSet.newSetFromUnion(candidateSets))
+          {
+            final Entry entry = getEntry(txn, entryID);
+            if (entry != null && entry.getName().isSubordinateOrEqualTo(baseDN) && matchesAny(filters, entry))
+            {
+              entries.add(entry);
+            }
+          }
+          return entries;
+        }
+      });
+    }
+    catch (Exception e)
+    {
+      throwAllowedExceptionTypes(e, DirectoryException.class, DirectoryException.class);
+      return null; // it can never happen
+    }
+  }
+
+  private static boolean matchesAny(List<SearchFilter> filters, Entry entry) throws DirectoryException
+  {
+    for (SearchFilter filter : filters)
+    {
+      if (filter.matchesEntry(entry))
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * The simplest case of replacing an entry in which the entry DN has
    * not changed.
@@ -1860,6 +2072,8 @@ public class EntryContainer
   {
     final IndexBuffer indexBuffer = new IndexBuffer();
     final ByteString encodedNewEntry = id2entry.encode(newEntry);
+    final DataChecksumBuckets.Update checksumUpdate = dataChecksum.beginUpdate();
+    boolean isCommitted = false;
     try
     {
       storage.write(new WriteOperation()
@@ -1868,6 +2082,7 @@ public class EntryContainer
         public void run(WriteableTransaction txn) throws Exception
         {
           indexBuffer.reset();
+          checksumUpdate.reset();
           try
           {
             EntryID entryID = dn2id.get(txn, newEntry.getName());
@@ -1887,6 +2102,8 @@ public class EntryContainer
 
             // Ensure same ordering as deleteEntry: id2entry, dn2uri, then indexes.
             id2entry.put(txn, entryID, encodedNewEntry);
+            checksumUpdate.entryRemoved(entryID, oldEntry);
+            checksumUpdate.entryAdded(entryID, newEntry);
 
             // Update the referral tree and indexes
             dn2uri.modifyEntry(txn, oldEntry, newEntry, modifyOperation.getModifications());
@@ -1920,12 +2137,17 @@ public class EntryContainer
           }
         }
       });
+      isCommitted = true;
     }
     catch (Exception e)
     {
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      dataChecksum.endUpdate(checksumUpdate, isCommitted);
+    }
   }
 
   /**
@@ -1952,6 +2174,8 @@ public class EntryContainer
       throws StorageRuntimeException, DirectoryException, CanceledOperationException
   {
     final IndexBuffer indexBuffer = new IndexBuffer();
+    final DataChecksumBuckets.Update checksumUpdate = dataChecksum.beginUpdate();
+    boolean isCommitted = false;
     try
     {
       storage.write(new WriteOperation()
@@ -1960,6 +2184,7 @@ public class EntryContainer
         public void run(WriteableTransaction txn) throws Exception
         {
           indexBuffer.reset();
+          checksumUpdate.reset();
           try
           {
             // Validate the request.
@@ -2097,6 +2322,8 @@ public class EntryContainer
           id2entry.put(txn, newEntryID, newEntry);
           dn2uri.deleteEntry(txn, oldEntry);
           dn2uri.addEntry(txn, newEntry);
+          checksumUpdate.entryRemoved(oldEntryID, oldEntry);
+          checksumUpdate.entryAdded(newEntryID, newEntry);
           if (renumberEntryIDs)
           {
             // In-order: new entryID is guaranteed to be greater than old entryID.
@@ -2162,12 +2389,17 @@ public class EntryContainer
           return modifications;
         }
       });
+      isCommitted = true;
     }
     catch (Exception e)
     {
       writeTrustState(indexBuffer);
       throwAllowedExceptionTypes(e, DirectoryException.class, CanceledOperationException.class);
     }
+    finally
+    {
+      dataChecksum.endUpdate(checksumUpdate, isCommitted);
+    }
   }
 
   /**
@@ -2297,13 +2529,15 @@ public class EntryContainer
 
   /**
    * Delete this entry container from disk. The entry container should be
-   * closed before calling this method.
+   * closed before calling this method. An import starts by deleting the entry
+   * container: the entries it imports are not tracked by the data checksum.
    *
    * @param txn a non null transaction
    * @throws StorageRuntimeException If an error occurs while removing the entry container.
    */
   void delete(WriteableTransaction txn) throws StorageRuntimeException
   {
+    dataChecksum.invalidate();
     for (Tree tree : listTrees())
     {
       tree.delete(txn);
@@ -2449,6 +2683,7 @@ public class EntryContainer
    */
   public void clear() throws StorageRuntimeException
   {
+    dataChecksum.invalidate();
     try
     {
       storage.write(new WriteOperation()
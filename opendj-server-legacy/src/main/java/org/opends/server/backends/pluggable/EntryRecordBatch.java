@@ -0,0 +1,113 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+/**
+ * A batch of entries read from the entry tree of a pluggable backend, in their binary tree
+ * representation.
+ * <p>
+ * The records are deflated together. Each record is preceded by the ID of its entry and by its
+ * length, both encoded as compact unsigned integers. The entry IDs are kept by the importing
+ * backend, so that the ID of each entry remains greater than the ID of its parent whatever the
+ * order in which the batches are imported. The records may refer to the compressed schema
+ * definitions of the exporting backend, which must therefore be sent before or with the batch.
+ */
+public final class EntryRecordBatch
+{
+  private final byte[] schemaDefinitions;
+  private final byte[] records;
+  private final int nbEntries;
+  private final long lastEntryID;
+
+  /**
+   * Creates a batch of entry records.
+   *
+   * @param schemaDefinitions
+   *          the compressed schema definitions to load before decoding the records, possibly empty
+   * @param records
+   *          the deflated entry records
+   * @param nbEntries
+   *          the number of entry records in this batch
+   * @param lastEntryID
+   *          the ID, in the exporting backend, of the last entry of this batch
+   */
+  public EntryRecordBatch(byte[] schemaDefinitions, byte[] records, int nbEntries, long lastEntryID)
+  {
+    this.schemaDefinitions = schemaDefinitions;
+    this.records = records;
+    this.nbEntries = nbEntries;
+    this.lastEntryID = lastEntryID;
+  }
+
+  /**
+   * Returns a copy of this batch carrying the provided compressed schema definitions.
+   *
+   * @param schemaDefinitions
+   *          the compressed schema definitions to load before decoding the records
+   * @return a copy of this batch carrying the provided compressed schema definitions
+   */
+  public EntryRecordBatch withSchemaDefinitions(byte[] schemaDefinitions)
+  {
+    return new EntryRecordBatch(schemaDefinitions, records, nbEntries, lastEntryID);
+  }
+
+  /**
+   * Returns the compressed schema definitions to load before decoding the records.
+   *
+   * @return the compressed schema definitions, possibly empty
+   */
+  public byte[] getSchemaDefinitions()
+  {
+    return schemaDefinitions;
+  }
+
+  /**
+   * Returns the deflated entry records.
+   *
+   * @return the deflated entry records
+   */
+  public byte[] getRecords()
+  {
+    return records;
+  }
+
+  /**
+   * Returns the number of entry records in this batch.
+   *
+   * @return the number of entry records in this batch
+   */
+  public int getNbEntries()
+  {
+    return nbEntries;
+  }
+
+  /**
+   * Returns the ID, in the exporting backend, of the last entry of this batch.
+   *
+   * @return the ID of the last entry of this batch
+   */
+  public long getLastEntryID()
+  {
+    return lastEntryID;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "(nbEntries=" + nbEntries + ", lastEntryID=" + lastEntryID
+        + ", recordsLength=" + records.length + ", schemaDefinitionsLength=" + schemaDefinitions.length + ")";
+  }
+}
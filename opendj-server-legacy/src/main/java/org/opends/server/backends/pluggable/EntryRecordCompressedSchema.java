@@ -0,0 +1,156 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.forgerock.opendj.ldap.ByteSequenceReader;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.opends.server.api.CompressedSchema;
+import org.opends.server.core.ServerContext;
+
+/**
+ * Compressed schema holding the definitions of another backend, used to decode the entry records
+ * exported by that backend.
+ * <p>
+ * The definitions are encoded as a sequence of:
+ * <pre>
+ * kind      BYTE            -- 1 for an attribute description, 2 for a set of object classes
+ * id        BER length + bytes
+ * nbNames   compact unsigned integer
+ * names     nbNames times (compact unsigned length + UTF-8 bytes)
+ *           -- the attribute name followed by its options, or the object class names
+ * </pre>
+ */
+final class EntryRecordCompressedSchema extends CompressedSchema
+{
+  private static final byte ATTRIBUTE_DEFINITION = 1;
+  private static final byte OBJECT_CLASSES_DEFINITION = 2;
+
+  /**
+   * Creates an empty compressed schema.
+   *
+   * @param serverContext
+   *          The server context.
+   */
+  EntryRecordCompressedSchema(ServerContext serverContext)
+  {
+    super(serverContext);
+  }
+
+  /**
+   * Appends the definition of an encoded attribute description.
+   *
+   * @param builder
+   *          the builder to append the definition to
+   * @param encodedAttribute
+   *          the encoded attribute description
+   * @param attributeName
+   *          the attribute type name
+   * @param attributeOptions
+   *          the attribute options
+   */
+  static void appendAttribute(ByteStringBuilder builder, byte[] encodedAttribute, String attributeName,
+      Iterable<String> attributeOptions)
+  {
+    final List<String> names = new ArrayList<>();
+    names.add(attributeName);
+    for (String option : attributeOptions)
+    {
+      names.add(option);
+    }
+    append(builder, ATTRIBUTE_DEFINITION, encodedAttribute, names);
+  }
+
+  /**
+   * Appends the definition of an encoded set of object classes.
+   *
+   * @param builder
+   *          the builder to append the definition to
+   * @param encodedObjectClasses
+   *          the encoded set of object classes
+   * @param objectClassNames
+   *          the object class names
+   */
+  static void appendObjectClasses(ByteStringBuilder builder, byte[] encodedObjectClasses,
+      Collection<String> objectClassNames)
+  {
+    append(builder, OBJECT_CLASSES_DEFINITION, encodedObjectClasses, objectClassNames);
+  }
+
+  private static void append(ByteStringBuilder builder, byte kind, byte[] id, Collection<String> names)
+  {
+    builder.appendByte(kind);
+    builder.appendBERLength(id.length);
+    builder.appendBytes(id);
+    builder.appendCompactUnsigned(names.size());
+    for (String name : names)
+    {
+      final byte[] bytes = ByteString.valueOfUtf8(name).toByteArray();
+      builder.appendCompactUnsigned(bytes.length);
+      builder.appendBytes(bytes);
+    }
+  }
+
+  /**
+   * Loads the provided definitions into this compressed schema. Definitions already loaded are
+   * replaced.
+   *
+   * @param definitions
+   *          the encoded definitions
+   * @throws IllegalArgumentException
+   *           if the definitions are malformed
+   */
+  void loadDefinitions(byte[] definitions)
+  {
+    final ByteSequenceReader reader = ByteString.wrap(definitions).asReader();
+    try
+    {
+      while (reader.remaining() > 0)
+      {
+        final byte kind = reader.readByte();
+        final byte[] id = new byte[reader.readBERLength()];
+        reader.readBytes(id);
+        final int nbNames = reader.readCompactUnsignedInt();
+        final List<String> names = new ArrayList<>(nbNames);
+        for (int i = 0; i < nbNames; i++)
+        {
+          names.add(reader.readStringUtf8(reader.readCompactUnsignedInt()));
+        }
+
+        if (kind == ATTRIBUTE_DEFINITION && !names.isEmpty())
+        {
+          loadAttribute(id, names.get(0), names.subList(1, names.size()));
+        }
+        else if (kind == OBJECT_CLASSES_DEFINITION)
+        {
+          loadObjectClasses(id, names);
+        }
+        else
+        {
+          throw new IllegalArgumentException("Unknown compressed schema definition kind " + kind);
+        }
+      }
+    }
+    catch (IndexOutOfBoundsException e)
+    {
+      throw new IllegalArgumentException("Truncated compressed schema definitions", e);
+    }
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.opends.messages.BackendMessages.*;
+
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.backends.pluggable.spi.Cursor;
+import org.opends.server.backends.pluggable.spi.ReadOperation;
+import org.opends.server.backends.pluggable.spi.ReadableTransaction;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.types.DirectoryException;
+import org.opends.server.util.StaticUtils;
+
+/**
+ * Reads the entries of a base DN of a pluggable backend in their binary tree representation,
+ * by ranges of entry IDs, so that several threads can export disjoint ranges concurrently.
+ * <p>
+ * The records refer to the compressed schema of this backend: each definition must be sent once,
+ * by {@link #takeSchemaDefinitions()}, after the first batch using it has been read and before
+ * that batch is decoded.
+ */
+public final class EntryRecordExport
+{
+  private final RootContainer rootContainer;
+  private final EntryContainer entryContainer;
+  private final PersistentCompressedSchema compressedSchema;
+
+  /** Number of attribute descriptions whose definitions have already been taken, guarded by this. */
+  private int nbAttributesTaken;
+  /** Number of object class sets whose definitions have already been taken, guarded by this. */
+  private int nbObjectClassesTaken;
+
+  EntryRecordExport(RootContainer rootContainer, EntryContainer entryContainer)
+  {
+    this.rootContainer = rootContainer;
+    this.entryContainer = entryContainer;
+    this.compressedSchema = rootContainer.getCompressedSchema();
+  }
+
+  /**
+   * Returns the base DN whose entries are exported.
+   *
+   * @return the base DN whose entries are exported
+   */
+  public DN getBaseDN()
+  {
+    return entryContainer.getBaseDN();
+  }
+
+  /**
+   * Returns the highest entry ID currently used by the exported base DN.
+   *
+   * @return the highest entry ID currently used, 0 if the base DN has no entries
+   * @throws DirectoryException
+   *           if the entry tree could not be read
+   */
+  public long getHighestEntryID() throws DirectoryException
+  {
+    return read(new ReadOperation<Long>()
+    {
+      @Override
+      public Long run(ReadableTransaction txn) throws Exception
+      {
+        return entryContainer.getHighestEntryID(txn).longValue();
+      }
+    });
+  }
+
+  /**
+   * Reads the next batch of entry records of a range of entry IDs.
+   *
+   * @param fromEntryID
+   *          the lowest entry ID to read
+   * @param toEntryID
+   *          the entry ID at which the range ends, excluded
+   * @param maxSize
+   *          the size of the uncompressed records above which no more records are added to the
+   *          batch
+   * @return the batch of the records following {@code fromEntryID}, or {@code null} if no entry
+   *         remains in the range
+   * @throws DirectoryException
+   *           if the entry tree could not be read
+   */
+  public EntryRecordBatch readBatch(final long fromEntryID, final long toEntryID, final int maxSize)
+      throws DirectoryException
+  {
+    return read(new ReadOperation<EntryRecordBatch>()
+    {
+      @Override
+      public EntryRecordBatch run(ReadableTransaction txn) throws Exception
+      {
+        final ID2Entry id2entry = entryContainer.getID2Entry();
+        try (Cursor<ByteString, ByteString> cursor = txn.openCursor(id2entry.getName()))
+        {
+          // entry ID 0 holds the entry count
+          if (!cursor.positionToKeyOrNext(new EntryID(Math.max(fromEntryID, 1)).toByteString()))
+          {
+            return null;
+          }
+          final ByteStringBuilder records = new ByteStringBuilder();
+          int nbEntries = 0;
+          long lastEntryID = 0;
+          do
+          {
+            final long entryID = new EntryID(cursor.getKey()).longValue();
+            if (entryID >= toEntryID)
+            {
+              break;
+            }
+            final ByteString record = id2entry.toPortableRecord(cursor.getValue());
+            records.appendCompactUnsigned(entryID);
+            records.appendCompactUnsigned(record.length());
+            records.appendBytes(record);
+            nbEntries++;
+            lastEntryID = entryID;
+          }
+          while (records.length() < maxSize && cursor.next());
+
+          if (nbEntries == 0)
+          {
+            return null;
+          }
+          return new EntryRecordBatch(new byte[0], deflate(records), nbEntries, lastEntryID);
+        }
+      }
+    });
+  }
+
+  private static byte[] deflate(ByteStringBuilder records) throws Exception
+  {
+    final ByteStringBuilder deflated = new ByteStringBuilder(records.length() / 4);
+    final OutputStream output = new DeflaterOutputStream(deflated.asOutputStream());
+    try
+    {
+      records.copyTo(output);
+    }
+    finally
+    {
+      output.close();
+    }
+    return deflated.toByteArray();
+  }
+
+  private <T> T read(final ReadOperation<T> operation) throws DirectoryException
+  {
+    try
+    {
+      return rootContainer.getStorage().read(new ReadOperation<T>()
+      {
+        @Override
+        public T run(ReadableTransaction txn) throws Exception
+        {
+          entryContainer.sharedLock.lock();
+          try
+          {
+            return operation.run(txn);
+          }
+          finally
+          {
+            entryContainer.sharedLock.unlock();
+          }
+        }
+      });
+    }
+    catch (Exception e)
+    {
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+          ERR_EXPORT_ENTRY_RECORDS_ERROR.get(getBaseDN(), StaticUtils.stackTraceToSingleLineString(e)), e);
+    }
+  }
+
+  /**
+   * Returns the compressed schema definitions which have been added since the previous call.
+   * The batches read before this call can be decoded once these definitions have been loaded.
+   *
+   * @return the encoded compressed schema definitions added since the previous call, possibly
+   *         empty
+   */
+  public synchronized byte[] takeSchemaDefinitions()
+  {
+    final ByteStringBuilder definitions = new ByteStringBuilder();
+    int i = 0;
+    for (Iterator<Map.Entry<byte[], Map.Entry<String, Iterable<String>>>> it =
+        compressedSchema.getAttributeDefinitions().iterator(); it.hasNext(); i++)
+    {
+      final Map.Entry<byte[], Map.Entry<String, Iterable<String>>> attribute = it.next();
+      if (i >= nbAttributesTaken)
+      {
+        EntryRecordCompressedSchema.appendAttribute(definitions, attribute.getKey(),
+            attribute.getValue().getKey(), attribute.getValue().getValue());
+      }
+    }
+    nbAttributesTaken = i;
+
+    i = 0;
+    for (Iterator<Map.Entry<byte[], Collection<String>>> it =
+        compressedSchema.getObjectClassDefinitions().iterator(); it.hasNext(); i++)
+    {
+      final Map.Entry<byte[], Collection<String>> objectClasses = it.next();
+      if (i >= nbObjectClassesTaken)
+      {
+        EntryRecordCompressedSchema.appendObjectClasses(definitions, objectClasses.getKey(),
+            objectClasses.getValue());
+      }
+    }
+    nbObjectClassesTaken = i;
+    return definitions.toByteArray();
+  }
+}
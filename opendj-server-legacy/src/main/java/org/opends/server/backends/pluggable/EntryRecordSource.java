@@ -0,0 +1,39 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import java.io.IOException;
+
+/**
+ * Source of the {@link EntryRecordBatch}es imported by
+ * {@link BackendImpl#importEntryRecords(org.opends.server.types.LDIFImportConfig, EntryRecordSource,
+ * org.opends.server.core.ServerContext)}.
+ * <p>
+ * The batches are requested by a single thread, in the order their compressed schema definitions
+ * must be loaded.
+ */
+public interface EntryRecordSource
+{
+  /**
+   * Returns the next batch of entry records.
+   *
+   * @return the next batch of entry records, or {@code null} when all the batches have been
+   *         returned
+   * @throws IOException
+   *           if the batch could not be obtained, which aborts the import
+   */
+  EntryRecordBatch nextBatch() throws IOException;
+}
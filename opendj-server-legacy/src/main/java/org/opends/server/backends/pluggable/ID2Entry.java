@@ -381,7 +381,7 @@ class ID2Entry extends AbstractTree
    * @throws DirectoryException If a Directory Server error occurs.
    * @throws IOException if an error occurs while reading the ASN1 sequence.
    */
-  Entry entryFromDatabase(ByteString bytes,
+  static Entry entryFromDatabase(ByteString bytes,
       CompressedSchema compressedSchema) throws DirectoryException,
       DecodeException, LDAPException, DataFormatException, IOException
   {
@@ -423,6 +423,30 @@ class ID2Entry extends AbstractTree
     return entryToDatabase(entry, dataConfig);
   }
 
+  /**
+   * Returns a tree value which another server can decode knowing only the compressed schema
+   * definitions of this backend: encrypted values and values in the old format are re-encoded
+   * without encryption, the other ones are returned unchanged.
+   *
+   * @param bytes A tree value read from the entry tree.
+   * @return The tree value which can be decoded without the cipher keys of this server.
+   * @throws Exception If the tree value could not be decoded or re-encoded.
+   */
+  ByteString toPortableRecord(ByteString bytes) throws Exception
+  {
+    if (bytes.byteAt(0) == EntryCodec.FORMAT_VERSION_V2 && (bytes.byteAt(1) & EntryCodec.ENCRYPT_ENTRY) == 0)
+    {
+      return bytes;
+    }
+    final CompressedSchema compressedSchema = dataConfig.getEntryEncodeConfig().getCompressedSchema();
+    final DataConfig portableConfig = new DataConfig.Builder()
+        .compress(dataConfig.isCompressed())
+        .encode(compressedSchema != null)
+        .schema(compressedSchema)
+        .build();
+    return entryToDatabase(entryFromDatabase(bytes, compressedSchema), portableConfig);
+  }
+
   /**
    * Write a record in the entry tree.
    *
@@ -19,8 +19,12 @@ import static org.opends.messages.UtilityMessages.*;
 import static org.opends.server.util.StaticUtils.*;
 import static org.opends.messages.BackendMessages.ERR_IMPORT_DUPLICATE_ENTRY;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -43,10 +47,81 @@ import org.opends.server.types.LDIFImportConfig;
 import org.opends.server.util.LDIFException;
 import org.opends.server.util.LDIFReader;
 
-/** This class specializes the LDIFReader for imports. */
+/**
+ * This class specializes the LDIFReader for imports.
+ * <p>
+ * The LDIF source is read in batches of whole records, which are then parsed concurrently by the threads calling
+ * {@link #readEntries(Map)}. Only reading the characters of a batch and assigning the entry IDs are serialized: the
+ * batches are handled in the order they were read from the LDIF source, so that the entry IDs follow the order of
+ * the entries in the LDIF source and that a parent entry is always registered as pending before its children.
+ */
 final class ImportLDIFReader extends LDIFReader
 {
-  private final ConcurrentHashMap<DN, CountDownLatch> pendingMap = new ConcurrentHashMap<>();
+  /** The minimum number of characters read from the LDIF source for each batch of records. */
+  private static final int BATCH_SIZE = 1024 * 1024;
+
+  private final ConcurrentHashMap<DN, PendingEntry> pendingMap = new ConcurrentHashMap<>();
+
+  /** Guards the reading of the LDIF source. */
+  private final Object readLock = new Object();
+  /** The reader for the current LDIF file, {@code null} once all the files have been read. */
+  private BufferedReader ldifReader;
+  /** The characters read from the LDIF source which have not been handed out in a batch yet. */
+  private char[] buffer = new char[2 * BATCH_SIZE];
+  private int bufferLength;
+  /** The line number of the first line in the buffer. */
+  private long bufferLineNumber = 1;
+  /** The sequence number of the next batch read from the LDIF source. */
+  private long nextBatchSequence;
+
+  /** Guards the sequence number of the next batch whose entry IDs should be assigned. */
+  private final Object sequenceLock = new Object();
+  private long nextSequenceToRegister;
+
+  /** An entry which has been read but not yet processed, on which the import of its children must wait. */
+  private static final class PendingEntry extends CountDownLatch
+  {
+    private final EntryID entryID;
+
+    private PendingEntry(EntryID entryID)
+    {
+      super(1);
+      this.entryID = entryID;
+    }
+  }
+
+  /** A set of whole LDIF records read from the LDIF source. */
+  private static final class RecordBatch
+  {
+    private final long sequence;
+    private final char[] chars;
+    private final int length;
+    private final long firstLineNumber;
+
+    private RecordBatch(long sequence, char[] chars, int length, long firstLineNumber)
+    {
+      this.sequence = sequence;
+      this.chars = chars;
+      this.length = length;
+      this.firstLineNumber = firstLineNumber;
+    }
+  }
+
+  /** The lines of an LDIF record, and the DN parsed from them. */
+  private static final class Record
+  {
+    private final LinkedList<StringBuilder> lines;
+    private final long lineNumber;
+    private DN entryDN;
+    private EntryID entryID;
+    private EntryContainer entryContainer;
+
+    private Record(LinkedList<StringBuilder> lines, long lineNumber)
+    {
+      this.lines = lines;
+      this.lineNumber = lineNumber;
+    }
+  }
 
   /**
    * A class holding the entry, its entryID as assigned by the LDIF reader and its suffix as
@@ -103,99 +178,376 @@ final class ImportLDIFReader extends LDIFReader
   }
 
   /**
-   * Reads the next entry from the LDIF source.
+   * Reads the next batch of entries from the LDIF source. This method may be called concurrently, in which case
+   * the batches are parsed in parallel.
+   * <p>
+   * The DNs of the returned entries are registered as pending: the caller must process the entries in the returned
+   * order and call {@link #removePending(DN)} for each of them, including for the entries it does not process.
    *
-   * @return The next entry information read from the LDIF source, or <CODE>null</CODE> if the end of the LDIF
-   *         data is reached of if the import has been cancelled.
+   * @return The next entries read from the LDIF source in the order they appear in it, or <CODE>null</CODE> if the
+   *         end of the LDIF data is reached.
    * @param suffixesMap
    *          A map of entry containers instances.
    * @throws IOException
    *           If an I/O problem occurs while reading from the file.
    * @throws LDIFException
-   *           If the information read cannot be parsed as an LDIF entry.
+   *           If the information read cannot be parsed as LDIF entries.
+   * @throws InterruptedException
+   *           If the thread was interrupted while waiting for the previous batches to be read.
    */
-  public final EntryInformation readEntry(Map<DN, EntryContainer> suffixesMap) throws IOException, LDIFException
+  public List<EntryInformation> readEntries(Map<DN, EntryContainer> suffixesMap)
+      throws IOException, LDIFException, InterruptedException
   {
     final boolean checkSchema = importConfig.validateSchema();
     while (true)
     {
-      LinkedList<StringBuilder> lines;
-      DN entryDN;
-      EntryID entryID;
-      final EntryContainer entryContainer;
-      synchronized (this)
+      final RecordBatch batch = readBatch();
+      if (batch == null)
+      {
+        return null;
+      }
+
+      final List<Record> records = new ArrayList<>();
+      LDIFException parseException = null;
+      try
+      {
+        splitRecords(batch, records);
+      }
+      catch (LDIFException e)
+      {
+        // Register the records preceding the invalid one before failing, as if they had been read one by one
+        parseException = e;
+      }
+      readDNs(records);
+      registerRecords(batch.sequence, records, suffixesMap);
+      if (parseException != null)
+      {
+        removePending(records);
+        throw parseException;
+      }
+
+      final List<EntryInformation> entries = new ArrayList<>(records.size());
+      for (Record record : records)
+      {
+        if (record.entryID == null)
+        {
+          continue;
+        }
+        // Create the entry and see if it is one that should be included in the import
+        final Entry entry = createEntry(record, checkSchema);
+        if (entry == null
+            || !isIncludedInImport(entry, record)
+            || !invokeImportPlugins(entry, record.lines)
+            || (checkSchema && !isValidAgainstSchema(entry, record)))
+        {
+          removePending(record.entryDN);
+          continue;
+        }
+        entries.add(new EntryInformation(entry, record.entryID, record.entryContainer));
+      }
+      if (!entries.isEmpty())
+      {
+        return entries;
+      }
+    }
+  }
+
+  /**
+   * Reads the characters of the next whole records from the LDIF source. A record never spans two LDIF files.
+   *
+   * @return The next batch of records, or {@code null} if the end of the LDIF data is reached.
+   */
+  private RecordBatch readBatch() throws IOException
+  {
+    synchronized (readLock)
+    {
+      if (ldifReader == null)
       {
-        // Read the set of lines that make up the next entry.
-        lines = readEntryLines();
-        if (lines == null)
+        if (nextBatchSequence > 0)
         {
           return null;
         }
-        lastEntryBodyLines = lines;
-        lastEntryHeaderLines = new LinkedList<>();
+        ldifReader = importConfig.getReader();
+      }
 
-        // Read the DN of the entry and see if it is one that should be included
-        // in the import.
-        try
+      int scanned = 0;
+      while (true)
+      {
+        if (bufferLength == buffer.length)
         {
-          entryDN = readDN(lines);
+          // A single record is larger than the buffer
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
         }
-        catch (LDIFException e)
+        final int read = ldifReader.read(buffer, bufferLength, buffer.length - bufferLength);
+        if (read < 0)
         {
-          logger.traceException(e);
+          ldifReader = importConfig.nextReader();
+          if (bufferLength > 0)
+          {
+            return newBatch(bufferLength, countLines(buffer, bufferLength));
+          }
+          else if (ldifReader == null)
+          {
+            return null;
+          }
           continue;
         }
-
-        if (entryDN == null)
+        bufferLength += read;
+        if (bufferLength - scanned >= BATCH_SIZE || bufferLength == buffer.length)
         {
-          // This should only happen if the LDIF starts with the "version:" line
-          // and has a blank line immediately after that. In that case, simply
-          // read and return the next entry.
-          continue;
+          final long[] lineCount = new long[1];
+          final int boundary = findLastRecordBoundary(buffer, bufferLength, lineCount);
+          if (boundary > 0)
+          {
+            return newBatch(boundary, lineCount[0]);
+          }
+          scanned = bufferLength;
         }
+      }
+    }
+  }
 
-        entriesRead.incrementAndGet();
+  /** Hands out the first characters of the buffer in a new batch, and keeps the remaining ones in a new buffer. */
+  private RecordBatch newBatch(int length, long lineCount)
+  {
+    final RecordBatch batch = new RecordBatch(nextBatchSequence++, buffer, length, bufferLineNumber);
+    final char[] remaining = new char[Math.max(2 * BATCH_SIZE, bufferLength - length + BATCH_SIZE)];
+    System.arraycopy(buffer, length, remaining, 0, bufferLength - length);
+    buffer = remaining;
+    bufferLength -= length;
+    bufferLineNumber += lineCount;
+    return batch;
+  }
 
-        final Pair<Boolean, LocalizableMessage> includeResult = importConfig.includeEntry(entryDN);
-        if (!includeResult.getFirst())
+  /**
+   * Returns the position following the last blank line of the provided characters, which is where the last whole
+   * record ends, or -1 if the characters do not contain a blank line.
+   */
+  static int findLastRecordBoundary(char[] chars, int length, long[] lineCount)
+  {
+    int boundary = -1;
+    int lineStart = 0;
+    long lines = 0;
+    for (int i = 0; i < length; i++)
+    {
+      final char c = chars[i];
+      if (c == '\n' || c == '\r')
+      {
+        if (c == '\r')
         {
-          logToSkipWriter(lines, includeResult.getSecond());
-          continue;
+          if (i + 1 == length)
+          {
+            // Cannot tell yet whether this is a CRLF line separator
+            break;
+          }
+          else if (chars[i + 1] == '\n')
+          {
+            i++;
+          }
         }
-        entryContainer = getEntryContainer(entryDN, suffixesMap);
-        if (entryContainer == null)
+        lines++;
+        if (isBlankLine(chars, lineStart))
         {
-          logger.trace("Skipping entry %s because the DN is not one that "
-              + "should be included based on a suffix match check.", entryDN);
-          logToSkipWriter(lines, ERR_LDIF_SKIP.get(entryDN));
-          continue;
+          boundary = i + 1;
+          lineCount[0] = lines;
         }
-        entryID = rootContainer.getNextEntryID();
+        lineStart = i + 1;
+      }
+    }
+    return boundary;
+  }
+
+  private static boolean isBlankLine(char[] chars, int lineStart)
+  {
+    return chars[lineStart] == '\n' || chars[lineStart] == '\r';
+  }
+
+  private static long countLines(char[] chars, int length)
+  {
+    long lines = 0;
+    for (int i = 0; i < length; i++)
+    {
+      final char c = chars[i];
+      if (c == '\n' || (c == '\r' && (i + 1 == length || chars[i + 1] != '\n')))
+      {
+        lines++;
+      }
+    }
+    return lines;
+  }
 
-        if (!addPending(entryDN))
+  /**
+   * Splits the provided batch into the lines of its records, the same way {@link LDIFReader#readEntryLines()} does:
+   * comments are ignored and continuation lines are unfolded.
+   */
+  private void splitRecords(RecordBatch batch, List<Record> records) throws LDIFException
+  {
+    final char[] chars = batch.chars;
+    long lineNumber = batch.firstLineNumber - 1;
+    Record record = null;
+    int pos = 0;
+    while (pos < batch.length)
+    {
+      int end = pos;
+      while (end < batch.length && chars[end] != '\n' && chars[end] != '\r')
+      {
+        end++;
+      }
+      final int lineStart = pos;
+      pos = end + 1;
+      if (end < batch.length && chars[end] == '\r' && pos < batch.length && chars[pos] == '\n')
+      {
+        pos++;
+      }
+      lineNumber++;
+
+      if (end == lineStart)
+      {
+        // This is a blank line, which ends the current record if any.
+        record = null;
+      }
+      else if (chars[lineStart] == '#')
+      {
+        // This is a comment.  Ignore it.
+        continue;
+      }
+      else if (chars[lineStart] == ' ' || chars[lineStart] == '\t')
+      {
+        // This is a continuation of the previous line.
+        if (record != null)
         {
-          logger.trace("Skipping entry %s because the DN already exists.", entryDN);
-          logToSkipWriter(lines, ERR_IMPORT_DUPLICATE_ENTRY.get(entryDN));
-          continue;
+          record.lines.getLast().append(chars, lineStart + 1, end - lineStart - 1);
+        }
+        else
+        {
+          final String line = new String(chars, lineStart, end - lineStart);
+          final LocalizableMessage message = ERR_LDIF_INVALID_LEADING_SPACE.get(lineNumber, line);
+          logToRejectWriter(new LinkedList<StringBuilder>(), message);
+          throw new LDIFException(message, lineNumber, false);
         }
       }
+      else
+      {
+        // This is a new line.
+        if (record == null)
+        {
+          record = new Record(new LinkedList<StringBuilder>(), lineNumber);
+          records.add(record);
+        }
+        int start = lineStart;
+        if (end - lineStart >= 3
+            && (byte) chars[start] == (byte) 0xEF
+            && (byte) chars[start + 1] == (byte) 0xBB
+            && (byte) chars[start + 2] == (byte) 0xBF)
+        {
+          // This is a UTF-8 BOM that Java doesn't skip. We will skip it here.
+          start += 3;
+        }
+        record.lines.add(new StringBuilder(end - start).append(chars, start, end - start));
+      }
+    }
+  }
 
-      // Create the entry and see if it is one that should be included in the import
-      final Entry entry = createEntry(lines, entryDN, checkSchema);
-      if (entry == null
-          || !isIncludedInImport(entry, lines)
-          || !invokeImportPlugins(entry, lines)
-          || (checkSchema && !isValidAgainstSchema(entry, lines)))
+  /** Reads the DNs of the provided records, and removes the records whose DN cannot be read. */
+  private void readDNs(List<Record> records)
+  {
+    for (Iterator<Record> it = records.iterator(); it.hasNext();)
+    {
+      final Record record = it.next();
+      try
       {
-        removePending(entryDN);
-        continue;
+        record.entryDN = readDN(record.lines, record.lineNumber, new LinkedList<StringBuilder>());
+      }
+      catch (LDIFException e)
+      {
+        logger.traceException(e);
+      }
+      if (record.entryDN == null)
+      {
+        // The DN is invalid, or the LDIF starts with the "version:" line and has a blank line immediately after it.
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Assigns the entry IDs of the provided records and registers their DNs as pending. The batches are registered
+   * in the order they were read from the LDIF source.
+   */
+  private void registerRecords(long sequence, List<Record> records, Map<DN, EntryContainer> suffixesMap)
+      throws InterruptedException
+  {
+    synchronized (sequenceLock)
+    {
+      while (nextSequenceToRegister != sequence)
+      {
+        sequenceLock.wait();
+      }
+    }
+
+    try
+    {
+      for (Record record : records)
+      {
+        registerRecord(record, suffixesMap);
+      }
+    }
+    finally
+    {
+      synchronized (sequenceLock)
+      {
+        nextSequenceToRegister++;
+        sequenceLock.notifyAll();
+      }
+    }
+  }
+
+  private void registerRecord(Record record, Map<DN, EntryContainer> suffixesMap)
+  {
+    final DN entryDN = record.entryDN;
+    entriesRead.incrementAndGet();
+
+    final Pair<Boolean, LocalizableMessage> includeResult = importConfig.includeEntry(entryDN);
+    if (!includeResult.getFirst())
+    {
+      logToSkipWriter(record.lines, includeResult.getSecond());
+      return;
+    }
+    final EntryContainer entryContainer = getEntryContainer(entryDN, suffixesMap);
+    if (entryContainer == null)
+    {
+      logger.trace("Skipping entry %s because the DN is not one that "
+          + "should be included based on a suffix match check.", entryDN);
+      logToSkipWriter(record.lines, ERR_LDIF_SKIP.get(entryDN));
+      return;
+    }
+    final EntryID entryID = rootContainer.getNextEntryID();
+
+    if (!addPending(entryDN, entryID))
+    {
+      logger.trace("Skipping entry %s because the DN already exists.", entryDN);
+      logToSkipWriter(record.lines, ERR_IMPORT_DUPLICATE_ENTRY.get(entryDN));
+      return;
+    }
+    record.entryID = entryID;
+    record.entryContainer = entryContainer;
+  }
+
+  private void removePending(List<Record> records)
+  {
+    for (Record record : records)
+    {
+      if (record.entryID != null)
+      {
+        removePending(record.entryDN);
       }
-      return new EntryInformation(entry, entryID, entryContainer);
     }
   }
 
-  private Entry createEntry(List<StringBuilder> lines, DN entryDN, boolean checkSchema)
+  private Entry createEntry(Record record, boolean checkSchema)
   {
+    final List<StringBuilder> lines = record.lines;
+    final DN entryDN = record.entryDN;
     // Read the set of attributes from the entry.
     Map<ObjectClass, String> objectClasses = new HashMap<>();
     Map<AttributeType, List<AttributeBuilder>> userAttrBuilders = new HashMap<>(lines.size());
@@ -204,7 +556,8 @@ final class ImportLDIFReader extends LDIFReader
     {
       for (StringBuilder line : lines)
       {
-        readAttribute(lines, line, entryDN, objectClasses, userAttrBuilders, operationalAttrBuilders, checkSchema);
+        readAttribute(lines, line, entryDN, objectClasses, userAttrBuilders, operationalAttrBuilders, checkSchema,
+            record.lineNumber);
       }
     }
     catch (LDIFException e)
@@ -223,8 +576,9 @@ final class ImportLDIFReader extends LDIFReader
     return entry;
   }
 
-  private boolean isIncludedInImport(Entry entry, LinkedList<StringBuilder> entryLines)
+  private boolean isIncludedInImport(Entry entry, Record record)
   {
+    final LinkedList<StringBuilder> entryLines = record.lines;
     final DN entryDN = entry.getName();
     try
     {
@@ -239,7 +593,7 @@ final class ImportLDIFReader extends LDIFReader
     catch (Exception e)
     {
       logToSkipWriter(entryLines,
-          ERR_LDIF_COULD_NOT_EVALUATE_FILTERS_FOR_IMPORT.get(entryDN, lastEntryLineNumber, e));
+          ERR_LDIF_COULD_NOT_EVALUATE_FILTERS_FOR_IMPORT.get(entryDN, record.lineNumber, e));
       return false;
     }
   }
@@ -270,7 +624,7 @@ final class ImportLDIFReader extends LDIFReader
     return true;
   }
 
-  private boolean isValidAgainstSchema(Entry entry, LinkedList<StringBuilder> lines)
+  private boolean isValidAgainstSchema(Entry entry, Record record)
   {
     final DN entryDN = entry.getName();
     addRDNAttributesIfNecessary(entryDN, entry.getUserAttributes(), entry.getOperationalAttributes());
@@ -280,8 +634,8 @@ final class ImportLDIFReader extends LDIFReader
     LocalizableMessageBuilder invalidReason = new LocalizableMessageBuilder();
     if (!entry.conformsToSchema(null, false, true, false, invalidReason))
     {
-      LocalizableMessage message = ERR_LDIF_SCHEMA_VIOLATION.get(entryDN, lastEntryLineNumber, invalidReason);
-      logToRejectWriter(lines, message);
+      LocalizableMessage message = ERR_LDIF_SCHEMA_VIOLATION.get(entryDN, record.lineNumber, invalidReason);
+      logToRejectWriter(record.lines, message);
       return false;
     }
     return true;
@@ -312,14 +666,16 @@ final class ImportLDIFReader extends LDIFReader
   }
 
   /**
-   * Make sure the specified parent DN is not in the pending map.
+   * Make sure the specified parent DN is not in the pending map. Only the entries preceding the child entry in the
+   * LDIF source are waited for, since the entries of a batch are processed in order by a single thread.
    *
    * @param parentDN The DN of the parent.
+   * @param entryID The entry ID of the child entry.
    */
-  void waitIfPending(DN parentDN)  throws InterruptedException
+  void waitIfPending(DN parentDN, EntryID entryID) throws InterruptedException
   {
-    final CountDownLatch l = pendingMap.get(parentDN);
-    if (l != null)
+    final PendingEntry l = pendingMap.get(parentDN);
+    if (l != null && l.entryID.compareTo(entryID) < 0)
     {
       l.await();
     }
@@ -329,11 +685,12 @@ final class ImportLDIFReader extends LDIFReader
    * Add specified DN to the pending map.
    *
    * @param dn The DN to add to the map.
+   * @param entryID The entry ID assigned to the entry.
    * @return true if the DN was added, false if the DN is already present.
    */
-  private boolean addPending(DN dn)
+  private boolean addPending(DN dn, EntryID entryID)
   {
-    return pendingMap.putIfAbsent(dn, new CountDownLatch(1)) == null;
+    return pendingMap.putIfAbsent(dn, new PendingEntry(entryID)) == null;
   }
 
   /**
@@ -344,7 +701,7 @@ final class ImportLDIFReader extends LDIFReader
    */
   void removePending(DN dn)
   {
-    CountDownLatch l = pendingMap.remove(dn);
+    PendingEntry l = pendingMap.remove(dn);
     if(l != null)
     {
       l.countDown();
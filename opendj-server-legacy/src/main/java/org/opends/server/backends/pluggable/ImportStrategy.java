@@ -45,6 +45,27 @@ interface ImportStrategy
   LDIFImportResult importLDIF(LDIFImportConfig importConfig)
       throws InitializationException, ConfigException, InterruptedException, ExecutionException;
 
+  /**
+   * Imports the entry records exported by another backend.
+   *
+   * @param importConfig
+   *          The configuration to use when performing the import, its LDIF reader is not used
+   * @param records
+   *          The source of the batches of entry records to import
+   * @return Information about the result of the import processing
+   * @throws InitializationException
+   *           If a problem occurs during initialization
+   * @throws ConfigException
+   *           If the configuration is invalid
+   * @throws InterruptedException
+   *           If the import process has been interrupted
+   * @throws ExecutionException
+   *           If a problem occurs while reading or importing the entry records
+   * @see {@link BackendImpl#importEntryRecords(LDIFImportConfig, EntryRecordSource, ServerContext)}
+   */
+  LDIFImportResult importEntryRecords(LDIFImportConfig importConfig, EntryRecordSource records)
+      throws InitializationException, ConfigException, InterruptedException, ExecutionException;
+
   /**
    * Rebuild indexes.
    *
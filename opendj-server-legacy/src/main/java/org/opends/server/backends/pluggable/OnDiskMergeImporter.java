@@ -34,10 +34,15 @@ import static java.nio.channels.FileChannel.*;
 import static java.nio.file.StandardOpenOption.*;
 import static org.forgerock.util.Utils.*;
 import static org.opends.messages.BackendMessages.*;
+import static org.opends.messages.UtilityMessages.ERR_LDIF_REJECTED_BY_PLUGIN;
+import static org.opends.messages.UtilityMessages.ERR_LDIF_REJECTED_BY_PLUGIN_NOMESSAGE;
+import static org.opends.messages.UtilityMessages.ERR_LDIF_SKIP;
 import static org.opends.server.util.DynamicConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 import static org.forgerock.opendj.ldap.ResultCode.*;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
@@ -93,11 +98,14 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.InflaterInputStream;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.ByteSequence;
+import org.forgerock.opendj.ldap.ByteSequenceReader;
 import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.schema.MatchingRule;
 import org.forgerock.opendj.ldap.schema.UnknownSchemaElementException;
@@ -105,10 +113,12 @@ import org.forgerock.opendj.ldap.spi.Indexer;
 import org.forgerock.opendj.server.config.meta.BackendIndexCfgDefn.IndexType;
 import org.forgerock.opendj.server.config.server.BackendIndexCfg;
 import org.forgerock.opendj.server.config.server.PluggableBackendCfg;
+import org.forgerock.util.Pair;
 import org.forgerock.util.Reject;
 import org.forgerock.util.Utils;
 import org.forgerock.util.promise.PromiseImpl;
 import org.opends.server.api.CompressedSchema;
+import org.opends.server.api.plugin.PluginResult;
 import org.opends.server.backends.RebuildConfig;
 import org.opends.server.backends.pluggable.AttributeIndex.MatchingRuleIndex;
 import org.opends.server.backends.pluggable.CursorTransformer.SequentialCursorAdapter;
@@ -126,6 +136,7 @@ import org.opends.server.backends.pluggable.spi.UpdateFunction;
 import org.opends.server.backends.pluggable.spi.WriteOperation;
 import org.opends.server.backends.pluggable.spi.WriteableTransaction;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.PluginConfigManager;
 import org.opends.server.core.ServerContext;
 import org.opends.server.schema.SchemaConstants;
 import org.opends.server.types.DirectoryException;
@@ -176,6 +187,9 @@ final class OnDiskMergeImporter
     /** Small heap threshold used to give more memory to JVM to attempt OOM errors. */
     private static final int SMALL_HEAP_SIZE = 256 * MB;
 
+    /** Merge fan-in used when the configured one is missing or lower than 2. */
+    private static final int DEFAULT_MERGE_FAN_IN = 64;
+
     private static final Predicate<Tree, Void> IS_VLV = new Predicate<Tree, Void>()
     {
       @Override
@@ -198,7 +212,35 @@ final class OnDiskMergeImporter
     }
 
     @Override
-    public LDIFImportResult importLDIF(LDIFImportConfig importConfig)
+    public LDIFImportResult importLDIF(final LDIFImportConfig importConfig)
+        throws InitializationException, ConfigException, InterruptedException, ExecutionException
+    {
+      return importEntries(importConfig, new SourceFactory()
+      {
+        @Override
+        public ImportSource newSource(int threadCount) throws IOException
+        {
+          return new LDIFReaderSource(rootContainer, importConfig, PHASE1_IMPORTER_THREAD_NAME, threadCount);
+        }
+      });
+    }
+
+    @Override
+    public LDIFImportResult importEntryRecords(final LDIFImportConfig importConfig, final EntryRecordSource records)
+        throws InitializationException, ConfigException, InterruptedException, ExecutionException
+    {
+      return importEntries(importConfig, new SourceFactory()
+      {
+        @Override
+        public ImportSource newSource(int threadCount)
+        {
+          return new EntryRecordBatchSource(
+              serverContext, rootContainer, importConfig, records, PHASE1_IMPORTER_THREAD_NAME, threadCount);
+        }
+      });
+    }
+
+    private LDIFImportResult importEntries(LDIFImportConfig importConfig, SourceFactory sourceFactory)
         throws InitializationException, ConfigException, InterruptedException, ExecutionException
     {
       logger.info(NOTE_IMPORT_STARTING, DirectoryServer.getVersionString(), BUILD_ID, REVISION);
@@ -213,17 +255,17 @@ final class OnDiskMergeImporter
         final int threadCount = bufferPool.size() / nbBuffersPerThread;
         logger.info(NOTE_IMPORT_THREAD_COUNT, threadCount);
         final OnDiskMergeImporter importer;
+        final AbstractTwoPhaseImportStrategy importStrategy;
         final ExecutorService sorter =
             Executors.newFixedThreadPool(threadCount, newThreadFactory(null, SORTER_THREAD_NAME, true));
-        try (final LDIFReaderSource source =
-            new LDIFReaderSource(rootContainer, importConfig, PHASE1_IMPORTER_THREAD_NAME, threadCount))
+        try (final ImportSource source = sourceFactory.newSource(threadCount))
         {
           final File tempDir = prepareTempDir(backendCfg, importConfig.getTmpDirectory());
           try (final Importer dbStorage = rootContainer.getStorage().startImport())
           {
             final Collection<EntryContainer> entryContainers = rootContainer.getEntryContainers();
-            final AbstractTwoPhaseImportStrategy importStrategy =
-                new ExternalSortAndImportStrategy(entryContainers, dbStorage, tempDir, bufferPool, sorter);
+            importStrategy = new ExternalSortAndImportStrategy(
+                entryContainers, dbStorage, tempDir, bufferPool, sorter, getMergeFanIn(backendCfg));
             importer = new OnDiskMergeImporter(PHASE2_IMPORTER_THREAD_NAME, importStrategy);
             importer.doImport(source);
           }
@@ -243,6 +285,7 @@ final class OnDiskMergeImporter
                       importer.getTotalTimeInMillis() / 1000,
                       importer.getPhaseOneTimeInMillis() / 1000,
                       importer.getPhaseTwoTimeInMillis() / 1000);
+          logExternalSortStatistics(bufferPool, importStrategy);
 
           final long importTime = System.currentTimeMillis() - startTime;
           float rate = 0;
@@ -358,12 +401,12 @@ final class OnDiskMergeImporter
             Executors.newFixedThreadPool(threadCount, newThreadFactory(null, SORTER_THREAD_NAME, true));
 
         final OnDiskMergeImporter importer;
+        final AbstractTwoPhaseImportStrategy strategy;
         final File tempDir = prepareTempDir(backendCfg, tmpDirectory);
         try (final Importer dbStorage = rootContainer.getStorage().startImport())
         {
-          final AbstractTwoPhaseImportStrategy strategy =
-              new RebuildIndexStrategy(
-                  rootContainer.getEntryContainers(), dbStorage, tempDir, bufferPool, sorter, indexesToRebuild);
+          strategy = new RebuildIndexStrategy(rootContainer.getEntryContainers(), dbStorage, tempDir, bufferPool,
+              sorter, getMergeFanIn(backendCfg), indexesToRebuild);
 
           importer = new OnDiskMergeImporter(PHASE2_REBUILDER_THREAD_NAME, strategy);
           importer.doImport(new ID2EntrySource(entryContainer, dbStorage, PHASE1_REBUILDER_THREAD_NAME, threadCount,
@@ -374,12 +417,24 @@ final class OnDiskMergeImporter
           sorter.shutdown();
           recursiveDelete(tempDir);
         }
+        logExternalSortStatistics(bufferPool, strategy);
         final long totalTime = importer.getTotalTimeInMillis();
         final float rate = totalTime > 0 ? 1000f * importer.getImportedCount() / totalTime : 0;
         logger.info(NOTE_REBUILD_FINAL_STATUS, importer.getImportedCount(), totalTime / 1000, rate);
       }
     }
 
+    private static void logExternalSortStatistics(BufferPool bufferPool, AbstractTwoPhaseImportStrategy strategy)
+    {
+      final ExternalSortStatistics statistics = strategy.statistics;
+      logger.info(NOTE_IMPORT_LDIF_MEMORY_STATS, ((long) bufferPool.getNbBuffers()) * bufferPool.getBufferSize() / KB,
+          bufferPool.isDirect() ? "off-heap" : "heap", bufferPool.getNbBuffers(), bufferPool.getBufferSize() / KB);
+      logger.info(NOTE_IMPORT_LDIF_SPILL_STATS, statistics.getNbSpilledRuns(), statistics.getSpilledBytes() / KB,
+          statistics.getSpilledRecordsSize() / KB);
+      logger.info(NOTE_IMPORT_LDIF_MERGE_STATS, statistics.getMaxMergePasses(), strategy.mergeFanIn,
+          statistics.getMergedBytes() / KB);
+    }
+
     /**
      * Try to allocate a {@link BufferPool} with a number of buffer in it being a multiple of {@code nbBuffers} in the
      * range [1, {@code maxThreadCount}] depending of the amount of memory available.
@@ -616,9 +671,16 @@ final class OnDiskMergeImporter
       return tempDir;
     }
 
+    private static int getMergeFanIn(PluggableBackendCfg backendCfg)
+    {
+      final int mergeFanIn = backendCfg.getImportMergeFanIn();
+      return mergeFanIn >= 2 ? mergeFanIn : DEFAULT_MERGE_FAN_IN;
+    }
+
     /**
      * Calculates the amount of available memory which can be used by this import, taking into account whether
-     * the import is running offline or online as a task.
+     * the import is running offline or online as a task: only the part of the old generation which is still free
+     * after a garbage collection is considered, so that an online import does not compete with the entry cache.
      */
     private long calculateAvailableHeapMemoryForBuffersAfterGC()
     {
@@ -634,7 +696,8 @@ final class OnDiskMergeImporter
         if (usage != null && mpool.getName().endsWith("Old Gen") && usage.getMax() > 0)
         {
           final long max = usage.getMax();
-          return (max > SMALL_HEAP_SIZE ? (max * 90 / 100) : (max * 70 / 100));
+          final long free = max - usage.getUsed();
+          return (max > SMALL_HEAP_SIZE ? (free * 90 / 100) : (free * 70 / 100));
         }
       }
       // Fall back to 40% of overall heap size (no need to do gc() again).
@@ -656,8 +719,24 @@ final class OnDiskMergeImporter
     boolean isCancelled();
   }
 
+  /** {@link Source} of the entries of an import, which counts the entries read, ignored and rejected. */
+  private interface ImportSource extends Source
+  {
+    long getEntriesRead();
+
+    long getEntriesIgnored();
+
+    long getEntriesRejected();
+  }
+
+  /** Creates the {@link ImportSource} of an import once the number of threads is known. */
+  private interface SourceFactory
+  {
+    ImportSource newSource(int threadCount) throws IOException;
+  }
+
   /** Extract LDAP {@link Entry}s from an LDIF file. */
-  private static final class LDIFReaderSource implements Source
+  private static final class LDIFReaderSource implements ImportSource
   {
     private static final String PHASE1_REPORTER_THREAD_NAME = "PHASE1-REPORTER-%d";
 
@@ -704,35 +783,26 @@ final class OnDiskMergeImporter
             public Void call() throws Exception
             {
               checkThreadNotInterrupted();
-              EntryInformation entryInfo;
-              while ((entryInfo = reader.readEntry(entryContainers)) != null && !importConfig.isCancelled())
+              List<EntryInformation> entries;
+              while (!importConfig.isCancelled() && (entries = reader.readEntries(entryContainers)) != null)
               {
-                final EntryContainer entryContainer = entryInfo.getEntryContainer();
-                final Entry entry = entryInfo.getEntry();
-                final DN entryDN = entry.getName();
-                final DN parentDN = entryContainer.getParentWithinBase(entryDN);
-
-                if (parentDN != null)
-                {
-                  reader.waitIfPending(parentDN);
-                }
+                int i = 0;
                 try
                 {
-                  entryProcessor.processEntry(entryContainer, entryInfo.getEntryID(), entry);
-                }
-                catch (DirectoryException e)
-                {
-                  reader.rejectEntry(entry, e.getMessageObject());
-                }
-                catch (Exception e)
-                {
-                  reader.rejectEntry(entry, ERR_EXECUTION_ERROR.get(e));
+                  for (; i < entries.size() && !importConfig.isCancelled(); i++)
+                  {
+                    processEntry(entryProcessor, entries.get(i));
+                    checkThreadNotInterrupted();
+                  }
                 }
                 finally
                 {
-                  reader.removePending(entry.getName());
+                  // Release the entries which will not be processed, their children may be waiting for them
+                  for (; i < entries.size(); i++)
+                  {
+                    reader.removePending(entries.get(i).getEntry().getName());
+                  }
                 }
-                checkThreadNotInterrupted();
               }
               return null;
             }
@@ -747,17 +817,53 @@ final class OnDiskMergeImporter
       }
     }
 
-    long getEntriesRead()
+    private void processEntry(EntryProcessor entryProcessor, EntryInformation entryInfo) throws InterruptedException
+    {
+      final EntryContainer entryContainer = entryInfo.getEntryContainer();
+      final Entry entry = entryInfo.getEntry();
+      final DN entryDN = entry.getName();
+      final DN parentDN = entryContainer.getParentWithinBase(entryDN);
+
+      try
+      {
+        if (parentDN != null)
+        {
+          reader.waitIfPending(parentDN, entryInfo.getEntryID());
+        }
+        entryProcessor.processEntry(entryContainer, entryInfo.getEntryID(), entry);
+      }
+      catch (DirectoryException e)
+      {
+        reader.rejectEntry(entry, e.getMessageObject());
+      }
+      catch (InterruptedException e)
+      {
+        throw e;
+      }
+      catch (Exception e)
+      {
+        reader.rejectEntry(entry, ERR_EXECUTION_ERROR.get(e));
+      }
+      finally
+      {
+        reader.removePending(entryDN);
+      }
+    }
+
+    @Override
+    public long getEntriesRead()
     {
       return reader.getEntriesRead();
     }
 
-    long getEntriesIgnored()
+    @Override
+    public long getEntriesIgnored()
     {
       return reader.getEntriesIgnored();
     }
 
-    long getEntriesRejected()
+    @Override
+    public long getEntriesRejected()
     {
       return reader.getEntriesRejected();
     }
@@ -805,6 +911,372 @@ final class OnDiskMergeImporter
     }
   }
 
+  /**
+   * Extract LDAP {@link Entry}s from the {@link EntryRecordBatch}es exported by another backend. The batches are
+   * decoded concurrently, in no particular order: the entries keep their exported entry IDs, which are greater than
+   * the IDs of their parents.
+   */
+  private static final class EntryRecordBatchSource implements ImportSource
+  {
+    private static final String PHASE1_REPORTER_THREAD_NAME = "PHASE1-REPORTER-%d";
+    private static final int INFLATE_CHUNK_SIZE = 64 * 1024;
+
+    private final Map<DN, EntryContainer> entryContainers;
+    private final LDIFImportConfig importConfig;
+    private final EntryRecordSource records;
+    private final EntryRecordCompressedSchema compressedSchema;
+    private final PluginConfigManager pluginConfigManager;
+    private final ExecutorService executor;
+    private final AtomicLong entriesRead = new AtomicLong();
+    private final AtomicLong entriesIgnored = new AtomicLong();
+    private final AtomicLong entriesRejected = new AtomicLong();
+    private volatile boolean interrupted;
+
+    EntryRecordBatchSource(ServerContext serverContext, RootContainer rootContainer, LDIFImportConfig importConfig,
+        EntryRecordSource records, String threadNameTemplate, int nbThreads)
+    {
+      this.importConfig = importConfig;
+      this.records = records;
+      this.compressedSchema = new EntryRecordCompressedSchema(serverContext);
+      this.entryContainers = new HashMap<>();
+      for (EntryContainer container : rootContainer.getEntryContainers())
+      {
+        this.entryContainers.put(container.getBaseDN(), container);
+      }
+      // Bound the number of decoded batches waiting for a thread: block the receiver instead of buffering the
+      // whole import in memory.
+      this.executor =
+          new ThreadPoolExecutor(nbThreads, nbThreads, 0, TimeUnit.SECONDS,
+              new ArrayBlockingQueue<Runnable>(nbThreads * 2),
+              newThreadFactory(null, threadNameTemplate, true),
+              new RejectedExecutionHandler()
+              {
+                @Override
+                public void rejectedExecution(Runnable r, ThreadPoolExecutor executor)
+                {
+                  try
+                  {
+                    executor.getQueue().put(r);
+                  }
+                  catch (InterruptedException e)
+                  {
+                    interrupted = true;
+                    Thread.currentThread().interrupt();
+                  }
+                }
+              });
+      this.pluginConfigManager = DirectoryServer.getPluginConfigManager();
+      if (importConfig.invokeImportPlugins())
+      {
+        pluginConfigManager.invokeLDIFImportBeginPlugins(importConfig);
+      }
+    }
+
+    @Override
+    public void close()
+    {
+      executor.shutdownNow();
+      if (importConfig.invokeImportPlugins())
+      {
+        pluginConfigManager.invokeLDIFImportEndPlugins(importConfig);
+      }
+      importConfig.close();
+    }
+
+    @Override
+    public void processAllEntries(final EntryProcessor entryProcessor) throws InterruptedException, ExecutionException
+    {
+      final ScheduledExecutorService scheduler =
+          Executors.newSingleThreadScheduledExecutor(newThreadFactory(null, PHASE1_REPORTER_THREAD_NAME, true));
+      scheduler.scheduleAtFixedRate(new PhaseOneProgressReporter(), 10, 10, TimeUnit.SECONDS);
+      final PromiseImpl<Void, ExecutionException> promise = PromiseImpl.create();
+      try
+      {
+        EntryRecordBatch batch;
+        while (!isCancelled() && (batch = nextBatch()) != null)
+        {
+          // Definitions are only ever added: loading them before submitting the batch makes them visible to the
+          // threads decoding this batch and the following ones
+          loadSchemaDefinitions(batch);
+          final EntryRecordBatch recordBatch = batch;
+          executor.submit(new Runnable()
+          {
+            @Override
+            public void run()
+            {
+              try
+              {
+                processBatch(entryProcessor, recordBatch);
+              }
+              catch (ExecutionException e)
+              {
+                interrupted = true;
+                promise.handleException(e);
+              }
+              catch (Exception e)
+              {
+                interrupted = true;
+                promise.handleException(new ExecutionException(e));
+              }
+            }
+          });
+        }
+      }
+      finally
+      {
+        executor.shutdown();
+        // Every submitted batch must be processed or rejected before phase two starts
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        scheduler.shutdown();
+      }
+
+      // Forward exception if any
+      if (promise.isDone())
+      {
+        promise.getOrThrow();
+      }
+      checkThreadNotInterrupted();
+    }
+
+    private EntryRecordBatch nextBatch() throws ExecutionException
+    {
+      try
+      {
+        return records.nextBatch();
+      }
+      catch (IOException e)
+      {
+        interrupted = true;
+        throw new ExecutionException(e);
+      }
+    }
+
+    private void loadSchemaDefinitions(EntryRecordBatch batch) throws ExecutionException
+    {
+      try
+      {
+        compressedSchema.loadDefinitions(batch.getSchemaDefinitions());
+      }
+      catch (IllegalArgumentException e)
+      {
+        interrupted = true;
+        throw newDecodeException(e);
+      }
+    }
+
+    private void processBatch(EntryProcessor entryProcessor, EntryRecordBatch batch)
+        throws InterruptedException, ExecutionException
+    {
+      final ByteSequenceReader reader = inflate(batch).asReader();
+      for (int i = 0; i < batch.getNbEntries() && !isCancelled(); i++)
+      {
+        final EntryID entryID;
+        final Entry entry;
+        try
+        {
+          entryID = new EntryID(reader.readCompactUnsignedLong());
+          entry = ID2Entry.entryFromDatabase(reader.readByteString(reader.readCompactUnsignedInt()), compressedSchema);
+        }
+        catch (Exception e)
+        {
+          // The records come from a backend: a record which cannot be decoded means the stream is corrupted
+          throw newDecodeException(e);
+        }
+        processEntry(entryProcessor, entryID, entry);
+        checkThreadNotInterrupted();
+      }
+    }
+
+    private static ByteString inflate(EntryRecordBatch batch) throws ExecutionException
+    {
+      final ByteStringBuilder records = new ByteStringBuilder(batch.getRecords().length * 4);
+      try (InputStream input = new InflaterInputStream(new ByteArrayInputStream(batch.getRecords())))
+      {
+        while (records.appendBytes(input, INFLATE_CHUNK_SIZE) >= 0)
+        {
+          // read everything
+        }
+      }
+      catch (IOException e)
+      {
+        throw newDecodeException(e);
+      }
+      return records.toByteString();
+    }
+
+    private static ExecutionException newDecodeException(Exception e)
+    {
+      return new ExecutionException(new DirectoryException(
+          DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+          ERR_IMPORT_ENTRY_RECORDS_DECODE_ERROR.get(stackTraceToSingleLineString(e)), e));
+    }
+
+    private void processEntry(EntryProcessor entryProcessor, EntryID entryID, Entry entry) throws InterruptedException
+    {
+      entriesRead.incrementAndGet();
+      final DN entryDN = entry.getName();
+      try
+      {
+        final Pair<Boolean, LocalizableMessage> includeDN = importConfig.includeEntry(entryDN);
+        if (!includeDN.getFirst())
+        {
+          skipEntry(entry, includeDN.getSecond());
+          return;
+        }
+        final EntryContainer entryContainer = getEntryContainer(entryDN);
+        if (entryContainer == null)
+        {
+          skipEntry(entry, ERR_LDIF_SKIP.get(entryDN));
+          return;
+        }
+        final Pair<Boolean, LocalizableMessage> includeEntry = importConfig.includeEntry(entry);
+        if (!includeEntry.getFirst())
+        {
+          skipEntry(entry, includeEntry.getSecond());
+          return;
+        }
+        if (importConfig.invokeImportPlugins())
+        {
+          final PluginResult.ImportLDIF pluginResult =
+              pluginConfigManager.invokeLDIFImportPlugins(importConfig, entry);
+          if (!pluginResult.continueProcessing())
+          {
+            final LocalizableMessage rejectMessage = pluginResult.getErrorMessage();
+            rejectEntry(entry, rejectMessage != null
+                ? ERR_LDIF_REJECTED_BY_PLUGIN.get(entryDN, rejectMessage)
+                : ERR_LDIF_REJECTED_BY_PLUGIN_NOMESSAGE.get(entryDN));
+            return;
+          }
+        }
+        entryProcessor.processEntry(entryContainer, entryID, entry);
+      }
+      catch (DirectoryException e)
+      {
+        rejectEntry(entry, e.getMessageObject());
+      }
+      catch (InterruptedException e)
+      {
+        throw e;
+      }
+      catch (Exception e)
+      {
+        rejectEntry(entry, ERR_EXECUTION_ERROR.get(e));
+      }
+    }
+
+    private EntryContainer getEntryContainer(DN dn)
+    {
+      DN nodeDN = dn;
+      while (nodeDN != null)
+      {
+        final EntryContainer entryContainer = entryContainers.get(nodeDN);
+        if (entryContainer != null)
+        {
+          return entryContainer;
+        }
+        nodeDN = DirectoryServer.getInstance().getServerContext().getBackendConfigManager().getParentDNInSuffix(nodeDN);
+      }
+      return null;
+    }
+
+    private void skipEntry(Entry entry, LocalizableMessage message)
+    {
+      entriesIgnored.incrementAndGet();
+      logToWriter(importConfig.getSkipWriter(), entry, message);
+    }
+
+    private void rejectEntry(Entry entry, LocalizableMessage message)
+    {
+      entriesRejected.incrementAndGet();
+      logToWriter(importConfig.getRejectWriter(), entry, message);
+    }
+
+    private static void logToWriter(BufferedWriter writer, Entry entry, LocalizableMessage message)
+    {
+      if (writer == null)
+      {
+        return;
+      }
+      final StringBuilder builder = new StringBuilder();
+      final String eol = System.lineSeparator();
+      builder.append("# ").append(message).append(eol);
+      for (StringBuilder line : entry.toLDIF())
+      {
+        builder.append(line).append(eol);
+      }
+      builder.append(eol);
+      try
+      {
+        synchronized (writer)
+        {
+          writer.write(builder.toString());
+        }
+      }
+      catch (IOException e)
+      {
+        logger.traceException(e);
+      }
+    }
+
+    @Override
+    public long getEntriesRead()
+    {
+      return entriesRead.get();
+    }
+
+    @Override
+    public long getEntriesIgnored()
+    {
+      return entriesIgnored.get();
+    }
+
+    @Override
+    public long getEntriesRejected()
+    {
+      return entriesRejected.get();
+    }
+
+    @Override
+    public boolean isCancelled()
+    {
+      return interrupted || importConfig.isCancelled();
+    }
+
+    /** This class reports progress of first phase of import processing at fixed intervals. */
+    private final class PhaseOneProgressReporter extends TimerTask
+    {
+      /** The number of entries that had been read at the time of the previous progress report. */
+      private long previousCount;
+      /** The time in milliseconds of the previous progress report. */
+      private long previousTime;
+
+      /** Create a new import progress task. */
+      public PhaseOneProgressReporter()
+      {
+        previousTime = System.currentTimeMillis();
+      }
+
+      /** The action to be performed by this timer task. */
+      @Override
+      public void run()
+      {
+        long read = entriesRead.get();
+        long deltaCount = read - previousCount;
+
+        long latestTime = System.currentTimeMillis();
+        long deltaTime = latestTime - previousTime;
+        if (deltaTime == 0)
+        {
+          return;
+        }
+        float rate = 1000f * deltaCount / deltaTime;
+        logger.info(NOTE_IMPORT_PROGRESS_REPORT, read, entriesIgnored.get(), entriesRejected.get(), rate);
+        previousCount = read;
+        previousTime = latestTime;
+      }
+    }
+  }
+
   /** Extract LDAP {@link Entry}s from an existing database. */
   private static final class ID2EntrySource implements Source
   {
@@ -949,7 +1421,7 @@ final class OnDiskMergeImporter
   }
 
   /** Max size of phase one buffer. */
-  private static final int MAX_BUFFER_SIZE = 4 * MB;
+  private static final int MAX_BUFFER_SIZE = 16 * MB;
   /** Min size of phase one buffer. */
   private static final int MIN_BUFFER_SIZE = 32 * KB;
   /** DB cache size to use during import. */
@@ -1081,9 +1553,11 @@ final class OnDiskMergeImporter
     protected final Importer importer;
     protected final BufferPool bufferPool;
     protected final File tempDir;
+    protected final int mergeFanIn;
+    protected final ExternalSortStatistics statistics = new ExternalSortStatistics();
 
     AbstractTwoPhaseImportStrategy(Collection<EntryContainer> entryContainers, Importer importer, File tempDir,
-        BufferPool bufferPool, Executor sorter)
+        BufferPool bufferPool, Executor sorter, int mergeFanIn)
     {
       this.entryContainers = new HashMap<>(entryContainers.size());
       for (EntryContainer container : entryContainers)
@@ -1094,6 +1568,7 @@ final class OnDiskMergeImporter
       this.tempDir = tempDir;
       this.bufferPool = bufferPool;
       this.sorter = sorter;
+      this.mergeFanIn = mergeFanIn;
     }
 
     void beforePhaseOne(EntryContainer entryContainer)
@@ -1118,7 +1593,7 @@ final class OnDiskMergeImporter
     {
       return new ExternalSortChunk(tempDir, treeName.toString(), bufferPool,
           newPhaseOneCollector(entryContainers.get(treeName.getBaseDN()), treeName),
-          newPhaseTwoCollector(entryContainers.get(treeName.getBaseDN()), treeName), sorter);
+          newPhaseTwoCollector(entryContainers.get(treeName.getBaseDN()), treeName), sorter, mergeFanIn, statistics);
     }
 
     final Callable<Void> newChunkCopierTask(TreeName treeName, final Chunk source,
@@ -1135,7 +1610,7 @@ final class OnDiskMergeImporter
       final ID2ChildrenCount id2count = entryContainer.getID2ChildrenCount();
 
       return new DN2IDImporterTask(progressReporter, importer, tempDir, bufferPool, id2entry, entryContainer.getDN2ID(),
-          source, id2count, newPhaseTwoCollector(entryContainer, id2count.getName()));
+          source, id2count, newPhaseTwoCollector(entryContainer, id2count.getName()), mergeFanIn, statistics);
     }
 
     final Callable<Void> newVLVIndexImporterTask(VLVIndex vlvIndex, final Chunk source,
@@ -1171,9 +1646,9 @@ final class OnDiskMergeImporter
   private static final class ExternalSortAndImportStrategy extends AbstractTwoPhaseImportStrategy
   {
     ExternalSortAndImportStrategy(Collection<EntryContainer> entryContainers, Importer importer, File tempDir,
-        BufferPool bufferPool, Executor sorter)
+        BufferPool bufferPool, Executor sorter, int mergeFanIn)
     {
-      super(entryContainers, importer, tempDir, bufferPool, sorter);
+      super(entryContainers, importer, tempDir, bufferPool, sorter, mergeFanIn);
     }
 
     @Override
@@ -1214,9 +1689,9 @@ final class OnDiskMergeImporter
     private final Set<String> indexesToRebuild;
 
     RebuildIndexStrategy(Collection<EntryContainer> entryContainers, Importer importer, File tempDir,
-        BufferPool bufferPool, Executor sorter, Set<String> indexNames)
+        BufferPool bufferPool, Executor sorter, int mergeFanIn, Set<String> indexNames)
     {
-      super(entryContainers, importer, tempDir, bufferPool, sorter);
+      super(entryContainers, importer, tempDir, bufferPool, sorter, mergeFanIn);
       this.indexesToRebuild = indexNames;
     }
 
@@ -1432,7 +1907,8 @@ final class OnDiskMergeImporter
    * Store and sort data into multiple chunks. Thanks to the chunk rolling mechanism, this chunk can sort and store an
    * unlimited amount of data. This class uses double-buffering: data are firstly stored in a
    * {@link InMemorySortedChunk} which, once full, will be asynchronously sorted and copied into a
-   * {@link FileRegion}. Duplicate keys are reduced by a {@link Collector}.
+   * {@link FileRegion}. Duplicate keys are reduced by a {@link Collector}. When there are more regions than the merge
+   * fan-in, groups of regions are merged into larger regions until the remaining regions can be merged in one pass.
    * {@link #put(ByteSequence, ByteSequence))} is thread-safe.
    * This class is used in phase-one. There is one {@link ExternalSortChunk} per
    * database tree, shared across all phase-one importer threads, in charge of storing/sorting records.
@@ -1458,6 +1934,9 @@ final class OnDiskMergeImporter
     private final AtomicInteger nbSortedChunks = new AtomicInteger();
     /** Size approximation of data contained in this chunk. */
     private final AtomicLong size = new AtomicLong();
+    /** Maximum number of regions merged together. */
+    private final int mergeFanIn;
+    private final ExternalSortStatistics statistics;
     /** Active chunk for the current thread. */
     private final ThreadLocal<Chunk> currentChunk = new ThreadLocal<Chunk>()
     {
@@ -1469,9 +1948,13 @@ final class OnDiskMergeImporter
     };
 
     ExternalSortChunk(File tempDir, String name, BufferPool bufferPool, Collector<?, ByteString> phaseOneDeduplicator,
-        Collector<?, ByteString> phaseTwoDeduplicator, Executor sortExecutor) throws IOException
+        Collector<?, ByteString> phaseTwoDeduplicator, Executor sortExecutor, int mergeFanIn,
+        ExternalSortStatistics statistics) throws IOException
     {
+      Reject.ifFalse(mergeFanIn >= 2, "mergeFanIn must be greater than or equal to 2");
       this.name = name;
+      this.mergeFanIn = mergeFanIn;
+      this.statistics = statistics;
       this.bufferPool = bufferPool;
       this.phaseOneDeduplicator = phaseOneDeduplicator;
       this.phaseTwoDeduplicator = phaseTwoDeduplicator;
@@ -1505,28 +1988,11 @@ final class OnDiskMergeImporter
         sortAndAppendChunkAsync(chunk);
       }
 
-      final List<MeteredCursor<ByteString, ByteString>> cursors = new ArrayList<>();
+      final List<MeteredCursor<ByteString, ByteString>> cursors;
       try
       {
-        final List<Region> regions = waitTasksTermination(sorter, nbSortedChunks.get());
-        Collections.sort(regions); // Sort regions by their starting offsets.
-        long mmapPosition = 0;
-        // Create as big as possible memory are (handling 2Gb limit) and create as many cursors as regions from
-        // these area.
-        MappedByteBuffer mmap = channel.map(MapMode.READ_ONLY, mmapPosition, Math.min(size.get(), Integer.MAX_VALUE));
-        for (Region region : regions)
-        {
-          if ((region.offset + region.size) > (mmapPosition + Integer.MAX_VALUE))
-          {
-            // Handle the 2Gb ByteBuffer limit
-            mmapPosition = region.offset;
-            mmap = channel.map(MapMode.READ_ONLY, mmapPosition, Math.min(size.get() - mmapPosition, Integer.MAX_VALUE));
-          }
-          final ByteBuffer regionBuffer = mmap.duplicate();
-          final int relativeRegionOffset = (int) (region.offset - mmapPosition);
-          regionBuffer.position(relativeRegionOffset).limit(regionBuffer.position() + region.size);
-          cursors.add(new FileRegion.Cursor(name, regionBuffer.slice()));
-        }
+        final List<Region> regions = mergeRegions(waitTasksTermination(sorter, nbSortedChunks.get()));
+        cursors = openRegions(regions);
       }
       catch (ExecutionException | InterruptedException | IOException e)
       {
@@ -1576,11 +2042,107 @@ final class OnDiskMergeImporter
       return nbSortedChunks.get();
     }
 
+    /**
+     * Merges groups of {@code mergeFanIn} regions into new regions appended to the file, until the number of regions
+     * does not exceed {@code mergeFanIn}. Each pass reads and writes all the data once, but bounds the number of
+     * regions read concurrently, and thus the random accesses to the file.
+     */
+    private List<Region> mergeRegions(List<Region> regions) throws IOException, InterruptedException
+    {
+      int nbPasses = regions.isEmpty() ? 0 : 1;
+      List<Region> remainingRegions = regions;
+      while (remainingRegions.size() > mergeFanIn)
+      {
+        // Sort regions by their starting offsets, so that consecutive regions are merged together
+        Collections.sort(remainingRegions);
+        final List<Region> mergedRegions = new ArrayList<>();
+        final List<Region> group = new ArrayList<>(mergeFanIn);
+        long groupRecordsSize = 0;
+        for (Region region : remainingRegions)
+        {
+          if (group.size() == mergeFanIn
+              || (!group.isEmpty()
+                  && FileRegion.maxRegionSize(groupRecordsSize + region.recordsSize) > Integer.MAX_VALUE))
+          {
+            // A region cannot be larger than 2Gb
+            mergedRegions.add(mergeRegionGroup(group));
+            group.clear();
+            groupRecordsSize = 0;
+          }
+          group.add(region);
+          groupRecordsSize += region.recordsSize;
+        }
+        mergedRegions.add(mergeRegionGroup(group));
+        if (mergedRegions.size() == remainingRegions.size())
+        {
+          // The regions are too big to be merged together
+          break;
+        }
+        remainingRegions = mergedRegions;
+        nbPasses++;
+      }
+      statistics.mergeCompleted(nbPasses);
+      return remainingRegions;
+    }
+
+    private Region mergeRegionGroup(List<Region> group) throws IOException, InterruptedException
+    {
+      if (group.size() == 1)
+      {
+        return group.get(0);
+      }
+      long recordsSize = 0;
+      for (Region region : group)
+      {
+        recordsSize += region.recordsSize;
+      }
+      final long startOffset = filePosition.getAndAdd(FileRegion.maxRegionSize(recordsSize));
+      final int regionSize;
+      try (final FileRegion region = new FileRegion(channel, startOffset, FileRegion.maxRegionSize(recordsSize));
+           final SequentialCursor<ByteString, ByteString> source = newMergeCursor(openRegions(group)))
+      {
+        regionSize = region.write(source);
+      }
+      statistics.regionsMerged(regionSize);
+      return new Region(startOffset, regionSize, recordsSize);
+    }
+
+    private SequentialCursor<ByteString, ByteString> newMergeCursor(List<MeteredCursor<ByteString, ByteString>> cursors)
+    {
+      final CompositeCursor<ByteString, ByteString> cursor = new CompositeCursor<>(name, cursors);
+      return phaseTwoDeduplicator != null ? new CollectorCursor<>(cursor, phaseTwoDeduplicator) : cursor;
+    }
+
+    /** Creates a cursor for each region, memory-mapping the file by areas as big as possible (handling 2Gb limit). */
+    private List<MeteredCursor<ByteString, ByteString>> openRegions(List<Region> regions) throws IOException
+    {
+      final List<Region> sortedRegions = new ArrayList<>(regions);
+      Collections.sort(sortedRegions); // Sort regions by their starting offsets.
+      final long fileSize = filePosition.get();
+      final List<MeteredCursor<ByteString, ByteString>> cursors = new ArrayList<>(sortedRegions.size());
+      long mmapPosition = -1;
+      MappedByteBuffer mmap = null;
+      for (Region region : sortedRegions)
+      {
+        if (mmap == null || (region.offset + region.size) > (mmapPosition + mmap.capacity()))
+        {
+          mmapPosition = region.offset;
+          mmap = channel.map(MapMode.READ_ONLY, mmapPosition, Math.min(fileSize - mmapPosition, Integer.MAX_VALUE));
+        }
+        final ByteBuffer regionBuffer = mmap.duplicate();
+        final int relativeRegionOffset = (int) (region.offset - mmapPosition);
+        regionBuffer.position(relativeRegionOffset).limit(regionBuffer.position() + region.size);
+        cursors.add(new FileRegion.Cursor(name, regionBuffer.slice()));
+      }
+      return cursors;
+    }
+
     private void sortAndAppendChunkAsync(final Chunk chunk)
     {
       size.addAndGet(chunk.size());
 
-      final long startOffset = filePosition.getAndAdd(chunk.size());
+      final long recordsSize = chunk.size();
+      final long startOffset = filePosition.getAndAdd(FileRegion.maxRegionSize(recordsSize));
       nbSortedChunks.incrementAndGet();
 
       sorter.submit(new Callable<Region>()
@@ -1594,14 +2156,15 @@ final class OnDiskMergeImporter
            */
           checkThreadNotInterrupted();
           final int regionSize;
-          try (final FileRegion region = new FileRegion(channel, startOffset, chunk.size());
+          try (final FileRegion region = new FileRegion(channel, startOffset, FileRegion.maxRegionSize(recordsSize));
                final SequentialCursor<ByteString, ByteString> source = phaseOneDeduplicator != null
                      ? new CollectorCursor<>(chunk.flip(), phaseOneDeduplicator)
                      : chunk.flip())
           {
             regionSize = region.write(source);
           }
-          return new Region(startOffset, regionSize);
+          statistics.runSpilled(recordsSize, regionSize);
+          return new Region(startOffset, regionSize, recordsSize);
         }
       });
     }
@@ -1611,11 +2174,14 @@ final class OnDiskMergeImporter
     {
       private final long offset;
       private final int size;
+      /** Size of the records stored in this region before their compression, as reported by {@link Chunk#size()}. */
+      private final long recordsSize;
 
-      Region(long offset, int size)
+      Region(long offset, int size, long recordsSize)
       {
         this.offset = offset;
         this.size = size;
+        this.recordsSize = recordsSize;
       }
 
       @Override
@@ -1849,17 +2415,19 @@ final class OnDiskMergeImporter
     /**
      * Store data inside a region contained in a file. A regions is delimited by an offset and a length. The region is
      * memory-mapped and the data are appended in the memory-mapped region until it is full. Region store a
-     * concatenation of key/value records: (Key & value sizes are stored using {@link PackedLong} format.)
+     * concatenation of sorted key/value records. Since consecutive keys usually share a common prefix, only the part of
+     * the key which differs from the previous key is stored: (Sizes are stored using {@link PackedLong} format.)
      *
      * <pre>
-     * +------------+--------------+--------------+----------------+
-     * | key length | value length | key bytes... | value bytes... |
-     * +------------+--------------+--------------+----------------+
+     * +----------------------+---------------+--------------+-----------------+----------------+
+     * | shared prefix length | suffix length | value length | suffix bytes... | value bytes... |
+     * +----------------------+---------------+--------------+-----------------+----------------+
      * </pre>
      */
     static final class FileRegion implements Closeable
     {
       private final MappedByteBuffer mmapBuffer;
+      private final ByteStringBuilder previousKey = new ByteStringBuilder();
       private final OutputStream mmapBufferOS = new OutputStream()
       {
         @Override
@@ -1879,6 +2447,16 @@ final class OnDiskMergeImporter
         mmapBuffer = channel.map(MapMode.READ_WRITE, startOffset, size);
       }
 
+      /**
+       * Returns the size to reserve in a file for a region storing records whose total size, as reported by
+       * {@link Chunk#size()}, is the provided size. The size of a record is usually reduced by the key compression, but
+       * might grow by one byte for records larger than a few megabytes.
+       */
+      static long maxRegionSize(long recordsSize)
+      {
+        return recordsSize + recordsSize / MB + PackedLong.MAX_COMPACT_SIZE;
+      }
+
       public int write(SequentialCursor<ByteString, ByteString> source) throws IOException, InterruptedException
       {
         checkThreadNotInterrupted();
@@ -1886,15 +2464,29 @@ final class OnDiskMergeImporter
         {
           final ByteSequence key = source.getKey();
           final ByteSequence value = source.getValue();
-          PackedLong.writeCompactUnsigned(mmapBufferOS, key.length());
+          final int sharedLength = commonPrefixLength(previousKey, key);
+          PackedLong.writeCompactUnsigned(mmapBufferOS, sharedLength);
+          PackedLong.writeCompactUnsigned(mmapBufferOS, key.length() - sharedLength);
           PackedLong.writeCompactUnsigned(mmapBufferOS, value.length());
-          key.copyTo(mmapBuffer);
+          key.subSequence(sharedLength, key.length()).copyTo(mmapBuffer);
           value.copyTo(mmapBuffer);
+          previousKey.clear().appendBytes(key);
           checkThreadNotInterrupted();
         }
         return mmapBuffer.position();
       }
 
+      private static int commonPrefixLength(ByteSequence a, ByteSequence b)
+      {
+        final int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.byteAt(i) == b.byteAt(i))
+        {
+          i++;
+        }
+        return i;
+      }
+
       @Override
       public void close()
       {
@@ -1918,6 +2510,8 @@ final class OnDiskMergeImporter
         private final String metricName;
         private ByteBuffer region;
         private ByteString key, value;
+        /** Contains the previous key in its first bytes. */
+        private byte[] previousKeyData = new byte[0];
 
         Cursor(String metricName, ByteBuffer region)
         {
@@ -1934,11 +2528,13 @@ final class OnDiskMergeImporter
             return false;
           }
 
+          final int sharedLength;
           final int keyLength;
           final int valueLength;
           try
           {
-            keyLength = (int) PackedLong.readCompactUnsignedLong(asInputStream);
+            sharedLength = (int) PackedLong.readCompactUnsignedLong(asInputStream);
+            keyLength = sharedLength + (int) PackedLong.readCompactUnsignedLong(asInputStream);
             valueLength = (int) PackedLong.readCompactUnsignedLong(asInputStream);
           }
           catch (IOException e)
@@ -1948,10 +2544,12 @@ final class OnDiskMergeImporter
           final int recordSize = keyLength + valueLength;
 
           final byte[] keyValueData = new byte[recordSize];
-          region.get(keyValueData, 0, recordSize);
+          System.arraycopy(previousKeyData, 0, keyValueData, 0, sharedLength);
+          region.get(keyValueData, sharedLength, recordSize - sharedLength);
 
           key = ByteString.wrap(keyValueData, 0, keyLength);
           value = ByteString.wrap(keyValueData, keyLength, valueLength);
+          previousKeyData = keyValueData;
 
           return true;
         }
@@ -2329,10 +2927,12 @@ final class OnDiskMergeImporter
     private final Collector<?, ByteString> id2countCollector;
     private final Chunk dn2IdSourceChunk;
     private final Chunk dn2IdDestination;
+    private final int mergeFanIn;
+    private final ExternalSortStatistics statistics;
 
     DN2IDImporterTask(PhaseTwoProgressReporter progressReporter, Importer importer, File tempDir, BufferPool bufferPool,
         ID2Entry id2Entry, DN2ID dn2id, Chunk dn2IdChunk, ID2ChildrenCount id2count,
-        Collector<?, ByteString> id2countCollector)
+        Collector<?, ByteString> id2countCollector, int mergeFanIn, ExternalSortStatistics statistics)
     {
       this.reporter = progressReporter;
       this.importer = importer;
@@ -2344,6 +2944,8 @@ final class OnDiskMergeImporter
       this.id2count = id2count;
       this.id2countCollector = id2countCollector;
       this.dn2IdDestination = asChunk(dn2id.getName(), importer);
+      this.mergeFanIn = mergeFanIn;
+      this.statistics = statistics;
     }
 
     @Override
@@ -2351,7 +2953,7 @@ final class OnDiskMergeImporter
     {
       final Chunk id2CountChunk =
           new ExternalSortChunk(tempDir, id2count.getName().toString(), bufferPool, id2countCollector,
-              id2countCollector, sameThreadExecutor());
+              id2countCollector, sameThreadExecutor(), mergeFanIn, statistics);
       long totalNumberOfEntries = 0;
 
       final TreeVisitor<ChildrenCount> childrenCountVisitor =
@@ -2888,6 +3490,62 @@ final class OnDiskMergeImporter
     }
   }
 
+  /** Keeps track of the data spilled to disk and merged by the {@link ExternalSortChunk}s of an import. */
+  static final class ExternalSortStatistics
+  {
+    private final AtomicLong nbSpilledRuns = new AtomicLong();
+    private final AtomicLong spilledRecordsSize = new AtomicLong();
+    private final AtomicLong spilledBytes = new AtomicLong();
+    private final AtomicLong mergedBytes = new AtomicLong();
+    private final AtomicInteger maxMergePasses = new AtomicInteger();
+
+    void runSpilled(long recordsSize, long bytes)
+    {
+      nbSpilledRuns.incrementAndGet();
+      spilledRecordsSize.addAndGet(recordsSize);
+      spilledBytes.addAndGet(bytes);
+    }
+
+    void regionsMerged(long bytes)
+    {
+      mergedBytes.addAndGet(bytes);
+    }
+
+    void mergeCompleted(int nbPasses)
+    {
+      int max = maxMergePasses.get();
+      while (nbPasses > max && !maxMergePasses.compareAndSet(max, nbPasses))
+      {
+        max = maxMergePasses.get();
+      }
+    }
+
+    long getNbSpilledRuns()
+    {
+      return nbSpilledRuns.get();
+    }
+
+    long getSpilledRecordsSize()
+    {
+      return spilledRecordsSize.get();
+    }
+
+    long getSpilledBytes()
+    {
+      return spilledBytes.get();
+    }
+
+    long getMergedBytes()
+    {
+      return mergedBytes.get();
+    }
+
+    int getMaxMergePasses()
+    {
+      return maxMergePasses.get();
+    }
+  }
+
   /**
    * Pre-allocate and maintain a fixed number of re-usable {@code Buffer}s. This allow to keep controls of heap memory
    * consumption and prevents the significant object allocation cost occurring for huge objects.
@@ -2895,9 +3553,15 @@ final class OnDiskMergeImporter
   static final class BufferPool implements Closeable
   {
     private final BlockingQueue<MemoryBuffer> pool;
+    private final int nbBuffers;
+    private final int bufferSize;
+    private final boolean allocateDirect;
 
     BufferPool(int nbBuffer, int bufferSize, boolean allocateDirect)
     {
+      this.nbBuffers = nbBuffer;
+      this.bufferSize = bufferSize;
+      this.allocateDirect = allocateDirect;
       this.pool = new ArrayBlockingQueue<>(nbBuffer);
       try
       {
@@ -2920,6 +3584,21 @@ final class OnDiskMergeImporter
       return pool.size();
     }
 
+    private int getNbBuffers()
+    {
+      return nbBuffers;
+    }
+
+    private int getBufferSize()
+    {
+      return bufferSize;
+    }
+
+    private boolean isDirect()
+    {
+      return allocateDirect;
+    }
+
     private MemoryBuffer get()
     {
       try
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.io.ASN1;
@@ -137,6 +138,28 @@ final class PersistentCompressedSchema extends CompressedSchema
     }
   }
 
+  /**
+   * Returns a view of the encoded attributes in this compressed schema, in the order of their
+   * encoded IDs.
+   *
+   * @return A view of the encoded attributes in this compressed schema.
+   */
+  Iterable<Map.Entry<byte[], Map.Entry<String, Iterable<String>>>> getAttributeDefinitions()
+  {
+    return getAllAttributes();
+  }
+
+  /**
+   * Returns a view of the encoded object classes in this compressed schema, in the order of their
+   * encoded IDs.
+   *
+   * @return A view of the encoded object classes in this compressed schema.
+   */
+  Iterable<Map.Entry<byte[], Collection<String>>> getObjectClassDefinitions()
+  {
+    return getAllObjectClasses();
+  }
+
   private void load(WriteableTransaction txn, boolean shouldCreate)
       throws StorageRuntimeException, InitializationException
   {
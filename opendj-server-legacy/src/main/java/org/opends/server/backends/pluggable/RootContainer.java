@@ -35,7 +35,6 @@ import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.server.config.server.PluggableBackendCfg;
-import org.opends.server.api.CompressedSchema;
 import org.opends.server.backends.pluggable.spi.AccessMode;
 import org.opends.server.backends.pluggable.spi.ReadOperation;
 import org.opends.server.backends.pluggable.spi.ReadableTransaction;
@@ -250,7 +249,7 @@ public class RootContainer implements ConfigurationChangeListener<PluggableBacke
    *
    * @return The compressed schema manager for this backend.
    */
-  CompressedSchema getCompressedSchema()
+  PersistentCompressedSchema getCompressedSchema()
   {
     return compressedSchema;
   }
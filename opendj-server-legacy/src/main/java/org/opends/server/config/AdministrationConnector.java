@@ -104,6 +104,9 @@ public final class AdministrationConnector implements
   private static final boolean ADMIN_USE_TCP_NO_DELAY = true;
   private static final SSLClientAuthPolicy ADMIN_SSL_CLIENT_AUTH_POLICY =
     SSLClientAuthPolicy.DISABLED;
+  private static final int ADMIN_SSL_SESSION_CACHE_SIZE = 20480;
+  /** 24 hours. */
+  private static final long ADMIN_SSL_SESSION_TIMEOUT = 86400;
 
   private final ServerContext serverContext;
 
@@ -329,6 +332,18 @@ public final class AdministrationConnector implements
       return config.getSSLProtocol();
     }
 
+    @Override
+    public int getSSLSessionCacheSize()
+    {
+      return ADMIN_SSL_SESSION_CACHE_SIZE;
+    }
+
+    @Override
+    public long getSSLSessionTimeout()
+    {
+      return ADMIN_SSL_SESSION_TIMEOUT;
+    }
+
     @Override
     public String getTrustManagerProvider()
     {
@@ -220,6 +220,10 @@ public class CoreConfigManager implements ConfigurationChangeListener<GlobalCfg>
     core.maxPSearches = globalConfig.getMaxPsearches();
     core.maxInternalBufferSize = (int) globalConfig.getMaxInternalBufferSize();
 
+    final Integer passwordVerificationThreads = globalConfig.getNumPasswordVerificationThreads();
+    PasswordVerifier.getInstance().setThreadCount(passwordVerificationThreads != null
+        ? passwordVerificationThreads : PasswordVerifier.getDefaultThreadCount());
+
     // For tools, common audit may not be available
     CommonAudit commonAudit = serverContext.getCommonAudit();
     if (commonAudit != null)
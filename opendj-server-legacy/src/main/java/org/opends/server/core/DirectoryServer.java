@@ -132,6 +132,7 @@ import org.opends.server.loggers.RotationPolicy;
 import org.opends.server.loggers.TextErrorLogPublisher;
 import org.opends.server.loggers.TextWriter;
 import org.opends.server.monitors.ConnectionHandlerMonitor;
+import org.opends.server.monitors.PasswordVerificationMonitor;
 import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalConnectionHandler;
 import org.opends.server.schema.SchemaHandler;
@@ -443,6 +444,10 @@ public final class DirectoryServer
   private long currentConnections;
   /** The idle time limit for the server. */
   private long idleTimeLimit;
+  /** The thread terminating the client connections which have been idle for too long. */
+  private volatile IdleTimeLimitThread idleTimeLimitThread;
+  /** The thread writing the delayed updates of the last login times. */
+  private volatile LastLoginTimeUpdater lastLoginTimeUpdater;
 
   /** The maximum number of connections established at one time. */
   private long maxConnections;
@@ -1461,6 +1466,8 @@ public final class DirectoryServer
       initializeRootAndAdminDataBackends();
 
       initializeAuthenticationPolicyComponents();
+      lastLoginTimeUpdater = new LastLoginTimeUpdater();
+      lastLoginTimeUpdater.start();
 
       // Synchronization of ADS with the crypto manager.
       // Need access to ADS keys before confidential backends and synchronization start to be able to
@@ -1520,8 +1527,10 @@ public final class DirectoryServer
 
       if (startConnectionHandlers)
       {
+        // Connections accepted before the thread is started must have their idle time limit armed
+        idleTimeLimitThread = new IdleTimeLimitThread();
         startConnectionHandlers();
-        new IdleTimeLimitThread().start();
+        idleTimeLimitThread.start();
       }
 
       // Write a copy of the config if needed.
@@ -1814,6 +1823,8 @@ public final class DirectoryServer
 
     authenticationPolicyConfigManager = new PasswordPolicyConfigManager(serverContext);
     authenticationPolicyConfigManager.initializeAuthenticationPolicies();
+
+    registerMonitorProvider(new PasswordVerificationMonitor(PasswordVerifier.getInstance()));
   }
 
   /**
@@ -4426,6 +4437,7 @@ public final class DirectoryServer
    */
   public static long newConnectionAccepted(ClientConnection clientConnection)
   {
+    final long connectionID;
     synchronized (directoryServer.establishedConnections)
     {
       if (directoryServer.lockdownMode)
@@ -4451,8 +4463,10 @@ public final class DirectoryServer
         directoryServer.maxConnections = directoryServer.currentConnections;
       }
 
-      return directoryServer.totalConnections++;
+      connectionID = directoryServer.totalConnections++;
     }
+    idleTimeLimitChanged(clientConnection);
+    return connectionID;
   }
 
   /**
@@ -4467,6 +4481,39 @@ public final class DirectoryServer
       directoryServer.establishedConnections.remove(clientConnection);
       directoryServer.currentConnections--;
     }
+    final IdleTimeLimitThread thread = directoryServer.idleTimeLimitThread;
+    if (thread != null)
+    {
+      thread.connectionClosed(clientConnection);
+    }
+  }
+
+  /**
+   * Indicates that the idle time limit of the specified client connection has
+   * been set, so that the connection is terminated once it has been idle for
+   * longer than its new limit.
+   *
+   * @param  clientConnection  The client connection whose idle time limit has
+   *                           been set.
+   */
+  public static void idleTimeLimitChanged(ClientConnection clientConnection)
+  {
+    final IdleTimeLimitThread thread = directoryServer.idleTimeLimitThread;
+    if (thread != null)
+    {
+      thread.idleTimeLimitChanged(clientConnection);
+    }
+  }
+
+  /**
+   * Retrieves the thread writing the delayed updates of the last login times.
+   *
+   * @return  The thread writing the delayed updates of the last login times,
+   *          or {@code null} if the server has not been started.
+   */
+  static LastLoginTimeUpdater getLastLoginTimeUpdater()
+  {
+    return directoryServer.lastLoginTimeUpdater;
   }
 
   /**
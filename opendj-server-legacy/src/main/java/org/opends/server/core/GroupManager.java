@@ -23,10 +23,16 @@ import static org.opends.server.protocols.internal.Requests.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +45,7 @@ import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ConditionResult;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.util.Utils;
@@ -57,6 +64,7 @@ import org.opends.server.api.plugin.InternalDirectoryServerPlugin;
 import org.opends.server.api.plugin.PluginResult;
 import org.opends.server.api.plugin.PluginResult.PostOperation;
 import org.opends.server.api.plugin.PluginType;
+import org.opends.server.extensions.StaticGroup.CompactDn;
 import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
@@ -66,6 +74,8 @@ import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
+import org.opends.server.types.MemberList;
+import org.opends.server.types.MembershipException;
 import org.opends.server.types.Modification;
 import org.opends.server.types.SearchFilter;
 import org.opends.server.types.SearchResultEntry;
@@ -108,6 +118,42 @@ public class GroupManager extends InternalDirectoryServerPlugin
   /** A mapping between the DNs of all group entries and the corresponding group instances. */
   private DITCacheMap<Group<?>> groupInstances;
 
+  /**
+   * Reverse membership index of the group instances which list their members explicitly, mapping
+   * the DN of each member to the group instances directly containing it. A nested group being a
+   * member like any other entry, the groups containing a group are found by looking up its DN.
+   * Entries referring to a deregistered group instance may remain, so lookups must ignore group
+   * instances which are not in {@link #indexedGroupInstances}.
+   * <p>
+   * Most entries being a member of a single group, the values are either a {@link Group} or, for
+   * members of several groups, an array of groups. Values are replaced rather than modified, so
+   * they can be read without holding the index lock.
+   */
+  private final ConcurrentMap<CompactDn, Object> memberDN2Groups = new ConcurrentHashMap<>();
+
+  /** The group instances registered in the reverse membership index. */
+  private final Set<Group<?>> indexedGroupInstances = ConcurrentHashMap.newKeySet();
+
+  /** The group instances which do not list their members, and must be evaluated for each entry. */
+  private final Set<Group<?>> unindexedGroupInstances = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The group instances maintaining their members from the changes of the entries. They are
+   * evaluated for each entry until they have retrieved their members and are added to the
+   * reverse membership index.
+   */
+  private final Set<Group<?>> maintainedGroupInstances = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The members removed from the group instances being added to the reverse membership index,
+   * while they are reading their current members, guarded by the index lock. The members read
+   * may still include them.
+   */
+  private final Map<Group<?>, Set<DN>> removedMembersWhileIndexing = new IdentityHashMap<>();
+
+  /** Lock serializing the updates of the reverse membership index. */
+  private final Object membershipIndexLock = new Object();
+
   /** Lock to protect internal data structures. */
   private final ReadWriteLock lock;
 
@@ -269,6 +315,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           Group<?> g = iterator.next();
           if (g.getClass().getName().equals(group.getClass().getName()))
           {
+            unindexGroup(g);
             iterator.remove();
           }
         }
@@ -330,6 +377,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
               Group<?> g = iterator.next();
               if (g.getClass().getName().equals(group.getClass().getName()))
               {
+                unindexGroup(g);
                 iterator.remove();
               }
             }
@@ -580,8 +628,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
             try
             {
               Group<?> groupInstance = groupImplementation.newInstance(serverContext, entry);
-              groupInstances.put(entry.getName(), groupInstance);
-              refreshToken++;
+              registerGroupInstance(entry.getName(), groupInstance);
             }
             catch (DirectoryException e)
             {
@@ -615,6 +662,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
         DN groupEntryDN = mapEntry.getKey();
         if (backend.handlesEntry(groupEntryDN))
         {
+          unindexGroup(mapEntry.getValue());
           iterator.remove();
         }
       }
@@ -623,11 +671,23 @@ public class GroupManager extends InternalDirectoryServerPlugin
     {
       lock.writeLock().unlock();
     }
+
+    // The entries of the backend are no longer available
+    invalidateMaintainedGroups();
   }
 
   @Override
   public void performBackendPostInitializationProcessing(LocalBackend<?> backend) {
-    // Nothing to do.
+    // The backend may have been imported or initialized without reporting the changes of its entries
+    invalidateMaintainedGroups();
+  }
+
+  private void invalidateMaintainedGroups()
+  {
+    for (Group<?> group : maintainedGroupInstances)
+    {
+      group.invalidateMembers();
+    }
   }
 
   @Override
@@ -642,6 +702,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   private void doPostAdd(PluginOperation addOperation, Entry entry)
   {
+    processEntryChange(addOperation, null, entry);
     if (hasGroupMembershipUpdateControl(addOperation))
     {
       return;
@@ -651,13 +712,18 @@ public class GroupManager extends InternalDirectoryServerPlugin
   }
 
   private static boolean hasGroupMembershipUpdateControl(PluginOperation operation)
+  {
+    return hasControl(operation, OID_INTERNAL_GROUP_MEMBERSHIP_UPDATE);
+  }
+
+  private static boolean hasControl(PluginOperation operation, String oid)
   {
     List<Control> requestControls = operation.getRequestControls();
     if (requestControls != null)
     {
       for (Control c : requestControls)
       {
-        if (OID_INTERNAL_GROUP_MEMBERSHIP_UPDATE.equals(c.getOID()))
+        if (oid.equals(c.getOID()))
         {
           return true;
         }
@@ -672,6 +738,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
    */
   private void doPostDelete(PluginOperation deleteOperation, Entry entry)
   {
+    processEntryChange(deleteOperation, entry, null);
     if (hasGroupMembershipUpdateControl(deleteOperation))
     {
       return;
@@ -680,6 +747,10 @@ public class GroupManager extends InternalDirectoryServerPlugin
     lock.writeLock().lock();
     try
     {
+      for (Group<?> group : groupInstances.getSubtree(entry.getName()))
+      {
+        unindexGroup(group);
+      }
       if (groupInstances.removeSubtree(entry.getName(), null))
       {
         refreshToken++;
@@ -721,6 +792,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           Entry oldEntry, Entry newEntry,
           List<Modification> modifications)
   {
+    processEntryChange(modifyOperation, oldEntry, newEntry);
     if (hasGroupMembershipUpdateControl(modifyOperation))
     {
       return;
@@ -751,6 +823,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
             || !group.mayAlterMemberList()
             || updatesObjectClass(modifications))
         {
+          unindexGroup(group);
           groupInstances.remove(oldEntry.getName());
           // This updates the refreshToken
           createAndRegisterGroup(newEntry);
@@ -781,6 +854,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
   private void doPostModifyDN(PluginOperation modifyDNOperation,
           Entry oldEntry, Entry newEntry)
   {
+    processEntryChange(modifyDNOperation, oldEntry, newEntry);
     if (hasGroupMembershipUpdateControl(modifyDNOperation))
     {
       return;
@@ -942,8 +1016,7 @@ public class GroupManager extends InternalDirectoryServerPlugin
           lock.writeLock().lock();
           try
           {
-            groupInstances.put(entry.getName(), groupInstance);
-            refreshToken++;
+            registerGroupInstance(entry.getName(), groupInstance);
           }
           finally
           {
@@ -958,6 +1031,47 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Replaces the registered instances of the provided group implementation with
+   * new instances created from their entries. This must be called when a
+   * configuration change of the group implementation applies to the existing
+   * group instances.
+   *
+   * @param groupImplementation
+   *          The group implementation whose instances must be replaced.
+   */
+  public void reloadGroupInstances(Group<?> groupImplementation)
+  {
+    lock.writeLock().lock();
+    try
+    {
+      for (Group<?> group : new ArrayList<>(groupInstances.values()))
+      {
+        if (!group.getClass().getName().equals(groupImplementation.getClass().getName()))
+        {
+          continue;
+        }
+        DN groupDN = group.getGroupDN();
+        try
+        {
+          Entry groupEntry = DirectoryServer.getEntry(groupDN);
+          if (groupEntry != null)
+          {
+            registerGroupInstance(groupDN, groupImplementation.newInstance(serverContext, groupEntry));
+          }
+        }
+        catch (DirectoryException e)
+        {
+          logger.traceException(e);
+        }
+      }
+    }
+    finally
+    {
+      lock.writeLock().unlock();
+    }
+  }
+
   /**
    * Removes all group instances that might happen to be registered with the
    * group manager.  This method is only intended for testing purposes and
@@ -969,6 +1083,14 @@ public class GroupManager extends InternalDirectoryServerPlugin
     try
     {
       groupInstances.clear();
+      synchronized (membershipIndexLock)
+      {
+        memberDN2Groups.clear();
+        indexedGroupInstances.clear();
+        unindexedGroupInstances.clear();
+        maintainedGroupInstances.clear();
+        removedMembersWhileIndexing.clear();
+      }
     }
     finally
     {
@@ -976,6 +1098,387 @@ public class GroupManager extends InternalDirectoryServerPlugin
     }
   }
 
+  /**
+   * Registers a new group instance, replacing any group instance registered with the same DN.
+   * The caller must hold the write lock.
+   */
+  private void registerGroupInstance(DN groupDN, Group<?> groupInstance)
+  {
+    // Group instances read their members only while they are registered
+    unindexGroup(groupInstances.get(groupDN));
+    groupInstances.put(groupDN, groupInstance);
+    refreshToken++;
+    indexGroup(groupInstance);
+  }
+
+  /** Adds a registered group instance to the reverse membership index. */
+  private void indexGroup(Group<?> group)
+  {
+    if (!group.mayAlterMemberList())
+    {
+      synchronized (membershipIndexLock)
+      {
+        if (group.maintainsMemberList())
+        {
+          maintainedGroupInstances.add(group);
+        }
+        unindexedGroupInstances.add(group);
+      }
+      return;
+    }
+
+    // Index the members changed from now on before reading the current ones
+    synchronized (membershipIndexLock)
+    {
+      indexedGroupInstances.add(group);
+      removedMembersWhileIndexing.put(group, new HashSet<DN>());
+    }
+    // The group instance reports its changes while holding its own lock:
+    // its members cannot be read while holding the index lock
+    final List<DN> memberDNs = getMemberDNs(group);
+    synchronized (membershipIndexLock)
+    {
+      final Set<DN> removedMemberDNs = removedMembersWhileIndexing.remove(group);
+      for (DN memberDN : memberDNs)
+      {
+        if (!removedMemberDNs.contains(memberDN))
+        {
+          addMembership(memberDN, group);
+        }
+      }
+    }
+  }
+
+  /** Removes a group instance from the reverse membership index, before it is deregistered. */
+  private void unindexGroup(Group<?> group)
+  {
+    if (group == null)
+    {
+      return;
+    }
+    final boolean indexed;
+    synchronized (membershipIndexLock)
+    {
+      unindexedGroupInstances.remove(group);
+      maintainedGroupInstances.remove(group);
+      indexed = indexedGroupInstances.remove(group);
+    }
+    if (indexed)
+    {
+      // Lookups already ignore this group: remove its entries without holding the index lock
+      // while reading its members
+      for (DN memberDN : getMemberDNs(group))
+      {
+        synchronized (membershipIndexLock)
+        {
+          removeMembership(memberDN, group);
+        }
+      }
+    }
+  }
+
+  private static List<DN> getMemberDNs(Group<?> group)
+  {
+    final List<DN> memberDNs = new ArrayList<>();
+    try (MemberList memberList = group.getMembers())
+    {
+      while (memberList.hasMoreMembers())
+      {
+        try
+        {
+          memberDNs.add(memberList.nextMemberDN());
+        }
+        catch (MembershipException e)
+        {
+          logger.traceException(e);
+        }
+      }
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+    }
+    return memberDNs;
+  }
+
+  /** The caller must hold the index lock. */
+  private void addMembership(DN memberDN, Group<?> group)
+  {
+    final CompactDn key = new CompactDn(memberDN);
+    final Object groups = memberDN2Groups.get(key);
+    if (groups == null)
+    {
+      memberDN2Groups.put(key, group);
+    }
+    else if (groups instanceof Group)
+    {
+      if (groups != group)
+      {
+        memberDN2Groups.put(key, new Group<?>[] { (Group<?>) groups, group });
+      }
+    }
+    else
+    {
+      final Group<?>[] groupArray = (Group<?>[]) groups;
+      if (indexOf(groupArray, group) < 0)
+      {
+        final Group<?>[] newGroupArray = Arrays.copyOf(groupArray, groupArray.length + 1);
+        newGroupArray[groupArray.length] = group;
+        memberDN2Groups.put(key, newGroupArray);
+      }
+    }
+  }
+
+  /** The caller must hold the index lock. */
+  private void removeMembership(DN memberDN, Group<?> group)
+  {
+    final CompactDn key = new CompactDn(memberDN);
+    final Object groups = memberDN2Groups.get(key);
+    if (groups == group)
+    {
+      memberDN2Groups.remove(key);
+    }
+    else if (groups instanceof Group<?>[])
+    {
+      final Group<?>[] groupArray = (Group<?>[]) groups;
+      final int index = indexOf(groupArray, group);
+      if (index < 0)
+      {
+        return;
+      }
+      if (groupArray.length == 2)
+      {
+        memberDN2Groups.put(key, groupArray[1 - index]);
+      }
+      else
+      {
+        final Group<?>[] newGroupArray = new Group<?>[groupArray.length - 1];
+        System.arraycopy(groupArray, 0, newGroupArray, 0, index);
+        System.arraycopy(groupArray, index + 1, newGroupArray, index, newGroupArray.length - index);
+        memberDN2Groups.put(key, newGroupArray);
+      }
+    }
+  }
+
+  private static int indexOf(Group<?>[] groupArray, Group<?> group)
+  {
+    for (int i = 0; i < groupArray.length; i++)
+    {
+      if (groupArray[i] == group)
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Updates the reverse membership index after members have been added to or removed from the
+   * provided group instance. Group instances listing their members explicitly must call this
+   * method whenever their member list changes. Nothing is done if the group instance is not
+   * registered with this group manager.
+   *
+   * @param group
+   *          The group instance whose member list has changed.
+   * @param addedMemberDNs
+   *          The DNs of the members added to the group.
+   * @param removedMemberDNs
+   *          The DNs of the members removed from the group, which are processed before the added
+   *          members.
+   */
+  public void updateMembershipIndex(Group<?> group, Collection<DN> addedMemberDNs,
+      Collection<DN> removedMemberDNs)
+  {
+    synchronized (membershipIndexLock)
+    {
+      if (!indexedGroupInstances.contains(group))
+      {
+        return;
+      }
+      final Set<DN> removedWhileIndexing = removedMembersWhileIndexing.get(group);
+      for (DN memberDN : removedMemberDNs)
+      {
+        removeMembership(memberDN, group);
+        if (removedWhileIndexing != null)
+        {
+          removedWhileIndexing.add(memberDN);
+        }
+      }
+      for (DN memberDN : addedMemberDNs)
+      {
+        addMembership(memberDN, group);
+        if (removedWhileIndexing != null)
+        {
+          removedWhileIndexing.remove(memberDN);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds a group instance maintaining its members from the changes of the entries to the reverse
+   * membership index, once it has retrieved its members. The group instance must then report the
+   * changes of its members with {@link #updateMembershipIndex}. Nothing is done if the group
+   * instance is not registered with this group manager, or has already been added.
+   *
+   * @param group
+   *          The group instance maintaining its members.
+   * @param memberDNs
+   *          The DNs of the members of the group.
+   */
+  public void indexMaintainedGroup(Group<?> group, Collection<DN> memberDNs)
+  {
+    synchronized (membershipIndexLock)
+    {
+      if (!maintainedGroupInstances.contains(group) || indexedGroupInstances.contains(group))
+      {
+        return;
+      }
+      // Index the members before stopping evaluating the group, lookups in between finding it twice
+      indexedGroupInstances.add(group);
+      for (DN memberDN : memberDNs)
+      {
+        addMembership(memberDN, group);
+      }
+      unindexedGroupInstances.remove(group);
+    }
+  }
+
+  /**
+   * Removes a group instance maintaining its members from the changes of the entries from the
+   * reverse membership index, when its members are no longer known. It is evaluated for each entry
+   * until it is added again with {@link #indexMaintainedGroup}.
+   *
+   * @param group
+   *          The group instance maintaining its members.
+   * @param memberDNs
+   *          The DNs of the members of the group which have been indexed.
+   */
+  public void unindexMaintainedGroup(Group<?> group, Collection<DN> memberDNs)
+  {
+    synchronized (membershipIndexLock)
+    {
+      // Evaluate the group before stopping finding it with lookups
+      if (maintainedGroupInstances.contains(group) && indexedGroupInstances.contains(group))
+      {
+        unindexedGroupInstances.add(group);
+        indexedGroupInstances.remove(group);
+      }
+      // Entries referring to a group no longer indexed would be found again once it is re-indexed
+      for (DN memberDN : memberDNs)
+      {
+        removeMembership(memberDN, group);
+      }
+    }
+  }
+
+  /**
+   * Reports a change of an entry to the group instances maintaining their members from the changes
+   * of the entries.
+   */
+  private void processEntryChange(PluginOperation operation, Entry oldEntry, Entry newEntry)
+  {
+    if (maintainedGroupInstances.isEmpty())
+    {
+      return;
+    }
+
+    final boolean subordinatesChanged;
+    if (newEntry == null)
+    {
+      // Deleting an entry with subordinates requires the subtree delete control
+      subordinatesChanged = hasControl(operation, OID_SUBTREE_DELETE_CONTROL);
+    }
+    else if (oldEntry != null && !oldEntry.getName().equals(newEntry.getName()))
+    {
+      subordinatesChanged = mayHaveSubordinates(newEntry.getName());
+    }
+    else
+    {
+      subordinatesChanged = false;
+    }
+
+    for (Group<?> group : maintainedGroupInstances)
+    {
+      group.processEntryChange(oldEntry, newEntry, subordinatesChanged);
+    }
+  }
+
+  private boolean mayHaveSubordinates(DN entryDN)
+  {
+    final LocalBackend<?> backend =
+        serverContext.getBackendConfigManager().findLocalBackendForEntry(entryDN);
+    try
+    {
+      return backend == null || backend.hasSubordinates(entryDN) != ConditionResult.FALSE;
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+      return true;
+    }
+  }
+
+  /**
+   * Retrieves the DNs of all the groups containing the provided entry, either directly or through
+   * nested groups.
+   * <p>
+   * The groups listing their members explicitly are found with the reverse membership index,
+   * without evaluating the other group instances. Only the group instances which do not list
+   * their members, such as dynamic groups, are evaluated against the entry.
+   *
+   * @param entry
+   *          The entry for which to retrieve the groups.
+   * @return The DNs of the groups containing the entry, which is empty if there are none.
+   */
+  public Set<DN> getGroupMemberships(Entry entry)
+  {
+    final Set<DN> groupDNs = new LinkedHashSet<>();
+    final Deque<DN> memberDNs = new ArrayDeque<>();
+    memberDNs.add(entry.getName());
+    for (Group<?> group : unindexedGroupInstances)
+    {
+      try
+      {
+        if (group.isMember(entry) && groupDNs.add(group.getGroupDN()))
+        {
+          memberDNs.add(group.getGroupDN());
+        }
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+    }
+
+    // Walk up the nested groups, the set of DNs protecting against cycles
+    while (!memberDNs.isEmpty())
+    {
+      final Object groups = memberDN2Groups.get(new CompactDn(memberDNs.poll()));
+      if (groups instanceof Group)
+      {
+        addIndexedGroup((Group<?>) groups, groupDNs, memberDNs);
+      }
+      else if (groups != null)
+      {
+        for (Group<?> group : (Group<?>[]) groups)
+        {
+          addIndexedGroup(group, groupDNs, memberDNs);
+        }
+      }
+    }
+    return groupDNs;
+  }
+
+  private void addIndexedGroup(Group<?> group, Set<DN> groupDNs, Deque<DN> memberDNs)
+  {
+    final DN groupDN = group.getGroupDN();
+    if (indexedGroupInstances.contains(group) && groupDNs.add(groupDN))
+    {
+      memberDNs.add(groupDN);
+    }
+  }
+
   /**
    * Compare the specified token against the current group manager
    * token value. Can be used to reload cached group instances if there has
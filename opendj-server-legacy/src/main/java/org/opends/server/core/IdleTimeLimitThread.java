@@ -16,21 +16,31 @@
  */
 package org.opends.server.core;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.forgerock.i18n.LocalizableMessage;
 
 import org.opends.server.api.ClientConnection;
-import org.opends.server.api.ConnectionHandler;
 import org.opends.server.api.DirectoryThread;
 import org.opends.server.api.ServerShutdownListener;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.opends.server.types.DisconnectReason;
 
+import com.forgerock.opendj.util.TimingWheel;
+import com.forgerock.opendj.util.TimingWheel.Timer;
+
 import static org.opends.messages.CoreMessages.*;
 import static org.opends.server.util.StaticUtils.*;
 
 /**
  * This class defines a thread that will be used to terminate client
  * connections if they have been idle for too long.
+ * <p>
+ * Rather than periodically checking all the client connections, a timer is
+ * armed in a {@link TimingWheel} for each connection with an idle time limit.
+ * When the timer expires, the connection is terminated if it has been idle for
+ * too long, otherwise the timer is armed again for the remaining idle time.
  */
 public class IdleTimeLimitThread
        extends DirectoryThread
@@ -39,10 +49,27 @@ public class IdleTimeLimitThread
   /** The debug log tracer for this object. */
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** Precision of the idle time limits in milliseconds. */
+  private static final long TICK_DURATION_MS = 100L;
+  /** One revolution of the timing wheel covers about 7 minutes. */
+  private static final int NB_SLOTS = 4096;
+
   /** Shutdown monitor state. */
   private volatile boolean shutdownRequested;
   private final Object shutdownLock = new Object();
 
+  private final TimingWheel<ClientConnection> timers =
+      new TimingWheel<>(TICK_DURATION_MS, NB_SLOTS, System.currentTimeMillis());
+  /** The pending timer of each client connection with an idle time limit. */
+  private final ConcurrentMap<ClientConnection, Timer<ClientConnection>> connectionTimers =
+      new ConcurrentHashMap<>();
+  /**
+   * The time at which this thread will wake up, {@code Long.MAX_VALUE} if it
+   * waits for a new timer, or {@code Long.MIN_VALUE} while it processes the
+   * expired timers.
+   */
+  private long wakeUpTime = Long.MIN_VALUE;
+
   /** Creates a new instance of this idle time limit thread. */
   public IdleTimeLimitThread()
   {
@@ -53,14 +80,59 @@ public class IdleTimeLimitThread
     DirectoryServer.registerShutdownListener(this);
   }
 
-  /** Operates in a loop, teriminating any client connections that have been idle for too long. */
+  /**
+   * Arms the idle time limit of the provided client connection, replacing any
+   * previous timer. Called when the connection is accepted and whenever its
+   * idle time limit is set.
+   *
+   * @param c
+   *          the client connection
+   */
+  void idleTimeLimitChanged(ClientConnection c)
+  {
+    final long idleTimeLimit = c.getIdleTimeLimit();
+    if (idleTimeLimit <= 0 || shutdownRequested)
+    {
+      connectionClosed(c);
+      return;
+    }
+
+    final long deadline = System.currentTimeMillis() + idleTimeLimit - Math.max(c.getIdleTime(), 0L);
+    final Timer<ClientConnection> oldTimer = connectionTimers.put(c, timers.schedule(c, deadline));
+    if (oldTimer != null)
+    {
+      timers.cancel(oldTimer);
+    }
+    synchronized (shutdownLock)
+    {
+      if (deadline < wakeUpTime)
+      {
+        shutdownLock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Disarms the idle time limit of the provided client connection.
+   *
+   * @param c
+   *          the client connection which has been closed
+   */
+  void connectionClosed(ClientConnection c)
+  {
+    final Timer<ClientConnection> timer = connectionTimers.remove(c);
+    if (timer != null)
+    {
+      timers.cancel(timer);
+    }
+  }
+
+  /** Operates in a loop, terminating any client connections that have been idle for too long. */
   @Override
   public void run()
   {
     LocalizableMessage disconnectMessage = INFO_IDLETIME_LIMIT_EXCEEDED.get();
 
-    long sleepTime = 5000L;
-
     while (! shutdownRequested)
     {
       try
@@ -71,7 +143,22 @@ public class IdleTimeLimitThread
           {
             try
             {
-              shutdownLock.wait(sleepTime);
+              final long nextExpirationTime = timers.getNextExpirationTime();
+              if (nextExpirationTime == -1)
+              {
+                wakeUpTime = Long.MAX_VALUE;
+                shutdownLock.wait();
+              }
+              else
+              {
+                final long sleepTime = nextExpirationTime - System.currentTimeMillis();
+                if (sleepTime > 0)
+                {
+                  wakeUpTime = nextExpirationTime;
+                  shutdownLock.wait(sleepTime);
+                }
+              }
+              wakeUpTime = Long.MIN_VALUE;
             }
             catch (InterruptedException e)
             {
@@ -83,54 +170,59 @@ public class IdleTimeLimitThread
           }
         }
 
-        sleepTime = 5000L;
-        for (ConnectionHandler<?> ch : DirectoryServer.getConnectionHandlers())
+        final long currentTime = System.currentTimeMillis();
+        for (Timer<ClientConnection> timer : timers.expire(currentTime))
         {
-          for (ClientConnection c : ch.getClientConnections())
+          final ClientConnection c = timer.getObject();
+          if (connectionTimers.get(c) != timer)
           {
-            if (c==null) {
-              logger.trace("Null client connection found in \"" + ch.getConnectionHandlerName() + "\"");
-              continue;
+            // The connection has been closed or its idle time limit set meanwhile
+            continue;
+          }
+          if (!c.isConnectionValid())
+          {
+            connectionTimers.remove(c, timer);
+            continue;
+          }
+
+          long idleTime = c.getIdleTime();
+          long idleTimeLimit = c.getIdleTimeLimit();
+          if (idleTimeLimit <= 0)
+          {
+            connectionTimers.remove(c, timer);
+          }
+          else if (idleTime >= idleTimeLimit)
+          {
+            connectionTimers.remove(c, timer);
+            if (logger.isTraceEnabled())
+            {
+              logger.trace("Terminating client connection " +
+                               c.getConnectionID() +
+                               " due to the idle time limit");
             }
 
-            long idleTime = c.getIdleTime();
-            if (idleTime > 0)
+            try
             {
-              long idleTimeLimit = c.getIdleTimeLimit();
-              if (idleTimeLimit > 0)
-              {
-                if (idleTime >= idleTimeLimit)
-                {
-                  if (logger.isTraceEnabled())
-                  {
-                    logger.trace("Terminating client connection " +
-                                     c.getConnectionID() +
-                                     " due to the idle time limit");
-                  }
-
-                  try
-                  {
-                    c.disconnect(DisconnectReason.IDLE_TIME_LIMIT_EXCEEDED,
-                                 true, disconnectMessage);
-                  }
-                  catch (Exception e)
-                  {
-                    logger.traceException(e);
-
-                    logger.error(ERR_IDLETIME_DISCONNECT_ERROR, c.getConnectionID(),
-                            stackTraceToSingleLineString(e)
-                    );
-                  }
-                }
-                else
-                {
-                  long shouldSleepTime = idleTimeLimit - idleTime;
-                  if (shouldSleepTime < sleepTime)
-                  {
-                    sleepTime = shouldSleepTime;
-                  }
-                }
-              }
+              c.disconnect(DisconnectReason.IDLE_TIME_LIMIT_EXCEEDED,
+                           true, disconnectMessage);
+            }
+            catch (Exception e)
+            {
+              logger.traceException(e);
+
+              logger.error(ERR_IDLETIME_DISCONNECT_ERROR, c.getConnectionID(),
+                      stackTraceToSingleLineString(e)
+              );
+            }
+          }
+          else
+          {
+            // A connection with operations in progress is not idle
+            final long remainingTime = idleTimeLimit - Math.max(idleTime, 0L);
+            final Timer<ClientConnection> newTimer = timers.schedule(c, currentTime + remainingTime);
+            if (!connectionTimers.replace(c, timer, newTimer))
+            {
+              timers.cancel(newTimer);
             }
           }
         }
@@ -158,5 +250,6 @@ public class IdleTimeLimitThread
       shutdownRequested = true;
       shutdownLock.notifyAll();
     }
+    connectionTimers.clear();
   }
 }
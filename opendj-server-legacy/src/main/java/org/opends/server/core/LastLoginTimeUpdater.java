@@ -0,0 +1,315 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.core;
+
+import static org.opends.messages.CoreMessages.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.util.CollectionUtils.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.forgerock.i18n.LocalizableMessage;
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.ModificationType;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.ServerShutdownListener;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Modification;
+
+/**
+ * This class defines a thread writing the last login times of the users to
+ * their entries after their binds, for the password policies which allow
+ * delaying these updates.
+ * <p>
+ * The last login times waiting to be written are kept in memory, one per user,
+ * so that several binds of the same user result in a single update of its
+ * entry. The pending updates are written in batches, once per second at most.
+ * Their number is bounded: once reached, the binds of the other users update
+ * their entries themselves.
+ */
+final class LastLoginTimeUpdater
+      extends DirectoryThread
+      implements ServerShutdownListener
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Precision of the update delays in milliseconds. */
+  private static final long TICK_DURATION_MS = 1000L;
+  /** The default maximum number of pending updates. */
+  private static final int DEFAULT_MAX_PENDING_UPDATES = 100000;
+  /** The maximum number of updates written before the due updates are collected again. */
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  /** A last login time waiting to be written to the entry of a user. */
+  private static final class PendingUpdate
+  {
+    private final Attribute lastLoginTime;
+    private final long dueTime;
+
+    private PendingUpdate(Attribute lastLoginTime, long dueTime)
+    {
+      this.lastLoginTime = lastLoginTime;
+      this.dueTime = dueTime;
+    }
+  }
+
+  private final Object lock = new Object();
+  /** The pending updates by user DN, guarded by {@link #lock}. */
+  private final Map<DN, PendingUpdate> pendingUpdates = new HashMap<>();
+  /**
+   * The DNs of the users with a pending update, by due time, guarded by
+   * {@link #lock}. The due times are rounded to the tick duration, so that
+   * there are few of them.
+   */
+  private final NavigableMap<Long, Set<DN>> dueUserDNs = new TreeMap<>();
+  /** The maximum number of pending updates. */
+  private final int maxPendingUpdates;
+  /** Whether the server is shutting down, guarded by {@link #lock}. */
+  private boolean shutdownRequested;
+  /**
+   * The time at which this thread will wake up, {@code Long.MAX_VALUE} if it
+   * waits for a new update, guarded by {@link #lock}.
+   */
+  private long wakeUpTime = Long.MAX_VALUE;
+
+  /** Creates a new instance of this last login time updater. */
+  LastLoginTimeUpdater()
+  {
+    this(DEFAULT_MAX_PENDING_UPDATES);
+  }
+
+  /**
+   * Creates a new instance of this last login time updater.
+   *
+   * @param maxPendingUpdates
+   *          The maximum number of pending updates.
+   */
+  LastLoginTimeUpdater(int maxPendingUpdates)
+  {
+    super("Last Login Time Updater");
+    this.maxPendingUpdates = maxPendingUpdates;
+    setDaemon(true);
+    DirectoryServer.registerShutdownListener(this);
+  }
+
+  /**
+   * Schedules the update of the last login time of a user, replacing any
+   * update pending for this user.
+   *
+   * @param userDN
+   *          The DN of the user.
+   * @param lastLoginTime
+   *          The last login time attribute to write to the entry of the user.
+   * @param maxDelayMillis
+   *          The maximum length of time by which the update may be delayed, in
+   *          milliseconds.
+   * @return {@code true} if the update has been scheduled, {@code false} if the
+   *         server is shutting down or too many updates are pending, and the
+   *         caller must perform the update.
+   */
+  boolean updateLastLoginTime(DN userDN, Attribute lastLoginTime, long maxDelayMillis)
+  {
+    synchronized (lock)
+    {
+      if (shutdownRequested)
+      {
+        return false;
+      }
+
+      final PendingUpdate previous = pendingUpdates.get(userDN);
+      if (previous != null)
+      {
+        // Replace it, even when too many updates are pending: writing now would be overwritten by it
+        pendingUpdates.put(userDN, new PendingUpdate(lastLoginTime, previous.dueTime));
+        return true;
+      }
+      if (pendingUpdates.size() >= maxPendingUpdates)
+      {
+        return false;
+      }
+
+      final long dueTime =
+          (System.currentTimeMillis() + maxDelayMillis + TICK_DURATION_MS - 1) / TICK_DURATION_MS * TICK_DURATION_MS;
+      pendingUpdates.put(userDN, new PendingUpdate(lastLoginTime, dueTime));
+      Set<DN> userDNs = dueUserDNs.get(dueTime);
+      if (userDNs == null)
+      {
+        userDNs = new LinkedHashSet<>();
+        dueUserDNs.put(dueTime, userDNs);
+      }
+      userDNs.add(userDN);
+      if (dueTime < wakeUpTime)
+      {
+        lock.notifyAll();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Returns the last login time waiting to be written to the entry of a user.
+   *
+   * @param userDN
+   *          The DN of the user.
+   * @return The last login time attribute waiting to be written, or
+   *         {@code null} if there is none.
+   */
+  Attribute getPendingLastLoginTime(DN userDN)
+  {
+    synchronized (lock)
+    {
+      final PendingUpdate update = pendingUpdates.get(userDN);
+      return update != null ? update.lastLoginTime : null;
+    }
+  }
+
+  @Override
+  public void run()
+  {
+    while (true)
+    {
+      final Map<DN, PendingUpdate> updates = new LinkedHashMap<>();
+      synchronized (lock)
+      {
+        try
+        {
+          while (!shutdownRequested && !getDueUpdates(System.currentTimeMillis(), MAX_BATCH_SIZE, updates))
+          {
+            final long sleepTime = wakeUpTime - System.currentTimeMillis();
+            if (wakeUpTime == Long.MAX_VALUE)
+            {
+              lock.wait();
+            }
+            else if (sleepTime > 0)
+            {
+              lock.wait(sleepTime);
+            }
+          }
+        }
+        catch (InterruptedException e)
+        {
+          // Server shutdown monitor may interrupt slow threads.
+          logger.traceException(e);
+          return;
+        }
+        if (shutdownRequested)
+        {
+          return;
+        }
+      }
+      writeUpdates(updates);
+    }
+  }
+
+  /**
+   * Collects at most the provided number of pending updates which are due,
+   * earliest first, and computes the time at which the next update will be
+   * due. The updates remain pending until they have been written, so that the
+   * last login times can still be read meanwhile.
+   */
+  private boolean getDueUpdates(long currentTime, int maxUpdates, Map<DN, PendingUpdate> updates)
+  {
+    // Only visit the due updates
+    collect:
+    for (Set<DN> userDNs : dueUserDNs.headMap(currentTime, true).values())
+    {
+      for (DN userDN : userDNs)
+      {
+        if (updates.size() >= maxUpdates)
+        {
+          break collect;
+        }
+        updates.put(userDN, pendingUpdates.get(userDN));
+      }
+    }
+    wakeUpTime = !updates.isEmpty() ? currentTime
+        : !dueUserDNs.isEmpty() ? dueUserDNs.firstKey() : Long.MAX_VALUE;
+    return !updates.isEmpty();
+  }
+
+  private void writeUpdates(Map<DN, PendingUpdate> updates)
+  {
+    for (Map.Entry<DN, PendingUpdate> update : updates.entrySet())
+    {
+      final DN userDN = update.getKey();
+      final List<Modification> mods =
+          newArrayList(new Modification(ModificationType.REPLACE, update.getValue().lastLoginTime, true));
+      try
+      {
+        final ModifyOperation modifyOperation = getRootConnection().processModify(userDN, mods);
+        final ResultCode resultCode = modifyOperation.getResultCode();
+        if (resultCode == ResultCode.NO_SUCH_OBJECT)
+        {
+          logger.trace("Not updating the last login time of user %s, which has been deleted or renamed", userDN);
+        }
+        else if (resultCode != ResultCode.SUCCESS)
+        {
+          logger.error(ERR_PWPSTATE_CANNOT_UPDATE_USER_ENTRY, userDN, modifyOperation.getErrorMessage());
+        }
+      }
+      catch (Exception e)
+      {
+        logger.traceException(e);
+      }
+    }
+
+    synchronized (lock)
+    {
+      for (Map.Entry<DN, PendingUpdate> update : updates.entrySet())
+      {
+        // Keep the updates replaced meanwhile by more recent binds
+        final PendingUpdate written = update.getValue();
+        if (pendingUpdates.remove(update.getKey(), written))
+        {
+          final Set<DN> userDNs = dueUserDNs.get(written.dueTime);
+          userDNs.remove(update.getKey());
+          if (userDNs.isEmpty())
+          {
+            dueUserDNs.remove(written.dueTime);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public String getShutdownListenerName()
+  {
+    return "Last Login Time Updater";
+  }
+
+  @Override
+  public void processServerShutdown(LocalizableMessage reason)
+  {
+    final Map<DN, PendingUpdate> updates = new LinkedHashMap<>();
+    synchronized (lock)
+    {
+      shutdownRequested = true;
+      getDueUpdates(Long.MAX_VALUE, Integer.MAX_VALUE, updates);
+      lock.notifyAll();
+    }
+    writeUpdates(updates);
+  }
+}
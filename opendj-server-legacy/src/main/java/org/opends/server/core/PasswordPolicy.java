@@ -289,6 +289,19 @@ public abstract class PasswordPolicy extends AuthenticationPolicy
    */
   public abstract String getLastLoginTimeFormat();
 
+  /**
+   * Gets the "last-login-time-update-interval" property.
+   * <p>
+   * Specifies the maximum length of time that the update of the last login
+   * time of a user may be delayed after a successful bind. A value of 0 seconds
+   * indicates that the last login time is updated synchronously, as part of
+   * each bind operation.
+   *
+   * @return Returns the value of the "last-login-time-update-interval"
+   *         property.
+   */
+  public abstract long getLastLoginTimeUpdateInterval();
+
   /**
    * Gets the "lockout-duration" property.
    * <p>
@@ -523,6 +536,27 @@ public abstract class PasswordPolicy extends AuthenticationPolicy
    */
   public abstract StateUpdateFailurePolicy getStateUpdateFailurePolicy();
 
+  /**
+   * Gets the "verified-password-cache-ttl" property.
+   * <p>
+   * Specifies the length of time during which a successfully verified password
+   * is remembered, so that subsequent authentications with the same password
+   * do not need to verify it against the stored password values again. A value
+   * of 0 seconds indicates that verified passwords are not cached.
+   *
+   * @return Returns the value of the "verified-password-cache-ttl" property.
+   */
+  public abstract long getVerifiedPasswordCacheTTL();
+
+  /**
+   * Returns the cache of the passwords recently verified for the users subject
+   * to this password policy.
+   *
+   * @return The cache of verified passwords, or {@code null} if verified
+   *         passwords are not cached.
+   */
+  abstract VerifiedPasswordCache getVerifiedPasswordCache();
+
   @Override
   public boolean isPasswordPolicy()
   {
@@ -96,6 +96,9 @@ public final class PasswordPolicyFactory implements
     /** The the time by which all users will be required to change their passwords. */
     private long requireChangeByTime;
 
+    /** The cache of recently verified passwords, or {@code null} if they are not cached. */
+    private volatile VerifiedPasswordCache verifiedPasswordCache;
+
     private final ServerContext serverContext;
 
     @Override
@@ -380,6 +383,10 @@ public final class PasswordPolicyFactory implements
         this.passwordGenerator = passwordGenerator;
         this.passwordValidators = passwordValidators;
         this.requireChangeByTime = requireChangeByTime;
+        // Configuration changes may alter password verification, so always start with an empty cache
+        final long verifiedPasswordCacheTTL = configuration.getVerifiedPasswordCacheTTL();
+        this.verifiedPasswordCache = verifiedPasswordCacheTTL > 0
+            ? new VerifiedPasswordCache(verifiedPasswordCacheTTL * 1000L) : null;
       }
     }
 
@@ -798,6 +805,12 @@ public final class PasswordPolicyFactory implements
       return configuration.getLastLoginTimeFormat();
     }
 
+    @Override
+    public long getLastLoginTimeUpdateInterval()
+    {
+      return configuration.getLastLoginTimeUpdateInterval();
+    }
+
     @Override
     public long getLockoutDuration()
     {
@@ -893,6 +906,18 @@ public final class PasswordPolicyFactory implements
     {
       return configuration.getStateUpdateFailurePolicy();
     }
+
+    @Override
+    public long getVerifiedPasswordCacheTTL()
+    {
+      return configuration.getVerifiedPasswordCacheTTL();
+    }
+
+    @Override
+    VerifiedPasswordCache getVerifiedPasswordCache()
+    {
+      return verifiedPasswordCache;
+    }
   }
 
   private ServerContext serverContext;
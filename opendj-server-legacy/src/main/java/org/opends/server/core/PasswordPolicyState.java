@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizableMessageBuilder;
@@ -932,7 +933,7 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
 
     boolean isGeneralizedTime = SYNTAX_GENERALIZED_TIME_NAME.equals(type.getSyntax().getName());
     lastLoginTime = -1;
-    for (Attribute a : userEntry.getAllAttributes(type))
+    for (Attribute a : getLastLoginTimeAttributes(type))
     {
       if (a.isEmpty())
       {
@@ -997,6 +998,21 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
     return lastLoginTime;
   }
 
+  /**
+   * Returns the last login time attributes of the user, taking into account a last login time which has not been
+   * written to the entry yet.
+   */
+  private Iterable<Attribute> getLastLoginTimeAttributes(AttributeType type)
+  {
+    LastLoginTimeUpdater updater = DirectoryServer.getLastLoginTimeUpdater();
+    Attribute pending = updater != null ? updater.getPendingLastLoginTime(userEntry.getName()) : null;
+    if (pending != null && pending.getAttributeDescription().getAttributeType().equals(type))
+    {
+      return Collections.singletonList(pending);
+    }
+    return userEntry.getAllAttributes(type);
+  }
+
   private long parseTime(String format, String time, boolean isGeneralizedTime) throws ParseException
   {
     SimpleDateFormat dateFormat = new SimpleDateFormat(format);
@@ -1949,9 +1965,9 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
   }
 
   @Override
-  public boolean passwordMatches(ByteString password)
+  public boolean passwordMatches(final ByteString password)
   {
-    List<Attribute> attrList = userEntry.getAllAttributes(passwordPolicy.getPasswordAttribute());
+    final List<Attribute> attrList = userEntry.getAllAttributes(passwordPolicy.getPasswordAttribute());
     if (attrList.isEmpty())
     {
       if (logger.isTraceEnabled())
@@ -1963,6 +1979,61 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
       return false;
     }
 
+    final PasswordVerifier verifier = PasswordVerifier.getInstance();
+    final VerifiedPasswordCache cache = passwordPolicy.getVerifiedPasswordCache();
+    final ByteString cacheKey = cache != null ? cache.getKey(userEntry.getName(), password, attrList) : null;
+    if (cacheKey != null)
+    {
+      if (cache.isVerified(cacheKey, currentTime))
+      {
+        verifier.recordCacheHit();
+        logger.trace("Returning true for user %s because the provided password was recently verified",
+            userDNString);
+        return true;
+      }
+      verifier.recordCacheMiss();
+    }
+
+    final boolean matches = verifier.verify(new Callable<Boolean>()
+    {
+      @Override
+      public Boolean call()
+      {
+        return storedPasswordMatches(password, attrList);
+      }
+    }, usesExpensiveScheme(attrList));
+    if (matches && cacheKey != null)
+    {
+      cache.setVerified(cacheKey, currentTime);
+    }
+    return matches;
+  }
+
+  private boolean usesExpensiveScheme(List<Attribute> attrList)
+  {
+    for (Attribute a : attrList)
+    {
+      for (ByteString v : a)
+      {
+        try
+        {
+          final PasswordStorageScheme<?> scheme = getPasswordStorageScheme(v);
+          if (scheme != null && PasswordVerifier.isExpensive(scheme))
+          {
+            return true;
+          }
+        }
+        catch (DirectoryException e)
+        {
+          logger.traceException(e);
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean storedPasswordMatches(ByteString password, List<Attribute> attrList)
+  {
     for (Attribute a : attrList)
     {
       for (ByteString v : a)
@@ -2748,10 +2819,40 @@ public final class PasswordPolicyState extends AuthenticationPolicyState
     return modifications;
   }
 
+  /**
+   * Hands the update of the last login time over to the last login time updater when the password policy allows
+   * delaying it, so that it does not require a write for each successful bind.
+   */
+  private void delayLastLoginTimeUpdate()
+  {
+    long updateInterval = passwordPolicy.getLastLoginTimeUpdateInterval();
+    AttributeType type = passwordPolicy.getLastLoginTimeAttribute();
+    LastLoginTimeUpdater updater = DirectoryServer.getLastLoginTimeUpdater();
+    if (updateInterval <= 0 || type == null || updater == null)
+    {
+      return;
+    }
+
+    for (Iterator<Modification> it = modifications.iterator(); it.hasNext();)
+    {
+      Modification m = it.next();
+      Attribute a = m.getAttribute();
+      if (m.getModificationType() == ModificationType.REPLACE
+          && !a.isEmpty()
+          && a.getAttributeDescription().getAttributeType().equals(type)
+          && updater.updateLastLoginTime(userEntry.getName(), a, updateInterval * 1000L))
+      {
+        it.remove();
+      }
+    }
+  }
+
   @Override
   public void finalizeStateAfterBind()
          throws DirectoryException
   {
+    delayLastLoginTimeUpdate();
+
     // If there are no modifications, then there's nothing to do.
     if (modifications.isEmpty())
     {
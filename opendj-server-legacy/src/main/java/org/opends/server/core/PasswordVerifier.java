@@ -0,0 +1,298 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.api.PasswordStorageScheme;
+import org.opends.server.extensions.BcryptPasswordStorageScheme;
+import org.opends.server.extensions.CryptPasswordStorageScheme;
+import org.opends.server.extensions.PBKDF2HmacSHA256PasswordStorageScheme;
+import org.opends.server.extensions.PBKDF2HmacSHA512PasswordStorageScheme;
+import org.opends.server.extensions.PBKDF2PasswordStorageScheme;
+import org.opends.server.extensions.PKCS5S2PasswordStorageScheme;
+
+/**
+ * Verifies the passwords provided by users against their stored password
+ * values, and collects statistics about these verifications.
+ * <p>
+ * At most a configured number of verifications against passwords stored with
+ * computationally expensive schemes, such as PBKDF2 or Bcrypt, run
+ * concurrently, so that authentication storms cannot use the CPU of all the
+ * worker threads and starve the other operations. The other worker threads
+ * processing authentications wait for their turn without using any CPU, in
+ * arrival order. The other verifications are cheap, and always run
+ * immediately.
+ */
+public final class PasswordVerifier
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  private static final PasswordVerifier INSTANCE = new PasswordVerifier(getDefaultThreadCount());
+
+  /** The permits of the expensive verifications, one per thread allowed to run them concurrently. */
+  private final ResizableSemaphore permits;
+  /** The number of threads allowed to run expensive verifications concurrently, guarded by this. */
+  private int threadCount;
+
+  private final AtomicLong verifications = new AtomicLong();
+  private final AtomicLong verificationTimeNanos = new AtomicLong();
+  private final AtomicLong maxVerificationTimeNanos = new AtomicLong();
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong cacheMisses = new AtomicLong();
+
+  private PasswordVerifier(int threadCount)
+  {
+    this.permits = new ResizableSemaphore(threadCount);
+    this.threadCount = threadCount;
+  }
+
+  /** A semaphore whose number of permits can be reduced. */
+  private static final class ResizableSemaphore extends Semaphore
+  {
+    private static final long serialVersionUID = 1L;
+
+    private ResizableSemaphore(int permits)
+    {
+      super(permits, true);
+    }
+
+    @Override
+    protected void reducePermits(int reduction)
+    {
+      super.reducePermits(reduction);
+    }
+  }
+
+  /**
+   * Returns the number of threads verifying passwords when it is not
+   * configured: half the number of available processors.
+   *
+   * @return The default number of threads verifying passwords.
+   */
+  public static int getDefaultThreadCount()
+  {
+    return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  }
+
+  /**
+   * Sets the number of threads verifying passwords concurrently. Lowering it
+   * does not interrupt the verifications in progress, but no other one starts
+   * until fewer of them run than the new number.
+   *
+   * @param threadCount
+   *          The number of threads verifying passwords concurrently.
+   */
+  public synchronized void setThreadCount(int threadCount)
+  {
+    if (threadCount > this.threadCount)
+    {
+      permits.release(threadCount - this.threadCount);
+    }
+    else if (threadCount < this.threadCount)
+    {
+      permits.reducePermits(this.threadCount - threadCount);
+    }
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Indicates whether verifying passwords stored with the provided scheme is
+   * computationally expensive, and must wait for its turn to run.
+   *
+   * @param scheme
+   *          The password storage scheme.
+   * @return {@code true} if verifying passwords stored with the provided
+   *         scheme is computationally expensive.
+   */
+  static boolean isExpensive(PasswordStorageScheme<?> scheme)
+  {
+    return scheme instanceof PBKDF2PasswordStorageScheme
+        || scheme instanceof PBKDF2HmacSHA256PasswordStorageScheme
+        || scheme instanceof PBKDF2HmacSHA512PasswordStorageScheme
+        || scheme instanceof PKCS5S2PasswordStorageScheme
+        || scheme instanceof BcryptPasswordStorageScheme
+        || scheme instanceof CryptPasswordStorageScheme;
+  }
+
+  /**
+   * Returns the password verifier of the server.
+   *
+   * @return The password verifier of the server.
+   */
+  public static PasswordVerifier getInstance()
+  {
+    return INSTANCE;
+  }
+
+  /**
+   * Runs the provided password verification on the current thread. Expensive
+   * verifications first wait until fewer of them run than the number of
+   * threads verifying passwords.
+   *
+   * @param verification
+   *          The password verification to run.
+   * @param isExpensive
+   *          Whether the verification is computationally expensive.
+   * @return The result of the verification, {@code false} if it failed or was
+   *         interrupted.
+   * @see #isExpensive(PasswordStorageScheme)
+   */
+  boolean verify(Callable<Boolean> verification, boolean isExpensive)
+  {
+    if (!isExpensive)
+    {
+      return call(verification);
+    }
+
+    try
+    {
+      permits.acquire();
+    }
+    catch (InterruptedException e)
+    {
+      logger.traceException(e);
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    try
+    {
+      return call(verification);
+    }
+    finally
+    {
+      permits.release();
+    }
+  }
+
+  private boolean call(Callable<Boolean> verification)
+  {
+    final long startTime = System.nanoTime();
+    try
+    {
+      return verification.call();
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      return false;
+    }
+    finally
+    {
+      recordVerificationTime(System.nanoTime() - startTime);
+    }
+  }
+
+  private void recordVerificationTime(long timeNanos)
+  {
+    verifications.incrementAndGet();
+    verificationTimeNanos.addAndGet(timeNanos);
+    long max = maxVerificationTimeNanos.get();
+    while (timeNanos > max && !maxVerificationTimeNanos.compareAndSet(max, timeNanos))
+    {
+      max = maxVerificationTimeNanos.get();
+    }
+  }
+
+  /** Records that a password was found in a cache of verified passwords. */
+  void recordCacheHit()
+  {
+    cacheHits.incrementAndGet();
+  }
+
+  /** Records that a password was not found in a cache of verified passwords. */
+  void recordCacheMiss()
+  {
+    cacheMisses.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of threads verifying passwords concurrently.
+   *
+   * @return The number of threads verifying passwords concurrently.
+   */
+  public synchronized int getThreadCount()
+  {
+    return threadCount;
+  }
+
+  /**
+   * Returns an estimate of the number of password verifications waiting for
+   * their turn to run.
+   *
+   * @return The estimated number of password verifications waiting.
+   */
+  public int getPendingVerifications()
+  {
+    return permits.getQueueLength();
+  }
+
+  /**
+   * Returns the number of passwords verified against stored password values.
+   *
+   * @return The number of passwords verified against stored password values.
+   */
+  public long getVerifications()
+  {
+    return verifications.get();
+  }
+
+  /**
+   * Returns the total time spent verifying passwords.
+   *
+   * @return The total time spent verifying passwords, in nanoseconds.
+   */
+  public long getVerificationTimeNanos()
+  {
+    return verificationTimeNanos.get();
+  }
+
+  /**
+   * Returns the longest time spent verifying a password.
+   *
+   * @return The longest time spent verifying a password, in nanoseconds.
+   */
+  public long getMaxVerificationTimeNanos()
+  {
+    return maxVerificationTimeNanos.get();
+  }
+
+  /**
+   * Returns the number of passwords found in the caches of verified passwords,
+   * which did not need to be verified.
+   *
+   * @return The number of passwords found in the caches of verified passwords.
+   */
+  public long getCacheHits()
+  {
+    return cacheHits.get();
+  }
+
+  /**
+   * Returns the number of passwords which were not found in the caches of
+   * verified passwords of the password policies using such a cache.
+   *
+   * @return The number of passwords not found in the caches of verified
+   *         passwords.
+   */
+  public long getCacheMisses()
+  {
+    return cacheMisses.get();
+  }
+}
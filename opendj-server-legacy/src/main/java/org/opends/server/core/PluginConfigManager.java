@@ -3994,6 +3994,18 @@ public class PluginConfigManager
     }
   }
 
+  /**
+   * Indicates whether any search result entry plugins are currently registered
+   * with the Directory Server.
+   *
+   * @return  {@code true} if at least one search result entry plugin is
+   *          registered, or {@code false} if not.
+   */
+  public boolean hasSearchResultEntryPlugins()
+  {
+    return searchResultEntryPlugins.length > 0;
+  }
+
   /**
    * Invokes the set of search result entry plugins that have been configured
    * in the Directory Server.
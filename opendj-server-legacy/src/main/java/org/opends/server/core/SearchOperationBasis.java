@@ -18,6 +18,7 @@ package org.opends.server.core;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,7 @@ import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.CoreSchema;
+import org.forgerock.util.annotations.VisibleForTesting;
 import org.opends.server.api.AccessControlHandler;
 import org.opends.server.api.AuthenticationPolicyState;
 import org.opends.server.api.ClientConnection;
@@ -63,6 +65,7 @@ import org.opends.server.util.TimeThread;
 import static org.opends.messages.CoreMessages.*;
 import static org.opends.server.core.DirectoryServer.*;
 import static org.opends.server.loggers.AccessLogger.*;
+import static org.opends.server.util.CollectionUtils.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 import static org.opends.server.workflowelement.localbackend.LocalBackendWorkflowElement.*;
@@ -169,6 +172,27 @@ public class SearchOperationBasis
   /** Indicates whether to send the search result done to the client or not. */
   private boolean sendResponse = true;
 
+  /**
+   * Indicates which attributes of the backend entries may be returned without
+   * copying and filtering the entries first, or {@code null} if this has not
+   * been determined yet.
+   */
+  private PassthroughMode passthroughMode;
+
+  /**
+   * Describes which attributes of the backend entries can be passed through to
+   * the client unchanged.
+   */
+  private enum PassthroughMode
+  {
+    /** Entries must be copied and filtered before being returned. */
+    NONE,
+    /** Only the object classes and the user attributes are returned. */
+    USER_ATTRIBUTES,
+    /** The object classes, the user and the operational attributes are returned. */
+    ALL_ATTRIBUTES
+  }
+
   /**
    * Creates a new search operation with the provided information.
    *
@@ -559,6 +583,14 @@ public class SearchOperationBasis
       }
     }
 
+    // Entries which need neither access control nor attribute filtering are
+    // sent as provided by the backend, without copying them first.
+    SearchResultEntry passthroughEntry = toPassthroughEntry(entry, controls, evaluateAci);
+    if (passthroughEntry != null)
+    {
+      return sendFilteredEntry(passthroughEntry);
+    }
+
     // Check to see if the entry can be read by the client.
     SearchResultEntry unfilteredSearchEntry = new SearchResultEntry(entry, controls);
     if (evaluateAci && !getACIHandler().maySend(this, unfilteredSearchEntry))
@@ -662,6 +694,21 @@ public class SearchOperationBasis
       getACIHandler().filterEntry(this, unfilteredSearchEntry, filteredSearchEntry);
     }
 
+    return sendFilteredEntry(filteredSearchEntry);
+  }
+
+  /**
+   * Invokes the search result entry plugins on the provided entry and sends it
+   * to the client if they allow it.
+   *
+   * @param filteredSearchEntry
+   *          The entry to send, already filtered for this search operation.
+   * @return {@code true} if the caller should continue processing the search
+   *         request and sending additional entries and references, or
+   *         {@code false} if not for some reason.
+   */
+  private boolean sendFilteredEntry(SearchResultEntry filteredSearchEntry)
+  {
     // Invoke any search entry plugins that may be registered with the server.
     PluginResult.IntermediateResponse pluginResult =
          DirectoryServer.getPluginConfigManager().
@@ -696,6 +743,141 @@ public class SearchOperationBasis
     return AccessControlConfigManager.getInstance().getAccessControlHandler();
   }
 
+  /**
+   * Returns a search result entry sharing the attributes of the provided
+   * backend entry if it can be sent without being filtered first.
+   * <p>
+   * Only the immutable attributes are shared: the returned entry has its own
+   * maps and attribute lists, so that modifying it never alters the backend
+   * entry, which may be cached.
+   *
+   * @param entry
+   *          The entry provided by the backend.
+   * @param controls
+   *          The controls to return with the entry.
+   * @param evaluateAci
+   *          Whether access control must be evaluated for the entry.
+   * @return The search result entry to send, or {@code null} if the entry must
+   *         go through the regular copy and filtering steps.
+   */
+  @VisibleForTesting
+  SearchResultEntry toPassthroughEntry(Entry entry, List<Control> controls, boolean evaluateAci)
+  {
+    if (passthroughMode == null)
+    {
+      passthroughMode = getPassthroughMode();
+    }
+    if (passthroughMode == PassthroughMode.NONE
+        || (evaluateAci && !getACIHandler().mayReturnUnfilteredEntries(this))
+        || getPluginConfigManager().hasSearchResultEntryPlugins())
+    {
+      return null;
+    }
+
+    final boolean includeOperational = passthroughMode == PassthroughMode.ALL_ATTRIBUTES;
+    final Map<AttributeType, List<Attribute>> userAttrs = entry.getUserAttributes();
+    final Map<AttributeType, List<Attribute>> operationalAttrs = entry.getOperationalAttributes();
+    if (!isPassthroughCompatible(userAttrs)
+        || (includeOperational && !isPassthroughCompatible(operationalAttrs)))
+    {
+      return null;
+    }
+
+    final Map<AttributeType, List<Attribute>> userAttrsWithObjectClass = new LinkedHashMap<>(userAttrs.size() + 1);
+    final Attribute ocAttr = entry.getObjectClassAttribute();
+    if (ocAttr != null)
+    {
+      userAttrsWithObjectClass.put(CoreSchema.getObjectClassAttributeType(), newArrayList(ocAttr));
+    }
+    copyAttributeLists(userAttrs, userAttrsWithObjectClass);
+    Map<AttributeType, List<Attribute>> operationalAttrsCopy = null;
+    if (includeOperational)
+    {
+      operationalAttrsCopy = new LinkedHashMap<>(operationalAttrs.size());
+      copyAttributeLists(operationalAttrs, operationalAttrsCopy);
+    }
+    return new SearchResultEntry(new Entry(entry.getName(), new LinkedHashMap<>(entry.getObjectClasses()),
+        userAttrsWithObjectClass, operationalAttrsCopy), controls);
+  }
+
+  /**
+   * Copies the attribute lists of the provided map, each holding a single
+   * attribute, without copying the attributes themselves. Like
+   * {@link Entry#filterEntry(Set, boolean, boolean, boolean)}, the empty
+   * attributes, such as virtual attributes without values, are omitted.
+   */
+  private static void copyAttributeLists(Map<AttributeType, List<Attribute>> source,
+      Map<AttributeType, List<Attribute>> target)
+  {
+    for (Map.Entry<AttributeType, List<Attribute>> mapEntry : source.entrySet())
+    {
+      final Attribute attribute = mapEntry.getValue().get(0);
+      if (!attribute.isEmpty())
+      {
+        target.put(mapEntry.getKey(), newArrayList(attribute));
+      }
+    }
+  }
+
+  /**
+   * Determines, from the request parameters only, whether the entries returned
+   * by this search operation can be passed through to the client unchanged.
+   */
+  private PassthroughMode getPassthroughMode()
+  {
+    // Internal callers are free to modify the returned entries, so they must
+    // never share their attributes with the backend entries.
+    if (isInternalOperation()
+        || typesOnly
+        || virtualAttributesOnly
+        || realAttributesOnly
+        || getMatchedValuesControl() != null)
+    {
+      return PassthroughMode.NONE;
+    }
+
+    boolean allUserAttrs = attributes.isEmpty();
+    boolean allOperationalAttrs = false;
+    for (String attrName : attributes)
+    {
+      if ("*".equals(attrName))
+      {
+        allUserAttrs = true;
+      }
+      else if ("+".equals(attrName))
+      {
+        allOperationalAttrs = true;
+      }
+      else
+      {
+        return PassthroughMode.NONE;
+      }
+    }
+
+    if (!allUserAttrs)
+    {
+      return PassthroughMode.NONE;
+    }
+    return allOperationalAttrs ? PassthroughMode.ALL_ATTRIBUTES : PassthroughMode.USER_ATTRIBUTES;
+  }
+
+  /**
+   * Indicates whether the provided attributes would be returned as is, except
+   * for the empty ones, by {@link Entry#filterEntry(Set, boolean, boolean, boolean)}:
+   * this is the case when there are no attributes to merge together.
+   */
+  private static boolean isPassthroughCompatible(Map<AttributeType, List<Attribute>> attrs)
+  {
+    for (List<Attribute> attrList : attrs.values())
+    {
+      if (attrList.size() != 1)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public final boolean returnReference(DN dn, SearchResultReference reference)
   {
@@ -17,17 +17,14 @@
 package org.opends.server.core;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.opendj.ldap.DN;
@@ -36,7 +33,7 @@ import org.forgerock.opendj.ldap.SearchScope;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.api.LocalBackendInitializationListener;
 import org.opends.server.api.ClientConnection;
-import org.opends.server.api.DITCacheMap;
+import org.opends.server.api.DITTrie;
 import org.opends.server.api.SubentryChangeListener;
 import org.opends.server.api.plugin.InternalDirectoryServerPlugin;
 import org.opends.server.api.plugin.PluginResult;
@@ -92,17 +89,52 @@ public class SubentryManager extends InternalDirectoryServerPlugin
 
   /** Dummy configuration DN for Subentry Manager. */
   private static final String CONFIG_DN = "cn=Subentry Manager,cn=config";
+  /** The maximum number of DNs for which the applicable subentries are cached. */
+  private static final int MAX_CACHED_DNS = 100000;
 
+  /**
+   * The subentries applicable to a DN, as far as it can be determined from
+   * the DN alone.
+   */
+  private static final class ApplicableSubEntries
+  {
+    private static final ApplicableSubEntries NONE =
+        new ApplicableSubEntries(Collections.<SubEntry> emptyList(), false);
+
+    private final List<SubEntry> subEntries;
+    /** Whether the scope of some subentries also depends on the entry content. */
+    private final boolean hasRefinements;
+
+    private ApplicableSubEntries(List<SubEntry> subEntries, boolean hasRefinements)
+    {
+      this.subEntries = subEntries;
+      this.hasRefinements = hasRefinements;
+    }
+  }
+
+  /*
+   * The tries below are immutable so they are read without locking, each update
+   * publishing a new trie which shares the unchanged nodes with the previous one.
+   */
   /** A mapping between the DNs and applicable subentries. */
-  private final Map<DN, List<SubEntry>> dn2SubEntry = new HashMap<>();
+  private volatile DITTrie<SubEntry> dn2SubEntry = DITTrie.empty();
   /** A mapping between the DNs and applicable collective subentries. */
-  private final Map<DN, List<SubEntry>> dn2CollectiveSubEntry = new HashMap<>();
+  private volatile DITTrie<SubEntry> dn2CollectiveSubEntry = DITTrie.empty();
   /** A mapping between subentry DNs and subentry objects. */
-  private final DITCacheMap<SubEntry> dit2SubEntry = new DITCacheMap<>();
+  private volatile DITTrie<SubEntry> dit2SubEntry = DITTrie.empty();
+  /**
+   * The subentries applicable to recently resolved DNs. The caches are replaced
+   * after the tries above, so a resolution made with stale tries can only be
+   * stored in a discarded cache.
+   */
+  private volatile ConcurrentMap<DN, ApplicableSubEntries> dn2ApplicableSubEntries = new ConcurrentHashMap<>();
+  /** The collective subentries applicable to recently resolved DNs. */
+  private volatile ConcurrentMap<DN, ApplicableSubEntries> dn2ApplicableCollectiveSubEntries =
+      new ConcurrentHashMap<>();
   /** Internal search all operational attributes. */
   private final Set<String> requestAttrs = newLinkedHashSet("*", "+");
-  /** Lock to protect internal data structures. */
-  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  /** Lock serializing the updates of internal data structures. */
+  private final ReentrantLock lock = new ReentrantLock();
   /** The set of change notification listeners. */
   private final List<SubentryChangeListener> changeListeners = new CopyOnWriteArrayList<>();
 
@@ -183,28 +215,35 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     SubEntry subEntry = new SubEntry(entry);
     SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
     DN subDN = subSpec.getBaseDN();
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
-      Map<DN, List<SubEntry>> subEntryMap = getSubEntryMap(subEntry);
-      List<SubEntry> subList = subEntryMap.get(subDN);
-      if (subList == null)
+      if (isCollective(subEntry))
+      {
+        dn2CollectiveSubEntry = dn2CollectiveSubEntry.add(subDN, subEntry);
+      }
+      else
       {
-        subList = new ArrayList<>();
-        subEntryMap.put(subDN, subList);
+        dn2SubEntry = dn2SubEntry.add(subDN, subEntry);
       }
-      dit2SubEntry.put(entry.getName(), subEntry);
-      subList.add(subEntry);
+      dit2SubEntry = dit2SubEntry.put(entry.getName(), Collections.singletonList(subEntry));
+      clearApplicableSubEntries();
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
-  private Map<DN, List<SubEntry>> getSubEntryMap(SubEntry subEntry)
+  private void clearApplicableSubEntries()
+  {
+    dn2ApplicableSubEntries = new ConcurrentHashMap<>();
+    dn2ApplicableCollectiveSubEntries = new ConcurrentHashMap<>();
+  }
+
+  private boolean isCollective(SubEntry subEntry)
   {
-    return (subEntry.isCollective() || subEntry.isInheritedCollective()) ? dn2CollectiveSubEntry : dn2SubEntry;
+    return subEntry.isCollective() || subEntry.isInheritedCollective();
   }
 
   /**
@@ -215,43 +254,29 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   private void removeSubentry(Entry entry)
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
-      if (!removeSubEntry(dn2SubEntry, entry))
+      final DN dn = entry.getName();
+      for (SubEntry subEntry : dit2SubEntry.get(dn))
       {
-        removeSubEntry(dn2CollectiveSubEntry, entry);
+        final DN subDN = subEntry.getSubTreeSpecification().getBaseDN();
+        if (isCollective(subEntry))
+        {
+          dn2CollectiveSubEntry = dn2CollectiveSubEntry.remove(subDN, subEntry);
+        }
+        else
+        {
+          dn2SubEntry = dn2SubEntry.remove(subDN, subEntry);
+        }
       }
+      dit2SubEntry = dit2SubEntry.remove(dn);
+      clearApplicableSubEntries();
     }
     finally
     {
-      lock.writeLock().unlock();
-    }
-  }
-
-  private boolean removeSubEntry(Map<DN, List<SubEntry>> subEntryMap, Entry entry)
-  {
-    Iterator<List<SubEntry>> subEntryListsIt = subEntryMap.values().iterator();
-    while (subEntryListsIt.hasNext())
-    {
-      List<SubEntry> subEntries = subEntryListsIt.next();
-      Iterator<SubEntry> subEntriesIt = subEntries.iterator();
-      while (subEntriesIt.hasNext())
-      {
-        SubEntry subEntry = subEntriesIt.next();
-        if (subEntry.getDN().equals(entry.getName()))
-        {
-          dit2SubEntry.remove(entry.getName());
-          subEntriesIt.remove();
-          if (subEntries.isEmpty())
-          {
-            subEntryListsIt.remove();
-          }
-          return true;
-        }
-      }
+      lock.unlock();
     }
-    return false;
   }
 
   /**
@@ -388,27 +413,12 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries()
   {
-    if (dn2SubEntry.isEmpty())
+    final DITTrie<SubEntry> subEntries = dn2SubEntry;
+    if (subEntries.isEmpty())
     {
       return Collections.emptyList();
     }
-
-    List<SubEntry> subentries = new ArrayList<>();
-
-    lock.readLock().lock();
-    try
-    {
-      for (List<SubEntry> subList : dn2SubEntry.values())
-      {
-        subentries.addAll(subList);
-      }
-    }
-    finally
-    {
-      lock.readLock().unlock();
-    }
-
-    return subentries;
+    return subEntries.getSubtreeValues(DN.rootDN());
   }
 
   /**
@@ -420,41 +430,47 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries(DN dn)
   {
-    return getSubentries(dn2SubEntry, dn);
+    return getApplicableSubEntries(false, dn).subEntries;
   }
 
-  private List<SubEntry> getSubentries(Map<DN, List<SubEntry>> subEntryMap, DN dn)
+  /**
+   * Returns the subentries applicable to the provided DN, resolving them only
+   * if they are not cached yet. The scope of the subentries having refinements
+   * still has to be checked against the entry.
+   */
+  private ApplicableSubEntries getApplicableSubEntries(boolean collective, DN dn)
   {
-    if (subEntryMap.isEmpty())
+    // Read the cache before the trie, see dn2ApplicableSubEntries
+    final ConcurrentMap<DN, ApplicableSubEntries> cache =
+        collective ? dn2ApplicableCollectiveSubEntries : dn2ApplicableSubEntries;
+    final DITTrie<SubEntry> subEntries = collective ? dn2CollectiveSubEntry : dn2SubEntry;
+    if (subEntries.isEmpty())
     {
-      return Collections.emptyList();
+      return ApplicableSubEntries.NONE;
     }
 
-    lock.readLock().lock();
-    try
+    ApplicableSubEntries applicable = cache.get(dn);
+    if (applicable == null)
     {
       List<SubEntry> subentries = new ArrayList<>();
-      for (DN subDN = dn; subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
+      boolean hasRefinements = false;
+      for (SubEntry subEntry : subEntries.getValuesOnPath(dn))
       {
-        List<SubEntry> subList = subEntryMap.get(subDN);
-        if (subList != null)
+        SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
+        if (subSpec.isDNWithinScope(dn))
         {
-          for (SubEntry subEntry : subList)
-          {
-            SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-            if (subSpec.isDNWithinScope(dn))
-            {
-              subentries.add(subEntry);
-            }
-          }
+          subentries.add(subEntry);
+          hasRefinements |= subSpec.getRefinements() != null;
         }
       }
-      return subentries;
-    }
-    finally
-    {
-      lock.readLock().unlock();
+      applicable = new ApplicableSubEntries(Collections.unmodifiableList(subentries), hasRefinements);
+      if (cache.size() >= MAX_CACHED_DNS)
+      {
+        cache.clear();
+      }
+      cache.put(dn, applicable);
     }
+    return applicable;
   }
 
   /**
@@ -467,41 +483,26 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getSubentries(Entry entry)
   {
-    return getSubentries(dn2SubEntry, entry);
+    return getSubentries(false, entry);
   }
 
-  private List<SubEntry> getSubentries(Map<DN, List<SubEntry>> subEntryMap, Entry entry)
+  private List<SubEntry> getSubentries(boolean collective, Entry entry)
   {
-    if (subEntryMap.isEmpty())
+    final ApplicableSubEntries applicable = getApplicableSubEntries(collective, entry.getName());
+    if (!applicable.hasRefinements)
     {
-      return Collections.emptyList();
+      return applicable.subEntries;
     }
 
-    lock.readLock().lock();
-    try
+    List<SubEntry> subentries = new ArrayList<>();
+    for (SubEntry subEntry : applicable.subEntries)
     {
-      List<SubEntry> subentries = new ArrayList<>();
-      for (DN subDN = entry.getName(); subDN != null && !subDN.isRootDN(); subDN = subDN.parent())
+      if (subEntry.getSubTreeSpecification().isRefinementsMatch(entry))
       {
-        List<SubEntry> subList = subEntryMap.get(subDN);
-        if (subList != null)
-        {
-          for (SubEntry subEntry : subList)
-          {
-            SubtreeSpecification subSpec = subEntry.getSubTreeSpecification();
-            if (subSpec.isWithinScope(entry))
-            {
-              subentries.add(subEntry);
-            }
-          }
-        }
+        subentries.add(subEntry);
       }
-      return subentries;
-    }
-    finally
-    {
-      lock.readLock().unlock();
     }
+    return subentries;
   }
 
   /**
@@ -514,7 +515,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getCollectiveSubentries(DN dn)
   {
-    return getSubentries(dn2CollectiveSubEntry, dn);
+    return getApplicableSubEntries(true, dn).subEntries;
   }
 
   /**
@@ -527,7 +528,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
    */
   public List<SubEntry> getCollectiveSubentries(Entry entry)
   {
-    return getSubentries(dn2CollectiveSubEntry, entry);
+    return getSubentries(true, entry);
   }
 
   /**
@@ -537,39 +538,21 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   @Override
   public void performBackendPostFinalizationProcessing(LocalBackend<?> backend)
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
-      performBackendPostFinalizationProcessing(dn2SubEntry, backend);
-      performBackendPostFinalizationProcessing(dn2CollectiveSubEntry, backend);
-    }
-    finally
-    {
-      lock.writeLock().unlock();
-    }
-  }
-
-  private void performBackendPostFinalizationProcessing(Map<DN, List<SubEntry>> subEntryMap, LocalBackend<?> backend)
-  {
-    Iterator<List<SubEntry>> subEntryListsIt = subEntryMap.values().iterator();
-    while (subEntryListsIt.hasNext())
-    {
-      List<SubEntry> subEntryList = subEntryListsIt.next();
-      Iterator<SubEntry> subEntriesIt = subEntryList.iterator();
-      while (subEntriesIt.hasNext())
+      for (SubEntry subEntry : dit2SubEntry.getSubtreeValues(DN.rootDN()))
       {
-        SubEntry subEntry = subEntriesIt.next();
         if (backend.handlesEntry(subEntry.getDN()))
         {
-          dit2SubEntry.remove(subEntry.getDN());
-          subEntriesIt.remove();
+          removeSubentry(subEntry.getEntry());
           notifySubentryDeleted(subEntry.getEntry());
         }
       }
-      if (subEntryList.isEmpty())
-      {
-        subEntryListsIt.remove();
-      }
+    }
+    finally
+    {
+      lock.unlock();
     }
   }
 
@@ -587,7 +570,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   {
     if (isSubEntry(entry))
     {
-      lock.writeLock().lock();
+      lock.lock();
       try
       {
         try
@@ -602,7 +585,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
       }
       finally
       {
-        lock.writeLock().unlock();
+        lock.unlock();
       }
     }
   }
@@ -610,25 +593,16 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   private void doPostDelete(Entry entry)
   {
     // Fast-path for deleted entries which do not have subordinate sub-entries.
-    lock.readLock().lock();
-    try
-    {
-      final Collection<SubEntry> subtree = dit2SubEntry.getSubtree(entry.getName());
-      if (subtree.isEmpty())
-      {
-        return;
-      }
-    }
-    finally
+    if (dit2SubEntry.getSubtreeValues(entry.getName()).isEmpty())
     {
-      lock.readLock().unlock();
+      return;
     }
 
     // Slow-path.
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
-      for (SubEntry subEntry : dit2SubEntry.getSubtree(entry.getName()))
+      for (SubEntry subEntry : dit2SubEntry.getSubtreeValues(entry.getName()))
       {
         removeSubentry(subEntry.getEntry());
         notifySubentryDeleted(subEntry.getEntry());
@@ -636,7 +610,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -650,7 +624,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
 
     boolean notify = false;
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
       if (oldEntryIsSubentry)
@@ -680,7 +654,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -691,10 +665,10 @@ public class SubentryManager extends InternalDirectoryServerPlugin
 
   private void doPostModifyDN(final Entry oldEntry, final Entry newEntry)
   {
-    lock.writeLock().lock();
+    lock.lock();
     try
     {
-      Collection<SubEntry> setToDelete = dit2SubEntry.getSubtree(oldEntry.getName());
+      List<SubEntry> setToDelete = dit2SubEntry.getSubtreeValues(oldEntry.getName());
       for (SubEntry subentry : setToDelete)
       {
         final Entry currentSubentry = subentry.getEntry();
@@ -719,7 +693,7 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     }
     finally
     {
-      lock.writeLock().unlock();
+      lock.unlock();
     }
   }
 
@@ -760,41 +734,33 @@ public class SubentryManager extends InternalDirectoryServerPlugin
     Entry entry = deleteOperation.getEntryToDelete();
     boolean hasSubentryWritePrivilege = false;
 
-    lock.readLock().lock();
-    try
+    for (SubEntry subEntry : dit2SubEntry.getSubtreeValues(entry.getName()))
     {
-      for (SubEntry subEntry : dit2SubEntry.getSubtree(entry.getName()))
+      if (!hasSubentryWritePrivilege)
       {
-        if (!hasSubentryWritePrivilege)
+        ClientConnection conn = deleteOperation.getClientConnection();
+        if (!conn.hasPrivilege(Privilege.SUBENTRY_WRITE,
+                               conn.getOperationInProgress(deleteOperation.getMessageID())))
         {
-          ClientConnection conn = deleteOperation.getClientConnection();
-          if (!conn.hasPrivilege(Privilege.SUBENTRY_WRITE,
-                                 conn.getOperationInProgress(deleteOperation.getMessageID())))
-          {
-            return PluginResult.PreOperation.stopProcessing(
-                    ResultCode.INSUFFICIENT_ACCESS_RIGHTS,
-                    ERR_SUBENTRY_WRITE_INSUFFICIENT_PRIVILEGES.get());
-          }
-          hasSubentryWritePrivilege = true;
+          return PluginResult.PreOperation.stopProcessing(
+                  ResultCode.INSUFFICIENT_ACCESS_RIGHTS,
+                  ERR_SUBENTRY_WRITE_INSUFFICIENT_PRIVILEGES.get());
         }
-        for (SubentryChangeListener changeListener : changeListeners)
+        hasSubentryWritePrivilege = true;
+      }
+      for (SubentryChangeListener changeListener : changeListeners)
+      {
+        try
         {
-          try
-          {
-            changeListener.checkSubentryDeleteAcceptable(subEntry.getEntry());
-          }
-          catch (DirectoryException de)
-          {
-            logger.traceException(de);
-            return PluginResult.PreOperation.stopProcessing(de.getResultCode(), de.getMessageObject());
-          }
+          changeListener.checkSubentryDeleteAcceptable(subEntry.getEntry());
+        }
+        catch (DirectoryException de)
+        {
+          logger.traceException(de);
+          return PluginResult.PreOperation.stopProcessing(de.getResultCode(), de.getMessageObject());
         }
       }
     }
-    finally
-    {
-      lock.readLock().unlock();
-    }
 
     return PluginResult.PreOperation.continueOperationProcessing();
   }
@@ -837,50 +803,42 @@ public class SubentryManager extends InternalDirectoryServerPlugin
   {
     boolean hasSubentryWritePrivilege = false;
 
-    lock.readLock().lock();
-    try
+    final Entry oldEntry = modifyDNOperation.getOriginalEntry();
+    List<SubEntry> setToDelete = dit2SubEntry.getSubtreeValues(oldEntry.getName());
+    for (SubEntry subentry : setToDelete)
     {
-      final Entry oldEntry = modifyDNOperation.getOriginalEntry();
-      Collection<SubEntry> setToDelete = dit2SubEntry.getSubtree(oldEntry.getName());
-      for (SubEntry subentry : setToDelete)
+      if (!hasSubentryWritePrivilege)
       {
-        if (!hasSubentryWritePrivilege)
+        ClientConnection conn = modifyDNOperation.getClientConnection();
+        if (!conn.hasPrivilege(Privilege.SUBENTRY_WRITE,
+                               conn.getOperationInProgress(modifyDNOperation.getMessageID())))
         {
-          ClientConnection conn = modifyDNOperation.getClientConnection();
-          if (!conn.hasPrivilege(Privilege.SUBENTRY_WRITE,
-                                 conn.getOperationInProgress(modifyDNOperation.getMessageID())))
-          {
-            return PluginResult.PreOperation.stopProcessing(
-                    ResultCode.INSUFFICIENT_ACCESS_RIGHTS,
-                    ERR_SUBENTRY_WRITE_INSUFFICIENT_PRIVILEGES.get());
-          }
-          hasSubentryWritePrivilege = true;
+          return PluginResult.PreOperation.stopProcessing(
+                  ResultCode.INSUFFICIENT_ACCESS_RIGHTS,
+                  ERR_SUBENTRY_WRITE_INSUFFICIENT_PRIVILEGES.get());
         }
+        hasSubentryWritePrivilege = true;
+      }
 
-        final Entry newEntry = modifyDNOperation.getUpdatedEntry();
-        final Entry currentSubentry = subentry.getEntry();
-        final Entry renamedSubentry = currentSubentry.duplicate(false);
-        final DN renamedDN = currentSubentry.getName().rename(oldEntry.getName(), newEntry.getName());
-        renamedSubentry.setDN(renamedDN);
+      final Entry newEntry = modifyDNOperation.getUpdatedEntry();
+      final Entry currentSubentry = subentry.getEntry();
+      final Entry renamedSubentry = currentSubentry.duplicate(false);
+      final DN renamedDN = currentSubentry.getName().rename(oldEntry.getName(), newEntry.getName());
+      renamedSubentry.setDN(renamedDN);
 
-        for (SubentryChangeListener changeListener : changeListeners)
+      for (SubentryChangeListener changeListener : changeListeners)
+      {
+        try
         {
-          try
-          {
-            changeListener.checkSubentryModifyAcceptable(currentSubentry, renamedSubentry);
-          }
-          catch (DirectoryException de)
-          {
-            logger.traceException(de);
-            return PluginResult.PreOperation.stopProcessing(de.getResultCode(), de.getMessageObject());
-          }
+          changeListener.checkSubentryModifyAcceptable(currentSubentry, renamedSubentry);
+        }
+        catch (DirectoryException de)
+        {
+          logger.traceException(de);
+          return PluginResult.PreOperation.stopProcessing(de.getResultCode(), de.getMessageObject());
         }
       }
     }
-    finally
-    {
-      lock.readLock().unlock();
-    }
 
     return PluginResult.PreOperation.continueOperationProcessing();
   }
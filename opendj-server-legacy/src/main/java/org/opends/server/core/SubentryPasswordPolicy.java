@@ -452,6 +452,12 @@ public final class SubentryPasswordPolicy extends PasswordPolicy
     return getDefaultPasswordPolicy().getLastLoginTimeFormat();
   }
 
+  @Override
+  public long getLastLoginTimeUpdateInterval()
+  {
+    return getDefaultPasswordPolicy().getLastLoginTimeUpdateInterval();
+  }
+
   @Override
   public long getLockoutDuration()
   {
@@ -566,6 +572,24 @@ public final class SubentryPasswordPolicy extends PasswordPolicy
     return getDefaultPasswordPolicy().getStateUpdateFailurePolicy();
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Subentry password policies never cache verified passwords: the Internet-Draft does not define
+   * this setting, and the TTL of the default password policy does not apply to them.
+   */
+  @Override
+  public long getVerifiedPasswordCacheTTL()
+  {
+    return 0;
+  }
+
+  @Override
+  VerifiedPasswordCache getVerifiedPasswordCache()
+  {
+    return null;
+  }
+
   @Override
   public boolean isAuthPasswordSyntax()
   {
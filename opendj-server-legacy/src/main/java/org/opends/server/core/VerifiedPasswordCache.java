@@ -0,0 +1,175 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.core;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.ldap.ByteString;
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.types.Attribute;
+
+/**
+ * A short-lived cache of the passwords recently verified for the users of a
+ * password policy.
+ * <p>
+ * The cache never contains the passwords themselves: each verified password is
+ * recorded as an HMAC of the user DN, the password and the stored password
+ * values, computed with a random key which is never persisted. Changing the
+ * stored password values of a user therefore invalidates the corresponding
+ * entries, which would not match anymore.
+ * <p>
+ * This class is thread safe.
+ */
+final class VerifiedPasswordCache
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  /** The maximum number of verified passwords kept by a cache. */
+  private static final int MAX_ENTRIES = 10000;
+
+  /** Maps the keys of the verified passwords to their expiration time. */
+  private final Map<ByteString, Long> verifiedPasswords = new ConcurrentHashMap<>();
+  private final SecretKeySpec macKey;
+  private final long ttlMillis;
+
+  /**
+   * Creates a new empty cache.
+   *
+   * @param ttlMillis
+   *          The length of time during which verified passwords are kept, in
+   *          milliseconds.
+   */
+  VerifiedPasswordCache(long ttlMillis)
+  {
+    final byte[] key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    this.macKey = new SecretKeySpec(key, MAC_ALGORITHM);
+    this.ttlMillis = ttlMillis;
+  }
+
+  /**
+   * Returns the key identifying the provided password for the provided user
+   * and stored password values.
+   *
+   * @param userDN
+   *          The DN of the user.
+   * @param password
+   *          The clear-text password provided by the user.
+   * @param passwordAttributes
+   *          The attributes holding the stored password values of the user.
+   * @return The key of the password, or {@code null} if it cannot be computed.
+   */
+  ByteString getKey(DN userDN, ByteString password, List<Attribute> passwordAttributes)
+  {
+    try
+    {
+      final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+      mac.init(macKey);
+      mac.update(userDN.toNormalizedByteString().toByteArray());
+      update(mac, password);
+      for (Attribute a : passwordAttributes)
+      {
+        for (ByteString v : a)
+        {
+          update(mac, v);
+        }
+      }
+      return ByteString.wrap(mac.doFinal());
+    }
+    catch (GeneralSecurityException e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  private static void update(Mac mac, ByteString value)
+  {
+    // Separate the values so that their concatenation is not ambiguous
+    final int length = value.length();
+    mac.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length });
+    mac.update(value.toByteArray());
+  }
+
+  /**
+   * Indicates whether the password with the provided key has been verified
+   * recently.
+   *
+   * @param key
+   *          The key of the password.
+   * @param currentTime
+   *          The current time in milliseconds.
+   * @return {@code true} if the password has been verified and has not expired
+   *         from the cache yet
+   */
+  boolean isVerified(ByteString key, long currentTime)
+  {
+    final Long expirationTime = verifiedPasswords.get(key);
+    if (expirationTime == null)
+    {
+      return false;
+    }
+    if (currentTime < expirationTime)
+    {
+      return true;
+    }
+    verifiedPasswords.remove(key, expirationTime);
+    return false;
+  }
+
+  /**
+   * Records that the password with the provided key has been verified. Nothing
+   * is done if the cache is full of passwords which have not expired yet.
+   *
+   * @param key
+   *          The key of the password.
+   * @param currentTime
+   *          The current time in milliseconds.
+   */
+  void setVerified(ByteString key, long currentTime)
+  {
+    if (verifiedPasswords.size() >= MAX_ENTRIES)
+    {
+      purgeExpired(currentTime);
+      if (verifiedPasswords.size() >= MAX_ENTRIES)
+      {
+        return;
+      }
+    }
+    verifiedPasswords.put(key, currentTime + ttlMillis);
+  }
+
+  private void purgeExpired(long currentTime)
+  {
+    for (Iterator<Long> it = verifiedPasswords.values().iterator(); it.hasNext();)
+    {
+      if (currentTime >= it.next())
+      {
+        it.remove();
+      }
+    }
+  }
+}
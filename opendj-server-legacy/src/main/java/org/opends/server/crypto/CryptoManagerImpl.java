@@ -18,10 +18,12 @@
 package org.opends.server.crypto;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -33,6 +35,7 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -60,6 +63,7 @@ import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -222,6 +226,29 @@ public class CryptoManagerImpl implements ConfigurationChangeListener<CryptoMana
   private final SortedSet<String> sslProtocols;
   /** The set of SSL cipher suites enabled or null for the default set. */
   private final SortedSet<String> sslCipherSuites;
+  /** The maximum number of SSL sessions cached by the SSL contexts. */
+  private volatile int sslSessionCacheSize;
+  /** The length of time during which SSL sessions can be resumed, in seconds. */
+  private volatile int sslSessionTimeout;
+
+  /**
+   * The SSL contexts returned by {@link #getSslContext}, by component name and
+   * certificate nicknames. Reusing them allows resuming the SSL sessions.
+   */
+  private final Map<String, CachedSslContext> sslContexts = new ConcurrentHashMap<>();
+
+  /** An SSL context, with the digest of the trust store it was created from. */
+  private static final class CachedSslContext
+  {
+    private final SSLContext sslContext;
+    private final byte[] trustStoreDigest;
+
+    private CachedSslContext(SSLContext sslContext, byte[] trustStoreDigest)
+    {
+      this.sslContext = sslContext;
+      this.trustStoreDigest = trustStoreDigest;
+    }
+  }
 
   private final ServerContext serverContext;
 
@@ -417,6 +444,10 @@ public class CryptoManagerImpl implements ConfigurationChangeListener<CryptoMana
     preferredCipherTransformation = cfg.getCipherTransformation();
     preferredCipherTransformationKeyLengthBits = cfg.getCipherKeyLength();
     preferredKeyWrappingTransformation = cfg.getKeyWrappingTransformation();
+    sslSessionCacheSize = cfg.getSSLSessionCacheSize();
+    sslSessionTimeout = (int) cfg.getSSLSessionTimeout();
+    // Apply the new session settings to the SSL contexts created from now on
+    sslContexts.clear();
     return new ConfigChangeResult();
   }
 
@@ -2674,21 +2705,21 @@ public class CryptoManagerImpl implements ConfigurationChangeListener<CryptoMana
     try
     {
       TrustStoreBackend trustStoreBackend = getTrustStoreBackend();
-      KeyManager[] keyManagers = trustStoreBackend.getKeyManagers();
-      TrustManager[] trustManagers = trustStoreBackend.getTrustManagers();
-
-      SSLContext sslContext = SSLContext.getInstance("TLS");
-      if (sslCertNicknames == null)
+      // Create a new SSL context when the trust store changes, to make sure
+      // the latest trusted certificates are used. The content is compared, as
+      // the trust store can change without changing its modification time
+      // or length.
+      final byte[] trustStoreDigest = getTrustStoreDigest(trustStoreBackend.getTrustStoreFile());
+      final String key = componentName + sslCertNicknames;
+      final CachedSslContext cached = sslContexts.get(key);
+      if (cached != null && MessageDigest.isEqual(cached.trustStoreDigest, trustStoreDigest))
       {
-        sslContext.init(keyManagers, trustManagers, null);
+        return cached.sslContext;
       }
-      else
-      {
-        KeyManager[] extendedKeyManagers =
-            SelectableCertificateKeyManager.wrap(keyManagers, sslCertNicknames, componentName);
-        sslContext.init(extendedKeyManagers, trustManagers, null);
-      }
-      return sslContext;
+      final CachedSslContext newContext = new CachedSslContext(
+          createSslContext(trustStoreBackend, componentName, sslCertNicknames), trustStoreDigest);
+      sslContexts.put(key, newContext);
+      return newContext.sslContext;
     }
     catch (Exception e)
     {
@@ -2701,6 +2732,41 @@ public class CryptoManagerImpl implements ConfigurationChangeListener<CryptoMana
     }
   }
 
+  private static byte[] getTrustStoreDigest(File trustStoreFile) throws IOException, NoSuchAlgorithmException
+  {
+    if (!trustStoreFile.exists())
+    {
+      return new byte[0];
+    }
+    return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(trustStoreFile.toPath()));
+  }
+
+  private SSLContext createSslContext(TrustStoreBackend trustStoreBackend, String componentName,
+      SortedSet<String> sslCertNicknames) throws Exception
+  {
+    KeyManager[] keyManagers = trustStoreBackend.getKeyManagers();
+    TrustManager[] trustManagers = trustStoreBackend.getTrustManagers();
+
+    SSLContext sslContext = SSLContext.getInstance("TLS");
+    if (sslCertNicknames == null)
+    {
+      sslContext.init(keyManagers, trustManagers, null);
+    }
+    else
+    {
+      KeyManager[] extendedKeyManagers =
+          SelectableCertificateKeyManager.wrap(keyManagers, sslCertNicknames, componentName);
+      sslContext.init(extendedKeyManagers, trustManagers, null);
+    }
+    for (SSLSessionContext sessionContext
+        : Arrays.asList(sslContext.getClientSessionContext(), sslContext.getServerSessionContext()))
+    {
+      sessionContext.setSessionCacheSize(sslSessionCacheSize);
+      sessionContext.setSessionTimeout(sslSessionTimeout);
+    }
+    return sslContext;
+  }
+
   @Override
   public SortedSet<String> getSslCertNicknames()
   {
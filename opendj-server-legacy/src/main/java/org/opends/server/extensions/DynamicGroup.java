@@ -16,18 +16,27 @@
  */
 package org.opends.server.extensions;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.forgerock.opendj.config.server.ConfigChangeResult;
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.config.server.ConfigurationChangeListener;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.SearchScope;
@@ -36,6 +45,7 @@ import org.forgerock.opendj.server.config.server.DynamicGroupImplementationCfg;
 import org.opends.server.api.Group;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ServerContext;
+import org.opends.server.extensions.StaticGroup.CompactDn;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.DirectoryConfig;
 import org.opends.server.types.DirectoryException;
@@ -43,10 +53,12 @@ import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
 import org.opends.server.types.LDAPURL;
 import org.opends.server.types.MemberList;
+import org.opends.server.types.MembershipException;
 import org.opends.server.types.Modification;
 import org.opends.server.types.SearchFilter;
 
 import static org.forgerock.util.Reject.*;
+import static org.forgerock.util.Utils.*;
 import static org.opends.messages.ExtensionMessages.*;
 import static org.opends.server.config.ConfigConstants.*;
 import static org.opends.server.util.ServerConstants.*;
@@ -57,18 +69,70 @@ import static org.opends.server.util.ServerConstants.*;
  * in the form of one or more LDAP URLs.  All dynamic groups should
  * contain the groupOfURLs object class, with the memberURL attribute
  * specifying the membership criteria.
+ * <p>
+ * When the members are materialized, they are searched in the background
+ * when the group is first used, and then maintained from the changes of the
+ * entries reported by the group manager.  When changes of entries are not
+ * reported, such as the changes of the subordinates of a deleted or renamed
+ * entry, or the import of a backend, the members are searched again.  Until
+ * they have been searched, or while they are being searched, the membership
+ * is determined dynamically.
  */
 public class DynamicGroup
        extends Group<DynamicGroupImplementationCfg>
+       implements ConfigurationChangeListener<DynamicGroupImplementationCfg>
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** The name of the thread searching the members of the materialized groups. */
+  private static final String MATERIALIZATION_THREAD_NAME = "Dynamic Group Members Materializer";
+
+  /** The current configuration of the group implementation. */
+  private volatile DynamicGroupImplementationCfg currentConfig;
+
+  /**
+   * The executor searching the members of the materialized groups, one group
+   * at a time, or {@code null} for group instances.
+   */
+  private ThreadPoolExecutor materializationExecutor;
+
+  /** The group implementation which created this group instance, or {@code null}. */
+  private DynamicGroup implementation;
+
+  /** The server context. */
+  private ServerContext serverContext;
+
   /** The DN of the entry that holds the definition for this group. */
   private DN groupEntryDN;
 
   /** The set of the LDAP URLs that define the membership criteria. */
   private LinkedHashSet<LDAPURL> memberURLs;
 
+  /** Indicates whether the members of this group are materialized. */
+  private boolean materializeMembers;
+
+  /** The materialized members, or {@code null} if they have not been searched yet. */
+  private volatile Set<CompactDn> materializedMembers;
+
+  /**
+   * The changes of the entries reported while the members are searched, which
+   * are applied to the search results, or {@code null} if the members are not
+   * being searched.
+   */
+  private List<Entry[]> pendingEntryChanges;
+
+  /**
+   * Indicates whether the members being searched may miss changes which have
+   * not been reported, and must be searched again.
+   */
+  private boolean isSearchRestartNeeded;
+
+  /**
+   * Lock protecting the materialized members and the state of their search.
+   * It is never held while searching.
+   */
+  private final ReentrantLock materializationLock = new ReentrantLock();
+
   /** Creates a new, uninitialized dynamic group instance. This is intended for internal use only. */
   public DynamicGroup()
   {
@@ -87,13 +151,23 @@ public class DynamicGroup
    *                       {@code null}.
    */
   public DynamicGroup(DN groupEntryDN, LinkedHashSet<LDAPURL> memberURLs)
+  {
+    this(DirectoryServer.getInstance().getServerContext(), groupEntryDN, memberURLs, null, false);
+  }
+
+  private DynamicGroup(ServerContext serverContext, DN groupEntryDN,
+      LinkedHashSet<LDAPURL> memberURLs, DynamicGroup implementation,
+      boolean materializeMembers)
   {
     super();
 
     ifNull(groupEntryDN, memberURLs);
 
-    this.groupEntryDN = groupEntryDN;
-    this.memberURLs   = memberURLs;
+    this.serverContext      = serverContext;
+    this.groupEntryDN       = groupEntryDN;
+    this.memberURLs         = memberURLs;
+    this.implementation     = implementation;
+    this.materializeMembers = materializeMembers;
   }
 
   @Override
@@ -101,7 +175,48 @@ public class DynamicGroup
                    DynamicGroupImplementationCfg configuration)
          throws ConfigException, InitializationException
   {
-    // No additional initialization is required.
+    currentConfig = configuration;
+    configuration.addDynamicChangeListener(this);
+
+    materializationExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), newThreadFactory(null, MATERIALIZATION_THREAD_NAME, true));
+    materializationExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public void finalizeGroupImplementation()
+  {
+    if (currentConfig != null)
+    {
+      currentConfig.removeDynamicChangeListener(this);
+    }
+    if (materializationExecutor != null)
+    {
+      materializationExecutor.shutdownNow();
+    }
+  }
+
+  @Override
+  public boolean isConfigurationChangeAcceptable(
+      DynamicGroupImplementationCfg configuration,
+      List<LocalizableMessage> unacceptableReasons)
+  {
+    return true;
+  }
+
+  @Override
+  public ConfigChangeResult applyConfigurationChange(
+      DynamicGroupImplementationCfg configuration)
+  {
+    boolean materializeMembersChanged =
+        configuration.isMaterializeMembers() != currentConfig.isMaterializeMembers();
+    currentConfig = configuration;
+    if (materializeMembersChanged)
+    {
+      // The group instances decide whether to materialize their members when they are created
+      DirectoryServer.getGroupManager().reloadGroupInstances(this);
+    }
+    return new ConfigChangeResult();
   }
 
   @Override
@@ -129,7 +244,9 @@ public class DynamicGroup
       }
     }
 
-    return new DynamicGroup(groupEntry.getName(), memberURLs);
+    DynamicGroupImplementationCfg config = currentConfig;
+    return new DynamicGroup(serverContext, groupEntry.getName(), memberURLs,
+        this, config != null && config.isMaterializeMembers());
   }
 
   @Override
@@ -217,6 +334,12 @@ public class DynamicGroup
       return false;
     }
 
+    Set<CompactDn> members = getMaterializedMembers();
+    if (members != null)
+    {
+      return members.contains(new CompactDn(userDN));
+    }
+
     Entry entry = DirectoryConfig.getEntry(userDN);
     return entry != null && isMember(entry);
   }
@@ -231,9 +354,19 @@ public class DynamicGroup
       return false;
     }
 
+    Set<CompactDn> members = getMaterializedMembers();
+    if (members != null)
+    {
+      return members.contains(new CompactDn(userEntry.getName()));
+    }
+    return matchesMemberURLs(userEntry);
+  }
+
+  private boolean matchesMemberURLs(Entry entry) throws DirectoryException
+  {
     for (LDAPURL memberURL : memberURLs)
     {
-      if (memberURL.matchesEntry(userEntry))
+      if (memberURL.matchesEntry(entry))
       {
         return true;
       }
@@ -257,6 +390,11 @@ public class DynamicGroup
   public MemberList getMembers()
          throws DirectoryException
   {
+    Set<CompactDn> members = getMaterializedMembers();
+    if (members != null)
+    {
+      return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, members);
+    }
     return new DynamicGroupMemberList(groupEntryDN, memberURLs);
   }
 
@@ -265,7 +403,16 @@ public class DynamicGroup
                                SearchFilter filter)
          throws DirectoryException
   {
-    if (baseDN == null && filter == null)
+    Set<CompactDn> members = getMaterializedMembers();
+    if (members != null)
+    {
+      if (baseDN == null && filter == null)
+      {
+        return new SimpleStaticGroupMemberList(serverContext, groupEntryDN, members);
+      }
+      return new FilteredStaticGroupMemberList(serverContext, groupEntryDN, members, baseDN, scope, filter);
+    }
+    else if (baseDN == null && filter == null)
     {
       return new DynamicGroupMemberList(groupEntryDN, memberURLs);
     }
@@ -282,6 +429,259 @@ public class DynamicGroup
     return false;
   }
 
+  @Override
+  public boolean maintainsMemberList()
+  {
+    return materializeMembers;
+  }
+
+  /**
+   * Returns the materialized members, starting to search them in the
+   * background if this is the first time they are needed.
+   *
+   * @return  The materialized members, or {@code null} if the members are not
+   *          materialized, or if they are being searched or could not be
+   *          searched.
+   */
+  private Set<CompactDn> getMaterializedMembers()
+  {
+    Set<CompactDn> members = materializedMembers;
+    if (members == null && materializeMembers)
+    {
+      materializationLock.lock();
+      try
+      {
+        if (materializedMembers == null)
+        {
+          searchMembersInBackground();
+        }
+      }
+      finally
+      {
+        materializationLock.unlock();
+      }
+    }
+    return members;
+  }
+
+  /**
+   * Starts searching the members in the background, unless they are already
+   * being searched.  The caller must hold the materialization lock.
+   */
+  private void searchMembersInBackground()
+  {
+    if (pendingEntryChanges != null)
+    {
+      return;
+    }
+    pendingEntryChanges = new ArrayList<>();
+    isSearchRestartNeeded = false;
+    try
+    {
+      implementation.materializationExecutor.execute(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          searchAndIndexMembers();
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      // The group implementation is being finalized
+      logger.traceException(e);
+      pendingEntryChanges = null;
+    }
+  }
+
+  /**
+   * Searches the members, applies the changes of the entries reported in the
+   * meantime, and adds this group to the reverse membership index.
+   */
+  private void searchAndIndexMembers()
+  {
+    while (true)
+    {
+      List<DN> memberDNs = searchMembers();
+
+      materializationLock.lock();
+      try
+      {
+        if (memberDNs == null)
+        {
+          // The members will be searched again when next needed
+          pendingEntryChanges = null;
+          return;
+        }
+        if (isSearchRestartNeeded)
+        {
+          isSearchRestartNeeded = false;
+          pendingEntryChanges.clear();
+          continue;
+        }
+
+        Set<CompactDn> members = ConcurrentHashMap.newKeySet();
+        for (DN memberDN : memberDNs)
+        {
+          members.add(new CompactDn(memberDN));
+        }
+        // Applying a change the search has already seen does not alter the members
+        for (Entry[] entryChange : pendingEntryChanges)
+        {
+          applyEntryChange(members, entryChange[0], entryChange[1], null, null);
+        }
+        pendingEntryChanges = null;
+
+        materializedMembers = members;
+        DirectoryServer.getGroupManager().indexMaintainedGroup(this, toDNs(members));
+        return;
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+        pendingEntryChanges = null;
+        return;
+      }
+      finally
+      {
+        materializationLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Searches the members of this group.
+   *
+   * @return  The DNs of the members, or {@code null} if the searches failed.
+   */
+  private List<DN> searchMembers()
+  {
+    List<DN> memberDNs = new ArrayList<>();
+    try (MemberList memberList = new DynamicGroupMemberList(groupEntryDN, memberURLs))
+    {
+      while (memberList.hasMoreMembers())
+      {
+        DN memberDN = memberList.nextMemberDN();
+        if (memberDN != null)
+        {
+          memberDNs.add(memberDN);
+        }
+      }
+      return memberDNs;
+    }
+    catch (DirectoryException | MembershipException e)
+    {
+      // Do not materialize an incomplete list of members
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  private List<DN> toDNs(Set<CompactDn> members)
+  {
+    List<DN> memberDNs = new ArrayList<>(members.size());
+    for (CompactDn member : members)
+    {
+      memberDNs.add(member.toDn(serverContext));
+    }
+    return memberDNs;
+  }
+
+  /**
+   * Applies the change of an entry to the provided members, optionally
+   * collecting the DNs of the added and removed members.
+   */
+  private void applyEntryChange(Set<CompactDn> members, Entry oldEntry, Entry newEntry,
+      List<DN> addedMemberDNs, List<DN> removedMemberDNs) throws DirectoryException
+  {
+    DN oldDN = oldEntry != null ? oldEntry.getName() : null;
+    DN newDN = newEntry != null && matchesMemberURLs(newEntry) ? newEntry.getName() : null;
+    if (oldDN != null && !oldDN.equals(newDN) && members.remove(new CompactDn(oldDN))
+        && removedMemberDNs != null)
+    {
+      removedMemberDNs.add(oldDN);
+    }
+    if (newDN != null && members.add(new CompactDn(newDN)) && addedMemberDNs != null)
+    {
+      addedMemberDNs.add(newDN);
+    }
+  }
+
+  @Override
+  public void processEntryChange(Entry oldEntry, Entry newEntry,
+                                 boolean subordinatesChanged)
+  {
+    if (subordinatesChanged)
+    {
+      // The changes of the subordinate entries are not reported
+      invalidateMembers();
+      return;
+    }
+
+    materializationLock.lock();
+    try
+    {
+      if (pendingEntryChanges != null)
+      {
+        // The search may or may not see this change: apply it to its results
+        pendingEntryChanges.add(new Entry[] { oldEntry, newEntry });
+        return;
+      }
+      Set<CompactDn> members = materializedMembers;
+      if (members == null)
+      {
+        // The members will be searched when first needed, including this change.
+        return;
+      }
+
+      List<DN> addedMemberDNs = new ArrayList<>();
+      List<DN> removedMemberDNs = new ArrayList<>();
+      applyEntryChange(members, oldEntry, newEntry, addedMemberDNs, removedMemberDNs);
+      if (!addedMemberDNs.isEmpty() || !removedMemberDNs.isEmpty())
+      {
+        DirectoryServer.getGroupManager().updateMembershipIndex(this, addedMemberDNs, removedMemberDNs);
+      }
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+    }
+    finally
+    {
+      materializationLock.unlock();
+    }
+  }
+
+  @Override
+  public void invalidateMembers()
+  {
+    materializationLock.lock();
+    try
+    {
+      if (pendingEntryChanges != null)
+      {
+        isSearchRestartNeeded = true;
+        return;
+      }
+      Set<CompactDn> members = materializedMembers;
+      if (members == null)
+      {
+        // The members will be searched when first needed
+        return;
+      }
+
+      // Evaluate the membership dynamically until the members have been searched again
+      materializedMembers = null;
+      DirectoryServer.getGroupManager().unindexMaintainedGroup(this, toDNs(members));
+      searchMembersInBackground();
+    }
+    finally
+    {
+      materializationLock.unlock();
+    }
+  }
+
   @Override
   public void updateMembers(List<Modification> modifications)
          throws UnsupportedOperationException, DirectoryException
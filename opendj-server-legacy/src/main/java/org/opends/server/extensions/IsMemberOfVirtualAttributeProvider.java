@@ -16,6 +16,8 @@
  */
 package org.opends.server.extensions;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -29,6 +31,7 @@ import org.forgerock.opendj.server.config.server.IsMemberOfVirtualAttributeCfg;
 import org.opends.server.api.Group;
 import org.opends.server.api.VirtualAttributeProvider;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.core.GroupManager;
 import org.opends.server.core.SearchOperation;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.opends.server.types.*;
@@ -63,21 +66,10 @@ public class IsMemberOfVirtualAttributeProvider
   @Override
   public Attribute getValues(Entry entry, VirtualAttributeRule rule)
   {
-	// FIXME -- This probably isn't the most efficient implementation.
     AttributeBuilder builder = new AttributeBuilder(rule.getAttributeType());
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
+    for (DN groupDN : DirectoryServer.getGroupManager().getGroupMemberships(entry))
     {
-      try
-      {
-        if (!builder.contains(ByteString.valueOfUtf8(g.getGroupDN().toString())) && g.isMember(entry))
-        {
-          builder.add(g.getGroupDN().toString());
-        }
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-      }
+      builder.add(groupDN.toString());
     }
     return builder.toAttribute();
   }
@@ -85,23 +77,7 @@ public class IsMemberOfVirtualAttributeProvider
   @Override
   public boolean hasValue(Entry entry, VirtualAttributeRule rule)
   {
-    // FIXME -- This probably isn't the most efficient implementation.
-    for (Group<?> g : DirectoryServer.getGroupManager().getGroupInstances())
-    {
-      try
-      {
-        if (g.isMember(entry))
-        {
-          return true;
-        }
-      }
-      catch (Exception e)
-      {
-        logger.traceException(e);
-      }
-    }
-
-    return false;
+    return !DirectoryServer.getGroupManager().getGroupMemberships(entry).isEmpty();
   }
 
   @Override
@@ -111,8 +87,16 @@ public class IsMemberOfVirtualAttributeProvider
     try
     {
       DN groupDN = DN.valueOf(value);
-      Group<?> g = DirectoryServer.getGroupManager().getGroupInstance(groupDN);
-      return g != null && g.isMember(entry);
+      GroupManager groupManager = DirectoryServer.getGroupManager();
+      Group<?> g = groupManager.getGroupInstance(groupDN);
+      if (g == null)
+      {
+        return false;
+      }
+      // Groups listing their members are found in the reverse membership index
+      return g.mayAlterMemberList()
+          ? groupManager.getGroupMemberships(entry).contains(g.getGroupDN())
+          : g.isMember(entry);
     }
     catch (Exception e)
     {
@@ -245,14 +229,23 @@ public class IsMemberOfVirtualAttributeProvider
       {
         return;
       }
-      // Now check members of nested groups
-      for (DN dn : nestedGroupsDNs)
+      // Now check members of nested groups at any depth, visiting each group once
+      Set<DN> visitedGroupDNs = new HashSet<>();
+      visitedGroupDNs.add(group.getGroupDN());
+      Deque<DN> groupDNs = new ArrayDeque<>(nestedGroupsDNs);
+      while (!groupDNs.isEmpty())
       {
+        DN dn = groupDNs.poll();
         group = DirectoryServer.getGroupManager().getGroupInstance(dn);
+        if (group == null || !visitedGroupDNs.add(group.getGroupDN()))
+        {
+          continue;
+        }
         if (!returnGroupMembers(searchOperation, group.getMembers(), returnedDNs))
         {
           return;
         }
+        groupDNs.addAll(group.getNestedGroupDNs());
       }
     }
     catch (DirectoryException de)
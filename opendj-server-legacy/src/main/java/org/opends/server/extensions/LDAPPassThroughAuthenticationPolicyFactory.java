@@ -34,15 +34,17 @@ import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.IllegalFormatConversionException;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.MissingFormatArgumentException;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -516,10 +518,29 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
   /**
    * PTA connection pool.
    * <p>
+   * The most recently used connections are reused first, so that the
+   * connections which are not needed anymore remain idle and are eventually
+   * closed once they have been idle for longer than the idle timeout. When
+   * heartbeats are enabled, the idle connections are periodically checked,
+   * and the connections which failed are closed.
+   * <p>
    * Package private for testing.
    */
-  static final class ConnectionPool implements ConnectionFactory
+  static final class ConnectionPool implements ConnectionFactory, Runnable
   {
+    /** A connection waiting in the pool, with the time at which it was released. */
+    private static final class IdleConnection
+    {
+      private final Connection connection;
+      private final long idleSince;
+
+      private IdleConnection(final Connection connection, final long idleSince)
+      {
+        this.connection = connection;
+        this.idleSince = idleSince;
+      }
+    }
+
     /** Pooled connection's intercept close and release connection back to the pool. */
     private final class PooledConnection implements Connection
     {
@@ -545,7 +566,7 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
           }
           else
           {
-            connectionPool.offer(connection);
+            connectionPool.offerFirst(new IdleConnection(connection, provider.getCurrentTimeMS()));
           }
 
           connection = null;
@@ -651,13 +672,18 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
       }
     }
 
-    /** Guarded by PolicyImpl.lock. */
-    private boolean poolIsClosed;
+    /** Guarded by PolicyImpl.lock, volatile for the heartbeats. */
+    private volatile boolean poolIsClosed;
 
     private final ConnectionFactory factory;
-    private final int poolSize = Runtime.getRuntime().availableProcessors() * 2;
-    private final Semaphore availableConnections = new Semaphore(poolSize);
-    private final Queue<Connection> connectionPool = new ConcurrentLinkedQueue<>();
+    private final Provider provider;
+    private final int poolSize;
+    private final long idleTimeoutMS;
+    private final boolean sendHeartbeats;
+    private final Semaphore availableConnections;
+    /** The idle connections, most recently used first. */
+    private final Deque<IdleConnection> connectionPool = new ConcurrentLinkedDeque<>();
+    private final ScheduledFuture<?> heartbeatFuture;
 
     /**
      * Creates a new connection pool for the provided factory.
@@ -665,10 +691,35 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
      * @param factory
      *          The underlying connection factory whose connections are to be
      *          pooled.
+     * @param provider
+     *          The provider of the current time and of the heartbeat scheduler.
+     * @param poolSize
+     *          The maximum number of connections in use at the same time.
+     * @param idleTimeoutMS
+     *          The length of time after which idle connections are closed, or
+     *          0 if they are never closed.
+     * @param heartbeatIntervalMS
+     *          The interval at which idle connections are checked, or 0 if
+     *          they are never checked.
      */
-    ConnectionPool(final ConnectionFactory factory)
+    ConnectionPool(final ConnectionFactory factory, final Provider provider,
+        final int poolSize, final long idleTimeoutMS,
+        final long heartbeatIntervalMS)
     {
       this.factory = factory;
+      this.provider = provider;
+      this.poolSize = poolSize;
+      this.idleTimeoutMS = idleTimeoutMS;
+      this.availableConnections = new Semaphore(poolSize);
+
+      // Check the idle connections at the heartbeat interval, or at the idle
+      // timeout when heartbeats are disabled.
+      final long checkIntervalMS = heartbeatIntervalMS > 0 ? heartbeatIntervalMS : idleTimeoutMS;
+      this.heartbeatFuture = checkIntervalMS > 0
+          ? provider.getScheduledExecutorService().scheduleWithFixedDelay(
+              this, checkIntervalMS, checkIntervalMS, TimeUnit.MILLISECONDS)
+          : null;
+      this.sendHeartbeats = heartbeatIntervalMS > 0;
     }
 
     /** Release all connections: do we want to block? */
@@ -678,13 +729,12 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
       // No need for synchronization as this can only be called with the
       // policy's exclusive lock.
       poolIsClosed = true;
-
-      Connection connection;
-      while ((connection = connectionPool.poll()) != null)
+      if (heartbeatFuture != null)
       {
-        connection.close();
+        heartbeatFuture.cancel(false);
       }
 
+      closeIdleConnections();
       factory.close();
 
       // Since we have the exclusive lock, there should be no more connections
@@ -709,7 +759,7 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
 
       // There is either a pooled connection or we are allowed to create
       // one.
-      Connection connection = connectionPool.poll();
+      Connection connection = pollIdleConnection();
       if (connection == null)
       {
         try
@@ -725,6 +775,77 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
 
       return new PooledConnection(connection);
     }
+
+    private Connection pollIdleConnection()
+    {
+      IdleConnection idle;
+      while ((idle = connectionPool.pollFirst()) != null)
+      {
+        if (!isExpired(idle, provider.getCurrentTimeMS()))
+        {
+          return idle.connection;
+        }
+        idle.connection.close();
+      }
+      return null;
+    }
+
+    private boolean isExpired(final IdleConnection idle, final long currentTimeMS)
+    {
+      return idleTimeoutMS > 0 && currentTimeMS - idle.idleSince >= idleTimeoutMS;
+    }
+
+    private void closeIdleConnections()
+    {
+      IdleConnection idle;
+      while ((idle = connectionPool.pollFirst()) != null)
+      {
+        idle.connection.close();
+      }
+    }
+
+    /** Closes the expired idle connections, and checks the other ones if heartbeats are enabled. */
+    @Override
+    public void run()
+    {
+      final long currentTimeMS = provider.getCurrentTimeMS();
+      for (final IdleConnection idle : new ArrayList<>(connectionPool))
+      {
+        // Only check the connections which have not been taken meanwhile.
+        if (poolIsClosed || !connectionPool.removeFirstOccurrence(idle))
+        {
+          continue;
+        }
+
+        if (isExpired(idle, currentTimeMS)
+            || (sendHeartbeats && !isAlive(idle.connection)))
+        {
+          idle.connection.close();
+          continue;
+        }
+
+        connectionPool.offerLast(idle);
+        if (poolIsClosed)
+        {
+          closeIdleConnections();
+        }
+      }
+    }
+
+    private boolean isAlive(final Connection connection)
+    {
+      try
+      {
+        connection.search(DN.rootDN(), SearchScope.BASE_OBJECT,
+            SearchFilter.objectClassPresent());
+        return true;
+      }
+      catch (final DirectoryException e)
+      {
+        logger.traceException(e);
+        return !isServiceError(e.getResultCode());
+      }
+    }
   }
 
   /**
@@ -1351,6 +1472,19 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
     }
   }
 
+  /** The DN of a remote entry returned by a mapped search, and its expiration time. */
+  private static final class CachedMappedDN
+  {
+    private final ByteString dn;
+    private final long expirationTime;
+
+    private CachedMappedDN(final ByteString dn, final long expirationTime)
+    {
+      this.dn = dn;
+      this.expirationTime = expirationTime;
+    }
+  }
+
   /** LDAP PTA policy implementation. */
   private final class PolicyImpl extends AuthenticationPolicy implements
       ConfigurationChangeListener<LDAPPassThroughAuthenticationPolicyCfg>
@@ -1528,87 +1662,123 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
               filter = SearchFilter.createORFilter(filterComponents);
             }
 
-            // Now search the configured base DNs, stopping at the first
-            // success.
-            for (final DN baseDN : cfg.getMappedSearchBaseDN())
+            // Reuse the DN returned by a recent search with the same filter.
+            final String filterKey = filter.toString();
+            final ByteString cachedDN = getCachedMappedDN(filterKey);
+            if (cachedDN != null)
             {
-              Connection connection = null;
-              try
-              {
-                connection = searchFactory.getConnection();
-                username = connection.search(baseDN, SearchScope.WHOLE_SUBTREE,
-                    filter);
-              }
-              catch (final DirectoryException e)
-              {
-                switch (e.getResultCode().asEnum())
-                {
-                case NO_SUCH_OBJECT:
-                case CLIENT_SIDE_NO_RESULTS_RETURNED:
-                  // Ignore and try next base DN.
-                  break;
-                case CLIENT_SIDE_UNEXPECTED_RESULTS_RETURNED:
-                  // More than one matching entry was returned.
-                  throw new DirectoryException(ResultCode.INVALID_CREDENTIALS,
-                      ERR_LDAP_PTA_MAPPED_SEARCH_TOO_MANY_CANDIDATES.get(
-                          userEntry.getName(), cfg.dn(), baseDN, filter));
-                default:
-                  // We don't want to propagate this internal error to the
-                  // client. We should log it and map it to a more appropriate
-                  // error.
-                  throw new DirectoryException(ResultCode.INVALID_CREDENTIALS,
-                      ERR_LDAP_PTA_MAPPED_SEARCH_FAILED.get(
-                          userEntry.getName(), cfg.dn(), e.getMessageObject()), e);
-                }
-              }
-              finally
+              if (simpleBind(cachedDN, password))
               {
-                StaticUtils.close(connection);
+                return true;
               }
+
+              // The password may be wrong, but the remote entry may also have
+              // been renamed: search again, and only bind again if it was.
+              removeCachedMappedDN(filterKey, cachedDN);
             }
 
-            if (username == null)
+            username = searchMappedDN(filter);
+            cacheMappedDN(filterKey, username);
+            if (username.equals(cachedDN))
             {
-              /* No matching entries were found in the remote directory. */
-              throw new DirectoryException(ResultCode.INVALID_CREDENTIALS,
-                  ERR_LDAP_PTA_MAPPED_SEARCH_NO_CANDIDATES.get(
-                      userEntry.getName(), cfg.dn(), filter));
+              return false;
             }
 
             break;
           }
 
-          // Now perform the bind.
-          try (Connection connection = bindFactory.getConnection())
-          {
-            connection.simpleBind(username, password);
+          return simpleBind(username, password);
+        }
+        finally
+        {
+          sharedLock.unlock();
+        }
+      }
 
-            // The password matched, so cache it, it will be stored in the
-            // user's entry when the state is finalized and only if caching is
-            // enabled.
-            newCachedPassword = password;
-            return true;
+      /**
+       * Searches the configured base DNs of the remote directory for the
+       * entry of the user, stopping at the first success.
+       */
+      private ByteString searchMappedDN(final SearchFilter filter)
+          throws DirectoryException
+      {
+        ByteString username = null;
+        for (final DN baseDN : cfg.getMappedSearchBaseDN())
+        {
+          Connection connection = null;
+          try
+          {
+            connection = searchFactory.getConnection();
+            username = connection.search(baseDN, SearchScope.WHOLE_SUBTREE,
+                filter);
           }
           catch (final DirectoryException e)
           {
             switch (e.getResultCode().asEnum())
             {
             case NO_SUCH_OBJECT:
-            case INVALID_CREDENTIALS:
-              return false;
+            case CLIENT_SIDE_NO_RESULTS_RETURNED:
+              // Ignore and try next base DN.
+              break;
+            case CLIENT_SIDE_UNEXPECTED_RESULTS_RETURNED:
+              // More than one matching entry was returned.
+              throw new DirectoryException(ResultCode.INVALID_CREDENTIALS,
+                  ERR_LDAP_PTA_MAPPED_SEARCH_TOO_MANY_CANDIDATES.get(
+                      userEntry.getName(), cfg.dn(), baseDN, filter));
             default:
               // We don't want to propagate this internal error to the
               // client. We should log it and map it to a more appropriate
               // error.
               throw new DirectoryException(ResultCode.INVALID_CREDENTIALS,
-                  ERR_LDAP_PTA_MAPPED_BIND_FAILED.get(
+                  ERR_LDAP_PTA_MAPPED_SEARCH_FAILED.get(
                       userEntry.getName(), cfg.dn(), e.getMessageObject()), e);
             }
           }
+          finally
+          {
+            StaticUtils.close(connection);
+          }
         }
-        finally
+
+        if (username == null)
         {
-          sharedLock.unlock();
+          /* No matching entries were found in the remote directory. */
+          throw new DirectoryException(ResultCode.INVALID_CREDENTIALS,
+              ERR_LDAP_PTA_MAPPED_SEARCH_NO_CANDIDATES.get(
+                  userEntry.getName(), cfg.dn(), filter));
+        }
+        return username;
+      }
+
+      /** Binds to the remote directory, returning {@code false} if the credentials are invalid. */
+      private boolean simpleBind(final ByteString username,
+          final ByteString password) throws DirectoryException
+      {
+        try (Connection connection = bindFactory.getConnection())
+        {
+          connection.simpleBind(username, password);
+
+          // The password matched, so cache it, it will be stored in the
+          // user's entry when the state is finalized and only if caching is
+          // enabled.
+          newCachedPassword = password;
+          return true;
+        }
+        catch (final DirectoryException e)
+        {
+          switch (e.getResultCode().asEnum())
+          {
+          case NO_SUCH_OBJECT:
+          case INVALID_CREDENTIALS:
+            return false;
+          default:
+            // We don't want to propagate this internal error to the
+            // client. We should log it and map it to a more appropriate
+            // error.
+            throw new DirectoryException(ResultCode.INVALID_CREDENTIALS,
+                ERR_LDAP_PTA_MAPPED_BIND_FAILED.get(
+                    userEntry.getName(), cfg.dn(), e.getMessageObject()), e);
+          }
         }
       }
 
@@ -1712,6 +1882,13 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
 
     private PasswordStorageScheme<?> pwdStorageScheme;
 
+    /**
+     * The DNs of the remote entries returned by the recent mapped searches,
+     * keyed by search filter. Cleared when the configuration changes, since
+     * the remote servers or the search base DNs may have changed.
+     */
+    private final ConcurrentMap<String, CachedMappedDN> mappedDNCache = new ConcurrentHashMap<>();
+
     private PolicyImpl(
         final LDAPPassThroughAuthenticationPolicyCfg configuration)
     {
@@ -1800,6 +1977,7 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
         final LDAPPassThroughAuthenticationPolicyCfg cfg)
     {
       this.cfg = cfg;
+      mappedDNCache.clear();
 
       // First obtain the mapped search password if needed, ignoring any errors
       // since these should have already been detected during configuration
@@ -1835,11 +2013,11 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
       for (final String hostPort : servers)
       {
         final ConnectionFactory factory = newLDAPConnectionFactory(hostPort);
-        searchPool[index] = new ConnectionPool(
+        searchPool[index] = newConnectionPool(
             new AuthenticatedConnectionFactory(factory,
                 cfg.getMappedSearchBindDN(),
                 mappedSearchPassword));
-        bindPool[index++] = new ConnectionPool(factory);
+        bindPool[index++] = newConnectionPool(factory);
       }
       primarySearchLoadBalancer = new RoundRobinLoadBalancer(searchPool,
           scheduler);
@@ -1860,11 +2038,11 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
         for (final String hostPort : servers)
         {
           final ConnectionFactory factory = newLDAPConnectionFactory(hostPort);
-          searchPool[index] = new ConnectionPool(
+          searchPool[index] = newConnectionPool(
               new AuthenticatedConnectionFactory(factory,
                   cfg.getMappedSearchBindDN(),
                   mappedSearchPassword));
-          bindPool[index++] = new ConnectionPool(factory);
+          bindPool[index++] = newConnectionPool(factory);
         }
         final RoundRobinLoadBalancer secondarySearchLoadBalancer =
           new RoundRobinLoadBalancer(searchPool, scheduler);
@@ -1883,6 +2061,67 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
       }
     }
 
+    private ByteString getCachedMappedDN(final String filter)
+    {
+      final CachedMappedDN cachedDN = mappedDNCache.get(filter);
+      if (cachedDN == null)
+      {
+        return null;
+      }
+      if (provider.getCurrentTimeMS() < cachedDN.expirationTime)
+      {
+        return cachedDN.dn;
+      }
+      mappedDNCache.remove(filter, cachedDN);
+      return null;
+    }
+
+    private void removeCachedMappedDN(final String filter, final ByteString dn)
+    {
+      final CachedMappedDN cachedDN = mappedDNCache.get(filter);
+      if (cachedDN != null && cachedDN.dn.equals(dn))
+      {
+        mappedDNCache.remove(filter, cachedDN);
+      }
+    }
+
+    private void cacheMappedDN(final String filter, final ByteString dn)
+    {
+      final long ttlMS = cfg.getMappedSearchCacheTTL() * 1000;
+      if (ttlMS <= 0)
+      {
+        return;
+      }
+
+      final long currentTimeMS = provider.getCurrentTimeMS();
+      if (mappedDNCache.size() >= MAX_CACHED_MAPPED_DNS)
+      {
+        // Make room by removing the expired DNs, or give up if there are none.
+        for (final Iterator<CachedMappedDN> it = mappedDNCache.values().iterator(); it.hasNext();)
+        {
+          if (currentTimeMS >= it.next().expirationTime)
+          {
+            it.remove();
+          }
+        }
+        if (mappedDNCache.size() >= MAX_CACHED_MAPPED_DNS)
+        {
+          return;
+        }
+      }
+      mappedDNCache.put(filter, new CachedMappedDN(dn, currentTimeMS + ttlMS));
+    }
+
+    private ConnectionPool newConnectionPool(final ConnectionFactory factory)
+    {
+      final Integer maxSize = cfg.getConnectionPoolMaxSize();
+      final int poolSize = maxSize != null
+          ? maxSize
+          : Runtime.getRuntime().availableProcessors() * 2;
+      return new ConnectionPool(factory, provider, poolSize,
+          cfg.getConnectionPoolIdleTimeout(), cfg.getHeartbeatInterval());
+    }
+
     private ConnectionFactory newLDAPConnectionFactory(final String hostPort)
     {
       // Validation already performed by admin framework.
@@ -1894,6 +2133,9 @@ public final class LDAPPassThroughAuthenticationPolicyFactory implements
   /** Debug tracer for this class. */
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** The maximum number of DNs returned by mapped searches kept by a policy. */
+  private static final int MAX_CACHED_MAPPED_DNS = 10000;
+
   /** Attribute list for searches requesting no attributes. */
   static final LinkedHashSet<String> NO_ATTRIBUTES = new LinkedHashSet<>(1);
   static
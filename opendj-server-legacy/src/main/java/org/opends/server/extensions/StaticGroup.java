@@ -19,9 +19,11 @@ package org.opends.server.extensions;
 import static com.forgerock.opendj.util.StaticUtils.getBytes;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -44,7 +46,6 @@ import org.forgerock.opendj.ldap.schema.Schema;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
 import org.forgerock.opendj.server.config.server.StaticGroupImplementationCfg;
 import org.forgerock.util.Reject;
-import org.forgerock.util.annotations.VisibleForTesting;
 import org.opends.server.api.Group;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.core.ModifyOperation;
@@ -344,6 +345,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       HashSet<CompactDn> newMemberDNs = new HashSet<>(memberDNs);
       newMemberDNs.add(new CompactDn(nestedGroupDN));
       memberDNs = newMemberDNs;
+      updateMembershipIndex(Collections.singletonList(nestedGroupDN), Collections.<DN> emptyList());
     }
     finally
     {
@@ -382,6 +384,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
       newMemberDNs.remove(new CompactDn(nestedGroupDN));
       memberDNs = newMemberDNs;
+      updateMembershipIndex(Collections.<DN> emptyList(), Collections.singletonList(nestedGroupDN));
     }
     finally
     {
@@ -549,6 +552,8 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
     Reject.ifNull(nestedGroups);
 
     reloadIfNeeded();
+    List<DN> addedMemberDNs = new ArrayList<>();
+    List<DN> removedMemberDNs = new ArrayList<>();
     lock.writeLock().lock();
     try
     {
@@ -564,6 +569,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
               {
                 DN member = DN.valueOf(v);
                 memberDNs.add(new CompactDn(member));
+                addedMemberDNs.add(member);
                 if (DirectoryServer.getGroupManager().getGroupInstance(member) != null)
                 {
                   nestedGroups.add(member);
@@ -573,8 +579,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
             case DELETE:
               if (attribute.isEmpty())
               {
-                memberDNs.clear();
-                nestedGroups.clear();
+                removeAllMembers(removedMemberDNs);
               }
               else
               {
@@ -582,17 +587,18 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
                 {
                   DN member = DN.valueOf(v);
                   memberDNs.remove(new CompactDn(member));
+                  removedMemberDNs.add(member);
                   nestedGroups.remove(member);
                 }
               }
               break;
             case REPLACE:
-              memberDNs.clear();
-              nestedGroups.clear();
+              removeAllMembers(removedMemberDNs);
               for (ByteString v : attribute)
               {
                 DN member = DN.valueOf(v);
                 memberDNs.add(new CompactDn(member));
+                addedMemberDNs.add(member);
                 if (DirectoryServer.getGroupManager().getGroupInstance(member) != null)
                 {
                   nestedGroups.add(member);
@@ -604,10 +610,50 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       }
     }
     finally {
+      // Also reflect the modifications applied before any failure, keeping only the net changes
+      // since a member may have been both added and removed
+      for (Iterator<DN> it = addedMemberDNs.iterator(); it.hasNext();)
+      {
+        if (!memberDNs.contains(new CompactDn(it.next())))
+        {
+          it.remove();
+        }
+      }
+      for (Iterator<DN> it = removedMemberDNs.iterator(); it.hasNext();)
+      {
+        if (memberDNs.contains(new CompactDn(it.next())))
+        {
+          it.remove();
+        }
+      }
+      updateMembershipIndex(addedMemberDNs, removedMemberDNs);
       lock.writeLock().unlock();
     }
   }
 
+  /** Removes all the members, adding them to the provided list. The caller must hold the write lock. */
+  private void removeAllMembers(List<DN> removedMemberDNs)
+  {
+    for (CompactDn compactDn : memberDNs)
+    {
+      removedMemberDNs.add(compactDn.toDn(serverContext));
+    }
+    memberDNs.clear();
+    nestedGroups.clear();
+  }
+
+  /**
+   * Reports the changes of the member list to the reverse membership index of the group manager.
+   * The caller must hold the write lock, so that changes are reported in order.
+   */
+  private void updateMembershipIndex(List<DN> addedMemberDNs, List<DN> removedMemberDNs)
+  {
+    if (!addedMemberDNs.isEmpty() || !removedMemberDNs.isEmpty())
+    {
+      DirectoryServer.getGroupManager().updateMembershipIndex(this, addedMemberDNs, removedMemberDNs);
+    }
+  }
+
   @Override
   public void addMember(Entry userEntry) throws UnsupportedOperationException, DirectoryException
   {
@@ -636,6 +682,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<CompactDn>(memberDNs);
       newMemberDNs.add(compactUserDN);
       memberDNs = newMemberDNs;
+      updateMembershipIndex(Collections.singletonList(userDN), Collections.<DN> emptyList());
     }
     finally
     {
@@ -669,6 +716,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
       LinkedHashSet<CompactDn> newMemberDNs = new LinkedHashSet<>(memberDNs);
       newMemberDNs.remove(compactUserDN);
       memberDNs = newMemberDNs;
+      updateMembershipIndex(Collections.<DN> emptyList(), Collections.singletonList(userDN));
       //If it is in the nested group list remove it.
       if (nestedGroups.contains(userDN))
       {
@@ -707,7 +755,7 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
    * <p>
    * The memory consumption compared to a regular DN object is minimal.
    */
-  static final class CompactDn implements Comparable<CompactDn>
+  public static final class CompactDn implements Comparable<CompactDn>
   {
     /** Original string corresponding to the DN. */
     private final byte[] originalValue;
@@ -718,8 +766,13 @@ public class StaticGroup extends Group<StaticGroupImplementationCfg>
      */
     private final byte[] normalizedValue;
 
-    @VisibleForTesting
-    CompactDn(DN dn)
+    /**
+     * Creates the compact representation of the provided DN.
+     *
+     * @param dn
+     *          The DN.
+     */
+    public CompactDn(DN dn)
     {
       this.originalValue = getBytes(dn.toString());
       this.normalizedValue = dn.toNormalizedByteString().toByteArray();
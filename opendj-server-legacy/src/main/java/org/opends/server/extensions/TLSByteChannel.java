@@ -24,6 +24,7 @@ import java.security.cert.Certificate;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
@@ -33,6 +34,7 @@ import javax.net.ssl.SSLPeerUnverifiedException;
 import javax.net.ssl.SSLSession;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.monitors.TLSHandshakeStatistics;
 
 /** A class that provides a TLS byte channel implementation. */
 public final class TLSByteChannel implements ConnectionSecurityProvider
@@ -233,12 +235,14 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
           {
             // Save the error - see abortOnSSLException().
             sslException = e;
+            handshakeFailed();
             throw e;
           }
           finally
           {
             recvUnwrappedBuffer.flip(); // Restore for read.
           }
+          checkHandshakeFinished(result);
 
           switch (result.getStatus())
           {
@@ -318,8 +322,10 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
           {
             // Save the error - see abortOnSSLException().
             sslException = e;
+            handshakeFailed();
             throw e;
           }
+          checkHandshakeFinished(result);
 
           switch (result.getStatus())
           {
@@ -359,6 +365,26 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
     {
       return status != HandshakeStatus.NOT_HANDSHAKING;
     }
+
+    /** Records the initial handshake once it has finished. */
+    private void checkHandshakeFinished(final SSLEngineResult result)
+    {
+      if (statistics != null && result.getHandshakeStatus() == HandshakeStatus.FINISHED
+          && handshakeRecorded.compareAndSet(false, true))
+      {
+        statistics.recordHandshake(System.nanoTime() - handshakeStartNanos,
+            TLSHandshakeStatistics.isResumed(sslEngine.getSession(), handshakeStartTime));
+      }
+    }
+
+    /** Records the failure of the initial handshake. */
+    private void handshakeFailed()
+    {
+      if (statistics != null && handshakeRecorded.compareAndSet(false, true))
+      {
+        statistics.recordFailedHandshake();
+      }
+    }
   }
 
   /**
@@ -402,6 +428,13 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
   private final ByteChannel channel;
   private final SSLEngine sslEngine;
 
+  /** The statistics about the handshakes, or {@code null} if they are not collected. */
+  private final TLSHandshakeStatistics statistics;
+  private final long handshakeStartTime;
+  private final long handshakeStartNanos;
+  /** Whether the initial handshake has been recorded. */
+  private final AtomicBoolean handshakeRecorded = new AtomicBoolean();
+
   private volatile SSLException sslException;
   private ByteBuffer recvWrappedBuffer;
   private ByteBuffer recvUnwrappedBuffer;
@@ -424,9 +457,31 @@ public final class TLSByteChannel implements ConnectionSecurityProvider
    *          The SSL engine to use.
    */
   public TLSByteChannel(final ByteChannel channel, final SSLEngine sslEngine)
+  {
+    this(channel, sslEngine, null);
+  }
+
+  /**
+   * Creates an TLS byte channel instance using the specified SSL engine and
+   * underlying channel, and recording its initial handshake in the provided
+   * statistics.
+   *
+   * @param channel
+   *          The underlying channel.
+   * @param sslEngine
+   *          The SSL engine to use.
+   * @param statistics
+   *          The statistics in which the initial handshake is recorded, or
+   *          {@code null} if it should not be recorded.
+   */
+  public TLSByteChannel(final ByteChannel channel, final SSLEngine sslEngine,
+      final TLSHandshakeStatistics statistics)
   {
     this.channel = channel;
     this.sslEngine = sslEngine;
+    this.statistics = statistics;
+    this.handshakeStartTime = System.currentTimeMillis();
+    this.handshakeStartNanos = System.nanoTime();
 
     // Allocate read/write buffers.
     final SSLSession session = sslEngine.getSession();
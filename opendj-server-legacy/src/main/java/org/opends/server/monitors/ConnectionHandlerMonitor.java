@@ -21,6 +21,7 @@ import static org.opends.server.util.ServerConstants.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.opendj.server.config.server.ConnectionHandlerCfg;
 import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
@@ -122,6 +123,28 @@ public class ConnectionHandlerMonitor
       attrs.add(ATTR_MONITOR_CONNHANDLER_CONNECTION, connectionSummaries);
     }
 
+    final TLSHandshakeStatistics tlsStatistics = connectionHandler.getTLSHandshakeStatistics();
+    if (tlsStatistics != null)
+    {
+      addTLSHandshakeStatistics(attrs, tlsStatistics);
+    }
+
     return attrs;
   }
+
+  private void addTLSHandshakeStatistics(MonitorData attrs, TLSHandshakeStatistics tlsStatistics)
+  {
+    final long handshakes = tlsStatistics.getHandshakes();
+    final long resumedHandshakes = tlsStatistics.getResumedHandshakes();
+    attrs.add(ATTR_MONITOR_CONNHANDLER_TLS_HANDSHAKES, handshakes);
+    attrs.add(ATTR_MONITOR_CONNHANDLER_TLS_RESUMED_HANDSHAKES, resumedHandshakes);
+    attrs.add(ATTR_MONITOR_CONNHANDLER_TLS_FAILED_HANDSHAKES, tlsStatistics.getFailedHandshakes());
+    attrs.add(ATTR_MONITOR_CONNHANDLER_TLS_RESUMPTION_RATIO,
+        handshakes > 0 ? (double) resumedHandshakes / handshakes : 0);
+    attrs.add(ATTR_MONITOR_CONNHANDLER_TLS_AVERAGE_HANDSHAKE_TIME,
+        handshakes > 0 ? (double) tlsStatistics.getHandshakeTimeNanos() / handshakes / TimeUnit.MILLISECONDS.toNanos(1)
+                       : 0);
+    attrs.add(ATTR_MONITOR_CONNHANDLER_TLS_MAX_HANDSHAKE_TIME,
+        TimeUnit.NANOSECONDS.toMillis(tlsStatistics.getMaxHandshakeTimeNanos()));
+  }
 }
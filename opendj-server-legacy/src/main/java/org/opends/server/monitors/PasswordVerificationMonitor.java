@@ -0,0 +1,87 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.monitors;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.server.config.server.MonitorProviderCfg;
+import org.opends.server.api.MonitorData;
+import org.opends.server.api.MonitorProvider;
+import org.opends.server.core.PasswordVerifier;
+
+/**
+ * This class defines a Directory Server monitor that provides information
+ * about the verification of the passwords provided by users, and about the
+ * caches of verified passwords.
+ */
+public class PasswordVerificationMonitor
+       extends MonitorProvider<MonitorProviderCfg>
+{
+  /** The name of the monitor attribute providing the number of password verification threads. */
+  public static final String ATTR_THREAD_COUNT = "passwordVerificationThreads";
+  /** The name of the monitor attribute providing the number of verifications waiting for their turn. */
+  public static final String ATTR_PENDING_VERIFICATIONS = "pendingPasswordVerifications";
+  /** The name of the monitor attribute providing the number of password verifications. */
+  public static final String ATTR_VERIFICATIONS = "passwordVerifications";
+  /** The name of the monitor attribute providing the average password verification time. */
+  public static final String ATTR_AVERAGE_VERIFICATION_TIME = "averagePasswordVerificationTimeMillis";
+  /** The name of the monitor attribute providing the longest password verification time. */
+  public static final String ATTR_MAX_VERIFICATION_TIME = "maxPasswordVerificationTimeMillis";
+  /** The name of the monitor attribute providing the number of hits in the verified password caches. */
+  public static final String ATTR_CACHE_HITS = "verifiedPasswordCacheHits";
+  /** The name of the monitor attribute providing the number of misses in the verified password caches. */
+  public static final String ATTR_CACHE_MISSES = "verifiedPasswordCacheMisses";
+
+  /** The password verifier with which this monitor is associated. */
+  private final PasswordVerifier verifier;
+
+  /**
+   * Creates a new password verification monitor.
+   *
+   * @param verifier
+   *          The password verifier with which this monitor is associated.
+   */
+  public PasswordVerificationMonitor(PasswordVerifier verifier)
+  {
+    this.verifier = verifier;
+  }
+
+  @Override
+  public String getMonitorInstanceName()
+  {
+    return "Password Verification";
+  }
+
+  @Override
+  public MonitorData getMonitorData()
+  {
+    final long verifications = verifier.getVerifications();
+    final double averageTime = verifications > 0
+        ? (double) verifier.getVerificationTimeNanos() / verifications / TimeUnit.MILLISECONDS.toNanos(1)
+        : 0;
+
+    final MonitorData monitorAttrs = new MonitorData(7);
+    monitorAttrs.add(ATTR_THREAD_COUNT, verifier.getThreadCount());
+    monitorAttrs.add(ATTR_PENDING_VERIFICATIONS, verifier.getPendingVerifications());
+    monitorAttrs.add(ATTR_VERIFICATIONS, verifications);
+    monitorAttrs.add(ATTR_AVERAGE_VERIFICATION_TIME, averageTime);
+    monitorAttrs.add(ATTR_MAX_VERIFICATION_TIME,
+        TimeUnit.NANOSECONDS.toMillis(verifier.getMaxVerificationTimeNanos()));
+    monitorAttrs.add(ATTR_CACHE_HITS, verifier.getCacheHits());
+    monitorAttrs.add(ATTR_CACHE_MISSES, verifier.getCacheMisses());
+    return monitorAttrs;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.monitors;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * Collects statistics about the SSL/TLS handshakes performed by a connection
+ * handler, and in particular about the proportion of the handshakes which
+ * resumed a previous session instead of performing a full handshake.
+ * <p>
+ * This class is thread safe.
+ */
+public final class TLSHandshakeStatistics
+{
+  private final AtomicLong handshakes = new AtomicLong();
+  private final AtomicLong resumedHandshakes = new AtomicLong();
+  private final AtomicLong failedHandshakes = new AtomicLong();
+  private final AtomicLong handshakeTimeNanos = new AtomicLong();
+  private final AtomicLong maxHandshakeTimeNanos = new AtomicLong();
+
+  /**
+   * Indicates whether a handshake resumed a previous session. The session of
+   * a resumed handshake was created before the handshake started, whereas
+   * a full handshake creates a new session.
+   *
+   * @param session
+   *          The session established by the handshake.
+   * @param handshakeStartTime
+   *          The time at which the handshake started, in milliseconds.
+   * @return {@code true} if the handshake resumed a previous session.
+   */
+  public static boolean isResumed(SSLSession session, long handshakeStartTime)
+  {
+    return session.getCreationTime() < handshakeStartTime;
+  }
+
+  /**
+   * Records a successful handshake.
+   *
+   * @param timeNanos
+   *          The duration of the handshake, in nanoseconds.
+   * @param resumed
+   *          Whether the handshake resumed a previous session.
+   */
+  public void recordHandshake(long timeNanos, boolean resumed)
+  {
+    handshakes.incrementAndGet();
+    if (resumed)
+    {
+      resumedHandshakes.incrementAndGet();
+    }
+    handshakeTimeNanos.addAndGet(timeNanos);
+    long max = maxHandshakeTimeNanos.get();
+    while (timeNanos > max && !maxHandshakeTimeNanos.compareAndSet(max, timeNanos))
+    {
+      max = maxHandshakeTimeNanos.get();
+    }
+  }
+
+  /** Records a handshake which failed. */
+  public void recordFailedHandshake()
+  {
+    failedHandshakes.incrementAndGet();
+  }
+
+  /**
+   * Returns the number of successful handshakes.
+   *
+   * @return The number of successful handshakes.
+   */
+  public long getHandshakes()
+  {
+    return handshakes.get();
+  }
+
+  /**
+   * Returns the number of successful handshakes which resumed a previous
+   * session.
+   *
+   * @return The number of resumed handshakes.
+   */
+  public long getResumedHandshakes()
+  {
+    return resumedHandshakes.get();
+  }
+
+  /**
+   * Returns the number of handshakes which failed.
+   *
+   * @return The number of failed handshakes.
+   */
+  public long getFailedHandshakes()
+  {
+    return failedHandshakes.get();
+  }
+
+  /**
+   * Returns the total time spent in successful handshakes.
+   *
+   * @return The total time spent in successful handshakes, in nanoseconds.
+   */
+  public long getHandshakeTimeNanos()
+  {
+    return handshakeTimeNanos.get();
+  }
+
+  /**
+   * Returns the duration of the longest successful handshake.
+   *
+   * @return The duration of the longest successful handshake, in nanoseconds.
+   */
+  public long getMaxHandshakeTimeNanos()
+  {
+    return maxHandshakeTimeNanos.get();
+  }
+}
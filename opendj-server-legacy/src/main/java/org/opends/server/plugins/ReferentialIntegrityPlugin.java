@@ -17,6 +17,7 @@
  */
 package org.opends.server.plugins;
 
+import static org.forgerock.util.Utils.*;
 import static org.opends.messages.PluginMessages.*;
 import static org.opends.server.core.BackendConfigManager.NamingContextFilter.PUBLIC;
 import static org.opends.server.core.BackendConfigManager.NamingContextFilter.TOP_LEVEL;
@@ -25,12 +26,19 @@ import static org.opends.server.protocols.internal.Requests.*;
 import static org.opends.server.schema.SchemaConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -39,6 +47,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
@@ -121,7 +135,7 @@ public class ReferentialIntegrityPlugin
   private long interval;
 
   /** The flag used by the background thread to check if it should exit. */
-  private boolean stopRequested;
+  private volatile boolean stopRequested;
 
   /** The thread name. */
   private static final String name =
@@ -137,6 +151,21 @@ public class ReferentialIntegrityPlugin
   /** The File class that logfile corresponds to. */
   private File logFile;
 
+  /**
+   * The file holding the offset in the log file of the first record that
+   * has not been processed yet by the background thread.
+   */
+  private File checkpointFile;
+
+  /** The suffix appended to the log file name to name the checkpoint file. */
+  private static final String CHECKPOINT_FILE_SUFFIX = ".checkpoint";
+
+  /** The maximum number of entry DNs whose references are looked up at once. */
+  private static final int MAX_BATCH_SIZE = 100;
+
+  /** The threads updating the referencing entries in parallel. */
+  private ThreadPoolExecutor updateExecutor;
+
   /** The Thread class that the background thread corresponds to. */
   private Thread backGroundThread;
 
@@ -175,6 +204,11 @@ public class ReferentialIntegrityPlugin
 
     applyConfigurationChange(pluginCfg);
 
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    updateExecutor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(), newThreadFactory(null, "Referential Integrity Updater %d", true));
+    updateExecutor.allowCoreThreadTimeOut(true);
+
     // Set up log file. Note: it is not allowed to change once the plugin is active.
     setUpLogFile(pluginCfg.getLogFile());
     interval=pluginCfg.getUpdateInterval();
@@ -527,31 +561,26 @@ public class ReferentialIntegrityPlugin
       }
       else
       {
-        for(DN baseDN : getBaseDNsToSearch())
-        {
-          doBaseDN(baseDN, modDNMap);
-        }
+        processChanges(modDNMap);
       }
     }
   }
 
   /**
-   * Used by both the background thread and the delete post operation to
-   * process a delete operation on the specified entry DN.  The
-   * boolean "log" is used to determine if the DN is written to the log file
-   * for the background thread to pick up. This value is set to false if the
-   * background thread is processing changes. If this method is being called
-   * by a delete post operation, then setting the "log" value to false will
-   * cause the DN to be processed in foreground
+   * Used by the delete post operation to process a delete operation on the
+   * specified entry DNs.  The boolean "log" is used to determine if the DNs
+   * are written to the log file for the background thread to pick up.
+   * Setting the "log" value to false will cause the DNs to be processed in
+   * foreground.
    * <p>
-   * If the DN is to be processed, than each base DN or public naming
+   * If the DNs are to be processed, than each base DN or public naming
    * context (if the base DN configuration is empty) is checked to see if
-   * entries under it contain references to the deleted entry DN that need
+   * entries under it contain references to the deleted entry DNs that need
    * to be removed.
    *
-   * @param entryDN  The DN of the deleted entry.
+   * @param deleteDNset  The DNs of the deleted entries.
    *
-   * @param log Set to <code>true</code> if the DN should be written to a log
+   * @param log Set to <code>true</code> if the DNs should be written to a log
    *            file so that the background thread can process the change at
    *            a later time.
    */
@@ -563,29 +592,70 @@ public class ReferentialIntegrityPlugin
     }
     else
     {
-      for(DN baseDN : getBaseDNsToSearch())
+      Map<DN, DN> changes = new LinkedHashMap<>();
+      for (DN deletedEntryDN : deleteDNset)
       {
-        doBaseDN(baseDN, deleteDNset);
+        changes.put(deletedEntryDN, null);
       }
+      processChanges(changes);
     }
   }
 
   /**
-   * Used by the background thread to process the specified old entry DN and
-   * new entry DN. Each base DN or public naming context (if the base DN
-   * configuration is empty) is checked to see  if they contain entries with
-   * references to the old entry DN that need to be changed to the new entry DN.
+   * Processes the specified changes in batches of at most
+   * {@link #MAX_BATCH_SIZE} entry DNs.
    *
-   * @param oldEntryDN  The entry DN before the modify DN operation.
+   * @param changes The map of old entry DNs to new entry DNs. The new entry
+   *                DNs are <code>null</code> for deleted entries.
+   */
+  private void processChanges(Map<DN, DN> changes)
+  {
+    Map<DN, DN> batch = new LinkedHashMap<>();
+    for (Map.Entry<DN, DN> change : changes.entrySet())
+    {
+      batch.put(change.getKey(), change.getValue());
+      if (batch.size() >= MAX_BATCH_SIZE)
+      {
+        processBatch(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty())
+    {
+      processBatch(batch);
+    }
+  }
+
+  /**
+   * Processes a batch of changes. The entries referencing any of the old
+   * entry DNs are looked up at once under each base DN or public naming
+   * context (if the base DN configuration is empty). Each referencing entry
+   * is then updated with a single modification for all the changes, in
+   * parallel with the other referencing entries.
    *
-   * @param newEntryDN The entry DN after the modify DN operation.
+   * @param batch The map of old entry DNs to new entry DNs. The new entry
+   *              DNs are <code>null</code> for deleted entries.
    */
-  private void processModifyDN(DN oldEntryDN, DN newEntryDN)
+  private void processBatch(Map<DN, DN> batch)
   {
-    for(DN baseDN : getBaseDNsToSearch())
+    List<ByteString> oldValues = new ArrayList<>(batch.size());
+    for (DN oldEntryDN : batch.keySet())
+    {
+      oldValues.add(ByteString.valueOfUtf8(oldEntryDN.toString()));
+    }
+
+    Map<DN, Entry> referencingEntries = new LinkedHashMap<>();
+    for (DN baseDN : getBaseDNsToSearch())
     {
-      searchBaseDN(baseDN, oldEntryDN, newEntryDN);
+      for (Entry e : findReferencingEntries(baseDN, oldValues))
+      {
+        if (!referencingEntries.containsKey(e.getName()))
+        {
+          referencingEntries.put(e.getName(), e);
+        }
+      }
     }
+    updateReferencingEntries(referencingEntries.values(), batch);
   }
 
   /**
@@ -606,27 +676,48 @@ public class ReferentialIntegrityPlugin
   }
 
   /**
-   * Search a base DN using a filter built from the configured attribute
-   * types and the specified old entry DN. For each entry that is found from
-   * the search, delete the old entry DN from the entry. If the new entry
-   * DN is not null, then add it to the entry.
+   * Retrieves the entries below a base DN which have one of the specified
+   * old entry DNs as a value of one of the configured attribute types. The
+   * values are looked up directly in the equality indexes of the backend
+   * when possible, or else with a single search.
    *
    * @param baseDN  The DN to base the search at.
    *
-   * @param oldEntryDN The old entry DN that needs to be deleted or replaced.
+   * @param oldValues The old entry DNs that need to be deleted or replaced.
    *
-   * @param newEntryDN The new entry DN that needs to be added. May be null
-   *                   if the original operation was a delete.
+   * @return The referencing entries, which may be empty.
    */
-  private void searchBaseDN(DN baseDN, DN oldEntryDN, DN newEntryDN)
+  private List<? extends Entry> findReferencingEntries(DN baseDN, List<ByteString> oldValues)
   {
+    BackendConfigManager backendConfigManager =
+        DirectoryServer.getInstance().getServerContext().getBackendConfigManager();
+    LocalBackend<?> b = backendConfigManager.findLocalBackendForEntry(baseDN);
+    if (b != null && backendConfigManager.getSubordinateBackends(b).isEmpty())
+    {
+      try
+      {
+        List<Entry> entries = b.getEntriesMatchingValues(baseDN, attributeTypes, oldValues);
+        if (entries != null)
+        {
+          return entries;
+        }
+      }
+      catch (DirectoryException de)
+      {
+        // Fall back to a search, which will report the error if it persists.
+        logger.traceException(de);
+      }
+    }
+
     //Build an equality search with all of the configured attribute types
-    //and the old entry DN.
-    HashSet<SearchFilter> componentFilters=new HashSet<>();
+    //and the old entry DNs.
+    List<SearchFilter> componentFilters = new ArrayList<>(attributeTypes.size() * oldValues.size());
     for(AttributeType attributeType : attributeTypes)
     {
-      componentFilters.add(SearchFilter.createEqualityFilter(attributeType,
-          ByteString.valueOfUtf8(oldEntryDN.toString())));
+      for (ByteString oldValue : oldValues)
+      {
+        componentFilters.add(SearchFilter.createEqualityFilter(attributeType, oldValue));
+      }
     }
 
     SearchFilter orFilter = SearchFilter.createORFilter(componentFilters);
@@ -636,73 +727,97 @@ public class ReferentialIntegrityPlugin
     switch (operation.getResultCode().asEnum())
     {
       case SUCCESS:
-        break;
+        return operation.getSearchEntries();
 
       case NO_SUCH_OBJECT:
         logger.debug(INFO_PLUGIN_REFERENT_SEARCH_NO_SUCH_OBJECT, baseDN);
-        return;
+        return Collections.emptyList();
 
       default:
         logger.error(ERR_PLUGIN_REFERENT_SEARCH_FAILED, operation.getErrorMessage());
-        return;
-    }
-
-    for (SearchResultEntry entry : operation.getSearchEntries())
-    {
-      deleteAddAttributesEntry(entry, oldEntryDN, newEntryDN);
+        return Collections.emptyList();
     }
   }
 
   /**
-   * This method is used in foreground processing of a modify DN operation.
-   * It uses the specified map to perform base DN searching for each map
-   * entry. The key is the old entry DN and the value is the
-   * new entry DN.
+   * Updates the specified referencing entries. The entries are independent
+   * from each other, so they are updated in parallel when there are several
+   * of them.
    *
-   * @param baseDN The DN to base the search at.
+   * @param entries The entries that contain the old references.
    *
-   * @param modifyDNmap The map containing the modify DN old and new entry DNs.
+   * @param changes The map of old entry DNs to new entry DNs.
    */
-  private void doBaseDN(DN baseDN, Map<DN,DN> modifyDNmap)
+  private void updateReferencingEntries(Collection<Entry> entries, final Map<DN, DN> changes)
   {
-    for(Map.Entry<DN,DN> mapEntry: modifyDNmap.entrySet())
+    List<Future<?>> futures = new ArrayList<>(entries.size());
+    for (final Entry e : entries)
     {
-      searchBaseDN(baseDN, mapEntry.getKey(), mapEntry.getValue());
+      if (entries.size() > 1)
+      {
+        try
+        {
+          futures.add(updateExecutor.submit(new Runnable()
+          {
+            @Override
+            public void run()
+            {
+              deleteAddAttributesEntry(e, changes);
+            }
+          }));
+          continue;
+        }
+        catch (RejectedExecutionException ree)
+        {
+          // The plugin is being finalized.
+          logger.traceException(ree);
+        }
+      }
+      deleteAddAttributesEntry(e, changes);
     }
-  }
 
-  /**
-   * This method is used in foreground processing of a delete operation.
-   * It uses the specified set to perform base DN searching for each
-   * element.
-   *
-   * @param baseDN The DN to base the search at.
-   *
-   * @param deleteDNset The set containing the delete DNs.
-   */
-  private void doBaseDN(DN baseDN, Set<DN> deleteDNset)
-  {
-    for(DN deletedEntryDN : deleteDNset)
+    boolean interrupted = false;
+    for (Future<?> future : futures)
     {
-      searchBaseDN(baseDN, deletedEntryDN, null);
+      while (true)
+      {
+        try
+        {
+          future.get();
+          break;
+        }
+        catch (InterruptedException ie)
+        {
+          // Interval changes and shutdowns interrupt the background thread,
+          // it will process them once the current batch is finished.
+          interrupted = true;
+        }
+        catch (ExecutionException ee)
+        {
+          logger.traceException(ee);
+          break;
+        }
+      }
+    }
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
     }
   }
 
   /**
-   * For each attribute type, delete the specified old entry DN and
-   * optionally add the specified new entry DN if the DN is not null.
+   * For each attribute type and each change, delete the old entry DN and
+   * optionally add the new entry DN if it is not null.
    * The specified entry is used to see if it contains each attribute type so
-   * those types that the entry contains can be modified. An internal modify
-   * is performed to change the entry.
+   * those types that the entry contains can be modified. A single internal
+   * modify is performed to change the entry.
    *
    * @param e The entry that contains the old references.
    *
-   * @param oldEntryDN The old entry DN to remove references to.
-   *
-   * @param newEntryDN The new entry DN to add a reference to, if it is not
-   *                   null.
+   * @param changes The map of old entry DNs to remove references to, and of
+   *                new entry DNs to add a reference to if they are not null.
    */
-  private void deleteAddAttributesEntry(Entry e, DN oldEntryDN, DN newEntryDN)
+  private void deleteAddAttributesEntry(Entry e, Map<DN, DN> changes)
   {
     LinkedList<Modification> mods = new LinkedList<>();
     DN entryDN=e.getName();
@@ -710,21 +825,29 @@ public class ReferentialIntegrityPlugin
     {
       if(e.hasAttribute(type))
       {
-        ByteString value = ByteString.valueOfUtf8(oldEntryDN.toString());
-        if (e.hasValue(type, value))
+        for (Map.Entry<DN, DN> change : changes.entrySet())
         {
-          mods.add(new Modification(ModificationType.DELETE, Attributes
-              .create(type, value)));
-
-          // If the new entry DN exists, create an ADD modification for it.
-          if(newEntryDN != null)
+          ByteString value = ByteString.valueOfUtf8(change.getKey().toString());
+          if (e.hasValue(type, value))
           {
-            mods.add(new Modification(ModificationType.ADD, Attributes
-                .create(type, newEntryDN.toString())));
+            mods.add(new Modification(ModificationType.DELETE, Attributes
+                .create(type, value)));
+
+            // If the new entry DN exists, create an ADD modification for it.
+            DN newEntryDN = change.getValue();
+            if(newEntryDN != null)
+            {
+              mods.add(new Modification(ModificationType.ADD, Attributes
+                  .create(type, newEntryDN.toString())));
+            }
           }
         }
       }
     }
+    if (mods.isEmpty())
+    {
+      return;
+    }
 
     InternalClientConnection conn =
             InternalClientConnection.getRootConnection();
@@ -740,7 +863,8 @@ public class ReferentialIntegrityPlugin
    * Sets up the log file that the plugin can write update recored to and
    * the background thread can use to read update records from. The specified
    * log file name is the name to use for the file. If the file exists from
-   * a previous run, use it.
+   * a previous run, use it, without the end of its last record if that record
+   * was not completely written.
    *
    * @param logFileName The name of the file to use, may be absolute.
    *
@@ -751,6 +875,7 @@ public class ReferentialIntegrityPlugin
   {
     this.logFileName=logFileName;
     logFile=getFileForPath(logFileName);
+    checkpointFile=new File(logFile.getPath() + CHECKPOINT_FILE_SUFFIX);
 
     try
     {
@@ -758,21 +883,49 @@ public class ReferentialIntegrityPlugin
       {
         logFile.createNewFile();
       }
+      else
+      {
+        removeIncompleteRecord();
+      }
     }
     catch (IOException io)
     {
       throw new ConfigException(ERR_PLUGIN_REFERENT_CREATE_LOGFILE.get(
                                      io.getMessage()), io);
     }
+
+    if (readCheckpoint() > logFile.length())
+    {
+      // The log file has been replaced.
+      writeCheckpoint(0);
+    }
   }
 
   /**
-   * Returns a buffered writer that the plugin can use to write update records with.
+   * Removes the end of the last record of the log file if it does not end
+   * with a line separator, because the server stopped while writing it.
    *
-   * @throws IOException If a new file writer cannot be created.
+   * @throws IOException If the log file cannot be truncated.
    */
-  private BufferedWriter setupWriter() throws IOException {
-    return new BufferedWriter(new FileWriter(logFile, true));
+  private void removeIncompleteRecord() throws IOException
+  {
+    try (RandomAccessFile file = new RandomAccessFile(logFile, "rw"))
+    {
+      long length = file.length();
+      while (length > 0)
+      {
+        file.seek(length - 1);
+        if (file.read() == '\n')
+        {
+          break;
+        }
+        length--;
+      }
+      if (length != file.length())
+      {
+        file.setLength(length);
+      }
+    }
   }
 
   /**
@@ -785,39 +938,42 @@ public class ReferentialIntegrityPlugin
    * @param modDNmap The map of old entry and new entry DNs.
    */
   private void writeLog(Map<DN,DN> modDNmap) {
-    synchronized(logFile)
+    StringBuilder records = new StringBuilder();
+    for(Map.Entry<DN,DN> mapEntry : modDNmap.entrySet())
     {
-      try (BufferedWriter writer = setupWriter())
-      {
-        for(Map.Entry<DN,DN> mapEntry : modDNmap.entrySet())
-        {
-          writer.write(mapEntry.getKey() + "\t" + mapEntry.getValue());
-          writer.newLine();
-        }
-      }
-      catch (IOException io)
-      {
-        logger.error(ERR_PLUGIN_REFERENT_CLOSE_LOGFILE, io.getMessage());
-      }
+      records.append(mapEntry.getKey()).append('\t').append(mapEntry.getValue()).append('\n');
     }
+    appendToLog(records);
   }
 
   /**
    * Write the specified entry DNs to the log file.
    * These entry DNs are related to a delete operation.
    *
-   * @param deletedEntryDN The DN of the deleted entry.
+   * @param deleteDNset The DNs of the deleted entries.
    */
   private void writeLog(Set<DN> deleteDNset) {
+    StringBuilder records = new StringBuilder();
+    for (DN deletedEntryDN : deleteDNset)
+    {
+      records.append(deletedEntryDN).append('\n');
+    }
+    appendToLog(records);
+  }
+
+  /**
+   * Appends the specified records to the log file, and forces them to disk
+   * so that they survive a crash of the server.
+   *
+   * @param records The records to append.
+   */
+  private void appendToLog(StringBuilder records) {
     synchronized(logFile)
     {
-      try (BufferedWriter writer = setupWriter())
+      try (FileOutputStream out = new FileOutputStream(logFile, true))
       {
-        for (DN deletedEntryDN : deleteDNset)
-        {
-          writer.write(deletedEntryDN.toString());
-          writer.newLine();
-        }
+        out.write(records.toString().getBytes(StandardCharsets.UTF_8));
+        out.getFD().sync();
       }
       catch (IOException io)
       {
@@ -827,46 +983,181 @@ public class ReferentialIntegrityPlugin
   }
 
   /**
-   * Process all of the records in the log file. Each line of the file is read
-   * and parsed to determine if it was a delete operation (a single normalized
-   * DN) or a modify DN operation (two normalized DNs separated by a tab). The
-   * corresponding operation method is called to perform the referential
-   * integrity processing as though the operation was just processed. After
-   * all of the records in log file have been processed, the log file is
-   * cleared so that new records can be added.
+   * Returns the offset in the log file of the first record that has not been
+   * processed yet.
+   *
+   * @return The offset saved in the checkpoint file, or 0 if there is none.
+   */
+  private long readCheckpoint()
+  {
+    if (!checkpointFile.exists())
+    {
+      return 0;
+    }
+    try
+    {
+      return Long.parseLong(
+          new String(Files.readAllBytes(checkpointFile.toPath()), StandardCharsets.UTF_8).trim());
+    }
+    catch (IOException | NumberFormatException e)
+    {
+      // Processing the records again is harmless.
+      logger.traceException(e);
+      return 0;
+    }
+  }
+
+  /**
+   * Saves the offset in the log file of the first record that has not been
+   * processed yet. The checkpoint file is replaced atomically, so that it is
+   * never lost or partially written.
+   *
+   * @param offset The offset to save.
+   * @return <code>true</code> if the offset has been saved.
+   */
+  private boolean writeCheckpoint(long offset)
+  {
+    File tmpFile = new File(checkpointFile.getPath() + ".tmp");
+    try
+    {
+      try (FileOutputStream out = new FileOutputStream(tmpFile))
+      {
+        out.write(Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+        out.getFD().sync();
+      }
+      Files.move(tmpFile.toPath(), checkpointFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      return true;
+    }
+    catch (IOException io)
+    {
+      logger.error(ERR_PLUGIN_REFERENT_WRITE_CHECKPOINT, checkpointFile, io.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Process the records of the log file that have not been processed yet.
+   * Each line of the file is read and parsed to determine if it was a delete
+   * operation (a single normalized DN) or a modify DN operation (two
+   * normalized DNs separated by a tab). The records are processed in batches
+   * as though the operations were just processed, and the offset of the
+   * first record not processed yet is saved in the checkpoint file after
+   * each batch, so that the records can still be appended to the log file
+   * meanwhile, and a restarted server resumes processing where it stopped.
+   * After all of the records in log file have been processed, the log file
+   * is cleared.
    */
   private void processLog() {
-    synchronized(logFile) {
-      try {
-        if(logFile.length() == 0)
+    final long end;
+    synchronized(logFile)
+    {
+      end = logFile.length();
+    }
+    long offset = readCheckpoint();
+    if (offset > end)
+    {
+      offset = 0;
+    }
+
+    try (InputStream in = new BufferedInputStream(new FileInputStream(logFile)))
+    {
+      for (long skipped = 0; skipped < offset;)
+      {
+        skipped += in.skip(offset - skipped);
+      }
+
+      Map<DN, DN> batch = new LinkedHashMap<>();
+      Set<DN> batchNewDNs = new HashSet<>();
+      ByteArrayOutputStream record = new ByteArrayOutputStream();
+      int b;
+      while (offset < end && !isShuttingDown() && (b = in.read()) != -1)
+      {
+        offset++;
+        if (b != '\n')
         {
-          return;
+          record.write(b);
+          continue;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(logFile)))
+        long recordOffset = offset - record.size() - 1;
+        String line = record.toString(StandardCharsets.UTF_8.name());
+        record.reset();
+        if (line.isEmpty())
         {
-          String line;
-          while((line=reader.readLine()) != null) {
-            try {
-              String[] a=line.split("[\t]");
-              DN origDn = DN.valueOf(a[0]);
-              //If there is only a single DN string than it must be a delete.
-              if(a.length == 1) {
-                processDelete(Collections.singleton(origDn), false);
-              } else {
-                DN movedDN=DN.valueOf(a[1]);
-                processModifyDN(origDn, movedDN);
-              }
-            } catch (LocalizedIllegalArgumentException e) {
-              //This exception should rarely happen since the plugin wrote the DN
-              //strings originally.
-              logger.error(ERR_PLUGIN_REFERENT_CANNOT_DECODE_STRING_AS_DN, e.getMessage());
-            }
+          continue;
+        }
+        try {
+          String[] a=line.split("[\t]");
+          DN origDn = DN.valueOf(a[0]);
+          //If there is only a single DN string than it must be a delete.
+          DN movedDN = a.length == 1 ? null : DN.valueOf(a[1]);
+
+          // A record about an entry DN changed by a previous record of the
+          // batch must be processed once that record has been processed.
+          if (batch.size() >= MAX_BATCH_SIZE
+              || batch.containsKey(origDn)
+              || batchNewDNs.contains(origDn))
+          {
+            processBatch(batch);
+            writeCheckpoint(recordOffset);
+            batch.clear();
+            batchNewDNs.clear();
+          }
+          batch.put(origDn, movedDN);
+          if (movedDN != null)
+          {
+            batchNewDNs.add(movedDN);
           }
+        } catch (LocalizedIllegalArgumentException e) {
+          //This exception should rarely happen since the plugin wrote the DN
+          //strings originally.
+          logger.error(ERR_PLUGIN_REFERENT_CANNOT_DECODE_STRING_AS_DN, e.getMessage());
         }
-        logFile.delete();
-        logFile.createNewFile();
-      } catch (IOException io) {
+      }
+
+      if (isShuttingDown())
+      {
+        // The current batch will be processed again after the restart.
+        return;
+      }
+      if (!batch.isEmpty())
+      {
+        processBatch(batch);
+        writeCheckpoint(offset);
+      }
+    }
+    catch (IOException io)
+    {
+      logger.error(ERR_PLUGIN_REFERENT_READ_LOGFILE, io.getMessage());
+      return;
+    }
+
+    clearLog(offset);
+  }
+
+  /**
+   * Clears the log file if all of its records have been processed, so that
+   * it does not grow forever. The checkpoint is reset before the log file is
+   * cleared: if the server crashes in between, the records are processed
+   * again, which is harmless.
+   *
+   * @param processedOffset The offset of the first record not processed yet.
+   */
+  private void clearLog(long processedOffset)
+  {
+    synchronized(logFile)
+    {
+      if (processedOffset == 0 || logFile.length() != processedOffset || !writeCheckpoint(0))
+      {
+        return;
+      }
+      try (RandomAccessFile file = new RandomAccessFile(logFile, "rw"))
+      {
+        file.setLength(0);
+      }
+      catch (IOException io)
+      {
         logger.error(ERR_PLUGIN_REFERENT_REPLACE_LOGFILE, io.getMessage());
       }
     }
@@ -889,6 +1180,7 @@ public class ReferentialIntegrityPlugin
     {
       processServerShutdown(null);
     }
+    updateExecutor.shutdown();
   }
 
   /**
@@ -17,9 +17,8 @@
 package org.opends.server.plugins;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -32,6 +31,8 @@ import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.AVA;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.RDN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.schema.AttributeType;
@@ -48,10 +49,8 @@ import org.opends.server.api.plugin.PluginResult.PreOperation;
 import org.opends.server.api.plugin.PluginType;
 import org.opends.server.core.BackendConfigManager;
 import org.opends.server.core.DirectoryServer;
-import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
-import org.opends.server.schema.SchemaConstants;
 import org.opends.server.types.Attribute;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
@@ -97,31 +96,44 @@ public class UniqueAttributePlugin
 
 
 
-  /**
-   * The set of attributes that will be requested when performing internal
-   * search operations.  This indicates that no attributes should be returned.
-   */
-  private static final Set<String> SEARCH_ATTRS = new LinkedHashSet<>(1);
-  static
-  {
-    SEARCH_ATTRS.add(SchemaConstants.NO_ATTRIBUTES);
-  }
-
-
-
   /** Current plugin configuration. */
   private UniqueAttributePluginCfg currentConfiguration;
 
 
 
   /**
-   * The data structure to store the mapping between the attribute value and the
-   * corresponding dn.
+   * The data structure to store the mapping between the normalized attribute
+   * values being added by the operations in progress and the corresponding dn.
    */
   private ConcurrentHashMap<ByteString,DN> uniqueAttrValue2Dn;
 
 
 
+  /**
+   * The name of the operation attachment holding the normalized values
+   * recorded in {@link #uniqueAttrValue2Dn} for the operation.
+   */
+  private String recordedValuesAttachmentName;
+
+
+
+  /** A value of a unique attribute introduced by an operation. */
+  private static final class UniqueValue
+  {
+    private final AttributeType attributeType;
+    private final ByteString value;
+    /** The DN of an entry conflicting with this value, if any. */
+    private DN conflictDN;
+
+    private UniqueValue(AttributeType attributeType, ByteString value)
+    {
+      this.attributeType = attributeType;
+      this.value = value;
+    }
+  }
+
+
+
   @Override
   public final void initializePlugin(Set<PluginType> pluginTypes,
                                      UniqueAttributePluginCfg configuration)
@@ -173,6 +185,7 @@ public class UniqueAttributePlugin
     }
 
     uniqueAttrValue2Dn  = new ConcurrentHashMap<>();
+    recordedValuesAttachmentName = getClass().getName() + ".recordedValues." + configuration.dn();
     DirectoryServer.registerAlertGenerator(this);
   }
 
@@ -201,24 +214,8 @@ public class UniqueAttributePlugin
       return PluginResult.PreOperation.continueOperationProcessing();
     }
 
-    DN entryDN = entry.getName();
-    List<ByteString> recordedValues = new LinkedList<>();
-    for (AttributeType t : config.getType())
-    {
-      for (Attribute a : entry.getAllAttributes(t))
-      {
-        for (ByteString v : a)
-        {
-          PreOperation stop = checkUniqueness(entryDN, t, v, baseDNs, recordedValues, config);
-          if (stop != null)
-          {
-            return stop;
-          }
-        }
-      }
-    }
-
-    return PluginResult.PreOperation.continueOperationProcessing();
+    return checkUniqueness(addOperation, entry.getName(),
+        getAddedValues(entry, config), baseDNs, config);
   }
 
 
@@ -237,86 +234,60 @@ public class UniqueAttributePlugin
       return PluginResult.PreOperation.continueOperationProcessing();
     }
 
-    List<ByteString> recordedValues = new LinkedList<>();
-    for (Modification m : modifyOperation.getModifications())
-    {
-      Attribute a = m.getAttribute();
-      AttributeType t = a.getAttributeDescription().getAttributeType();
-      if (!isModifyingUniqueAttribute(t, config))
-      {
-        continue;
-      }
-
-      switch (m.getModificationType().asEnum())
-      {
-        case ADD:
-        case REPLACE:
-          for (ByteString v : a)
-          {
-            PreOperation stop =
-              checkUniqueness(entryDN, t, v, baseDNs, recordedValues, config);
-            if (stop != null)
-            {
-              return stop;
-            }
-          }
-          break;
-
-        case INCREMENT:
-          // We could calculate the new value, but we'll just take it from the updated entry.
-          Attribute updatedAttr = modifyOperation.getModifiedEntry().getAttribute(a.getAttributeDescription());
-          if (updatedAttr != null)
-          {
-            for (ByteString v : updatedAttr)
-            {
-              PreOperation stop = checkUniqueness(entryDN, t, v, baseDNs, recordedValues, config);
-              if (stop != null)
-              {
-                return stop;
-              }
-            }
-          }
-          break;
-
-        default:
-          // We don't need to look at this modification because it's not a
-          // modification type of interest.
-          continue;
-      }
-    }
-
-    return PluginResult.PreOperation.continueOperationProcessing();
+    Map<ByteString, UniqueValue> values = getAddedValues(
+        modifyOperation.getModifications(), modifyOperation.getModifiedEntry(), config);
+    return checkUniqueness(modifyOperation, entryDN, values, baseDNs, config);
   }
 
 
 
-  private PreOperation checkUniqueness(DN entryDN, AttributeType t,
-      ByteString v, Set<DN> baseDNs, List<ByteString> recordedValues,
+  /**
+   * Records the provided values as being added by the provided operation, and
+   * checks all of them at once against the existing entries.
+   *
+   * @return  The result stopping the operation if a value is not unique, or
+   *          a result continuing the operation otherwise.
+   */
+  private PreOperation checkUniqueness(PluginOperation operation, DN entryDN,
+      Map<ByteString, UniqueValue> values, Set<DN> baseDNs,
       UniqueAttributePluginCfg config)
   {
+    if (values.isEmpty())
+    {
+      return PluginResult.PreOperation.continueOperationProcessing();
+    }
+
+    List<ByteString> recordedValues = new ArrayList<>(values.size());
+    operation.setAttachment(recordedValuesAttachmentName, recordedValues);
     try
     {
       //Raise an exception if a conflicting concurrent operation is
-      //in progress. Otherwise, store this attribute value with its
+      //in progress. Otherwise, store the attribute values with their
       //corresponding DN and proceed.
-      DN conflictDN = uniqueAttrValue2Dn.putIfAbsent(v, entryDN);
-      if (conflictDN == null)
+      UniqueValue conflict = null;
+      for (Map.Entry<ByteString, UniqueValue> e : values.entrySet())
       {
-        recordedValues.add(v);
-        conflictDN = getConflictingEntryDN(baseDNs, entryDN,
-                                            config, v);
+        DN conflictDN = uniqueAttrValue2Dn.putIfAbsent(e.getKey(), entryDN);
+        if (conflictDN != null)
+        {
+          conflict = e.getValue();
+          conflict.conflictDN = conflictDN;
+          break;
+        }
+        recordedValues.add(e.getKey());
       }
-      if (conflictDN != null)
+      if (conflict == null)
+      {
+        conflict = findConflicts(baseDNs, entryDN, config, values.values());
+      }
+      if (conflict != null)
       {
         // Before returning, we need to remove all values added
-        // in the uniqueAttrValue2Dn map, because PostOperation
-        // plugin does not get called.
-        for (ByteString v2 : recordedValues)
-        {
-          uniqueAttrValue2Dn.remove(v2);
-        }
+        // in the uniqueAttrValue2Dn map, so that they do not
+        // block other operations until the PostOperation plugin.
+        removeRecordedValues(operation);
         LocalizableMessage msg = ERR_PLUGIN_UNIQUEATTR_ATTR_NOT_UNIQUE.get(
-            t.getNameOrOID(), v, conflictDN);
+            conflict.attributeType.getNameOrOID(), conflict.value, conflict.conflictDN);
         return PluginResult.PreOperation.stopProcessing(
             ResultCode.CONSTRAINT_VIOLATION, msg);
       }
@@ -329,15 +300,31 @@ public class UniqueAttributePlugin
           de.getResultCode(), de.getMessageObject());
 
       // Try some cleanup before returning, to avoid memory leaks
-      for (ByteString v2 : recordedValues)
-      {
-        uniqueAttrValue2Dn.remove(v2);
-      }
+      removeRecordedValues(operation);
 
       return PluginResult.PreOperation.stopProcessing(
           DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message);
     }
-    return null;
+    return PluginResult.PreOperation.continueOperationProcessing();
+  }
+
+
+
+  /**
+   * Removes the values recorded in the uniqueAttrValue2Dn map for the
+   * provided operation.
+   */
+  private void removeRecordedValues(PluginOperation operation)
+  {
+    List<ByteString> recordedValues =
+        operation.removeAttachment(recordedValuesAttachmentName);
+    if (recordedValues != null)
+    {
+      for (ByteString v : recordedValues)
+      {
+        uniqueAttrValue2Dn.remove(v);
+      }
+    }
   }
 
   @Override
@@ -354,31 +341,107 @@ public class UniqueAttributePlugin
       return PluginResult.PreOperation.continueOperationProcessing();
     }
 
-    List<ByteString> recordedValues = new LinkedList<>();
-    for (AVA ava : modifyDNOperation.getNewRDN())
+    return checkUniqueness(modifyDNOperation, modifyDNOperation.getEntryDN(),
+        getAddedValues(modifyDNOperation.getNewRDN(), config), baseDNs, config);
+  }
+
+  private boolean isModifyingUniqueAttribute(AttributeType t, UniqueAttributePluginCfg config)
+  {
+    return config.getType().contains(t);
+  }
+
+  /** Returns the values of the unique attributes of the provided entry, by normalized value. */
+  private Map<ByteString, UniqueValue> getAddedValues(Entry entry, UniqueAttributePluginCfg config)
+  {
+    Map<ByteString, UniqueValue> values = new LinkedHashMap<>();
+    for (AttributeType t : config.getType())
     {
-      AttributeType t = ava.getAttributeType();
+      for (Attribute a : entry.getAllAttributes(t))
+      {
+        addValues(values, t, a);
+      }
+    }
+    return values;
+  }
+
+  /** Returns the values of the unique attributes added by the provided modifications, by normalized value. */
+  private Map<ByteString, UniqueValue> getAddedValues(List<Modification> mods, Entry modifiedEntry,
+      UniqueAttributePluginCfg config)
+  {
+    Map<ByteString, UniqueValue> values = new LinkedHashMap<>();
+    for (Modification m : mods)
+    {
+      Attribute a = m.getAttribute();
+      AttributeType t = a.getAttributeDescription().getAttributeType();
       if (!isModifyingUniqueAttribute(t, config))
       {
         continue;
       }
 
-      ByteString v = ava.getAttributeValue();
-      DN entryDN = modifyDNOperation.getEntryDN();
-      PreOperation stop =
-          checkUniqueness(entryDN, t, v, baseDNs, recordedValues, config);
-      if (stop != null)
+      switch (m.getModificationType().asEnum())
       {
-        return stop;
+        case ADD:
+        case REPLACE:
+          addValues(values, t, a);
+          break;
+
+        case INCREMENT:
+          // We could calculate the new value, but we'll just take it from the updated entry.
+          Attribute updatedAttr = modifiedEntry.getAttribute(a.getAttributeDescription());
+          if (updatedAttr != null)
+          {
+            addValues(values, t, updatedAttr);
+          }
+          break;
+
+        default:
+          // We don't need to look at this modification because it's not a
+          // modification type of interest.
+          continue;
       }
     }
+    return values;
+  }
 
-    return PluginResult.PreOperation.continueOperationProcessing();
+  /** Returns the values of the unique attributes of the provided RDN, by normalized value. */
+  private Map<ByteString, UniqueValue> getAddedValues(RDN newRDN, UniqueAttributePluginCfg config)
+  {
+    Map<ByteString, UniqueValue> values = new LinkedHashMap<>();
+    for (AVA ava : newRDN)
+    {
+      AttributeType t = ava.getAttributeType();
+      if (isModifyingUniqueAttribute(t, config))
+      {
+        addValue(values, t, ava.getAttributeValue());
+      }
+    }
+    return values;
   }
 
-  private boolean isModifyingUniqueAttribute(AttributeType t, UniqueAttributePluginCfg config)
+  private static void addValues(Map<ByteString, UniqueValue> values, AttributeType t, Attribute a)
   {
-    return config.getType().contains(t);
+    for (ByteString v : a)
+    {
+      addValue(values, t, v);
+    }
+  }
+
+  private static void addValue(Map<ByteString, UniqueValue> values, AttributeType t, ByteString v)
+  {
+    ByteString normalizedValue;
+    try
+    {
+      normalizedValue = t.getEqualityMatchingRule().normalizeAttributeValue(v);
+    }
+    catch (DecodeException e)
+    {
+      logger.traceException(e);
+      normalizedValue = v;
+    }
+    if (!values.containsKey(normalizedValue))
+    {
+      values.put(normalizedValue, new UniqueValue(t, v));
+    }
   }
 
   @Override
@@ -396,16 +459,8 @@ public class UniqueAttributePlugin
     }
 
     DN entryDN = entry.getName();
-    for (AttributeType t : config.getType())
-    {
-      for (Attribute a : entry.getAllAttributes(t))
-      {
-        for (ByteString v : a)
-        {
-          sendAlertForUnresolvedConflict(addOperation, entryDN, entryDN, t, v, baseDNs, config);
-        }
-      }
-    }
+    sendAlertForUnresolvedConflicts(addOperation, entryDN, entryDN,
+        getAddedValues(entry, config), baseDNs, config);
   }
 
 
@@ -424,45 +479,9 @@ public class UniqueAttributePlugin
       return;
     }
 
-    for (Modification m : modifyOperation.getModifications())
-    {
-      Attribute a = m.getAttribute();
-      AttributeType t = a.getAttributeDescription().getAttributeType();
-      if (!isModifyingUniqueAttribute(t, config))
-      {
-        continue;
-      }
-
-      switch (m.getModificationType().asEnum())
-      {
-        case ADD:
-        case REPLACE:
-          for (ByteString v : a)
-          {
-            sendAlertForUnresolvedConflict(modifyOperation, entryDN, entryDN, t,
-                v, baseDNs, config);
-          }
-          break;
-
-        case INCREMENT:
-          // We could calculate the new value, but we'll just take it from the updated entry.
-          Attribute updatedAttr = modifyOperation.getModifiedEntry().getAttribute(a.getAttributeDescription());
-          if (updatedAttr != null)
-          {
-            for (ByteString v : updatedAttr)
-            {
-              sendAlertForUnresolvedConflict(modifyOperation, entryDN,
-                  entryDN, t, v, baseDNs, config);
-            }
-          }
-          break;
-
-        default:
-          // We don't need to look at this modification because it's not a
-          // modification type of interest.
-          continue;
-      }
-    }
+    Map<ByteString, UniqueValue> values = getAddedValues(
+        modifyOperation.getModifications(), modifyOperation.getModifiedEntry(), config);
+    sendAlertForUnresolvedConflicts(modifyOperation, entryDN, entryDN, values, baseDNs, config);
   }
 
 
@@ -483,42 +502,43 @@ public class UniqueAttributePlugin
 
     DN entryDN = modifyDNOperation.getEntryDN();
     DN updatedEntryDN = modifyDNOperation.getUpdatedEntry().getName();
-    for (AVA ava : modifyDNOperation.getNewRDN())
-    {
-      AttributeType t = ava.getAttributeType();
-      if (isModifyingUniqueAttribute(t, config))
-      {
-        ByteString v = ava.getAttributeValue();
-        sendAlertForUnresolvedConflict(modifyDNOperation, entryDN, updatedEntryDN, t, v, baseDNs, config);
-      }
-    }
+    sendAlertForUnresolvedConflicts(modifyDNOperation, entryDN, updatedEntryDN,
+        getAddedValues(modifyDNOperation.getNewRDN(), config), baseDNs, config);
   }
 
 
 
-  private void sendAlertForUnresolvedConflict(PluginOperation operation,
-      DN entryDN, DN updatedEntryDN, AttributeType t, ByteString v,
+  private void sendAlertForUnresolvedConflicts(PluginOperation operation,
+      DN entryDN, DN updatedEntryDN, Map<ByteString, UniqueValue> values,
       Set<DN> baseDNs, UniqueAttributePluginCfg config)
   {
+    if (values.isEmpty())
+    {
+      return;
+    }
+
     try
     {
-      DN conflictDN = uniqueAttrValue2Dn.get(v);
-      if (conflictDN == null)
+      for (Map.Entry<ByteString, UniqueValue> e : values.entrySet())
       {
-        conflictDN = getConflictingEntryDN(baseDNs, entryDN, config, v);
+        e.getValue().conflictDN = uniqueAttrValue2Dn.get(e.getKey());
       }
-      if (conflictDN != null)
+      findConflicts(baseDNs, entryDN, config, values.values());
+      for (UniqueValue v : values.values())
       {
-        LocalizableMessage message = ERR_PLUGIN_UNIQUEATTR_SYNC_NOT_UNIQUE.get(
-                               t.getNameOrOID(),
-                               operation.getConnectionID(),
-                               operation.getOperationID(),
-                               v,
-                               updatedEntryDN,
-                               conflictDN);
-        DirectoryServer.sendAlertNotification(this,
-                             ALERT_TYPE_UNIQUE_ATTR_SYNC_CONFLICT,
-                             message);
+        if (v.conflictDN != null)
+        {
+          LocalizableMessage message = ERR_PLUGIN_UNIQUEATTR_SYNC_NOT_UNIQUE.get(
+                                 v.attributeType.getNameOrOID(),
+                                 operation.getConnectionID(),
+                                 operation.getOperationID(),
+                                 v.value,
+                                 updatedEntryDN,
+                                 v.conflictDN);
+          DirectoryServer.sendAlertNotification(this,
+                               ALERT_TYPE_UNIQUE_ATTR_SYNC_CONFLICT,
+                               message);
+        }
       }
     }
     catch (DirectoryException de)
@@ -570,8 +590,10 @@ public class UniqueAttributePlugin
 
 
   /**
-   * Retrieves the DN of the first entry identified that conflicts with the
-   * provided value.
+   * Identifies the entries conflicting with the provided values, and records
+   * their DNs in the values.  All the values are checked at once: they are
+   * looked up directly in the equality indexes of the backends when possible,
+   * or else with a single search per base DN.
    *
    * @param  baseDNs   The set of base DNs below which the search is to be
    *                   performed.
@@ -580,64 +602,55 @@ public class UniqueAttributePlugin
    *                   ignored.
    * @param  config    The plugin configuration to use when making the
    *                   determination.
-   * @param  value     The value for which to identify any conflicting entries.
+   * @param  values    The values for which to identify any conflicting
+   *                   entries.
    *
-   * @return  The DN of the first entry identified that contains a conflicting
-   *          value.
+   * @return  The first of the provided values which conflicts with an entry,
+   *          or {@code null} if there are none.
    *
    * @throws  DirectoryException  If a problem occurred while attempting to
    *                              make the determination.
    */
-  private DN getConflictingEntryDN(Set<DN> baseDNs, DN targetDN,
-                                   UniqueAttributePluginCfg config,
-                                   ByteString value)
+  private UniqueValue findConflicts(Set<DN> baseDNs, DN targetDN,
+                                    UniqueAttributePluginCfg config,
+                                    Collection<UniqueValue> values)
           throws DirectoryException
   {
-    SearchFilter filter;
-    Set<AttributeType> attrTypes = config.getType();
-    if (attrTypes.size() == 1)
+    List<ByteString> assertionValues = new ArrayList<>(values.size());
+    for (UniqueValue v : values)
     {
-      filter = SearchFilter.createEqualityFilter(attrTypes.iterator().next(),
-                                                 value);
+      assertionValues.add(v.value);
     }
-    else
+
+    BackendConfigManager backendConfigManager =
+        DirectoryServer.getInstance().getServerContext().getBackendConfigManager();
+    for (DN baseDN : baseDNs)
     {
-      List<SearchFilter> equalityFilters = new ArrayList<>(attrTypes.size());
-      for (AttributeType t : attrTypes)
+      List<? extends Entry> entries = null;
+      LocalBackend<?> b = backendConfigManager.findLocalBackendForEntry(baseDN);
+      if (b != null && backendConfigManager.getSubordinateBackends(b).isEmpty())
       {
-        equalityFilters.add(SearchFilter.createEqualityFilter(t, value));
+        entries = b.getEntriesMatchingValues(baseDN, config.getType(), assertionValues);
+      }
+      if (entries == null)
+      {
+        entries = searchEntries(baseDN, config, assertionValues);
       }
-      filter = SearchFilter.createORFilter(equalityFilters);
-    }
 
-    InternalClientConnection conn = getRootConnection();
-    for (DN baseDN : baseDNs)
-    {
-      final SearchRequest request = newSearchRequest(baseDN, SearchScope.WHOLE_SUBTREE, filter)
-          .setSizeLimit(2)
-          .addAttribute(SEARCH_ATTRS);
-      InternalSearchOperation searchOperation = conn.processSearch(request);
-      for (SearchResultEntry e : searchOperation.getSearchEntries())
+      for (Entry e : entries)
       {
         if (! e.getName().equals(targetDN))
         {
-          return e.getName();
+          recordConflicts(e, config, values);
         }
       }
+    }
 
-      switch (searchOperation.getResultCode().asEnum())
+    for (UniqueValue v : values)
+    {
+      if (v.conflictDN != null)
       {
-        case SUCCESS:
-        case NO_SUCH_OBJECT:
-          // These are fine.  Either the search was successful or the base DN
-          // didn't exist.
-          break;
-
-        default:
-          // An error occurred that prevented the search from completing
-          // successfully.
-          throw new DirectoryException(searchOperation.getResultCode(),
-                         searchOperation.getErrorMessage().toMessage());
+        return v;
       }
     }
 
@@ -647,6 +660,105 @@ public class UniqueAttributePlugin
 
 
 
+  /**
+   * Searches the entries below the provided base DN which contain one of the
+   * provided values for one of the unique attributes.
+   */
+  private List<SearchResultEntry> searchEntries(DN baseDN,
+      UniqueAttributePluginCfg config, List<ByteString> values)
+          throws DirectoryException
+  {
+    Set<AttributeType> attrTypes = config.getType();
+    List<SearchFilter> equalityFilters = new ArrayList<>(attrTypes.size() * values.size());
+    for (AttributeType t : attrTypes)
+    {
+      for (ByteString v : values)
+      {
+        equalityFilters.add(SearchFilter.createEqualityFilter(t, v));
+      }
+    }
+    SearchFilter filter = equalityFilters.size() == 1
+        ? equalityFilters.get(0)
+        : SearchFilter.createORFilter(equalityFilters);
+
+    // Each value may conflict with one entry at most, plus the target entry
+    final SearchRequest request = newSearchRequest(baseDN, SearchScope.WHOLE_SUBTREE, filter)
+        .setSizeLimit(values.size() + 1);
+    for (AttributeType t : attrTypes)
+    {
+      request.addAttribute(t.getNameOrOID());
+    }
+    InternalSearchOperation searchOperation = getRootConnection().processSearch(request);
+
+    switch (searchOperation.getResultCode().asEnum())
+    {
+      case SUCCESS:
+      case NO_SUCH_OBJECT:
+      case SIZE_LIMIT_EXCEEDED:
+        // These are fine.  Either the search was successful, the base DN
+        // didn't exist, or enough entries were returned to find conflicts.
+        return searchOperation.getSearchEntries();
+
+      default:
+        // An error occurred that prevented the search from completing
+        // successfully.
+        throw new DirectoryException(searchOperation.getResultCode(),
+                       searchOperation.getErrorMessage().toMessage());
+    }
+  }
+
+
+
+  /**
+   * Records the provided entry as conflicting with the values it contains.
+   */
+  private void recordConflicts(Entry e, UniqueAttributePluginCfg config,
+      Collection<UniqueValue> values)
+  {
+    boolean found = false;
+    for (UniqueValue v : values)
+    {
+      if (hasValue(e, config, v.value))
+      {
+        found = true;
+        if (v.conflictDN == null)
+        {
+          v.conflictDN = e.getName();
+        }
+      }
+    }
+
+    if (!found)
+    {
+      // The entry matched in a way which cannot be attributed to a value,
+      // do not let it go unnoticed anyway.
+      UniqueValue v = values.iterator().next();
+      if (v.conflictDN == null)
+      {
+        v.conflictDN = e.getName();
+      }
+    }
+  }
+
+
+
+  private boolean hasValue(Entry e, UniqueAttributePluginCfg config, ByteString value)
+  {
+    for (AttributeType t : config.getType())
+    {
+      for (Attribute a : e.getAllAttributes(t))
+      {
+        if (a.contains(value))
+        {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+
+
   @Override
   public boolean isConfigurationAcceptable(PluginCfg configuration,
                                            List<LocalizableMessage> unacceptableReasons)
@@ -758,28 +870,8 @@ public class UniqueAttributePlugin
   public final PluginResult.PostOperation
        doPostOperation(PostOperationAddOperation addOperation)
   {
-    UniqueAttributePluginCfg config = currentConfiguration;
-    Entry entry = addOperation.getEntryToAdd();
-
-    Set<DN> baseDNs = getBaseDNs(config, entry.getName());
-    if (baseDNs == null)
-    {
-      // The entry is outside the scope of this plugin.
-      return PluginResult.PostOperation.continueOperationProcessing();
-    }
-
-    //Remove the attribute value from the map.
-    for (AttributeType t : config.getType())
-    {
-      for (Attribute a : entry.getAllAttributes(t))
-      {
-        for (ByteString v : a)
-        {
-          uniqueAttrValue2Dn.remove(v);
-        }
-      }
-    }
-
+    //Remove the attribute values from the map.
+    removeRecordedValues(addOperation);
     return PluginResult.PostOperation.continueOperationProcessing();
   }
 
@@ -790,54 +882,7 @@ public class UniqueAttributePlugin
   public final PluginResult.PostOperation
        doPostOperation(PostOperationModifyOperation modifyOperation)
   {
-    UniqueAttributePluginCfg config = currentConfiguration;
-    DN entryDN = modifyOperation.getEntryDN();
-
-    Set<DN> baseDNs = getBaseDNs(config, entryDN);
-    if (baseDNs == null)
-    {
-      // The entry is outside the scope of this plugin.
-      return PluginResult.PostOperation.continueOperationProcessing();
-    }
-
-    for (Modification m : modifyOperation.getModifications())
-    {
-      Attribute a = m.getAttribute();
-      AttributeType t = a.getAttributeDescription().getAttributeType();
-      if (!isModifyingUniqueAttribute(t, config))
-      {
-        continue;
-      }
-
-      switch (m.getModificationType().asEnum())
-      {
-        case ADD:
-        case REPLACE:
-          for (ByteString v : a)
-          {
-            uniqueAttrValue2Dn.remove(v);
-          }
-          break;
-
-        case INCREMENT:
-          // We could calculate the new value, but we'll just take it from the updated entry.
-          Attribute updatedAttr = modifyOperation.getModifiedEntry().getAttribute(a.getAttributeDescription());
-          if (updatedAttr != null)
-          {
-            for (ByteString v : updatedAttr)
-            {
-              uniqueAttrValue2Dn.remove(v);
-            }
-          }
-          break;
-
-        default:
-          // We don't need to look at this modification because it's not a
-          // modification type of interest.
-          continue;
-      }
-    }
-
+    removeRecordedValues(modifyOperation);
     return PluginResult.PostOperation.continueOperationProcessing();
   }
 
@@ -847,24 +892,7 @@ public class UniqueAttributePlugin
   public final PluginResult.PostOperation
        doPostOperation(PostOperationModifyDNOperation modifyDNOperation)
   {
-    UniqueAttributePluginCfg config = currentConfiguration;
-    Set<DN> baseDNs = getBaseDNs(config,
-                                 modifyDNOperation.getUpdatedEntry().getName());
-    if (baseDNs == null)
-    {
-      // The entry is outside the scope of this plugin.
-      return PostOperation.continueOperationProcessing();
-    }
-
-    for (AVA ava : modifyDNOperation.getNewRDN())
-    {
-      AttributeType t = ava.getAttributeType();
-      if (isModifyingUniqueAttribute(t, config))
-      {
-        uniqueAttrValue2Dn.remove(ava.getAttributeValue());
-      }
-    }
+    removeRecordedValues(modifyDNOperation);
     return PostOperation.continueOperationProcessing();
   }
 }
-
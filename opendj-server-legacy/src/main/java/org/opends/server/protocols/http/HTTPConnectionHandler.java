@@ -41,6 +41,7 @@ import java.util.concurrent.TimeUnit;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 
 import org.forgerock.http.ApiProducer;
@@ -69,13 +70,18 @@ import org.forgerock.util.promise.NeverThrowsException;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.promise.PromiseImpl;
 import org.forgerock.util.time.TimeService;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.Grizzly;
+import org.glassfish.grizzly.attributes.Attribute;
 import org.glassfish.grizzly.http.HttpProbe;
 import org.glassfish.grizzly.http.server.HttpServer;
 import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.grizzly.http.server.ServerConfiguration;
 import org.glassfish.grizzly.monitoring.MonitoringConfig;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.ssl.SSLBaseFilter;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
+import org.glassfish.grizzly.ssl.SSLUtils;
 import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
 import org.glassfish.grizzly.utils.Charsets;
 import org.opends.server.api.AlertGenerator;
@@ -88,6 +94,7 @@ import org.opends.server.core.ServerContext;
 import org.opends.server.extensions.NullKeyManagerProvider;
 import org.opends.server.loggers.HTTPAccessLogger;
 import org.opends.server.monitors.ClientConnectionMonitorProvider;
+import org.opends.server.monitors.TLSHandshakeStatistics;
 import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.types.AbstractOperation;
 import org.opends.server.types.DirectoryException;
@@ -119,6 +126,10 @@ public class HTTPConnectionHandler extends ConnectionHandler<HTTPConnectionHandl
   /** SSL instance name used in context creation. */
   private static final String SSL_CONTEXT_INSTANCE_NAME = "TLS";
 
+  /** The time at which the SSL/TLS handshake of a connection started, in milliseconds and nanoseconds. */
+  private static final Attribute<long[]> HANDSHAKE_START_ATTR =
+      Grizzly.DEFAULT_ATTRIBUTE_BUILDER.createAttribute("TLSHandshakeStart");
+
   /** The initialization configuration. */
   private HTTPConnectionHandlerCfg initConfig;
 
@@ -171,6 +182,9 @@ public class HTTPConnectionHandler extends ConnectionHandler<HTTPConnectionHandl
   /** The SSL engine configurator is used for obtaining default SSL parameters. */
   private SSLEngineConfigurator sslEngineConfigurator;
 
+  /** The statistics about the SSL/TLS handshakes. */
+  private final TLSHandshakeStatistics tlsStatistics = new TLSHandshakeStatistics();
+
   private ServerContext serverContext;
 
   /** Default constructor. It is invoked by reflection to create this {@link ConnectionHandler}. */
@@ -367,6 +381,12 @@ public class HTTPConnectionHandler extends ConnectionHandler<HTTPConnectionHandl
     return super.getEnabledSSLProtocols();
   }
 
+  @Override
+  public TLSHandshakeStatistics getTLSHandshakeStatistics()
+  {
+    return sslEngineConfigurator != null ? tlsStatistics : null;
+  }
+
   @Override
   public Collection<HostPort> getListeners()
   {
@@ -699,6 +719,10 @@ public class HTTPConnectionHandler extends ConnectionHandler<HTTPConnectionHandl
     this.httpServer.getServerConfiguration().addHttpHandler(newGrizzlyHttpHandler(new RootHttpApplication()));
     logger.trace("Starting HTTP server...");
     this.httpServer.start();
+    if (sslEngineConfigurator != null)
+    {
+      addTLSHandshakeListener(this.httpServer);
+    }
     logger.trace("HTTP server started");
     logger.info(NOTE_CONNHANDLER_STARTED_LISTENING, handlerName);
   }
@@ -760,6 +784,50 @@ public class HTTPConnectionHandler extends ConnectionHandler<HTTPConnectionHandl
     return server.getServerConfiguration().getMonitoringConfig().getHttpConfig();
   }
 
+  /** Records the SSL/TLS handshakes performed by the HTTP server in the statistics of this connection handler. */
+  private void addTLSHandshakeListener(HttpServer server)
+  {
+    for (NetworkListener listener : server.getListeners())
+    {
+      for (org.glassfish.grizzly.filterchain.Filter filter : listener.getFilterChain())
+      {
+        if (filter instanceof SSLBaseFilter)
+        {
+          ((SSLBaseFilter) filter).addHandshakeListener(new TLSHandshakeListener());
+        }
+      }
+    }
+  }
+
+  /** Records the duration and outcome of the SSL/TLS handshakes. */
+  private final class TLSHandshakeListener implements SSLBaseFilter.HandshakeListener
+  {
+    @Override
+    public void onStart(Connection connection)
+    {
+      HANDSHAKE_START_ATTR.set(connection, new long[] { System.currentTimeMillis(), System.nanoTime() });
+    }
+
+    @Override
+    public void onComplete(Connection connection)
+    {
+      final long[] start = HANDSHAKE_START_ATTR.remove(connection);
+      final SSLEngine sslEngine = SSLUtils.getSSLEngine(connection);
+      if (start != null && sslEngine != null)
+      {
+        tlsStatistics.recordHandshake(System.nanoTime() - start[1],
+            TLSHandshakeStatistics.isResumed(sslEngine.getSession(), start[0]));
+      }
+    }
+
+    @Override
+    public void onFailure(Connection connection, Throwable t)
+    {
+      HANDSHAKE_START_ATTR.remove(connection);
+      tlsStatistics.recordFailedHandshake();
+    }
+  }
+
   private void stopHttpServer()
   {
     if (this.httpServer != null)
@@ -894,6 +962,9 @@ public class HTTPConnectionHandler extends ConnectionHandler<HTTPConnectionHandl
             trustMgrDN == null ? null : serverContext.getTrustManagerProvider(trustMgrDN).getTrustManagers();
     final SSLContext sslContext = SSLContext.getInstance(SSL_CONTEXT_INSTANCE_NAME);
     sslContext.init(keyManagers, trustManagers, null);
+    final SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+    sessionContext.setSessionCacheSize(config.getSSLSessionCacheSize());
+    sessionContext.setSessionTimeout((int) config.getSSLSessionTimeout());
     return sslContext;
   }
 
@@ -33,6 +33,7 @@ import java.util.concurrent.TimeUnit;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 
 import org.forgerock.i18n.LocalizableMessage;
@@ -55,6 +56,7 @@ import org.opends.server.core.WorkQueueStrategy;
 import org.opends.server.extensions.NullKeyManagerProvider;
 import org.opends.server.extensions.TLSByteChannel;
 import org.opends.server.monitors.ClientConnectionMonitorProvider;
+import org.opends.server.monitors.TLSHandshakeStatistics;
 import org.opends.server.types.*;
 import org.opends.server.util.SelectableCertificateKeyManager;
 import org.opends.server.util.StaticUtils;
@@ -196,6 +198,9 @@ public final class LDAPConnectionHandler extends
   /** The SSL engine is used for obtaining default SSL parameters. */
   private SSLEngine sslEngine;
 
+  /** The statistics about the SSL/TLS handshakes. */
+  private final TLSHandshakeStatistics tlsStatistics = new TLSHandshakeStatistics();
+
   /**
    * Connection finalizer thread.
    * <p>
@@ -473,6 +478,12 @@ public final class LDAPConnectionHandler extends
     return super.getEnabledSSLProtocols();
   }
 
+  @Override
+  public TLSHandshakeStatistics getTLSHandshakeStatistics()
+  {
+    return sslContext != null ? tlsStatistics : null;
+  }
+
   @Override
   public Collection<HostPort> getListeners()
   {
@@ -1224,7 +1235,7 @@ public final class LDAPConnectionHandler extends
       throws DirectoryException
   {
     SSLEngine sslEngine = createSSLEngine(currentConfig, sslContext);
-    return new TLSByteChannel(channel, sslEngine);
+    return new TLSByteChannel(channel, sslEngine, tlsStatistics);
   }
 
   private SSLEngine createSSLEngine(LDAPConnectionHandlerCfg config,
@@ -1336,6 +1347,9 @@ public final class LDAPConnectionHandler extends
               trustMgrDN == null ? null : serverContext.getTrustManagerProvider(trustMgrDN).getTrustManagers();
       final SSLContext sslContext = SSLContext.getInstance(SSL_CONTEXT_INSTANCE_NAME);
       sslContext.init(keyManagers, trustManagers, null);
+      final SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+      sessionContext.setSessionCacheSize(config.getSSLSessionCacheSize());
+      sessionContext.setSessionTimeout((int) config.getSSLSessionTimeout());
       return sslContext;
     }
     catch (Exception e)
@@ -21,6 +21,7 @@ import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.plugin.HistAttrModificationKey.*;
 import static org.opends.server.util.CollectionUtils.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -109,8 +110,37 @@ public class EntryHistorical
   /** The date when the entry was last renamed. */
   private CSN entryMODDNDate;
 
-  /** Contains Historical information for each attribute description. */
+  /**
+   * Contains Historical information for each attribute description. The value is {@code null}
+   * when the historical information read from the entry was not decoded yet.
+   */
   private final Map<AttributeDescription, AttrHistorical> attributesHistorical = new HashMap<>();
+  /**
+   * Contains the historical information read from the entry which was not decoded yet, for each
+   * attribute description. Modifications usually only touch a few attributes of an entry: the
+   * historical information of the other attributes is written back as is, and only decoded when
+   * it must be purged.
+   */
+  private final Map<AttributeDescription, EncodedAttrHistorical> encodedAttributesHistorical = new HashMap<>();
+  /** The DN of the entry this historical information was read from, for error messages. */
+  private DN entryDN;
+
+  /** The encoded historical information of an attribute description, as read from the entry. */
+  private static final class EncodedAttrHistorical
+  {
+    private final List<ByteString> values = new ArrayList<>();
+    /** The oldest CSN of the encoded values. */
+    private CSN oldestCSN;
+
+    private void add(ByteString value, CSN csn)
+    {
+      values.add(value);
+      if (oldestCSN == null || csn.isOlderThan(oldestCSN))
+      {
+        oldestCSN = csn;
+      }
+    }
+  }
 
   @Override
   public String toString()
@@ -312,8 +342,38 @@ public class EntryHistorical
     AttrHistorical attrHist = attributesHistorical.get(attrDesc);
     if (attrHist == null)
     {
-      attrHist = AttrHistorical.createAttributeHistorical(modAttr.getAttributeDescription().getAttributeType());
-      attributesHistorical.put(attrDesc, attrHist);
+      attrHist = decodeAttrHistorical(attrDesc);
+    }
+    return attrHist;
+  }
+
+  /**
+   * Creates the attribute historical of the provided attribute description,
+   * initialized from the historical information read from the entry if any.
+   */
+  private AttrHistorical decodeAttrHistorical(AttributeDescription attrDesc)
+  {
+    final AttrHistorical attrHist = AttrHistorical.createAttributeHistorical(attrDesc.getAttributeType());
+    // the attribute description is already a key when the historical information was read from the entry
+    attributesHistorical.put(attrDesc, attrHist);
+
+    final EncodedAttrHistorical encoded = encodedAttributesHistorical.remove(attrDesc);
+    if (encoded != null)
+    {
+      try
+      {
+        for (ByteString value : encoded.values)
+        {
+          attrHist.assign(new HistoricalAttributeValue(value.toString()));
+        }
+      }
+      catch (Exception e)
+      {
+        // Any exception happening here means that the coding of the historical
+        // information was wrong.
+        // Log an error and continue with the values decoded so far.
+        logger.error(ERR_BAD_HISTORICAL, entryDN);
+      }
     }
     return attrHist;
   }
@@ -356,6 +416,17 @@ public class EntryHistorical
       AttributeDescription attrDesc = mapEntry.getKey();
       String options = attrDesc.toString();
       AttrHistorical attrHist = mapEntry.getValue();
+      if (attrHist == null)
+      {
+        final EncodedAttrHistorical encoded = encodedAttributesHistorical.get(attrDesc);
+        if (purgeDelayInMillisec <= 0 || encoded.oldestCSN.getTime() > purgeDate)
+        {
+          // nothing to purge: no need to decode the historical information read from the entry
+          builder.addAll(encoded.values);
+          continue;
+        }
+        attrHist = decodeAttrHistorical(attrDesc);
+      }
 
       CSN deleteTime = attrHist.getDeleteTime();
       /* generate the historical information for deleted attributes */
@@ -528,10 +599,14 @@ public class EntryHistorical
       return newHistorical;
     }
 
+    newHistorical.entryDN = entry.getName();
     try
     {
       // For each value of the historical attr read (mod. on a user attribute)
-      //   build an AttrInfo sub-object
+      //   only read the attribute description and the CSN,
+      //   the values are decoded when the attribute is modified or purged.
+      final Map<String, AttributeDescription> attrDescs = new HashMap<>();
+      final Schema schema = DirectoryServer.getInstance().getServerContext().getSchema();
 
       // Traverse the Attributes (when several options for the hist attr)
       // of the historical attribute read from the entry
@@ -540,25 +615,39 @@ public class EntryHistorical
         // For each Attribute (option), traverse the values
         for (ByteString histAttrValueFromEntry : histAttrFromEntry)
         {
-          // From each value of the hist attr, create an object
-          final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histAttrValueFromEntry.toString());
-          final CSN csn = histVal.getCSN();
+          final String histString = histAttrValueFromEntry.toString();
+          final int attrEnd = histString.indexOf(':');
+          final String attrString = histString.substring(0, attrEnd);
+          if ("dn".equalsIgnoreCase(attrString))
+          {
+            // From each value of the hist attr, create an object
+            final HistoricalAttributeValue histVal = new HistoricalAttributeValue(histString);
+            final CSN csn = histVal.getCSN();
+            newHistorical.updateOldestCSN(csn);
+            if (histVal.isADDOperation())
+            {
+              newHistorical.entryADDDate = csn;
+            }
+            else if (histVal.isMODDNOperation())
+            {
+              newHistorical.entryMODDNDate = csn;
+            }
+            continue;
+          }
+
+          final int csnEnd = histString.indexOf(':', attrEnd + 1);
+          final CSN csn = new CSN(csnEnd < 0
+              ? histString.substring(attrEnd + 1) : histString.substring(attrEnd + 1, csnEnd));
 
           // update the oldest CSN stored in the new entry historical
           newHistorical.updateOldestCSN(csn);
 
-          if (histVal.isADDOperation())
+          AttributeDescription attrDesc = attrDescs.get(attrString);
+          if (attrDesc == null)
           {
-            newHistorical.entryADDDate = csn;
-          }
-          else if (histVal.isMODDNOperation())
-          {
-            newHistorical.entryMODDNDate = csn;
-          }
-          else
-          {
-            final AttributeDescription attrDesc = histVal.getAttributeDescription();
-            if (attrDesc == null)
+            attrDesc = AttributeDescription.valueOf(attrString, schema);
+            attrDescs.put(attrString, attrDesc);
+            if (attrDesc.getAttributeType().isPlaceHolder())
             {
               /*
                * This attribute is unknown from the schema
@@ -566,25 +655,21 @@ public class EntryHistorical
                * historical information is going to be kept.
                * Log information for the repair tool.
                */
-              logger.error(ERR_UNKNOWN_ATTRIBUTE_IN_HISTORICAL, entry.getName(), histVal.getAttrString());
-              continue;
+              logger.error(ERR_UNKNOWN_ATTRIBUTE_IN_HISTORICAL, entry.getName(), attrString);
             }
-
-            /* if attribute type does not match we create new
-             *   AttrInfoWithOptions and AttrInfo
-             *   we also add old AttrInfoWithOptions into histObj.attributesInfo
-             * if attribute type match but options does not match we create new
-             *   AttrInfo that we add to AttrInfoWithOptions
-             * if both match we keep everything
-             */
-            AttrHistorical attrInfo = newHistorical.attributesHistorical.get(attrDesc);
-            if (attrInfo == null)
-            {
-              attrInfo = AttrHistorical.createAttributeHistorical(attrDesc.getAttributeType());
-              newHistorical.attributesHistorical.put(attrDesc, attrInfo);
-            }
-            attrInfo.assign(histVal);
           }
+          if (attrDesc.getAttributeType().isPlaceHolder())
+          {
+            continue;
+          }
+          EncodedAttrHistorical encoded = newHistorical.encodedAttributesHistorical.get(attrDesc);
+          if (encoded == null)
+          {
+            encoded = new EncodedAttrHistorical();
+            newHistorical.encodedAttributesHistorical.put(attrDesc, encoded);
+            newHistorical.attributesHistorical.put(attrDesc, null);
+          }
+          encoded.add(histAttrValueFromEntry, csn);
         }
       }
     } catch (Exception e)
@@ -28,6 +28,7 @@ import static org.opends.server.util.CollectionUtils.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -49,7 +50,6 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -86,6 +86,10 @@ import org.opends.server.api.LocalBackendInitializationListener;
 import org.opends.server.api.MonitorData;
 import org.opends.server.api.ServerShutdownListener;
 import org.opends.server.api.SynchronizationProvider;
+import org.opends.server.backends.pluggable.BackendImpl;
+import org.opends.server.backends.pluggable.DataChecksum;
+import org.opends.server.backends.pluggable.EntryRecordExport;
+import org.opends.server.backends.pluggable.EntryRecordSource;
 import org.opends.server.backends.task.Task;
 import org.opends.server.config.ConfigConstants;
 import org.opends.server.config.ConfigurationHandler;
@@ -296,10 +300,21 @@ public final class LDAPReplicationDomain extends ReplicationDomain
 
   private final DSRSShutdownSync dsrsShutdownSync;
   /**
-   * The update to replay message queue where the listener thread is going to
-   * push incoming update messages.
+   * The scheduler where the listener thread is going to push incoming update
+   * messages for the replay threads.
    */
-  private final BlockingQueue<UpdateToReplay> updateToReplayQueue;
+  private final ReplayScheduler replayScheduler;
+  /** The number of replay threads currently replaying updates of this domain. */
+  private final AtomicInteger replaysInProgress = new AtomicInteger();
+  /** Whether a {@link DataChecksumComputer} thread is running. */
+  private final AtomicBoolean isComputingDataChecksum = new AtomicBoolean();
+  /** The time before which the data checksum computation must not be retried after a failure. */
+  private volatile long nextDataChecksumAttemptTime;
+  /**
+   * The delay before retrying the data checksum computation, doubled on each
+   * failure. Only accessed by the {@link DataChecksumComputer} thread.
+   */
+  private long dataChecksumRetryDelay = MIN_DATA_CHECKSUM_RETRY_DELAY;
   /** The number of naming conflicts successfully resolved. */
   private final AtomicInteger numResolvedNamingConflicts = new AtomicInteger();
   /** The number of modify conflicts successfully resolved. */
@@ -414,6 +429,11 @@ public final class LDAPReplicationDomain extends ReplicationDomain
   /** The operation should become a no-op. */
   private static final int FRACTIONAL_BECOME_NO_OP = 3;
 
+  /** The initial delay in milliseconds before retrying a failed data checksum computation. */
+  private static final long MIN_DATA_CHECKSUM_RETRY_DELAY = 10 * 1000;
+  /** The maximum delay in milliseconds before retrying a failed data checksum computation. */
+  private static final long MAX_DATA_CHECKSUM_RETRY_DELAY = 60 * 60 * 1000;
+
   /**
    * The last CSN purged in this domain. Allows to have a continuous purging
    * process from one purge processing (task run) to the next one. Values 0 when
@@ -462,6 +482,49 @@ public final class LDAPReplicationDomain extends ReplicationDomain
     }
   }
 
+  /**
+   * The thread that computes the checksum of the data of this domain. Once
+   * computed, the checksum is kept up to date by the backend.
+   */
+  private class DataChecksumComputer extends DirectoryThread
+  {
+    private final BackendImpl<?> backend;
+
+    protected DataChecksumComputer(BackendImpl<?> backend)
+    {
+      super("Replica DS(" + getServerId() + ") data checksum computer for domain \"" + getBaseDN() + "\"");
+      this.backend = backend;
+    }
+
+    @Override
+    public void run()
+    {
+      boolean isComputed = false;
+      try
+      {
+        isComputed = backend.computeDataChecksum(getBaseDN());
+      }
+      catch (DirectoryException e)
+      {
+        logger.traceException(e);
+      }
+      finally
+      {
+        if (isComputed)
+        {
+          dataChecksumRetryDelay = MIN_DATA_CHECKSUM_RETRY_DELAY;
+        }
+        else
+        {
+          // do not let each monitor read start a new computation
+          nextDataChecksumAttemptTime = TimeThread.getTime() + dataChecksumRetryDelay;
+          dataChecksumRetryDelay = Math.min(2 * dataChecksumRetryDelay, MAX_DATA_CHECKSUM_RETRY_DELAY);
+        }
+        isComputingDataChecksum.set(false);
+      }
+    }
+  }
+
   /**
    * The thread that is responsible to update the RS to which this domain is
    * connected in case it is late and there is no RS which is up to date.
@@ -534,17 +597,17 @@ public final class LDAPReplicationDomain extends ReplicationDomain
    * Creates a new ReplicationDomain using configuration from configEntry.
    *
    * @param configuration    The configuration of this ReplicationDomain.
-   * @param updateToReplayQueue The queue for update messages to replay.
+   * @param replayScheduler The scheduler for update messages to replay.
    * @param dsrsShutdownSync Synchronization object for shutdown of combined DS/RS instances.
    * @throws ConfigException In case of invalid configuration.
    */
   LDAPReplicationDomain(ReplicationDomainCfg configuration,
-      BlockingQueue<UpdateToReplay> updateToReplayQueue,
+      ReplayScheduler replayScheduler,
       DSRSShutdownSync dsrsShutdownSync) throws ConfigException
   {
     super(configuration, -1);
 
-    this.updateToReplayQueue = updateToReplayQueue;
+    this.replayScheduler = replayScheduler;
     this.dsrsShutdownSync = dsrsShutdownSync;
 
     // Get assured configuration
@@ -2265,15 +2328,6 @@ public final class LDAPReplicationDomain extends ReplicationDomain
     }
   }
 
-  /**
-   * Marks the specified message as the one currently processed by a replay thread.
-   * @param msg the message being processed
-   */
-  void markInProgress(LDAPUpdateMsg msg)
-  {
-    remotePendingChanges.markInProgress(msg);
-  }
-
   /**
    * Create and replay a synchronized Operation from an UpdateMsg.
    *
@@ -2283,6 +2337,19 @@ public final class LDAPReplicationDomain extends ReplicationDomain
    *          whether the server initiated shutdown
    */
   void replay(LDAPUpdateMsg msg, AtomicBoolean shutdown)
+  {
+    replaysInProgress.incrementAndGet();
+    try
+    {
+      replay0(msg, shutdown);
+    }
+    finally
+    {
+      replaysInProgress.decrementAndGet();
+    }
+  }
+
+  private void replay0(LDAPUpdateMsg msg, AtomicBoolean shutdown)
   {
     // Try replay the operation, then flush (replaying) any pending operation
     // whose dependency has been replayed until no more left.
@@ -3393,26 +3460,7 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     LocalBackend<?> backend = getBackend();
 
     //  Acquire a shared lock for the backend.
-    try
-    {
-      String lockFile = LockFileManager.getBackendLockFileName(backend);
-      StringBuilder failureReason = new StringBuilder();
-      if (! LockFileManager.acquireSharedLock(lockFile, failureReason))
-      {
-        LocalizableMessage message =
-            ERR_LDIFEXPORT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(), failureReason);
-        logger.error(message);
-        throw new DirectoryException(ResultCode.OTHER, message);
-      }
-    }
-    catch (Exception e)
-    {
-      LocalizableMessage message =
-          ERR_LDIFEXPORT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(),
-              stackTraceToSingleLineString(e));
-      logger.error(message);
-      throw new DirectoryException(ResultCode.OTHER, message);
-    }
+    acquireExportLock(backend);
 
     long numberOfEntries = backend.getNumberOfEntriesInBaseDN(getBaseDN());
     long entryCount = Math.min(numberOfEntries, 1000);
@@ -3485,28 +3533,94 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
       }
 
       //  Release the shared lock on the backend.
-      try
+      releaseExportLock(backend);
+    }
+    return genID;
+  }
+
+  private void acquireExportLock(LocalBackend<?> backend) throws DirectoryException
+  {
+    try
+    {
+      String lockFile = LockFileManager.getBackendLockFileName(backend);
+      StringBuilder failureReason = new StringBuilder();
+      if (! LockFileManager.acquireSharedLock(lockFile, failureReason))
       {
-        String lockFile = LockFileManager.getBackendLockFileName(backend);
-        StringBuilder failureReason = new StringBuilder();
-        if (! LockFileManager.releaseLock(lockFile, failureReason))
-        {
-          LocalizableMessage message =
-              WARN_LDIFEXPORT_CANNOT_UNLOCK_BACKEND.get(backend.getBackendID(), failureReason);
-          logger.warn(message);
-          throw new DirectoryException(ResultCode.OTHER, message);
-        }
+        LocalizableMessage message =
+            ERR_LDIFEXPORT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(), failureReason);
+        logger.error(message);
+        throw new DirectoryException(ResultCode.OTHER, message);
       }
-      catch (Exception e)
+    }
+    catch (Exception e)
+    {
+      LocalizableMessage message =
+          ERR_LDIFEXPORT_CANNOT_LOCK_BACKEND.get(backend.getBackendID(),
+              stackTraceToSingleLineString(e));
+      logger.error(message);
+      throw new DirectoryException(ResultCode.OTHER, message);
+    }
+  }
+
+  private void releaseExportLock(LocalBackend<?> backend) throws DirectoryException
+  {
+    try
+    {
+      String lockFile = LockFileManager.getBackendLockFileName(backend);
+      StringBuilder failureReason = new StringBuilder();
+      if (! LockFileManager.releaseLock(lockFile, failureReason))
       {
         LocalizableMessage message =
-            WARN_LDIFEXPORT_CANNOT_UNLOCK_BACKEND.get(backend.getBackendID(),
-                stackTraceToSingleLineString(e));
+            WARN_LDIFEXPORT_CANNOT_UNLOCK_BACKEND.get(backend.getBackendID(), failureReason);
         logger.warn(message);
         throw new DirectoryException(ResultCode.OTHER, message);
       }
     }
-    return genID;
+    catch (Exception e)
+    {
+      LocalizableMessage message =
+          WARN_LDIFEXPORT_CANNOT_UNLOCK_BACKEND.get(backend.getBackendID(),
+              stackTraceToSingleLineString(e));
+      logger.warn(message);
+      throw new DirectoryException(ResultCode.OTHER, message);
+    }
+  }
+
+  @Override
+  protected boolean supportsEntryRecords()
+  {
+    final LocalBackend<?> backend = getBackend();
+    return backend instanceof BackendImpl && backend.getBaseDNs().contains(getBaseDN());
+  }
+
+  @Override
+  protected EntryRecordExport openEntryRecordExport() throws DirectoryException
+  {
+    final LocalBackend<?> backend = getBackend();
+    acquireExportLock(backend);
+    try
+    {
+      return ((BackendImpl<?>) backend).newEntryRecordExport(getBaseDN());
+    }
+    catch (DirectoryException | RuntimeException e)
+    {
+      releaseExportLock(backend);
+      throw e;
+    }
+  }
+
+  @Override
+  protected void closeEntryRecordExport(EntryRecordExport export)
+  {
+    try
+    {
+      releaseExportLock(getBackend());
+    }
+    catch (DirectoryException e)
+    {
+      // already logged
+      logger.traceException(e);
+    }
   }
 
   /**
@@ -3544,6 +3658,25 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
    */
   @Override
   protected void importBackend(InputStream input) throws DirectoryException
+  {
+    importBackend(input, null);
+  }
+
+  /**
+   * This method triggers an import of the replicated data from binary entry
+   * records, directly into the pluggable backend.
+   *
+   * @param records              The source of the entry records.
+   * @throws DirectoryException  When needed.
+   */
+  @Override
+  protected void importBackend(EntryRecordSource records) throws DirectoryException
+  {
+    // The LDIF reader of the import configuration is not used
+    importBackend(new ByteArrayInputStream(new byte[0]), records);
+  }
+
+  private void importBackend(InputStream input, EntryRecordSource records) throws DirectoryException
   {
     LocalBackend<?> backend = getBackend();
 
@@ -3575,7 +3708,14 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
 
       // Process import
       preBackendImport(backend);
-      backend.importLDIF(importConfig, getServerContext());
+      if (records != null)
+      {
+        ((BackendImpl<?>) backend).importEntryRecords(importConfig, records, getServerContext());
+      }
+      else
+      {
+        backend.importLDIF(importConfig, getServerContext());
+      }
     }
     catch(Exception e)
     {
@@ -4267,15 +4407,20 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
         return true;
       }
 
-      // Put update message into the replay queue
-      // (block until some place in the queue is available)
+      // Mark the update as "in progress" while updates are still handled in
+      // CSN order, so that dependencies on it can be detected as soon as any
+      // newer update starts being replayed by another thread.
+      remotePendingChanges.markInProgress(msg);
+
+      // Put update message into the replay lane of its target entry
+      // (block until some place in the lane is available)
       final UpdateToReplay updateToReplay = new UpdateToReplay(msg, this);
       while (!isListenerShuttingDown())
       {
-        // loop until we can offer to the queue or shutdown was initiated
+        // loop until we can offer to the scheduler or shutdown was initiated
         try
         {
-          if (updateToReplayQueue.offer(updateToReplay, 1, TimeUnit.SECONDS))
+          if (replayScheduler.offer(updateToReplay, 1, TimeUnit.SECONDS))
           {
             // successful offer to the queue, let's exit the loop
             break;
@@ -4306,6 +4451,48 @@ private boolean solveNamingConflict(ModifyDNOperation op, LDAPUpdateMsg msg)
     attributes.add("remote-pending-changes-size", remotePendingChanges.getQueueSize());
     attributes.add("dependent-changes-size", remotePendingChanges.getDependentChangesSize());
     attributes.add("changes-in-progress-size", remotePendingChanges.changesInProgressSize());
+    attributes.add("replay-parallelism", replaysInProgress.get());
+    attributes.add("replay-threads", replayScheduler.getNumberOfLanes());
+    attributes.add("replay-lag", remotePendingChanges.getReplayLag());
+    addDataChecksumMonitoring(attributes);
+  }
+
+  /**
+   * Adds the checksum of the data of this domain, allowing to compare the data
+   * of replicas without exporting them. The first call starts computing the
+   * checksum in the background, a failed computation being retried with an
+   * increasing delay.
+   */
+  private void addDataChecksumMonitoring(MonitorData attributes)
+  {
+    final LocalBackend<?> backend = getBackend();
+    if (!(backend instanceof BackendImpl))
+    {
+      return;
+    }
+    try
+    {
+      final DataChecksum checksum = ((BackendImpl<?>) backend).getDataChecksum(getBaseDN());
+      if (checksum == null)
+      {
+        if (TimeThread.getTime() >= nextDataChecksumAttemptTime && isComputingDataChecksum.compareAndSet(false, true))
+        {
+          new DataChecksumComputer((BackendImpl<?>) backend).start();
+        }
+        return;
+      }
+      final List<String> branches = new ArrayList<>(DataChecksum.NB_BRANCHES);
+      for (int i = 0; i < DataChecksum.NB_BRANCHES; i++)
+      {
+        branches.add(String.format("%d:%016x", i, checksum.getBranchHash(i)));
+      }
+      attributes.add("data-checksum", checksum);
+      attributes.add("data-checksum-branches", branches);
+    }
+    catch (DirectoryException e)
+    {
+      logger.traceException(e);
+    }
   }
 
   /**
@@ -29,9 +29,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -98,12 +96,12 @@ public class MultimasterReplication
   private ReplicationServerListener replicationServerListener;
   private static final Map<DN, LDAPReplicationDomain> domains = new ConcurrentHashMap<>(4);
   private static final DSRSShutdownSync dsrsShutdownSync = new DSRSShutdownSync();
-  /** The queue of received update messages, to be treated by the ReplayThread threads. */
-  private static final BlockingQueue<UpdateToReplay> updateToReplayQueue = new LinkedBlockingQueue<>(10000);
-  /** The list of ReplayThread threads. */
-  private static final List<ReplayThread> replayThreads = new ArrayList<>();
   /** The configurable number of replay threads. */
   private static int replayThreadNumber = 10;
+  /** The received update messages, partitioned by target entry, to be treated by the ReplayThread threads. */
+  private static final ReplayScheduler replayScheduler = new ReplayScheduler(replayThreadNumber);
+  /** The list of ReplayThread threads. */
+  private static final List<ReplayThread> replayThreads = new ArrayList<>();
 
   /** Enum that symbolizes the state of the multimaster replication. */
   private enum State
@@ -194,7 +192,7 @@ public class MultimasterReplication
     try
     {
       final LDAPReplicationDomain domain = new LDAPReplicationDomain(
-          configuration, updateToReplayQueue, dsrsShutdownSync);
+          configuration, replayScheduler, dsrsShutdownSync);
       if (domains.isEmpty())
       {
         // Create the threads that will process incoming update messages
@@ -218,7 +216,8 @@ public class MultimasterReplication
    * is only used for tests so far.
    *
    * @param configuration The entry with the configuration of this domain.
-   * @param queue         The BlockingQueue that this domain will use.
+   * @param queue         The BlockingQueue that this domain will use as the
+   *                      single lane of its replay scheduler.
    *
    * @return              The domain created.
    *
@@ -230,7 +229,7 @@ public class MultimasterReplication
       throws ConfigException
   {
     final LDAPReplicationDomain domain =
-        new LDAPReplicationDomain(configuration, queue, dsrsShutdownSync);
+        new LDAPReplicationDomain(configuration, new ReplayScheduler(queue), dsrsShutdownSync);
     domains.put(domain.getBaseDN(), domain);
     return domain;
   }
@@ -301,10 +300,11 @@ public class MultimasterReplication
   {
     replayThreads.clear();
 
-    ReentrantLock switchQueueLock = new ReentrantLock();
+    // One lane per thread: updates targeting the same entry are replayed in order by the same thread
+    replayScheduler.setNumberOfLanes(replayThreadNumber);
     for (int i = 0; i < replayThreadNumber; i++)
     {
-      ReplayThread replayThread = new ReplayThread(updateToReplayQueue, switchQueueLock);
+      ReplayThread replayThread = new ReplayThread(replayScheduler, i);
       replayThread.start();
       replayThreads.add(replayThread);
     }
@@ -312,11 +312,30 @@ public class MultimasterReplication
 
   /** Stop the threads that are waiting for incoming update messages. */
   private static synchronized void stopReplayThreads()
+  {
+    stopReplayThreads(true);
+  }
+
+  /**
+   * Stop the threads that are waiting for incoming update messages.
+   *
+   * @param abortReplays
+   *          whether the updates being replayed are abandoned, which is only
+   *          acceptable when the replication is stopped
+   */
+  private static synchronized void stopReplayThreads(boolean abortReplays)
   {
     //  stop the replay threads
     for (ReplayThread replayThread : replayThreads)
     {
-      replayThread.shutdown();
+      if (abortReplays)
+      {
+        replayThread.shutdown();
+      }
+      else
+      {
+        replayThread.stopAfterReplay();
+      }
     }
 
     for (ReplayThread replayThread : replayThreads)
@@ -744,8 +763,8 @@ public class MultimasterReplication
   @Override
   public ConfigChangeResult applyConfigurationChange(ReplicationSynchronizationProviderCfg configuration)
   {
-    // Stop threads then restart new number of threads
-    stopReplayThreads();
+    // Stop threads then restart new number of threads, without losing the updates they are replaying
+    stopReplayThreads(false);
     replayThreadNumber = getNumberOfReplayThreadsOrDefault(configuration);
     if (!domains.isEmpty())
     {
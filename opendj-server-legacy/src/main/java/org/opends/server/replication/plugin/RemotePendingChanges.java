@@ -42,6 +42,7 @@ import org.opends.server.replication.protocol.ModifyDNMsg;
 import org.opends.server.replication.protocol.ModifyMsg;
 import org.opends.server.replication.protocol.OperationContext;
 import org.opends.server.types.Operation;
+import org.opends.server.util.TimeThread;
 
 /**
  * This class is used to store the list of remote changes received
@@ -110,9 +111,33 @@ final class RemotePendingChanges
   }
 
   /**
-   * Returns the number of changes actively being replayed.
+   * Returns the replay lag, computed as the time elapsed since the oldest change
+   * not yet replayed was originally made.
    *
-   * @return the number of changes actively being replayed.
+   * @return the replay lag in milliseconds, or 0 if all the received changes
+   *         have been replayed.
+   */
+  public long getReplayLag()
+  {
+    pendingChangesReadLock.lock();
+    try
+    {
+      if (pendingChanges.isEmpty())
+      {
+        return 0;
+      }
+      return Math.max(0, TimeThread.getTime() - pendingChanges.firstKey().getTime());
+    }
+    finally
+    {
+      pendingChangesReadLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of changes queued or actively being replayed.
+   *
+   * @return the number of changes queued or actively being replayed.
    */
   public int changesInProgressSize()
   {
@@ -200,6 +225,13 @@ final class RemotePendingChanges
     }
   }
 
+  /**
+   * Marks a change as queued for replay. Changes must be marked in the order
+   * they were received, so that dependencies are detected in CSN order.
+   *
+   * @param msg
+   *          the change queued for replay
+   */
   public void markInProgress(LDAPUpdateMsg msg)
   {
     pendingChangesReadLock.lock();
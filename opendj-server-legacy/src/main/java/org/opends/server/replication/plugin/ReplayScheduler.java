@@ -0,0 +1,226 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.forgerock.opendj.ldap.DN;
+
+/**
+ * Dispatches the updates received by the replication domains to the replay
+ * threads.
+ * <p>
+ * Updates are partitioned into lanes by target entry DN, one lane per replay
+ * thread. All the updates targeting the same entry are therefore replayed by
+ * the same thread, in the order they were received, while updates targeting
+ * different entries are replayed fully in parallel. Dependencies between
+ * different entries (parent and child entries, renamed entries) are still
+ * detected and ordered by {@link RemotePendingChanges}.
+ */
+final class ReplayScheduler
+{
+  /** The maximum number of updates waiting for replay, shared by all the lanes. */
+  private static final int DEFAULT_CAPACITY = 10000;
+
+  /**
+   * Guards the list of lanes: updates are offered with the read lock held, the
+   * lanes are only rebuilt, with the write lock held, while replay threads are
+   * stopped.
+   */
+  private final ReentrantReadWriteLock lanesLock = new ReentrantReadWriteLock();
+  private List<BlockingQueue<UpdateToReplay>> lanes;
+
+  /**
+   * Creates a new scheduler.
+   *
+   * @param nbLanes
+   *          the number of lanes, which must match the number of replay threads
+   */
+  ReplayScheduler(int nbLanes)
+  {
+    this.lanes = newLanes(nbLanes, 0);
+  }
+
+  /**
+   * Creates a new scheduler dispatching all the updates to the provided queue.
+   *
+   * @param lane
+   *          the single lane of this scheduler
+   */
+  ReplayScheduler(BlockingQueue<UpdateToReplay> lane)
+  {
+    this.lanes = Collections.singletonList(lane);
+  }
+
+  private static List<BlockingQueue<UpdateToReplay>> newLanes(int nbLanes, int minCapacity)
+  {
+    final int capacity = Math.max(DEFAULT_CAPACITY / nbLanes, minCapacity);
+    final List<BlockingQueue<UpdateToReplay>> newLanes = new ArrayList<>(nbLanes);
+    for (int i = 0; i < nbLanes; i++)
+    {
+      newLanes.add(new LinkedBlockingQueue<UpdateToReplay>(Math.max(capacity, 1)));
+    }
+    return newLanes;
+  }
+
+  /**
+   * Changes the number of lanes. The updates already queued are moved to the
+   * new lanes, keeping their relative order for each entry. This method must
+   * only be called while no replay thread is running.
+   *
+   * @param nbLanes
+   *          the new number of lanes
+   */
+  void setNumberOfLanes(int nbLanes)
+  {
+    lanesLock.writeLock().lock();
+    try
+    {
+      if (nbLanes == lanes.size())
+      {
+        return;
+      }
+
+      final List<UpdateToReplay> queued = new ArrayList<>();
+      for (BlockingQueue<UpdateToReplay> lane : lanes)
+      {
+        lane.drainTo(queued);
+      }
+      // Make sure all the queued updates fit, even if they all target the same lane.
+      final List<BlockingQueue<UpdateToReplay>> newLanes = newLanes(nbLanes, queued.size());
+      for (UpdateToReplay update : queued)
+      {
+        newLanes.get(laneIndex(update, nbLanes)).add(update);
+      }
+      lanes = newLanes;
+    }
+    finally
+    {
+      lanesLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of lanes of this scheduler.
+   *
+   * @return the number of lanes of this scheduler
+   */
+  int getNumberOfLanes()
+  {
+    lanesLock.readLock().lock();
+    try
+    {
+      return lanes.size();
+    }
+    finally
+    {
+      lanesLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Queues an update in the lane of the entry it targets, waiting if necessary
+   * up to the specified time for space to become available.
+   *
+   * @param update
+   *          the update to replay
+   * @param timeout
+   *          how long to wait before giving up
+   * @param unit
+   *          the unit of the timeout
+   * @return {@code true} if the update was queued, {@code false} if the
+   *         timeout elapsed before space was available
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  boolean offer(UpdateToReplay update, long timeout, TimeUnit unit) throws InterruptedException
+  {
+    lanesLock.readLock().lock();
+    try
+    {
+      return lanes.get(laneIndex(update, lanes.size())).offer(update, timeout, unit);
+    }
+    finally
+    {
+      lanesLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Retrieves and removes the next update of a lane, waiting up to the
+   * specified time if necessary for an update to become available.
+   *
+   * @param laneIndex
+   *          the index of the lane
+   * @param timeout
+   *          how long to wait before giving up
+   * @param unit
+   *          the unit of the timeout
+   * @return the next update of the lane, or {@code null} if the timeout
+   *         elapsed before an update was available
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  UpdateToReplay poll(int laneIndex, long timeout, TimeUnit unit) throws InterruptedException
+  {
+    final BlockingQueue<UpdateToReplay> lane;
+    lanesLock.readLock().lock();
+    try
+    {
+      lane = lanes.get(laneIndex);
+    }
+    finally
+    {
+      lanesLock.readLock().unlock();
+    }
+    return lane.poll(timeout, unit);
+  }
+
+  /**
+   * Returns the total number of updates waiting to be replayed.
+   *
+   * @return the total number of updates waiting to be replayed
+   */
+  int size()
+  {
+    lanesLock.readLock().lock();
+    try
+    {
+      int size = 0;
+      for (BlockingQueue<UpdateToReplay> lane : lanes)
+      {
+        size += lane.size();
+      }
+      return size;
+    }
+    finally
+    {
+      lanesLock.readLock().unlock();
+    }
+  }
+
+  private static int laneIndex(UpdateToReplay update, int nbLanes)
+  {
+    final DN targetDN = update.getUpdateMessage().getDN();
+    return Math.floorMod(targetDN.hashCode(), nbLanes);
+  }
+}
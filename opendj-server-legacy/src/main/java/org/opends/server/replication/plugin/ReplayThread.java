@@ -19,10 +19,8 @@ package org.opends.server.replication.plugin;
 import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.util.StaticUtils.*;
 
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.opends.server.api.DirectoryThread;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -33,34 +31,48 @@ import org.opends.server.replication.protocol.LDAPUpdateMsg;
  * in the updates queue) and replay them in the current server. A configurable
  * number of this thread is created for the whole MultimasterReplication object
  * (i.e: these threads are shared across the ReplicationDomain objects for
- * replaying the updates they receive)
+ * replaying the updates they receive). Each thread replays the updates of one
+ * lane of the {@link ReplayScheduler}.
  */
 public class ReplayThread extends DirectoryThread
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
-  private final BlockingQueue<UpdateToReplay> updateToReplayQueue;
-  private final ReentrantLock switchQueueLock;
+  private final ReplayScheduler replayScheduler;
+  private final int laneIndex;
   private AtomicBoolean shutdown = new AtomicBoolean(false);
+  /** Only set when the server shuts down: the update being replayed is then abandoned. */
+  private final AtomicBoolean abortReplay = new AtomicBoolean(false);
   private static int count;
 
   /**
    * Constructor for the ReplayThread.
    *
-   * @param updateToReplayQueue The queue of update messages we have to replay
-   * @param switchQueueLock lock to ensure moving updates from one queue to another is atomic
+   * @param replayScheduler The scheduler holding the update messages we have to replay
+   * @param laneIndex The index of the scheduler lane replayed by this thread
    */
-  public ReplayThread(BlockingQueue<UpdateToReplay> updateToReplayQueue, ReentrantLock switchQueueLock)
+  ReplayThread(ReplayScheduler replayScheduler, int laneIndex)
   {
     super("Replica replay thread " + count++);
-    this.updateToReplayQueue = updateToReplayQueue;
-    this.switchQueueLock = switchQueueLock;
+    this.replayScheduler = replayScheduler;
+    this.laneIndex = laneIndex;
   }
 
   /**
-   * Shutdown this replay thread.
+   * Shutdown this replay thread, abandoning the update it is replaying, if any.
    */
   public void shutdown()
+  {
+    abortReplay.set(true);
+    shutdown.set(true);
+  }
+
+  /**
+   * Stops this replay thread once the update it is replaying, if any, has been
+   * replayed. The updates still queued are left to the threads replacing this
+   * one.
+   */
+  void stopAfterReplay()
   {
     shutdown.set(true);
   }
@@ -80,32 +92,19 @@ public class ReplayThread extends DirectoryThread
     {
       try
       {
-        if (switchQueueLock.tryLock(1L, TimeUnit.SECONDS))
+        UpdateToReplay updateToReplay = replayScheduler.poll(laneIndex, 1L, TimeUnit.SECONDS);
+        if (updateToReplay == null)
         {
-          LDAPReplicationDomain domain;
-          LDAPUpdateMsg updateMsg;
-          try
-          {
-            if (shutdown.get())
-            {
-              break;
-            }
-            UpdateToReplay updateToreplay = updateToReplayQueue.poll(1L, TimeUnit.SECONDS);
-            if (updateToreplay == null)
-            {
-              continue;
-            }
-            // Find replication domain for that update message and mark it as "in progress"
-            updateMsg = updateToreplay.getUpdateMessage();
-            domain = updateToreplay.getReplicationDomain();
-            domain.markInProgress(updateMsg);
-          }
-          finally
-          {
-            switchQueueLock.unlock();
-          }
-          domain.replay(updateMsg, shutdown);
+          continue;
         }
+        /*
+         * The update was marked as "in progress" by its domain when it was queued:
+         * once taken from its lane, it must be replayed even if this thread is
+         * being stopped, otherwise the server state of the domain would stall.
+         */
+        LDAPUpdateMsg updateMsg = updateToReplay.getUpdateMessage();
+        LDAPReplicationDomain domain = updateToReplay.getReplicationDomain();
+        domain.replay(updateMsg, abortReplay);
       }
       catch (Exception e)
       {
@@ -0,0 +1,201 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.protocol;
+
+import java.util.zip.DataFormatException;
+
+/**
+ * This message is part of the replication protocol: it carries a batch of
+ * entries of an online initialization in the binary representation of the
+ * entry tree of the exporting backend. The records are already deflated, so
+ * the session does not compress this message again.
+ *
+ * @see InitializeStreamsMsg
+ */
+public class EntryBatchMsg extends RoutableMsg
+{
+  private final int msgId;
+  private final int streamId;
+  private final long nextEntryID;
+  private final int nbEntries;
+  private final byte[] schemaDefinitions;
+  private final byte[] records;
+
+  /**
+   * Creates a new message.
+   *
+   * @param sender
+   *          The server ID of the server that sends this message.
+   * @param destination
+   *          The destination of this message.
+   * @param msgId
+   *          The ID of this message among the messages of the initialization,
+   *          used for the flow control.
+   * @param streamId
+   *          The identifier of the stream this batch belongs to.
+   * @param nextEntryID
+   *          The lowest entry ID of the exporting backend remaining to be sent
+   *          on the stream after this batch.
+   * @param nbEntries
+   *          The number of entry records in this batch.
+   * @param schemaDefinitions
+   *          The compressed schema definitions to load before decoding the
+   *          records.
+   * @param records
+   *          The deflated entry records.
+   */
+  public EntryBatchMsg(int sender, int destination, int msgId, int streamId,
+      long nextEntryID, int nbEntries, byte[] schemaDefinitions, byte[] records)
+  {
+    super(sender, destination);
+    this.msgId = msgId;
+    this.streamId = streamId;
+    this.nextEntryID = nextEntryID;
+    this.nbEntries = nbEntries;
+    this.schemaDefinitions = schemaDefinitions;
+    this.records = records;
+  }
+
+  /**
+   * Creates a new message from its encoded form.
+   *
+   * @param in
+   *          The byte array containing the encoded form of the message.
+   * @throws DataFormatException
+   *           If the byte array does not contain a valid encoded form of the
+   *           message.
+   */
+  EntryBatchMsg(byte[] in) throws DataFormatException
+  {
+    final ByteArrayScanner scanner = new ByteArrayScanner(in);
+    if (scanner.nextByte() != MSG_TYPE_ENTRY_BATCH)
+    {
+      throw new DataFormatException("input is not a valid "
+          + getClass().getCanonicalName());
+    }
+
+    senderID = scanner.nextIntUTF8();
+    destination = scanner.nextIntUTF8();
+    msgId = scanner.nextIntUTF8();
+    streamId = scanner.nextIntUTF8();
+    nextEntryID = scanner.nextLongUTF8();
+    nbEntries = scanner.nextIntUTF8();
+    try
+    {
+      schemaDefinitions = scanner.nextByteArray(scanner.nextInt());
+      records = scanner.nextByteArray(scanner.nextInt());
+    }
+    catch (IndexOutOfBoundsException | NegativeArraySizeException e)
+    {
+      throw new DataFormatException("input is not a valid "
+          + getClass().getCanonicalName());
+    }
+  }
+
+  @Override
+  public byte[] getBytes(short protocolVersion)
+  {
+    final ByteArrayBuilder builder = new ByteArrayBuilder(
+        schemaDefinitions.length + records.length + 64);
+    builder.appendByte(MSG_TYPE_ENTRY_BATCH);
+    builder.appendIntUTF8(senderID);
+    builder.appendIntUTF8(destination);
+    builder.appendIntUTF8(msgId);
+    builder.appendIntUTF8(streamId);
+    builder.appendLongUTF8(nextEntryID);
+    builder.appendIntUTF8(nbEntries);
+    builder.appendInt(schemaDefinitions.length);
+    builder.appendByteArray(schemaDefinitions);
+    builder.appendInt(records.length);
+    builder.appendByteArray(records);
+    return builder.toByteArray();
+  }
+
+  /**
+   * Returns the ID of this message among the messages of the initialization.
+   *
+   * @return the ID of this message
+   */
+  public int getMsgId()
+  {
+    return msgId;
+  }
+
+  /**
+   * Returns the identifier of the stream this batch belongs to.
+   *
+   * @return the identifier of the stream
+   */
+  public int getStreamId()
+  {
+    return streamId;
+  }
+
+  /**
+   * Returns the lowest entry ID of the exporting backend remaining to be sent
+   * on the stream after this batch.
+   *
+   * @return the next entry ID of the stream
+   */
+  public long getNextEntryID()
+  {
+    return nextEntryID;
+  }
+
+  /**
+   * Returns the number of entry records in this batch.
+   *
+   * @return the number of entry records
+   */
+  public int getNbEntries()
+  {
+    return nbEntries;
+  }
+
+  /**
+   * Returns the compressed schema definitions to load before decoding the
+   * records.
+   *
+   * @return the compressed schema definitions, possibly empty
+   */
+  public byte[] getSchemaDefinitions()
+  {
+    return schemaDefinitions;
+  }
+
+  /**
+   * Returns the deflated entry records.
+   *
+   * @return the deflated entry records
+   */
+  public byte[] getRecords()
+  {
+    return records;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "=[" +
+      " sender=" + this.senderID +
+      " destination=" + this.destination +
+      " msgID=" + this.msgId +
+      " streamId=" + this.streamId +
+      " nextEntryID=" + this.nextEntryID +
+      " nbEntries=" + this.nbEntries +
+      " recordsLength=" + this.records.length + "]";
+  }
+}
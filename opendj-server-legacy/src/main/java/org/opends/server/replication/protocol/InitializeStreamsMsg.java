@@ -0,0 +1,208 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.protocol;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+
+/**
+ * This message negotiates the streams of an online initialization sending
+ * binary entry records, see {@link EntryBatchMsg}.
+ * <p>
+ * The importer sends it in reply to an {@link InitializeTargetMsg} offering
+ * streams, to accept them: the positions are those it checkpointed during a
+ * previous interrupted initialization from the same exporter, so that the
+ * exporter can resume the streams, or are empty. The exporter then sends it
+ * before the first {@link EntryBatchMsg}, with the positions of the streams it
+ * actually sends.
+ */
+public class InitializeStreamsMsg extends RoutableMsg
+{
+  /**
+   * The range of entry IDs of the exporting backend remaining to be sent on a
+   * stream.
+   */
+  public static final class StreamPosition
+  {
+    private final long nextEntryID;
+    private final long endEntryID;
+
+    /**
+     * Creates a stream position.
+     *
+     * @param nextEntryID
+     *          the lowest entry ID remaining to be sent on the stream
+     * @param endEntryID
+     *          the entry ID at which the stream ends, excluded,
+     *          {@link Long#MAX_VALUE} if the stream is not bounded
+     */
+    public StreamPosition(long nextEntryID, long endEntryID)
+    {
+      this.nextEntryID = nextEntryID;
+      this.endEntryID = endEntryID;
+    }
+
+    /**
+     * Returns the lowest entry ID remaining to be sent on the stream.
+     *
+     * @return the lowest entry ID remaining to be sent on the stream
+     */
+    public long getNextEntryID()
+    {
+      return nextEntryID;
+    }
+
+    /**
+     * Returns the entry ID at which the stream ends, excluded.
+     *
+     * @return the entry ID at which the stream ends, {@link Long#MAX_VALUE} if
+     *         the stream is not bounded
+     */
+    public long getEndEntryID()
+    {
+      return endEntryID;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (this == obj)
+      {
+        return true;
+      }
+      if (!(obj instanceof StreamPosition))
+      {
+        return false;
+      }
+      final StreamPosition other = (StreamPosition) obj;
+      return nextEntryID == other.nextEntryID && endEntryID == other.endEntryID;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Long.valueOf(nextEntryID).hashCode() * 31 + Long.valueOf(endEntryID).hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+      return "[" + nextEntryID + ", " + (endEntryID == Long.MAX_VALUE ? "" : endEntryID) + ")";
+    }
+  }
+
+  private final long generationId;
+  private final List<StreamPosition> positions;
+
+  /**
+   * Creates a new message.
+   *
+   * @param sender
+   *          The server ID of the server that sends this message.
+   * @param destination
+   *          The destination of this message.
+   * @param generationId
+   *          The generation ID of the exported data.
+   * @param positions
+   *          The positions of the streams, possibly empty.
+   */
+  public InitializeStreamsMsg(int sender, int destination, long generationId, List<StreamPosition> positions)
+  {
+    super(sender, destination);
+    this.generationId = generationId;
+    this.positions = Collections.unmodifiableList(new ArrayList<>(positions));
+  }
+
+  /**
+   * Creates a new message from its encoded form.
+   *
+   * @param in
+   *          The byte array containing the encoded form of the message.
+   * @throws DataFormatException
+   *           If the byte array does not contain a valid encoded form of the
+   *           message.
+   */
+  InitializeStreamsMsg(byte[] in) throws DataFormatException
+  {
+    final ByteArrayScanner scanner = new ByteArrayScanner(in);
+    if (scanner.nextByte() != MSG_TYPE_INITIALIZE_STREAMS)
+    {
+      throw new DataFormatException("input is not a valid "
+          + getClass().getCanonicalName());
+    }
+
+    senderID = scanner.nextIntUTF8();
+    destination = scanner.nextIntUTF8();
+    generationId = scanner.nextLongUTF8();
+    final int nbPositions = scanner.nextIntUTF8();
+    final List<StreamPosition> decoded = new ArrayList<>(nbPositions);
+    for (int i = 0; i < nbPositions; i++)
+    {
+      decoded.add(new StreamPosition(scanner.nextLongUTF8(), scanner.nextLongUTF8()));
+    }
+    positions = Collections.unmodifiableList(decoded);
+  }
+
+  @Override
+  public byte[] getBytes(short protocolVersion)
+  {
+    final ByteArrayBuilder builder = new ByteArrayBuilder();
+    builder.appendByte(MSG_TYPE_INITIALIZE_STREAMS);
+    builder.appendIntUTF8(senderID);
+    builder.appendIntUTF8(destination);
+    builder.appendLongUTF8(generationId);
+    builder.appendIntUTF8(positions.size());
+    for (StreamPosition position : positions)
+    {
+      builder.appendLongUTF8(position.getNextEntryID());
+      builder.appendLongUTF8(position.getEndEntryID());
+    }
+    return builder.toByteArray();
+  }
+
+  /**
+   * Returns the generation ID of the exported data.
+   *
+   * @return the generation ID of the exported data
+   */
+  public long getGenerationId()
+  {
+    return generationId;
+  }
+
+  /**
+   * Returns the positions of the streams, the index of a position being the
+   * identifier of its stream.
+   *
+   * @return the positions of the streams, possibly empty
+   */
+  public List<StreamPosition> getPositions()
+  {
+    return positions;
+  }
+
+  @Override
+  public String toString()
+  {
+    return getClass().getSimpleName() + "=[" +
+      " sender=" + this.senderID +
+      " destination=" + this.destination +
+      " generationId=" + this.generationId +
+      " positions=" + this.positions + "]";
+  }
+}
@@ -41,6 +41,12 @@ public class InitializeTargetMsg extends RoutableMsg
 
   private int initWindow;
 
+  /**
+   * The number of streams over which the exporter offers to send the binary
+   * entry records, 0 if only LDIF entries are sent.
+   */
+  private final int nbStreams;
+
   /**
    * Creates a InitializeTargetMsg.
    *
@@ -53,12 +59,31 @@ public class InitializeTargetMsg extends RoutableMsg
    */
   public InitializeTargetMsg(DN baseDN, int serverID,
       int destination, int requestorID, long entryCount, int initWindow)
+  {
+    this(baseDN, serverID, destination, requestorID, entryCount, initWindow, 0);
+  }
+
+  /**
+   * Creates a InitializeTargetMsg offering to send binary entry records.
+   *
+   * @param baseDN     The base DN for which the InitializeMessage is created.
+   * @param serverID   The serverID of the server that sends this message.
+   * @param destination     The destination of this message.
+   * @param requestorID    The server that initiates this export.
+   * @param entryCount The count of entries that will be sent.
+   * @param initWindow the initialization window.
+   * @param nbStreams the number of streams over which the entry records are
+   *                  offered, 0 to send LDIF entries only.
+   */
+  public InitializeTargetMsg(DN baseDN, int serverID, int destination,
+      int requestorID, long entryCount, int initWindow, int nbStreams)
   {
     super(serverID, destination);
     this.requestorID = requestorID;
     this.baseDN = baseDN;
     this.entryCount = entryCount;
     this.initWindow = initWindow; // V4
+    this.nbStreams = nbStreams; // V10
   }
 
   /**
@@ -87,6 +112,9 @@ public class InitializeTargetMsg extends RoutableMsg
     {
       initWindow = scanner.nextIntUTF8();
     }
+    nbStreams = version >= ProtocolVersion.REPLICATION_PROTOCOL_V10
+        ? scanner.nextIntUTF8()
+        : 0;
   }
 
   /**
@@ -130,6 +158,17 @@ public class InitializeTargetMsg extends RoutableMsg
     return this.initWindow;
   }
 
+  /**
+   * Get the number of streams over which the exporter offers to send the
+   * binary entry records.
+   *
+   * @return the number of streams offered, 0 if only LDIF entries are sent.
+   */
+  public int getNbStreams()
+  {
+    return this.nbStreams;
+  }
+
   // ============
   // Msg encoding
   // ============
@@ -149,6 +188,10 @@ public class InitializeTargetMsg extends RoutableMsg
     {
       builder.appendIntUTF8(initWindow);
     }
+    if (version >= ProtocolVersion.REPLICATION_PROTOCOL_V10)
+    {
+      builder.appendIntUTF8(nbStreams);
+    }
     return builder.toByteArray();
   }
 
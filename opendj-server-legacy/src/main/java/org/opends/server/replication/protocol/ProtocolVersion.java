@@ -94,10 +94,29 @@ public class ProtocolVersion
    */
   public static final short REPLICATION_PROTOCOL_V8 = 8;
 
+  /**
+   * The constant for the 9th version of the replication protocol.
+   * <ul>
+   * <li>Messages sent once the protocol version has been negotiated may be
+   * compressed.</li>
+   * </ul>
+   */
+  public static final short REPLICATION_PROTOCOL_V9 = 9;
+
+  /**
+   * The constant for the 10th version of the replication protocol.
+   * <ul>
+   * <li>Number of initialization streams in InitializeTargetMsg.</li>
+   * <li>New InitializeStreamsMsg and EntryBatchMsg: online initialization of
+   * a pluggable backend from the binary entry records of another one.</li>
+   * </ul>
+   */
+  public static final short REPLICATION_PROTOCOL_V10 = 10;
+
   /**
    * The replication protocol version used by the instance of RS/DS in this VM.
    */
-  private static final short CURRENT_VERSION = REPLICATION_PROTOCOL_V8;
+  private static final short CURRENT_VERSION = REPLICATION_PROTOCOL_V10;
 
   /**
    * Gets the current version of the replication protocol.
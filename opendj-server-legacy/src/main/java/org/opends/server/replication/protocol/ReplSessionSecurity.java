@@ -160,8 +160,8 @@ public final class ReplSessionSecurity
 
     try
     {
-      // Create a new SSL context every time to make sure we pick up the
-      // latest contents of the trust store.
+      // The SSL context is shared with the previous sessions so that they can
+      // be resumed, and renewed when the contents of the trust store change.
       final SSLContext sslContext = getCryptoManager().getSslContext(REPLICATION_CLIENT_NAME, sslCertNicknames);
       final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
 
@@ -224,8 +224,8 @@ public final class ReplSessionSecurity
 
     try
     {
-      // Create a new SSL context every time to make sure we pick up the
-      // latest contents of the trust store.
+      // The SSL context is shared with the previous sessions so that they can
+      // be resumed, and renewed when the contents of the trust store change.
       final SSLContext sslContext = getCryptoManager().getSslContext(REPLICATION_SERVER_NAME, sslCertNicknames);
       final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
 
@@ -84,6 +84,17 @@ public abstract class ReplicationMsg
   /** @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V8} */
   static final byte MSG_TYPE_REPLICA_OFFLINE = 37;
 
+  // Added for V10
+  // - New msgs types
+  //   InitializeStreamsMsg, EntryBatchMsg
+  // - Modified msgs types
+  //   InitializeTargetMsg
+
+  /** @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V10} */
+  static final byte MSG_TYPE_INITIALIZE_STREAMS = 38;
+  /** @since {@link ProtocolVersion#REPLICATION_PROTOCOL_V10} */
+  static final byte MSG_TYPE_ENTRY_BATCH = 39;
+
   // Adding a new type of message here probably requires to
   // change accordingly generateMsg method below
 
@@ -202,6 +213,10 @@ public abstract class ReplicationMsg
       return new InitializeRcvAckMsg(buffer);
     case MSG_TYPE_REPLICA_OFFLINE:
       return new ReplicaOfflineMsg(buffer);
+    case MSG_TYPE_INITIALIZE_STREAMS:
+      return new InitializeStreamsMsg(buffer);
+    case MSG_TYPE_ENTRY_BATCH:
+      return new EntryBatchMsg(buffer);
     default:
       throw new DataFormatException("received message with unknown type");
     }
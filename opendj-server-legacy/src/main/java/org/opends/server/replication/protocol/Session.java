@@ -26,18 +26,25 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import javax.net.ssl.SSLSocket;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.MonitorData;
 import org.opends.server.types.HostPort;
 import org.opends.server.util.StaticUtils;
 
@@ -48,11 +55,29 @@ public final class Session extends DirectoryThread implements Closeable
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /** Maximum number of queued messages written to the socket before flushing it. */
+  private static final int MAX_SEND_BATCH_SIZE = 256;
+  /**
+   * Size of the output buffer, large enough to coalesce a batch of small
+   * updates into a few large writes.
+   */
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+  /**
+   * Size of the smallest message compressed: compressing smaller messages would
+   * cost more than the few bytes saved.
+   */
+  private static final int MIN_COMPRESSED_MESSAGE_SIZE = 128;
+  /** Flag set in the length header of the compressed messages. */
+  private static final int COMPRESSED_MESSAGE_FLAG = 0x80000000;
+
   private final Socket plainSocket;
   private final SSLSocket secureSocket;
   private final InputStream plainInput;
   private final OutputStream plainOutput;
   private final byte[] rcvLengthBuf = new byte[8];
+  /** Guarded by publishLock. */
+  private final byte[] sendLengthBuf = new byte[8];
   private final String readableRemoteAddress;
   private final HostPort remoteAddress;
   private final HostPort localUrl;
@@ -84,6 +109,25 @@ public final class Session extends DirectoryThread implements Closeable
   private short protocolVersion = ProtocolVersion.getCurrentVersion();
   /** Initially encrypted. */
   private boolean isEncrypted = true;
+  /**
+   * Whether the messages sent are compressed, which is only the case once
+   * both peers have negotiated a protocol version supporting it.
+   */
+  private volatile boolean isCompressing;
+
+  /**
+   * Compresses the messages sent, keeping its dictionary from one message to
+   * the next so that small similar messages compress well. Guarded by
+   * publishLock, lazily created.
+   */
+  private Deflater deflater;
+  /** Holds the last compressed message. Guarded by publishLock. */
+  private byte[] compressedBuffer = new byte[0];
+  /**
+   * Decompresses the messages received, in the order they were compressed.
+   * Only used by the single thread calling {@link #receive()}, lazily created.
+   */
+  private Inflater inflater;
 
   /**
    * Use a buffered input stream to avoid too many system calls.
@@ -100,6 +144,17 @@ public final class Session extends DirectoryThread implements Closeable
   private AtomicBoolean isRunning = new AtomicBoolean(false);
   private final CountDownLatch latch = new CountDownLatch(1);
 
+  /** The time this session was created, used to compute the throughput. */
+  private final long creationTime = System.currentTimeMillis();
+  private final AtomicLong sentBytes = new AtomicLong();
+  /** Number of bytes which would have been sent without compression. */
+  private final AtomicLong sentUncompressedBytes = new AtomicLong();
+  private final AtomicLong sentMessages = new AtomicLong();
+  /** Number of times the output was flushed, each flush sending a batch of messages. */
+  private final AtomicLong sentBatches = new AtomicLong();
+  /** Only updated by the single thread calling {@link #receive()}. */
+  private volatile long receivedBytes;
+
   /**
    * Creates a new Session.
    *
@@ -129,7 +184,7 @@ public final class Session extends DirectoryThread implements Closeable
     this.plainInput = plainSocket.getInputStream();
     this.plainOutput = plainSocket.getOutputStream();
     this.input = new BufferedInputStream(secureSocket.getInputStream());
-    this.output = new BufferedOutputStream(secureSocket.getOutputStream());
+    this.output = new BufferedOutputStream(secureSocket.getOutputStream(), OUTPUT_BUFFER_SIZE);
     this.readableRemoteAddress = plainSocket.getRemoteSocketAddress().toString();
     this.remoteAddress = new HostPort(plainSocket.getInetAddress().getHostAddress(), plainSocket.getPort());
     this.localUrl = new HostPort(plainSocket.getLocalAddress().getHostName(), plainSocket.getLocalPort());
@@ -201,6 +256,20 @@ public final class Session extends DirectoryThread implements Closeable
     }
 
     StaticUtils.close(plainSocket, secureSocket);
+
+    publishLock.lock();
+    try
+    {
+      if (deflater != null)
+      {
+        deflater.end();
+        deflater = null;
+      }
+    }
+    finally
+    {
+      publishLock.unlock();
+    }
   }
 
 
@@ -346,9 +415,6 @@ public final class Session extends DirectoryThread implements Closeable
    */
   private void send(final byte[] buffer) throws IOException
   {
-    final String str = String.format("%08x", buffer.length);
-    final byte[] sendLengthBuf = str.getBytes();
-
     publishLock.lock();
     try
     {
@@ -356,9 +422,8 @@ public final class Session extends DirectoryThread implements Closeable
        * The buffered output stream ensures that the message is usually sent as
        * a single TCP packet.
        */
-      output.write(sendLengthBuf);
-      output.write(buffer);
-      output.flush();
+      write(buffer);
+      flush();
     } catch (final IOException e) {
       setSessionError(e);
       throw e;
@@ -371,6 +436,113 @@ public final class Session extends DirectoryThread implements Closeable
     lastPublishTime = System.currentTimeMillis();
   }
 
+  /**
+   * Sends a batch of replication messages already encoded to the socket,
+   * flushing it only once all of them have been written.
+   *
+   * @param buffers
+   *          the encoded buffers, in the order they must be sent
+   * @throws IOException if the messages could not be sent
+   */
+  private void send(final List<byte[]> buffers) throws IOException
+  {
+    publishLock.lock();
+    try
+    {
+      /*
+       * The messages are coalesced in the buffered output stream so that they
+       * are written to the socket with as few system calls as possible.
+       */
+      for (final byte[] buffer : buffers)
+      {
+        write(buffer);
+      }
+      flush();
+    } catch (final IOException e) {
+      setSessionError(e);
+      throw e;
+    }
+    finally
+    {
+      publishLock.unlock();
+    }
+
+    lastPublishTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Writes the length header and the content of a message, compressing it if
+   * the peer supports it. Must be called with publishLock held.
+   */
+  private void write(final byte[] buffer) throws IOException
+  {
+    byte[] content = buffer;
+    int contentLength = buffer.length;
+    int header = contentLength;
+    // The entry records of an EntryBatchMsg are already deflated
+    if (isCompressing && buffer.length >= MIN_COMPRESSED_MESSAGE_SIZE && !closeInitiated
+        && buffer[0] != ReplicationMsg.MSG_TYPE_ENTRY_BATCH)
+    {
+      contentLength = compress(buffer);
+      content = compressedBuffer;
+      header = contentLength | COMPRESSED_MESSAGE_FLAG;
+    }
+
+    for (int i = sendLengthBuf.length - 1; i >= 0; i--)
+    {
+      sendLengthBuf[i] = HEX_DIGITS[header & 0x0f];
+      header >>>= 4;
+    }
+    output.write(sendLengthBuf);
+    output.write(content, 0, contentLength);
+    sentBytes.addAndGet(sendLengthBuf.length + contentLength);
+    sentUncompressedBytes.addAndGet(sendLengthBuf.length + buffer.length);
+    sentMessages.incrementAndGet();
+  }
+
+  /**
+   * Compresses a message into the compressed buffer, after its uncompressed
+   * length encoded on 4 bytes. Each message is flushed so that the peer can
+   * decompress it on its own, while the dictionary is kept for the next
+   * messages. Must be called with publishLock held.
+   *
+   * @return the number of bytes of the compressed buffer to send
+   */
+  private int compress(final byte[] buffer)
+  {
+    if (deflater == null)
+    {
+      deflater = new Deflater(Deflater.BEST_SPEED);
+    }
+    if (compressedBuffer.length < buffer.length / 2 + 64)
+    {
+      compressedBuffer = new byte[buffer.length / 2 + 64];
+    }
+    compressedBuffer[0] = (byte) (buffer.length >>> 24);
+    compressedBuffer[1] = (byte) (buffer.length >>> 16);
+    compressedBuffer[2] = (byte) (buffer.length >>> 8);
+    compressedBuffer[3] = (byte) buffer.length;
+    int length = 4;
+    deflater.setInput(buffer);
+    while (true)
+    {
+      length += deflater.deflate(compressedBuffer, length, compressedBuffer.length - length, Deflater.SYNC_FLUSH);
+      if (length < compressedBuffer.length)
+      {
+        // The output buffer was not filled: all the input has been flushed
+        return length;
+      }
+      compressedBuffer = Arrays.copyOf(compressedBuffer, compressedBuffer.length * 2);
+    }
+  }
+
+  /** Flushes the messages written so far. Must be called with publishLock held. */
+  private void flush() throws IOException
+  {
+    output.flush();
+    sentBatches.incrementAndGet();
+  }
+
 
 
   /**
@@ -401,11 +573,12 @@ public final class Session extends DirectoryThread implements Closeable
 
       // Read the first 8 bytes containing the packet length.
       read(rcvLengthBuf);
-      final int totalLength = Integer.parseInt(new String(rcvLengthBuf), 16);
+      final int header = Integer.parseUnsignedInt(new String(rcvLengthBuf), 16);
+      final int totalLength = header & ~COMPRESSED_MESSAGE_FLAG;
 
       try
       {
-        final byte[] buffer = new byte[totalLength];
+        byte[] buffer = new byte[totalLength];
         read(buffer);
 
         /*
@@ -413,6 +586,11 @@ public final class Session extends DirectoryThread implements Closeable
          * processing a message even a time consuming one.
          */
         lastReceiveTime = 0;
+        receivedBytes += rcvLengthBuf.length + totalLength;
+        if ((header & COMPRESSED_MESSAGE_FLAG) != 0)
+        {
+          buffer = decompress(buffer);
+        }
         return ReplicationMsg.generateMsg(buffer, protocolVersion);
       }
       catch (final OutOfMemoryError e)
@@ -428,6 +606,45 @@ public final class Session extends DirectoryThread implements Closeable
     }
   }
 
+  /** Decompresses a message compressed by {@link #compress(byte[])}. */
+  private byte[] decompress(final byte[] compressed) throws DataFormatException
+  {
+    if (inflater == null)
+    {
+      inflater = new Inflater();
+    }
+    if (compressed.length < 4)
+    {
+      throw new DataFormatException("Truncated compressed replication message");
+    }
+    final int length = (compressed[0] & 0xff) << 24 | (compressed[1] & 0xff) << 16
+        | (compressed[2] & 0xff) << 8 | (compressed[3] & 0xff);
+    final byte[] buffer = new byte[length];
+    inflater.setInput(compressed, 4, compressed.length - 4);
+    int inflated = 0;
+    while (inflated < length)
+    {
+      final int read = inflater.inflate(buffer, inflated, length - inflated);
+      if (read == 0 && (inflater.needsInput() || inflater.needsDictionary() || inflater.finished()))
+      {
+        throw new DataFormatException("Truncated compressed replication message");
+      }
+      inflated += read;
+    }
+    // Consume the end of the flushed block, the next message must start on a clean input
+    final byte[] extraByte = new byte[1];
+    int remaining = inflater.getRemaining();
+    while (remaining > 0)
+    {
+      if (inflater.inflate(extraByte) != 0 || inflater.getRemaining() == remaining)
+      {
+        throw new DataFormatException("Compressed replication message longer than announced");
+      }
+      remaining = inflater.getRemaining();
+    }
+    return buffer;
+  }
+
   private void read(byte[] buffer) throws IOException
   {
     final int totalLength = buffer.length;
@@ -447,12 +664,14 @@ public final class Session extends DirectoryThread implements Closeable
   /**
    * This method is called at the establishment of the session and can
    * be used to record the version of the protocol that is currently used.
+   * The messages sent afterwards are compressed if this version supports it.
    *
    * @param version The version of the protocol that is currently used.
    */
   public void setProtocolVersion(final short version)
   {
     protocolVersion = version;
+    isCompressing = version >= ProtocolVersion.REPLICATION_PROTOCOL_V9;
   }
 
 
@@ -502,7 +721,7 @@ public final class Session extends DirectoryThread implements Closeable
     }
 
     input = new BufferedInputStream(plainInput);
-    output = new BufferedOutputStream(plainOutput);
+    output = new BufferedOutputStream(plainOutput, OUTPUT_BUFFER_SIZE);
     isEncrypted = false;
   }
 
@@ -533,26 +752,29 @@ public final class Session extends DirectoryThread implements Closeable
       logger.trace(getName() + " starting.");
     }
     boolean needClosing = false;
+    final List<byte[]> batch = new ArrayList<>(MAX_SEND_BATCH_SIZE);
     while (!closeInitiated)
     {
-      byte[] buffer;
       try
       {
-        buffer = sendQueue.take();
+        batch.add(sendQueue.take());
       }
       catch (InterruptedException ie)
       {
         break;
       }
+      // Pipeline all the messages queued in the meantime in the same write.
+      sendQueue.drainTo(batch, MAX_SEND_BATCH_SIZE - 1);
       try
       {
-        send(buffer);
+        send(batch);
       }
       catch (IOException e)
       {
         setSessionError(e);
         needClosing = true;
       }
+      batch.clear();
     }
     isRunning.set(false);
     if (needClosing)
@@ -565,6 +787,74 @@ public final class Session extends DirectoryThread implements Closeable
     }
   }
 
+  /**
+   * Returns the number of encoded messages waiting to be sent by the session
+   * thread.
+   *
+   * @return The number of messages in the send queue.
+   */
+  public int getSendQueueSize()
+  {
+    return sendQueue.size();
+  }
+
+  /**
+   * Returns the number of bytes sent on this session, including the length
+   * headers.
+   *
+   * @return The number of bytes sent on this session.
+   */
+  public long getSentBytes()
+  {
+    return sentBytes.get();
+  }
+
+  /**
+   * Returns the number of bytes which would have been sent on this session
+   * without compression, including the length headers.
+   *
+   * @return The number of uncompressed bytes sent on this session.
+   */
+  public long getSentUncompressedBytes()
+  {
+    return sentUncompressedBytes.get();
+  }
+
+  /**
+   * Returns the number of bytes received on this session, including the
+   * length headers.
+   *
+   * @return The number of bytes received on this session.
+   */
+  public long getReceivedBytes()
+  {
+    return receivedBytes;
+  }
+
+  /**
+   * Adds the transport statistics of this session to the provided monitor
+   * data. Throughputs are averaged over the lifetime of the session.
+   *
+   * @param attributes
+   *          The monitor data to add the statistics to.
+   */
+  public void addMonitorData(final MonitorData attributes)
+  {
+    final long elapsedMillis = Math.max(1, System.currentTimeMillis() - creationTime);
+    final long sent = sentBytes.get();
+    final long received = receivedBytes;
+    final long batches = sentBatches.get();
+
+    attributes.add("send-queue-size", sendQueue.size());
+    attributes.add("compression-enabled", isCompressing);
+    attributes.add("sent-bytes", sent);
+    attributes.add("sent-uncompressed-bytes", sentUncompressedBytes.get());
+    attributes.add("received-bytes", received);
+    attributes.add("sent-bytes-per-second", sent * 1000 / elapsedMillis);
+    attributes.add("received-bytes-per-second", received * 1000 / elapsedMillis);
+    attributes.add("average-send-batch-size", batches != 0 ? sentMessages.get() / batches : 0);
+  }
+
   /**
    * This method can be called to wait until the session thread is
    * properly started.
@@ -19,6 +19,7 @@ package org.opends.server.replication.server;
 import static org.opends.messages.ReplicationMessages.*;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
@@ -60,11 +61,21 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   /** UpdateMsg queue. */
   private final MsgQueue msgQueue = new MsgQueue();
   /**
-   * Late queue. All access to the lateQueue in getNextMessage() is
-   * single-threaded. However, reads from threads calling getOlderUpdateCN()
-   * need protecting against removals performed using getNextMessage().
+   * Late queue. All modifications of the lateQueue are performed by the
+   * consumer thread in getNextMessage(). Threads calling getOlderUpdateCSN()
+   * only read it.
    */
   private final MsgQueue lateQueue = new MsgQueue();
+  /**
+   * Number of times producers started trimming the msgQueue. It is incremented
+   * before each removal so that the consumer can detect it missed updates while
+   * switching back to following mode.
+   */
+  private final AtomicLong msgQueueTrims = new AtomicLong();
+  /** Monitor used by the consumer to wait for updates when the msgQueue is empty. */
+  private final Object msgQueueNotEmpty = new Object();
+  /** Whether the consumer is waiting on {@link #msgQueueNotEmpty}. */
+  private volatile boolean consumerWaiting;
   /** Local hosting RS. */
   protected final ReplicationServer replicationServer;
   /** Specifies the related replication server domain based on baseDN. */
@@ -78,7 +89,7 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   /** Specifies the max queue size in bytes for this handler. */
   private final int maxQueueBytesSize;
   /** Specifies whether the consumer is following the producer (is not late). */
-  private boolean following;
+  private volatile boolean following;
   /** Specifies the current serverState of this handler. */
   private ServerState serverState;
   /** Specifies the baseDN of the domain. */
@@ -88,7 +99,7 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    * If not active, the handler will not return any message.
    * Called at the beginning of shutdown process.
    */
-  private boolean activeConsumer = true;
+  private volatile boolean activeConsumer = true;
   /** Set when ServerHandler is stopping. */
   private final AtomicBoolean shuttingDown = new AtomicBoolean(false);
 
@@ -114,28 +125,59 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   void add(UpdateMsg update)
   {
-    synchronized (msgQueue)
+    msgQueue.add(update);
+
+    // TODO : size should be configurable and larger than max-receive-queue-size
+    if (isMsgQueueAboveThreshold())
     {
-      /*
-       * If queue was empty the writer thread was probably asleep
-       * waiting for some changes, wake it up
-       */
-      if (msgQueue.isEmpty())
+      following = false;
+      trimMsgQueue();
+    }
+
+    if (consumerWaiting)
+    {
+      // the writer thread is asleep waiting for some changes, wake it up
+      synchronized (msgQueueNotEmpty)
       {
-        msgQueue.notify();
+        msgQueueNotEmpty.notifyAll();
       }
+    }
+  }
 
-      msgQueue.add(update);
-
-      // TODO : size should be configurable and larger than max-receive-queue-size
-      while (isMsgQueueAboveThreshold())
+  /**
+   * Removes the oldest updates from the msgQueue until it is below threshold.
+   * Trimming stops as soon as the consumer switched back to following mode:
+   * the trim counter is incremented before checking the following flag while
+   * the consumer sets the following flag before checking the trim counter, so
+   * either this method stops, or the consumer notices the trim and goes back to
+   * reading the changelog.
+   */
+  private void trimMsgQueue()
+  {
+    while (isMsgQueueAboveThreshold())
+    {
+      msgQueueTrims.incrementAndGet();
+      if (following || msgQueue.removeFirst() == null)
       {
-        following = false;
-        msgQueue.removeFirst();
+        return;
       }
     }
   }
 
+  /**
+   * Switches to following mode, unless the msgQueue has been trimmed since the
+   * provided trim count was read, in which case some updates may be missing
+   * from the msgQueue and must be read from the changelog.
+   */
+  private void startFollowing(long msgQueueTrimsBefore)
+  {
+    following = true;
+    if (msgQueueTrims.get() != msgQueueTrimsBefore)
+    {
+      following = false;
+    }
+  }
+
   private boolean isMsgQueueAboveThreshold()
   {
     final long count = msgQueue.count();
@@ -263,14 +305,12 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
           {
             // we could not find any messages in the changelog
             // so the remote server is not late anymore.
-            synchronized (msgQueue)
+            // Ensure we are below threshold so this server will follow the
+            // msgQueue without fearing the msgQueue gets trimmed
+            final long msgQueueTrimsBefore = msgQueueTrims.get();
+            if (isMsgQueueBelowThreshold())
             {
-              // Ensure we are below threshold so this server will follow the
-              // msgQueue without fearing the msgQueue gets trimmed
-              if (isMsgQueueBelowThreshold())
-              {
-                following = true;
-              }
+              startFollowing(msgQueueTrimsBefore);
             }
           }
           else
@@ -281,27 +321,25 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
              * -> set following to true and empty the lateQueue.
              */
             UpdateMsg msg = lateQueue.first();
-            synchronized (msgQueue)
+            if (!queueContributesToDomainState)
             {
-              if (!queueContributesToDomainState)
+              // If nothing in the queue contributesToDomainState, add it all to msgQueue so we can get out of here
+              while (!lateQueue.isEmpty())
               {
-               // If nothing in the queue contributesToDomainState, add it all to msgQueue so we can get out of here
-               while(!lateQueue.isEmpty())
-               {
-                 msgQueue.add(lateQueue.removeFirst());
-               }
+                msgQueue.add(lateQueue.removeFirst());
               }
+            }
 
-              if (msgQueue.contains(msg))
+            final long msgQueueTrimsBefore = msgQueueTrims.get();
+            if (msgQueue.contains(msg))
+            {
+              /* we finally catch up with the regular queue */
+              startFollowing(msgQueueTrimsBefore);
+              lateQueue.clear();
+              msgQueue.consumeUpTo(msg);
+              if (updateServerState(msg))
               {
-                /* we finally catch up with the regular queue */
-                following = true;
-                lateQueue.clear();
-                msgQueue.consumeUpTo(msg);
-                if (updateServerState(msg))
-                {
-                  return msg;
-                }
+                return msg;
               }
             }
           }
@@ -309,21 +347,17 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
         else
         {
           // get the next change from the lateQueue
-          UpdateMsg msg;
-          synchronized (msgQueue) // TODO JNR why synchronize(msgQueue) here?
+          final long msgQueueTrimsBefore = msgQueueTrims.get();
+          UpdateMsg msg = lateQueue.removeFirst();
+          // By default a server is always not following. A weird case where messages not representing
+          // an operation may happen, making the late queue repeatedly fill and be emptied without ever
+          // getting the server out of state "not following".
+          if (lateQueue.isEmpty() && msgQueue.isEmpty())
           {
-            msg = lateQueue.removeFirst();
-            // By default a server is always not following. A weird case where messages not representing
-            // an operation may happen, making the late queue repeatedly fill and be emptied without ever
-            // getting the server out of state "not following".
-
-            if (lateQueue.isEmpty() && msgQueue.isEmpty())
+            CSN nextChange = findOldestCSNFromReplicaDBs();
+            if (nextChange == null)
             {
-              CSN nextChange = findOldestCSNFromReplicaDBs();
-              if (nextChange == null)
-              {
-                following = true;
-              }
+              startFollowing(msgQueueTrimsBefore);
             }
           }
           if (updateServerState(msg))
@@ -334,34 +368,25 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
         }
       }
 
-      synchronized (msgQueue)
+      if (following)
       {
-        if (following)
+        if (!waitForUpdates())
         {
-          try
-          {
-            while (msgQueue.isEmpty() && following)
-            {
-              msgQueue.wait(500);
-              if (!activeConsumer)
-              {
-                return null;
-              }
-            }
-          } catch (InterruptedException e)
-          {
-            return null;
-          }
-          UpdateMsg msg = msgQueue.removeFirst();
-          if (updateServerState(msg))
-          {
-            /*
-             * Only push the message if it has not yet been seen
-             * by the other server.
-             * Otherwise just loop to select the next message.
-             */
-            return msg;
-          }
+          return null;
+        }
+        UpdateMsg msg = msgQueue.removeFirst();
+        if (msg != null
+            // a producer may have trimmed older updates before this one was removed:
+            // do not send it, it will be read again from the changelog
+            && following
+            && updateServerState(msg))
+        {
+          /*
+           * Only push the message if it has not yet been seen
+           * by the other server.
+           * Otherwise just loop to select the next message.
+           */
+          return msg;
         }
       }
       /*
@@ -373,6 +398,43 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
     return null;
   }
 
+  /**
+   * Waits until the msgQueue is not empty or this handler is not following
+   * the producers anymore.
+   *
+   * @return {@code false} if the consumer became inactive or was interrupted
+   *         while waiting, {@code true} otherwise
+   */
+  private boolean waitForUpdates()
+  {
+    synchronized (msgQueueNotEmpty)
+    {
+      // The producers add the update before checking this flag, while this
+      // thread sets the flag before checking the msgQueue: no wake up can be missed.
+      consumerWaiting = true;
+      try
+      {
+        while (msgQueue.isEmpty() && following)
+        {
+          msgQueueNotEmpty.wait(500);
+          if (!activeConsumer)
+          {
+            return false;
+          }
+        }
+        return true;
+      }
+      catch (InterruptedException e)
+      {
+        return false;
+      }
+      finally
+      {
+        consumerWaiting = false;
+      }
+    }
+  }
+
   /**
    * Fills the late queue with the most recent changes, accepting only the
    * messages from provided replica ids.
@@ -410,32 +472,31 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   public CSN getOlderUpdateCSN()
   {
-    synchronized (msgQueue)
+    if (following)
     {
-      if (following)
+      final UpdateMsg first = msgQueue.first();
+      if (first != null)
       {
-        if (!msgQueue.isEmpty())
-        {
-          return msgQueue.first().getCSN();
-        }
+        return first.getCSN();
+      }
+    }
+    else
+    {
+      final UpdateMsg first = lateQueue.first();
+      if (first != null)
+      {
+        return first.getCSN();
       }
       else
       {
-        if (!lateQueue.isEmpty())
-        {
-          return lateQueue.first().getCSN();
-        }
-        else
-        {
-          /*
-          following is false AND lateQueue is empty
-          We may be at the very moment when the writer has emptied the
-          lateQueue when it sent the last update. The writer will fill again
-          the lateQueue when it will send the next update but we are not yet
-          there. So let's take the last change not sent directly from the db.
-          */
-          return findOldestCSNFromReplicaDBs();
-        }
+        /*
+        following is false AND lateQueue is empty
+        We may be at the very moment when the writer has emptied the
+        lateQueue when it sent the last update. The writer will fill again
+        the lateQueue when it will send the next update but we are not yet
+        there. So let's take the last change not sent directly from the db.
+        */
+        return findOldestCSNFromReplicaDBs();
       }
     }
     return null;
@@ -476,27 +537,24 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
    */
   public int getRcvMsgQueueSize()
   {
-    synchronized (msgQueue)
+    /*
+     * When the server is up to date or close to be up to date,
+     * the number of updates to be sent is the size of the receive queue.
+     */
+    if (following)
     {
-      /*
-       * When the server is up to date or close to be up to date,
-       * the number of updates to be sent is the size of the receive queue.
-       */
-      if (following)
-      {
-        return msgQueue.count();
-      }
-
-      /*
-       * When the server is not able to follow, the msgQueue may become too
-       * large and therefore won't contain all the changes. Some changes may
-       * only be stored in the backing DB of the servers.
-       * The total size of the receive queue is calculated by doing the sum of
-       * the number of missing changes for every replicaDB.
-       */
-      ServerState latestState = replicationServerDomain.getLatestServerState();
-      return ServerState.diffChanges(latestState, serverState);
+      return msgQueue.count();
     }
+
+    /*
+     * When the server is not able to follow, the msgQueue may become too
+     * large and therefore won't contain all the changes. Some changes may
+     * only be stored in the backing DB of the servers.
+     * The total size of the receive queue is calculated by doing the sum of
+     * the number of missing changes for every replicaDB.
+     */
+    ServerState latestState = replicationServerDomain.getLatestServerState();
+    return ServerState.diffChanges(latestState, serverState);
   }
 
   /**
@@ -595,11 +653,10 @@ class MessageHandler extends MonitorProvider<MonitorProviderCfg>
   /** Shutdown this handler. */
   public void shutdown()
   {
-    synchronized (msgQueue)
+    msgQueue.clear();
+    synchronized (msgQueueNotEmpty)
     {
-      msgQueue.clear();
-      msgQueue.notify();
-      msgQueue.notifyAll();
+      msgQueueNotEmpty.notifyAll();
     }
 
     DirectoryServer.deregisterMonitorProvider(this);
@@ -18,7 +18,10 @@ package org.opends.server.replication.server;
 
 import static org.opends.messages.ReplicationMessages.*;
 
-import java.util.TreeMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.jcip.annotations.ThreadSafe;
 
@@ -29,36 +32,33 @@ import org.opends.server.replication.protocol.UpdateMsg;
 /**
  * This class is used to build ordered lists of UpdateMsg.
  * The order is defined by the order of the CSN of the UpdateMsg.
+ * <p>
+ * This class does not use any lock: the producer adding updates and the
+ * consumer removing them never block each other. As a consequence, the
+ * element and byte counts are only guaranteed to be exact when the queue is
+ * not being concurrently modified.
  */
 @ThreadSafe
 public class MsgQueue
 {
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
-  private TreeMap<CSN, UpdateMsg> map = new TreeMap<>();
-  /**
-   * FIXME JNR to be investigated:
-   * I strongly suspect that we could replace this field
-   * by using the synchronized keyword on each method.
-   * However, MessageHandler is weirdly synchronizing on msgQueue field
-   * even though it is touching the lateQueue field (?!?).
-   */
-  private final Object lock = new Object();
-
+  private final ConcurrentNavigableMap<CSN, UpdateMsg> map = new ConcurrentSkipListMap<>();
+  /** The number of messages in the queue, maintained because the map size is not a constant time operation. */
+  private final AtomicInteger count = new AtomicInteger();
   /** The total number of bytes for all the message in the queue. */
-  private int bytesCount;
+  private final AtomicInteger bytesCount = new AtomicInteger();
 
   /**
    * Return the first UpdateMsg in the MsgQueue.
    *
-   * @return The first UpdateMsg in the MsgQueue.
+   * @return The first UpdateMsg in the MsgQueue, or {@code null} if this
+   *         MsgQueue is empty
    */
   public UpdateMsg first()
   {
-    synchronized (lock)
-    {
-      return map.get(map.firstKey());
-    }
+    final Map.Entry<CSN, UpdateMsg> entry = map.firstEntry();
+    return entry != null ? entry.getValue() : null;
   }
 
   /**
@@ -68,10 +68,7 @@ public class MsgQueue
    */
   public int count()
   {
-    synchronized (lock)
-    {
-      return map.size();
-    }
+    return Math.max(count.get(), 0);
   }
 
   /**
@@ -81,10 +78,7 @@ public class MsgQueue
    */
   public int bytesCount()
   {
-    synchronized (lock)
-    {
-      return bytesCount;
-    }
+    return Math.max(bytesCount.get(), 0);
   }
 
   /**
@@ -94,10 +88,7 @@ public class MsgQueue
    */
   public boolean isEmpty()
   {
-    synchronized (lock)
-    {
-      return map.isEmpty();
-    }
+    return map.isEmpty();
   }
 
   /**
@@ -107,57 +98,55 @@ public class MsgQueue
    */
   public void add(UpdateMsg update)
   {
-    synchronized (lock)
+    final UpdateMsg msgSameCSN = map.put(update.getCSN(), update);
+    if (msgSameCSN != null)
     {
-      final UpdateMsg msgSameCSN = map.put(update.getCSN(), update);
-      if (msgSameCSN != null)
+      try
       {
-        try
-        {
-          if (msgSameCSN.getBytes().length != update.getBytes().length
-              || msgSameCSN.isAssured() != update.isAssured()
-              || msgSameCSN.getVersion() != update.getVersion())
-          {
-            // Adding 2 msgs with the same CSN is ok only when the 2 msgs are the same
-            bytesCount += update.size() - msgSameCSN.size();
-            logger.error(ERR_RSQUEUE_DIFFERENT_MSGS_WITH_SAME_CSN, msgSameCSN.getCSN(), msgSameCSN, update);
-          }
-        }
-        catch (Exception e)
+        if (msgSameCSN.getBytes().length != update.getBytes().length
+            || msgSameCSN.isAssured() != update.isAssured()
+            || msgSameCSN.getVersion() != update.getVersion())
         {
-          logger.traceException(e);
+          // Adding 2 msgs with the same CSN is ok only when the 2 msgs are the same
+          bytesCount.addAndGet(update.size() - msgSameCSN.size());
+          logger.error(ERR_RSQUEUE_DIFFERENT_MSGS_WITH_SAME_CSN, msgSameCSN.getCSN(), msgSameCSN, update);
         }
       }
-      else
+      catch (Exception e)
       {
-        // it is really an ADD
-        bytesCount += update.size();
+        logger.traceException(e);
       }
     }
+    else
+    {
+      // it is really an ADD
+      count.incrementAndGet();
+      bytesCount.addAndGet(update.size());
+    }
   }
 
   /**
    * Get and remove the first UpdateMsg in this MessageQueue.
    *
-   * @return The first UpdateMsg in this MessageQueue.
+   * @return The first UpdateMsg in this MessageQueue, or {@code null} if this
+   *         MessageQueue is empty
    */
   public UpdateMsg removeFirst()
   {
-    synchronized (lock)
+    final Map.Entry<CSN, UpdateMsg> entry = map.pollFirstEntry();
+    if (entry == null)
     {
-      // FIXME JNR replace next 2 lines with just that one:
-      // final UpdateMsg update = map.pollFirstEntry().getValue();
-      final UpdateMsg update = map.get(map.firstKey());
-      map.remove(update.getCSN());
-      bytesCount -= update.size();
-      if (map.isEmpty() && bytesCount != 0)
-      {
-        // should never happen
-        logger.error(ERR_BYTE_COUNT, bytesCount);
-        bytesCount = 0;
-      }
-      return update;
+      return null;
     }
+    final UpdateMsg update = entry.getValue();
+    removed(update);
+    return update;
+  }
+
+  private void removed(UpdateMsg update)
+  {
+    count.decrementAndGet();
+    bytesCount.addAndGet(-update.size());
   }
 
   /**
@@ -171,47 +160,36 @@ public class MsgQueue
    */
   public boolean contains(UpdateMsg msg)
   {
-    synchronized (lock)
-    {
-      return map.containsKey(msg.getCSN());
-    }
+    return map.containsKey(msg.getCSN());
   }
 
   /** Removes all UpdateMsg form this queue. */
   public void clear()
   {
-    synchronized (lock)
+    while (removeFirst() != null)
     {
-      map.clear();
-      bytesCount = 0;
+      // keep removing
     }
   }
 
   /**
    * Consumes all the messages in this queue up to and including the passed in
-   * message. If the passed in message is not contained in the current queue,
-   * then all messages will be removed from it.
+   * message.
    *
    * @param finalMsg
    *          the final message to reach when consuming messages from this queue
    */
   public void consumeUpTo(UpdateMsg finalMsg)
   {
-    // FIXME this code could be more efficient if the msgQueue could call the
-    // following code (to be tested):
-    // if (!map.containsKey(finalMsg.getCSN())) {
-    // map.clear();
-    // } else {
-    // map.headMap(finalMsg.getCSN(), true).clear();
-    // }
-
     final CSN finalCSN = finalMsg.getCSN();
-    UpdateMsg msg;
-    do
+    Map.Entry<CSN, UpdateMsg> entry;
+    while ((entry = map.firstEntry()) != null && entry.getKey().compareTo(finalCSN) <= 0)
     {
-      msg = removeFirst();
+      if (map.remove(entry.getKey(), entry.getValue()))
+      {
+        removed(entry.getValue());
+      }
     }
-    while (!finalCSN.equals(msg.getCSN()));
   }
 
   @Override
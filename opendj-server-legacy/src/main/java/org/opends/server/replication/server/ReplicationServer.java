@@ -886,6 +886,10 @@ public class ReplicationServer
     {
       this.changelogDB.setPurgeDelay(getPurgeDelay());
     }
+    if (config.getTargetDNIndexSize() != oldConfig.getTargetDNIndexSize())
+    {
+      this.changelogDB.setTargetDNIndexSize(config.getTargetDNIndexSize());
+    }
     final boolean computeCN = config.isComputeChangeNumber();
     if (computeCN != oldConfig.isComputeChangeNumber())
     {
@@ -1360,6 +1364,17 @@ public class ReplicationServer
     return config.isComputeChangeNumber();
   }
 
+  /**
+   * Returns the number of the most recently indexed changes whose target DN is
+   * kept in memory.
+   *
+   * @return the size of the target DN index, 0 if it is disabled
+   */
+  public int getTargetDNIndexSize()
+  {
+    return config.getTargetDNIndexSize();
+  }
+
   /**
    * Returns whether the external change-log contains data from at least a domain.
    * @return whether the external change-log contains data from at least a domain
@@ -523,6 +523,9 @@ public abstract class ServerHandler extends MessageHandler
     // Encryption
     attributes.add("ssl-encryption", session.isEncrypted());
 
+    // Transport
+    session.addMonitorData(attributes);
+
     // Data generation
     attributes.add("generation-id", generationId);
 
@@ -15,6 +15,8 @@
  */
 package org.opends.server.replication.server.changelog.api;
 
+import java.util.List;
+
 import org.opends.server.replication.common.CSN;
 import org.forgerock.opendj.ldap.DN;
 
@@ -75,6 +77,22 @@ public interface ChangeNumberIndexDB
    */
   long addRecord(ChangeNumberIndexRecord record) throws ChangelogException;
 
+  /**
+   * Add a batch of updates to this DB and return the changeNumber associated to
+   * the first record. The records are associated consecutive change numbers, in
+   * the provided order.
+   * <p>
+   * Note: this method disregards the changeNumber in the provided records.
+   *
+   * @param records
+   *          The {@link ChangeNumberIndexRecord}s to add to this DB.
+   * @return the change number associated to the first record on adding to this
+   *         DB
+   * @throws ChangelogException
+   *           if a database problem occurs.
+   */
+  long addRecords(List<ChangeNumberIndexRecord> records) throws ChangelogException;
+
   /**
    * Generate a new {@link DBCursor} that allows to browse the db managed by
    * this object and starting at the position defined by a given changeNumber.
@@ -90,6 +108,23 @@ public interface ChangeNumberIndexDB
   DBCursor<ChangeNumberIndexRecord> getCursorFrom(long startChangeNumber)
       throws ChangelogException;
 
+  /**
+   * Generate a new {@link DBCursor} that allows to browse the db managed by
+   * this object from the position defined by a given changeNumber, and which
+   * is exhausted after the record with the provided last changeNumber.
+   *
+   * @param startChangeNumber
+   *          The position where the iterator must start.
+   * @param endChangeNumber
+   *          The last change number returned by the cursor (inclusive).
+   * @return a new DBCursor that allows to browse this DB managed by this
+   *         object between the provided change numbers.
+   * @throws ChangelogException
+   *           if a database problem occurs.
+   */
+  DBCursor<ChangeNumberIndexRecord> getCursorFrom(long startChangeNumber, long endChangeNumber)
+      throws ChangelogException;
+
   /**
    * Resets ChangeNumber index to the given number and CSN.
    * @param newFirstCN
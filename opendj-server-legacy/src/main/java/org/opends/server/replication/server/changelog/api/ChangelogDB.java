@@ -58,6 +58,17 @@ public interface ChangelogDB
   void setComputeChangeNumber(boolean computeChangeNumber)
       throws ChangelogException;
 
+  /**
+   * Sets the number of the most recently indexed changes whose target DN is
+   * kept in memory. Can be called while the database is running, in which case
+   * the index is rebuilt from the next indexed changes.
+   *
+   * @param size
+   *          the number of changes covered by the target DN index, 0 to
+   *          disable it
+   */
+  void setTargetDNIndexSize(int size);
+
   /**
    * Shutdown the replication database.
    *
@@ -81,6 +92,14 @@ public interface ChangelogDB
    */
   ChangeNumberIndexDB getChangeNumberIndexDB();
 
+  /**
+   * Returns the index of the target DNs of the most recently indexed changes.
+   *
+   * @return the target DN index, or {@code null} if change numbers are not
+   *         computed or if the index is disabled
+   */
+  TargetDNIndex getTargetDNIndex();
+
   /**
    * Returns the {@link ReplicationDomainDB} object.
    *
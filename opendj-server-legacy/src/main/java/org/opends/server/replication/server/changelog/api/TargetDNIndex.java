@@ -0,0 +1,40 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server.changelog.api;
+
+import org.forgerock.opendj.ldap.DN;
+
+/**
+ * In memory index of the DNs of the entries targeted by the most recently
+ * indexed changes of the {@link ChangeNumberIndexDB}.
+ * <p>
+ * It allows searches on the change number based changelog to skip the changes
+ * which cannot match a filter on the target DN without reading them from the
+ * replica DBs.
+ */
+public interface TargetDNIndex
+{
+  /**
+   * Returns the DN of the entry targeted by the change with the provided change
+   * number.
+   *
+   * @param changeNumber
+   *          the change number of the change
+   * @return the DN of the entry targeted by the change, or {@code null} if the
+   *         change is not covered by this index
+   */
+  DN getTargetDN(long changeNumber);
+}
@@ -26,7 +26,6 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 
 import org.forgerock.opendj.ldap.ByteString;
-import org.forgerock.opendj.ldap.ByteStringBuilder;
 import org.forgerock.util.Pair;
 import org.forgerock.util.Reject;
 import org.forgerock.util.annotations.VisibleForTesting;
@@ -44,6 +43,8 @@ import org.opends.server.util.StaticUtils;
  * <p>
  * The reader provides both sequential access, using the {@code readRecord()} method,
  * and reasonably fast random access, using the {@code seekToRecord(K, boolean)} method.
+ * When the position of a record close to the searched key is already known, for example
+ * from a {@link LogFileIndex}, the binary search is skipped altogether.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
@@ -69,10 +70,13 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
 
   private final RecordParser<K, V> parser;
 
-  private final RandomAccessFile reader;
+  private final LogFileInput reader;
 
   private final File file;
 
+  /** Number of records read since this reader was created, for testing purposes. */
+  private long nbRecordsRead;
+
   /**
    * Creates a reader for the provided file, file reader and parser.
    *
@@ -91,7 +95,28 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   static <K extends Comparable<K>, V> BlockLogReader<K, V> newReader(
       final File file, final RandomAccessFile reader, final RecordParser<K, V> parser)
   {
-    return new BlockLogReader<>(file, reader, parser, BLOCK_SIZE);
+    return newReader(file, new LogFileInput.RandomAccessFileInput(reader), parser);
+  }
+
+  /**
+   * Creates a reader for the provided file, file input and parser.
+   *
+   * @param <K>
+   *          Type of the key of a record, which must be comparable.
+   * @param <V>
+   *          Type of the value of a record.
+   * @param file
+   *          The log file to read.
+   * @param input
+   *          The random access input on the log file.
+   * @param parser
+   *          The parser to decode the records read.
+   * @return a new log reader
+   */
+  static <K extends Comparable<K>, V> BlockLogReader<K, V> newReader(
+      final File file, final LogFileInput input, final RecordParser<K, V> parser)
+  {
+    return new BlockLogReader<>(file, input, parser, BLOCK_SIZE);
   }
 
   /**
@@ -117,11 +142,11 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   static <K extends Comparable<K>, V> BlockLogReader<K, V> newReaderForTests(
       final File file, final RandomAccessFile reader, final RecordParser<K, V> parser, int blockSize)
   {
-    return new BlockLogReader<>(file, reader, parser, blockSize);
+    return new BlockLogReader<>(file, new LogFileInput.RandomAccessFileInput(reader), parser, blockSize);
   }
 
   private BlockLogReader(
-      final File file, final RandomAccessFile reader, final RecordParser<K, V> parser, final int blockSize)
+      final File file, final LogFileInput reader, final RecordParser<K, V> parser, final int blockSize)
   {
     this.file = file;
     this.reader = reader;
@@ -163,6 +188,38 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     return Pair.of(false, null);
   }
 
+  /**
+   * Position the reader to the record corresponding to the provided key and
+   * matching and positioning strategies, scanning the records from the
+   * provided position instead of performing a binary search on the whole file.
+   * Returns the last record read.
+   *
+   * @param key
+   *          Key to use as a start position. Key must not be {@code null}.
+   * @param recordPosition
+   *          Position of a record with a key strictly lower than the provided
+   *          key, or 0 to scan from the beginning of the file.
+   * @param matchStrategy
+   *          The key matching strategy.
+   * @param positionStrategy
+   *          The positioning strategy.
+   * @return The pair (key_found, last_record_read), as described in
+   *         {@link #seekToRecord(Comparable, KeyMatchingStrategy, PositionStrategy)}
+   * @throws ChangelogException
+   *           If an error occurs when seeking the key.
+   */
+  public Pair<Boolean, Record<K,V>> seekToRecord(
+      final K key,
+      final long recordPosition,
+      final KeyMatchingStrategy matchStrategy,
+      final PositionStrategy positionStrategy)
+          throws ChangelogException
+  {
+    Reject.ifNull(key);
+    seekToPosition(recordPosition);
+    return positionToKey(readRecord(), recordPosition, key, matchStrategy, positionStrategy);
+  }
+
   /**
    * Position the reader to the provided file position.
    *
@@ -242,11 +299,16 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
         positionToRecordFromBlockStart(blockStartPosition);
       }
       final ByteString recordData = readNextRecord();
-      return recordData != null ? parser.decodeRecord(recordData) : null;
+      if (recordData == null)
+      {
+        return null;
+      }
+      nbRecordsRead++;
+      return parser.decodeRecord(recordData);
     }
     catch (Exception io)
     {
-      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_DECODE_RECORD.get(reader.toString()), io);
+      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_DECODE_RECORD.get(file.getPath()), io);
     }
   }
 
@@ -266,7 +328,7 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     if (blockStartPosition > 0)
     {
       final byte[] offsetData = new byte[SIZE_OF_BLOCK_OFFSET];
-      reader.readFully(offsetData);
+      reader.readFully(offsetData, 0, SIZE_OF_BLOCK_OFFSET);
       final int offsetToRecord = ByteString.wrap(offsetData).toInt();
       if (offsetToRecord > 0)
       {
@@ -296,31 +358,36 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
       final int recordLength = readRecordLength(distanceToBlockStart);
 
       // read the record
-      long currentPosition = reader.getFilePointer();
+      final long currentPosition = reader.getFilePointer();
       distanceToBlockStart = getDistanceToNextBlockStart(currentPosition, blockSize);
-      final ByteStringBuilder recordBytes =
-          new ByteStringBuilder(getLengthOfStoredRecord(recordLength, distanceToBlockStart));
+      if (getLengthOfStoredRecord(recordLength, distanceToBlockStart) > reader.length() - currentPosition)
+      {
+        // uncomplete record
+        return null;
+      }
+      final byte[] recordBytes = new byte[recordLength];
+      int recordOffset = 0;
       int remainingBytesToRead = recordLength;
       while (distanceToBlockStart < remainingBytesToRead)
       {
         if (distanceToBlockStart != 0)
         {
-          recordBytes.appendBytes(reader, distanceToBlockStart);
+          reader.readFully(recordBytes, recordOffset, distanceToBlockStart);
+          recordOffset += distanceToBlockStart;
         }
         // skip the offset
         reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
 
         // next step
-        currentPosition += distanceToBlockStart + SIZE_OF_BLOCK_OFFSET;
         remainingBytesToRead -= distanceToBlockStart;
         distanceToBlockStart = blockSize - SIZE_OF_BLOCK_OFFSET;
       }
       if (remainingBytesToRead > 0)
       {
         // last bytes of the record
-        recordBytes.appendBytes(reader, remainingBytesToRead);
+        reader.readFully(recordBytes, recordOffset, remainingBytesToRead);
       }
-      return recordBytes.toByteString();
+      return ByteString.wrap(recordBytes);
     }
     catch (EOFException e)
     {
@@ -354,13 +421,13 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
   /** Read the length of a record. */
   private int readRecordLength(final int distanceToBlockStart) throws IOException
   {
-    final ByteStringBuilder lengthBytes = new ByteStringBuilder(SIZE_OF_RECORD_SIZE);
+    final byte[] lengthBytes = new byte[SIZE_OF_RECORD_SIZE];
     if (distanceToBlockStart > 0 && distanceToBlockStart < SIZE_OF_RECORD_SIZE)
     {
-      lengthBytes.appendBytes(reader, distanceToBlockStart);
+      reader.readFully(lengthBytes, 0, distanceToBlockStart);
       // skip the offset
       reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
-      lengthBytes.appendBytes(reader, SIZE_OF_RECORD_SIZE - distanceToBlockStart);
+      reader.readFully(lengthBytes, distanceToBlockStart, SIZE_OF_RECORD_SIZE - distanceToBlockStart);
     }
     else
     {
@@ -369,9 +436,9 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
         // skip the offset
         reader.skipBytes(SIZE_OF_BLOCK_OFFSET);
       }
-      lengthBytes.appendBytes(reader, SIZE_OF_RECORD_SIZE);
+      reader.readFully(lengthBytes, 0, SIZE_OF_RECORD_SIZE);
     }
-    return lengthBytes.toByteString().toInt();
+    return ByteString.wrap(lengthBytes).toInt();
   }
 
   /**
@@ -462,9 +529,16 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
    Pair<Boolean, Record<K,V>> positionToKey(final long blockStartPosition, final K key,
        final KeyMatchingStrategy matchStrategy, final PositionStrategy positionStrategy) throws ChangelogException
    {
-    Record<K,V> record = readRecord(blockStartPosition);
+     return positionToKey(readRecord(blockStartPosition), blockStartPosition, key, matchStrategy, positionStrategy);
+   }
+
+  private Pair<Boolean, Record<K, V>> positionToKey(final Record<K, V> firstRecord, final long startPosition,
+      final K key, final KeyMatchingStrategy matchStrategy, final PositionStrategy positionStrategy)
+      throws ChangelogException
+  {
+    Record<K,V> record = firstRecord;
     Record<K,V> previousRecord = null;
-    long previousPosition = blockStartPosition;
+    long previousPosition = startPosition;
     while (record != null)
     {
       final int keysComparison = record.getKey().compareTo(key);
@@ -523,6 +597,18 @@ class BlockLogReader<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /**
+   * Returns the number of records read by this reader, whether sequentially or
+   * when seeking a key.
+   *
+   * @return the number of records read since this reader was created
+   */
+  @VisibleForTesting
+  long getNbRecordsRead()
+  {
+    return nbRecordsRead;
+  }
+
   /**
    * Returns the closest start of block which has a position lower than or equal
    * to the provided file position.
@@ -117,11 +117,27 @@ class BlockLogWriter<K extends Comparable<K>, V> implements Closeable
    *            If a problem occurs during write.
    */
   public void write(final Record<K, V> record) throws ChangelogException
+  {
+    writeWithoutFlush(record);
+    flush();
+  }
+
+  /**
+   * Writes the provided record to the log file, without flushing the buffers.
+   * <p>
+   * This allows to write a batch of records and to flush them at once with
+   * {@link #flush()}.
+   *
+   * @param record
+   *            The record to write.
+   * @throws ChangelogException
+   *            If a problem occurs during write.
+   */
+  void writeWithoutFlush(final Record<K, V> record) throws ChangelogException
   {
     try
     {
       write(parser.encodeRecord(record));
-      writer.flush();
     }
     catch (Exception e)
     {
@@ -130,6 +146,24 @@ class BlockLogWriter<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /**
+   * Flushes the records written to the log file out of the buffers.
+   *
+   * @throws ChangelogException
+   *            If a problem occurs during flush.
+   */
+  void flush() throws ChangelogException
+  {
+    try
+    {
+      writer.flush();
+    }
+    catch (IOException e)
+    {
+      throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_SYNC.get(writer.getFile().getPath()), e);
+    }
+  }
+
   /**
    * Returns the number of bytes written in the log file.
    *
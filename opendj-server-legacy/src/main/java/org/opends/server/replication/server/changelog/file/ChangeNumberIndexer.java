@@ -15,16 +15,22 @@
  */
 package org.opends.server.replication.server.changelog.file;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.opends.server.api.DirectoryThread;
+import org.opends.server.api.MonitorData;
 import org.opends.server.backends.ChangelogBackend;
 import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.MultiDomainServerState;
 import org.opends.server.replication.common.ServerState;
+import org.opends.server.replication.protocol.LDAPUpdateMsg;
 import org.opends.server.replication.protocol.ReplicaOfflineMsg;
 import org.opends.server.replication.protocol.UpdateMsg;
 import org.opends.server.replication.server.changelog.api.AbortedChangelogCursorException;
@@ -34,6 +40,7 @@ import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.ChangelogStateProvider;
 import org.opends.server.replication.server.changelog.api.DBCursor.CursorOptions;
 import org.opends.server.replication.server.changelog.api.ReplicationDomainDB;
+import org.opends.server.replication.server.changelog.api.TargetDNIndex;
 import org.forgerock.opendj.ldap.DN;
 
 import static org.opends.messages.ReplicationMessages.*;
@@ -55,6 +62,12 @@ public class ChangeNumberIndexer extends DirectoryThread
   /** The tracer object for the debug logger. */
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /**
+   * The maximum number of changes inserted at once in the CNIndexDB, the
+   * CNIndexDB log file is only flushed once per batch.
+   */
+  private static final int MAX_BATCH_SIZE = 256;
+
   /**
    * If it contains nothing, then the run method executes normally.
    * Otherwise, the {@link #run()} method must clear its state
@@ -98,6 +111,20 @@ public class ChangeNumberIndexer extends DirectoryThread
   private ECLMultiDomainDBCursor nextChangeForInsertDBCursor;
   private MultiDomainServerState cookie = new MultiDomainServerState();
 
+  /**
+   * The CSN of the oldest change waiting to be inserted in the CNIndexDB, or
+   * {@code null} if all the changes are inserted. Only used for monitoring.
+   */
+  private volatile CSN oldestUnindexedCSN;
+  /** The number of changes inserted in the CNIndexDB since this thread started. */
+  private final AtomicLong indexedChanges = new AtomicLong();
+  private final long startTime = System.currentTimeMillis();
+  /**
+   * The DNs targeted by the most recently indexed changes, or {@code null} if
+   * this index is disabled. Only filled from the {@link #run()} method.
+   */
+  private volatile InMemoryTargetDNIndex targetDNIndex;
+
   /**
    * Builds a ChangeNumberIndexer object.
    *  @param changelogDB
@@ -362,6 +389,12 @@ public class ChangeNumberIndexer extends DirectoryThread
   public void initiateShutdown()
   {
     super.initiateShutdown();
+    // the change numbers may be reset before another indexer is started
+    final InMemoryTargetDNIndex index = targetDNIndex;
+    if (index != null)
+    {
+      index.clear();
+    }
     synchronized (this)
     {
       notify();
@@ -401,6 +434,7 @@ public class ChangeNumberIndexer extends DirectoryThread
           // because we might not have consumed the last record,
           // for example if we could not move the MCP forward
           final UpdateMsg msg = nextChangeForInsertDBCursor.getRecord();
+          oldestUnindexedCSN = msg != null ? msg.getCSN() : null;
           if (msg == null)
           {
             synchronized (this)
@@ -447,16 +481,9 @@ public class ChangeNumberIndexer extends DirectoryThread
           }
 
           // OK, the oldest change is older than the medium consistency point
-          // let's publish it to the CNIndexDB.
-          final long changeNumber = changelogDB.getChangeNumberIndexDB()
-              .addRecord(new ChangeNumberIndexRecord(baseDN, csn));
-          if (!cookie.update(baseDN, csn))
-          {
-            throw new IllegalStateException("It was expected that change (baseDN=" + baseDN + ", csn=" + csn
-                + ") would have updated the cookie=" + cookie + ", but it did not");
-          }
-          notifyEntryAddedToChangelog(baseDN, changeNumber, cookie, msg);
-          moveForwardMediumConsistencyPoint(csn, baseDN);
+          // let's publish it to the CNIndexDB,
+          // along with the next changes that can also be published.
+          publishChanges(msg);
         }
         catch (InterruptedException ignored)
         {
@@ -484,6 +511,69 @@ public class ChangeNumberIndexer extends DirectoryThread
     }
   }
 
+  /**
+   * Inserts in the CNIndexDB the provided change, which is older than the
+   * medium consistency point, and the next changes that are also older than the
+   * medium consistency point, up to {@link #MAX_BATCH_SIZE} changes. Changes
+   * are inserted with a single write to the CNIndexDB, then the cookie and the
+   * medium consistency point are moved forward, and the
+   * {@link ChangelogBackend} is notified of each change.
+   */
+  private void publishChanges(UpdateMsg firstMsg) throws ChangelogException
+  {
+    final List<ChangeNumberIndexRecord> records = new ArrayList<>();
+    final List<MultiDomainServerState> cookies = new ArrayList<>();
+    final List<UpdateMsg> msgs = new ArrayList<>();
+    // Only becomes the cookie once the batch has been persisted
+    final MultiDomainServerState batchCookie = new MultiDomainServerState(cookie);
+    UpdateMsg msg = firstMsg;
+    do
+    {
+      final CSN csn = msg.getCSN();
+      final DN baseDN = nextChangeForInsertDBCursor.getData();
+      if (!batchCookie.update(baseDN, csn))
+      {
+        throw new IllegalStateException("It was expected that change (baseDN=" + baseDN + ", csn=" + csn
+            + ") would have updated the cookie=" + batchCookie + ", but it did not");
+      }
+      records.add(new ChangeNumberIndexRecord(baseDN, csn));
+      cookies.add(new MultiDomainServerState(batchCookie));
+      msgs.add(msg);
+
+      // advance the cursor we just read from, success/failure will be checked later
+      nextChangeForInsertDBCursor.next();
+      msg = nextChangeForInsertDBCursor.getRecord();
+    }
+    while (msg != null
+        && !(msg instanceof ReplicaOfflineMsg)
+        && records.size() < MAX_BATCH_SIZE
+        && domainsToClear.isEmpty()
+        && !isShutdownInitiated()
+        && canMoveForwardMediumConsistencyPoint(msg.getCSN()));
+
+    final long firstChangeNumber = changelogDB.getChangeNumberIndexDB().addRecords(records);
+    final InMemoryTargetDNIndex index = targetDNIndex;
+    if (index != null)
+    {
+      final List<DN> targetDNs = new ArrayList<>(msgs.size());
+      for (UpdateMsg updateMsg : msgs)
+      {
+        targetDNs.add(updateMsg instanceof LDAPUpdateMsg ? ((LDAPUpdateMsg) updateMsg).getDN() : null);
+      }
+      index.addTargetDNs(firstChangeNumber, targetDNs);
+    }
+    cookie = batchCookie;
+    for (ChangeNumberIndexRecord record : records)
+    {
+      moveForwardMediumConsistencyPoint(record.getCSN(), record.getBaseDN());
+    }
+    indexedChanges.addAndGet(records.size());
+    for (int i = 0; i < records.size(); i++)
+    {
+      notifyEntryAddedToChangelog(records.get(i).getBaseDN(), firstChangeNumber + i, cookies.get(i), msgs.get(i));
+    }
+  }
+
   private void moveToNextChange() throws ChangelogException
   {
     try
@@ -541,7 +631,7 @@ public class ChangeNumberIndexer extends DirectoryThread
         getClass().getSimpleName(), stackTraceToSingleLineString(e));
   }
 
-  private void moveForwardMediumConsistencyPoint(final CSN mcCSN, final DN mcBaseDN) throws ChangelogException
+  private void moveForwardMediumConsistencyPoint(final CSN mcCSN, final DN mcBaseDN)
   {
     final int mcServerId = mcCSN.getServerId();
     final CSN offlineCSN = replicasOffline.getCSN(mcBaseDN, mcServerId);
@@ -565,10 +655,55 @@ public class ChangeNumberIndexer extends DirectoryThread
         lastAliveCSNs.removeCSN(mcBaseDN, offlineCSN);
       }
     }
+  }
+
+  /**
+   * Adds the indexing statistics of this thread to the provided monitor data.
+   * The throughput is averaged since this thread started.
+   *
+   * @param attributes
+   *          The monitor data to add the statistics to.
+   */
+  void addMonitorData(final MonitorData attributes)
+  {
+    final long now = System.currentTimeMillis();
+    final long indexed = indexedChanges.get();
+    final CSN oldestCSN = oldestUnindexedCSN;
+    attributes.add("indexed-changes", indexed);
+    attributes.add("indexed-changes-per-second", indexed * 1000 / Math.max(1, now - startTime));
+    if (oldestCSN != null)
+    {
+      attributes.add("oldest-unindexed-csn", oldestCSN + " " + new Date(oldestCSN.getTime()));
+    }
+    attributes.add("indexing-lag-millis", oldestCSN != null ? Math.max(0, now - oldestCSN.getTime()) : 0);
+  }
 
-    // advance the cursor we just read from,
-    // success/failure will be checked later
-    nextChangeForInsertDBCursor.next();
+  /**
+   * Sets the number of the most recently indexed changes whose target DN is
+   * kept in memory. Changing it discards the changes already in the index.
+   *
+   * @param size
+   *          the number of changes covered by the target DN index, 0 to
+   *          disable it
+   */
+  void setTargetDNIndexSize(int size)
+  {
+    final InMemoryTargetDNIndex oldIndex = targetDNIndex;
+    targetDNIndex = size > 0 ? new InMemoryTargetDNIndex(size) : null;
+    if (oldIndex != null)
+    {
+      oldIndex.clear();
+    }
+  }
+
+  /**
+   * Returns the index of the DNs targeted by the most recently indexed changes.
+   *
+   * @return the target DN index, or {@code null} if it is disabled
+   */
+  TargetDNIndex getTargetDNIndex()
+  {
+    return targetDNIndex;
   }
 
   /**
@@ -18,6 +18,8 @@ package org.opends.server.replication.server.changelog.file;
 import static org.opends.messages.ReplicationMessages.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -170,6 +172,32 @@ class FileChangeNumberIndexDB implements ChangeNumberIndexDB
     return changeNumber;
   }
 
+  @Override
+  public long addRecords(final List<ChangeNumberIndexRecord> records) throws ChangelogException
+  {
+    final long firstChangeNumber = nextChangeNumbers(records.size());
+    final List<Record<Long, ChangeNumberIndexRecord>> newRecords = new ArrayList<>(records.size());
+    long changeNumber = firstChangeNumber;
+    for (ChangeNumberIndexRecord record : records)
+    {
+      final ChangeNumberIndexRecord newRecord =
+          new ChangeNumberIndexRecord(changeNumber, record.getBaseDN(), record.getCSN());
+      newRecords.add(Record.from(changeNumber, newRecord));
+      changeNumber++;
+    }
+    log.append(newRecords);
+    if (!records.isEmpty())
+    {
+      newestChangeNumber = changeNumber - 1;
+    }
+
+    if (logger.isTraceEnabled())
+    {
+      logger.trace("In FileChangeNumberIndexDB.addRecords, added: " + newRecords);
+    }
+    return firstChangeNumber;
+  }
+
   /** {@inheritDoc} */
   @Override
   public ChangeNumberIndexRecord getOldestRecord() throws ChangelogException
@@ -197,6 +225,19 @@ class FileChangeNumberIndexDB implements ChangeNumberIndexDB
     }
   }
 
+  /** Reserves the provided number of consecutive change numbers and returns the first one. */
+  private long nextChangeNumbers(int nbChangeNumbers)
+  {
+    resetCNisRunningLock.readLock().lock();
+    try {
+      return lastGeneratedChangeNumber.getAndAdd(nbChangeNumbers) + 1;
+    }
+    finally
+    {
+      resetCNisRunningLock.readLock().unlock();
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public long getLastGeneratedChangeNumber()
@@ -244,6 +285,13 @@ class FileChangeNumberIndexDB implements ChangeNumberIndexDB
     return new FileChangeNumberIndexDBCursor(log.getCursor(startChangeNumber));
   }
 
+  @Override
+  public DBCursor<ChangeNumberIndexRecord> getCursorFrom(final long startChangeNumber, final long endChangeNumber)
+      throws ChangelogException
+  {
+    return new FileChangeNumberIndexDBCursor(log.getCursor(startChangeNumber), endChangeNumber);
+  }
+
   /**
    * Shutdown this DB.
    */
@@ -292,10 +340,15 @@ class FileChangeNumberIndexDB implements ChangeNumberIndexDB
       long lastCN = readChangeNumber(ChangeNumberType.LAST);
       long numberOfChanges = lastCN == NO_KEY ? 0 : lastCN - firstCN + 1;
 
-      final MonitorData attributes = new MonitorData(3);
+      final MonitorData attributes = new MonitorData(7);
       attributes.add(ChangeNumberType.FIRST.getAttributeName(), firstCN);
       attributes.add(ChangeNumberType.LAST.getAttributeName(), lastCN);
       attributes.add("count", numberOfChanges);
+      final ChangeNumberIndexer indexer = changelogDB != null ? changelogDB.getChangeNumberIndexer() : null;
+      if (indexer != null)
+      {
+        indexer.addMonitorData(attributes);
+      }
       return attributes;
     }
 
@@ -27,6 +27,10 @@ class FileChangeNumberIndexDBCursor implements DBCursor<ChangeNumberIndexRecord>
 {
   /** The underlying cursor. */
   private final DBCursor<Record<Long, ChangeNumberIndexRecord>> cursor;
+  /** The last change number returned by this cursor. */
+  private final long endChangeNumber;
+  /** Whether the record after the last change number has been reached. */
+  private boolean isExhausted;
 
   /**
    * Creates the cursor from provided cursor.
@@ -38,14 +42,36 @@ class FileChangeNumberIndexDBCursor implements DBCursor<ChangeNumberIndexRecord>
    */
   FileChangeNumberIndexDBCursor(final DBCursor<Record<Long, ChangeNumberIndexRecord>> cursor)
       throws ChangelogException
+  {
+    this(cursor, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates the cursor from provided cursor, stopping after the provided
+   * change number.
+   *
+   * @param cursor
+   *          The underlying cursor to read log.
+   * @param endChangeNumber
+   *          The last change number returned by this cursor.
+   * @throws ChangelogException
+   *            If an error occurs.
+   */
+  FileChangeNumberIndexDBCursor(final DBCursor<Record<Long, ChangeNumberIndexRecord>> cursor,
+      final long endChangeNumber) throws ChangelogException
   {
     this.cursor = cursor;
+    this.endChangeNumber = endChangeNumber;
   }
 
   /** {@inheritDoc} */
   @Override
   public ChangeNumberIndexRecord getRecord()
   {
+    if (isExhausted)
+    {
+      return null;
+    }
     final Record<Long, ChangeNumberIndexRecord> record = cursor.getRecord();
     return record != null ? record.getValue() : null;
   }
@@ -54,7 +80,16 @@ class FileChangeNumberIndexDBCursor implements DBCursor<ChangeNumberIndexRecord>
   @Override
   public boolean next() throws ChangelogException
   {
-    return cursor.next();
+    if (isExhausted)
+    {
+      return false;
+    }
+    if (cursor.next() && cursor.getRecord().getKey() <= endChangeNumber)
+    {
+      return true;
+    }
+    isExhausted = cursor.getRecord() != null;
+    return false;
   }
 
   /** {@inheritDoc} */
@@ -15,20 +15,28 @@
  */
 package org.opends.server.replication.server.changelog.file;
 
+import static org.forgerock.util.Utils.*;
 import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.server.changelog.api.DBCursor.PositionStrategy.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -57,6 +65,7 @@ import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.replication.server.changelog.api.DBCursor.CursorOptions;
 import org.opends.server.replication.server.changelog.api.ReplicaId;
 import org.opends.server.replication.server.changelog.api.ReplicationDomainDB;
+import org.opends.server.replication.server.changelog.api.TargetDNIndex;
 import org.opends.server.replication.server.changelog.file.Log.RepositionableCursor;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.util.StaticUtils;
@@ -615,6 +624,23 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
     }
   }
 
+  @Override
+  public void setTargetDNIndexSize(final int size)
+  {
+    final ChangeNumberIndexer indexer = cnIndexer.get();
+    if (indexer != null)
+    {
+      indexer.setTargetDNIndexSize(size);
+    }
+  }
+
+  @Override
+  public TargetDNIndex getTargetDNIndex()
+  {
+    final ChangeNumberIndexer indexer = cnIndexer.get();
+    return indexer != null ? indexer.getTargetDNIndex() : null;
+  }
+
   void resetChangeNumberIndex(long newFirstCN, DN baseDN, CSN newFirstCSN) throws ChangelogException
   {
     if (!replicationServer.isChangeNumberEnabled())
@@ -647,12 +673,23 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
   private void startIndexer()
   {
     final ChangeNumberIndexer indexer = new ChangeNumberIndexer(this, replicationEnv);
+    indexer.setTargetDNIndexSize(replicationServer.getTargetDNIndexSize());
     if (cnIndexer.compareAndSet(null, indexer))
     {
       indexer.start();
     }
   }
 
+  /**
+   * Returns the thread inserting changes in the change number index DB.
+   *
+   * @return the change number indexer, or {@code null} if it is not running
+   */
+  ChangeNumberIndexer getChangeNumberIndexer()
+  {
+    return cnIndexer.get();
+  }
+
   @Override
   public ChangeNumberIndexDB getChangeNumberIndexDB()
   {
@@ -880,6 +917,11 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
   private final class ChangelogDBPurger extends DirectoryThread
   {
     private static final int DEFAULT_SLEEP = 500;
+    /** The maximum number of replication domains purged in parallel. */
+    private static final int MAX_PURGE_THREADS = 4;
+
+    /** Purges the replication domains in parallel, created on first use. */
+    private ExecutorService purgeExecutor;
 
     protected ChangelogDBPurger()
     {
@@ -888,6 +930,21 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
 
     @Override
     public void run()
+    {
+      try
+      {
+        run0();
+      }
+      finally
+      {
+        if (purgeExecutor != null)
+        {
+          purgeExecutor.shutdownNow();
+        }
+      }
+    }
+
+    private void run0()
     {
       // initialize CNIndexDB
       getChangeNumberIndexDB();
@@ -941,13 +998,7 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
             }
           }
 
-          for (final Map<Integer, FileReplicaDB> domainMap : domainToReplicaDBs.values())
-          {
-            for (final FileReplicaDB replicaDB : domainMap.values())
-            {
-              replicaDB.purgeUpTo(oldestNotPurgedCSN);
-            }
-          }
+          purgeDomains(oldestNotPurgedCSN);
 
           if (!isShutdownInitiated())
           {
@@ -981,6 +1032,70 @@ public class FileChangelogDB implements ChangelogDB, ReplicationDomainDB
       }
     }
 
+    /**
+     * Purges the replicaDBs of all the replication domains. Replication domains
+     * do not share any file, so they are purged in parallel.
+     */
+    private void purgeDomains(final CSN oldestNotPurgedCSN) throws Exception
+    {
+      final Collection<ConcurrentMap<Integer, FileReplicaDB>> domainMaps = domainToReplicaDBs.values();
+      if (domainMaps.size() <= 1)
+      {
+        for (final Map<Integer, FileReplicaDB> domainMap : domainMaps)
+        {
+          purgeDomain(domainMap, oldestNotPurgedCSN);
+        }
+        return;
+      }
+
+      if (purgeExecutor == null)
+      {
+        purgeExecutor = Executors.newFixedThreadPool(
+            Math.min(MAX_PURGE_THREADS, Runtime.getRuntime().availableProcessors()),
+            newThreadFactory(null, "Changelog DB purger %d", true));
+      }
+      final List<Future<Void>> purges = new ArrayList<>(domainMaps.size());
+      for (final Map<Integer, FileReplicaDB> domainMap : domainMaps)
+      {
+        purges.add(purgeExecutor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception
+          {
+            purgeDomain(domainMap, oldestNotPurgedCSN);
+            return null;
+          }
+        }));
+      }
+      try
+      {
+        for (Future<Void> purge : purges)
+        {
+          purge.get();
+        }
+      }
+      catch (ExecutionException e)
+      {
+        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+      }
+      finally
+      {
+        for (Future<Void> purge : purges)
+        {
+          purge.cancel(false);
+        }
+      }
+    }
+
+    private void purgeDomain(final Map<Integer, FileReplicaDB> domainMap, final CSN oldestNotPurgedCSN)
+        throws ChangelogException
+    {
+      for (final FileReplicaDB replicaDB : domainMap.values())
+      {
+        replicaDB.purgeUpTo(oldestNotPurgedCSN);
+      }
+    }
+
     private void tracePurgeDetails(final CSN purgeCSN, final CSN oldestNotPurgedCSN, final long sleepTime)
     {
       if (purgeCSN.equals(oldestNotPurgedCSN.toStringUI()))
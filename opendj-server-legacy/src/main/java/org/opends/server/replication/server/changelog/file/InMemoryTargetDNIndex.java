@@ -0,0 +1,113 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import java.util.Arrays;
+import java.util.List;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.server.changelog.api.TargetDNIndex;
+
+/**
+ * Target DN index keeping the DNs targeted by a bounded number of the most
+ * recently indexed changes in a ring buffer.
+ * <p>
+ * It covers a single range of consecutive change numbers: the oldest change
+ * numbers are evicted as new ones are added, and adding change numbers which
+ * do not follow the newest one restarts the range.
+ */
+@ThreadSafe
+final class InMemoryTargetDNIndex implements TargetDNIndex
+{
+  @GuardedBy("this")
+  private final DN[] targetDNs;
+  /** The oldest change number covered by this index. */
+  @GuardedBy("this")
+  private long oldestChangeNumber = 1;
+  /** The newest change number covered by this index, lower than the oldest one when this index is empty. */
+  @GuardedBy("this")
+  private long newestChangeNumber;
+
+  /**
+   * Creates an empty index.
+   *
+   * @param size
+   *          the maximum number of changes covered by this index
+   */
+  InMemoryTargetDNIndex(int size)
+  {
+    this.targetDNs = new DN[size];
+  }
+
+  /**
+   * Adds the DNs targeted by changes with consecutive change numbers.
+   *
+   * @param firstChangeNumber
+   *          the change number of the first change
+   * @param dns
+   *          the DNs targeted by the changes, {@code null} for the changes
+   *          which do not target an entry
+   */
+  synchronized void addTargetDNs(long firstChangeNumber, List<DN> dns)
+  {
+    if (firstChangeNumber != newestChangeNumber + 1)
+    {
+      clear();
+      oldestChangeNumber = firstChangeNumber;
+    }
+    long changeNumber = firstChangeNumber;
+    for (DN dn : dns)
+    {
+      targetDNs[indexOf(changeNumber)] = dn;
+      changeNumber++;
+    }
+    newestChangeNumber = changeNumber - 1;
+    oldestChangeNumber = Math.max(oldestChangeNumber, newestChangeNumber - targetDNs.length + 1);
+  }
+
+  @Override
+  public synchronized DN getTargetDN(long changeNumber)
+  {
+    if (changeNumber < oldestChangeNumber || changeNumber > newestChangeNumber)
+    {
+      return null;
+    }
+    return targetDNs[indexOf(changeNumber)];
+  }
+
+  /** Removes all the changes from this index. */
+  synchronized void clear()
+  {
+    Arrays.fill(targetDNs, null);
+    oldestChangeNumber = 1;
+    newestChangeNumber = 0;
+  }
+
+  private int indexOf(long changeNumber)
+  {
+    return (int) (changeNumber % targetDNs.length);
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return getClass().getSimpleName() + "(oldestChangeNumber=" + oldestChangeNumber
+        + ", newestChangeNumber=" + newestChangeNumber + ", size=" + targetDNs.length + ")";
+  }
+}
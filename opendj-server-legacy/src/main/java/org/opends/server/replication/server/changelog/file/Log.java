@@ -465,6 +465,51 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /**
+   * Add the provided records at the end of this log, in the provided order.
+   * <p>
+   * When no rotation of the head log file is needed, the records are written
+   * and flushed at once. The records that do not have a key strictly higher
+   * than the key of the last record added are not appended.
+   * <p>
+   * In order to ensure that records are written out of buffers and persisted
+   * to file system, it is necessary to explicitly call the
+   * {@code syncToFileSystem()} method.
+   *
+   * @param records
+   *          The records to add.
+   * @throws ChangelogException
+   *           If an error occurs while adding the records to the log.
+   */
+  public void append(final List<Record<K, V>> records) throws ChangelogException
+  {
+    // Fast-path - assume that no rotation is needed and use shared lock.
+    sharedLock.lock();
+    try
+    {
+      if (isClosed)
+      {
+        return;
+      }
+      LogFile<K, V> headLogFile = getHeadLogFile();
+      if (!mustRotate(headLogFile))
+      {
+        headLogFile.append(records);
+        return;
+      }
+    }
+    finally
+    {
+      sharedLock.unlock();
+    }
+
+    // Slow-path - rotation is needed, append records one by one.
+    for (Record<K, V> record : records)
+    {
+      append(record);
+    }
+  }
+
   private boolean mustRotate(LogFile<K, V> headLogFile)
   {
     if (headLogFile.getNewestRecord() == null)
@@ -963,6 +1008,7 @@ final class Log<K extends Comparable<K>, V> implements Closeable
     final File readOnlyLogFile = new File(logPath, generateReadOnlyFileName(headLogFile));
     headLogFile.close();
     renameHeadLogFileTo(readOnlyLogFile);
+    headLogFile.writeIndexTo(readOnlyLogFile);
 
     openHeadLogFile();
     openReadOnlyLogFile(readOnlyLogFile);
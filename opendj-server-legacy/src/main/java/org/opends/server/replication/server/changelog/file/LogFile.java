@@ -23,14 +23,18 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import net.jcip.annotations.GuardedBy;
+
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.i18n.slf4j.LocalizedLogger;
 import org.forgerock.util.Pair;
 import org.forgerock.util.Reject;
+import org.forgerock.util.annotations.VisibleForTesting;
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.replication.server.changelog.api.DBCursor;
 import org.opends.server.replication.server.changelog.file.Log.RepositionableCursor;
@@ -62,6 +66,21 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
   /** The pool to obtain a reader on the log. */
   private final LogReaderPool<K, V> readerPool;
 
+  /** The parser of records. */
+  private final RecordParser<K, V> parser;
+
+  /**
+   * The sparse index of the records, which may be {@code null} if this log file
+   * has no index. For read-only log files, it is lazily loaded from the index
+   * file.
+   */
+  @GuardedBy("this")
+  private LogFileIndex<K> index;
+
+  /** Indicates whether the index of a read-only log file has been loaded. */
+  @GuardedBy("this")
+  private boolean isIndexLoaded;
+
   /**
    * The writer on the log file, which may be {@code null} if log file is not
    * write-enabled.
@@ -103,15 +122,19 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     Reject.ifNull(logFilePath, parser);
     this.logfile = logFilePath;
     this.isWriteEnabled = isWriteEnabled;
+    this.parser = parser;
     final ReadWriteLock rwLock = new ReentrantReadWriteLock();
     exclusiveLock = rwLock.writeLock();
     sharedLock = rwLock.readLock();
     createLogFileIfNotExists();
 
-    readerPool = new LogReaderPool<>(logfile, parser);
+    readerPool = new LogReaderPool<>(logfile, parser, !isWriteEnabled);
     if (isWriteEnabled)
     {
       ensureLogFileIsValid(parser);
+      // records already in the log file are not indexed
+      index = new LogFileIndex<>(logfile.length() == 0);
+      isIndexLoaded = true;
       writer = BlockLogWriter.newWriter(new LogWriter(logfile), parser);
       initializeNewestRecord();
     }
@@ -255,7 +278,9 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
       {
         return;
       }
+      final long position = writer.getBytesWritten();
       writer.write(record);
+      index.recordAppended(record.getKey(), position);
       newestRecord = record;
     }
     finally
@@ -264,6 +289,42 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     }
   }
 
+  /**
+   * Add the provided records at the end of this log, in the provided order, and
+   * flush them at once.
+   * <p>
+   * The records that do not have a key strictly higher than the key of the
+   * last record added are not appended.
+   *
+   * @param records
+   *          The records to add.
+   * @throws ChangelogException
+   *           If the records can't be added to the log.
+   */
+  void append(final List<Record<K, V>> records) throws ChangelogException
+  {
+    checkLogIsEnabledForWrite();
+    exclusiveLock.lock();
+    try
+    {
+      for (Record<K, V> record : records)
+      {
+        if (!appendWouldBreakKeyOrdering(record))
+        {
+          final long position = writer.getBytesWritten();
+          writer.writeWithoutFlush(record);
+          index.recordAppended(record.getKey(), position);
+          newestRecord = record;
+        }
+      }
+      writer.flush();
+    }
+    finally
+    {
+      exclusiveLock.unlock();
+    }
+  }
+
   /** Indicates if the provided record has a key that would break the key ordering if appended in this file log. */
   boolean appendWouldBreakKeyOrdering(final Record<K, V> record)
   {
@@ -276,6 +337,36 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
     return wouldBreakOrder;
   }
 
+  /**
+   * Returns the index to use to position cursors on this log file.
+   *
+   * @return the index, or {@code null} if this log file has no usable index
+   */
+  private synchronized LogFileIndex<K> getIndex()
+  {
+    if (!isIndexLoaded)
+    {
+      index = LogFileIndex.readFrom(logfile, parser);
+      isIndexLoaded = true;
+    }
+    return index != null && index.isComplete() ? index : null;
+  }
+
+  /**
+   * Persists the index of this log file next to the provided file, which is the
+   * read-only version of this log file after rotation.
+   *
+   * @param readOnlyLogFile
+   *          the read-only log file, renamed from this log file
+   */
+  synchronized void writeIndexTo(File readOnlyLogFile)
+  {
+    if (index != null)
+    {
+      index.writeTo(readOnlyLogFile, parser);
+    }
+  }
+
   /**
    * Dump this log file as a text file, intended for debugging purpose only.
    *
@@ -471,6 +562,7 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
       {
         throw new ChangelogException(ERR_CHANGELOG_UNABLE_TO_DELETE_LOG_FILE.get(getPath()));
       }
+      LogFileIndex.deleteIndexFile(logfile);
     }
     finally
     {
@@ -631,7 +723,10 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
       logFile.sharedLock.lock();
       try
       {
-        result = reader.seekToRecord(key, match, pos);
+        final LogFileIndex<K> index = logFile.getIndex();
+        result = index != null
+            ? reader.seekToRecord(key, index.getRecordPositionBefore(key), match, pos)
+            : reader.seekToRecord(key, match, pos);
       }
       finally
       {
@@ -669,6 +764,17 @@ final class LogFile<K extends Comparable<K>, V> implements Closeable
       }
     }
 
+    /**
+     * Returns the number of records read by the reader of this cursor.
+     *
+     * @return the number of records read
+     */
+    @VisibleForTesting
+    long getNbRecordsRead()
+    {
+      return reader.getNbRecordsRead();
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString()
@@ -0,0 +1,263 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.forgerock.i18n.slf4j.LocalizedLogger;
+import org.opends.server.util.StaticUtils;
+
+/**
+ * A sparse index of the records of a log file, mapping keys to the position
+ * of their record in the file.
+ * <p>
+ * One record is indexed every {@link #INDEX_INTERVAL} bytes, so a key is found
+ * by a binary search in memory followed by a short scan of the log file,
+ * instead of a binary search through the file blocks.
+ * <p>
+ * The index of the head log file is built while records are appended. When
+ * the head log file is rotated, its index is persisted in a file next to the
+ * read-only log file, with the {@link #INDEX_FILE_SUFFIX} suffix, and loaded
+ * again when cursors on the read-only log file are positioned. A log file
+ * without index is still searched using the block offsets.
+ *
+ * @param <K>
+ *          Type of the key of a record, which must be comparable.
+ */
+@ThreadSafe
+final class LogFileIndex<K extends Comparable<K>>
+{
+  private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
+
+  /** Suffix of the file storing the index of a log file. */
+  static final String INDEX_FILE_SUFFIX = ".idx";
+
+  /** Number of bytes in the log file between two indexed records. */
+  static final int INDEX_INTERVAL = 4 * 1024;
+
+  private static final int FORMAT_VERSION = 1;
+
+  private final List<K> keys = new ArrayList<>();
+  private final List<Long> positions = new ArrayList<>();
+  /**
+   * Indicates whether all the records of the log file were seen by this index,
+   * only a complete index can be persisted.
+   */
+  private final boolean isComplete;
+
+  /**
+   * Creates an empty index.
+   *
+   * @param isComplete
+   *          {@code true} if the log file is empty, {@code false} if some
+   *          records of the log file will not be added to this index
+   */
+  LogFileIndex(boolean isComplete)
+  {
+    this.isComplete = isComplete;
+  }
+
+  /**
+   * Indicates whether all the records of the log file are indexed.
+   *
+   * @return {@code true} if this index can be used to position cursors
+   */
+  boolean isComplete()
+  {
+    return isComplete;
+  }
+
+  /**
+   * Returns the file storing the index of the provided log file.
+   *
+   * @param logFile
+   *          the log file
+   * @return the index file
+   */
+  static File getIndexFile(File logFile)
+  {
+    return new File(logFile.getParentFile(), logFile.getName() + INDEX_FILE_SUFFIX);
+  }
+
+  /**
+   * Notifies this index that a record is about to be written at the provided
+   * position. Records must be provided in the order they are written.
+   *
+   * @param key
+   *          the key of the record
+   * @param position
+   *          the position of the record in the log file
+   */
+  synchronized void recordAppended(K key, long position)
+  {
+    final int size = positions.size();
+    if (size == 0 || position - positions.get(size - 1) >= INDEX_INTERVAL)
+    {
+      keys.add(key);
+      positions.add(position);
+    }
+  }
+
+  /**
+   * Returns the position of the closest indexed record with a key strictly
+   * lower than the provided key.
+   *
+   * @param key
+   *          the searched key
+   * @return the position of a record from which the provided key can be
+   *         searched, or 0 if the key is lower than or equal to all the indexed
+   *         keys
+   */
+  synchronized long getRecordPositionBefore(K key)
+  {
+    int low = 0;
+    int high = keys.size() - 1;
+    long position = 0;
+    while (low <= high)
+    {
+      final int middle = (low + high) >>> 1;
+      if (keys.get(middle).compareTo(key) < 0)
+      {
+        position = positions.get(middle);
+        low = middle + 1;
+      }
+      else
+      {
+        high = middle - 1;
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Persists this index, if complete, in the index file of the provided log
+   * file. Failing to write the index is not an error: the log file will simply
+   * be searched without index.
+   *
+   * @param <V>
+   *          Type of the value of a record.
+   * @param logFile
+   *          the log file indexed by this index, with its final name
+   * @param parser
+   *          the parser used to encode the keys
+   */
+  synchronized <V> void writeTo(File logFile, RecordParser<K, V> parser)
+  {
+    if (!isComplete)
+    {
+      return;
+    }
+    final File indexFile = getIndexFile(logFile);
+    final File tmpFile = new File(indexFile.getPath() + ".tmp");
+    try
+    {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile))))
+      {
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(logFile.length());
+        out.writeInt(keys.size());
+        for (int i = 0; i < keys.size(); i++)
+        {
+          out.writeLong(positions.get(i));
+          out.writeUTF(parser.encodeKeyToString(keys.get(i)));
+        }
+      }
+      StaticUtils.renameFile(tmpFile, indexFile);
+    }
+    catch (IOException e)
+    {
+      logger.traceException(e);
+      tmpFile.delete();
+    }
+  }
+
+  /**
+   * Reads the index of the provided log file from its index file.
+   *
+   * @param <K>
+   *          Type of the key of a record, which must be comparable.
+   * @param <V>
+   *          Type of the value of a record.
+   * @param logFile
+   *          the log file
+   * @param parser
+   *          the parser used to decode the keys
+   * @return the index, or {@code null} if there is no index file or if it does
+   *         not match the log file content
+   */
+  static <K extends Comparable<K>, V> LogFileIndex<K> readFrom(File logFile, RecordParser<K, V> parser)
+  {
+    final File indexFile = getIndexFile(logFile);
+    if (!indexFile.exists())
+    {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile))))
+    {
+      if (in.readInt() != FORMAT_VERSION || in.readLong() != logFile.length())
+      {
+        return null;
+      }
+      final LogFileIndex<K> index = new LogFileIndex<>(true);
+      final int size = in.readInt();
+      for (int i = 0; i < size; i++)
+      {
+        final long position = in.readLong();
+        index.positions.add(position);
+        index.keys.add(parser.decodeKeyFromString(in.readUTF()));
+      }
+      return index;
+    }
+    catch (Exception e)
+    {
+      logger.traceException(e);
+      return null;
+    }
+  }
+
+  /**
+   * Deletes the index file of the provided log file, if any.
+   *
+   * @param logFile
+   *          the log file
+   */
+  static void deleteIndexFile(File logFile)
+  {
+    final File indexFile = getIndexFile(logFile);
+    if (indexFile.exists() && !indexFile.delete())
+    {
+      logger.trace("Could not delete index file %s", indexFile);
+    }
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return getClass().getSimpleName() + " isComplete=" + isComplete + " size=" + keys.size();
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Random access to the content of a log file, as needed by a {@link BlockLogReader}.
+ * <p>
+ * Two implementations are available: one reading the file through a
+ * {@link RandomAccessFile}, used for files that are still being written, and
+ * one reading the file from memory, used for read-only log files that are
+ * mapped in memory.
+ */
+interface LogFileInput extends Closeable
+{
+  /**
+   * Sets the position at which the next read occurs.
+   *
+   * @param position
+   *          offset from the beginning of the file, in bytes
+   * @throws IOException
+   *           if an I/O error occurs
+   */
+  void seek(long position) throws IOException;
+
+  /**
+   * Returns the current position.
+   *
+   * @return the offset from the beginning of the file, in bytes
+   * @throws IOException
+   *           if an I/O error occurs
+   */
+  long getFilePointer() throws IOException;
+
+  /**
+   * Returns the length of the file.
+   *
+   * @return the length of the file, in bytes
+   * @throws IOException
+   *           if an I/O error occurs
+   */
+  long length() throws IOException;
+
+  /**
+   * Reads exactly {@code length} bytes into the provided array.
+   *
+   * @param bytes
+   *          the array receiving the data
+   * @param offset
+   *          the start offset in the array
+   * @param length
+   *          the number of bytes to read
+   * @throws EOFException
+   *           if the end of file is reached before reading all the bytes
+   * @throws IOException
+   *           if an I/O error occurs
+   */
+  void readFully(byte[] bytes, int offset, int length) throws IOException;
+
+  /**
+   * Skips over up to {@code n} bytes, fewer if the end of file is reached.
+   *
+   * @param n
+   *          the number of bytes to skip
+   * @throws IOException
+   *           if an I/O error occurs
+   */
+  void skipBytes(int n) throws IOException;
+
+  /** Reads a log file through a {@link RandomAccessFile}. */
+  static final class RandomAccessFileInput implements LogFileInput
+  {
+    private final RandomAccessFile file;
+
+    RandomAccessFileInput(RandomAccessFile file)
+    {
+      this.file = file;
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+      file.seek(position);
+    }
+
+    @Override
+    public long getFilePointer() throws IOException
+    {
+      return file.getFilePointer();
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+      return file.length();
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws IOException
+    {
+      file.readFully(bytes, offset, length);
+    }
+
+    @Override
+    public void skipBytes(int n) throws IOException
+    {
+      file.skipBytes(n);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      file.close();
+    }
+  }
+
+  /**
+   * Reads a log file from a buffer holding its whole content, typically a
+   * memory-mapped read-only log file. Each input must own its buffer, use
+   * {@link ByteBuffer#duplicate()} to share the content between several
+   * inputs.
+   */
+  static final class ByteBufferInput implements LogFileInput
+  {
+    private final ByteBuffer buffer;
+
+    ByteBufferInput(ByteBuffer buffer)
+    {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void seek(long position) throws IOException
+    {
+      if (position < 0 || position > buffer.limit())
+      {
+        throw new EOFException("Position " + position + " is outside of file of length " + buffer.limit());
+      }
+      buffer.position((int) position);
+    }
+
+    @Override
+    public long getFilePointer()
+    {
+      return buffer.position();
+    }
+
+    @Override
+    public long length()
+    {
+      return buffer.limit();
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws IOException
+    {
+      if (buffer.remaining() < length)
+      {
+        buffer.position(buffer.limit());
+        throw new EOFException();
+      }
+      buffer.get(bytes, offset, length);
+    }
+
+    @Override
+    public void skipBytes(int n)
+    {
+      buffer.position(buffer.position() + Math.min(n, buffer.remaining()));
+    }
+
+    @Override
+    public void close()
+    {
+      // the buffer is released when it is not referenced any more
+    }
+  }
+}
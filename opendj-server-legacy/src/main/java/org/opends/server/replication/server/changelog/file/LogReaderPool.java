@@ -16,16 +16,29 @@
 package org.opends.server.replication.server.changelog.file;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
 import org.opends.server.replication.server.changelog.api.ChangelogException;
 import org.opends.server.util.StaticUtils;
 
+import static com.forgerock.opendj.util.OperatingSystem.*;
 import static org.opends.messages.ReplicationMessages.*;
 
 /**
  * A Pool of readers to a log file.
-
+ * <p>
+ * Read-only log files are never modified, so they are mapped in memory once
+ * and all the readers share the mapped content: opening a reader does not
+ * open the file, and positioning it does not involve any system call. Log
+ * files that are still written are read through a {@link RandomAccessFile}.
+ * <p>
+ * Memory mapping is not used on Windows, where a mapped file can not be
+ * deleted until the mapping is garbage collected, which would prevent purging
+ * the log.
  *
  * @param <K>
  *          Type of the key of a record, which must be comparable.
@@ -40,6 +53,12 @@ class LogReaderPool<K extends Comparable<K>, V>
 
   private final RecordParser<K, V> parser;
 
+  /** Indicates whether the file can be mapped in memory. */
+  private boolean isMappable;
+
+  /** The content of the file mapped in memory, lazily initialized. */
+  private ByteBuffer mappedFile;
+
   /**
    * Creates a pool of readers for provided file.
    *
@@ -47,11 +66,15 @@ class LogReaderPool<K extends Comparable<K>, V>
    *          The file to read.
    * @param parser
    *          The parser to decode the records read.
+   * @param isReadOnly
+   *          Indicates whether the file is a read-only log file, which is never
+   *          modified any more.
    */
-  LogReaderPool(File file, RecordParser<K, V> parser)
+  LogReaderPool(File file, RecordParser<K, V> parser, boolean isReadOnly)
   {
     this.file = file;
     this.parser = parser;
+    this.isMappable = isReadOnly && !isWindows();
   }
 
   /**
@@ -88,6 +111,11 @@ class LogReaderPool<K extends Comparable<K>, V>
   {
     try
     {
+      final ByteBuffer mapped = getMappedFile();
+      if (mapped != null)
+      {
+        return BlockLogReader.newReader(file, new LogFileInput.ByteBufferInput(mapped.duplicate()), parser);
+      }
       return BlockLogReader.newReader(file, new RandomAccessFile(file, "r"), parser) ;
     }
     catch (Exception e)
@@ -96,13 +124,41 @@ class LogReaderPool<K extends Comparable<K>, V>
     }
   }
 
+  /**
+   * Returns the content of the file mapped in memory, or {@code null} if the
+   * file can not be mapped.
+   */
+  private synchronized ByteBuffer getMappedFile() throws IOException
+  {
+    if (mappedFile == null && isMappable)
+    {
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+           FileChannel channel = raf.getChannel())
+      {
+        final long size = channel.size();
+        if (size <= Integer.MAX_VALUE)
+        {
+          // the mapping remains valid after the channel is closed
+          mappedFile = channel.map(MapMode.READ_ONLY, 0, size);
+        }
+        else
+        {
+          isMappable = false;
+        }
+      }
+    }
+    return mappedFile;
+  }
+
   /**
    * Shutdown this pool, releasing all files handles opened
    * on the file.
    */
-  void shutdown()
+  synchronized void shutdown()
   {
-    // Nothing to do yet as no file handle is kept opened.
+    // No file handle is kept opened, the mapped content is released
+    // once the readers still using it are garbage collected.
+    mappedFile = null;
   }
 
 }
@@ -15,6 +15,7 @@
  */
 package org.opends.server.replication.server.changelog.file;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileDescriptor;
 import java.io.FileOutputStream;
@@ -31,9 +32,15 @@ import static org.opends.messages.ReplicationMessages.*;
 
 /**
  * A writer on a log file.
+ * <p>
+ * Written data is buffered, it only reaches the file when {@link #flush()} is
+ * called. This allows to write a batch of records to the file at once.
  */
 class LogWriter extends OutputStream
 {
+  /** Size of the buffer holding the data not flushed yet to the file. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   /** The file to write in. */
   private final File file;
 
@@ -57,7 +64,7 @@ class LogWriter extends OutputStream
     try
     {
       FileOutputStream fos = new FileOutputStream(file, true);
-      this.stream = new MeteredStream(fos, file.length());
+      this.stream = new MeteredStream(new BufferedOutputStream(fos, BUFFER_SIZE), file.length());
       this.fileDescriptor = fos.getFD();
     }
     catch (Exception e)
@@ -111,8 +118,16 @@ class LogWriter extends OutputStream
     bs.copyTo(stream);
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void flush() throws IOException
+  {
+    stream.flush();
+  }
+
   /**
-   * Returns the number of bytes written in the underlying file.
+   * Returns the number of bytes written in the underlying file, including the
+   * bytes not flushed yet.
    *
    * @return the number of bytes
    */
@@ -128,6 +143,14 @@ class LogWriter extends OutputStream
    *            If synchronization fails.
    */
   void sync() throws SyncFailedException {
+    try
+    {
+      stream.flush();
+    }
+    catch (IOException e)
+    {
+      throw new SyncFailedException(e.getMessage());
+    }
     fileDescriptor.sync();
   }
 
@@ -0,0 +1,356 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.service;
+
+import static org.opends.server.util.StaticUtils.*;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.replication.protocol.EntryBatchMsg;
+import org.opends.server.replication.protocol.InitializeStreamsMsg.StreamPosition;
+import org.opends.server.replication.protocol.NotSupportedOldVersionPDUException;
+import org.opends.server.replication.protocol.ProtocolVersion;
+import org.opends.server.replication.protocol.ReplicationMsg;
+import org.opends.server.util.StaticUtils;
+
+/**
+ * Spools the {@link EntryBatchMsg}s received while a domain is initialized
+ * from binary entry records, so that an interrupted initialization can resume
+ * the streams where they stopped instead of sending all the entries again.
+ * <p>
+ * The spool file holds the encoded messages, each preceded by its length. The
+ * checkpoint file records the exporter, the generation ID, the positions of
+ * the streams and the length of the spool file which is consistent with these
+ * positions. It is written to a temporary file renamed once complete, after the
+ * spool file has been forced to disk, so that a crash never leaves a checkpoint
+ * pointing past the end of the durable spool. The spool file is truncated to
+ * the checkpointed length when opened.
+ * <p>
+ * This class is not thread safe: it is only used by the thread importing the
+ * entries.
+ */
+final class InitializationSpool implements Closeable
+{
+  private static final String SPOOL_DIRECTORY = "import-tmp" + File.separator + "replication-initialization";
+  private static final int CHECKPOINT_FORMAT = 1;
+
+  private final File spoolFile;
+  private final File checkpointFile;
+  private final FileChannel channel;
+
+  /** Identifier of the exporter whose batches are spooled, -1 if none. */
+  private int exporterId = -1;
+  /** Generation ID of the spooled data. */
+  private long generationId = -1;
+  /** Protocol version used to encode the spooled messages. */
+  private short protocolVersion = ProtocolVersion.getCurrentVersion();
+  /** Positions of the streams recorded by the last checkpoint. */
+  private List<StreamPosition> checkpointedPositions = Collections.emptyList();
+  /** Number of batches recorded by the last checkpoint. */
+  private int nbCheckpointedBatches;
+
+  /** Position in the spool file of the next batch to replay. */
+  private long replayPosition;
+  /** Length of the spool file which remains to be replayed. */
+  private long replayEnd;
+  /** Number of batches appended to the spool file, replayed ones included. */
+  private int nbBatches;
+
+  private InitializationSpool(File spoolFile, File checkpointFile) throws IOException
+  {
+    this.spoolFile = spoolFile;
+    this.checkpointFile = checkpointFile;
+    this.channel = new RandomAccessFile(spoolFile, "rw").getChannel();
+  }
+
+  /**
+   * Opens the spool of a domain, keeping the batches recorded by its last
+   * checkpoint, if any.
+   *
+   * @param serverId
+   *          the server ID of the domain
+   * @param baseDN
+   *          the base DN of the domain
+   * @return the spool of the domain
+   * @throws IOException
+   *           if the spool cannot be opened
+   */
+  static InitializationSpool open(int serverId, DN baseDN) throws IOException
+  {
+    final File directory = getFileForPath(SPOOL_DIRECTORY);
+    if (!directory.isDirectory() && !directory.mkdirs())
+    {
+      throw new IOException("Cannot create directory " + directory);
+    }
+    final String name = "domain-" + serverId + "-" + baseDN.toNormalizedUrlSafeString();
+    final InitializationSpool spool =
+        new InitializationSpool(new File(directory, name + ".spool"), new File(directory, name + ".checkpoint"));
+    try
+    {
+      spool.readCheckpoint();
+      return spool;
+    }
+    catch (IOException e)
+    {
+      spool.close();
+      throw e;
+    }
+  }
+
+  private void readCheckpoint() throws IOException
+  {
+    long checkpointedLength = 0;
+    if (checkpointFile.exists())
+    {
+      try (DataInputStream input = new DataInputStream(new FileInputStream(checkpointFile)))
+      {
+        if (input.readInt() == CHECKPOINT_FORMAT)
+        {
+          final short version = input.readShort();
+          final int exporter = input.readInt();
+          final long genId = input.readLong();
+          final long length = input.readLong();
+          final int batches = input.readInt();
+          final int nbPositions = input.readInt();
+          final List<StreamPosition> positions = new ArrayList<>(nbPositions);
+          for (int i = 0; i < nbPositions; i++)
+          {
+            positions.add(new StreamPosition(input.readLong(), input.readLong()));
+          }
+          if (length <= channel.size())
+          {
+            protocolVersion = version;
+            exporterId = exporter;
+            generationId = genId;
+            checkpointedLength = length;
+            nbCheckpointedBatches = batches;
+            checkpointedPositions = Collections.unmodifiableList(positions);
+          }
+        }
+      }
+      catch (EOFException e)
+      {
+        // Incomplete checkpoint: start from scratch
+      }
+    }
+    // Drop the batches received after the last checkpoint
+    channel.truncate(checkpointedLength);
+    nbBatches = nbCheckpointedBatches;
+    replayEnd = checkpointedLength;
+  }
+
+  /**
+   * Returns the identifier of the exporter of the spooled batches.
+   *
+   * @return the identifier of the exporter, -1 if no batch is spooled
+   */
+  int getExporterId()
+  {
+    return exporterId;
+  }
+
+  /**
+   * Returns the generation ID of the spooled batches.
+   *
+   * @return the generation ID of the spooled batches
+   */
+  long getGenerationId()
+  {
+    return generationId;
+  }
+
+  /**
+   * Returns the positions of the streams after the spooled batches.
+   *
+   * @return the positions of the streams, empty if no checkpoint was recorded
+   */
+  List<StreamPosition> getCheckpointedPositions()
+  {
+    return checkpointedPositions;
+  }
+
+  /**
+   * Returns the number of spooled batches which will be replayed.
+   *
+   * @return the number of spooled batches which will be replayed
+   */
+  int getNbCheckpointedBatches()
+  {
+    return nbCheckpointedBatches;
+  }
+
+  /**
+   * Drops the spooled batches and starts spooling the batches of a new
+   * initialization.
+   *
+   * @param exporterId
+   *          the identifier of the exporter
+   * @param generationId
+   *          the generation ID of the exported data
+   * @throws IOException
+   *           if the spool cannot be reset
+   */
+  void reset(int exporterId, long generationId) throws IOException
+  {
+    Files.deleteIfExists(checkpointFile.toPath());
+    channel.truncate(0);
+    this.exporterId = exporterId;
+    this.generationId = generationId;
+    this.protocolVersion = ProtocolVersion.getCurrentVersion();
+    this.checkpointedPositions = Collections.emptyList();
+    this.nbCheckpointedBatches = 0;
+    this.nbBatches = 0;
+    this.replayPosition = 0;
+    this.replayEnd = 0;
+  }
+
+  /**
+   * Returns the next spooled batch to replay.
+   *
+   * @return the next spooled batch, or {@code null} once all the checkpointed
+   *         batches have been replayed
+   * @throws IOException
+   *           if the batch cannot be read or decoded
+   */
+  EntryBatchMsg nextReplayedBatch() throws IOException
+  {
+    if (replayPosition >= replayEnd)
+    {
+      return null;
+    }
+    final ByteBuffer length = ByteBuffer.allocate(4);
+    readFully(length, replayPosition);
+    final ByteBuffer bytes = ByteBuffer.allocate(length.getInt(0));
+    readFully(bytes, replayPosition + 4);
+    replayPosition += 4 + bytes.capacity();
+    try
+    {
+      return (EntryBatchMsg) ReplicationMsg.generateMsg(bytes.array(), protocolVersion);
+    }
+    catch (DataFormatException | NotSupportedOldVersionPDUException | ClassCastException e)
+    {
+      throw new IOException("Corrupted spool file " + spoolFile, e);
+    }
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException
+  {
+    while (buffer.hasRemaining())
+    {
+      if (channel.read(buffer, position + buffer.position()) < 0)
+      {
+        throw new EOFException("Truncated spool file " + spoolFile);
+      }
+    }
+  }
+
+  /**
+   * Appends a received batch to the spool.
+   *
+   * @param batch
+   *          the received batch
+   * @throws IOException
+   *           if the batch cannot be written
+   */
+  void append(EntryBatchMsg batch) throws IOException
+  {
+    final byte[] bytes = batch.getBytes(protocolVersion);
+    final ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length);
+    buffer.putInt(bytes.length).put(bytes).flip();
+    long position = channel.size();
+    while (buffer.hasRemaining())
+    {
+      position += channel.write(buffer, position);
+    }
+    nbBatches++;
+  }
+
+  /**
+   * Records that the batches appended so far bring the streams to the provided
+   * positions.
+   *
+   * @param positions
+   *          the positions of the streams after the spooled batches
+   * @throws IOException
+   *           if the checkpoint cannot be written
+   */
+  void checkpoint(List<StreamPosition> positions) throws IOException
+  {
+    channel.force(false);
+    final File tmpFile = new File(checkpointFile.getPath() + ".tmp");
+    try (FileOutputStream output = new FileOutputStream(tmpFile);
+        DataOutputStream data = new DataOutputStream(output))
+    {
+      data.writeInt(CHECKPOINT_FORMAT);
+      data.writeShort(protocolVersion);
+      data.writeInt(exporterId);
+      data.writeLong(generationId);
+      data.writeLong(channel.size());
+      data.writeInt(nbBatches);
+      data.writeInt(positions.size());
+      for (StreamPosition position : positions)
+      {
+        data.writeLong(position.getNextEntryID());
+        data.writeLong(position.getEndEntryID());
+      }
+      data.flush();
+      output.getFD().sync();
+    }
+    Files.move(tmpFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    checkpointedPositions = Collections.unmodifiableList(new ArrayList<>(positions));
+    nbCheckpointedBatches = nbBatches;
+  }
+
+  /**
+   * Closes and deletes the spool.
+   */
+  void delete()
+  {
+    close();
+    spoolFile.delete();
+    checkpointFile.delete();
+  }
+
+  @Override
+  public void close()
+  {
+    StaticUtils.close(channel);
+  }
+
+  @Override
+  public String toString()
+  {
+    return spoolFile.getPath();
+  }
+}
@@ -2821,6 +2821,17 @@ public class ReplicationBroker
     return session != null ? session.isEncrypted() : false;
   }
 
+  /**
+   * Returns the session with the replication server this broker is connected to.
+   *
+   * @return the session with the replication server, or {@code null} if the
+   *         broker is not connected
+   */
+  Session getSession()
+  {
+    return connectedRS.get().session;
+  }
+
   /**
    * Signals the RS we just entered a new status.
    * @param newStatus The status the local DS just entered
@@ -21,12 +21,16 @@ import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.replication.common.AssuredMode.*;
 import static org.opends.server.replication.common.StatusMachine.*;
 import static org.opends.server.util.CollectionUtils.*;
+import static org.opends.server.util.StaticUtils.*;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -54,6 +58,9 @@ import org.forgerock.opendj.server.config.meta.ReplicationDomainCfgDefn.AssuredT
 import org.forgerock.opendj.server.config.server.ReplicationDomainCfg;
 import org.opends.server.api.DirectoryThread;
 import org.opends.server.api.MonitorData;
+import org.opends.server.backends.pluggable.EntryRecordBatch;
+import org.opends.server.backends.pluggable.EntryRecordExport;
+import org.opends.server.backends.pluggable.EntryRecordSource;
 import org.opends.server.backends.task.Task;
 import org.opends.server.replication.common.AssuredMode;
 import org.opends.server.replication.common.CSN;
@@ -67,17 +74,21 @@ import org.opends.server.replication.common.StatusMachineEvent;
 import org.opends.server.replication.protocol.AckMsg;
 import org.opends.server.replication.protocol.ChangeStatusMsg;
 import org.opends.server.replication.protocol.DoneMsg;
+import org.opends.server.replication.protocol.EntryBatchMsg;
 import org.opends.server.replication.protocol.EntryMsg;
 import org.opends.server.replication.protocol.ErrorMsg;
 import org.opends.server.replication.protocol.HeartbeatMsg;
 import org.opends.server.replication.protocol.InitializeRcvAckMsg;
 import org.opends.server.replication.protocol.InitializeRequestMsg;
+import org.opends.server.replication.protocol.InitializeStreamsMsg;
+import org.opends.server.replication.protocol.InitializeStreamsMsg.StreamPosition;
 import org.opends.server.replication.protocol.InitializeTargetMsg;
 import org.opends.server.replication.protocol.ProtocolVersion;
 import org.opends.server.replication.protocol.ReplSessionSecurity;
 import org.opends.server.replication.protocol.ReplicationMsg;
 import org.opends.server.replication.protocol.ResetGenerationIdMsg;
 import org.opends.server.replication.protocol.RoutableMsg;
+import org.opends.server.replication.protocol.Session;
 import org.opends.server.replication.protocol.TopologyMsg;
 import org.opends.server.replication.protocol.UpdateMsg;
 import org.opends.server.tasks.InitializeTargetTask;
@@ -231,6 +242,19 @@ public abstract class ReplicationDomain
   private ServerStatus status = ServerStatus.NOT_CONNECTED_STATUS;
   private static final LocalizedLogger logger = LocalizedLogger.getLoggerForThisClass();
 
+  /**
+   * Maximum time waited for the importers to accept the entry record streams,
+   * once they announced they were in full update status. The importers accept
+   * the streams before changing their status, so this only covers the routing
+   * delay: it is short because the LDIF export is delayed by as much when an
+   * importer does not accept them.
+   */
+  private static final long STREAMS_ACCEPT_TIMEOUT_MILLIS = 200;
+  /** Size of the uncompressed entry records above which a batch is sent. */
+  private static final int ENTRY_BATCH_SIZE = 512 * 1024;
+  /** Number of received entry batches between two checkpoints of the spool. */
+  private static final int SPOOL_CHECKPOINT_INTERVAL = 64;
+
   /** The configuration of the replication domain. */
   protected volatile ReplicationDomainCfg config;
   /**
@@ -858,6 +882,15 @@ public abstract class ReplicationDomain
           }
           // Trash this msg When no input/export is running/should never happen
         }
+        else if (msg instanceof InitializeStreamsMsg)
+        {
+          // An importer accepts the entry record streams offered by our export
+          ImportExportContext ieCtx = importExportContext.get();
+          if (ieCtx != null && !ieCtx.importInProgress())
+          {
+            ieCtx.setAcceptedStreams(((InitializeStreamsMsg) msg).getSenderID(), (InitializeStreamsMsg) msg);
+          }
+        }
       }
       catch (SocketTimeoutException e)
       {
@@ -1100,7 +1133,7 @@ public abstract class ReplicationDomain
     private long entryLeftCount;
 
     /** Exception raised during the initialization. */
-    private DirectoryException exception;
+    private volatile DirectoryException exception;
 
     /** Whether the context is related to an import or an export. */
     private final boolean importInProgress;
@@ -1147,6 +1180,19 @@ public abstract class ReplicationDomain
     /** Number of attempt already done for this initialization. */
     private short attemptCnt;
 
+    /**
+     * Entry record streams accepted by the importers of an export: map of
+     * remote serverId to the message accepting the streams (updated via the
+     * listener thread).
+     */
+    private final Map<Integer, InitializeStreamsMsg> acceptedStreams = new HashMap<>();
+
+    /**
+     * First EntryMsg of an import which accepted entry record streams but is
+     * sent LDIF entries, not yet returned by receiveEntryBytes().
+     */
+    private EntryMsg pendingEntryMsg;
+
     /**
      * Creates a new IEContext.
      *
@@ -1161,6 +1207,19 @@ public abstract class ReplicationDomain
       this.attemptCnt = 0;
     }
 
+    /**
+     * Creates a new IEContext for an export, using the provided initialization
+     * window for flow control.
+     *
+     * @param initWindow
+     *          the initialization window
+     */
+    ImportExportContext(int initWindow)
+    {
+      this(false);
+      this.initWindow = initWindow;
+    }
+
     /**
      * Returns a boolean indicating if a total update import is currently in
      * Progress.
@@ -1296,9 +1355,9 @@ public abstract class ReplicationDomain
      *
      * @param exception the exception that occurred during the import/export.
      */
-    public void setExceptionIfNoneSet(DirectoryException exception)
+    public synchronized void setExceptionIfNoneSet(DirectoryException exception)
     {
-      if (exception == null)
+      if (this.exception == null)
       {
         this.exception = exception;
       }
@@ -1310,7 +1369,7 @@ public abstract class ReplicationDomain
      * @param serverId serverId of the acknowledger/receiver/importer server.
      * @param numAck   id of the message received.
      */
-    private void setAckVal(int serverId, int numAck)
+    synchronized void setAckVal(int serverId, int numAck)
     {
       if (logger.isTraceEnabled())
       {
@@ -1331,6 +1390,87 @@ public abstract class ReplicationDomain
           minMsgReceived = nbMsgReceived;
         }
       }
+      // wake up the exporter waiting for the initialization window to open
+      notifyAll();
+    }
+
+    /**
+     * Waits until the slowest importer acknowledged enough messages for the
+     * provided message to be sent within the initialization window.
+     *
+     * @param msgId
+     *          id of the EntryMsg to send
+     * @param timeoutMillis
+     *          the maximum time to wait, in milliseconds
+     * @return {@code true} if the message can be sent, {@code false} if the
+     *         timeout expired first
+     * @throws InterruptedException
+     *           if the current thread is interrupted while waiting
+     */
+    synchronized boolean waitForInitWindow(int msgId, long timeoutMillis) throws InterruptedException
+    {
+      if (!isInInitWindow(msgId))
+      {
+        wait(timeoutMillis);
+      }
+      return isInInitWindow(msgId);
+    }
+
+    private boolean isInInitWindow(int msgId)
+    {
+      final int slowestCnt = ackVals.get(slowestServerId);
+      if (logger.isTraceEnabled())
+      {
+        logger.trace("[IE] Entering exportLDIFEntry waiting " + " our=" + msgId + " slowest=" + slowestCnt);
+      }
+      return msgId - slowestCnt <= initWindow;
+    }
+
+    /** Forgets the entry record streams accepted during a previous attempt. */
+    synchronized void clearAcceptedStreams()
+    {
+      acceptedStreams.clear();
+    }
+
+    /**
+     * Records that an importer accepted the entry record streams offered by
+     * this export.
+     *
+     * @param serverId
+     *          serverId of the importer
+     * @param acceptMsg
+     *          the message accepting the streams
+     */
+    synchronized void setAcceptedStreams(int serverId, InitializeStreamsMsg acceptMsg)
+    {
+      acceptedStreams.put(serverId, acceptMsg);
+      notifyAll();
+    }
+
+    /**
+     * Waits until all the provided importers accepted the entry record streams
+     * offered by this export.
+     *
+     * @param serverIds
+     *          serverIds of the importers
+     * @param timeoutMillis
+     *          the maximum time to wait, in milliseconds
+     * @return the messages accepting the streams by serverId of the importers,
+     *         or {@code null} if some importers did not accept them in time
+     * @throws InterruptedException
+     *           if the current thread is interrupted while waiting
+     */
+    synchronized Map<Integer, InitializeStreamsMsg> waitForAcceptedStreams(Set<Integer> serverIds,
+        long timeoutMillis) throws InterruptedException
+    {
+      final long deadline = System.currentTimeMillis() + timeoutMillis;
+      long remaining = timeoutMillis;
+      while (!acceptedStreams.keySet().containsAll(serverIds) && remaining > 0)
+      {
+        wait(remaining);
+        remaining = deadline - System.currentTimeMillis();
+      }
+      return acceptedStreams.keySet().containsAll(serverIds) ? new HashMap<>(acceptedStreams) : null;
     }
 
     /**
@@ -1339,7 +1479,7 @@ public abstract class ReplicationDomain
      * @return serverId of the server with latest acknowledge.
      *                  0 when no ack has been received yet.
      */
-    public int getSlowestServer()
+    public synchronized int getSlowestServer()
     {
       if (logger.isTraceEnabled())
       {
@@ -1495,10 +1635,12 @@ public abstract class ReplicationDomain
         ieCtx.initWindow = initWindow;
 
         // Send start message to the peer
+        final int nbStreams = getInitializationStreamsOffer(ieCtx.startList);
         InitializeTargetMsg initTargetMsg = new InitializeTargetMsg(
             getBaseDN(), getServerId(), serverToInitialize,
-            serverRunningTheTask, ieCtx.entryCount, initWindow);
+            serverRunningTheTask, ieCtx.entryCount, initWindow, nbStreams);
 
+        ieCtx.clearAcceptedStreams();
         broker.publish(initTargetMsg);
 
         // Wait for all servers to be ok
@@ -1513,7 +1655,10 @@ public abstract class ReplicationDomain
               ERR_INIT_NO_SUCCESS_START_FROM_SERVERS.get(getBaseDN(), ieCtx.failureList));
         }
 
-        exportBackend(new BufferedOutputStream(new ReplOutputStream(this)));
+        if (!exportEntryRecords(ieCtx, nbStreams))
+        {
+          exportBackend(new BufferedOutputStream(new ReplOutputStream(this)));
+        }
 
         // Notify the peer of the success
         broker.publish(
@@ -1646,6 +1791,202 @@ public abstract class ReplicationDomain
     return null;
   }
 
+  /**
+   * Returns the number of entry record streams to offer to the servers to
+   * initialize: all of them, and this server, must support the binary entry
+   * records of their backends.
+   */
+  private int getInitializationStreamsOffer(Set<Integer> serversToInitialize)
+  {
+    if (config.getInitializationStreams() <= 0
+        || broker.getProtocolVersion() < ProtocolVersion.REPLICATION_PROTOCOL_V10
+        || !supportsEntryRecords())
+    {
+      return 0;
+    }
+    final Map<Integer, DSInfo> replicaInfos = getReplicaInfos();
+    for (int serverId : serversToInitialize)
+    {
+      final DSInfo dsi = replicaInfos.get(serverId);
+      if (dsi == null || dsi.getProtocolVersion() < ProtocolVersion.REPLICATION_PROTOCOL_V10)
+      {
+        return 0;
+      }
+    }
+    return config.getInitializationStreams();
+  }
+
+  /**
+   * Sends the entries as batches of binary entry records if all the servers to
+   * initialize accepted the streams offered by the InitializeTargetMsg.
+   *
+   * @return {@code true} if the entries have been sent, {@code false} if they
+   *         must be sent in LDIF
+   */
+  private boolean exportEntryRecords(ImportExportContext ieCtx, int nbStreams) throws DirectoryException
+  {
+    if (nbStreams <= 0)
+    {
+      return false;
+    }
+
+    final Map<Integer, InitializeStreamsMsg> acceptedStreams;
+    try
+    {
+      // The importers accept the streams before going into full update status,
+      // which has already been waited for: only wait for the routing delay
+      acceptedStreams = ieCtx.waitForAcceptedStreams(ieCtx.startList, STREAMS_ACCEPT_TIMEOUT_MILLIS);
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new DirectoryException(ResultCode.OTHER, ERR_INIT_EXPORT_INTERRUPTED.get());
+    }
+    if (acceptedStreams == null)
+    {
+      return false;
+    }
+
+    final EntryRecordExport export = openEntryRecordExport();
+    try
+    {
+      List<StreamPosition> positions = getResumedStreamPositions(acceptedStreams);
+      final boolean resumed = positions != null;
+      if (!resumed)
+      {
+        positions = splitEntryIDs(export.getHighestEntryID(), nbStreams);
+      }
+      logger.info(NOTE_FULL_UPDATE_ENTRY_RECORDS_STREAMS, getBaseDN(), ieCtx.startList, positions.size(), resumed);
+
+      broker.publish(new InitializeStreamsMsg(getServerId(), ieCtx.getExportTarget(), getGenerationID(), positions));
+      exportEntryRecordStreams(ieCtx, export, positions);
+    }
+    finally
+    {
+      closeEntryRecordExport(export);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the positions checkpointed by the importer during a previous
+   * attempt to initialize it from the same data, {@code null} if the streams
+   * must be sent from the beginning.
+   */
+  private List<StreamPosition> getResumedStreamPositions(Map<Integer, InitializeStreamsMsg> acceptedStreams)
+  {
+    if (acceptedStreams.size() == 1)
+    {
+      final InitializeStreamsMsg acceptMsg = acceptedStreams.values().iterator().next();
+      if (!acceptMsg.getPositions().isEmpty() && acceptMsg.getGenerationId() == getGenerationID())
+      {
+        return acceptMsg.getPositions();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Splits the entry IDs of the backend into ranges of the same size, the last
+   * range including the entries added after the split.
+   */
+  static List<StreamPosition> splitEntryIDs(long highestEntryID, int nbStreams)
+  {
+    final long rangeSize = Math.max(1, (highestEntryID + nbStreams - 1) / nbStreams);
+    final List<StreamPosition> positions = new ArrayList<>(nbStreams);
+    for (int i = 0; i < nbStreams; i++)
+    {
+      final long first = 1 + i * rangeSize;
+      positions.add(new StreamPosition(first, i == nbStreams - 1 ? Long.MAX_VALUE : first + rangeSize));
+    }
+    return positions;
+  }
+
+  /**
+   * Reads and publishes the streams concurrently. The publication of the
+   * batches is serialized, to number them for the flow control and to send the
+   * compressed schema definitions before the first batch using them.
+   */
+  private void exportEntryRecordStreams(final ImportExportContext ieCtx, final EntryRecordExport export,
+      List<StreamPosition> positions) throws DirectoryException
+  {
+    final Object publishLock = new Object();
+    final List<Thread> streams = new ArrayList<>(positions.size());
+    for (int i = 0; i < positions.size(); i++)
+    {
+      final int streamId = i;
+      final StreamPosition position = positions.get(i);
+      streams.add(new DirectoryThread(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            long nextEntryID = position.getNextEntryID();
+            EntryRecordBatch batch;
+            while (ieCtx.getException() == null
+                && (batch = export.readBatch(nextEntryID, position.getEndEntryID(), ENTRY_BATCH_SIZE)) != null)
+            {
+              nextEntryID = batch.getLastEntryID() + 1;
+              synchronized (publishLock)
+              {
+                final int msgId = ++ieCtx.msgCnt;
+                waitForInitWindowToOpen(ieCtx, msgId);
+                // Taken once the batch has been read: the definitions it uses
+                // are sent with it, or have been sent with a previous batch
+                final EntryBatchMsg batchMsg = new EntryBatchMsg(getServerId(), ieCtx.getExportTarget(), msgId,
+                    streamId, nextEntryID, batch.getNbEntries(), export.takeSchemaDefinitions(), batch.getRecords());
+                publishInitializationMsg(ieCtx, batchMsg, batch.getNbEntries());
+              }
+            }
+          }
+          catch (DirectoryException e)
+          {
+            ieCtx.setExceptionIfNoneSet(e);
+          }
+          catch (IOException e)
+          {
+            // The cause has been stored in the context
+          }
+        }
+      }, "Initialization stream " + i + " from serverId=" + getServerId() + " to serverId=" + ieCtx.getExportTarget()));
+    }
+
+    for (Thread stream : streams)
+    {
+      stream.start();
+    }
+    boolean interrupted = false;
+    for (Thread stream : streams)
+    {
+      while (stream.isAlive())
+      {
+        try
+        {
+          stream.join();
+        }
+        catch (InterruptedException e)
+        {
+          interrupted = true;
+          ieCtx.setExceptionIfNoneSet(new DirectoryException(ResultCode.OTHER, ERR_INIT_EXPORT_INTERRUPTED.get()));
+          for (Thread s : streams)
+          {
+            s.interrupt();
+          }
+        }
+      }
+    }
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+    if (ieCtx.getException() != null)
+    {
+      throw ieCtx.getException();
+    }
+  }
+
   /**
    * For all remote servers in the start list:
    * - wait it has finished the import and present the expected generationID,
@@ -1868,11 +2209,65 @@ public abstract class ReplicationDomain
    * @return The bytes. Null when the Done or Err message has been received
    */
   protected byte[] receiveEntryBytes()
+  {
+    ImportExportContext ieCtx = importExportContext.get();
+    ReplicationMsg msg = ieCtx.pendingEntryMsg;
+    ieCtx.pendingEntryMsg = null;
+    while (true)
+    {
+      if (msg == null)
+      {
+        msg = receiveInitializationMsg(ieCtx);
+      }
+      if (msg instanceof EntryMsg)
+      {
+        EntryMsg entryMsg = (EntryMsg)msg;
+        byte[] entryBytes = entryMsg.getEntryBytes();
+        try
+        {
+          ieCtx.updateCounters(countEntryLimits(entryBytes));
+        }
+        catch (DirectoryException e)
+        {
+          ieCtx.setExceptionIfNoneSet(new DirectoryException(
+              ResultCode.OTHER,
+              ERR_INIT_IMPORT_FAILURE.get(e.getLocalizedMessage())));
+          msg = null;
+          continue;
+        }
+
+        if (ieCtx.exporterProtocolVersion >=
+          ProtocolVersion.REPLICATION_PROTOCOL_V4
+            && !checkMsgIdAndAck(ieCtx, entryMsg.getSenderID(), entryMsg.getMsgId()))
+        {
+          return null;
+        }
+        return entryBytes;
+      }
+      else if (msg != null)
+      {
+        // Entry record streams have not been accepted
+        ieCtx.setExceptionIfNoneSet(new DirectoryException(ResultCode.OTHER,
+            ERR_INIT_UNEXPECTED_MSG_DURING_IMPORT.get(msg, getBaseDN())));
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Receives the next message carrying entries in the context of an import to
+   * initialize the domain.
+   *
+   * @return an {@link EntryMsg}, an {@link EntryBatchMsg} or an
+   *         {@link InitializeStreamsMsg} from the exporter. Null when the Done
+   *         or Err message has been received, or when the connection with the
+   *         exporter has been lost
+   */
+  private ReplicationMsg receiveInitializationMsg(ImportExportContext ieCtx)
   {
     ReplicationMsg msg;
     while (true)
     {
-      ImportExportContext ieCtx = importExportContext.get();
       try
       {
         // In the context of the total update, we don't want any automatic
@@ -1906,39 +2301,11 @@ public abstract class ReplicationDomain
           }
         }
 
-        // Check good ordering of msg received
-        if (msg instanceof EntryMsg)
+        if (msg instanceof EntryMsg
+            || msg instanceof EntryBatchMsg
+            || (msg instanceof InitializeStreamsMsg && ((InitializeStreamsMsg) msg).getSenderID() == ieCtx.importSource))
         {
-          EntryMsg entryMsg = (EntryMsg)msg;
-          byte[] entryBytes = entryMsg.getEntryBytes();
-          ieCtx.updateCounters(countEntryLimits(entryBytes));
-
-          if (ieCtx.exporterProtocolVersion >=
-            ProtocolVersion.REPLICATION_PROTOCOL_V4)
-          {
-            // check the msgCnt of the msg received to check ordering
-            if (++ieCtx.msgCnt != entryMsg.getMsgId())
-            {
-              ieCtx.setExceptionIfNoneSet(new DirectoryException(
-                  ResultCode.OTHER, ERR_INIT_BAD_MSG_ID_SEQ_DURING_IMPORT.get(ieCtx.msgCnt, entryMsg.getMsgId())));
-              return null;
-            }
-
-            // send the ack of flow control mgmt
-            if ((ieCtx.msgCnt % (ieCtx.initWindow/2)) == 0)
-            {
-              final InitializeRcvAckMsg amsg = new InitializeRcvAckMsg(
-                  getServerId(), entryMsg.getSenderID(), ieCtx.msgCnt);
-              broker.publish(amsg, false);
-              if (logger.isTraceEnabled())
-              {
-                logger.trace("[IE] In "
-                    + broker.getReplicationMonitorInstanceName()
-                    + ", publish InitializeRcvAckMsg" + amsg);
-              }
-            }
-          }
-          return entryBytes;
+          return msg;
         }
         else if (msg instanceof DoneMsg)
         {
@@ -1988,6 +2355,39 @@ public abstract class ReplicationDomain
     }
   }
 
+  /**
+   * Checks the good ordering of a message carrying entries and acknowledges
+   * the received messages for the flow control of the exporter.
+   *
+   * @return {@code true} if the message is in sequence, {@code false} if the
+   *         import must be abandoned, the error being stored in the context
+   */
+  private boolean checkMsgIdAndAck(ImportExportContext ieCtx, int senderId, int msgId)
+  {
+    // check the msgCnt of the msg received to check ordering
+    if (++ieCtx.msgCnt != msgId)
+    {
+      ieCtx.setExceptionIfNoneSet(new DirectoryException(
+          ResultCode.OTHER, ERR_INIT_BAD_MSG_ID_SEQ_DURING_IMPORT.get(ieCtx.msgCnt, msgId)));
+      return false;
+    }
+
+    // send the ack of flow control mgmt
+    if ((ieCtx.msgCnt % (ieCtx.initWindow/2)) == 0)
+    {
+      final InitializeRcvAckMsg amsg = new InitializeRcvAckMsg(
+          getServerId(), senderId, ieCtx.msgCnt);
+      broker.publish(amsg, false);
+      if (logger.isTraceEnabled())
+      {
+        logger.trace("[IE] In "
+            + broker.getReplicationMonitorInstanceName()
+            + ", publish InitializeRcvAckMsg" + amsg);
+      }
+    }
+    return true;
+  }
+
   /**
    * Count the number of entries in the provided byte[].
    * This is based on the hypothesis that the entries are separated
@@ -2048,6 +2448,26 @@ public abstract class ReplicationDomain
         getServerId(), ieCtx.getExportTarget(), lDIFEntry, pos, length,
         ++ieCtx.msgCnt);
 
+    waitForInitWindowToOpen(ieCtx, ieCtx.msgCnt);
+
+    if (logger.isTraceEnabled())
+    {
+      logger.trace("[IE] Entering exportLDIFEntry pub entry=" + Arrays.toString(lDIFEntry));
+    }
+
+    publishInitializationMsg(ieCtx, entryMessage, countEntryLimits(lDIFEntry, pos, length));
+  }
+
+  /**
+   * Waits until the slowest importer acknowledged enough messages for the
+   * provided message to be sent.
+   *
+   * @throws IOException
+   *           if the export must be abandoned, the cause being stored in the
+   *           context
+   */
+  private void waitForInitWindowToOpen(ImportExportContext ieCtx, int msgId) throws IOException
+  {
     // Waiting the slowest loop
     while (!broker.shuttingDown())
     {
@@ -2064,46 +2484,29 @@ public abstract class ReplicationDomain
       int slowestServerId = ieCtx.getSlowestServer();
       if (getConnectedRemoteDS(slowestServerId) == null)
       {
-        ieCtx.setException(new DirectoryException(ResultCode.OTHER,
+        ieCtx.setExceptionIfNoneSet(new DirectoryException(ResultCode.OTHER,
             ERR_INIT_HEARTBEAT_LOST_DURING_EXPORT.get(ieCtx.getSlowestServer())));
 
         throw new IOException("IOException with nested DirectoryException",
             ieCtx.getException());
       }
 
-      int ourLastExportedCnt = ieCtx.msgCnt;
-      int slowestCnt = ieCtx.ackVals.get(slowestServerId);
-
-      if (logger.isTraceEnabled())
+      boolean canSend;
+      try
       {
-        logger.trace("[IE] Entering exportLDIFEntry waiting " +
-            " our=" + ourLastExportedCnt + " slowest=" + slowestCnt);
+        // wake up as soon as the slowest importer acknowledges messages,
+        // but still check the connection on a regular basis
+        canSend = ieCtx.waitForInitWindow(msgId, 100);
       }
-
-      if (ourLastExportedCnt - slowestCnt > ieCtx.initWindow)
+      catch (InterruptedException e)
       {
-        if (logger.isTraceEnabled())
-        {
-          logger.trace("[IE] Entering exportLDIFEntry waiting");
-        }
-
-        // our export is too far beyond the slowest importer - let's wait
-        try { Thread.sleep(100); }
-        catch(Exception e) { /* do nothing */ }
-
-        // process any connection error
-        if (broker.hasConnectionError()
-          || broker.getNumLostConnections() != ieCtx.initNumLostConnections)
-        {
-          // publish failed - store the error in the ieContext ...
-          DirectoryException de = new DirectoryException(ResultCode.OTHER,
-              ERR_INIT_RS_DISCONNECTION_DURING_EXPORT.get(broker.getRsServerId()));
-          ieCtx.setExceptionIfNoneSet(de);
-          // .. and abandon the export by throwing an exception.
-          throw new IOException(de.getMessage());
-        }
+        // restore the interrupt status and abandon the export
+        Thread.currentThread().interrupt();
+        ieCtx.setExceptionIfNoneSet(new DirectoryException(ResultCode.OTHER, ERR_INIT_EXPORT_INTERRUPTED.get()));
+        throw new InterruptedIOException(ieCtx.getException().getMessage());
       }
-      else
+
+      if (canSend)
       {
         if (logger.isTraceEnabled())
         {
@@ -2111,14 +2514,33 @@ public abstract class ReplicationDomain
         }
         break;
       }
-    } // Waiting the slowest loop
 
-    if (logger.isTraceEnabled())
-    {
-      logger.trace("[IE] Entering exportLDIFEntry pub entry=" + Arrays.toString(lDIFEntry));
-    }
+      // process any connection error
+      if (broker.hasConnectionError()
+        || broker.getNumLostConnections() != ieCtx.initNumLostConnections)
+      {
+        // publish failed - store the error in the ieContext ...
+        DirectoryException de = new DirectoryException(ResultCode.OTHER,
+            ERR_INIT_RS_DISCONNECTION_DURING_EXPORT.get(broker.getRsServerId()));
+        ieCtx.setExceptionIfNoneSet(de);
+        // .. and abandon the export by throwing an exception.
+        throw new IOException(de.getMessage());
+      }
+    } // Waiting the slowest loop
+  }
 
-    boolean sent = broker.publish(entryMessage, false);
+  /**
+   * Publishes a message carrying entries to the importers and updates the
+   * counters.
+   *
+   * @throws IOException
+   *           if the export must be abandoned, the cause being stored in the
+   *           context
+   */
+  private void publishInitializationMsg(ImportExportContext ieCtx, RoutableMsg msg, int nbEntries)
+      throws IOException
+  {
+    boolean sent = broker.publish(msg, false);
 
     // process any publish error
     if (!sent
@@ -2136,7 +2558,7 @@ public abstract class ReplicationDomain
     // publish succeeded
     try
     {
-      ieCtx.updateCounters(countEntryLimits(lDIFEntry, pos, length));
+      ieCtx.updateCounters(nbEntries);
     }
     catch (DirectoryException de)
     {
@@ -2255,12 +2677,17 @@ public abstract class ReplicationDomain
     InitializeTask initFromTask = null;
     int source = initTargetMsgReceived.getSenderID();
     ImportExportContext ieCtx = importExportContext.get();
+    InitializationSpool spool = null;
     try
     {
       // Log starting
       logger.info(NOTE_FULL_UPDATE_ENGAGED_FROM_REMOTE_START, getBaseDN(),
           initTargetMsgReceived.getSenderID(), getServerId());
 
+      // Accept the entry record streams offered by the exporter, if any,
+      // before announcing the full update status the exporter waits for
+      spool = acceptInitializationStreams(initTargetMsgReceived);
+
       // Go into full update status
       setNewStatus(StatusMachineEvent.TO_FULL_UPDATE_STATUS_EVENT);
 
@@ -2282,7 +2709,14 @@ public abstract class ReplicationDomain
       initFromTask = (InitializeTask) ieCtx.initializeTask;
 
       // Launch the import
-      importBackend(new ReplInputStream(this));
+      if (spool != null)
+      {
+        importInitializationStreams(ieCtx, spool);
+      }
+      else
+      {
+        importBackend(new ReplInputStream(this));
+      }
     }
     catch (DirectoryException e)
     {
@@ -2294,6 +2728,7 @@ public abstract class ReplicationDomain
     }
     finally
     {
+      close(spool);
       if (logger.isTraceEnabled())
       {
         logger.trace("[IE] Domain=" + this
@@ -2334,6 +2769,7 @@ public abstract class ReplicationDomain
             ieCtx.initializeCounters(0);
             ieCtx.exception = null;
             ieCtx.msgCnt = 0;
+            ieCtx.pendingEntryMsg = null;
 
             // Processing of the received initTargetMsgReceived is done
             // let's wait for the next one
@@ -2392,6 +2828,207 @@ public abstract class ReplicationDomain
     } // finally
   }
 
+  /**
+   * Accepts the entry record streams offered by an exporter if this server
+   * supports them, proposing to resume the streams of a previous attempt.
+   *
+   * @return the spool of the received batches, {@code null} if the entries
+   *         will be received in LDIF
+   */
+  private InitializationSpool acceptInitializationStreams(InitializeTargetMsg initTargetMsg)
+  {
+    if (initTargetMsg.getNbStreams() <= 0
+        || config.getInitializationStreams() <= 0
+        || broker.getProtocolVersion() < ProtocolVersion.REPLICATION_PROTOCOL_V10
+        || !supportsEntryRecords())
+    {
+      return null;
+    }
+
+    final InitializationSpool spool;
+    try
+    {
+      spool = InitializationSpool.open(getServerId(), getBaseDN());
+    }
+    catch (IOException e)
+    {
+      logger.error(ERR_INIT_SPOOL_ERROR, getBaseDN(), stackTraceToSingleLineString(e));
+      return null;
+    }
+    final int exporterId = initTargetMsg.getSenderID();
+    final boolean canResume = spool.getExporterId() == exporterId;
+    broker.publish(new InitializeStreamsMsg(getServerId(), exporterId,
+        canResume ? spool.getGenerationId() : -1,
+        canResume ? spool.getCheckpointedPositions() : Collections.<StreamPosition> emptyList()));
+    return spool;
+  }
+
+  /**
+   * Imports the entries received after accepting the entry record streams:
+   * the exporter either sends the streams or falls back to LDIF.
+   */
+  private void importInitializationStreams(ImportExportContext ieCtx, InitializationSpool spool)
+      throws DirectoryException
+  {
+    final ReplicationMsg msg = receiveInitializationMsg(ieCtx);
+    if (msg instanceof InitializeStreamsMsg)
+    {
+      final InitializeStreamsMsg streamsMsg = (InitializeStreamsMsg) msg;
+      if (spool.getExporterId() == streamsMsg.getSenderID()
+          && spool.getGenerationId() == streamsMsg.getGenerationId()
+          && !spool.getCheckpointedPositions().isEmpty()
+          && spool.getCheckpointedPositions().equals(streamsMsg.getPositions()))
+      {
+        logger.info(NOTE_FULL_UPDATE_RESUMING, getBaseDN(), streamsMsg.getSenderID(),
+            spool.getNbCheckpointedBatches());
+      }
+      else
+      {
+        try
+        {
+          spool.reset(streamsMsg.getSenderID(), streamsMsg.getGenerationId());
+        }
+        catch (IOException e)
+        {
+          throw new DirectoryException(ResultCode.OTHER,
+              ERR_INIT_SPOOL_ERROR.get(getBaseDN(), stackTraceToSingleLineString(e)), e);
+        }
+      }
+
+      final EntryBatchReceiver receiver = new EntryBatchReceiver(ieCtx, spool, streamsMsg.getPositions());
+      importBackend(receiver);
+      if (receiver.isComplete() && ieCtx.getException() == null)
+      {
+        spool.delete();
+      }
+      return;
+    }
+
+    // The exporter sends LDIF, the spool is useless
+    spool.delete();
+    if (msg instanceof EntryMsg)
+    {
+      ieCtx.pendingEntryMsg = (EntryMsg) msg;
+      importBackend(new ReplInputStream(this));
+    }
+    else if (msg == null)
+    {
+      if (ieCtx.getException() == null)
+      {
+        // The exporter has no entries
+        importBackend(new ByteArrayInputStream(new byte[0]));
+      }
+    }
+    else
+    {
+      ieCtx.setExceptionIfNoneSet(new DirectoryException(ResultCode.OTHER,
+          ERR_INIT_UNEXPECTED_MSG_DURING_IMPORT.get(msg, getBaseDN())));
+    }
+  }
+
+  /**
+   * Receives the {@link EntryBatchMsg}s of the entry record streams accepted by
+   * this server, after replaying the batches spooled by a previous attempt.
+   * The received batches are spooled and the positions of the streams are
+   * checkpointed regularly, so that an interrupted initialization can resume
+   * from the last checkpoint.
+   */
+  private final class EntryBatchReceiver implements EntryRecordSource
+  {
+    private final ImportExportContext ieCtx;
+    private final InitializationSpool spool;
+    private final List<StreamPosition> positions;
+    private boolean replaying = true;
+    private int nbBatchesSinceCheckpoint;
+    private boolean complete;
+
+    private EntryBatchReceiver(ImportExportContext ieCtx, InitializationSpool spool, List<StreamPosition> positions)
+    {
+      this.ieCtx = ieCtx;
+      this.spool = spool;
+      this.positions = new ArrayList<>(positions);
+    }
+
+    @Override
+    public EntryRecordBatch nextBatch() throws IOException
+    {
+      if (replaying)
+      {
+        final EntryBatchMsg replayedMsg = spool.nextReplayedBatch();
+        if (replayedMsg != null)
+        {
+          updateCounters(replayedMsg);
+          return toBatch(replayedMsg);
+        }
+        replaying = false;
+      }
+
+      final ReplicationMsg msg = receiveInitializationMsg(ieCtx);
+      if (msg instanceof EntryBatchMsg)
+      {
+        final EntryBatchMsg batchMsg = (EntryBatchMsg) msg;
+        final int streamId = batchMsg.getStreamId();
+        if (checkMsgIdAndAck(ieCtx, batchMsg.getSenderID(), batchMsg.getMsgId()))
+        {
+          if (streamId >= 0 && streamId < positions.size())
+          {
+            spool.append(batchMsg);
+            positions.set(streamId,
+                new StreamPosition(batchMsg.getNextEntryID(), positions.get(streamId).getEndEntryID()));
+            if (++nbBatchesSinceCheckpoint >= SPOOL_CHECKPOINT_INTERVAL)
+            {
+              spool.checkpoint(positions);
+              nbBatchesSinceCheckpoint = 0;
+            }
+            updateCounters(batchMsg);
+            return toBatch(batchMsg);
+          }
+          ieCtx.setExceptionIfNoneSet(new DirectoryException(ResultCode.OTHER,
+              ERR_INIT_UNEXPECTED_MSG_DURING_IMPORT.get(batchMsg, getBaseDN())));
+        }
+      }
+      else if (msg == null && ieCtx.getException() == null)
+      {
+        // Normal termination of the streams
+        complete = true;
+        return null;
+      }
+      else if (msg != null)
+      {
+        ieCtx.setExceptionIfNoneSet(new DirectoryException(ResultCode.OTHER,
+            ERR_INIT_UNEXPECTED_MSG_DURING_IMPORT.get(msg, getBaseDN())));
+      }
+
+      // Keep the batches received so far for the next attempt
+      spool.checkpoint(positions);
+      throw new IOException(ieCtx.getException().getMessage(), ieCtx.getException());
+    }
+
+    private void updateCounters(EntryBatchMsg batchMsg) throws IOException
+    {
+      try
+      {
+        ieCtx.updateCounters(batchMsg.getNbEntries());
+      }
+      catch (DirectoryException e)
+      {
+        ieCtx.setExceptionIfNoneSet(e);
+        throw new IOException(e.getMessage(), e);
+      }
+    }
+
+    private EntryRecordBatch toBatch(EntryBatchMsg batchMsg)
+    {
+      return new EntryRecordBatch(batchMsg.getSchemaDefinitions(), batchMsg.getRecords(), batchMsg.getNbEntries(),
+          batchMsg.getNextEntryID() - 1);
+    }
+
+    private boolean isComplete()
+    {
+      return complete;
+    }
+  }
+
   /**
    * Return the protocol version of the DS related to the provided serverId.
    * Returns -1 when the protocol version is not known.
@@ -2674,6 +3311,16 @@ public abstract class ReplicationDomain
     return broker != null && broker.isSessionEncrypted();
   }
 
+  /**
+   * Returns the session with the replication server.
+   * @return the session with the replication server, or {@code null} if the
+   *         domain is not connected
+   */
+  Session getSession()
+  {
+    return broker != null ? broker.getSession() : null;
+  }
+
   /**
    * Check if the domain is connected to a ReplicationServer.
    *
@@ -3131,6 +3778,58 @@ public abstract class ReplicationDomain
   protected abstract void importBackend(InputStream input)
            throws DirectoryException;
 
+  /**
+   * Returns whether the replicated data can be exported and imported as binary
+   * entry records, which can be sent over several streams.
+   *
+   * @return {@code true} if {@link #openEntryRecordExport()} and
+   *         {@link #importBackend(EntryRecordSource)} are supported
+   */
+  protected boolean supportsEntryRecords()
+  {
+    return false;
+  }
+
+  /**
+   * Opens an export of the replicated data as binary entry records.
+   *
+   * @return the export, to be closed with
+   *         {@link #closeEntryRecordExport(EntryRecordExport)}
+   * @throws DirectoryException
+   *           When needed.
+   */
+  protected EntryRecordExport openEntryRecordExport() throws DirectoryException
+  {
+    throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM,
+        ERR_INIT_ENTRY_RECORDS_NOT_SUPPORTED.get(getBaseDN()));
+  }
+
+  /**
+   * Closes an export opened by {@link #openEntryRecordExport()}.
+   *
+   * @param export
+   *          the export to close
+   */
+  protected void closeEntryRecordExport(EntryRecordExport export)
+  {
+    // nothing to release by default
+  }
+
+  /**
+   * This method should trigger an import of the replicated data from binary
+   * entry records.
+   *
+   * @param records
+   *          The source of the batches of entry records to import.
+   * @throws DirectoryException
+   *           When needed.
+   */
+  protected void importBackend(EntryRecordSource records) throws DirectoryException
+  {
+    throw new DirectoryException(ResultCode.UNWILLING_TO_PERFORM,
+        ERR_INIT_ENTRY_RECORDS_NOT_SUPPORTED.get(getBaseDN()));
+  }
+
   /**
    * This method should return the total number of objects in the
    * replicated domain.
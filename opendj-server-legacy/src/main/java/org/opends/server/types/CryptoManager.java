@@ -388,13 +388,15 @@ import java.util.SortedSet;
          throws DataFormatException;
 
   /**
-   * Create an SSL context that may be used for communication to
+   * Retrieves an SSL context that may be used for communication to
    * another ADS component.
    *
    * @param componentName    Name of the component to which is associated this SSL Context.
    * @param sslCertNicknames The names of the local certificates to use,
    *                         or null if none is specified.
-   * @return A new SSL Context.
+   * @return An SSL Context, shared by the callers using the same component
+   *         name and certificates as long as the trust store does not change,
+   *         so that their SSL sessions can be resumed.
    * @throws ConfigException If the context
    * could not be created.
    */
@@ -1333,8 +1333,21 @@ public final class SubtreeSpecification
    */
   public boolean isWithinScope(final Entry entry)
   {
-    return isDNWithinScope(entry.getName())
-        && (refinements == null || refinements.matches(entry));
+    return isDNWithinScope(entry.getName()) && isRefinementsMatch(entry);
+  }
+
+  /**
+   * Determine if an entry matches the refinements of the subtree
+   * specification, ignoring its DN.
+   *
+   * @param entry
+   *          The entry.
+   * @return {@code true} if the entry matches the refinements, or if
+   *         there are no refinements.
+   */
+  public boolean isRefinementsMatch(final Entry entry)
+  {
+    return refinements == null || refinements.matches(entry);
   }
 
   /**
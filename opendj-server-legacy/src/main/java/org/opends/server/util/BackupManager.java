@@ -18,13 +18,16 @@ package org.opends.server.util;
 
 import static java.util.Collections.*;
 
+import static org.forgerock.util.Utils.*;
 import static org.opends.messages.BackendMessages.*;
 import static org.opends.messages.UtilityMessages.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.opends.server.util.StaticUtils.*;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
@@ -36,25 +39,52 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
-import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 import javax.crypto.Mac;
 
@@ -110,6 +140,40 @@ public class BackupManager
    */
   private static final String ZIPENTRY_EMPTY_PLACEHOLDER = "empty.placeholder";
 
+  /** The value of the archive format property for the chunked backup archives. */
+  private static final String ARCHIVE_FORMAT_CHUNKED = "chunked";
+
+  /**
+   * The name of the sub-directory of a backup directory which contains the
+   * chunks shared by all the chunked backups of this directory.
+   */
+  private static final String CHUNKS_DIRECTORY = "chunks";
+
+  /** The digest algorithm identifying the chunks by their contents. */
+  private static final String CHUNK_DIGEST_ALGORITHM = "SHA-256";
+
+  /** The suffix of the chunk files which have not been completely written yet. */
+  private static final String CHUNK_TEMPORARY_SUFFIX = ".tmp";
+
+  /**
+   * The age after which a chunk file which has not been completely written is
+   * considered as left over by a failed backup, and can be removed.
+   */
+  private static final long CHUNK_TEMPORARY_FILE_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+  /**
+   * The locks of the chunk stores, keyed by the path of their directory. The
+   * backups storing chunks hold the read lock, so that the unreferenced chunks
+   * are never removed while a backup which may reference them is written.
+   */
+  private static final ConcurrentMap<Path, ReadWriteLock> CHUNK_STORE_LOCKS = new ConcurrentHashMap<>();
+
+  /** The prefix of the lines of a chunked archive manifest starting a new file. */
+  private static final String MANIFEST_FILE_PREFIX = "file ";
+
+  /** The prefix of the lines of a chunked archive manifest listing a chunk of the current file. */
+  private static final String MANIFEST_CHUNK_PREFIX = "chunk ";
+
   /** The backend ID. */
   private final String backendID;
 
@@ -548,10 +612,6 @@ public class BackupManager
       return newBackupParams.backupDir.getPath();
     }
 
-    void addBaseBackupAsDependency() {
-      dependencies.add(newBackupParams.baseBackupInfo.getBackupID());
-    }
-
     void updateBackupDirectory() throws DirectoryException
     {
       BackupInfo backupInfo = createDescriptorForBackup();
@@ -678,199 +738,610 @@ public class BackupManager
     }
   }
 
-  /** Represents a writer of a backup archive. */
-  private static final class BackupArchiveWriter implements Closeable {
-    private final ZipOutputStream zipOutputStream;
-    private final NewBackupArchive archive;
-    private final CryptoEngine cryptoEngine;
-
-    BackupArchiveWriter(NewBackupArchive archive) throws DirectoryException
-    {
-      this.archive = archive;
-      this.cryptoEngine = archive.cryptoEngine;
-      this.zipOutputStream = open(archive.getBackupPath(), archive.getArchiveFilename());
+  /**
+   * Splits the contents of files into chunks whose boundaries depend on the
+   * contents, so that the data inserted in or appended to a file only changes
+   * the chunks around it.
+   * <p>
+   * The boundaries are found using a gear rolling hash of the bytes following
+   * the minimum chunk size.
+   */
+  static final class ContentDefinedChunker
+  {
+    /** The minimum size of a chunk, except for the last chunk of a file. */
+    static final int MIN_CHUNK_SIZE = 256 * 1024;
+    /** The maximum size of a chunk. */
+    static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+    /** A boundary is found on average every 1MB of data after the minimum chunk size. */
+    private static final long BOUNDARY_MASK = 0xFFFFF00000000000L;
+    private static final long[] GEAR = new long[256];
+    static
+    {
+      // The table must never change, otherwise the new chunks no longer match the stored chunks
+      final Random random = new Random(0x4f70656e444aL);
+      for (int i = 0; i < GEAR.length; i++)
+      {
+        GEAR[i] = random.nextLong();
+      }
     }
 
-    @Override
-    public void close() throws IOException
+    private final byte[] buffer = new byte[MAX_CHUNK_SIZE];
+    private InputStream input;
+    private int end;
+
+    /** Starts splitting the contents of the provided input stream. */
+    void setInput(InputStream input)
     {
-      StaticUtils.close(zipOutputStream);
+      this.input = input;
+      this.end = 0;
     }
 
     /**
-     * Writes the provided file to a new entry in the archive.
-     *
-     * @param file
-     *          The file to be written.
-     * @param cryptoMethod
-     *          The cryptographic method for the written data.
-     * @param backupConfig
-     *          The configuration, used to know if operation is cancelled.
+     * Returns the next chunk of the input stream.
      *
-     * @return The number of bytes written from the file.
-     * @throws FileNotFoundException If the file to be archived does not exist.
-     * @throws IOException If an I/O error occurs while archiving the file.
+     * @return the next chunk, or {@code null} if the end of the input stream has been reached
+     * @throws IOException
+     *           If an error occurs while reading the input stream.
      */
-    long writeFile(Path file, String relativePath, CryptoEngine cryptoMethod, BackupConfig backupConfig)
-         throws IOException, FileNotFoundException
+    byte[] nextChunk() throws IOException
     {
-      ZipEntry zipEntry = new ZipEntry(relativePath);
-      zipOutputStream.putNextEntry(zipEntry);
+      int bytesRead = 0;
+      while (end < buffer.length && bytesRead >= 0)
+      {
+        bytesRead = input.read(buffer, end, buffer.length - end);
+        if (bytesRead > 0)
+        {
+          end += bytesRead;
+        }
+      }
+      if (end == 0)
+      {
+        return null;
+      }
 
-      cryptoMethod.updateHashWith(relativePath);
+      final int length = findBoundary();
+      final byte[] chunk = Arrays.copyOf(buffer, length);
+      System.arraycopy(buffer, length, buffer, 0, end - length);
+      end -= length;
+      return chunk;
+    }
 
-      long totalBytesRead = 0;
-      try (InputStream inputStream = new FileInputStream(file.toFile())) {
-        byte[] buffer = new byte[8192];
-        int bytesRead = inputStream.read(buffer);
-        while (bytesRead > 0 && !backupConfig.isCancelled())
+    private int findBoundary()
+    {
+      long hash = 0;
+      for (int i = MIN_CHUNK_SIZE; i < end; i++)
+      {
+        hash = (hash << 1) + GEAR[buffer[i] & 0xFF];
+        if ((hash & BOUNDARY_MASK) == 0)
         {
-          cryptoMethod.updateHashWith(buffer, 0, bytesRead);
-          zipOutputStream.write(buffer, 0, bytesRead);
-          totalBytesRead += bytesRead;
-          bytesRead = inputStream.read(buffer);
+          return i + 1;
         }
       }
+      return end;
+    }
+  }
 
-      zipOutputStream.closeEntry();
-      logger.info(NOTE_BACKUP_ARCHIVED_FILE, zipEntry.getName());
-      return totalBytesRead;
+  /**
+   * Runs the chunk tasks of a backup or restore in parallel, bounding the
+   * number of bytes of the chunks held in memory by the tasks waiting to be
+   * run or running, whatever the number of threads.
+   */
+  private static final class ChunkTaskExecutor implements Closeable
+  {
+    /** The maximum number of bytes of the chunks held by the tasks of an executor. */
+    private static final int MAX_PENDING_BYTES = 16 * ContentDefinedChunker.MAX_CHUNK_SIZE;
+
+    private final ExecutorService executor;
+    private final int maxPendingBytes;
+    /** One permit per byte of the chunks which can still be submitted. */
+    private final Semaphore permits;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    ChunkTaskExecutor(String threadNameTemplate)
+    {
+      final int threadCount = Runtime.getRuntime().availableProcessors();
+      executor = Executors.newFixedThreadPool(threadCount, newThreadFactory(null, threadNameTemplate, true));
+      // Always allow at least one chunk of the maximum size, whatever the heap size
+      maxPendingBytes = (int) Math.max(ContentDefinedChunker.MAX_CHUNK_SIZE,
+          Math.min(MAX_PENDING_BYTES, Runtime.getRuntime().maxMemory() / 16));
+      permits = new Semaphore(maxPendingBytes);
     }
 
     /**
-     * Write a list of strings to an entry in the archive.
-     *
-     * @param stringList
-     *          A list of strings to be written.  The strings must not
-     *          contain newlines.
-     * @param fileName
-     *          The name of the zip entry to be written.
-     * @param cryptoMethod
-     *          The cryptographic method for the written data.
-     * @throws IOException
-     *          If an I/O error occurs while writing the archive entry.
+     * Submits a task processing a chunk of the provided size, waiting until the
+     * number of bytes of the chunks held by the tasks is below the limit.
      */
-    void writeStrings(List<String> stringList, String fileName, CryptoEngine cryptoMethod)
-         throws IOException
+    <T> Future<T> submit(final Callable<T> task, int chunkSize) throws InterruptedException
+    {
+      final int bytes = Math.max(1, Math.min(chunkSize, maxPendingBytes));
+      permits.acquire(bytes);
+      try
+      {
+        return executor.submit(new Callable<T>()
+        {
+          @Override
+          public T call() throws Exception
+          {
+            try
+            {
+              return task.call();
+            }
+            catch (Exception e)
+            {
+              failure.compareAndSet(null, e);
+              throw e;
+            }
+            finally
+            {
+              permits.release(bytes);
+            }
+          }
+        });
+      }
+      catch (RuntimeException e)
+      {
+        permits.release(bytes);
+        throw e;
+      }
+    }
+
+    /** Indicates whether a task has failed, in which case no more tasks should be submitted. */
+    boolean hasFailed()
+    {
+      return failure.get() != null;
+    }
+
+    @Override
+    public void close()
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  /** A chunk of a file in a chunked archive manifest. */
+  private static final class ChunkRef
+  {
+    private final String chunkID;
+    private final int length;
+
+    private ChunkRef(String chunkID, int length)
+    {
+      this.chunkID = chunkID;
+      this.length = length;
+    }
+  }
+
+  /** A file listed in a chunked archive manifest, with its chunks in order. */
+  private static final class ManifestFile
+  {
+    private final String relativePath;
+    private final List<ChunkRef> chunks = new ArrayList<>();
+
+    private ManifestFile(String relativePath)
+    {
+      this.relativePath = relativePath;
+    }
+  }
+
+  /**
+   * The chunks shared by the chunked backups of a backup directory.
+   * <p>
+   * Each chunk is stored once in a file named after the digest of its
+   * contents, so that the chunks which did not change are not stored again by
+   * the next backups. The chunks of the encrypted backups are named after a
+   * MAC of their contents instead, so that their names do not reveal whether
+   * they contain some known data. The chunks of the backups using different
+   * compression or encryption settings are stored in different files.
+   */
+  private static final class ChunkStore
+  {
+    private final Path directory;
+    private final String backupID;
+    private final boolean compressed;
+    private final CryptoEngine cryptoEngine;
+    /** The identifier of the MAC key entry identifying the chunks, or {@code null} if they are identified by digest. */
+    private final String chunkMacKeyID;
+
+    /** The chunks stored or found by this backup, so that each chunk is stored only once. */
+    private final Set<String> knownChunks = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final AtomicLong storedChunks = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong reusedChunks = new AtomicLong();
+    private final AtomicLong reusedBytes = new AtomicLong();
+
+    ChunkStore(String backupPath, String backupID, boolean compressed, CryptoEngine cryptoEngine,
+        String chunkMacKeyID)
+    {
+      this.directory = Paths.get(backupPath, CHUNKS_DIRECTORY);
+      this.backupID = backupID;
+      this.compressed = compressed;
+      this.cryptoEngine = cryptoEngine;
+      this.chunkMacKeyID = chunkMacKeyID;
+    }
+
+    /** Returns the lock serializing the backups and the removal of the unreferenced chunks of a backup directory. */
+    static ReadWriteLock getLock(String backupPath)
     {
-      ZipEntry zipEntry = new ZipEntry(fileName);
-      zipOutputStream.putNextEntry(zipEntry);
+      final Path directory = Paths.get(backupPath, CHUNKS_DIRECTORY).toAbsolutePath().normalize();
+      ReadWriteLock lock = CHUNK_STORE_LOCKS.get(directory);
+      if (lock == null)
+      {
+        lock = new ReentrantReadWriteLock();
+        final ReadWriteLock existingLock = CHUNK_STORE_LOCKS.putIfAbsent(directory, lock);
+        if (existingLock != null)
+        {
+          lock = existingLock;
+        }
+      }
+      return lock;
+    }
 
-      cryptoMethod.updateHashWith(fileName);
+    private static String getChunkFileName(String chunkID, boolean compressed, boolean encrypted)
+    {
+      return chunkID + (compressed ? ".deflate" : "") + (encrypted ? ".enc" : "");
+    }
+
+    private Path getChunkFile(String chunkID)
+    {
+      return directory.resolve(chunkID.substring(0, 2))
+          .resolve(getChunkFileName(chunkID, compressed, cryptoEngine.shouldEncrypt()));
+    }
 
-      Writer writer = new OutputStreamWriter(zipOutputStream);
-      for (String s : stringList)
+    private String computeChunkID(byte[] chunk) throws NoSuchAlgorithmException, DirectoryException
+    {
+      if (chunkMacKeyID == null)
       {
-        cryptoMethod.updateHashWith(s);
-        writer.write(s);
-        writer.write(EOL);
+        return bytesToHexNoSpace(MessageDigest.getInstance(CHUNK_DIGEST_ALGORITHM).digest(chunk));
       }
-      writer.flush();
-      zipOutputStream.closeEntry();
+      return bytesToHexNoSpace(getChunkMac().doFinal(chunk));
     }
 
-    /** Writes a empty placeholder entry into the archive. */
-    void writeEmptyPlaceHolder() throws DirectoryException
+    /** Returns a new MAC engine identifying the chunks, since MAC engines cannot be shared by several threads. */
+    private Mac getChunkMac() throws DirectoryException
     {
+      Exception cause = null;
       try
       {
-        ZipEntry emptyPlaceholder = new ZipEntry(ZIPENTRY_EMPTY_PLACEHOLDER);
-        zipOutputStream.putNextEntry(emptyPlaceholder);
+        final Mac mac = cryptoEngine.cryptoManager.getMacEngine(chunkMacKeyID);
+        if (mac != null)
+        {
+          return mac;
+        }
       }
-      catch (IOException e)
+      catch (CryptoManagerException e)
       {
         logger.traceException(e);
+        cause = e;
+      }
+      LocalizableMessage message = ERR_BACKUP_CANNOT_GET_MAC.get(chunkMacKeyID,
+          cause != null ? stackTraceToSingleLineString(cause) : "");
+      throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message, cause);
+    }
+
+    /**
+     * Stores a chunk, unless it is already present in the store.
+     *
+     * @return the identifier of the chunk
+     */
+    String storeChunk(byte[] chunk) throws IOException, DirectoryException, NoSuchAlgorithmException
+    {
+      final String chunkID = computeChunkID(chunk);
+      final Path chunkFile = getChunkFile(chunkID);
+      if (!knownChunks.add(chunkID) || Files.exists(chunkFile))
+      {
+        reusedChunks.incrementAndGet();
+        reusedBytes.addAndGet(chunk.length);
+        return chunkID;
+      }
+
+      Files.createDirectories(chunkFile.getParent());
+      final Path temporaryFile =
+          Files.createTempFile(chunkFile.getParent(), chunkFile.getFileName().toString(), CHUNK_TEMPORARY_SUFFIX);
+      try
+      {
+        try (OutputStream output = openOutput(Files.newOutputStream(temporaryFile)))
+        {
+          output.write(chunk);
+        }
+        Files.move(temporaryFile, chunkFile, StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally
+      {
+        Files.deleteIfExists(temporaryFile);
+      }
+      storedChunks.incrementAndGet();
+      storedBytes.addAndGet(chunk.length);
+      return chunkID;
+    }
+
+    /** Reads a chunk, checking that its contents match its identifier. */
+    byte[] readChunk(ChunkRef chunkRef) throws IOException, DirectoryException, NoSuchAlgorithmException
+    {
+      final byte[] chunk = new byte[chunkRef.length];
+      try (InputStream input = openInput(Files.newInputStream(getChunkFile(chunkRef.chunkID))))
+      {
+        int offset = 0;
+        while (offset < chunk.length)
+        {
+          final int bytesRead = input.read(chunk, offset, chunk.length - offset);
+          if (bytesRead < 0)
+          {
+            throw new EOFException(chunkRef.chunkID);
+          }
+          offset += bytesRead;
+        }
+      }
+      if (!computeChunkID(chunk).equals(chunkRef.chunkID))
+      {
         throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
-            ERR_BACKUP_CANNOT_WRITE_ARCHIVE_FILE.get(ZIPENTRY_EMPTY_PLACEHOLDER, archive.getBackupID(),
-                stackTraceToSingleLineString(e)),
-            e);
+            ERR_BACKUP_CHUNK_HASH_ERROR.get(chunkRef.chunkID, backupID));
       }
+      return chunk;
+    }
+
+    /** Wraps an output stream to compress and encrypt the written data as required by the backup. */
+    OutputStream openOutput(OutputStream output) throws DirectoryException
+    {
+      final OutputStream encryptedOutput = cryptoEngine.encryptOutput(output);
+      return compressed ? new DeflaterOutputStream(encryptedOutput) : encryptedOutput;
+    }
+
+    /** Wraps an input stream to decrypt and uncompress the read data as required by the backup. */
+    InputStream openInput(InputStream input) throws DirectoryException
+    {
+      final InputStream decryptedInput = cryptoEngine.encryptInput(input);
+      return compressed ? new InflaterInputStream(decryptedInput) : decryptedInput;
     }
 
     /**
-     * Writes the files that are unchanged from the base backup (for an
-     * incremental backup only).
+     * Removes the chunks which are not used by any of the chunked backups of
+     * the provided backup directory any more. Nothing is removed if the chunks
+     * used by a backup cannot be determined.
      * <p>
-     * The unchanged files names are listed in the "unchanged.txt" file, which
-     * is put in the archive.
+     * The chunks are not removed while a backup is written to the directory
+     * by this server. The chunk files being written by another process are
+     * kept as well, unless they are too old to belong to a running backup.
+     */
+    static void removeUnreferencedChunks(BackupDirectory backupDir)
+    {
+      final Path directory = Paths.get(backupDir.getPath(), CHUNKS_DIRECTORY);
+      if (!Files.isDirectory(directory))
+      {
+        return;
+      }
+
+      final Lock lock = getLock(backupDir.getPath()).writeLock();
+      lock.lock();
+      try
+      {
+        final Set<String> usedChunkFiles = new HashSet<>();
+        for (BackupInfo backupInfo : backupDir.getBackups().values())
+        {
+          if (isChunkedArchive(backupInfo))
+          {
+            final ChunkedArchiveReader reader =
+                new ChunkedArchiveReader(backupInfo.getBackupID(), backupInfo, backupDir.getPath());
+            for (ManifestFile file : reader.readManifest())
+            {
+              for (ChunkRef chunkRef : file.chunks)
+              {
+                usedChunkFiles.add(
+                    getChunkFileName(chunkRef.chunkID, backupInfo.isCompressed(), backupInfo.isEncrypted()));
+              }
+            }
+          }
+        }
+
+        try (DirectoryStream<Path> subDirectories = Files.newDirectoryStream(directory))
+        {
+          for (Path subDirectory : subDirectories)
+          {
+            try (DirectoryStream<Path> chunkFiles = Files.newDirectoryStream(subDirectory))
+            {
+              for (Path chunkFile : chunkFiles)
+              {
+                final String chunkFileName = chunkFile.getFileName().toString();
+                if (chunkFileName.endsWith(CHUNK_TEMPORARY_SUFFIX)
+                    ? isTemporaryFileExpired(chunkFile)
+                    : !usedChunkFiles.contains(chunkFileName))
+                {
+                  Files.deleteIfExists(chunkFile);
+                }
+              }
+            }
+          }
+        }
+      }
+      catch (IOException | DirectoryException e)
+      {
+        logger.traceException(e);
+        logger.warn(WARN_BACKUP_CANNOT_REMOVE_UNREFERENCED_CHUNKS, directory, stackTraceToSingleLineString(e));
+      }
+      finally
+      {
+        lock.unlock();
+      }
+    }
+
+    private static boolean isTemporaryFileExpired(Path temporaryFile) throws IOException
+    {
+      try
+      {
+        return Files.getLastModifiedTime(temporaryFile).toMillis()
+            < System.currentTimeMillis() - CHUNK_TEMPORARY_FILE_MAX_AGE_MILLIS;
+      }
+      catch (NoSuchFileException e)
+      {
+        // The chunk file has been completely written in the meantime
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Represents a writer of a chunked backup archive.
+   * <p>
+   * The files are split into chunks by a single thread, while the chunks are
+   * hashed, compressed, encrypted and stored in parallel. The archive file
+   * itself is a manifest listing the chunks of each file, in order.
+   */
+  private static final class ChunkedArchiveWriter implements Closeable
+  {
+    private final NewBackupArchive archive;
+    private final CryptoEngine cryptoEngine;
+    private final ChunkStore chunkStore;
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker();
+    private final ChunkTaskExecutor executor = new ChunkTaskExecutor("Backup chunk writer %d");
+    private final Writer manifestWriter;
+    /**
+     * The lines of the manifest waiting for the previous chunks to be stored,
+     * with the relative path of the file they belong to.
      */
-    void writeUnchangedFiles(Path rootDirectory, ListIterator<Path> files, BackupConfig backupConfig)
+    private final Deque<Pair<String, Future<String>>> pendingLines = new ArrayDeque<>();
+
+    ChunkedArchiveWriter(NewBackupArchive archive) throws DirectoryException
+    {
+      this.archive = archive;
+      this.cryptoEngine = archive.cryptoEngine;
+      final NewBackupParams backupParams = archive.newBackupParams;
+      String chunkMacKeyID = null;
+      if (cryptoEngine.shouldEncrypt())
+      {
+        try
+        {
+          chunkMacKeyID = cryptoEngine.cryptoManager.getMacEngineKeyEntryID();
+        }
+        catch (CryptoManagerException e)
+        {
+          LocalizableMessage message = ERR_BACKUP_CANNOT_GET_MAC_KEY_ID.get(backupParams.backupID,
+              stackTraceToSingleLineString(e));
+          throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), message, e);
+        }
+        backupParams.putProperty(BACKUP_PROPERTY_CHUNK_MAC_KEY_ID, chunkMacKeyID);
+      }
+      this.chunkStore = new ChunkStore(backupParams.backupDir.getPath(), backupParams.backupID,
+          backupParams.shouldCompress, cryptoEngine, chunkMacKeyID);
+      backupParams.putProperty(BACKUP_PROPERTY_ARCHIVE_FORMAT, ARCHIVE_FORMAT_CHUNKED);
+      final OutputStream output = openStream(archive.getBackupPath(), archive.getArchiveFilename());
+      this.manifestWriter = new BufferedWriter(
+          new OutputStreamWriter(chunkStore.openOutput(output), StandardCharsets.UTF_8));
+    }
+
+    /** Writes the provided files to the archive. */
+    void writeFiles(Path rootDirectory, ListIterator<Path> files, BackupConfig backupConfig)
         throws DirectoryException
     {
-      List<String> unchangedFilenames = new ArrayList<>();
       while (files.hasNext() && !backupConfig.isCancelled())
       {
         Path file = files.next();
         String relativePath = rootDirectory.relativize(file).toString();
-        int cmp = relativePath.compareTo(archive.latestFileName);
-        if (cmp > 0 || (cmp == 0 && file.toFile().length() != archive.latestFileSize))
+        try
+        {
+          archive.latestFileSize = writeFile(file, relativePath, backupConfig);
+          archive.latestFileName = relativePath;
+        }
+        catch (FileNotFoundException e)
+        {
+          // The file may have been deleted by a cleaner (i.e. for JE storage) since we started.
+          // The backupable entity is responsible for handling the changes through the files list iterator
+          logger.traceException(e);
+        }
+        catch (IOException | InterruptedException e)
+        {
+          logger.traceException(e);
+          throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+              ERR_BACKUP_CANNOT_WRITE_ARCHIVE_FILE.get(relativePath, archive.getBackupID(),
+                  stackTraceToSingleLineString(e)), e);
+        }
+      }
+    }
+
+    /**
+     * Splits the provided file into chunks to be stored, and adds them to the manifest.
+     *
+     * @return The number of bytes read from the file.
+     */
+    private long writeFile(Path file, String relativePath, BackupConfig backupConfig)
+        throws IOException, InterruptedException, DirectoryException
+    {
+      long totalBytesRead = 0;
+      try (InputStream inputStream = new FileInputStream(file.toFile()))
+      {
+        addLine(relativePath, CompletableFuture.completedFuture(MANIFEST_FILE_PREFIX + relativePath));
+        chunker.setInput(inputStream);
+        byte[] chunk = chunker.nextChunk();
+        while (chunk != null && !backupConfig.isCancelled() && !executor.hasFailed())
         {
-          files.previous();
-          break;
+          final byte[] chunkToStore = chunk;
+          addLine(relativePath, executor.submit(new Callable<String>()
+          {
+            @Override
+            public String call() throws Exception
+            {
+              return MANIFEST_CHUNK_PREFIX + chunkStore.storeChunk(chunkToStore) + " " + chunkToStore.length;
+            }
+          }, chunk.length));
+          totalBytesRead += chunk.length;
+          chunk = chunker.nextChunk();
         }
-        logger.info(NOTE_BACKUP_FILE_UNCHANGED, relativePath);
-        unchangedFilenames.add(relativePath);
       }
+      logger.info(NOTE_BACKUP_ARCHIVED_FILE, relativePath);
+      return totalBytesRead;
+    }
 
-      if (!unchangedFilenames.isEmpty())
+    private void addLine(String relativePath, Future<String> line) throws IOException, DirectoryException
+    {
+      pendingLines.add(Pair.of(relativePath, line));
+      writePendingLines(false);
+    }
+
+    /** Writes the pending lines of the manifest whose chunks have been stored, in order. */
+    private void writePendingLines(boolean waitForChunks) throws IOException, DirectoryException
+    {
+      while (!pendingLines.isEmpty() && (waitForChunks || pendingLines.peek().getSecond().isDone()))
       {
-        writeUnchangedFilenames(unchangedFilenames);
+        final Pair<String, Future<String>> pendingLine = pendingLines.poll();
+        final String line = getLine(pendingLine.getFirst(), pendingLine.getSecond());
+        cryptoEngine.updateHashWith(line);
+        manifestWriter.write(line);
+        manifestWriter.write(EOL);
       }
     }
 
-    /** Writes the list of unchanged files names in a file as new entry in the archive. */
-    private void writeUnchangedFilenames(List<String> unchangedList) throws DirectoryException
+    private String getLine(String relativePath, Future<String> line) throws DirectoryException
     {
-      String zipEntryName = ZIPENTRY_UNCHANGED_LOGFILES;
       try
       {
-        writeStrings(unchangedList, zipEntryName, archive.cryptoEngine);
+        return line.get();
       }
-      catch (IOException e)
+      catch (InterruptedException | ExecutionException e)
       {
-        logger.traceException(e);
-        throw new DirectoryException(
-             DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
-             ERR_BACKUP_CANNOT_WRITE_ARCHIVE_FILE.get(zipEntryName, archive.getBackupID(),
-                 stackTraceToSingleLineString(e)), e);
+        final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+        logger.traceException(cause);
+        if (cause instanceof DirectoryException)
+        {
+          throw (DirectoryException) cause;
+        }
+        throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+            ERR_BACKUP_CANNOT_WRITE_ARCHIVE_FILE.get(relativePath, archive.getBackupID(),
+                stackTraceToSingleLineString(cause)), cause);
       }
-      archive.addBaseBackupAsDependency();
     }
 
-    /** Writes the new files in the archive. */
-    void writeChangedFiles(Path rootDirectory, ListIterator<Path> files, BackupConfig backupConfig)
-        throws DirectoryException
+    /** Waits for all the chunks to be stored and completes the manifest. */
+    void finish() throws IOException, DirectoryException
     {
-        while (files.hasNext() && !backupConfig.isCancelled())
-        {
-          Path file = files.next();
-          String relativePath = rootDirectory.relativize(file).toString();
-          try
-          {
-            archive.latestFileSize = writeFile(file, relativePath, archive.cryptoEngine, backupConfig);
-            archive.latestFileName = relativePath;
-          }
-          catch (FileNotFoundException e)
-          {
-            // The file may have been deleted by a cleaner (i.e. for JE storage) since we started.
-            // The backupable entity is responsible for handling the changes through the files list iterator
-            logger.traceException(e);
-          }
-          catch (IOException e)
-          {
-            logger.traceException(e);
-            throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
-                 ERR_BACKUP_CANNOT_WRITE_ARCHIVE_FILE.get(relativePath, archive.getBackupID(),
-                     stackTraceToSingleLineString(e)), e);
-          }
-        }
+      writePendingLines(true);
+      manifestWriter.close();
+      logger.info(NOTE_BACKUP_CHUNKS_STORED, archive.getBackupID(), chunkStore.storedChunks.get(),
+          chunkStore.storedBytes.get(), chunkStore.reusedChunks.get(), chunkStore.reusedBytes.get());
     }
 
-    private ZipOutputStream open(String backupPath, String archiveFilename) throws DirectoryException
+    @Override
+    public void close()
     {
-      OutputStream output = openStream(backupPath, archiveFilename);
-      output = cryptoEngine.encryptOutput(output);
-      return openZipStream(output);
+      executor.close();
+      StaticUtils.close(manifestWriter);
     }
 
     private OutputStream openStream(String backupPath, String archiveFilename) throws DirectoryException {
@@ -898,30 +1369,245 @@ public class BackupManager
       }
     }
 
-    /** Wraps the file output stream in a zip output stream. */
-    private ZipOutputStream openZipStream(OutputStream outputStream)
+    @Override
+    public String toString()
     {
-      ZipOutputStream zipStream = new ZipOutputStream(outputStream);
+      return "ChunkedArchiveWriter [archive file=" + archive.getArchiveFilename() + ", backendId="
+          + archive.getBackendID() + "]";
+    }
+  }
 
-      zipStream.setComment(ERR_BACKUP_ZIP_COMMENT.get(DynamicConstants.PRODUCT_NAME, archive.getBackupID())
-          .toString());
+  /** A file being restored from the chunks of a chunked archive, by several threads. */
+  private static final class RestoredFile
+  {
+    private final ManifestFile file;
+    /** The channel to write the file, or {@code null} if the backup is only verified. */
+    private final FileChannel channel;
+    private final AtomicInteger remainingChunks;
+    private final AtomicLong totalBytes = new AtomicLong();
 
-      if (archive.newBackupParams.shouldCompress)
+    private RestoredFile(ManifestFile file, FileChannel channel)
+    {
+      this.file = file;
+      this.channel = channel;
+      this.remainingChunks = new AtomicInteger(file.chunks.size());
+    }
+
+    /** Writes a chunk at the provided position of the file. */
+    private void write(byte[] chunk, long position) throws IOException
+    {
+      if (channel != null)
       {
-        zipStream.setLevel(Deflater.DEFAULT_COMPRESSION);
+        final ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        long currentPosition = position;
+        while (buffer.hasRemaining())
+        {
+          currentPosition += channel.write(buffer, currentPosition);
+        }
       }
-      else
+      totalBytes.addAndGet(chunk.length);
+    }
+
+    /** Indicates that a chunk has been processed, closing the file after its last chunk. */
+    private void chunkDone() throws IOException
+    {
+      if (remainingChunks.decrementAndGet() <= 0)
       {
-        zipStream.setLevel(Deflater.NO_COMPRESSION);
+        close();
       }
-      return zipStream;
     }
 
-    @Override
-    public String toString()
+    private void close() throws IOException
     {
-      return "BackupArchiveWriter [archive file=" + archive.getArchiveFilename() + ", backendId="
-          + archive.getBackendID() + "]";
+      if (channel != null)
+      {
+        channel.close();
+        logger.info(NOTE_BACKUP_RESTORED_FILE, file.relativePath, totalBytes.get());
+      }
+    }
+
+    /** Closes the file if it is still open, whether all its chunks have been processed or not. */
+    private void abort()
+    {
+      StaticUtils.close(channel);
+    }
+  }
+
+  /**
+   * Represents a reader of a chunked backup archive.
+   * <p>
+   * The manifest is read and checked against the hash of the backup before
+   * restoring anything, then the chunks are read, checked against their
+   * digests and written to the restored files in parallel.
+   */
+  private static final class ChunkedArchiveReader
+  {
+    private final String identifier;
+    private final BackupInfo backupInfo;
+    private final File archiveFile;
+    private final CryptoEngine cryptoEngine;
+    private final ChunkStore chunkStore;
+
+    ChunkedArchiveReader(String identifier, BackupInfo backupInfo, String backupDirectoryPath)
+        throws DirectoryException
+    {
+      this.identifier = identifier;
+      this.backupInfo = backupInfo;
+      this.archiveFile = BackupManager.retrieveArchiveFile(backupInfo, backupDirectoryPath);
+      this.cryptoEngine = CryptoEngine.forRestore(backupInfo);
+      // The backups created before the chunks were identified by a MAC have no MAC key
+      this.chunkStore = new ChunkStore(backupDirectoryPath, backupInfo.getBackupID(), backupInfo.isCompressed(),
+          cryptoEngine, backupInfo.getBackupProperties().get(BACKUP_PROPERTY_CHUNK_MAC_KEY_ID));
+    }
+
+    /**
+     * Reads the manifest of the archive, and checks it against the hash of the
+     * backup. The manifest contains the digests of all the chunks, so that it
+     * is enough to check each chunk against its digest afterwards.
+     */
+    List<ManifestFile> readManifest() throws DirectoryException
+    {
+      final List<ManifestFile> files = new ArrayList<>();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+          chunkStore.openInput(new FileInputStream(archiveFile)), StandardCharsets.UTF_8)))
+      {
+        ManifestFile currentFile = null;
+        String line;
+        while ((line = reader.readLine()) != null)
+        {
+          cryptoEngine.updateHashWith(line);
+          if (line.startsWith(MANIFEST_FILE_PREFIX))
+          {
+            currentFile = new ManifestFile(line.substring(MANIFEST_FILE_PREFIX.length()));
+            files.add(currentFile);
+          }
+          else if (line.startsWith(MANIFEST_CHUNK_PREFIX) && currentFile != null)
+          {
+            final String[] chunk = line.substring(MANIFEST_CHUNK_PREFIX.length()).split(" ");
+            currentFile.chunks.add(new ChunkRef(chunk[0], Integer.parseInt(chunk[1])));
+          }
+          else
+          {
+            throw new IOException("Invalid line in the manifest of the backup: " + line);
+          }
+        }
+      }
+      catch (IOException | RuntimeException e)
+      {
+        logger.traceException(e);
+        throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+            ERR_BACKUP_CANNOT_RESTORE.get(identifier, stackTraceToSingleLineString(e)), e);
+      }
+
+      byte[] hash = backupInfo.getUnsignedHash() != null ? backupInfo.getUnsignedHash() : backupInfo.getSignedHash();
+      cryptoEngine.check(hash, backupInfo.getBackupID());
+      return files;
+    }
+
+    /**
+     * Restores all the files of the archive in the provided restore directory,
+     * or only verifies them if the restore configuration requires it.
+     */
+    void restoreArchive(Path restoreDir, RestoreConfig restoreConfig) throws DirectoryException
+    {
+      final List<ManifestFile> files = readManifest();
+      final List<RestoredFile> restoredFiles = new ArrayList<>();
+      final List<Future<Void>> results = new ArrayList<>();
+      try (ChunkTaskExecutor executor = new ChunkTaskExecutor("Backup chunk reader %d"))
+      {
+        for (ManifestFile file : files)
+        {
+          if (restoreConfig.isCancelled() || executor.hasFailed())
+          {
+            break;
+          }
+          restoredFiles.add(restoreFile(file, restoreDir, restoreConfig, executor, results));
+        }
+        for (Future<Void> result : results)
+        {
+          result.get();
+        }
+      }
+      catch (IOException | InterruptedException | ExecutionException e)
+      {
+        final Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+        logger.traceException(cause);
+        if (cause instanceof DirectoryException)
+        {
+          throw (DirectoryException) cause;
+        }
+        throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
+            ERR_BACKUP_CANNOT_RESTORE.get(identifier, stackTraceToSingleLineString(cause)), cause);
+      }
+      finally
+      {
+        // The tasks dropped when the executor is closed after a failure never close their file
+        for (RestoredFile restoredFile : restoredFiles)
+        {
+          restoredFile.abort();
+        }
+      }
+    }
+
+    /**
+     * Submits the tasks restoring the chunks of the provided file.
+     *
+     * @return The file being restored, which is closed by the task processing its last chunk.
+     */
+    private RestoredFile restoreFile(ManifestFile file, Path restoreDir, RestoreConfig restoreConfig,
+        ChunkTaskExecutor executor, List<Future<Void>> results)
+        throws IOException, InterruptedException, DirectoryException
+    {
+      FileChannel channel = null;
+      if (restoreConfig.verifyOnly())
+      {
+        logger.info(NOTE_BACKUP_VERIFY_FILE, file.relativePath);
+      }
+      else
+      {
+        Path fileToRestore = restoreDir.resolve(file.relativePath);
+        ensureFileCanBeRestored(fileToRestore, identifier);
+        channel = FileChannel.open(fileToRestore,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      }
+
+      final RestoredFile restoredFile = new RestoredFile(file, channel);
+      if (file.chunks.isEmpty())
+      {
+        restoredFile.close();
+        return restoredFile;
+      }
+      try
+      {
+        long position = 0;
+        for (final ChunkRef chunkRef : file.chunks)
+        {
+          final long chunkPosition = position;
+          results.add(executor.submit(new Callable<Void>()
+          {
+            @Override
+            public Void call() throws Exception
+            {
+              try
+              {
+                restoredFile.write(chunkStore.readChunk(chunkRef), chunkPosition);
+                return null;
+              }
+              finally
+              {
+                restoredFile.chunkDone();
+              }
+            }
+          }, chunkRef.length));
+          position += chunkRef.length;
+        }
+      }
+      catch (InterruptedException | RuntimeException e)
+      {
+        restoredFile.abort();
+        throw e;
+      }
+      return restoredFile;
     }
   }
 
@@ -1099,7 +1785,7 @@ public class BackupManager
         RestoreConfig restoreConfig) throws IOException, DirectoryException
     {
       Path fileToRestore = restoreDir.resolve(zipEntryName);
-      ensureFileCanBeRestored(fileToRestore);
+      ensureFileCanBeRestored(fileToRestore, identifier);
 
       try (OutputStream outputStream = new FileOutputStream(fileToRestore.toFile()))
       {
@@ -1109,23 +1795,6 @@ public class BackupManager
       }
     }
 
-    private void ensureFileCanBeRestored(Path fileToRestore) throws DirectoryException
-    {
-      Path parent = fileToRestore.getParent();
-      if (!Files.exists(parent))
-      {
-        try
-        {
-          Files.createDirectories(parent);
-        }
-        catch (IOException e)
-        {
-          throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
-              ERR_BACKUP_CANNOT_CREATE_DIRECTORY_TO_RESTORE_FILE.get(fileToRestore, identifier));
-        }
-      }
-    }
-
     /**
      * Restores the file provided by the zip input stream.
      * <p>
@@ -1190,12 +1859,15 @@ public class BackupManager
   /**
    * Creates a backup of the provided backupable entity.
    * <p>
-   * The backup is stored in a single zip file in the backup directory.
+   * The files are split into content-defined chunks, which are stored in the
+   * "chunks" sub-directory of the backup directory and shared by all the
+   * backups of this directory: only the chunks which are not present yet are
+   * compressed, encrypted and written, in parallel. The archive file of the
+   * backup is a manifest listing the chunks of each file.
    * <p>
-   * If the backup is incremental, then the first entry in the zip is a text
-   * file containing a list of all the log files that are unchanged since the
-   * previous backup. The remaining zip entries are the log files themselves,
-   * which, for an incremental, only include those files that have changed.
+   * As a consequence, every backup only stores the data which changed since
+   * the previous backups, and does not depend on them for its restore, whether
+   * it is incremental or not.
    *
    * @param backupable
    *          The underlying entity (storage, backend) to be backed up.
@@ -1212,29 +1884,31 @@ public class BackupManager
 
     final ListIterator<Path> files = backupable.getFilesToBackup();
     final Path rootDirectory = backupable.getDirectory().toPath();
-    try (BackupArchiveWriter archiveWriter = new BackupArchiveWriter(newArchive))
+    // The chunks stored by this backup are unreferenced until the backup directory is updated
+    final Lock chunkStoreLock = ChunkStore.getLock(backupParams.backupDir.getPath()).readLock();
+    chunkStoreLock.lock();
+    try
     {
-      if (files.hasNext())
+      try (ChunkedArchiveWriter archiveWriter = new ChunkedArchiveWriter(newArchive))
       {
-        if (backupParams.isIncremental) {
-          archiveWriter.writeUnchangedFiles(rootDirectory, files, backupConfig);
-        }
-        archiveWriter.writeChangedFiles(rootDirectory, files, backupConfig);
+        archiveWriter.writeFiles(rootDirectory, files, backupConfig);
+        archiveWriter.finish();
       }
-      else {
-        archiveWriter.writeEmptyPlaceHolder();
+      catch (IOException e)
+      {
+        logger.traceException(e);
+        throw new DirectoryException(
+            DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), ERR_BACKUP_CANNOT_CLOSE_ZIP_STREAM.get(
+            newArchive.getArchiveFilename(), backupParams.backupDir.getPath(), stackTraceToSingleLineString(e)), e);
       }
+
+      newArchive.updateBackupDirectory();
     }
-    catch (IOException e)
+    finally
     {
-      logger.traceException(e);
-      throw new DirectoryException(
-          DirectoryServer.getCoreConfigManager().getServerErrorResultCode(), ERR_BACKUP_CANNOT_CLOSE_ZIP_STREAM.get(
-          newArchive.getArchiveFilename(), backupParams.backupDir.getPath(), stackTraceToSingleLineString(e)), e);
+      chunkStoreLock.unlock();
     }
 
-    newArchive.updateBackupDirectory();
-
     if (backupConfig.isCancelled())
     {
       // Remove the backup since it may be incomplete
@@ -1265,20 +1939,29 @@ public class BackupManager
         new ExistingBackupArchive(backupID, restoreConfig.getBackupDirectory());
     final Path restoreDirectory = getRestoreDirectory(backupable, backupID);
 
-    if (existingArchive.hasDependencies())
+    if (isChunkedArchive(existingArchive.getBackupInfo()))
     {
-      final BackupArchiveReader zipArchiveReader = new BackupArchiveReader(backupID, existingArchive);
-      final Set<String> unchangedFilesToRestore = zipArchiveReader.readUnchangedDependentFiles();
-      final List<BackupInfo> dependencies = existingArchive.getBackupDependencies();
-      for (BackupInfo dependencyBackupInfo : dependencies)
+      final ChunkedArchiveReader chunkedArchiveReader = new ChunkedArchiveReader(
+          backupID, existingArchive.getBackupInfo(), restoreConfig.getBackupDirectory().getPath());
+      chunkedArchiveReader.restoreArchive(restoreDirectory, restoreConfig);
+    }
+    else
+    {
+      if (existingArchive.hasDependencies())
       {
-        restoreArchive(restoreDirectory, unchangedFilesToRestore, restoreConfig, backupable, dependencyBackupInfo);
+        final BackupArchiveReader zipArchiveReader = new BackupArchiveReader(backupID, existingArchive);
+        final Set<String> unchangedFilesToRestore = zipArchiveReader.readUnchangedDependentFiles();
+        final List<BackupInfo> dependencies = existingArchive.getBackupDependencies();
+        for (BackupInfo dependencyBackupInfo : dependencies)
+        {
+          restoreArchive(restoreDirectory, unchangedFilesToRestore, restoreConfig, backupable, dependencyBackupInfo);
+        }
       }
-    }
 
-    // Restore the final archive file.
-    Set<String> filesToRestore = emptySet();
-    restoreArchive(restoreDirectory, filesToRestore, restoreConfig, backupable, existingArchive.getBackupInfo());
+      // Restore the final archive file.
+      Set<String> filesToRestore = emptySet();
+      restoreArchive(restoreDirectory, filesToRestore, restoreConfig, backupable, existingArchive.getBackupInfo());
+    }
 
     if (!restoreConfig.verifyOnly())
     {
@@ -1302,6 +1985,10 @@ public class BackupManager
   {
     ExistingBackupArchive archive = new ExistingBackupArchive(backupID, backupDir);
     archive.removeArchive();
+    if (isChunkedArchive(archive.getBackupInfo()))
+    {
+      ChunkStore.removeUnreferencedChunks(backupDir);
+    }
   }
 
   private Path getRestoreDirectory(Backupable backupable, String backupID)
@@ -1314,20 +2001,25 @@ public class BackupManager
     return restoreDirectory.toPath();
   }
 
-  private void closeArchiveWriter(BackupArchiveWriter archiveWriter, String backupFile, String backupPath)
-      throws DirectoryException
+  /** Indicates whether the provided backup is stored as a chunked archive rather than as a zip archive. */
+  private static boolean isChunkedArchive(BackupInfo backupInfo)
   {
-    if (archiveWriter != null)
+    return ARCHIVE_FORMAT_CHUNKED.equals(backupInfo.getBackupProperties().get(BACKUP_PROPERTY_ARCHIVE_FORMAT));
+  }
+
+  private static void ensureFileCanBeRestored(Path fileToRestore, String identifier) throws DirectoryException
+  {
+    Path parent = fileToRestore.getParent();
+    if (!Files.exists(parent))
     {
       try
       {
-        archiveWriter.close();
+        Files.createDirectories(parent);
       }
-      catch (Exception e)
+      catch (IOException e)
       {
-        logger.traceException(e);
         throw new DirectoryException(DirectoryServer.getCoreConfigManager().getServerErrorResultCode(),
-            ERR_BACKUP_CANNOT_CLOSE_ZIP_STREAM.get(backupFile, backupPath, stackTraceToSingleLineString(e)), e);
+            ERR_BACKUP_CANNOT_CREATE_DIRECTORY_TO_RESTORE_FILE.get(fileToRestore, identifier));
       }
     }
   }
@@ -520,6 +520,32 @@ public class LDIFReader implements Closeable
    *                         occurs while trying to parse it.
    */
   protected DN readDN(LinkedList<StringBuilder> lines) throws LDIFException
+  {
+    return readDN(lines, lastEntryLineNumber, lastEntryHeaderLines);
+  }
+
+
+
+  /**
+   * Reads the DN of the entry from the provided list of lines, without using
+   * the state of the last entry read. This allows the DNs of several entries
+   * to be read concurrently.
+   *
+   * @param  lines            The set of lines from which the DN should be
+   *                          read.
+   * @param  entryLineNumber  The line number on which the entry starts, used
+   *                          in the error messages.
+   * @param  headerLines      The list to which the lines read before the
+   *                          attributes of the entry are added.
+   *
+   * @return  The decoded entry DN.
+   *
+   * @throws  LDIFException  If DN is not the first element in the list (or the
+   *                         second after the LDIF version), or if a problem
+   *                         occurs while trying to parse it.
+   */
+  protected final DN readDN(LinkedList<StringBuilder> lines, long entryLineNumber, List<StringBuilder> headerLines)
+      throws LDIFException
   {
     if (lines.isEmpty())
     {
@@ -530,26 +556,26 @@ public class LDIFReader implements Closeable
     }
 
     StringBuilder line = lines.remove();
-    lastEntryHeaderLines.add(line);
+    headerLines.add(line);
     int colonPos = line.indexOf(":");
     if (colonPos <= 0)
     {
-      LocalizableMessage message = ERR_LDIF_NO_ATTR_NAME.get(lastEntryLineNumber, line);
+      LocalizableMessage message = ERR_LDIF_NO_ATTR_NAME.get(entryLineNumber, line);
       logToRejectWriter(lines, message);
-      throw new LDIFException(message, lastEntryLineNumber, true);
+      throw new LDIFException(message, entryLineNumber, true);
     }
 
     String attrName = toLowerCase(line.substring(0, colonPos));
     if (attrName.equals("version"))
     {
       // This is the version line, and we can skip it.
-      return readDN(lines);
+      return readDN(lines, entryLineNumber, headerLines);
     }
     else if (! attrName.equals("dn"))
     {
-      LocalizableMessage message = ERR_LDIF_NO_DN.get(lastEntryLineNumber, line);
+      LocalizableMessage message = ERR_LDIF_NO_DN.get(entryLineNumber, line);
       logToRejectWriter(lines, message);
-      throw new LDIFException(message, lastEntryLineNumber, true);
+      throw new LDIFException(message, entryLineNumber, true);
     }
 
 
@@ -561,18 +587,19 @@ public class LDIFReader implements Closeable
       return DN.rootDN();
     }
 
-    String dn = readValue(line, colonPos, lines);
-    return decodeDN(dn, lines, line);
+    String dn = readValue(line, colonPos, lines, entryLineNumber);
+    return decodeDN(dn, lines, line, entryLineNumber);
   }
 
-  private String readValue(StringBuilder line, int colonPos, List<StringBuilder> lines) throws LDIFException
+  private String readValue(StringBuilder line, int colonPos, List<StringBuilder> lines, long entryLineNumber)
+      throws LDIFException
   {
     if (line.charAt(colonPos + 1) == ':')
     {
       // The value is base64-encoded. Find the first non-blank character
       // and take the rest of the line, and base64-decode it.
       int pos = findFirstNonSpaceCharPosition(line, colonPos + 2);
-      return base64Decode(line.substring(pos), lines, line);
+      return base64Decode(line.substring(pos), lines, line, entryLineNumber);
     }
     else
     {
@@ -595,7 +622,7 @@ public class LDIFReader implements Closeable
   }
 
   private String base64Decode(String encodedStr, List<StringBuilder> lines,
-      StringBuilder line) throws LDIFException
+      StringBuilder line, long entryLineNumber) throws LDIFException
   {
     try
     {
@@ -613,14 +640,14 @@ public class LDIFReader implements Closeable
       }
 
       LocalizableMessage message = ERR_LDIF_COULD_NOT_BASE64_DECODE_DN.get(
-          lastEntryLineNumber, line, stackTrace);
+          entryLineNumber, line, stackTrace);
       logToRejectWriter(lines, message);
-      throw new LDIFException(message, lastEntryLineNumber, true, e);
+      throw new LDIFException(message, entryLineNumber, true, e);
     }
   }
 
   private DN decodeDN(String dnString, List<StringBuilder> lines,
-      StringBuilder line) throws LDIFException
+      StringBuilder line, long entryLineNumber) throws LDIFException
   {
     try
     {
@@ -629,9 +656,9 @@ public class LDIFReader implements Closeable
     catch (Exception e)
     {
       logger.trace("DN decode failed for: ", dnString, e);
-      LocalizableMessage message = ERR_LDIF_INVALID_DN.get(lastEntryLineNumber, line, getExceptionMessage(e));
+      LocalizableMessage message = ERR_LDIF_INVALID_DN.get(entryLineNumber, line, getExceptionMessage(e));
       logToRejectWriter(lines, message);
-      throw new LDIFException(message, lastEntryLineNumber, true, e);
+      throw new LDIFException(message, entryLineNumber, true, e);
     }
   }
 
@@ -686,7 +713,7 @@ public class LDIFReader implements Closeable
       throw new LDIFException(message, lastEntryLineNumber, false );
     }
 
-    return readValue(line, colonPos, lines);
+    return readValue(line, colonPos, lines, lastEntryLineNumber);
   }
 
   /**
@@ -716,15 +743,52 @@ public class LDIFReader implements Closeable
        Map<AttributeType,List<AttributeBuilder>> operationalAttrBuilders,
        boolean checkSchema)
           throws LDIFException
+  {
+    readAttribute(lines, line, entryDN, objectClasses, userAttrBuilders, operationalAttrBuilders, checkSchema,
+        lastEntryLineNumber);
+  }
+
+
+
+  /**
+   * Decodes the provided line as an LDIF attribute and adds it to the
+   * appropriate hash, without using the state of the last entry read. This
+   * allows the attributes of several entries to be read concurrently.
+   *
+   * @param  lines                  The full set of lines that comprise the
+   *                                entry (used for writing reject information).
+   * @param  line                   The line to decode.
+   * @param  entryDN                The DN of the entry being decoded.
+   * @param  objectClasses          The set of objectclasses decoded so far for
+   *                                the current entry.
+   * @param userAttrBuilders        The map of user attribute builders decoded
+   *                                so far for the current entry.
+   * @param  operationalAttrBuilders  The map of operational attribute builders
+   *                                  decoded so far for the current entry.
+   * @param  checkSchema            Indicates whether to perform schema
+   *                                validation for the attribute.
+   * @param  entryLineNumber        The line number on which the entry starts,
+   *                                used in the error messages.
+   *
+   * @throws  LDIFException  If a problem occurs while trying to decode the
+   *                         attribute contained in the provided entry.
+   */
+  protected final void readAttribute(List<StringBuilder> lines,
+       StringBuilder line, DN entryDN,
+       Map<ObjectClass,String> objectClasses,
+       Map<AttributeType,List<AttributeBuilder>> userAttrBuilders,
+       Map<AttributeType,List<AttributeBuilder>> operationalAttrBuilders,
+       boolean checkSchema, long entryLineNumber)
+          throws LDIFException
   {
     // Parse the attribute type description.
-    int colonPos = parseColonPosition(lines, line);
+    int colonPos = parseColonPosition(lines, line, entryLineNumber);
     String attrDescStr = line.substring(0, colonPos);
     final AttributeDescription attrDesc = parseAttrDescription(attrDescStr);
     final AttributeType attrType = attrDesc.getAttributeType();
 
     // Now parse the attribute value.
-    ByteString value = parseSingleValue(lines, line, entryDN, colonPos, attrDescStr);
+    ByteString value = parseSingleValue(lines, line, entryDN, colonPos, attrDescStr, entryLineNumber);
 
     // See if this is an objectclass or an attribute.  Then get the
     // corresponding definition and add the value to the appropriate hash.
@@ -740,7 +804,7 @@ public class LDIFReader implements Closeable
       ObjectClass objectClass = DirectoryServer.getInstance().getServerContext().getSchema().getObjectClass(ocName);
       if (objectClasses.containsKey(objectClass))
       {
-        logger.warn(WARN_LDIF_DUPLICATE_OBJECTCLASS, entryDN, lastEntryLineNumber, ocName);
+        logger.warn(WARN_LDIF_DUPLICATE_OBJECTCLASS, entryDN, entryLineNumber, ocName);
       }
       else
       {
@@ -760,9 +824,9 @@ public class LDIFReader implements Closeable
           && !attrType.getSyntax().isBEREncodingRequired()
           && attrDesc.hasOption("binary"))
       {
-        LocalizableMessage message = ERR_LDIF_INVALID_ATTR_OPTION.get(entryDN, lastEntryLineNumber, attrDescStr);
+        LocalizableMessage message = ERR_LDIF_INVALID_ATTR_OPTION.get(entryDN, entryLineNumber, attrDescStr);
         logToRejectWriter(lines, message);
-        throw new LDIFException(message, lastEntryLineNumber,true);
+        throw new LDIFException(message, entryLineNumber,true);
       }
       if (checkSchema &&
           DirectoryServer.getCoreConfigManager().getSyntaxEnforcementPolicy() != AcceptRejectWarn.ACCEPT)
@@ -771,7 +835,7 @@ public class LDIFReader implements Closeable
         if (! attrType.getSyntax().valueIsAcceptable(value, invalidReason))
         {
           LocalizableMessage message = WARN_LDIF_VALUE_VIOLATES_SYNTAX.get(
-              entryDN, lastEntryLineNumber, value, attrDescStr, invalidReason);
+              entryDN, entryLineNumber, value, attrDescStr, invalidReason);
           if (DirectoryServer.getCoreConfigManager().getSyntaxEnforcementPolicy() == AcceptRejectWarn.WARN)
           {
             logger.error(message);
@@ -779,7 +843,7 @@ public class LDIFReader implements Closeable
           else
           {
             logToRejectWriter(lines, message);
-            throw new LDIFException(message, lastEntryLineNumber, true);
+            throw new LDIFException(message, entryLineNumber, true);
           }
         }
       }
@@ -813,16 +877,16 @@ public class LDIFReader implements Closeable
           if (!a.add(attributeValue) && checkSchema)
           {
             LocalizableMessage message = WARN_LDIF_DUPLICATE_ATTR.get(
-                entryDN, lastEntryLineNumber, attrDescStr, value);
+                entryDN, entryLineNumber, attrDescStr, value);
             logToRejectWriter(lines, message);
-            throw new LDIFException(message, lastEntryLineNumber, true);
+            throw new LDIFException(message, entryLineNumber, true);
           }
           if (attrType.isSingleValue() && a.size() > 1 && checkSchema)
           {
             LocalizableMessage message = ERR_LDIF_MULTIPLE_VALUES_FOR_SINGLE_VALUED_ATTR
-                    .get(entryDN, lastEntryLineNumber, attrDescStr);
+                    .get(entryDN, entryLineNumber, attrDescStr);
             logToRejectWriter(lines, message);
-            throw new LDIFException(message, lastEntryLineNumber, true);
+            throw new LDIFException(message, entryLineNumber, true);
           }
 
           return;
@@ -861,7 +925,7 @@ public class LDIFReader implements Closeable
        String attributeName) throws LDIFException
   {
     // Parse the attribute type description.
-    int colonPos = parseColonPosition(lines, line);
+    int colonPos = parseColonPosition(lines, line, lastEntryLineNumber);
     String attrDescStr = line.substring(0, colonPos);
     AttributeDescription attrDesc = parseAttrDescription(attrDescStr);
 
@@ -876,7 +940,7 @@ public class LDIFReader implements Closeable
     }
 
     //  Now parse the attribute value.
-    ByteString value = parseSingleValue(lines, line, entryDN, colonPos, attrDescStr);
+    ByteString value = parseSingleValue(lines, line, entryDN, colonPos, attrDescStr, lastEntryLineNumber);
 
     AttributeBuilder builder = new AttributeBuilder(attrDesc);
     builder.add(value);
@@ -1315,19 +1379,21 @@ public class LDIFReader implements Closeable
    *          The current set of lines.
    * @param line
    *          The current line.
+   * @param entryLineNumber
+   *          The line number on which the entry starts.
    * @return The colon position.
    * @throws LDIFException
    *           If the colon was badly placed or not found.
    */
   private int parseColonPosition(List<StringBuilder> lines,
-      StringBuilder line) throws LDIFException {
+      StringBuilder line, long entryLineNumber) throws LDIFException {
     int colonPos = line.indexOf(":");
     if (colonPos <= 0)
     {
       LocalizableMessage message = ERR_LDIF_NO_ATTR_NAME.get(
-              lastEntryLineNumber, line);
+              entryLineNumber, line);
       logToRejectWriter(lines, message);
-      throw new LDIFException(message, lastEntryLineNumber, true);
+      throw new LDIFException(message, entryLineNumber, true);
     }
     return colonPos;
   }
@@ -1347,6 +1413,8 @@ public class LDIFReader implements Closeable
    *          The position of the separator colon in the line.
    * @param attrName
    *          The name of the attribute being parsed.
+   * @param entryLineNumber
+   *          The line number on which the entry starts.
    * @return The parsed attribute value.
    * @throws LDIFException
    *           If an error occurred when parsing the attribute value.
@@ -1356,7 +1424,8 @@ public class LDIFReader implements Closeable
       StringBuilder line,
       DN entryDN,
       int colonPos,
-      String attrName) throws LDIFException {
+      String attrName,
+      long entryLineNumber) throws LDIFException {
 
     // Look at the character immediately after the colon. If there is
     // none, then assume an attribute with an empty value. If it is another
@@ -1387,9 +1456,9 @@ public class LDIFReader implements Closeable
           logger.traceException(e);
 
           LocalizableMessage message = ERR_LDIF_COULD_NOT_BASE64_DECODE_ATTR.get(
-              entryDN, lastEntryLineNumber, line, e);
+              entryDN, entryLineNumber, line, e);
           logToRejectWriter(lines, message);
-          throw new LDIFException(message, lastEntryLineNumber, true, e);
+          throw new LDIFException(message, entryLineNumber, true, e);
         }
       }
       else if (c == '<')
@@ -1409,9 +1478,9 @@ public class LDIFReader implements Closeable
           logger.traceException(e);
 
           LocalizableMessage message = ERR_LDIF_INVALID_URL.get(
-              entryDN, lastEntryLineNumber, attrName, e);
+              entryDN, entryLineNumber, attrName, e);
           logToRejectWriter(lines, message);
-          throw new LDIFException(message, lastEntryLineNumber, true, e);
+          throw new LDIFException(message, entryLineNumber, true, e);
         }
 
 
@@ -1431,9 +1500,9 @@ public class LDIFReader implements Closeable
           logger.traceException(e);
 
           LocalizableMessage message = ERR_LDIF_URL_IO_ERROR.get(
-              entryDN, lastEntryLineNumber, attrName, contentURL, e);
+              entryDN, entryLineNumber, attrName, contentURL, e);
           logToRejectWriter(lines, message);
-          throw new LDIFException(message, lastEntryLineNumber, true, e);
+          throw new LDIFException(message, entryLineNumber, true, e);
         }
         finally
         {
@@ -364,6 +364,60 @@ public final class ServerConstants
 
 
 
+  /**
+   * The name of the monitor attribute that is used to hold the connection
+   * handler number of successful SSL/TLS handshakes.
+   */
+  public static final String ATTR_MONITOR_CONNHANDLER_TLS_HANDSHAKES =
+       "ds-connectionhandler-tls-handshakes";
+
+
+
+  /**
+   * The name of the monitor attribute that is used to hold the connection
+   * handler number of SSL/TLS handshakes which resumed a previous session.
+   */
+  public static final String ATTR_MONITOR_CONNHANDLER_TLS_RESUMED_HANDSHAKES =
+       "ds-connectionhandler-tls-resumed-handshakes";
+
+
+
+  /**
+   * The name of the monitor attribute that is used to hold the connection
+   * handler number of failed SSL/TLS handshakes.
+   */
+  public static final String ATTR_MONITOR_CONNHANDLER_TLS_FAILED_HANDSHAKES =
+       "ds-connectionhandler-tls-failed-handshakes";
+
+
+
+  /**
+   * The name of the monitor attribute that is used to hold the connection
+   * handler proportion of SSL/TLS handshakes which resumed a previous session.
+   */
+  public static final String ATTR_MONITOR_CONNHANDLER_TLS_RESUMPTION_RATIO =
+       "ds-connectionhandler-tls-resumption-ratio";
+
+
+
+  /**
+   * The name of the monitor attribute that is used to hold the connection
+   * handler average SSL/TLS handshake time in milliseconds.
+   */
+  public static final String ATTR_MONITOR_CONNHANDLER_TLS_AVERAGE_HANDSHAKE_TIME =
+       "ds-connectionhandler-tls-average-handshake-time-millis";
+
+
+
+  /**
+   * The name of the monitor attribute that is used to hold the connection
+   * handler longest SSL/TLS handshake time in milliseconds.
+   */
+  public static final String ATTR_MONITOR_CONNHANDLER_TLS_MAX_HANDSHAKE_TIME =
+       "ds-connectionhandler-tls-max-handshake-time-millis";
+
+
+
   /**
    * The name of the standard attribute that is used to specify the set of
    * public naming contexts (suffixes) for the Directory Server, formatted in
@@ -2461,6 +2515,25 @@ public final class ServerConstants
 
 
 
+  /**
+   * The name of the backup property that holds the format of the archive file
+   * containing the contents of the backup. It is absent from the backups
+   * stored as a single zip archive.
+   */
+  public static final String BACKUP_PROPERTY_ARCHIVE_FORMAT = "archive_format";
+
+
+
+  /**
+   * The name of the backup property that holds the identifier of the key entry
+   * that contains the MAC algorithm and shared secret key used to identify the
+   * chunks of an encrypted chunked backup. It is absent from the backups whose
+   * chunks are identified by the digest of their contents.
+   */
+  public static final String BACKUP_PROPERTY_CHUNK_MAC_KEY_ID = "chunk_mac_key_id";
+
+
+
   /**
    * The name of the backup property that holds the name of the digest algorithm
    * used to generate the hash of a backup.
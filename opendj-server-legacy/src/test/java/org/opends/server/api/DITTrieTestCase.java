@@ -0,0 +1,152 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.api;
+
+import static java.util.Arrays.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.opendj.ldap.DN.*;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.opendj.ldap.DN;
+import org.testng.annotations.Test;
+
+/** A set of test cases for the DITTrie class. */
+@SuppressWarnings("javadoc")
+public class DITTrieTestCase extends APITestCase
+{
+  private static final String BASE = "dc=example,dc=com";
+  private static final String PEOPLE = "ou=people," + BASE;
+  private static final String USER = "uid=user.0," + PEOPLE;
+
+  @Test
+  public void testPutAndGet()
+  {
+    DITTrie<String> empty = DITTrie.empty();
+    DITTrie<String> trie = empty.put(valueOf(PEOPLE), asList("a", "b"));
+
+    assertThat(empty.isEmpty()).isTrue();
+    assertThat(empty.get(valueOf(PEOPLE))).isEmpty();
+    assertThat(trie.isEmpty()).isFalse();
+    assertThat(trie.get(valueOf(PEOPLE))).containsExactly("a", "b");
+    assertThat(trie.get(valueOf(BASE))).isEmpty();
+    assertThat(trie.get(valueOf(USER))).isEmpty();
+    assertThat(trie.get(valueOf("OU=People,DC=Example,DC=Com"))).containsExactly("a", "b");
+
+    assertThat(trie.add(valueOf(PEOPLE), "c").get(valueOf(PEOPLE))).containsExactly("a", "b", "c");
+    assertThat(trie.put(valueOf(PEOPLE), asList("c")).get(valueOf(PEOPLE))).containsExactly("c");
+    assertThat(trie.remove(valueOf(PEOPLE), "a").get(valueOf(PEOPLE))).containsExactly("b");
+    assertThat(trie.remove(valueOf(PEOPLE), "z")).isSameAs(trie);
+    assertThat(trie.remove(valueOf(PEOPLE)).isEmpty()).isTrue();
+    assertThat(trie.remove(valueOf(USER))).isSameAs(trie);
+  }
+
+  @Test
+  public void testGetValuesOnPath()
+  {
+    DITTrie<String> trie = DITTrie.<String> empty()
+        .put(rootDN(), asList("global"))
+        .put(valueOf(BASE), asList("base"))
+        .put(valueOf(USER), asList("user1", "user2"))
+        .put(valueOf("ou=groups," + BASE), asList("groups"));
+
+    assertThat(trie.getValuesOnPath(valueOf(USER))).containsExactly("user1", "user2", "base");
+    assertThat(trie.getValuesOnPath(valueOf("cn=child," + USER))).containsExactly("user1", "user2", "base");
+    assertThat(trie.getValuesOnPath(valueOf(PEOPLE))).containsExactly("base");
+    assertThat(trie.getValuesOnPath(valueOf("dc=com"))).isEmpty();
+    assertThat(trie.getValuesOnPath(valueOf("dc=other"))).isEmpty();
+    assertThat(trie.getValuesOnPath(rootDN())).isEmpty();
+    assertThat(trie.get(rootDN())).containsExactly("global");
+  }
+
+  @Test
+  public void testSubtree()
+  {
+    DITTrie<String> trie = DITTrie.<String> empty()
+        .put(valueOf(BASE), asList("base"))
+        .put(valueOf(USER), asList("user"))
+        .put(valueOf("cn=group," + BASE), asList("group"));
+
+    assertThat(trie.getSubtreeValues(valueOf(BASE))).containsOnly("base", "user", "group");
+    assertThat(trie.getSubtreeValues(valueOf(PEOPLE))).containsExactly("user");
+    assertThat(trie.getSubtreeValues(valueOf("ou=other," + BASE))).isEmpty();
+    assertThat(trie.getSubtree(rootDN()).keySet()).containsOnly(
+        valueOf(BASE), valueOf(USER), valueOf("cn=group," + BASE));
+    assertThat(trie.getSubtree(valueOf(BASE)).keySet()).startsWith(valueOf(BASE));
+
+    DITTrie<String> removed = trie.removeSubtree(valueOf(PEOPLE));
+    assertThat(removed.getSubtreeValues(rootDN())).containsOnly("base", "group");
+    assertThat(removed.removeSubtree(valueOf(PEOPLE))).isSameAs(removed);
+    assertThat(trie.removeSubtree(valueOf(BASE)).isEmpty()).isTrue();
+    assertThat(trie.removeSubtree(rootDN()).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void testUpdatesDoNotModifyTheOriginalTrie()
+  {
+    DITTrie<String> trie = DITTrie.<String> empty()
+        .put(valueOf(BASE), asList("base"))
+        .put(valueOf(USER), asList("user"));
+
+    trie.add(valueOf(USER), "other");
+    trie.remove(valueOf(BASE));
+    trie.removeSubtree(valueOf(PEOPLE));
+    trie.put(valueOf("cn=new," + PEOPLE), asList("new"));
+
+    assertThat(trie.get(valueOf(BASE))).containsExactly("base");
+    assertThat(trie.get(valueOf(USER))).containsExactly("user");
+    assertThat(trie.getSubtreeValues(rootDN())).containsOnly("base", "user");
+  }
+
+  @Test
+  public void testBulkUpdates()
+  {
+    DITTrie<String> trie = DITTrie.<String> empty()
+        .put(valueOf(BASE), asList("base"))
+        .put(valueOf(USER), asList("user"));
+
+    Map<DN, List<String>> added = new LinkedHashMap<>();
+    for (int i = 1; i <= 1000; i++)
+    {
+      added.put(valueOf("uid=user." + i + "," + PEOPLE), asList("user" + i));
+    }
+    added.put(valueOf(USER), asList("other"));
+    DITTrie<String> bulk = trie.addAll(added);
+
+    assertThat(bulk.getSubtreeValues(valueOf(PEOPLE))).hasSize(1002);
+    assertThat(bulk.get(valueOf(USER))).containsExactly("user", "other");
+    assertThat(bulk.get(valueOf("uid=user.1000," + PEOPLE))).containsExactly("user1000");
+    assertThat(bulk.getValuesOnPath(valueOf("uid=user.1," + PEOPLE))).containsExactly("user1", "base");
+    assertThat(trie.getSubtreeValues(rootDN())).containsOnly("base", "user");
+    assertThat(trie.addAll(Collections.<DN, List<String>> emptyMap())).isSameAs(trie);
+
+    Map<DN, List<String>> replaced = new LinkedHashMap<>(added);
+    for (Map.Entry<DN, List<String>> entry : replaced.entrySet())
+    {
+      entry.setValue(Collections.<String> emptyList());
+    }
+    replaced.put(valueOf(BASE), asList("new base"));
+    DITTrie<String> removed = bulk.putAll(replaced);
+    assertThat(removed.getSubtreeValues(rootDN())).containsOnly("new base");
+    assertThat(removed.getSubtree(rootDN()).keySet()).containsExactly(valueOf(BASE));
+    assertThat(removed.putAll(Collections.singletonMap(valueOf(BASE), Collections.<String> emptyList())).isEmpty())
+        .isTrue();
+  }
+}
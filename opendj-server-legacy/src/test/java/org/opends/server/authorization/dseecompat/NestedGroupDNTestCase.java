@@ -16,12 +16,34 @@
  */
 package org.opends.server.authorization.dseecompat;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.LDAPConnectionFactory;
+import org.forgerock.opendj.ldap.SearchResultHandler;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.controls.PersistentSearchChangeType;
+import org.forgerock.opendj.ldap.controls.PersistentSearchRequestControl;
+import org.forgerock.opendj.ldap.requests.Requests;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.responses.SearchResultEntry;
+import org.forgerock.opendj.ldap.responses.SearchResultReference;
+import org.opends.server.core.DirectoryServer;
+import org.opends.server.protocols.internal.InternalClientConnection;
+import org.opends.server.protocols.internal.InternalSearchOperation;
+import org.opends.server.types.AuthenticationInfo;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import static org.assertj.core.api.Assertions.*;
 import static org.opends.server.TestCaseUtils.*;
+import static org.opends.server.protocols.internal.InternalClientConnection.*;
 import static org.opends.server.config.ConfigConstants.ATTR_AUTHZ_GLOBAL_ACI;
+import static org.opends.server.util.ServerConstants.OID_PERSISTENT_SEARCH;
 import static org.testng.Assert.*;
 
 /**
@@ -31,6 +53,7 @@ import static org.testng.Assert.*;
 public class NestedGroupDNTestCase extends AciTestCase {
 
   private static final String peopleBase="ou=People,o=test";
+  private static final String user1="uid=user.1,ou=People,o=test";
   private static final String user5="uid=user.5,ou=People,o=test";
   private static final String group1DN = "cn=group 1,ou=Nested Groups, o=test";
   private static final String group2DN = "cn=group 2,ou=Nested Groups, o=test";
@@ -43,6 +66,11 @@ public class NestedGroupDNTestCase extends AciTestCase {
         "allow (all) " +
         "groupdn=\"ldap:///" + group1DN + "\";)";
 
+  private static final
+  String psearchControlAci = "(targetcontrol=\"" + OID_PERSISTENT_SEARCH + "\")" +
+        "(version 3.0; acl \"psearch control\"; " +
+        "allow(read) userdn=\"ldap:///anyone\";)";
+
   @BeforeClass
   public void setupClass() throws Exception {
     deleteAttrFromAdminEntry(ACCESS_HANDLER_DN, ATTR_AUTHZ_GLOBAL_ACI);
@@ -147,4 +175,77 @@ public class NestedGroupDNTestCase extends AciTestCase {
     //Results should not be returned because of circular condition.
     assertEquals(userResults1, "");
   }
+
+
+  /**
+   * Test that a persistent search sees group membership changes: user5 stops
+   * receiving the changes once removed from group1, although the persistent
+   * search has already evaluated its membership.
+   *
+   * @throws Exception If an unexpected result is returned.
+   */
+  @Test
+  public void testGroupMembershipChangeSeenByPersistentSearch() throws Exception {
+    LDIFAdminModify(makeAddLDIF(ATTR_AUTHZ_GLOBAL_ACI, ACCESS_HANDLER_DN, psearchControlAci), DIR_MGR_DN, PWD);
+    LDIFModify(makeAddLDIF("aci", peopleBase, groupAci), DIR_MGR_DN, PWD);
+    LDIFModify(makeAddLDIF("member", group1DN, user5), DIR_MGR_DN, PWD);
+    final BlockingQueue<SearchResultEntry> entries = new LinkedBlockingQueue<>();
+    try (LDAPConnectionFactory factory = new LDAPConnectionFactory("localhost", getServerLdapPort());
+        Connection conn = factory.getConnection()) {
+      conn.bind(user5, PWD.toCharArray());
+      SearchRequest request = Requests.newSearchRequest(peopleBase, SearchScope.WHOLE_SUBTREE, filter)
+          .addControl(PersistentSearchRequestControl.newControl(
+              true, true, false, PersistentSearchChangeType.MODIFY));
+      conn.searchAsync(request, new SearchResultHandler() {
+        @Override
+        public boolean handleEntry(SearchResultEntry entry) {
+          entries.add(entry);
+          return true;
+        }
+
+        @Override
+        public boolean handleReference(SearchResultReference reference) {
+          return true;
+        }
+      });
+
+      // the persistent search is registered asynchronously
+      SearchResultEntry entry = null;
+      for (int i = 0; i < 10 && entry == null; i++) {
+        LDIFModify(makeAddLDIF("description", user1, "member " + i), DIR_MGR_DN, PWD);
+        entry = entries.poll(1, TimeUnit.SECONDS);
+      }
+      assertNotNull(entry, "user5 is a member of group1 and must see the changes");
+
+      deleteAttrFromEntry(group1DN, "member");
+      entries.clear();
+      LDIFModify(makeAddLDIF("description", user1, "not a member"), DIR_MGR_DN, PWD);
+      assertNull(entries.poll(2, TimeUnit.SECONDS), "user5 is no longer a member of group1");
+    } finally {
+      deleteAttrFromEntry(user1, "description");
+    }
+  }
+
+  /**
+   * Test that the access decisions made for an entry are reused for the other
+   * entries of the same search, since the groupdn bind rule does not depend
+   * on the entry.
+   *
+   * @throws Exception If an unexpected result is returned.
+   */
+  @Test
+  public void testAccessDecisionsReusedAcrossSearchEntries() throws Exception {
+    LDIFModify(makeAddLDIF("aci", peopleBase, groupAci), DIR_MGR_DN, PWD);
+    LDIFModify(makeAddLDIF("member", group1DN, user5), DIR_MGR_DN, PWD);
+    org.opends.server.protocols.internal.SearchRequest request =
+        org.opends.server.protocols.internal.Requests.newSearchRequest(peopleBase, SearchScope.WHOLE_SUBTREE, filter);
+    int nbEntries = getRootConnection().processSearch(request).getSearchEntries().size();
+
+    InternalClientConnection conn = new InternalClientConnection(
+        new AuthenticationInfo(DirectoryServer.getEntry(DN.valueOf(user5)), false));
+    InternalSearchOperation search = conn.processSearch(request);
+
+    assertThat(search.getSearchEntries()).hasSize(nbEntries);
+    assertThat(AciContainer.getCachedAccessDecisionHits(search)).isGreaterThanOrEqualTo(nbEntries - 1);
+  }
 }
@@ -54,6 +54,7 @@ import org.forgerock.opendj.server.config.server.ExternalChangelogDomainCfg;
 import org.opends.server.TestCaseUtils;
 import org.opends.server.api.LocalBackend;
 import org.opends.server.backends.ChangelogBackend.ChangeNumberRange;
+import org.opends.server.backends.ChangelogBackend.UpdateMsgFilter;
 import org.opends.server.controls.EntryChangelogNotificationControl;
 import org.opends.server.controls.ExternalChangelogRequestControl;
 import org.opends.server.core.BackendConfigManager;
@@ -816,6 +817,8 @@ public class ChangelogBackendTestCase extends ReplicationTestCase
           "(&(&(changenumber>=3)(changenumber<=4))(&(|(dc=y)(dc=x))(&(changenumber>=2)(changenumber<=5))))", 3, 4 },
       { "cn=changelog", "(|(objectclass=*)(&(changenumber>=2)(changenumber<=5)))", -1, -1 },
       { "cn=changelog", "(changenumber=8)", 8, 8 },
+      { "cn=changelog", "(&(changenumber>=2)(dc=x)(changenumber<=5))", 2, 5 },
+      { "cn=changelog", "(&(changenumber>=2)(changenumber<=7)(changenumber>=3)(changenumber<=5))", 3, 5 },
 
       { "changeNumber=8,cn=changelog", "(objectclass=*)", 8, 8 },
       { "changeNumber=8,cn=changelog", "(changenumber>=2)", 8, 8 },
@@ -847,6 +850,90 @@ public class ChangelogBackendTestCase extends ReplicationTestCase
     assertChangeNumberRange(range, -1, -1);
   }
 
+  @DataProvider
+  Object[][] getUpdateMsgFilters()
+  {
+    final String accountDN = "uid=user1,ou=Accounts,dc=example,dc=com";
+    final String groupDN = "cn=group1,ou=Groups,dc=example,dc=com";
+    return new Object[][] {
+      // filter, target DN, change is a delete, expected result
+      { "(objectclass=*)", accountDN, true, true },
+      { "(targetDN=*,ou=Accounts,dc=example,dc=com)", accountDN, true, true },
+      { "(targetDN=*,ou=Accounts,dc=example,dc=com)", groupDN, true, false },
+      { "(changeType=delete)", accountDN, false, false },
+      { "(|(changeType=add)(changeType=delete))", accountDN, true, true },
+      { "(!(changeType=delete))", accountDN, true, false },
+      { "(&(changenumber>=2)(changeType=delete)(targetDN=" + groupDN + "))", groupDN, true, true },
+      { "(&(changenumber>=2)(changeType=delete)(targetDN=" + groupDN + "))", accountDN, true, false },
+      // cannot be evaluated on the message alone
+      { "(|(changenumber>=2)(changeType=delete))", accountDN, false, true },
+      { "(&(changes=*)(targetDN:dn:=*))", groupDN, false, true },
+    };
+  }
+
+  @Test(dataProvider="getUpdateMsgFilters")
+  public void filterUpdateMsgs(String filterString, String targetDN, boolean isDelete, boolean expected)
+      throws Exception
+  {
+    final CSN csn = new CSNGenerator(1, 0).newCSN();
+    final UpdateMsg msg = isDelete
+        ? new DeleteMsg(DN.valueOf(targetDN), csn, "uuid")
+        : new ModifyMsg(csn, DN.valueOf(targetDN),
+            newArrayList(new Modification(REPLACE, Attributes.create("description", "new value"))), "uuid");
+    final UpdateMsgFilter msgFilter = UpdateMsgFilter.from(SearchFilter.createFilterFromString(filterString));
+
+    assertEquals(msgFilter.mayMatch(msg), expected, msgFilter.toString());
+  }
+
+  @Test
+  public void filterTargetDNs() throws Exception
+  {
+    final UpdateMsgFilter msgFilter = UpdateMsgFilter.from(SearchFilter.createFilterFromString(
+        "(&(changeType=delete)(targetDN=*,ou=Accounts,dc=example,dc=com))"));
+
+    assertTrue(msgFilter.filtersOnTargetDN());
+    assertTrue(msgFilter.mayMatch(DN.valueOf("uid=user1,ou=Accounts,dc=example,dc=com")));
+    assertFalse(msgFilter.mayMatch(DN.valueOf("cn=group1,ou=Groups,dc=example,dc=com")));
+    assertFalse(UpdateMsgFilter.from(SearchFilter.createFilterFromString("(changeType=delete)")).filtersOnTargetDN());
+  }
+
+  @Test
+  public void searchInChangeNumberModeSkipsChangesUsingTargetDNIndex() throws Exception
+  {
+    final String testName = "TargetDNIndex";
+    final String kept = testName + "Kept";
+    final String skipped = testName + "Skipped";
+    // more changes to skip than needed to reposition the replica updates cursor, but less than the window size
+    final int nbSkipped = 80;
+    final CSN[] csns = generateCSNs(nbSkipped + 3, server1);
+    final List<UpdateMsg> msgs = new ArrayList<>();
+    msgs.add(generateDeleteMsg(server1, csns[0], kept, 1));
+    msgs.add(generateDeleteMsg(server1, csns[1], kept, 2));
+    for (int i = 2; i < nbSkipped + 2; i++)
+    {
+      msgs.add(generateDeleteMsg(server1, csns[i], skipped, i));
+    }
+    msgs.add(generateDeleteMsg(server1, csns[nbSkipped + 2], kept, 3));
+    publishUpdateMessagesInOTest(testName, false, msgs.toArray(new UpdateMsg[msgs.size()]));
+
+    final String filter = "(targetdn=uid=" + kept + "*)";
+    List<SearchResultEntry> entries = searchChangelog(filter, 3, SUCCESS, testName).getSearchEntries();
+    assertDNWithChangeNumber(entries.get(0), 1);
+    assertDNWithChangeNumber(entries.get(1), 2);
+    assertDNWithChangeNumber(entries.get(2), nbSkipped + 3);
+    assertAttributeValue(entries.get(2), "targetdn", "uid=" + kept + "3," + server1.getBaseDN());
+    assertThat((Object) replicationServer.getChangelogDB().getTargetDNIndex().getTargetDN(nbSkipped + 2))
+        .isEqualTo(DN.valueOf("uid=" + skipped + (nbSkipped + 1) + "," + server1.getBaseDN()));
+
+    // the change number index cursor stops at the upper bound
+    entries = searchChangelog("(&" + filter + "(changenumber<=2))", 2, SUCCESS, testName).getSearchEntries();
+    assertDNWithChangeNumber(entries.get(1), 2);
+    entries = searchChangelog("(&" + filter + "(changenumber>=2)(changenumber<=" + (nbSkipped + 3) + "))",
+        2, SUCCESS, testName).getSearchEntries();
+    assertDNWithChangeNumber(entries.get(0), 2);
+    assertDNWithChangeNumber(entries.get(1), nbSkipped + 3);
+  }
+
   private List<SearchResultEntry> assertChangelogAttributesInRootDSE(
       final int expectedFirstChangeNumber, final int expectedLastChangeNumber) throws Exception
   {
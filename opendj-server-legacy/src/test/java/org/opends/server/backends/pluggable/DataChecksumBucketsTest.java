@@ -0,0 +1,220 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.types.Entry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend", "unit" }, sequential=true)
+public class DataChecksumBucketsTest extends DirectoryServerTestCase
+{
+  private Entry entry1;
+  private Entry modifiedEntry1;
+  private Entry entry2;
+  private Entry entry3;
+
+  @BeforeClass
+  public void setUp() throws Exception
+  {
+    TestCaseUtils.startServer();
+    entry1 = TestCaseUtils.makeEntry("dn: uid=user.1,o=test", "objectClass: inetOrgPerson",
+        "uid: user.1", "cn: User 1", "sn: 1");
+    modifiedEntry1 = TestCaseUtils.makeEntry("dn: uid=user.1,o=test", "objectClass: inetOrgPerson",
+        "uid: user.1", "cn: User 1", "sn: modified");
+    entry2 = TestCaseUtils.makeEntry("dn: uid=user.2,o=test", "objectClass: inetOrgPerson",
+        "uid: user.2", "cn: User 2", "sn: 2");
+    entry3 = TestCaseUtils.makeEntry("dn: uid=user.3,o=test", "objectClass: inetOrgPerson",
+        "uid: user.3", "cn: User 3", "sn: 3");
+  }
+
+  @Test
+  public void testWritesDuringComputationAreFolded() throws Exception
+  {
+    final DataChecksumBuckets buckets = new DataChecksumBuckets();
+    final DataChecksumBuckets.Computation computation = buckets.beginCompute();
+
+    readChunk(buckets, computation, false, new EntryID(1), entry1);
+
+    // entry 1 has already been read, entry 2 has not
+    final DataChecksumBuckets.Update update = buckets.beginUpdate();
+    update.entryRemoved(new EntryID(1), entry1);
+    update.entryAdded(new EntryID(1), modifiedEntry1);
+    update.entryRemoved(new EntryID(2), entry2);
+    buckets.endUpdate(update, true);
+
+    readChunk(buckets, computation, true, new EntryID(3), entry3);
+
+    assertThat(buckets.getChecksum()).isEqualTo(checksumOf(modifiedEntry1, entry3));
+  }
+
+  @Test
+  public void testUncommittedWriteDuringComputationIsIgnored() throws Exception
+  {
+    final DataChecksumBuckets buckets = new DataChecksumBuckets();
+    final DataChecksumBuckets.Computation computation = buckets.beginCompute();
+
+    readChunk(buckets, computation, false, new EntryID(1), entry1);
+    final DataChecksumBuckets.Update update = buckets.beginUpdate();
+    update.entryRemoved(new EntryID(1), entry1);
+    buckets.endUpdate(update, false);
+    readChunk(buckets, computation, true, new EntryID(2), entry2);
+
+    assertThat(buckets.getChecksum()).isEqualTo(checksumOf(entry1, entry2));
+  }
+
+  @Test
+  public void testWritesWaitWhileChunkIsRead() throws Exception
+  {
+    final DataChecksumBuckets buckets = new DataChecksumBuckets();
+    final DataChecksumBuckets.Computation computation = buckets.beginCompute();
+
+    assertThat(buckets.beginReadChunk(computation)).isTrue();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      final Future<DataChecksumBuckets.Update> write = executor.submit(new Callable<DataChecksumBuckets.Update>()
+      {
+        @Override
+        public DataChecksumBuckets.Update call() throws Exception
+        {
+          return buckets.beginUpdate();
+        }
+      });
+      try
+      {
+        write.get(200, TimeUnit.MILLISECONDS);
+        fail("A write operation must not start while a chunk is read");
+      }
+      catch (TimeoutException expected)
+      {
+        // the write operation waits for the chunk
+      }
+      final DataChecksumBuckets.Chunk chunk = new DataChecksumBuckets.Chunk();
+      chunk.addEntry(new EntryID(1), entry1);
+      assertThat(buckets.endReadChunk(computation, chunk)).isTrue();
+
+      final DataChecksumBuckets.Update update = write.get(10, TimeUnit.SECONDS);
+      update.entryAdded(new EntryID(2), entry2);
+      buckets.endUpdate(update, true);
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+    readChunk(buckets, computation, true, new EntryID(2), entry2);
+
+    assertThat(buckets.getChecksum()).isEqualTo(checksumOf(entry1, entry2));
+  }
+
+  @Test
+  public void testComputationWaitsForWritesStartedBeforeIt() throws Exception
+  {
+    final DataChecksumBuckets buckets = new DataChecksumBuckets();
+    // neither computed nor being computed: the write operation is not tracked
+    final DataChecksumBuckets.Update update = buckets.beginUpdate();
+    update.entryAdded(new EntryID(1), entry1);
+
+    final DataChecksumBuckets.Computation computation = buckets.beginCompute();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try
+    {
+      final Future<Boolean> read = executor.submit(new Callable<Boolean>()
+      {
+        @Override
+        public Boolean call() throws Exception
+        {
+          return buckets.beginReadChunk(computation);
+        }
+      });
+      try
+      {
+        read.get(200, TimeUnit.MILLISECONDS);
+        fail("A chunk must not be read while a write operation is in progress");
+      }
+      catch (TimeoutException expected)
+      {
+        // the chunk waits for the write operation
+      }
+      buckets.endUpdate(update, true);
+      assertThat(read.get(10, TimeUnit.SECONDS)).isTrue();
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+    final DataChecksumBuckets.Chunk chunk = new DataChecksumBuckets.Chunk();
+    chunk.addEntry(new EntryID(1), entry1);
+    chunk.setLast();
+    assertThat(buckets.endReadChunk(computation, chunk)).isTrue();
+
+    assertThat(buckets.getChecksum()).isEqualTo(checksumOf(entry1));
+  }
+
+  @Test
+  public void testInvalidateAbortsComputation() throws Exception
+  {
+    final DataChecksumBuckets buckets = new DataChecksumBuckets();
+    final DataChecksumBuckets.Computation computation = buckets.beginCompute();
+
+    readChunk(buckets, computation, false, new EntryID(1), entry1);
+    buckets.invalidate();
+
+    assertThat(buckets.beginReadChunk(computation)).isFalse();
+    assertThat(buckets.endReadChunk(computation, null)).isFalse();
+    assertThat(buckets.getChecksum()).isNull();
+  }
+
+  private void readChunk(DataChecksumBuckets buckets, DataChecksumBuckets.Computation computation, boolean isLast,
+      EntryID entryID, Entry entry) throws Exception
+  {
+    assertThat(buckets.beginReadChunk(computation)).isTrue();
+    final DataChecksumBuckets.Chunk chunk = new DataChecksumBuckets.Chunk();
+    chunk.addEntry(entryID, entry);
+    if (isLast)
+    {
+      chunk.setLast();
+    }
+    assertThat(buckets.endReadChunk(computation, chunk)).isTrue();
+  }
+
+  private DataChecksum checksumOf(Entry... entries) throws Exception
+  {
+    final DataChecksumBuckets buckets = new DataChecksumBuckets();
+    final DataChecksumBuckets.Computation computation = buckets.beginCompute();
+    assertThat(buckets.beginReadChunk(computation)).isTrue();
+    final DataChecksumBuckets.Chunk chunk = new DataChecksumBuckets.Chunk();
+    for (int i = 0; i < entries.length; i++)
+    {
+      chunk.addEntry(new EntryID(i + 1), entries[i]);
+    }
+    chunk.setLast();
+    assertThat(buckets.endReadChunk(computation, chunk)).isTrue();
+    return buckets.getChecksum();
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.backends.pluggable;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.Base64;
+import org.forgerock.opendj.ldap.ByteString;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.ImportLDIFReader.EntryInformation;
+import org.opends.server.types.LDIFImportConfig;
+import org.opends.server.util.LDIFException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("javadoc")
+@Test(groups = { "precommit", "pluggablebackend" }, sequential = true)
+public class ImportLDIFReaderTestCase extends DirectoryServerTestCase
+{
+  private static final DN BASE_DN = DN.valueOf("dc=example,dc=com");
+  private static final int NB_ENTRIES = 5000;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @Test
+  public void testReadEntriesConcurrentlyInFileOrder() throws Exception
+  {
+    final List<String> files = new ArrayList<>();
+    final List<DN> expectedDNs = new ArrayList<>();
+    files.add(writeLDIF(0, NB_ENTRIES / 2, expectedDNs));
+    files.add(writeLDIF(NB_ENTRIES / 2, NB_ENTRIES, expectedDNs));
+
+    final LDIFImportConfig importConfig = new LDIFImportConfig(files);
+    final ImportLDIFReader reader = new ImportLDIFReader(importConfig, newRootContainer());
+    final Map<DN, EntryContainer> entryContainers = Collections.singletonMap(BASE_DN, mock(EntryContainer.class));
+    final List<EntryInformation> entries = Collections.synchronizedList(new ArrayList<EntryInformation>());
+    final int nbThreads = 4;
+    final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+    try
+    {
+      final List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < nbThreads; i++)
+      {
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception
+          {
+            List<EntryInformation> batch;
+            while ((batch = reader.readEntries(entryContainers)) != null)
+            {
+              for (EntryInformation entryInfo : batch)
+              {
+                entries.add(entryInfo);
+                reader.removePending(entryInfo.getEntry().getName());
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures)
+      {
+        future.get();
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+      reader.close();
+    }
+
+    assertThat(reader.getEntriesRead()).isEqualTo(NB_ENTRIES + 1);
+    assertThat(reader.getEntriesRejected()).isEqualTo(0);
+    assertThat(entries).hasSize(NB_ENTRIES + 1);
+    final Map<Long, EntryInformation> entriesByID = new HashMap<>();
+    for (EntryInformation entryInfo : entries)
+    {
+      entriesByID.put(entryInfo.getEntryID().longValue(), entryInfo);
+    }
+    for (int i = 0; i < expectedDNs.size(); i++)
+    {
+      final EntryInformation entryInfo = entriesByID.get((long) i);
+      assertEquals(entryInfo.getEntry().getName(), expectedDNs.get(i));
+      if (i > 0)
+      {
+        assertThat(entryInfo.getEntry().parseAttribute("description").asString()).isEqualTo(description(i - 1));
+        assertThat(entryInfo.getEntry().parseAttribute("sn").asString()).isEqualTo("surname " + (i - 1));
+      }
+    }
+  }
+
+  @Test
+  public void testReadEntriesSkipsDuplicateAndInvalidEntries() throws Exception
+  {
+    final String ldif = "dn: dc=example,dc=com\n"
+        + "objectClass: top\n"
+        + "objectClass: domain\n"
+        + "\n"
+        + "dn: invalid\n"
+        + "objectClass: top\n"
+        + "\n"
+        + "dn: dc=example,dc=com\n"
+        + "objectClass: top\n"
+        + "objectClass: domain\n"
+        + "\n"
+        + "dn: ou=people,dc=example,dc=com\n"
+        + "objectClass: top\n"
+        + "objectClass: organizationalUnit\n";
+    final ImportLDIFReader reader =
+        new ImportLDIFReader(new LDIFImportConfig(new StringReader(ldif)), newRootContainer());
+    final List<EntryInformation> entries =
+        reader.readEntries(Collections.singletonMap(BASE_DN, mock(EntryContainer.class)));
+
+    assertThat(entries).hasSize(2);
+    assertEquals(entries.get(0).getEntry().getName(), BASE_DN);
+    assertEquals(entries.get(1).getEntry().getName(), DN.valueOf("ou=people,dc=example,dc=com"));
+    assertThat(reader.getEntriesRead()).isEqualTo(3);
+    assertThat(reader.getEntriesIgnored()).isEqualTo(1);
+    assertThat(reader.getEntriesRejected()).isEqualTo(1);
+    assertThat(reader.readEntries(Collections.singletonMap(BASE_DN, mock(EntryContainer.class)))).isNull();
+    reader.close();
+  }
+
+  @Test(expectedExceptions = LDIFException.class)
+  public void testReadEntriesWithInvalidLeadingSpace() throws Exception
+  {
+    final String ldif = "dn: dc=example,dc=com\n"
+        + "objectClass: top\n"
+        + "objectClass: domain\n"
+        + "\n"
+        + " objectClass: top\n";
+    try (ImportLDIFReader reader =
+        new ImportLDIFReader(new LDIFImportConfig(new StringReader(ldif)), newRootContainer()))
+    {
+      reader.readEntries(Collections.singletonMap(BASE_DN, mock(EntryContainer.class)));
+    }
+  }
+
+  @Test
+  public void testFindLastRecordBoundary()
+  {
+    final long[] lineCount = new long[1];
+    assertThat(findLastRecordBoundary("dn: dc=example\nobjectClass: top\n", lineCount)).isEqualTo(-1);
+    assertThat(findLastRecordBoundary("dn: a\n\ndn: b\n", lineCount)).isEqualTo(7);
+    assertThat(lineCount[0]).isEqualTo(2);
+    assertThat(findLastRecordBoundary("dn: a\r\n\r\ndn: b\r\n\r\ndn: c", lineCount)).isEqualTo(18);
+    assertThat(lineCount[0]).isEqualTo(4);
+    assertThat(findLastRecordBoundary("dn: a\r\r", lineCount)).isEqualTo(-1);
+    assertThat(findLastRecordBoundary("dn: a\r\rdn: b", lineCount)).isEqualTo(7);
+    assertThat(lineCount[0]).isEqualTo(2);
+    assertThat(findLastRecordBoundary("dn: a\n \ndn: b\n", lineCount)).isEqualTo(-1);
+  }
+
+  private static int findLastRecordBoundary(String chars, long[] lineCount)
+  {
+    return ImportLDIFReader.findLastRecordBoundary(chars.toCharArray(), chars.length(), lineCount);
+  }
+
+  private static RootContainer newRootContainer()
+  {
+    final AtomicLong nextEntryID = new AtomicLong();
+    final RootContainer rootContainer = mock(RootContainer.class);
+    when(rootContainer.getNextEntryID()).thenAnswer(new Answer<EntryID>()
+    {
+      @Override
+      public EntryID answer(InvocationOnMock invocation)
+      {
+        return new EntryID(nextEntryID.getAndIncrement());
+      }
+    });
+    return rootContainer;
+  }
+
+  private static String description(int i)
+  {
+    final StringBuilder builder = new StringBuilder();
+    for (int j = 0; j < 100; j++)
+    {
+      builder.append("description of entry ").append(i).append(' ');
+    }
+    return builder.toString();
+  }
+
+  /** Writes entries using comments, folded lines, base64 values and both kinds of line separators. */
+  private static String writeLDIF(int from, int to, List<DN> dns) throws Exception
+  {
+    final File file = File.createTempFile("ImportLDIFReaderTestCase", ".ldif");
+    file.deleteOnExit();
+    try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))
+    {
+      if (from == 0)
+      {
+        writer.write("version: 1\n\n# The base entry\ndn: dc=example,dc=com\nobjectClass: top\nobjectClass: domain\n\n");
+        dns.add(BASE_DN);
+      }
+      for (int i = from; i < to; i++)
+      {
+        final String eol = i % 3 == 0 ? "\r\n" : "\n";
+        final String dn = "uid=user." + i + ",dc=example,dc=com";
+        dns.add(DN.valueOf(dn));
+        if (i % 2 == 0)
+        {
+          writer.write("dn:: " + Base64.encode(ByteString.valueOfUtf8(dn)) + eol);
+        }
+        else
+        {
+          writer.write("dn: uid=user." + i + "," + eol + " dc=example,dc=com" + eol);
+        }
+        writer.write("# A comment" + eol);
+        writer.write("objectClass: top" + eol + "objectClass: person" + eol + "objectClass: inetOrgPerson" + eol);
+        writer.write("cn: user " + i + eol + "sn: surname" + eol + "\t " + i + eol);
+        final String description = description(i);
+        if (i % 5 == 0)
+        {
+          writer.write("description:: " + Base64.encode(ByteString.valueOfUtf8(description)) + eol);
+        }
+        else
+        {
+          writer.write("description: " + description.substring(0, 50) + eol);
+          for (int j = 50; j < description.length(); j += 70)
+          {
+            writer.write(" " + description.substring(j, Math.min(j + 70, description.length())) + eol);
+          }
+        }
+        writer.write(eol);
+      }
+    }
+    return file.getPath();
+  }
+}
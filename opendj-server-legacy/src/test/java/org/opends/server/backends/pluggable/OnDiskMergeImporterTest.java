@@ -39,6 +39,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -76,6 +77,7 @@ import org.opends.server.backends.pluggable.OnDiskMergeImporter.ExternalSortChun
 import org.opends.server.backends.pluggable.OnDiskMergeImporter.ExternalSortChunk.CompositeCursor;
 import org.opends.server.backends.pluggable.OnDiskMergeImporter.ExternalSortChunk.FileRegion;
 import org.opends.server.backends.pluggable.OnDiskMergeImporter.ExternalSortChunk.InMemorySortedChunk;
+import org.opends.server.backends.pluggable.OnDiskMergeImporter.ExternalSortStatistics;
 import org.opends.server.backends.pluggable.OnDiskMergeImporter.MeteredCursor;
 import org.opends.server.backends.pluggable.OnDiskMergeImporter.StrategyImpl;
 import org.opends.server.backends.pluggable.OnDiskMergeImporter.UniqueValueCollector;
@@ -549,11 +551,12 @@ public class OnDiskMergeImporterTest extends DirectoryServerTestCase
     long offset = 0;
     for (Chunk source : memoryChunks)
     {
-      try(final FileRegion region = new FileRegion(channel, offset, source.size());
+      final long regionSize = FileRegion.maxRegionSize(source.size());
+      try(final FileRegion region = new FileRegion(channel, offset, regionSize);
           final SequentialCursor<ByteString, ByteString> cursor = source.flip()) {
         regions.add(Pair.of(offset, region.write(cursor)));
       }
-      offset += source.size();
+      offset += regionSize;
     }
 
     // Verify file regions contents
@@ -561,6 +564,7 @@ public class OnDiskMergeImporterTest extends DirectoryServerTestCase
     final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, offset);
     for (Pair<Long, Integer> region : regions)
     {
+      buffer.limit(buffer.capacity());
       buffer.position(region.getFirst().intValue()).limit(buffer.position() + region.getSecond());
       assertThat(toPairs(new FileRegion.Cursor("test", buffer.slice())))
           .containsExactlyElementsOf(content(contents[regionNumber]));
@@ -580,7 +584,7 @@ public class OnDiskMergeImporterTest extends DirectoryServerTestCase
       // 4: record offset, 4: key length, 4: value length, 4: value
       final ExternalSortChunk chunk =
           new ExternalSortChunk(tempDir, "test", bufferPool, StringConcatCollector.INSTANCE,
-              StringConcatCollector.INSTANCE, new ForkJoinPool());
+              StringConcatCollector.INSTANCE, new ForkJoinPool(), 64, new ExternalSortStatistics());
 
       List<ByteString> expected = new ArrayList<>(NB_REGION);
       for (int i = 0; i < NB_REGION; i++)
@@ -598,6 +602,73 @@ public class OnDiskMergeImporterTest extends DirectoryServerTestCase
     }
   }
 
+  @Test
+  public void testExternalSortChunkMergesRunsInSeveralPasses() throws Exception
+  {
+    final int NB_REGION = 10;
+    final int NB_RECORDS = 5;
+    final File tempDir = TestCaseUtils.createTemporaryDirectory("testExternalSortChunkMergesRunsInSeveralPasses");
+    final ExternalSortStatistics statistics = new ExternalSortStatistics();
+    try (final BufferPool bufferPool = new BufferPool(2, NB_RECORDS * (4 + 4 + 10 + 4 + 2), false))
+    {
+      // 4: record offset, 4: key length, 10: key, 4: value length, 2: value
+      final ExternalSortChunk chunk =
+          new ExternalSortChunk(tempDir, "test", bufferPool, StringConcatCollector.INSTANCE,
+              StringConcatCollector.INSTANCE, new ForkJoinPool(), 2, statistics);
+
+      final Map<ByteString, List<ByteString>> expectedValues = new HashMap<>();
+      for (int region = 0; region < NB_REGION; region++)
+      {
+        for (int record = 0; record < NB_RECORDS; record++)
+        {
+          final ByteString key = ByteString.valueOfUtf8(String.format("key-%06d", (record * 7 + region) % 20));
+          final ByteString value = ByteString.valueOfUtf8(String.format("%02d", region));
+          chunk.put(key, value);
+          if (!expectedValues.containsKey(key))
+          {
+            expectedValues.put(key, new ArrayList<ByteString>());
+          }
+          expectedValues.get(key).add(value);
+        }
+      }
+      final List<Pair<ByteString, ByteString>> expected = new ArrayList<>();
+      for (Map.Entry<ByteString, List<ByteString>> keyValues : expectedValues.entrySet())
+      {
+        expected.add(Pair.of(keyValues.getKey(), StringConcatCollector.INSTANCE.merge(keyValues.getValue())));
+      }
+      Collections.sort(expected, new Comparator<Pair<ByteString, ByteString>>()
+      {
+        @Override
+        public int compare(Pair<ByteString, ByteString> o1, Pair<ByteString, ByteString> o2)
+        {
+          return o1.getFirst().compareTo(o2.getFirst());
+        }
+      });
+
+      assertThat(chunk.getNbSortedChunks()).isEqualTo(NB_REGION);
+      try (final SequentialCursor<ByteString, ByteString> cursor = chunk.flip())
+      {
+        // Intermediate passes concatenate already concatenated values: compare them regardless of their order
+        final List<Pair<ByteString, ByteString>> actual = new ArrayList<>();
+        for (Pair<ByteString, ByteString> keyValue : toPairs(cursor))
+        {
+          final List<ByteString> values = new ArrayList<>();
+          for (String value : keyValue.getSecond().toString().split("-"))
+          {
+            values.add(ByteString.valueOfUtf8(value));
+          }
+          actual.add(Pair.of(keyValue.getFirst(), StringConcatCollector.INSTANCE.merge(values)));
+        }
+        assertThat(actual).containsExactlyElementsOf(expected);
+      }
+    }
+    assertThat(statistics.getNbSpilledRuns()).isEqualTo(NB_REGION + 1);
+    assertThat(statistics.getSpilledBytes()).isLessThan(statistics.getSpilledRecordsSize());
+    // 11 runs (the last one is spilled on flip) are merged into 6, 3 and 2 runs, and finally into the cursor
+    assertThat(statistics.getMaxMergePasses()).isEqualTo(4);
+    assertThat(statistics.getMergedBytes()).isGreaterThan(0);
+  }
+
   private final static List<Pair<ByteString, ByteString>> content(String[]... data)
   {
     final List<Pair<ByteString, ByteString>> content = new ArrayList<>(data.length);
@@ -32,6 +32,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -154,6 +155,7 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     when(backendCfg.getBaseDN()).thenReturn(newTreeSet(testBaseDN));
     when(backendCfg.listBackendIndexes()).thenReturn(backendIndexes.keySet().toArray(new String[0]));
     when(backendCfg.listBackendVLVIndexes()).thenReturn(backendVlvIndexes);
+    when(backendCfg.getImportMergeFanIn()).thenReturn(64);
 
     for (Map.Entry<String, IndexType[]> index : backendIndexes.entrySet())
     {
@@ -775,6 +777,47 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     assertNull(backend.getEntry(workEntries.get(1).getName()));
   }
 
+  @Test
+  public void testDataChecksum() throws Exception
+  {
+    assertTrue(backend.computeDataChecksum(testBaseDN));
+    final DataChecksum initialChecksum = backend.getDataChecksum(testBaseDN);
+    assertNotNull(initialChecksum);
+
+    // the checksum is maintained by write operations
+    Entry entry = workEntries.get(0);
+    Entry modifiedEntry = entry.duplicate(false);
+    List<Modification> mods = Arrays.asList(new Modification(REPLACE, create("sn", "Checksum")));
+    modifiedEntry.applyModifications(mods);
+    ModifyOperation modifyOp = mock(ModifyOperation.class);
+    when(modifyOp.getModifications()).thenReturn(mods);
+    backend.replaceEntry(entry, modifiedEntry, modifyOp);
+    final DataChecksum modifiedChecksum = backend.getDataChecksum(testBaseDN);
+    assertNotEquals(modifiedChecksum, initialChecksum);
+
+    // the maintained checksum is the one computed from scratch
+    backend.closeBackend();
+    backend.openBackend();
+    assertNull(backend.getDataChecksum(testBaseDN));
+    assertTrue(backend.computeDataChecksum(testBaseDN));
+    assertEquals(backend.getDataChecksum(testBaseDN), modifiedChecksum);
+
+    backend.replaceEntry(modifiedEntry, entry, modifyOp);
+    assertEquals(backend.getDataChecksum(testBaseDN), initialChecksum);
+
+    // renaming a subtree changes the DN of all its entries
+    DN prevDN = DN.valueOf("ou=People," + testBaseDN);
+    DN newDN = DN.valueOf("ou=users," + testBaseDN);
+    Entry renameEntry = backend.getEntry(prevDN).duplicate(false);
+    ModifyDNOperation modifyDNOp = mock(ModifyDNOperation.class);
+    renameEntry.setDN(newDN);
+    backend.renameEntry(prevDN, renameEntry, modifyDNOp);
+    assertNotEquals(backend.getDataChecksum(testBaseDN), initialChecksum);
+    renameEntry.setDN(prevDN);
+    backend.renameEntry(newDN, renameEntry, modifyDNOp);
+    assertEquals(backend.getDataChecksum(testBaseDN), initialChecksum);
+  }
+
   @Test
   public void testBaseSearch() throws Exception
   {
@@ -990,6 +1033,81 @@ public abstract class PluggableBackendImplTestCase<C extends PluggableBackendCfg
     assertThat(backend.verifyBackend(config)).isEqualTo(0);
   }
 
+  @Test
+  public void testExportEntryRecordsAndImportEntryRecords() throws Exception
+  {
+    final Entry expected = backend.getEntry(searchDN);
+    final EntryRecordExport export = backend.newEntryRecordExport(testBaseDN);
+    final long highestEntryID = export.getHighestEntryID();
+    assertThat(highestEntryID).isGreaterThanOrEqualTo(getTotalNumberOfLDIFEntries());
+
+    // Two streams of small batches, interleaved like the replication initialization does
+    final long[] next = { 1, highestEntryID / 2 + 1 };
+    final long[] end = { highestEntryID / 2 + 1, Long.MAX_VALUE };
+    final List<EntryRecordBatch> batches = new ArrayList<>();
+    int nbEntries = 0;
+    for (boolean read = true; read;)
+    {
+      read = false;
+      for (int stream = 0; stream < next.length; stream++)
+      {
+        final EntryRecordBatch batch = export.readBatch(next[stream], end[stream], 1024);
+        if (batch != null)
+        {
+          assertThat(batch.getLastEntryID()).isGreaterThanOrEqualTo(next[stream]).isLessThan(end[stream]);
+          next[stream] = batch.getLastEntryID() + 1;
+          nbEntries += batch.getNbEntries();
+          batches.add(batch.withSchemaDefinitions(export.takeSchemaDefinitions()));
+          read = true;
+        }
+      }
+    }
+    assertEquals(nbEntries, getTotalNumberOfLDIFEntries());
+    assertThat(batches.size()).isGreaterThan(2);
+
+    backend.finalizeBackend();
+
+    final Iterator<EntryRecordBatch> it = batches.iterator();
+    ByteArrayOutputStream rejectedEntries = new ByteArrayOutputStream();
+    try (final LDIFImportConfig importConf = new LDIFImportConfig(new ByteArrayInputStream(new byte[0])))
+    {
+      importConf.setClearBackend(true);
+      importConf.writeRejectedEntries(rejectedEntries);
+      importConf.setIncludeBranches(Collections.singleton(testBaseDN));
+      importConf.setThreadCount(0);
+      backend.importEntryRecords(importConf, new EntryRecordSource()
+      {
+        @Override
+        public EntryRecordBatch nextBatch()
+        {
+          return it.hasNext() ? it.next() : null;
+        }
+      }, TestCaseUtils.getServerContext());
+    }
+    assertEquals(rejectedEntries.size(), 0,
+                 "No entries should be rejected. Content was:\n" + rejectedEntries.toString());
+
+    backend.openBackend();
+    assertEquals(backend.getNumberOfEntriesInBaseDN(testBaseDN), getTotalNumberOfLDIFEntries(),
+                 "Not enough entries in DIT.");
+    assertThat(backend.getEntry(searchDN)).isEqualTo(expected);
+
+    VerifyConfig config = new VerifyConfig();
+    config.setBaseDN(testBaseDN);
+    config.addCompleteIndex("dn2id");
+    for (String indexName : backendIndexes.keySet())
+    {
+      config.addCompleteIndex(indexName);
+    }
+    assertThat(backend.verifyBackend(config)).isEqualTo(0);
+  }
+
+  @Test(expectedExceptions = DirectoryException.class)
+  public void testNewEntryRecordExportUnknownBaseDN() throws Exception
+  {
+    backend.newEntryRecordExport(DN.valueOf("dc=unknown,dc=com"));
+  }
+
   @Test
   public void testRebuildAllIndex() throws Exception
   {
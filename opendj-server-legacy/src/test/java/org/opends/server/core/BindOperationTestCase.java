@@ -38,15 +38,21 @@ import com.forgerock.opendj.ldap.tools.LDAPDelete;
 import com.forgerock.opendj.ldap.tools.LDAPModify;
 import com.forgerock.opendj.ldap.tools.LDAPSearch;
 import org.opends.server.tools.RemoteConnection;
+import org.opends.server.types.Attribute;
+import org.opends.server.types.Attributes;
 import org.opends.server.types.AuthenticationInfo;
 import org.opends.server.types.AuthenticationType;
 import org.opends.server.types.CancelRequest;
 import org.opends.server.types.Control;
 import org.opends.server.types.Operation;
 import org.opends.server.types.OperationType;
+import org.opends.server.util.TestTimer;
+import org.opends.server.util.TestTimer.CallableVoid;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import static java.util.concurrent.TimeUnit.*;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.forgerock.opendj.ldap.ModificationType.*;
 import static org.forgerock.opendj.ldap.requests.Requests.*;
@@ -1782,6 +1788,144 @@ public class BindOperationTestCase
     }
   }
 
+  /**
+   * Tests that the last login times are written asynchronously when the
+   * password policy allows delaying their update.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testDelayedLastLoginTimeUpdate()
+         throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+
+    TestCaseUtils.applyModifications(false,
+      "dn: uid=test.user,o=test",
+      "changetype: add",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: test.user",
+      "givenName: Test",
+      "sn: User",
+      "cn: Test User",
+      "userPassword: password");
+    TestCaseUtils.applyModifications(true,
+      "dn: cn=Default Password Policy,cn=Password Policies,cn=config",
+      "changetype: modify",
+      "replace: ds-cfg-last-login-time-attribute",
+      "ds-cfg-last-login-time-attribute: ds-pwp-last-login-time",
+      "-",
+      "replace: ds-cfg-last-login-time-format",
+      "ds-cfg-last-login-time-format: yyyyMMddHHmmss'Z'",
+      "-",
+      "replace: ds-cfg-last-login-time-update-interval",
+      "ds-cfg-last-login-time-update-interval: 1 s",
+      "-",
+      "replace: ds-cfg-state-update-failure-policy",
+      "ds-cfg-state-update-failure-policy: reactive",
+      "",
+      "dn: cn=config",
+      "changetype: modify",
+      "replace: ds-cfg-writability-mode",
+      "ds-cfg-writability-mode: disabled"
+    );
+
+    try
+    {
+      String[] args =
+      {
+        "-h", "127.0.0.1",
+        "-p", String.valueOf(TestCaseUtils.getServerLdapPort()),
+        "-D", "uid=test.user,o=test",
+        "-w", "password",
+        "-b", "",
+        "-s", "base",
+        "(objectClass=*)"
+      };
+
+      // The bind does not need to write the last login time
+      assertEquals(LDAPSearch.run(nullPrintStream(), System.err, args), 0);
+
+      TestCaseUtils.applyModifications(true,
+        "dn: cn=config",
+        "changetype: modify",
+        "replace: ds-cfg-writability-mode",
+        "ds-cfg-writability-mode: enabled");
+      assertEquals(LDAPSearch.run(nullPrintStream(), System.err, args), 0);
+
+      final DN userDN = DN.valueOf("uid=test.user,o=test");
+      new TestTimer.Builder()
+        .maxSleep(10, SECONDS)
+        .sleepTimes(100, MILLISECONDS)
+        .toTimer()
+        .repeatUntilSuccess(new CallableVoid()
+        {
+          @Override
+          public void call() throws Exception
+          {
+            assertTrue(DirectoryServer.getEntry(userDN).hasAttribute(
+                DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType("ds-pwp-last-login-time")));
+          }
+        });
+    }
+    finally
+    {
+      TestCaseUtils.applyModifications(true,
+        "dn: cn=config",
+        "changetype: modify",
+        "replace: ds-cfg-writability-mode",
+        "ds-cfg-writability-mode: enabled",
+        "",
+        "dn: cn=Default Password Policy,cn=Password Policies,cn=config",
+        "changetype: modify",
+        "replace: ds-cfg-last-login-time-attribute",
+        "-",
+        "replace: ds-cfg-last-login-time-format",
+        "-",
+        "replace: ds-cfg-last-login-time-update-interval",
+        "-",
+        "replace: ds-cfg-state-update-failure-policy",
+        "ds-cfg-state-update-failure-policy: reactive"
+      );
+    }
+  }
+
+  /**
+   * Tests that the binds of other users update their entries themselves once
+   * too many last login time updates are pending.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testPendingLastLoginTimeUpdatesAreBounded()
+         throws Exception
+  {
+    final DN user1DN = DN.valueOf("uid=user.1,o=test");
+    final DN user2DN = DN.valueOf("uid=user.2,o=test");
+    final Attribute loginTime1 = Attributes.create("ds-pwp-last-login-time", "20260101000000Z");
+    final Attribute loginTime2 = Attributes.create("ds-pwp-last-login-time", "20260101000001Z");
+
+    // Not started, so that the updates remain pending
+    final LastLoginTimeUpdater updater = new LastLoginTimeUpdater(1);
+    try
+    {
+      assertTrue(updater.updateLastLoginTime(user1DN, loginTime1, 60000));
+      assertFalse(updater.updateLastLoginTime(user2DN, loginTime1, 60000));
+      assertNull(updater.getPendingLastLoginTime(user2DN));
+
+      // The pending update of a user can still be replaced
+      assertTrue(updater.updateLastLoginTime(user1DN, loginTime2, 60000));
+      assertEquals(updater.getPendingLastLoginTime(user1DN), loginTime2);
+    }
+    finally
+    {
+      DirectoryServer.deregisterShutdownListener(updater);
+    }
+  }
+
   /**
    * Tests to ensure that the "proactive" password policy state update policy
    * works as expected.
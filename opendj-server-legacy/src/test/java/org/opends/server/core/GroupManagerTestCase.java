@@ -28,7 +28,9 @@ import org.forgerock.opendj.ldap.requests.ModifyRequest;
 import org.opends.server.TestCaseUtils;
 import org.forgerock.opendj.server.config.server.GroupImplementationCfg;
 import org.opends.server.api.Group;
+import org.opends.server.backends.MemoryBackend;
 import org.opends.server.extensions.DynamicGroup;
+import org.opends.server.extensions.SimpleStaticGroupMemberList;
 import org.opends.server.extensions.StaticGroup;
 import org.opends.server.extensions.VirtualStaticGroup;
 import org.opends.server.protocols.internal.InternalClientConnection;
@@ -41,6 +43,7 @@ import org.opends.server.types.Entry;
 import org.opends.server.types.MemberList;
 import org.opends.server.types.MembershipException;
 import org.opends.server.types.SearchFilter;
+import org.opends.server.util.TestTimer;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -50,6 +53,7 @@ import static org.forgerock.opendj.ldap.requests.Requests.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
 import static org.opends.server.protocols.internal.Requests.*;
 import static org.opends.server.types.NullOutputStream.nullPrintStream;
+import static java.util.concurrent.TimeUnit.*;
 import static org.opends.server.util.ServerConstants.*;
 import static org.testng.Assert.*;
 
@@ -2164,6 +2168,257 @@ public class GroupManagerTestCase
     assertNull(groupManager.getGroupInstance(groupDN));
   }
 
+  /**
+   * Tests that the members of a dynamic group are maintained as entries are
+   * added, modified, deleted and renamed when they are materialized.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testMaterializedDynamicGroup() throws Exception
+  {
+    TestCaseUtils.clearBackend("userRoot", "dc=example,dc=com");
+
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+
+    TestCaseUtils.dsconfig(
+        "set-group-implementation-prop",
+        "--implementation-name", "Dynamic",
+        "--set", "materialize-members:true");
+    try
+    {
+      TestCaseUtils.addEntries(
+        "dn: ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: People",
+        "",
+        "dn: uid=user.1,ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.1",
+        "givenName: User",
+        "sn: 1",
+        "cn: User 1",
+        "",
+        "dn: uid=user.2,ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.2",
+        "givenName: User",
+        "sn: 2",
+        "cn: User 2",
+        "",
+        "dn: uid=user.3,ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.3",
+        "givenName: User",
+        "sn: 3",
+        "cn: User 3",
+        "",
+        "dn: cn=Test Group of URLs,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: groupOfURLs",
+        "cn: Test Group of URLs",
+        "memberURL: ldap:///ou=People,dc=example,dc=com??sub?(sn<=2)");
+
+      DN groupDN = DN.valueOf("cn=Test Group of URLs,dc=example,dc=com");
+      Group<?> groupInstance = groupManager.getGroupInstance(groupDN);
+      assertNotNull(groupInstance);
+      assertTrue(groupInstance.maintainsMemberList());
+      assertMembers(groupInstance, "uid=user.1,ou=People,dc=example,dc=com", "uid=user.2,ou=People,dc=example,dc=com");
+
+      // The members are searched in the background, then listed from memory and reverse indexed
+      waitForMaterializedMembers(groupInstance);
+      Entry user1 = DirectoryServer.getEntry(DN.valueOf("uid=user.1,ou=People,dc=example,dc=com"));
+      assertTrue(groupManager.getGroupMemberships(user1).contains(groupDN));
+
+      TestCaseUtils.addEntry(
+        "dn: uid=user.4,ou=People,dc=example,dc=com",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.4",
+        "givenName: User",
+        "sn: 0",
+        "cn: User 4");
+      assertMembers(groupInstance, "uid=user.1,ou=People,dc=example,dc=com", "uid=user.2,ou=People,dc=example,dc=com",
+          "uid=user.4,ou=People,dc=example,dc=com");
+
+      ModifyOperation modifyOperation = getRootConnection().processModify(
+          newModifyRequest("uid=user.1,ou=People,dc=example,dc=com").addModification(REPLACE, "sn", "5"));
+      assertEquals(modifyOperation.getResultCode(), ResultCode.SUCCESS);
+      modifyOperation = getRootConnection().processModify(
+          newModifyRequest("uid=user.3,ou=People,dc=example,dc=com").addModification(REPLACE, "sn", "1"));
+      assertEquals(modifyOperation.getResultCode(), ResultCode.SUCCESS);
+      assertMembers(groupInstance, "uid=user.2,ou=People,dc=example,dc=com", "uid=user.3,ou=People,dc=example,dc=com",
+          "uid=user.4,ou=People,dc=example,dc=com");
+      user1 = DirectoryServer.getEntry(DN.valueOf("uid=user.1,ou=People,dc=example,dc=com"));
+      assertFalse(groupManager.getGroupMemberships(user1).contains(groupDN));
+
+      DeleteOperation deleteOperation = getRootConnection().processDelete("uid=user.2,ou=People,dc=example,dc=com");
+      assertEquals(deleteOperation.getResultCode(), ResultCode.SUCCESS);
+      ModifyDNOperation modifyDNOperation = getRootConnection().processModifyDN(
+          DN.valueOf("uid=user.4,ou=People,dc=example,dc=com"), RDN.valueOf("uid=user.5"), true);
+      assertEquals(modifyDNOperation.getResultCode(), ResultCode.SUCCESS);
+      assertMembers(groupInstance, "uid=user.3,ou=People,dc=example,dc=com", "uid=user.5,ou=People,dc=example,dc=com");
+
+      // Renaming a subtree renames the members below it
+      modifyDNOperation = getRootConnection().processModifyDN(
+          DN.valueOf("ou=People,dc=example,dc=com"), RDN.valueOf("ou=Persons"), true);
+      assertEquals(modifyDNOperation.getResultCode(), ResultCode.SUCCESS);
+      assertMembers(groupInstance);
+      assertFalse(groupInstance.isMember(DN.valueOf("uid=user.3,ou=Persons,dc=example,dc=com")));
+
+      modifyDNOperation = getRootConnection().processModifyDN(
+          DN.valueOf("ou=Persons,dc=example,dc=com"), RDN.valueOf("ou=People"), true);
+      assertEquals(modifyDNOperation.getResultCode(), ResultCode.SUCCESS);
+      assertMembers(groupInstance, "uid=user.3,ou=People,dc=example,dc=com", "uid=user.5,ou=People,dc=example,dc=com");
+      waitForMaterializedMembers(groupInstance);
+      assertMembers(groupInstance, "uid=user.3,ou=People,dc=example,dc=com", "uid=user.5,ou=People,dc=example,dc=com");
+      assertTrue(groupInstance.isMember(DN.valueOf("uid=user.5,ou=People,dc=example,dc=com")));
+
+      deleteOperation = getRootConnection().processDelete(groupDN);
+      assertEquals(deleteOperation.getResultCode(), ResultCode.SUCCESS);
+      assertNull(groupManager.getGroupInstance(groupDN));
+    }
+    finally
+    {
+      TestCaseUtils.clearBackend("userRoot");
+      TestCaseUtils.dsconfig(
+          "set-group-implementation-prop",
+          "--implementation-name", "Dynamic",
+          "--set", "materialize-members:false");
+    }
+  }
+
+  /**
+   * Tests that changing whether dynamic group members are materialized applies
+   * to the existing groups, and that the materialized members are searched
+   * again after a backend has been initialized.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testMaterializedDynamicGroupReload() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+
+    GroupManager groupManager = DirectoryServer.getGroupManager();
+    groupManager.deregisterAllGroups();
+
+    TestCaseUtils.addEntries(
+      "dn: uid=user.1,o=test",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: user.1",
+      "givenName: User",
+      "sn: 1",
+      "cn: User 1",
+      "",
+      "dn: uid=user.2,o=test",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: user.2",
+      "givenName: User",
+      "sn: 2",
+      "cn: User 2",
+      "",
+      "dn: cn=Test Group of URLs,o=test",
+      "objectClass: top",
+      "objectClass: groupOfURLs",
+      "cn: Test Group of URLs",
+      "memberURL: ldap:///o=test??one?(objectClass=person)");
+
+    DN groupDN = DN.valueOf("cn=Test Group of URLs,o=test");
+    assertFalse(groupManager.getGroupInstance(groupDN).maintainsMemberList());
+
+    TestCaseUtils.dsconfig(
+        "set-group-implementation-prop",
+        "--implementation-name", "Dynamic",
+        "--set", "materialize-members:true");
+    try
+    {
+      Group<?> groupInstance = groupManager.getGroupInstance(groupDN);
+      assertTrue(groupInstance.maintainsMemberList());
+      assertMembers(groupInstance, "uid=user.1,o=test", "uid=user.2,o=test");
+      waitForMaterializedMembers(groupInstance);
+
+      // Delete an entry without reporting it, as an import would
+      MemoryBackend memoryBackend =
+          (MemoryBackend) TestCaseUtils.getServerContext().getBackendConfigManager().getLocalBackendById("test");
+      memoryBackend.deleteEntry(DN.valueOf("uid=user.2,o=test"), null);
+      assertMembers(groupInstance, "uid=user.1,o=test", "uid=user.2,o=test");
+
+      groupManager.performBackendPostInitializationProcessing(memoryBackend);
+      assertMembers(groupInstance, "uid=user.1,o=test");
+      waitForMaterializedMembers(groupInstance);
+      assertMembers(groupInstance, "uid=user.1,o=test");
+      Entry user1 = DirectoryServer.getEntry(DN.valueOf("uid=user.1,o=test"));
+      assertTrue(groupManager.getGroupMemberships(user1).contains(groupDN));
+    }
+    finally
+    {
+      TestCaseUtils.dsconfig(
+          "set-group-implementation-prop",
+          "--implementation-name", "Dynamic",
+          "--set", "materialize-members:false");
+    }
+    assertFalse(groupManager.getGroupInstance(groupDN).maintainsMemberList());
+    TestCaseUtils.initializeTestBackend(true);
+  }
+
+  private void waitForMaterializedMembers(final Group<?> groupInstance) throws Exception
+  {
+    TestTimer timer = new TestTimer.Builder()
+      .maxSleep(10, SECONDS)
+      .sleepTimes(100, MILLISECONDS)
+      .toTimer();
+    timer.repeatUntilSuccess(new TestTimer.CallableVoid()
+    {
+      @Override
+      public void call() throws Exception
+      {
+        try (MemberList memberList = groupInstance.getMembers())
+        {
+          assertTrue(memberList instanceof SimpleStaticGroupMemberList);
+        }
+      }
+    });
+  }
+
+  private void assertMembers(Group<?> groupInstance, String... expectedMemberDNs) throws Exception
+  {
+    Set<DN> memberDNs = new LinkedHashSet<>();
+    try (MemberList memberList = groupInstance.getMembers())
+    {
+      while (memberList.hasMoreMembers())
+      {
+        memberDNs.add(memberList.nextMemberDN());
+      }
+    }
+
+    Set<DN> expected = new LinkedHashSet<>();
+    for (String memberDN : expectedMemberDNs)
+    {
+      expected.add(DN.valueOf(memberDN));
+    }
+    assertEquals(memberDNs, expected);
+  }
+
   /**
    * Tests subtree delete operation on groups tree.
    *
@@ -18,6 +18,13 @@ package org.opends.server.core;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.AttributeDescription;
@@ -4781,6 +4788,215 @@ public class PasswordPolicyTestCase
 
 
 
+  /**
+   * Tests that the verified passwords are cached when the password policy
+   * enables it, and that changing the password of a user invalidates them.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testVerifiedPasswordCache()
+         throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntry(
+      "dn: uid=test.user,o=test",
+      "objectClass: top",
+      "objectClass: person",
+      "objectClass: organizationalPerson",
+      "objectClass: inetOrgPerson",
+      "uid: test.user",
+      "givenName: Test",
+      "sn: User",
+      "cn: Test User",
+      "userPassword: originalPassword");
+    DN userDN = DN.valueOf("uid=test.user,o=test");
+    PasswordVerifier verifier = PasswordVerifier.getInstance();
+
+    PasswordPolicy p = DirectoryServer.getDefaultPasswordPolicy();
+    assertEquals(p.getVerifiedPasswordCacheTTL(), 0);
+    assertNull(p.getVerifiedPasswordCache());
+
+    TestCaseUtils.dsconfig(
+      "set-password-policy-prop",
+      "--policy-name", "Default Password Policy",
+      "--set", "verified-password-cache-ttl:60 s");
+
+    try
+    {
+      p = DirectoryServer.getDefaultPasswordPolicy();
+      assertEquals(p.getVerifiedPasswordCacheTTL(), 60);
+      assertNotNull(p.getVerifiedPasswordCache());
+
+      Entry userEntry = DirectoryServer.getEntry(userDN);
+      ByteString password = ByteString.valueOfUtf8("originalPassword");
+      long hits = verifier.getCacheHits();
+      assertTrue(p.createAuthenticationPolicyState(userEntry).passwordMatches(password));
+      assertEquals(verifier.getCacheHits(), hits);
+      assertTrue(p.createAuthenticationPolicyState(userEntry).passwordMatches(password));
+      assertEquals(verifier.getCacheHits(), hits + 1);
+      assertFalse(p.createAuthenticationPolicyState(userEntry).passwordMatches(
+          ByteString.valueOfUtf8("wrongPassword")));
+
+      assertEquals(TestCaseUtils.applyModifications(false,
+        "dn: uid=test.user,o=test",
+        "changetype: modify",
+        "replace: userPassword",
+        "userPassword: newPassword"), 0);
+
+      userEntry = DirectoryServer.getEntry(userDN);
+      hits = verifier.getCacheHits();
+      assertFalse(p.createAuthenticationPolicyState(userEntry).passwordMatches(password));
+      assertTrue(p.createAuthenticationPolicyState(userEntry).passwordMatches(
+          ByteString.valueOfUtf8("newPassword")));
+      assertEquals(verifier.getCacheHits(), hits);
+    }
+    finally
+    {
+      TestCaseUtils.dsconfig(
+        "set-password-policy-prop",
+        "--policy-name", "Default Password Policy",
+        "--set", "verified-password-cache-ttl:0 s");
+    }
+    assertNull(DirectoryServer.getDefaultPasswordPolicy().getVerifiedPasswordCache());
+  }
+
+
+
+  /**
+   * Tests that the number of password verification threads can be configured,
+   * and that cheap and expensive verifications are both performed.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testPasswordVerificationThreads()
+         throws Exception
+  {
+    PasswordVerifier verifier = PasswordVerifier.getInstance();
+    assertEquals(verifier.getThreadCount(), PasswordVerifier.getDefaultThreadCount());
+
+    TestCaseUtils.dsconfig(
+      "set-global-configuration-prop",
+      "--set", "num-password-verification-threads:3");
+    try
+    {
+      assertEquals(verifier.getThreadCount(), 3);
+      assertTrue(verifier.verify(new Callable<Boolean>()
+      {
+        @Override
+        public Boolean call()
+        {
+          return true;
+        }
+      }, true));
+      assertFalse(verifier.verify(new Callable<Boolean>()
+      {
+        @Override
+        public Boolean call()
+        {
+          return false;
+        }
+      }, false));
+    }
+    finally
+    {
+      TestCaseUtils.dsconfig(
+        "set-global-configuration-prop",
+        "--reset", "num-password-verification-threads");
+    }
+    assertEquals(verifier.getThreadCount(), PasswordVerifier.getDefaultThreadCount());
+  }
+
+
+
+  /**
+   * Tests that no more expensive verifications than the number of password
+   * verification threads run concurrently, while cheap verifications always
+   * run immediately.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testExpensiveVerificationsWaitForTheirTurn()
+         throws Exception
+  {
+    final PasswordVerifier verifier = PasswordVerifier.getInstance();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch finish = new CountDownLatch(1);
+    final AtomicBoolean secondRan = new AtomicBoolean();
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    TestCaseUtils.dsconfig(
+      "set-global-configuration-prop",
+      "--set", "num-password-verification-threads:1");
+    try
+    {
+      Future<Boolean> first = executor.submit(new Callable<Boolean>()
+      {
+        @Override
+        public Boolean call()
+        {
+          return verifier.verify(new Callable<Boolean>()
+          {
+            @Override
+            public Boolean call() throws Exception
+            {
+              started.countDown();
+              return finish.await(10, TimeUnit.SECONDS);
+            }
+          }, true);
+        }
+      });
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+
+      Future<Boolean> second = executor.submit(new Callable<Boolean>()
+      {
+        @Override
+        public Boolean call()
+        {
+          return verifier.verify(new Callable<Boolean>()
+          {
+            @Override
+            public Boolean call()
+            {
+              secondRan.set(true);
+              return true;
+            }
+          }, true);
+        }
+      });
+      for (int i = 0; i < 100 && verifier.getPendingVerifications() == 0; i++)
+      {
+        Thread.sleep(100);
+      }
+      assertEquals(verifier.getPendingVerifications(), 1);
+      assertFalse(secondRan.get());
+      assertFalse(verifier.verify(new Callable<Boolean>()
+      {
+        @Override
+        public Boolean call()
+        {
+          return false;
+        }
+      }, false));
+
+      finish.countDown();
+      assertTrue(first.get(10, TimeUnit.SECONDS));
+      assertTrue(second.get(10, TimeUnit.SECONDS));
+      assertTrue(secondRan.get());
+    }
+    finally
+    {
+      finish.countDown();
+      executor.shutdownNow();
+      TestCaseUtils.dsconfig(
+        "set-global-configuration-prop",
+        "--reset", "num-password-verification-threads");
+    }
+  }
+
+
+
   /**
    * Tests the <CODE>toString</CODE> methods with the default password policy.
    */
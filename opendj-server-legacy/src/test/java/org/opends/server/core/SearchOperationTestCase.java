@@ -40,12 +40,16 @@ import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.DereferenceAliasesPolicy;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.schema.AttributeType;
+import org.forgerock.opendj.ldap.schema.CoreSchema;
 import org.forgerock.opendj.ldap.schema.ObjectClass;
 import org.opends.server.TestCaseUtils;
+import org.opends.server.api.ClientConnection;
 import org.opends.server.controls.MatchedValuesControl;
 import org.opends.server.controls.MatchedValuesFilter;
 import org.opends.server.controls.SubentriesControl;
 import org.opends.server.plugins.InvocationCounterPlugin;
+import org.opends.server.protocols.internal.InternalClientConnection;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.Requests;
 import org.opends.server.protocols.internal.SearchRequest;
@@ -61,10 +65,12 @@ import org.opends.server.protocols.ldap.SearchResultEntryProtocolOp;
 import com.forgerock.opendj.ldap.tools.LDAPModify;
 import org.opends.server.tools.RemoteConnection;
 import org.opends.server.types.Attribute;
+import org.opends.server.types.Attributes;
 import org.opends.server.types.Control;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.Operation;
+import org.opends.server.types.SearchFilter;
 import org.opends.server.types.SearchResultEntry;
 import org.opends.server.types.SearchResultReference;
 import org.opends.server.util.StaticUtils;
@@ -1277,6 +1283,165 @@ public class SearchOperationTestCase extends OperationTestCase
     setAllIdThreshold(4000);
   }
 
+  /** Checks that the backend entries needing no filtering are passed through to the client. */
+  @Test
+  public void testPassthroughEntry() throws Exception
+  {
+    Entry backendEntry = addPassthroughEntry();
+    try
+    {
+      setSearchResultEntryPluginsEnabled(false);
+      AttributeType cnType = getAttributeType("cn");
+      SearchResultEntry entry =
+          newSearchOperation(getRootConnection(), false).toPassthroughEntry(backendEntry, null, true);
+      assertNotNull(entry);
+      assertThat(entry.getObjectClasses()).isEqualTo(backendEntry.getObjectClasses());
+      assertThat(entry.getUserAttributes().get(cnType).get(0))
+          .isSameAs(backendEntry.getUserAttributes().get(cnType).get(0));
+      assertThat(entry.getOperationalAttributes()).isEmpty();
+
+      // the virtual attributes without values are omitted, as when the entry is filtered
+      AttributeType isMemberOfType = getAttributeType("isMemberOf");
+      List<Attribute> isMemberOf = backendEntry.getOperationalAttributes().get(isMemberOfType);
+      assertThat(isMemberOf).hasSize(1);
+      assertTrue(isMemberOf.get(0).isVirtual());
+      assertTrue(isMemberOf.get(0).isEmpty());
+      entry = newSearchOperation(getRootConnection(), false, "*", "+").toPassthroughEntry(backendEntry, null, true);
+      assertNotNull(entry);
+      assertThat(entry.getOperationalAttributes()).containsKey(getAttributeType("entryUUID"));
+      assertThat(entry.getOperationalAttributes()).doesNotContainKey(isMemberOfType);
+      assertThat(entry.getOperationalAttributes().keySet()).isEqualTo(
+          backendEntry.filterEntry(newLinkedHashSet("+"), false, false, false).getOperationalAttributes().keySet());
+    }
+    finally
+    {
+      setSearchResultEntryPluginsEnabled(true);
+      TestCaseUtils.deleteEntry(backendEntry.getName());
+    }
+  }
+
+  /** Checks that the entries are copied and filtered as usual when the passthrough cannot be used. */
+  @Test
+  public void testPassthroughEntryFallsBackToFiltering() throws Exception
+  {
+    Entry backendEntry = addPassthroughEntry();
+    try
+    {
+      // the search result entry plugins may alter the entries
+      assertNull(newSearchOperation(getRootConnection(), false).toPassthroughEntry(backendEntry, null, true));
+
+      setSearchResultEntryPluginsEnabled(false);
+      // access control must be evaluated for a user without the bypass-acl privilege
+      InternalClientConnection userConnection = new InternalClientConnection(backendEntry.getName());
+      assertNull(newSearchOperation(userConnection, false).toPassthroughEntry(backendEntry, null, true));
+      // the attributes must be projected
+      assertNull(newSearchOperation(getRootConnection(), false, "cn").toPassthroughEntry(backendEntry, null, true));
+      assertNull(newSearchOperation(getRootConnection(), false, "*", "entryUUID")
+          .toPassthroughEntry(backendEntry, null, true));
+      // the values must be removed
+      assertNull(newSearchOperation(getRootConnection(), true).toPassthroughEntry(backendEntry, null, true));
+      // the real or virtual attributes must be removed
+      SearchOperationBasis virtualAttributesOnly = newSearchOperation(getRootConnection(), false);
+      virtualAttributesOnly.setVirtualAttributesOnly(true);
+      assertNull(virtualAttributesOnly.toPassthroughEntry(backendEntry, null, true));
+      SearchOperationBasis realAttributesOnly = newSearchOperation(getRootConnection(), false);
+      realAttributesOnly.setRealAttributesOnly(true);
+      assertNull(realAttributesOnly.toPassthroughEntry(backendEntry, null, true));
+
+      // several attributes of the same type, e.g. the real and virtual values of a merged virtual attribute
+      Entry entryWithVirtualConflict = backendEntry.duplicate(false);
+      AttributeType descriptionType = getAttributeType("description");
+      entryWithVirtualConflict.putAttribute(descriptionType, newArrayList(
+          Attributes.create("description", "real"), Attributes.create("description;lang-fr", "virtuelle")));
+      assertNull(newSearchOperation(getRootConnection(), false)
+          .toPassthroughEntry(entryWithVirtualConflict, null, true));
+    }
+    finally
+    {
+      setSearchResultEntryPluginsEnabled(true);
+      TestCaseUtils.deleteEntry(backendEntry.getName());
+    }
+  }
+
+  /** Checks that modifying an entry returned through the passthrough never alters the backend entry. */
+  @Test
+  public void testPassthroughEntryDoesNotAlterBackendEntry() throws Exception
+  {
+    Entry backendEntry = addPassthroughEntry();
+    try
+    {
+      setSearchResultEntryPluginsEnabled(false);
+      String backendLDIF = backendEntry.toLDIFString();
+      final List<SearchResultEntry> sentEntries = new ArrayList<>();
+      SearchOperationBasis searchOperation = new SearchOperationBasis(getRootConnection(), nextOperationID(),
+          nextMessageID(), new ArrayList<Control>(), DN.valueOf(SUFFIX), SearchScope.WHOLE_SUBTREE,
+          DereferenceAliasesPolicy.NEVER, 0, 0, false, SearchFilter.objectClassPresent(),
+          newLinkedHashSet("*", "+"))
+      {
+        @Override
+        public void sendSearchEntry(SearchResultEntry searchEntry)
+        {
+          sentEntries.add(searchEntry);
+        }
+      };
+      assertNotNull(searchOperation.toPassthroughEntry(backendEntry, null, true));
+      assertTrue(searchOperation.returnEntry(backendEntry, null));
+      assertThat(sentEntries).hasSize(1);
+
+      SearchResultEntry sentEntry = sentEntries.get(0);
+      sentEntry.replaceAttribute(Attributes.create("cn", "modified"));
+      sentEntry.addAttribute(Attributes.create("sn", "added"), new ArrayList<ByteString>());
+      sentEntry.addAttribute(Attributes.create("description", "added"), new ArrayList<ByteString>());
+      sentEntry.removeAttribute(getAttributeType("entryUUID"));
+      sentEntry.removeAttribute(Attributes.create("uid", "passthrough"), null);
+      sentEntry.removeAttribute(CoreSchema.getObjectClassAttributeType());
+
+      assertEquals(backendEntry.toLDIFString(), backendLDIF);
+    }
+    finally
+    {
+      setSearchResultEntryPluginsEnabled(true);
+      TestCaseUtils.deleteEntry(backendEntry.getName());
+    }
+  }
+
+  private Entry addPassthroughEntry() throws Exception
+  {
+    TestCaseUtils.addEntry(
+        "dn: uid=passthrough," + SUFFIX,
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: passthrough",
+        "cn: Pass Through",
+        "sn: Through",
+        "userPassword: password");
+    return DirectoryServer.getEntry(DN.valueOf("uid=passthrough," + SUFFIX));
+  }
+
+  /** Enables or disables the invocation counter plugin, the only search result entry plugin of the tests. */
+  private void setSearchResultEntryPluginsEnabled(boolean enabled)
+  {
+    TestCaseUtils.dsconfig(
+        "set-plugin-prop",
+        "--plugin-name", "Invocation Counter Plugin",
+        "--set", "enabled:" + enabled);
+  }
+
+  private SearchOperationBasis newSearchOperation(ClientConnection connection, boolean typesOnly,
+      String... attributes)
+  {
+    return new SearchOperationBasis(connection, nextOperationID(), nextMessageID(), new ArrayList<Control>(),
+        DN.valueOf(BASE), SearchScope.WHOLE_SUBTREE, DereferenceAliasesPolicy.NEVER, 0, 0, typesOnly,
+        SearchFilter.objectClassPresent(), newLinkedHashSet(attributes));
+  }
+
+  private AttributeType getAttributeType(String name)
+  {
+    return DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType(name);
+  }
+
   /** Sets a value of the allid threshold. */
   private void setAllIdThreshold(int value) throws Exception
   {
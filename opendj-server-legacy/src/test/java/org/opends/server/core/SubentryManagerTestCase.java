@@ -529,6 +529,36 @@ public class SubentryManagerTestCase extends CoreTestCase
     TestCaseUtils.deleteEntry(relativeSubentry.getName());
   }
 
+  @Test
+  public void testApplicableSubentriesFollowChanges() throws Exception
+  {
+    SubentryManager manager = DirectoryServer.getSubentryManager();
+    Entry roleEntry = DirectoryServer.getEntry(DN.valueOf("cn=Sales," + BASE));
+    assertThat(getDns(manager.getSubentries(testEntry))).doesNotContain(DN.valueOf("cn=Person Subentry," + SUFFIX));
+
+    Entry personSubentry = addEntry(
+         "dn: cn=Person Subentry," + SUFFIX,
+         "objectClass: top",
+         "objectclass: subentry",
+         "subtreeSpecification: {base \"ou=Test SubEntry Manager\", specificationFilter \"(objectClass=person)\"}",
+         "cn: Person Subentry");
+    try
+    {
+      // The DN alone cannot tell whether the refinement matches
+      assertThat(getDns(manager.getSubentries(testEntry.getName()))).contains(personSubentry.getName());
+      assertThat(getDns(manager.getSubentries(roleEntry.getName()))).contains(personSubentry.getName());
+      assertThat(getDns(manager.getSubentries(testEntry))).contains(personSubentry.getName());
+      assertThat(getDns(manager.getSubentries(roleEntry))).doesNotContain(personSubentry.getName());
+    }
+    finally
+    {
+      TestCaseUtils.deleteEntry(personSubentry.getName());
+    }
+
+    assertThat(getDns(manager.getSubentries(testEntry))).doesNotContain(personSubentry.getName());
+    assertThat(getDns(manager.getSubentries(testEntry.getName()))).doesNotContain(personSubentry.getName());
+  }
+
   private void addTestEntries() throws Exception
   {
     // Add suffix entry.
@@ -319,6 +319,48 @@ public class SubentryPasswordPolicyTestCase
     assertEquals(defaultPolicy, statePolicy);
   }
 
+  /**
+   * Ensures that password policies constructed from subentries do not cache
+   * verified passwords, even when the default password policy does.
+   *
+   * @throws  Exception  If an unexpected problem occurs.
+   */
+  @Test
+  public void testVerifiedPasswordCacheDisabled()
+         throws Exception
+  {
+    Entry policyEntry = TestCaseUtils.addEntry(
+         "dn: cn=Temp Policy," + SUFFIX,
+         "objectClass: top",
+         "objectClass: pwdPolicy",
+         "objectClass: subentry",
+         "cn: Temp Policy",
+         "subtreeSpecification: { base \"ou=people\" }",
+         "pwdAttribute: userPassword"
+    );
+    TestCaseUtils.dsconfig(
+        "set-password-policy-prop",
+        "--policy-name", "Default Password Policy",
+        "--set", "verified-password-cache-ttl:60 s");
+    try
+    {
+      assertNotNull(DirectoryServer.getDefaultPasswordPolicy().getVerifiedPasswordCache());
+
+      PasswordPolicy policy = (PasswordPolicy) DirectoryServer.getAuthenticationPolicy(
+              DN.valueOf("cn=Temp Policy," + SUFFIX));
+      assertEquals(policy.getVerifiedPasswordCacheTTL(), 0);
+      assertNull(policy.getVerifiedPasswordCache());
+    }
+    finally
+    {
+      TestCaseUtils.dsconfig(
+          "set-password-policy-prop",
+          "--policy-name", "Default Password Policy",
+          "--set", "verified-password-cache-ttl:0 s");
+      TestCaseUtils.deleteEntry(policyEntry.getName());
+    }
+  }
+
   /**
    * Ensures that password policy constructed from subentry,
    * containing a password validator reference,
@@ -28,6 +28,7 @@ import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.server.config.meta.VirtualAttributeCfgDefn;
 import org.opends.server.TestCaseUtils;
+import org.opends.server.api.Group;
 import org.opends.server.core.DeleteOperation;
 import org.opends.server.core.DirectoryServer;
 import org.opends.server.protocols.internal.InternalClientConnection;
@@ -866,6 +867,109 @@ public class IsMemberOfVirtualAttributeProviderTestCase
   }
 
 
+  /**
+   * Tests that the isMemberOf values of nested static groups follow the
+   * changes of the member lists, including membership cycles.
+   */
+  @Test
+  public void testNestedStaticGroupMembershipFollowsChanges() throws Exception
+  {
+    TestCaseUtils.initializeTestBackend(true);
+    TestCaseUtils.addEntries(
+        "dn: ou=People,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: People",
+        "",
+        "dn: uid=test.user,ou=People,o=test",
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: test.user",
+        "givenName: Test",
+        "sn: User",
+        "cn: Test User",
+        "",
+        "dn: ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: organizationalUnit",
+        "ou: Groups",
+        "",
+        "dn: cn=Group 1,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfNames",
+        "cn: Group 1",
+        "member: uid=test.user,ou=People,o=test",
+        "member: cn=Group 3,ou=Groups,o=test",
+        "",
+        "dn: cn=Group 2,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfNames",
+        "cn: Group 2",
+        "member: cn=Group 1,ou=Groups,o=test",
+        "",
+        "dn: cn=Group 3,ou=Groups,o=test",
+        "objectClass: top",
+        "objectClass: groupOfNames",
+        "cn: Group 3",
+        "member: cn=Group 2,ou=Groups,o=test");
+
+    IsMemberOfVirtualAttributeProvider provider = new IsMemberOfVirtualAttributeProvider();
+    VirtualAttributeRule rule = buildRule(provider);
+    DN userDN = DN.valueOf("uid=test.user,ou=People,o=test");
+    Entry user = DirectoryServer.getEntry(userDN);
+
+    Attribute values = provider.getValues(user, rule);
+    assertEquals(values.size(), 3);
+    assertTrue(values.contains(ByteString.valueOfUtf8("cn=group 1,ou=groups,o=test")));
+    assertTrue(values.contains(ByteString.valueOfUtf8("cn=group 2,ou=groups,o=test")));
+    assertTrue(values.contains(ByteString.valueOfUtf8("cn=group 3,ou=groups,o=test")));
+    assertTrue(provider.hasValue(user, rule, ByteString.valueOfUtf8("cn=group 3,ou=groups,o=test")));
+
+    // Leaving the innermost group removes all the memberships
+    TestCaseUtils.applyModifications(false,
+        "dn: cn=Group 1,ou=Groups,o=test",
+        "changetype: modify",
+        "delete: member",
+        "member: uid=test.user,ou=People,o=test");
+    assertTrue(provider.getValues(user, rule).isEmpty());
+    assertFalse(provider.hasValue(user, rule));
+    assertFalse(provider.hasValue(user, rule, ByteString.valueOfUtf8("cn=group 3,ou=groups,o=test")));
+
+    Group<?> group2 = DirectoryServer.getGroupManager().getGroupInstance(DN.valueOf("cn=Group 2,ou=Groups,o=test"));
+    group2.addMember(user);
+    values = provider.getValues(user, rule);
+    assertEquals(values.size(), 3);
+    assertTrue(values.contains(ByteString.valueOfUtf8("cn=group 1,ou=groups,o=test")));
+
+    group2.removeMember(userDN);
+    assertTrue(provider.getValues(user, rule).isEmpty());
+
+    // Renamed groups are reported with their new DN
+    TestCaseUtils.applyModifications(false,
+        "dn: cn=Group 1,ou=Groups,o=test",
+        "changetype: modify",
+        "replace: member",
+        "member: uid=test.user,ou=People,o=test",
+        "",
+        "dn: cn=Group 2,ou=Groups,o=test",
+        "changetype: moddn",
+        "newrdn: cn=Group 4",
+        "deleteoldrdn: 1");
+    values = provider.getValues(user, rule);
+    assertEquals(values.size(), 2);
+    assertTrue(values.contains(ByteString.valueOfUtf8("cn=group 1,ou=groups,o=test")));
+    assertTrue(values.contains(ByteString.valueOfUtf8("cn=group 4,ou=groups,o=test")));
+
+    delete("cn=group 1,ou=groups,o=test");
+    assertTrue(provider.getValues(user, rule).isEmpty());
+
+    delete("cn=group 3,ou=groups,o=test",
+        "cn=group 4,ou=groups,o=test");
+  }
+
+
   /**
    * Tests if a search using ismemberof works for a dynamic group with large
    * number of entries to simulate unindexed searches.
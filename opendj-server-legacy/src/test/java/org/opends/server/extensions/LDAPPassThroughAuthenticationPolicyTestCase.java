@@ -337,6 +337,9 @@ public class LDAPPassThroughAuthenticationPolicyTestCase extends
     private String mappedSearchBindPasswordFile;
     private String mappedSearchBindPasswordProperty;
     private boolean usePasswordCaching;
+    private long connectionPoolIdleTimeoutMS;
+    private long heartbeatIntervalMS;
+    private long mappedSearchCacheTTL;
 
     @Override
     public void addChangeListener(
@@ -379,6 +382,30 @@ public class LDAPPassThroughAuthenticationPolicyTestCase extends
     @Override
     public InetAddress getSourceAddress() { return null; }
 
+    @Override
+    public Integer getConnectionPoolMaxSize()
+    {
+      return null;
+    }
+
+    @Override
+    public long getConnectionPoolIdleTimeout()
+    {
+      return connectionPoolIdleTimeoutMS;
+    }
+
+    @Override
+    public long getHeartbeatInterval()
+    {
+      return heartbeatIntervalMS;
+    }
+
+    @Override
+    public long getMappedSearchCacheTTL()
+    {
+      return mappedSearchCacheTTL;
+    }
+
     @Override
     public String getJavaClass()
     {
@@ -495,6 +522,24 @@ public class LDAPPassThroughAuthenticationPolicyTestCase extends
       return this;
     }
 
+    MockPolicyCfg withConnectionPoolIdleTimeout(final long timeoutMS)
+    {
+      this.connectionPoolIdleTimeoutMS = timeoutMS;
+      return this;
+    }
+
+    MockPolicyCfg withHeartbeatInterval(final long intervalMS)
+    {
+      this.heartbeatIntervalMS = intervalMS;
+      return this;
+    }
+
+    MockPolicyCfg withMappedSearchCacheTTL(final long ttl)
+    {
+      this.mappedSearchCacheTTL = ttl;
+      return this;
+    }
+
     MockPolicyCfg withMappedAttribute(final String attrName)
     {
       mappedAttributes.add(DirectoryServer.getInstance().getServerContext().getSchema().getAttributeType(attrName));
@@ -3751,7 +3796,7 @@ public class LDAPPassThroughAuthenticationPolicyTestCase extends
 
     // Use a connection pool directly for this test.
     ConnectionPool pool = new ConnectionPool(provider.getLDAPConnectionFactory(
-        "phost1", 11, cfg));
+        "phost1", 11, cfg), provider, 2, 0, 0);
 
     // Authenticate three times, the third time was failing because the pool
     // would not retry the operation on a new connection.
@@ -3766,9 +3811,9 @@ public class LDAPPassThroughAuthenticationPolicyTestCase extends
     Connection c2 = pool.getConnection();
     c2.simpleBind(username, password);
 
-    // Release both the connections.
-    c1.close();
+    // Release both the connections, the most recently released is reused first.
     c2.close();
+    c1.close();
 
     // This was failing because the pool would not retry with a new connection.
     Connection c3 = pool.getConnection();
@@ -3779,14 +3824,148 @@ public class LDAPPassThroughAuthenticationPolicyTestCase extends
     provider.assertAllExpectedEventsReceived();
 
     // Cached connections should be closed when the pool is closed.
-    provider.expectEvent(new CloseEvent(ce2));
     provider.expectEvent(new CloseEvent(ce3));
+    provider.expectEvent(new CloseEvent(ce2));
 
     // Tear down and check final state.
     pool.close();
     provider.assertAllExpectedEventsReceived();
   }
 
+  /**
+   * Tests that idle pooled connections are checked by heartbeats, and closed
+   * once they failed or have been idle for longer than the idle timeout.
+   *
+   * @throws Exception
+   *           If an unexpected exception occurred.
+   */
+  @Test
+  public void testConnectionPoolIdleTimeoutAndHeartbeats() throws Exception
+  {
+    final MockPolicyCfg cfg = mockCfg();
+    final GetLDAPConnectionFactoryEvent fe1 = new GetLDAPConnectionFactoryEvent(
+        "phost1:11", cfg);
+    final GetConnectionEvent ce1 = new GetConnectionEvent(fe1);
+    final GetConnectionEvent ce2 = new GetConnectionEvent(fe1);
+    final MockProvider provider = new MockProvider()
+        .withCurrentTime("20260101000000Z")
+        .expectEvent(fe1)
+        .expectEvent(ce1)
+        .expectEvent(ce2);
+
+    // Idle timeout of one minute, heartbeats every ten seconds.
+    final ConnectionPool pool = new ConnectionPool(
+        provider.getLDAPConnectionFactory("phost1", 11, cfg), provider, 2,
+        60000, 10000);
+    final Connection c1 = pool.getConnection();
+    final Connection c2 = pool.getConnection();
+    c2.close();
+    c1.close();
+    provider.assertAllExpectedEventsReceived();
+
+    // The connection failing its heartbeat should be closed.
+    provider
+        .expectEvent(
+            new SearchEvent(ce1, "", SearchScope.BASE_OBJECT, "(objectClass=*)",
+                ""))
+        .expectEvent(
+            new SearchEvent(ce2, "", SearchScope.BASE_OBJECT, "(objectClass=*)",
+                ResultCode.UNAVAILABLE))
+        .expectEvent(new CloseEvent(ce2));
+    provider.withCurrentTime("20260101000010Z").runMonitorTasks();
+    provider.assertAllExpectedEventsReceived();
+
+    // The remaining connection should be closed once it has been idle for too
+    // long, without checking it first.
+    provider.expectEvent(new CloseEvent(ce1));
+    provider.withCurrentTime("20260101000100Z").runMonitorTasks();
+    provider.assertAllExpectedEventsReceived();
+
+    // There are no more connections to close.
+    pool.close();
+    provider.assertAllExpectedEventsReceived();
+  }
+
+  /**
+   * Tests that the DNs returned by mapped searches are cached, so that the
+   * subsequent authentications only need to bind until they expire.
+   *
+   * @throws Exception
+   *           If an unexpected exception occurred.
+   */
+  @Test
+  public void testMappedSearchCache() throws Exception
+  {
+    // Mock configuration.
+    final LDAPPassThroughAuthenticationPolicyCfg cfg = mockCfg()
+        .withPrimaryServer(phost1)
+        .withMappingPolicy(MappingPolicy.MAPPED_SEARCH)
+        .withMappedAttribute("uid").withBaseDN("o=ad")
+        .withMappedSearchCacheTTL(60);
+
+    // The first authentication searches for the DN of the user.
+    final GetLDAPConnectionFactoryEvent fe = new GetLDAPConnectionFactoryEvent(
+        phost1, cfg);
+    final GetConnectionEvent ceSearch = new GetConnectionEvent(fe);
+    final GetConnectionEvent ceBind = new GetConnectionEvent(fe);
+    final MockProvider provider = new MockProvider()
+        .withCurrentTime("20260101000000Z")
+        .expectEvent(fe)
+        .expectEvent(ceSearch)
+        .expectEvent(
+            new SimpleBindEvent(ceSearch, searchBindDNString, "searchPassword"))
+        .expectEvent(
+            new SearchEvent(ceSearch, "o=ad", SearchScope.WHOLE_SUBTREE,
+                "(uid=aduser)", adDNString))
+        .expectEvent(ceBind)
+        .expectEvent(new SimpleBindEvent(ceBind, adDNString, userPassword));
+
+    final LDAPPassThroughAuthenticationPolicyFactory factory = new LDAPPassThroughAuthenticationPolicyFactory(
+        provider);
+    assertTrue(factory.isConfigurationAcceptable(cfg, null));
+    final AuthenticationPolicy policy = factory.createAuthenticationPolicy(cfg);
+    AuthenticationPolicyState state = policy
+        .createAuthenticationPolicyState(userEntry);
+    assertTrue(state.passwordMatches(ByteString.valueOfUtf8(userPassword)));
+    provider.assertAllExpectedEventsReceived();
+
+    // The second authentication reuses the cached DN.
+    provider.expectEvent(new SimpleBindEvent(ceBind, adDNString, userPassword));
+    state = policy.createAuthenticationPolicyState(userEntry);
+    assertTrue(state.passwordMatches(ByteString.valueOfUtf8(userPassword)));
+    provider.assertAllExpectedEventsReceived();
+
+    // An invalid password triggers a new search, but no new bind since the DN
+    // of the user did not change.
+    provider
+        .expectEvent(
+            new SimpleBindEvent(ceBind, adDNString, "wrong",
+                ResultCode.INVALID_CREDENTIALS))
+        .expectEvent(
+            new SearchEvent(ceSearch, "o=ad", SearchScope.WHOLE_SUBTREE,
+                "(uid=aduser)", adDNString));
+    state = policy.createAuthenticationPolicyState(userEntry);
+    assertFalse(state.passwordMatches(ByteString.valueOfUtf8("wrong")));
+    provider.assertAllExpectedEventsReceived();
+
+    // Once the cached DN has expired, the DN of the user is searched again.
+    provider
+        .expectEvent(
+            new SearchEvent(ceSearch, "o=ad", SearchScope.WHOLE_SUBTREE,
+                "(uid=aduser)", adDNString))
+        .expectEvent(new SimpleBindEvent(ceBind, adDNString, userPassword));
+    provider.withCurrentTime("20260101000200Z");
+    state = policy.createAuthenticationPolicyState(userEntry);
+    assertTrue(state.passwordMatches(ByteString.valueOfUtf8(userPassword)));
+    provider.assertAllExpectedEventsReceived();
+
+    // Tear down and check final state.
+    provider.expectEvent(new CloseEvent(ceSearch));
+    provider.expectEvent(new CloseEvent(ceBind));
+    policy.finalizeAuthenticationPolicy();
+    provider.assertAllExpectedEventsReceived();
+  }
+
   /**
    * Returns test data for {@link #testPasswordCaching}.
    *
@@ -17,6 +17,9 @@
  */
 package org.opends.server.plugins;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 
 import org.forgerock.opendj.config.server.ConfigException;
@@ -46,12 +49,14 @@ import org.opends.server.types.Control;
 import org.opends.server.types.Entry;
 import org.opends.server.types.InitializationException;
 import org.opends.server.types.SearchResultEntry;
+import org.opends.server.util.TestTimer;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import static java.util.concurrent.TimeUnit.*;
 import static org.forgerock.opendj.ldap.ModificationType.*;
 import static org.opends.server.core.DirectoryServer.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
@@ -276,6 +281,91 @@ public class ReferentialIntegrityPluginTestCase extends PluginTestCase  {
     isMember(tgroup, false, tuser1, tuser2, tuser3);
    }
 
+  /**
+   * Test that a rename followed by the delete of the renamed entry are both
+   * applied when processed in background mode.
+   *
+   * @throws Exception If an unexpected result happened.
+   */
+  @Test
+  public void testReferentialModDNDeleteBackGround() throws Exception {
+    replaceAttrEntry(configDN, dsConfigAttrType,"member");
+    replaceAttrEntry(configDN, dsConfigUpdateInterval,"1 seconds");
+    try
+    {
+      addAttrEntry(DN.valueOf(tgroup), "member", tuser1, tuser2, tuser3);
+      doModDN(tuser1, tuser1_rdn, null);
+      deleteEntries(tuser1_rename, tuser2);
+      //Wait two seconds and then check the group.
+      Thread.sleep(2000);
+      isMember(tgroup, false, tuser1, tuser1_rename, tuser2);
+      isMember(tgroup, true, tuser3);
+    }
+    finally
+    {
+      replaceAttrEntry(configDN, dsConfigUpdateInterval,"0 seconds");
+    }
+  }
+
+  /**
+   * Test that a restarted plugin only applies the records of the update log
+   * after its checkpoint, and ignores the last record if it has not been
+   * completely written.
+   *
+   * @throws Exception If an unexpected result happened.
+   */
+  @Test
+  public void testReferentialUpdateLogReplayedFromCheckpoint() throws Exception {
+    replaceAttrEntry(configDN, dsConfigAttrType,"member");
+    addAttrEntry(DN.valueOf(tgroup), "member", tuser1, tuser2, tuser3);
+
+    final File logFile = new File(DirectoryServer.getInstanceRoot(), "logs/referint");
+    File checkpointFile = new File(logFile.getPath() + ".checkpoint");
+    replaceAttrEntry(configDN, "ds-cfg-enabled", "false");
+    try
+    {
+      // The record of user.1 has already been processed, the record of user.3 was being written
+      String processedRecord = DN.valueOf(tuser1) + "\n";
+      String pendingRecord = DN.valueOf(tuser2) + "\n";
+      String truncatedRecord = DN.valueOf(tuser3).toString();
+      Files.write(logFile.toPath(),
+          (processedRecord + pendingRecord + truncatedRecord).getBytes(StandardCharsets.UTF_8));
+      Files.write(checkpointFile.toPath(),
+          Integer.toString(processedRecord.getBytes(StandardCharsets.UTF_8).length).getBytes(StandardCharsets.UTF_8));
+
+      replaceAttrEntry(configDN, dsConfigUpdateInterval,"1 seconds");
+      replaceAttrEntry(configDN, "ds-cfg-enabled", "true");
+
+      TestTimer timer = new TestTimer.Builder()
+        .maxSleep(10, SECONDS)
+        .sleepTimes(100, MILLISECONDS)
+        .toTimer();
+      timer.repeatUntilSuccess(new TestTimer.CallableVoid()
+      {
+        @Override
+        public void call() throws Exception
+        {
+          isMember(tgroup, false, tuser2);
+        }
+      });
+      isMember(tgroup, true, tuser1, tuser3);
+      // The processed records have been cleared
+      timer.repeatUntilSuccess(new TestTimer.CallableVoid()
+      {
+        @Override
+        public void call() throws Exception
+        {
+          assertEquals(logFile.length(), 0);
+        }
+      });
+    }
+    finally
+    {
+      replaceAttrEntry(configDN, "ds-cfg-enabled", "true");
+      replaceAttrEntry(configDN, dsConfigUpdateInterval,"0 seconds");
+    }
+  }
+
   /**
    * Test delete using multiple attribute types and public naming contexts.
    *
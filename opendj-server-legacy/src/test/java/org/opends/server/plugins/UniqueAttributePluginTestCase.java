@@ -16,14 +16,19 @@
  */
 package org.opends.server.plugins;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.forgerock.opendj.config.server.ConfigException;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.requests.ModifyDNRequest;
 import org.forgerock.opendj.ldap.requests.ModifyRequest;
+import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.opends.server.TestCaseUtils;
+import org.opends.server.api.LocalBackend;
 import org.forgerock.opendj.server.config.meta.UniqueAttributePluginCfgDefn;
 import org.opends.server.core.AddOperation;
 import org.opends.server.core.ModifyDNOperation;
@@ -44,6 +49,7 @@ import static org.forgerock.opendj.ldap.ResultCode.*;
 import static org.forgerock.opendj.ldap.requests.Requests.*;
 import static org.opends.server.core.DirectoryServer.*;
 import static org.opends.server.protocols.internal.InternalClientConnection.*;
+import static org.opends.server.util.CollectionUtils.*;
 import static org.testng.Assert.*;
 
 /** Unit test to test the unique attribute plugin. */
@@ -481,6 +487,55 @@ public class UniqueAttributePluginTestCase extends PluginTestCase {
   }
 
 
+  /**
+   * Test that the values added by an operation are looked up at once in the
+   * equality indexes of the backend, and compared once normalized.
+   *
+   * @throws Exception If an unexpected result occurs.
+   */
+  @Test
+  public void testAddOperationIndexedBackend() throws Exception {
+    replaceAttrInEntry(uidConfigDN,dsConfigAttrType,"mail","telephonenumber");
+    replaceAttrInEntry(uidConfigDN,dsConfigBaseDN,"dc=example,dc=com");
+
+    DN baseDN = DN.valueOf("dc=example,dc=com");
+    LocalBackend<?> backend =
+        getInstance().getServerContext().getBackendConfigManager().getLocalBackendById("userRoot");
+    List<Entry> entries = backend.getEntriesMatchingValues(baseDN,
+        newArrayList(getAttributeType("mail"), getAttributeType("telephoneNumber")),
+        newArrayList(ByteString.valueOfUtf8("USER2X@test"), ByteString.valueOfUtf8("2-777-9012"),
+            ByteString.valueOfUtf8("nobody@test")));
+    Set<DN> names = new HashSet<>();
+    for (Entry entry : entries)
+    {
+      names.add(entry.getName());
+    }
+    assertEquals(names, newHashSet(DN.valueOf("uid=2user.2,ou=People,dc=example,dc=com"),
+                                   DN.valueOf("uid=2user.77,ou=People,dc=example,dc=com")));
+
+    Entry e = makeEntry("cn=test user, ou=People,dc=example,dc=com");
+    addAttribute(e, "mail", "unique1@test", "unique2@test");
+    addAttribute(e, "telephonenumber", "9-999-0001");
+    //Fail because "USER3X@TEST" matches the mail value of an existing entry.
+    addAttribute(e, "mail", "USER3X@TEST");
+    addEntry(e, CONSTRAINT_VIOLATION);
+    delAttribute(e, "mail");
+    //Fail because "2-777-9012" is a telephone value of an existing entry.
+    addAttribute(e, "mail", "unique1@test", "unique2@test");
+    addAttribute(e, "telephonenumber", "2-777-9012");
+    addEntry(e, CONSTRAINT_VIOLATION);
+    delAttribute(e, "telephonenumber");
+    //The values recorded by the failed operations must have been released.
+    addEntry(e, SUCCESS);
+    Entry e2 = makeEntry("cn=test user2, ou=People,dc=example,dc=com");
+    addAttribute(e2, "mail", "UNIQUE2@test");
+    addEntry(e2, CONSTRAINT_VIOLATION);
+    TestCaseUtils.deleteEntry(e);
+    addEntry(e2, SUCCESS);
+    TestCaseUtils.deleteEntry(e2);
+  }
+
+
   /**
    * Create entries under the specified suffix and add them to the server.
    * The character argument is used to make the mail attribute unique.
@@ -733,7 +788,11 @@ public class UniqueAttributePluginTestCase extends PluginTestCase {
   }
 
   private void delAttribute(Entry entry, String attrTypeString) {
-    entry.removeAttribute(getInstance().getServerContext().getSchema().getAttributeType(attrTypeString));
+    entry.removeAttribute(getAttributeType(attrTypeString));
+  }
+
+  private AttributeType getAttributeType(String attrTypeString) {
+    return getInstance().getServerContext().getSchema().getAttributeType(attrTypeString);
   }
 
   private void addAttribute(Entry entry, String attrName, String... attrValues) {
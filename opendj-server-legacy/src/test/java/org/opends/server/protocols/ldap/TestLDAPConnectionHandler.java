@@ -17,19 +17,29 @@
 package org.opends.server.protocols.ldap;
 
 import static org.opends.server.config.ConfigConstants.*;
+import static org.opends.server.util.ServerConstants.*;
 import static org.testng.Assert.*;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.opends.server.TestCaseUtils;
 import org.forgerock.opendj.server.config.server.LDAPConnectionHandlerCfg;
+import org.opends.admin.ads.util.BlindTrustManager;
 import org.opends.server.api.ClientConnection;
+import org.opends.server.api.ConnectionHandler;
 import org.forgerock.opendj.config.server.ConfigException;
 import org.opends.server.core.DirectoryServer;
+import org.opends.server.monitors.TLSHandshakeStatistics;
+import org.opends.server.tools.RemoteConnection;
 import org.opends.server.types.Attribute;
 import org.forgerock.opendj.ldap.schema.AttributeType;
 import org.forgerock.opendj.ldap.schema.Schema;
@@ -37,6 +47,7 @@ import org.forgerock.opendj.reactive.LDAPConnectionHandler2;
 import org.opends.server.types.Attributes;
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.types.Entry;
+import org.opends.server.types.HostPort;
 import org.opends.server.types.SSLClientAuthPolicy;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -313,4 +324,56 @@ public class TestLDAPConnectionHandler extends LdapTestCase {
     LDAPConnHandler.applyConfigurationChange(config);
     LDAPConnHandler.finalizeConnectionHandler(reasonMsg);
   }
+
+  /**
+   * Reconnects twice to the LDAPS connection handler with the same client SSL
+   * context, and checks that the second handshake resumed the session of the
+   * first one and that the handshakes are monitored.
+   */
+  @Test
+  public void testTLSSessionResumption() throws Exception
+  {
+    final ConnectionHandler<?> handler = getLdapsConnectionHandler();
+    final TLSHandshakeStatistics statistics = handler.getTLSHandshakeStatistics();
+    assertNotNull(statistics);
+    final long handshakes = statistics.getHandshakes();
+    final long resumedHandshakes = statistics.getResumedHandshakes();
+
+    final SSLContext sslContext = SSLContext.getInstance("TLS");
+    sslContext.init(null, new TrustManager[] { new BlindTrustManager() }, null);
+    for (int i = 0; i < 2; i++)
+    {
+      try (RemoteConnection conn =
+          new RemoteConnection("localhost", TestCaseUtils.getServerLdapsPort(), sslContext.getSocketFactory()))
+      {
+        conn.bind("cn=Directory Manager", "password");
+      }
+    }
+
+    assertTrue(statistics.getHandshakes() >= handshakes + 2);
+    assertTrue(statistics.getResumedHandshakes() >= resumedHandshakes + 1);
+
+    final Set<String> monitorAttributes = new HashSet<>();
+    for (Attribute a : handler.getConnectionHandlerMonitor().getMonitorData())
+    {
+      monitorAttributes.add(a.getAttributeDescription().getNameOrOID());
+    }
+    assertTrue(monitorAttributes.contains(ATTR_MONITOR_CONNHANDLER_TLS_HANDSHAKES));
+    assertTrue(monitorAttributes.contains(ATTR_MONITOR_CONNHANDLER_TLS_RESUMPTION_RATIO));
+  }
+
+  private ConnectionHandler<?> getLdapsConnectionHandler()
+  {
+    for (ConnectionHandler<?> handler : DirectoryServer.getConnectionHandlers())
+    {
+      for (HostPort listener : handler.getListeners())
+      {
+        if (listener.getPort() == TestCaseUtils.getServerLdapsPort())
+        {
+          return handler;
+        }
+      }
+    }
+    throw new AssertionError("No LDAPS connection handler");
+  }
 }
@@ -16,8 +16,12 @@
  */
 package org.opends.server.replication;
 
+import static java.util.concurrent.TimeUnit.*;
+
+import static org.forgerock.opendj.ldap.ModificationType.*;
 import static org.forgerock.opendj.ldap.schema.CoreSchema.*;
 import static org.opends.server.TestCaseUtils.*;
+import static org.forgerock.opendj.ldap.requests.Requests.newModifyRequest;
 import static org.opends.server.protocols.internal.Requests.newSearchRequest;
 import static org.opends.server.util.CollectionUtils.*;
 import static org.testng.Assert.*;
@@ -33,8 +37,10 @@ import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.opends.server.TestCaseUtils;
 import org.opends.server.backends.MemoryBackend;
+import org.opends.server.core.DirectoryServer;
 import org.opends.server.protocols.internal.InternalSearchOperation;
 import org.opends.server.protocols.internal.SearchRequest;
+import org.opends.server.replication.common.CSN;
 import org.opends.server.replication.common.CSNGenerator;
 import org.opends.server.replication.plugin.DomainFakeCfg;
 import org.opends.server.replication.plugin.LDAPReplicationDomain;
@@ -50,6 +56,8 @@ import org.opends.server.types.Attributes;
 import org.opends.server.types.DirectoryException;
 import org.opends.server.types.Entry;
 import org.opends.server.types.Modification;
+import org.opends.server.util.TestTimer;
+import org.opends.server.util.TestTimer.CallableVoid;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
@@ -413,6 +421,97 @@ public class DependencyTest extends ReplicationTestCase
     }
   }
 
+  /**
+   * Check that changing the number of replay threads while updates are queued
+   * does not lose any of them: all the entries must be added and the server
+   * state of the domain must cover the last update.
+   */
+  @Test(enabled=true, groups="slow")
+  public void changeNumberOfReplayThreadsTest() throws Exception
+  {
+    ReplicationServer replServer = null;
+    LDAPReplicationDomain domain = null;
+    DN baseDN = TEST_ROOT_DN;
+    DN synchroPluginDN = DN.valueOf(SYNCHRO_PLUGIN_DN);
+    int brokerId = 2;
+    int serverId = 1;
+    int replServerId = 85;
+    int addSequenceLength = 2000;
+
+    cleanDB();
+
+    try
+    {
+      Entry entry = TestCaseUtils.makeEntry(
+          "dn:" + TEST_ROOT_DN_STRING,
+          "objectClass: top",
+          "objectClass: organization");
+
+      replServer = newReplicationServer(
+          replServerId, 5 * addSequenceLength + 100, "dependencyTestChangeNumberOfReplayThreadsTestDb");
+
+      ReplicationBroker broker = openReplicationSession(
+          baseDN, brokerId, 1000, replServer.getReplicationPort(), 1000, CLEAN_DB_GENERATION_ID);
+
+      // queue the updates in the replication server before the domain starts replaying them
+      CSNGenerator gen = new CSNGenerator(brokerId, 0L);
+      CSN lastCSN = null;
+      for (int sequence = 1; sequence <= addSequenceLength; sequence++)
+      {
+        entry.removeAttribute(getEntryUUIDAttributeType());
+        entry.addAttribute(Attributes.create("entryuuid", stringUID(sequence + 1)), new LinkedList<ByteString>());
+        AddMsg addMsg = addMsg(DN.valueOf("dc=replay" + sequence + "," + TEST_ROOT_DN_STRING), entry,
+            sequence + 1, 1, gen);
+        broker.publish(addMsg);
+        lastCSN = addMsg.getCSN();
+      }
+
+      domain = startNewLDAPReplicationDomain(replServer, baseDN, serverId, 100000);
+
+      // stop and restart the replay threads while the updates are being replayed
+      DN lastDN = DN.valueOf("dc=replay" + addSequenceLength + "," + TEST_ROOT_DN_STRING);
+      for (int i = 0; i < 20 && DirectoryServer.getEntry(lastDN) == null; i++)
+      {
+        ResultCode rc = connection.processModify(modifyRequest(
+            synchroPluginDN, REPLACE, "ds-cfg-num-update-replay-threads", String.valueOf(1 + i % 4))).getResultCode();
+        assertEquals(rc, ResultCode.SUCCESS);
+      }
+
+      for (int sequence = 1; sequence <= addSequenceLength; sequence++)
+      {
+        DN addDN = DN.valueOf("dc=replay" + sequence + "," + TEST_ROOT_DN_STRING);
+        checkEntryHasAttributeValue(addDN, "entryuuid", stringUID(sequence + 1), 30,
+            "The add was not replayed on entry " + addDN);
+      }
+
+      final LDAPReplicationDomain replayingDomain = domain;
+      final CSN lastReplayedCSN = lastCSN;
+      TestTimer timer = new TestTimer.Builder()
+        .maxSleep(10, SECONDS)
+        .sleepTimes(100, MILLISECONDS)
+        .toTimer();
+      timer.repeatUntilSuccess(new CallableVoid()
+      {
+        @Override
+        public void call() throws Exception
+        {
+          assertTrue(replayingDomain.getServerState().cover(lastReplayedCSN),
+              "The server state does not cover the last replayed update");
+        }
+      });
+    }
+    finally
+    {
+      connection.processModify(newModifyRequest(synchroPluginDN)
+          .addModification(DELETE, "ds-cfg-num-update-replay-threads"));
+      remove(replServer);
+      if (domain != null)
+      {
+        MultimasterReplication.deleteDomain(baseDN);
+      }
+    }
+  }
+
   private ReplicationServer newReplicationServer(int replServerId, int windowSize, String dirName) throws Exception
   {
     int replServerPort = TestCaseUtils.findFreePort();
@@ -16,7 +16,11 @@
  */
 package org.opends.server.replication;
 
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -30,6 +34,9 @@ import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.opends.server.TestCaseUtils;
+import org.opends.server.backends.pluggable.BackendImpl;
+import org.opends.server.backends.pluggable.EntryRecordBatch;
+import org.opends.server.backends.pluggable.EntryRecordExport;
 import org.opends.server.backends.task.TaskState;
 import org.opends.server.core.AddOperation;
 import org.opends.server.protocols.internal.InternalClientConnection;
@@ -38,9 +45,12 @@ import org.opends.server.protocols.internal.SearchRequest;
 import org.opends.server.replication.common.ServerStatus;
 import org.opends.server.replication.plugin.LDAPReplicationDomain;
 import org.opends.server.replication.protocol.DoneMsg;
+import org.opends.server.replication.protocol.EntryBatchMsg;
 import org.opends.server.replication.protocol.EntryMsg;
 import org.opends.server.replication.protocol.ErrorMsg;
 import org.opends.server.replication.protocol.InitializeRequestMsg;
+import org.opends.server.replication.protocol.InitializeStreamsMsg;
+import org.opends.server.replication.protocol.InitializeStreamsMsg.StreamPosition;
 import org.opends.server.replication.protocol.InitializeTargetMsg;
 import org.opends.server.replication.protocol.ReplicationMsg;
 import org.opends.server.replication.protocol.RoutableMsg;
@@ -625,6 +635,173 @@ public class InitOnLineTest extends ReplicationTestCase
     }
 }
 
+  /**
+   * Tests the export side of the Initialize task when the importer accepts the
+   * entry record streams: S1 must send its entries as batches of binary entry
+   * records.
+   */
+  @Test(enabled=true, groups="slow")
+  public void initializeExportEntryRecords() throws Exception
+  {
+    String testCase = "initializeExportEntryRecords";
+    log("Starting "+testCase);
+    try
+    {
+      replServer1 = createReplicationServer(replServer1ID, testCase);
+      connectServer1ToReplServer(replServer1ID);
+      addTestEntriesToDB();
+
+      server2 = openReplicationSession(baseDN, server2ID, 100, getReplServerPort(replServer1ID), 1000);
+      server2.publish(new InitializeRequestMsg(baseDN, server2ID, server1ID, 100));
+
+      InitializeTargetMsg targetMsg = waitForMsg(server2, InitializeTargetMsg.class);
+      assertTrue(targetMsg.getNbStreams() > 0, "Entry record streams should be offered");
+      server2.publish(new InitializeStreamsMsg(server2ID, server1ID, -1, Collections.<StreamPosition> emptyList()));
+      server2.signalStatusChange(ServerStatus.FULL_UPDATE_STATUS);
+
+      InitializeStreamsMsg streamsMsg = waitForMsg(server2, InitializeStreamsMsg.class);
+      assertEquals(streamsMsg.getPositions().size(), targetMsg.getNbStreams());
+      assertEquals(streamsMsg.getPositions().get(0).getNextEntryID(), 1);
+
+      int entriesReceived = 0;
+      int expectedMsgId = 0;
+      ReplicationMsg msg;
+      while (!((msg = server2.receive()) instanceof DoneMsg))
+      {
+        Assertions.assertThat(msg).isInstanceOf(EntryBatchMsg.class);
+        EntryBatchMsg batchMsg = (EntryBatchMsg) msg;
+        assertEquals(batchMsg.getMsgId(), ++expectedMsgId);
+        entriesReceived += batchMsg.getNbEntries();
+      }
+      assertEquals(entriesReceived, updatedEntries.length);
+
+      server2.setGenerationID(EMPTY_DN_GENID);
+      server2.reStart(true);
+      log("Successfully ending " + testCase);
+    }
+    finally
+    {
+      afterTest(testCase);
+    }
+  }
+
+  /**
+   * Tests the import side of the Initialize task with entry record streams,
+   * interrupted after the first batch: the second attempt must resume the
+   * stream after that batch, which is replayed from the spool of S1.
+   */
+  @Test(enabled=true, groups="slow")
+  public void initializeImportEntryRecordsResumed() throws Exception
+  {
+    String testCase = "initializeImportEntryRecordsResumed";
+    log("Starting "+testCase);
+    try
+    {
+      replServer1 = createReplicationServer(replServer1ID, testCase);
+      connectServer1ToReplServer(replServer1ID);
+      addTestEntriesToDB();
+      List<EntryRecordBatch> batches = exportEntryRecordsOneByOne();
+      assertEquals(batches.size(), updatedEntries.length);
+
+      server2 = openReplicationSession(baseDN, server2ID, 100, getReplServerPort(replServer1ID), 1000);
+      long genId = 4242L;
+
+      addTask(taskInitFromS2, ResultCode.SUCCESS, null);
+
+      // First attempt: send the first batch, then fail
+      InitializeRequestMsg initMsg = waitForMsg(server2, InitializeRequestMsg.class);
+      server2.publish(new InitializeTargetMsg(baseDN, server2ID, server1ID, initMsg.getSenderID(),
+          updatedEntries.length, initWindow, 1));
+      InitializeStreamsMsg acceptMsg = waitForMsg(server2, InitializeStreamsMsg.class);
+      assertTrue(acceptMsg.getPositions().isEmpty(), "Nothing to resume on the first attempt");
+      List<StreamPosition> positions = Collections.singletonList(new StreamPosition(1, Long.MAX_VALUE));
+      server2.publish(new InitializeStreamsMsg(server2ID, server1ID, genId, positions));
+      server2.publish(newEntryBatchMsg(batches.get(0), 1));
+      server2.publish(new ErrorMsg(server1ID, LocalizableMessage.raw("export interrupted by " + testCase)));
+
+      // Second attempt: S1 proposes to resume after the first batch
+      initMsg = waitForMsg(server2, InitializeRequestMsg.class);
+      server2.publish(new InitializeTargetMsg(baseDN, server2ID, server1ID, initMsg.getSenderID(),
+          updatedEntries.length, initWindow, 1));
+      acceptMsg = waitForMsg(server2, InitializeStreamsMsg.class);
+      assertEquals(acceptMsg.getGenerationId(), genId);
+      positions = Collections.singletonList(
+          new StreamPosition(batches.get(0).getLastEntryID() + 1, Long.MAX_VALUE));
+      assertEquals(acceptMsg.getPositions(), positions);
+      server2.publish(new InitializeStreamsMsg(server2ID, server1ID, genId, positions));
+      int msgId = 0;
+      for (EntryRecordBatch batch : batches.subList(1, batches.size()))
+      {
+        server2.publish(newEntryBatchMsg(batch, ++msgId));
+      }
+      server2.publish(new DoneMsg(server2ID, server1ID));
+
+      waitTaskCompleted(taskInitFromS2, TaskState.COMPLETED_SUCCESSFULLY, 0, updatedEntries.length);
+      testEntriesInDb();
+      log("Successfully ending " + testCase);
+    }
+    finally
+    {
+      afterTest(testCase);
+    }
+  }
+
+  /** Exports the entries of the base DN from userRoot, one entry per batch. */
+  private List<EntryRecordBatch> exportEntryRecordsOneByOne() throws Exception
+  {
+    BackendImpl<?> backend = (BackendImpl<?>)
+        TestCaseUtils.getServerContext().getBackendConfigManager().getLocalBackendById("userRoot");
+    EntryRecordExport export = backend.newEntryRecordExport(baseDN);
+    List<EntryRecordBatch> batches = new ArrayList<>();
+    EntryRecordBatch batch;
+    long nextEntryID = 1;
+    while ((batch = export.readBatch(nextEntryID, Long.MAX_VALUE, 1)) != null)
+    {
+      batches.add(batch.withSchemaDefinitions(export.takeSchemaDefinitions()));
+      nextEntryID = batch.getLastEntryID() + 1;
+    }
+    return batches;
+  }
+
+  private EntryBatchMsg newEntryBatchMsg(EntryRecordBatch batch, int msgId)
+  {
+    return new EntryBatchMsg(server2ID, server1ID, msgId, 0, batch.getLastEntryID() + 1, batch.getNbEntries(),
+        batch.getSchemaDefinitions(), batch.getRecords());
+  }
+
+  /**
+   * Receives messages until one of the expected type, trashing the others, for
+   * at most 10 seconds: the broker times out after 1 second, while the
+   * importer restarts its backend before retrying.
+   */
+  private <T extends ReplicationMsg> T waitForMsg(ReplicationBroker broker, Class<T> expectedType)
+      throws Exception
+  {
+    final long deadline = System.currentTimeMillis() + 10000;
+    while (System.currentTimeMillis() < deadline)
+    {
+      ReplicationMsg msg;
+      try
+      {
+        msg = broker.receive();
+      }
+      catch (SocketTimeoutException e)
+      {
+        continue;
+      }
+      if (expectedType.isInstance(msg))
+      {
+        return expectedType.cast(msg);
+      }
+      if (msg != null)
+      {
+        log("Broker " + broker.getServerId() + " trashes " + msg + " while waiting for " + expectedType);
+      }
+    }
+    fail("Broker " + broker.getServerId() + " did not receive any " + expectedType);
+    return null;
+  }
+
   /**
    * Tests the import side of the InitializeTarget task
    * Test steps :
@@ -64,6 +64,7 @@ public class DomainFakeCfg implements ReplicationDomainCfg
   private ExternalChangelogDomainCfg eclCfg =
     new ExternalChangelogDomainFakeCfg(true, null, null);
   private int windowSize = 100;
+  private int initializationStreams = 4;
 
   /**
    * Creates a new Domain with the provided information
@@ -281,6 +282,17 @@ public class DomainFakeCfg implements ReplicationDomainCfg
     return 100;
   }
 
+  @Override
+  public int getInitializationStreams()
+  {
+    return initializationStreams;
+  }
+
+  public void setInitializationStreams(int initializationStreams)
+  {
+    this.initializationStreams = initializationStreams;
+  }
+
   /**
    * Gets the ECL Domain if it is present.
    *
@@ -31,6 +31,7 @@ import java.util.UUID;
 
 import org.assertj.core.api.Assertions;
 import org.forgerock.opendj.ldap.AttributeDescription;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.ModificationType;
 import org.forgerock.opendj.ldap.schema.AttributeType;
@@ -51,6 +52,7 @@ import org.opends.server.types.Entry;
 import org.opends.server.types.Modification;
 import org.opends.server.types.Operation;
 import org.opends.server.util.TestTimer;
+import org.opends.server.util.TimeThread;
 import org.opends.server.util.TestTimer.CallableVoid;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -214,6 +216,70 @@ public class HistoricalTest extends ReplicationTestCase
     assertEquals(hist.getLastPurgedValuesCount(),11);
   }
 
+  /**
+   * Tests that only the historical values older than the purge delay are
+   * purged, and that the other values are written back unchanged.
+   */
+  @Test
+  public void testPurgeKeepsRecentHistoricalValues() throws Exception
+  {
+    final CSN oldCSN = new CSN(1, 0, 1);
+    final CSN recentCSN = new CSN(TimeThread.getTime(), 0, 1);
+    final String recentDisplayName = "displayName:" + recentCSN + ":repl:recent value";
+    final String recentDescription = "description:" + recentCSN + ":add:recent value";
+    final String entryAdd = "dn:" + recentCSN + ":add";
+    final Entry entry = TestCaseUtils.makeEntry(
+        "dn: uid=user.purge," + TEST_ROOT_DN_STRING,
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.purge",
+        "cn: Purge",
+        "sn: Purge",
+        "ds-sync-hist: description:" + oldCSN + ":add:old value",
+        "ds-sync-hist: " + recentDescription,
+        "ds-sync-hist: " + recentDisplayName,
+        "ds-sync-hist: " + entryAdd);
+
+    final EntryHistorical hist = EntryHistorical.newInstanceFromEntry(entry);
+    assertEquals(hist.getOldestCSN(), oldCSN);
+    hist.setPurgeDelay(MINUTES.toMillis(1));
+
+    final Attribute attr = hist.encodeAndPurge();
+    assertEquals(hist.getLastPurgedValuesCount(), 1);
+    Assertions.assertThat(attr).containsOnly(
+        ByteString.valueOfUtf8(recentDescription),
+        ByteString.valueOfUtf8(recentDisplayName),
+        ByteString.valueOfUtf8(entryAdd));
+  }
+
+  /**
+   * Tests that the historical values of attributes unknown from the server
+   * schema are skipped, without losing the other historical values.
+   */
+  @Test
+  public void testUnknownAttributeHistoricalValuesAreSkipped() throws Exception
+  {
+    final CSN csn = new CSN(TimeThread.getTime(), 0, 1);
+    final String description = "description:" + csn + ":add:kept value";
+    final Entry entry = TestCaseUtils.makeEntry(
+        "dn: uid=user.unknown," + TEST_ROOT_DN_STRING,
+        "objectClass: top",
+        "objectClass: person",
+        "objectClass: organizationalPerson",
+        "objectClass: inetOrgPerson",
+        "uid: user.unknown",
+        "cn: Unknown",
+        "sn: Unknown",
+        "ds-sync-hist: unknownHistoricalAttribute:" + csn + ":add:skipped value",
+        "ds-sync-hist: " + description);
+
+    final EntryHistorical hist = EntryHistorical.newInstanceFromEntry(entry);
+    assertEquals(hist.getOldestCSN(), csn);
+    Assertions.assertThat(hist.encodeAndPurge()).containsOnly(ByteString.valueOfUtf8(description));
+  }
+
   /**
    * The scenario for this test case is that two modify operations occur at
    * two different servers at nearly the same time, each operation adding a
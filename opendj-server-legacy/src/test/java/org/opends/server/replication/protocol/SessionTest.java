@@ -0,0 +1,199 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.protocol;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.opends.server.replication.protocol.ProtocolVersion.*;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.forgerock.opendj.ldap.ByteString;
+import org.opends.server.DirectoryServerTestCase;
+import org.opends.server.TestCaseUtils;
+import org.opends.server.api.MonitorData;
+import org.opends.server.types.Attribute;
+import org.opends.server.util.StaticUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests the {@link Session} class, sending messages on a loopback connection. */
+@SuppressWarnings("javadoc")
+public class SessionTest extends DirectoryServerTestCase
+{
+  private static final int NB_MESSAGES = 100;
+  private static final int MESSAGE_SIZE = 8192;
+
+  private Session sender;
+  private Session receiver;
+
+  @BeforeClass
+  public void startServer() throws Exception
+  {
+    TestCaseUtils.startServer();
+  }
+
+  @BeforeMethod
+  public void openSessions() throws Exception
+  {
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+    {
+      final Socket senderSocket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+      final Socket receiverSocket = serverSocket.accept();
+      // Small socket buffers so that the sender blocks while the receiver does not read
+      senderSocket.setSendBufferSize(MESSAGE_SIZE);
+      receiverSocket.setReceiveBufferSize(MESSAGE_SIZE);
+      sender = newSession(senderSocket);
+      receiver = newSession(receiverSocket);
+    }
+  }
+
+  private Session newSession(Socket socket) throws Exception
+  {
+    // The TLS handshake never happens since encryption is stopped before any exchange
+    final SSLSocket secureSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(
+        socket, socket.getInetAddress().getHostAddress(), socket.getPort(), false);
+    final Session session = new Session(socket, secureSocket);
+    session.stopEncryption();
+    session.setSoTimeout(10000);
+    return session;
+  }
+
+  @AfterMethod
+  public void closeSessions()
+  {
+    StaticUtils.close(sender, receiver);
+  }
+
+  @Test
+  public void testMessagesQueuedWhileBlockedAreSentInBatches() throws Exception
+  {
+    sender.setProtocolVersion(REPLICATION_PROTOCOL_V8);
+    receiver.setProtocolVersion(REPLICATION_PROTOCOL_V8);
+    sender.start();
+    sender.waitForStartup();
+
+    long expectedBytes = 0;
+    for (int i = 0; i < NB_MESSAGES; i++)
+    {
+      final EntryMsg msg = new EntryMsg(1, 2, newEntryBytes(i, MESSAGE_SIZE), i);
+      expectedBytes += 8 + msg.getBytes(REPLICATION_PROTOCOL_V8).length;
+      // The receiver does not read yet: the messages pile up in the send queue
+      sender.publish(msg);
+    }
+
+    assertReceivedInOrder(MESSAGE_SIZE);
+
+    final Map<String, String> senderMonitor = getMonitorData(sender);
+    assertThat(senderMonitor.get("send-queue-size")).isEqualTo("0");
+    assertThat(senderMonitor.get("compression-enabled")).isEqualTo("false");
+    assertThat(senderMonitor.get("sent-bytes")).isEqualTo(String.valueOf(expectedBytes));
+    assertThat(senderMonitor.get("sent-uncompressed-bytes")).isEqualTo(String.valueOf(expectedBytes));
+    assertThat(Double.parseDouble(senderMonitor.get("average-send-batch-size"))).isGreaterThan(1);
+    assertThat(Double.parseDouble(senderMonitor.get("sent-bytes-per-second"))).isGreaterThan(0);
+    assertThat(getMonitorData(receiver).get("received-bytes")).isEqualTo(String.valueOf(expectedBytes));
+    assertThat(receiver.getReceivedBytes()).isEqualTo(expectedBytes);
+  }
+
+  @Test
+  public void testMessagesAreCompressedWithProtocolV9() throws Exception
+  {
+    sender.setProtocolVersion(REPLICATION_PROTOCOL_V9);
+    receiver.setProtocolVersion(REPLICATION_PROTOCOL_V9);
+    sender.start();
+    sender.waitForStartup();
+
+    for (int i = 0; i < NB_MESSAGES; i++)
+    {
+      // Mix messages too small to be compressed with bigger ones
+      final int size = i % 3 == 0 ? 16 : MESSAGE_SIZE;
+      sender.publish(new EntryMsg(1, 2, newEntryBytes(i, size), i));
+    }
+
+    for (int i = 0; i < NB_MESSAGES; i++)
+    {
+      final EntryMsg msg = (EntryMsg) receiver.receive();
+      assertThat(msg.getMsgId()).isEqualTo(i);
+      assertThat(msg.getEntryBytes()).isEqualTo(newEntryBytes(i, i % 3 == 0 ? 16 : MESSAGE_SIZE));
+    }
+
+    assertThat(getMonitorData(sender).get("compression-enabled")).isEqualTo("true");
+    assertThat(sender.getSentBytes()).isLessThan(sender.getSentUncompressedBytes() / 2);
+    assertThat(receiver.getReceivedBytes()).isEqualTo(sender.getSentBytes());
+  }
+
+  @Test
+  public void testMessagesAreNotCompressedBeforeNegotiation() throws Exception
+  {
+    sender.setProtocolVersion(REPLICATION_PROTOCOL_V8);
+    receiver.setProtocolVersion(REPLICATION_PROTOCOL_V9);
+
+    // Not started: messages are written directly by the publishing thread
+    for (int i = 0; i < NB_MESSAGES / 10; i++)
+    {
+      sender.publish(new EntryMsg(1, 2, newEntryBytes(i, MESSAGE_SIZE / 8), i));
+      final EntryMsg msg = (EntryMsg) receiver.receive();
+      assertThat(msg.getEntryBytes()).isEqualTo(newEntryBytes(i, MESSAGE_SIZE / 8));
+    }
+
+    assertThat(sender.getSentBytes()).isEqualTo(sender.getSentUncompressedBytes());
+    assertThat(receiver.getReceivedBytes()).isEqualTo(sender.getSentBytes());
+    assertThat(getMonitorData(sender).get("average-send-batch-size")).isEqualTo("1");
+  }
+
+  private void assertReceivedInOrder(int size) throws Exception
+  {
+    for (int i = 0; i < NB_MESSAGES; i++)
+    {
+      final EntryMsg msg = (EntryMsg) receiver.receive();
+      assertThat(msg.getMsgId()).isEqualTo(i);
+      assertThat(msg.getEntryBytes()).isEqualTo(newEntryBytes(i, size));
+    }
+  }
+
+  /** Returns compressible entry bytes, different for each message. */
+  private static byte[] newEntryBytes(int msgNumber, int size)
+  {
+    final byte[] bytes = new byte[size];
+    Arrays.fill(bytes, (byte) ('a' + msgNumber % 26));
+    bytes[0] = (byte) msgNumber;
+    return bytes;
+  }
+
+  private static Map<String, String> getMonitorData(Session session)
+  {
+    final MonitorData monitorData = new MonitorData();
+    session.addMonitorData(monitorData);
+    final Map<String, String> results = new HashMap<>();
+    for (Attribute attribute : monitorData)
+    {
+      for (ByteString value : attribute)
+      {
+        results.put(attribute.getAttributeDescription().getNameOrOID(), value.toString());
+      }
+    }
+    return results;
+  }
+}
@@ -1133,6 +1133,74 @@ public class SynchronizationMsgTest extends ReplicationTestCase
     assertEquals(TEST_ROOT_DN, newMsg.getBaseDN());
   }
 
+  /**
+   * Test that the number of entry record streams offered by InitializeTargetMsg
+   * is only encoded from protocol V10.
+   */
+  @Test
+  public void initializeTargetMsgStreamsTest() throws Exception
+  {
+    InitializeTargetMsg msg = new InitializeTargetMsg(TEST_ROOT_DN, 1, 2, 3, 4, 100, 8);
+    InitializeTargetMsg newMsg = new InitializeTargetMsg(
+        msg.getBytes(REPLICATION_PROTOCOL_V10), REPLICATION_PROTOCOL_V10);
+    assertEquals(newMsg.getNbStreams(), 8);
+    assertEquals(newMsg.getInitWindow(), 100);
+
+    InitializeTargetMsg oldMsg = new InitializeTargetMsg(
+        msg.getBytes(REPLICATION_PROTOCOL_V9), REPLICATION_PROTOCOL_V9);
+    assertEquals(oldMsg.getNbStreams(), 0);
+    assertEquals(oldMsg.getInitWindow(), 100);
+  }
+
+  /**
+   * Test that InitializeStreamsMsg encoding and decoding works.
+   */
+  @Test
+  public void initializeStreamsMsgTest() throws Exception
+  {
+    List<InitializeStreamsMsg.StreamPosition> positions = newArrayList(
+        new InitializeStreamsMsg.StreamPosition(1, 500),
+        new InitializeStreamsMsg.StreamPosition(742, Long.MAX_VALUE));
+    InitializeStreamsMsg msg = new InitializeStreamsMsg(1, 2, 1234567890123L, positions);
+    InitializeStreamsMsg newMsg =
+        (InitializeStreamsMsg) ReplicationMsg.generateMsg(msg.getBytes(getCurrentVersion()), getCurrentVersion());
+    assertEquals(newMsg.getSenderID(), 1);
+    assertEquals(newMsg.getDestination(), 2);
+    assertEquals(newMsg.getGenerationId(), 1234567890123L);
+    assertEquals(newMsg.getPositions(), positions);
+
+    InitializeStreamsMsg emptyMsg = new InitializeStreamsMsg(
+        new InitializeStreamsMsg(3, 4, -1, new ArrayList<InitializeStreamsMsg.StreamPosition>())
+            .getBytes(getCurrentVersion()));
+    assertEquals(emptyMsg.getGenerationId(), -1);
+    assertTrue(emptyMsg.getPositions().isEmpty());
+  }
+
+  /**
+   * Test that EntryBatchMsg encoding and decoding works.
+   */
+  @Test
+  public void entryBatchMsgTest() throws Exception
+  {
+    byte[] definitions = { 1, 2, 3 };
+    byte[] records = new byte[70000];
+    for (int i = 0; i < records.length; i++)
+    {
+      records[i] = (byte) i;
+    }
+    EntryBatchMsg msg = new EntryBatchMsg(1, 2, 17, 3, 4242, 250, definitions, records);
+    EntryBatchMsg newMsg =
+        (EntryBatchMsg) ReplicationMsg.generateMsg(msg.getBytes(getCurrentVersion()), getCurrentVersion());
+    assertEquals(newMsg.getSenderID(), 1);
+    assertEquals(newMsg.getDestination(), 2);
+    assertEquals(newMsg.getMsgId(), 17);
+    assertEquals(newMsg.getStreamId(), 3);
+    assertEquals(newMsg.getNextEntryID(), 4242);
+    assertEquals(newMsg.getNbEntries(), 250);
+    assertEquals(newMsg.getSchemaDefinitions(), definitions);
+    assertEquals(newMsg.getRecords(), records);
+  }
+
   /**
    * Test that DoneMsg encoding and decoding works.
    */
@@ -0,0 +1,207 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.opends.server.replication.ReplicationTestCase;
+import org.opends.server.replication.common.CSN;
+import org.opends.server.replication.protocol.UpdateMsg;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/** Test {@link MsgQueue}. */
+@SuppressWarnings("javadoc")
+public class MsgQueueTest extends ReplicationTestCase
+{
+  private static final int NB_PRODUCERS = 4;
+  private static final int NB_CONSUMERS = 3;
+  private static final int NB_MSGS_PER_PRODUCER = 5000;
+
+  private static UpdateMsg newUpdateMsg(long time, int payloadSize)
+  {
+    return newUpdateMsg(time, 1, payloadSize);
+  }
+
+  private static UpdateMsg newUpdateMsg(long time, int serverId, int payloadSize)
+  {
+    return new UpdateMsg(new CSN(time, 0, serverId), new byte[payloadSize]);
+  }
+
+  @Test
+  public void orderedByCSN()
+  {
+    final MsgQueue queue = new MsgQueue();
+    final UpdateMsg msg1 = newUpdateMsg(1, 10);
+    final UpdateMsg msg2 = newUpdateMsg(2, 20);
+    final UpdateMsg msg3 = newUpdateMsg(3, 30);
+    queue.add(msg3);
+    queue.add(msg1);
+    queue.add(msg2);
+    // same message twice
+    queue.add(msg2);
+
+    assertEquals(queue.count(), 3);
+    assertEquals(queue.bytesCount(), msg1.size() + msg2.size() + msg3.size());
+    assertSame(queue.first(), msg1);
+    assertSame(queue.removeFirst(), msg1);
+    assertSame(queue.removeFirst(), msg2);
+    assertSame(queue.removeFirst(), msg3);
+
+    assertTrue(queue.isEmpty());
+    assertNull(queue.first());
+    assertNull(queue.removeFirst());
+    assertEquals(queue.count(), 0);
+    assertEquals(queue.bytesCount(), 0);
+  }
+
+  @Test
+  public void consumeUpTo()
+  {
+    final MsgQueue queue = new MsgQueue();
+    final UpdateMsg msg1 = newUpdateMsg(1, 10);
+    final UpdateMsg msg2 = newUpdateMsg(2, 20);
+    final UpdateMsg msg3 = newUpdateMsg(3, 30);
+    queue.add(msg1);
+    queue.add(msg2);
+    queue.add(msg3);
+
+    assertTrue(queue.contains(msg2));
+    queue.consumeUpTo(msg2);
+    assertFalse(queue.contains(msg2));
+    assertEquals(queue.count(), 1);
+    assertEquals(queue.bytesCount(), msg3.size());
+    assertSame(queue.first(), msg3);
+
+    queue.clear();
+    assertTrue(queue.isEmpty());
+    assertEquals(queue.bytesCount(), 0);
+  }
+
+  /**
+   * Producers, consumers and a trimmer concurrently access the queue: each
+   * consumer must see the updates of each producer in order, no update can be
+   * removed twice, and the counters must be exact once the queue is quiescent.
+   */
+  @Test
+  public void concurrentProducersAndConsumers() throws Exception
+  {
+    final MsgQueue queue = new MsgQueue();
+    final CountDownLatch producersDone = new CountDownLatch(NB_PRODUCERS);
+    final Set<CSN> removedCSNs = ConcurrentHashMap.newKeySet();
+    final ExecutorService executor = Executors.newFixedThreadPool(NB_PRODUCERS + NB_CONSUMERS + 1);
+    try
+    {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int i = 1; i <= NB_PRODUCERS; i++)
+      {
+        final int serverId = i;
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call()
+          {
+            for (int time = 1; time <= NB_MSGS_PER_PRODUCER; time++)
+            {
+              queue.add(newUpdateMsg(time, serverId, time % 50));
+            }
+            producersDone.countDown();
+            return null;
+          }
+        }));
+      }
+      for (int i = 0; i < NB_CONSUMERS; i++)
+      {
+        futures.add(executor.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception
+          {
+            final long[] lastTimes = new long[NB_PRODUCERS + 1];
+            while (producersDone.getCount() > 0)
+            {
+              final UpdateMsg msg = queue.removeFirst();
+              if (msg != null)
+              {
+                final CSN csn = msg.getCSN();
+                assertTrue(csn.getTime() > lastTimes[csn.getServerId()], "Out of order " + csn);
+                lastTimes[csn.getServerId()] = csn.getTime();
+                assertTrue(removedCSNs.add(csn), "Removed twice " + csn);
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      futures.add(executor.submit(new Callable<Void>()
+      {
+        @Override
+        public Void call()
+        {
+          while (producersDone.getCount() > 0)
+          {
+            final UpdateMsg first = queue.first();
+            if (first != null)
+            {
+              queue.consumeUpTo(first);
+            }
+          }
+          return null;
+        }
+      }));
+      for (Future<?> future : futures)
+      {
+        future.get();
+      }
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+
+    // the queue is now quiescent: the counters must match its content
+    final int count = queue.count();
+    final int bytesCount = queue.bytesCount();
+    int remaining = 0;
+    int remainingBytes = 0;
+    CSN previous = null;
+    UpdateMsg msg;
+    while ((msg = queue.removeFirst()) != null)
+    {
+      assertFalse(removedCSNs.contains(msg.getCSN()), "Removed but still in the queue " + msg.getCSN());
+      if (previous != null)
+      {
+        assertTrue(previous.isOlderThan(msg.getCSN()));
+      }
+      previous = msg.getCSN();
+      remaining++;
+      remainingBytes += msg.size();
+    }
+    assertEquals(count, remaining);
+    assertEquals(bytesCount, remainingBytes);
+    assertEquals(queue.count(), 0);
+    assertEquals(queue.bytesCount(), 0);
+  }
+}
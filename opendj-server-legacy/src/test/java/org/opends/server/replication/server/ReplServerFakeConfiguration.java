@@ -60,6 +60,7 @@ public class ReplServerFakeConfiguration implements ReplicationServerCfg
   /** The monitoring publisher period. */
   private long monitoringPeriod = 3000;
   private boolean computeChangenumber;
+  private int targetDNIndexSize = 10000;
 
   /** Constructor without group id, assured info and weight. */
   public ReplServerFakeConfiguration(
@@ -272,6 +273,17 @@ public class ReplServerFakeConfiguration implements ReplicationServerCfg
     this.computeChangenumber = computeChangenumber;
   }
 
+  @Override
+  public int getTargetDNIndexSize()
+  {
+    return targetDNIndexSize;
+  }
+
+  public void setTargetDNIndexSize(int targetDNIndexSize)
+  {
+    this.targetDNIndexSize = targetDNIndexSize;
+  }
+
   public void setConfidentialityEnabled(boolean confidentialityEnabled)
   {
     this.confidentialityEnabled = confidentialityEnabled;
@@ -19,6 +19,8 @@ import static org.assertj.core.api.Assertions.*;
 import static org.opends.server.replication.server.changelog.file.FileReplicaDBTest.*;
 import static org.testng.Assert.*;
 
+import java.util.Arrays;
+
 import org.forgerock.opendj.config.server.ConfigException;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.server.config.server.ReplicationServerCfg;
@@ -99,6 +101,47 @@ public class FileChangeNumberIndexDBTest extends ReplicationTestCase
       {
         assertCursorReadsInOrder(cursor, cn3);
       }
+      try (DBCursor<ChangeNumberIndexRecord> cursor = cnIndexDB.getCursorFrom(cn1, cn2))
+      {
+        assertCursorReadsInOrder(cursor, cn1, cn2);
+      }
+      try (DBCursor<ChangeNumberIndexRecord> cursor = cnIndexDB.getCursorFrom(cn2, cn2))
+      {
+        assertCursorReadsInOrder(cursor, cn2);
+      }
+    }
+    finally
+    {
+      remove(replicationServer);
+    }
+  }
+
+  @Test
+  public void testAddRecordsInBatch() throws Exception
+  {
+    ReplicationServer replicationServer = null;
+    try
+    {
+      replicationServer = newReplicationServer(false);
+      final ChangelogDB changelogDB = replicationServer.getChangelogDB();
+      changelogDB.setPurgeDelay(0);
+      final FileChangeNumberIndexDB cnIndexDB = getCNIndexDB(replicationServer);
+
+      final CSN[] csns = generateCSNs(1, 0, 4);
+      final long cn1 = addRecord(cnIndexDB, DN.valueOf("o=test1"), csns[0]);
+      final long cn2 = cnIndexDB.addRecords(Arrays.asList(
+          new ChangeNumberIndexRecord(DN.valueOf("o=test2"), csns[1]),
+          new ChangeNumberIndexRecord(DN.valueOf("o=test3"), csns[2]),
+          new ChangeNumberIndexRecord(DN.valueOf("o=test1"), csns[3])));
+
+      assertEquals(cn2, cn1 + 1);
+      assertEquals(cnIndexDB.getNewestRecord().getChangeNumber(), cn1 + 3);
+      assertEquals(cnIndexDB.getNewestRecord().getCSN(), csns[3]);
+      assertEquals(cnIndexDB.count(), 4, "Db count");
+      try (DBCursor<ChangeNumberIndexRecord> cursor = cnIndexDB.getCursorFrom(cn1))
+      {
+        assertCursorReadsInOrder(cursor, cn1, cn1 + 1, cn1 + 2, cn1 + 3);
+      }
     }
     finally
     {
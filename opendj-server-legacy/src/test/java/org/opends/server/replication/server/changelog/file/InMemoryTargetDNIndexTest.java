@@ -0,0 +1,75 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions Copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Open Identity Platform Community.
+ */
+package org.opends.server.replication.server.changelog.file;
+
+import static java.util.Arrays.*;
+import static org.testng.Assert.*;
+
+import org.forgerock.opendj.ldap.DN;
+import org.opends.server.DirectoryServerTestCase;
+import org.testng.annotations.Test;
+
+/** Test {@link InMemoryTargetDNIndex}. */
+@SuppressWarnings("javadoc")
+public class InMemoryTargetDNIndexTest extends DirectoryServerTestCase
+{
+  private static final DN DN1 = DN.valueOf("uid=user1,o=test");
+  private static final DN DN2 = DN.valueOf("uid=user2,o=test");
+  private static final DN DN3 = DN.valueOf("uid=user3,o=test");
+
+  @Test
+  public void evictsOldestChangeNumbers()
+  {
+    final InMemoryTargetDNIndex index = new InMemoryTargetDNIndex(2);
+    assertNull(index.getTargetDN(1));
+
+    index.addTargetDNs(1, asList(DN1, null));
+    assertEquals(index.getTargetDN(1), DN1);
+    assertNull(index.getTargetDN(2), "change not targeting an entry");
+
+    index.addTargetDNs(3, asList(DN3));
+    assertNull(index.getTargetDN(1), "evicted");
+    assertNull(index.getTargetDN(2));
+    assertEquals(index.getTargetDN(3), DN3);
+    assertNull(index.getTargetDN(4), "not indexed yet");
+  }
+
+  @Test
+  public void restartsOnNonConsecutiveChangeNumbers()
+  {
+    final InMemoryTargetDNIndex index = new InMemoryTargetDNIndex(10);
+    index.addTargetDNs(1, asList(DN1, DN2));
+    index.addTargetDNs(8, asList(DN3));
+
+    assertNull(index.getTargetDN(1));
+    assertNull(index.getTargetDN(2));
+    assertEquals(index.getTargetDN(8), DN3);
+
+    index.clear();
+    assertNull(index.getTargetDN(8));
+  }
+
+  @Test
+  public void batchLargerThanIndex()
+  {
+    final InMemoryTargetDNIndex index = new InMemoryTargetDNIndex(2);
+    index.addTargetDNs(5, asList(DN1, DN2, DN3));
+
+    assertNull(index.getTargetDN(5));
+    assertEquals(index.getTargetDN(6), DN2);
+    assertEquals(index.getTargetDN(7), DN3);
+  }
+}
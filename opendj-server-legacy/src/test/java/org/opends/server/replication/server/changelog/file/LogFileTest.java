@@ -18,6 +18,7 @@ package org.opends.server.replication.server.changelog.file;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.Random;
 
 import org.forgerock.i18n.LocalizableMessage;
 import org.forgerock.opendj.ldap.ByteSequenceReader;
@@ -278,6 +279,129 @@ public class LogFileTest extends DirectoryServerTestCase
     }
   }
 
+  @Test
+  public void testCursorPositionToOnIndexedReadOnlyLogFile() throws Exception
+  {
+    final int nbRecords = 5000;
+    final File readOnlyLogFile = createIndexedReadOnlyLogFile(nbRecords);
+    try
+    {
+      assertThat(LogFileIndex.getIndexFile(readOnlyLogFile)).exists();
+      try (LogFile<String, String> logFile = LogFile.newReadOnlyLogFile(readOnlyLogFile, RECORD_PARSER))
+      {
+        for (int i : new int[] { 1, 2, 1000, 2500, 4999, nbRecords })
+        {
+          try (LogFileCursor<String, String> cursor = logFile.getCursor())
+          {
+            assertThat(cursor.positionTo(bigKey(i), EQUAL_TO_KEY, ON_MATCHING_KEY)).isTrue();
+            assertThat(cursor.next()).isTrue();
+            assertThat(cursor.getRecord().getKey()).isEqualTo(bigKey(i));
+          }
+          try (LogFileCursor<String, String> cursor = logFile.getCursor())
+          {
+            // key just before bigKey(i)
+            assertThat(cursor.positionTo(bigKey(i) + "0", LESS_THAN_OR_EQUAL_TO_KEY, ON_MATCHING_KEY)).isTrue();
+            assertThat(cursor.next()).isTrue();
+            assertThat(cursor.getRecord().getKey()).isEqualTo(bigKey(i));
+          }
+        }
+        try (LogFileCursor<String, String> cursor = logFile.getCursor())
+        {
+          assertThat(cursor.positionTo(bigKey(0), EQUAL_TO_KEY, ON_MATCHING_KEY)).isFalse();
+        }
+      }
+    }
+    finally
+    {
+      deleteLogFile(readOnlyLogFile);
+    }
+  }
+
+  /**
+   * Checks that the index reduces the number of records read to position cursors on a large read-only log file,
+   * and bounds it whatever the size of the file.
+   */
+  @Test
+  public void testIndexReducesRecordsReadByCursorPositioning() throws Exception
+  {
+    final int nbRecords = 20000;
+    final File readOnlyLogFile = createIndexedReadOnlyLogFile(nbRecords);
+    try
+    {
+      final double withIndex = averageRecordsReadByCursorPositioning(readOnlyLogFile, nbRecords);
+      LogFileIndex.deleteIndexFile(readOnlyLogFile);
+      final double withoutIndex = averageRecordsReadByCursorPositioning(readOnlyLogFile, nbRecords);
+
+      // records are more than 200 bytes long, so there are less than 20 records between two indexed records
+      assertThat(withIndex).isLessThan(LogFileIndex.INDEX_INTERVAL / 200 + 1);
+      assertThat(withIndex)
+          .as("Records read to position a cursor: %s with index, %s without", withIndex, withoutIndex)
+          .isLessThan(withoutIndex);
+    }
+    finally
+    {
+      deleteLogFile(readOnlyLogFile);
+    }
+  }
+
+  /** Returns the average number of records read to position a cursor on a random key of the provided log file. */
+  private double averageRecordsReadByCursorPositioning(File readOnlyLogFile, int nbRecords) throws Exception
+  {
+    final int nbPositionings = 1000;
+    final Random random = new Random(0);
+    long nbRecordsRead = 0;
+    try (LogFile<String, String> logFile = LogFile.newReadOnlyLogFile(readOnlyLogFile, RECORD_PARSER))
+    {
+      for (int i = 0; i < nbPositionings; i++)
+      {
+        try (LogFileCursor<String, String> cursor = logFile.getCursor())
+        {
+          final long before = cursor.getNbRecordsRead();
+          assertThat(cursor.positionTo(bigKey(1 + random.nextInt(nbRecords)), EQUAL_TO_KEY, ON_MATCHING_KEY)).isTrue();
+          nbRecordsRead += cursor.getNbRecordsRead() - before;
+        }
+      }
+    }
+    return (double) nbRecordsRead / nbPositionings;
+  }
+
+  private static String bigKey(int i)
+  {
+    return String.format("bigkey%07d", i);
+  }
+
+  /**
+   * Creates a read-only log file containing the provided number of records, with its index, the same way the head
+   * log file is rotated by {@link Log}.
+   */
+  private File createIndexedReadOnlyLogFile(int nbRecords) throws Exception
+  {
+    final File headLogFile = new File(TEST_DIRECTORY, "indexed-" + Log.HEAD_LOG_FILE_NAME);
+    final File readOnlyLogFile = new File(TEST_DIRECTORY, bigKey(1) + "_" + bigKey(nbRecords) + ".log");
+    TEST_DIRECTORY.mkdirs();
+    headLogFile.delete();
+    final StringBuilder value = new StringBuilder();
+    while (value.length() < 200)
+    {
+      value.append("value");
+    }
+    final LogFile<String, String> logFile = LogFile.newAppendableLogFile(headLogFile, RECORD_PARSER);
+    for (int i = 1; i <= nbRecords; i++)
+    {
+      logFile.append(Record.from(bigKey(i), value.toString()));
+    }
+    logFile.close();
+    StaticUtils.renameFile(headLogFile, readOnlyLogFile);
+    logFile.writeIndexTo(readOnlyLogFile);
+    return readOnlyLogFile;
+  }
+
+  private void deleteLogFile(File logFile)
+  {
+    logFile.delete();
+    LogFileIndex.deleteIndexFile(logFile);
+  }
+
   /**
    * Read the cursor until exhaustion, ensuring that its first value is fromIndex and its last value
    * endIndex, using (keyN, valueN) where N is the index.
@@ -20,6 +20,7 @@ import static org.opends.messages.ReplicationMessages.*;
 import static org.opends.server.util.CollectionUtils.*;
 import static org.testng.Assert.*;
 
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.concurrent.BlockingQueue;
@@ -35,6 +36,7 @@ import org.opends.server.replication.common.DSInfo;
 import org.opends.server.replication.common.RSInfo;
 import org.opends.server.replication.common.ServerState;
 import org.opends.server.replication.common.ServerStatus;
+import org.opends.server.replication.protocol.InitializeStreamsMsg.StreamPosition;
 import org.opends.server.replication.protocol.UpdateMsg;
 import org.opends.server.replication.server.ReplServerFakeConfiguration;
 import org.opends.server.replication.server.ReplicationServer;
@@ -458,6 +460,56 @@ public class ReplicationDomainTest extends ReplicationTestCase
     assertEquals(importedData.toString(), exportedData);
   }
 
+  /**
+   * Checks that an exporter waiting for the initialization window to open is
+   * woken up by the acknowledgement of the slowest importer, instead of
+   * waiting for its timeout to expire.
+   */
+  @Test
+  public void testExporterIsWokenUpByAcknowledgement() throws Exception
+  {
+    final int initWindow = 10;
+    final ImportExportContext ieContext = new ImportExportContext(initWindow);
+    ieContext.setAckVal(2, 0);
+    ieContext.setAckVal(3, 0);
+
+    // no acknowledgement: the message stays out of the window until the timeout expires
+    assertFalse(ieContext.waitForInitWindow(initWindow + 1, 10));
+
+    final Thread acknowledger = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          Thread.sleep(200);
+          ieContext.setAckVal(2, 5);
+          Thread.sleep(200);
+          ieContext.setAckVal(3, 5);
+        }
+        catch (InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    acknowledger.start();
+    try
+    {
+      final long start = System.currentTimeMillis();
+      // the first acknowledgement wakes up the exporter, but only the slowest importer opens the window
+      assertTrue(ieContext.waitForInitWindow(initWindow + 1, 60000)
+          || ieContext.waitForInitWindow(initWindow + 1, 60000));
+      assertEquals(ieContext.getSlowestServer(), 3);
+      assertTrue(System.currentTimeMillis() - start < 30000, "The exporter waited for the timeout");
+    }
+    finally
+    {
+      acknowledger.join();
+    }
+  }
+
   private long getLeftEntryCount(ReplicationDomain domain)
   {
     final ImportExportContext ieContext = domain.getImportExportContext();
@@ -491,6 +543,21 @@ public class ReplicationDomainTest extends ReplicationTestCase
   final int SENDERPORT = 10102;
   final int RECEIVERPORT = 10101;
 
+  @Test
+  public void splitEntryIDsCoversAllEntries() throws Exception
+  {
+    List<StreamPosition> positions = ReplicationDomain.splitEntryIDs(10, 4);
+    assertEquals(positions, newArrayList(
+        new StreamPosition(1, 4),
+        new StreamPosition(4, 7),
+        new StreamPosition(7, 10),
+        new StreamPosition(10, Long.MAX_VALUE)));
+
+    // more streams than entries: the entries added during the export go to the last stream
+    positions = ReplicationDomain.splitEntryIDs(0, 2);
+    assertEquals(positions, newArrayList(new StreamPosition(1, 2), new StreamPosition(2, Long.MAX_VALUE)));
+  }
+
   @Test(enabled=false)
   public void senderInitialize() throws Exception
   {
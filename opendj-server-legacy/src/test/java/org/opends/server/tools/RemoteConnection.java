@@ -85,15 +85,25 @@ public final class RemoteConnection implements Closeable
   }
 
   public RemoteConnection(String host, int port, boolean secure) throws Exception
+  {
+    this(host, secure ? getSslSocket(host, port) : new Socket(host, port));
+  }
+
+  public RemoteConnection(String host, int port, SSLSocketFactory socketFactory) throws Exception
+  {
+    this(host, socketFactory.createSocket(host, port));
+  }
+
+  private RemoteConnection(String host, Socket socket) throws Exception
   {
     this.host = host;
-    socket = secure ? getSslSocket(host, port) : new Socket(host, port);
+    this.socket = socket;
     r = new LDAPReader(socket);
     w = new LDAPWriter(socket);
     TestCaseUtils.configureSocket(socket);
   }
 
-  private Socket getSslSocket(String host, int port) throws Exception
+  private static Socket getSslSocket(String host, int port) throws Exception
   {
     SSLContext sslCtx = SSLContext.getInstance("TLSv1");
     TrustManager[] tm = new TrustManager[] { new BlindTrustManager() };
@@ -19,15 +19,24 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.opends.server.util.StaticUtils.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.forgerock.opendj.ldap.DN;
 import org.opends.server.DirectoryServerTestCase;
@@ -35,6 +44,8 @@ import org.opends.server.TestCaseUtils;
 import org.opends.server.api.Backupable;
 import org.opends.server.types.BackupConfig;
 import org.opends.server.types.BackupDirectory;
+import org.opends.server.types.BackupInfo;
+import org.opends.server.types.DirectoryException;
 import org.opends.server.types.RestoreConfig;
 import org.testng.Reporter;
 import org.testng.annotations.BeforeClass;
@@ -214,6 +225,187 @@ public class BackupManagerTestCase extends DirectoryServerTestCase
     cleanDirectories(sourceDirectory, backupPath);
   }
 
+  /**
+   * Checks that the backups of a backup directory share the chunks of the
+   * files, and that the chunks are removed with the last backup using them.
+   */
+  @Test
+  public void testChunkedBackupsShareChunks() throws Exception
+  {
+    Path sourceDirectory = createSourceDirectory("sharedChunks");
+    BackupDirectory backupDir = buildBackupDir("sharedChunks");
+    String backupPath = backupDir.getPath();
+    BackupManager backupManager = new BackupManager(BACKEND_ID);
+
+    List<Path> files = createFilesInDirectoryToBackup(sourceDirectory, 2);
+    Path largeFile = sourceDirectory.resolve("large_file");
+    byte[] largeFileContent = new byte[6 * 1024 * 1024];
+    new Random(0).nextBytes(largeFileContent);
+    createFile(largeFile, largeFileContent);
+    files.add(largeFile);
+
+    BackupConfig backupConfig0 = new BackupConfig(backupDir, BACKUP_ID + "_0", false);
+    backupConfig0.setHashData(true);
+    backupConfig0.setCompressData(true);
+    backupManager.createBackup(buildBackupable(sourceDirectory, files), backupConfig0);
+    long chunkCount0 = countChunkFiles(backupPath);
+    assertThat(chunkCount0).isGreaterThan(3);
+
+    // the same files do not add any chunk
+    BackupConfig backupConfig1 = new BackupConfig(backupDir, BACKUP_ID + "_1", true);
+    backupConfig1.setHashData(true);
+    backupConfig1.setCompressData(true);
+    backupManager.createBackup(buildBackupable(sourceDirectory, files), backupConfig1);
+    assertThat(countChunkFiles(backupPath)).isEqualTo(chunkCount0);
+
+    // inserting data at the beginning of a file only changes its first chunks
+    byte[] newLargeFileContent = new byte[largeFileContent.length + 1000];
+    System.arraycopy(largeFileContent, 0, newLargeFileContent, 1000, largeFileContent.length);
+    createFile(largeFile, newLargeFileContent);
+    BackupConfig backupConfig2 = new BackupConfig(backupDir, BACKUP_ID + "_2", false);
+    backupConfig2.setHashData(true);
+    backupConfig2.setCompressData(true);
+    backupManager.createBackup(buildBackupable(sourceDirectory, files), backupConfig2);
+    assertThat(countChunkFiles(backupPath)).isBetween(chunkCount0 + 1, chunkCount0 + 2);
+
+    // the last backup can be restored without the previous ones
+    backupManager.removeBackup(backupDir, BACKUP_ID + "_0");
+    backupManager.removeBackup(backupDir, BACKUP_ID + "_1");
+    assertThat(countChunkFiles(backupPath)).isLessThan(chunkCount0 + 1);
+
+    Backupable backupable = buildBackupable(sourceDirectory, files);
+    removeBackedUpFiles(backupable);
+    backupManager.restoreBackup(backupable, new RestoreConfig(backupDir, BACKUP_ID + "_2", false));
+    assertThat(Files.readAllBytes(largeFile)).isEqualTo(newLargeFileContent);
+    assertThat(sourceDirectory.resolve(FILE_NAME_PREFIX + 1).toFile()).hasContent(FILE_NAME_PREFIX + 1);
+
+    backupManager.removeBackup(backupDir, BACKUP_ID + "_2");
+    assertThat(countChunkFiles(backupPath)).isEqualTo(0);
+
+    cleanDirectories(sourceDirectory, backupPath);
+  }
+
+  @Test(expectedExceptions = DirectoryException.class)
+  public void testVerifyBackupWithCorruptedChunk() throws Exception
+  {
+    Path sourceDirectory = createSourceDirectory("corruptedChunk");
+    BackupDirectory backupDir = buildBackupDir("corruptedChunk");
+    BackupManager backupManager = new BackupManager(BACKEND_ID);
+
+    Backupable backupable = buildBackupable(sourceDirectory, 1);
+    backupManager.createBackup(backupable, new BackupConfig(backupDir, BACKUP_ID, false));
+
+    try
+    {
+      File chunkFile = listChunkFiles(backupDir.getPath()).get(0);
+      createFile(chunkFile.toPath(), StaticUtils.getBytes("corrupted"));
+
+      backupManager.restoreBackup(backupable, new RestoreConfig(backupDir, BACKUP_ID, true));
+    }
+    finally
+    {
+      cleanDirectories(sourceDirectory, backupDir.getPath());
+    }
+  }
+
+  /**
+   * Checks that the chunks of an encrypted backup are not named after the
+   * digest of their contents, and that the chunk files being written are not
+   * removed with the unreferenced chunks.
+   */
+  @Test
+  public void testEncryptedChunksAreIdentifiedByMac() throws Exception
+  {
+    Path sourceDirectory = createSourceDirectory("encryptedChunks");
+    BackupDirectory backupDir = buildBackupDir("encryptedChunks");
+    String backupPath = backupDir.getPath();
+    BackupManager backupManager = new BackupManager(BACKEND_ID);
+
+    Backupable backupable = buildBackupable(sourceDirectory, 1);
+    BackupConfig backupConfig = new BackupConfig(backupDir, BACKUP_ID, false);
+    backupConfig.setEncryptData(true);
+    backupManager.createBackup(backupable, backupConfig);
+
+    BackupInfo backupInfo = BackupDirectory.readBackupDirectoryDescriptor(backupPath).getBackupInfo(BACKUP_ID);
+    assertThat(backupInfo.getBackupProperties()).containsKey(ServerConstants.BACKUP_PROPERTY_CHUNK_MAC_KEY_ID);
+    List<File> chunkFiles = listChunkFiles(backupPath);
+    assertThat(chunkFiles).hasSize(1);
+    String digest = bytesToHexNoSpace(
+        MessageDigest.getInstance("SHA-256").digest(StaticUtils.getBytes(FILE_NAME_PREFIX + 0)));
+    assertThat(chunkFiles.get(0).getName()).doesNotStartWith(digest);
+
+    removeBackedUpFiles(backupable);
+    backupManager.restoreBackup(backupable, new RestoreConfig(backupDir, BACKUP_ID, false));
+    assertAllFilesAreRestoredCorrectly(backupable);
+
+    Path temporaryFile = chunkFiles.get(0).toPath().resolveSibling("chunk.tmp");
+    createFile(temporaryFile, StaticUtils.getBytes("partial chunk"));
+    backupManager.removeBackup(backupDir, BACKUP_ID);
+    assertThat(listChunkFiles(backupPath)).containsExactly(temporaryFile.toFile());
+
+    cleanDirectories(sourceDirectory, backupPath);
+  }
+
+  /** Backups created as a single zip archive by the previous versions must still be restored. */
+  @Test
+  public void testRestoreZipArchive() throws Exception
+  {
+    Path sourceDirectory = createSourceDirectory("zipArchive");
+    BackupDirectory backupDir = buildBackupDir("zipArchive");
+    Backupable backupable = buildBackupable(sourceDirectory, 3);
+
+    String archiveFileName = getArchiveFileName(BACKUP_ID);
+    try (ZipOutputStream zipStream =
+        new ZipOutputStream(new FileOutputStream(new File(backupDir.getPath(), archiveFileName))))
+    {
+      ListIterator<Path> files = backupable.getFilesToBackup();
+      while (files.hasNext())
+      {
+        Path file = files.next();
+        zipStream.putNextEntry(new ZipEntry(file.getFileName().toString()));
+        zipStream.write(Files.readAllBytes(file));
+        zipStream.closeEntry();
+      }
+    }
+    HashMap<String, String> properties = new HashMap<>();
+    properties.put(ServerConstants.BACKUP_PROPERTY_ARCHIVE_FILENAME, archiveFileName);
+    backupDir.addBackup(new BackupInfo(
+        backupDir, BACKUP_ID, new Date(), false, false, false, null, null, new HashSet<String>(), properties));
+    backupDir.writeBackupDirectoryDescriptor();
+
+    removeBackedUpFiles(backupable);
+    BackupManager backupManager = new BackupManager(BACKEND_ID);
+    backupManager.restoreBackup(backupable, new RestoreConfig(backupDir, BACKUP_ID, false));
+    assertAllFilesAreRestoredCorrectly(backupable);
+
+    backupManager.removeBackup(backupDir, BACKUP_ID);
+    assertThat(new File(backupDir.getPath(), archiveFileName)).doesNotExist();
+
+    cleanDirectories(sourceDirectory, backupDir.getPath());
+  }
+
+  @Test
+  public void testContentDefinedChunkerBoundaries() throws Exception
+  {
+    byte[] data = new byte[10 * 1024 * 1024];
+    new Random(1).nextBytes(data);
+
+    BackupManager.ContentDefinedChunker chunker = new BackupManager.ContentDefinedChunker();
+    chunker.setInput(new ByteArrayInputStream(data));
+    int offset = 0;
+    for (byte[] chunk = chunker.nextChunk(); chunk != null; chunk = chunker.nextChunk())
+    {
+      assertThat(chunk.length).isLessThanOrEqualTo(BackupManager.ContentDefinedChunker.MAX_CHUNK_SIZE);
+      if (offset + chunk.length < data.length)
+      {
+        assertThat(chunk.length).isGreaterThanOrEqualTo(BackupManager.ContentDefinedChunker.MIN_CHUNK_SIZE);
+      }
+      assertThat(chunk).isEqualTo(Arrays.copyOfRange(data, offset, offset + chunk.length));
+      offset += chunk.length;
+    }
+    assertThat(offset).isEqualTo(data.length);
+  }
+
   @Test
   public void testCreateDirectoryWithNumericSuffix() throws Exception
   {
@@ -293,10 +485,32 @@ public class BackupManagerTestCase extends DirectoryServerTestCase
     return new BackupDirectory(backupDirectory.getAbsolutePath(), DN.valueOf(ENTRY_DN));
   }
 
+  private long countChunkFiles(String backupPath)
+  {
+    return listChunkFiles(backupPath).size();
+  }
+
+  private List<File> listChunkFiles(String backupPath)
+  {
+    List<File> chunkFiles = new ArrayList<>();
+    File[] subDirectories = new File(backupPath, "chunks").listFiles();
+    if (subDirectories != null)
+    {
+      for (File subDirectory : subDirectories)
+      {
+        chunkFiles.addAll(Arrays.asList(subDirectory.listFiles()));
+      }
+    }
+    return chunkFiles;
+  }
+
   private Backupable buildBackupable(Path sourceDirectory, int numberOfFiles) throws Exception
   {
-    List<Path> files = createFilesInDirectoryToBackup(sourceDirectory, numberOfFiles);
+    return buildBackupable(sourceDirectory, createFilesInDirectoryToBackup(sourceDirectory, numberOfFiles));
+  }
 
+  private Backupable buildBackupable(Path sourceDirectory, List<Path> files) throws Exception
+  {
     Backupable backupable = mock(Backupable.class);
     when(backupable.getDirectory()).thenReturn(sourceDirectory.toFile());
     when(backupable.getFilesToBackup()).thenReturn(files.listIterator());